@@ -23,6 +23,7 @@ package nl.lxtreme.ols.api;
 
 import java.io.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.devices.*;
 
 
@@ -31,6 +32,13 @@ import nl.lxtreme.ols.api.devices.*;
  */
 public interface DataAcquisitionService
 {
+  // CONSTANTS
+
+  /**
+   * Denotes that a repeated acquisition should continue until it is cancelled.
+   */
+  public static final int REPEAT_UNTIL_CANCELLED = -1;
+
   // METHODS
 
   /**
@@ -46,6 +54,14 @@ public interface DataAcquisitionService
    */
   public void cancelAcquisition( Device aDevice ) throws IOException, IllegalStateException;
 
+  /**
+   * Returns the history of the most recent acquisition results of a repeated
+   * acquisition. Single acquisitions are not added to this history.
+   * 
+   * @return the capture history, never <code>null</code>.
+   */
+  public CaptureHistory getCaptureHistory();
+
   /**
    * Returns whether or not this device controller is acquiring data.
    * 
@@ -67,4 +83,29 @@ public interface DataAcquisitionService
    *           in case the given device was <code>null</code>.
    */
   void acquireData( Device aDevice ) throws IOException;
+
+  /**
+   * Acquires data from the given device repeatedly, re-arming the device
+   * directly after each capture is read. The
+   * {@link #getCaptureHistory() capture history} is cleared first, after which
+   * each capture is added to it. When captures are completed
+   * faster than they are handled by the acquisition data listeners, only the
+   * most recent capture is passed to them.
+   * <p>
+   * Cancelling the acquisition ends the repetition after the current capture.
+   * </p>
+   * 
+   * @param aDevice
+   *          the device from which data should be acquired, cannot be
+   *          <code>null</code>;
+   * @param aCount
+   *          the number of captures to take, > 0, or
+   *          {@link #REPEAT_UNTIL_CANCELLED}.
+   * @throws IOException
+   *           in case of I/O problems during the acquisition of data;
+   * @throws IllegalArgumentException
+   *           in case the given device was <code>null</code> or the given
+   *           count was invalid.
+   */
+  void acquireDataRepeatedly( Device aDevice, int aCount ) throws IOException;
 }
@@ -37,4 +37,21 @@ public interface AcquisitionDataListener
    */
   public void acquisitionComplete( final AcquisitionResult aData );
 
+  /**
+   * Called during the capture process, when part of the captured data is
+   * available.
+   * <p>
+   * The given data contains the transitions decoded so far, and is superseded
+   * by each next call of this method, and finally by
+   * {@link #acquisitionComplete(AcquisitionResult)}. The arrays of consecutive
+   * partial results can be shared, so only the first
+   * {@link AcquisitionResult#getSampleCount()} values and timestamps are
+   * valid. Devices are not required to provide partial data at all.
+   * </p>
+   * 
+   * @param aPartialData
+   *          the partially captured data, never <code>null</code>.
+   */
+  public void acquisitionPartiallyComplete( final AcquisitionResult aPartialData );
+
 }
@@ -21,6 +21,9 @@
 package nl.lxtreme.ols.api.acquisition;
 
 
+import nl.lxtreme.ols.api.data.*;
+
+
 /**
  * Denotes a concrete result of a single acquisition.
  */
@@ -37,6 +40,18 @@ public interface AcquisitionResult
    */
   public abstract long getAbsoluteLength();
 
+  /**
+   * Returns the index of the edges of the individual channels in the sample
+   * data.
+   * <p>
+   * The returned index is shared by all users of this result, so that the
+   * edges of a channel are determined only once.
+   * </p>
+   * 
+   * @return the edge index, never <code>null</code>.
+   */
+  public abstract EdgeIndex getEdgeIndex();
+
   /**
    * Returns the number of channels in the sample data.
    * 
@@ -52,6 +67,19 @@ public interface AcquisitionResult
    */
   public abstract int getEnabledChannels();
 
+  /**
+   * Returns the number of samples in the sample data.
+   * <p>
+   * Use this method, together with {@link #getValues(int, int[], int, int)}
+   * and {@link #getTimestamps(int, long[], int, int)}, to process the sample
+   * data in chunks, which does not require the entire sample data to be
+   * present on the heap.
+   * </p>
+   * 
+   * @return the sample count, >= 0.
+   */
+  public abstract int getSampleCount();
+
   /**
    * Returns the sample index from the given absolute time value.
    * 
@@ -85,6 +113,24 @@ public interface AcquisitionResult
    */
   public abstract long[] getTimestamps();
 
+  /**
+   * Copies the time stamps of a range of samples into the given buffer.
+   * 
+   * @param aIndex
+   *          the index of the first sample to copy the time stamp of, >= 0;
+   * @param aBuffer
+   *          the buffer to copy the time stamps into, cannot be
+   *          <code>null</code>;
+   * @param aOffset
+   *          the offset in the buffer to start copying to, >= 0;
+   * @param aLength
+   *          the maximum number of time stamps to copy, >= 0.
+   * @return the actual number of copied time stamps, which is less than the
+   *         given length only if the end of the sample data is reached.
+   * @see #getSampleCount()
+   */
+  public abstract int getTimestamps( final int aIndex, final long[] aBuffer, final int aOffset, final int aLength );
+
   /**
    * Returns the trigger position, as (absolute) time-value.
    * 
@@ -104,6 +150,24 @@ public interface AcquisitionResult
    */
   public abstract int[] getValues();
 
+  /**
+   * Copies the values of a range of samples into the given buffer.
+   * 
+   * @param aIndex
+   *          the index of the first sample to copy the value of, >= 0;
+   * @param aBuffer
+   *          the buffer to copy the sample values into, cannot be
+   *          <code>null</code>;
+   * @param aOffset
+   *          the offset in the buffer to start copying to, >= 0;
+   * @param aLength
+   *          the maximum number of sample values to copy, >= 0.
+   * @return the actual number of copied sample values, which is less than the
+   *         given length only if the end of the sample data is reached.
+   * @see #getSampleCount()
+   */
+  public abstract int getValues( final int aIndex, final int[] aBuffer, final int aOffset, final int aLength );
+
   /**
    * Returns wether or not the object contains timing data
    * 
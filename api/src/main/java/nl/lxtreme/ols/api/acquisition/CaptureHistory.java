@@ -0,0 +1,89 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.acquisition;
+
+
+import java.io.*;
+
+
+/**
+ * Provides access to the most recent acquisition results, for example, to
+ * compare the captures of a repeated acquisition with each other.
+ * <p>
+ * Only a limited number of captures is kept in memory, older captures are kept
+ * on disk until they are discarded as well.
+ * </p>
+ */
+public interface CaptureHistory
+{
+  // METHODS
+
+  /**
+   * Discards all captures of this history.
+   */
+  public void clear();
+
+  /**
+   * Returns the capture with the given index.
+   * 
+   * @param aIndex
+   *          the index of the capture, where 0 is the most recent capture, >= 0
+   *          && < {@link #size()}.
+   * @return the capture, never <code>null</code>.
+   * @throws IOException
+   *           in case the capture had to be read back from disk and this
+   *           failed.
+   */
+  public AcquisitionResult getCapture( int aIndex ) throws IOException;
+
+  /**
+   * Returns the time at which the capture with the given index was completed.
+   * 
+   * @param aIndex
+   *          the index of the capture, where 0 is the most recent capture, >= 0
+   *          && < {@link #size()}.
+   * @return the completion time, in milliseconds since the epoch.
+   */
+  public long getCaptureTime( int aIndex );
+
+  /**
+   * Compares the captures with the given indexes and returns the first
+   * timestamp at which their sample values differ.
+   * 
+   * @param aIndex1
+   *          the index of the first capture to compare;
+   * @param aIndex2
+   *          the index of the second capture to compare.
+   * @return the first timestamp at which the captures differ, or -1 if they do
+   *         not differ up to the shortest of both captures.
+   * @throws IOException
+   *           in case one of the captures had to be read back from disk and
+   *           this failed.
+   */
+  public long getFirstDifference( int aIndex1, int aIndex2 ) throws IOException;
+
+  /**
+   * Returns the number of captures in this history.
+   * 
+   * @return a capture count, >= 0.
+   */
+  public int size();
+}
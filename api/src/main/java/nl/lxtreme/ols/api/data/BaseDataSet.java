@@ -43,7 +43,7 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
   private final int sampleRate;
   private final boolean triggerDataPresent;
   private final long triggerPosition;
-  private final long[] timestamps;
+  private final AcquisitionResult acquisitionData;
 
   // CONSTRUCTORS
 
@@ -70,7 +70,7 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
     this.triggerDataPresent = aData.hasTriggerData();
     this.triggerPosition = aData.getTriggerPosition();
 
-    this.timestamps = aData.getTimestamps();
+    this.acquisitionData = aData;
   }
 
   // METHODS
@@ -123,7 +123,13 @@ public class BaseDataSet<DATA extends BaseData<DATA>>
    */
   public final double getTime( final int aSampleIdx )
   {
-    long time = this.timestamps[aSampleIdx];
+    final long[] timestamp = new long[1];
+    if ( this.acquisitionData.getTimestamps( aSampleIdx, timestamp, 0, 1 ) < 1 )
+    {
+      throw new ArrayIndexOutOfBoundsException( aSampleIdx );
+    }
+
+    long time = timestamp[0];
     if ( this.triggerDataPresent )
     {
       time -= this.triggerPosition;
@@ -62,6 +62,9 @@ public class CapturedData implements AcquisitionResult
   /** absolute sample length */
   private final long absoluteLength;
 
+  /** lazily created edge index */
+  private volatile EdgeIndex edgeIndex;
+
   // CONSTRUCTORS
 
   /**
@@ -333,6 +336,62 @@ public class CapturedData implements AcquisitionResult
     this.absoluteLength = aAbsoluteLength;
   }
 
+  /**
+   * Constructs CapturedData by adopting the transitions of the given buffer.
+   * <p>
+   * As the given buffer only contains unique transitions, no additional pass
+   * over the data is needed. The given buffer is drained while its transitions
+   * are adopted, and should no longer be used afterwards.
+   * </p>
+   *
+   * @param aBuffer
+   *          the buffer with the (unique) transitions to adopt;
+   * @param aTriggerPosition
+   *          position of trigger as time value
+   * @param aRate
+   *          sampling rate (may be set to <code>NOT_AVAILABLE</code>)
+   * @param aChannels
+   *          number of used channels
+   * @param aEnabledChannels
+   *          bit mask identifying used channels
+   * @param aAbsoluteLength
+   *          absolute number of samples
+   */
+  public CapturedData( final TransitionBuffer aBuffer, final long aTriggerPosition, final int aRate,
+      final int aChannels, final int aEnabledChannels, final long aAbsoluteLength )
+  {
+    // Ensure we've got an absolute length available...
+    long absLength = Math.max( 0L, aAbsoluteLength );
+
+    if ( !aBuffer.isEmpty() )
+    {
+      if ( aAbsoluteLength < 0L )
+      {
+        absLength = aBuffer.getEndTimestamp();
+      }
+      else
+      {
+        absLength = Math.max( aAbsoluteLength, aBuffer.getEndTimestamp() );
+      }
+
+      final long lastTimestamp = aBuffer.getLastTimestamp();
+      // Issue #167: make sure the absolute length is *always* present...
+      if ( ( lastTimestamp != absLength ) || ( aBuffer.size() < 2 ) )
+      {
+        aBuffer.append( aBuffer.getLastValue(), absLength );
+      }
+    }
+
+    this.values = aBuffer.releaseValues();
+    this.timestamps = aBuffer.releaseTimestamps();
+
+    this.triggerPosition = aTriggerPosition;
+    this.rate = aRate;
+    this.channels = aChannels;
+    this.enabledChannels = aEnabledChannels;
+    this.absoluteLength = absLength;
+  }
+
   /**
    * Provides a binary search for arrays of long-values.
    * <p>
@@ -416,6 +475,22 @@ public class CapturedData implements AcquisitionResult
     return this.channels;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEdgeIndex()
+   */
+  @Override
+  public final EdgeIndex getEdgeIndex()
+  {
+    EdgeIndex result = this.edgeIndex;
+    if ( result == null )
+    {
+      // Creating the index itself is cheap, so an occasional duplicate does no
+      // harm...
+      this.edgeIndex = result = new EdgeIndex( this.timestamps, this.values );
+    }
+    return result;
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getEnabledChannels()
    */
@@ -425,6 +500,15 @@ public class CapturedData implements AcquisitionResult
     return this.enabledChannels;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleCount()
+   */
+  @Override
+  public final int getSampleCount()
+  {
+    return this.values.length;
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getSampleIndex(long)
    */
@@ -452,6 +536,18 @@ public class CapturedData implements AcquisitionResult
     return this.timestamps;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps(int,
+   *      long[], int, int)
+   */
+  @Override
+  public final int getTimestamps( final int aIndex, final long[] aBuffer, final int aOffset, final int aLength )
+  {
+    final int length = Math.max( 0, Math.min( aLength, this.timestamps.length - aIndex ) );
+    System.arraycopy( this.timestamps, aIndex, aBuffer, aOffset, length );
+    return length;
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getTriggerPosition()
    */
@@ -470,6 +566,18 @@ public class CapturedData implements AcquisitionResult
     return this.values;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues(int,
+   *      int[], int, int)
+   */
+  @Override
+  public final int getValues( final int aIndex, final int[] aBuffer, final int aOffset, final int aLength )
+  {
+    final int length = Math.max( 0, Math.min( aLength, this.values.length - aIndex ) );
+    System.arraycopy( this.values, aIndex, aBuffer, aOffset, length );
+    return length;
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#hasTimingData()
    */
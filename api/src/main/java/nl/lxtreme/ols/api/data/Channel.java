@@ -41,6 +41,14 @@ public interface Channel extends Comparable<Channel>
    */
   void addAnnotation( Annotation<?> aAnnotation );
 
+  /**
+   * Adds all given annotations to this channel at once.
+   * 
+   * @param aAnnotations
+   *          the annotations to add, cannot be <code>null</code>.
+   */
+  void addAnnotations( Collection<? extends Annotation<?>> aAnnotations );
+
   /**
    * Clears all annotations from this channel.
    */
@@ -54,6 +62,14 @@ public interface Channel extends Comparable<Channel>
    */
   Collection<Annotation<?>> getAnnotations();
 
+  /**
+   * Returns the time-indexed store with the data annotations of this channel,
+   * which allows for efficient lookups of annotations by their time.
+   * 
+   * @return an annotation store, never <code>null</code>.
+   */
+  AnnotationStore getAnnotationStore();
+
   /**
    * Returns the index of this channel.
    * 
@@ -24,6 +24,8 @@ package nl.lxtreme.ols.api.data;
 import java.util.*;
 import java.util.concurrent.*;
 
+import nl.lxtreme.ols.api.util.*;
+
 
 /**
  * Denotes a set of channel annotations for a single channel.
@@ -35,6 +37,7 @@ public class ChannelAnnotations
 
   private final int channel;
   private final SortedSet<ChannelAnnotation> annotations;
+  private final IntervalIndex<ChannelAnnotation> index;
 
   // CONSTRUCTORS
 
@@ -49,6 +52,7 @@ public class ChannelAnnotations
   {
     this.channel = aChannel;
     this.annotations = new ConcurrentSkipListSet<ChannelAnnotation>();
+    this.index = new IntervalIndex<ChannelAnnotation>();
   }
 
   // METHODS
@@ -65,7 +69,14 @@ public class ChannelAnnotations
    */
   public void addAnnotation( final long aStartTimestamp, final long aEndTimestamp, final Object aData )
   {
-    this.annotations.add( new ChannelAnnotation( aStartTimestamp, aEndTimestamp, aData ) );
+    final ChannelAnnotation annotation = new ChannelAnnotation( aStartTimestamp, aEndTimestamp, aData );
+    if ( this.annotations.add( annotation ) )
+    {
+      synchronized ( this.index )
+      {
+        this.index.add( aStartTimestamp, aEndTimestamp, annotation );
+      }
+    }
   }
 
   /**
@@ -102,14 +113,10 @@ public class ChannelAnnotations
    */
   public ChannelAnnotation getAnnotation( final int aTimeIndex )
   {
-    for ( ChannelAnnotation annotation : this.annotations )
+    synchronized ( this.index )
     {
-      if ( annotation.isInRange( aTimeIndex ) )
-      {
-        return annotation;
-      }
+      return this.index.getFirstOverlapping( aTimeIndex, aTimeIndex );
     }
-    return null;
   }
 
   /**
@@ -133,15 +140,10 @@ public class ChannelAnnotations
    */
   public Iterator<ChannelAnnotation> getAnnotations( final int aStartIdx, final int aEndIdx )
   {
-    // Try to find the exact starting & ending index in our own
-    // administration...
     final List<ChannelAnnotation> result = new ArrayList<ChannelAnnotation>();
-    for ( ChannelAnnotation ann : this.annotations )
+    synchronized ( this.index )
     {
-      if ( ann.isInRange( aStartIdx, aEndIdx ) )
-      {
-        result.add( ann );
-      }
+      this.index.getOverlapping( aStartIdx, aEndIdx, result );
     }
 
     // Craft an iterator that walks between the determined boundries...
@@ -332,6 +332,15 @@ public final class DataContainer implements AcquisitionResult
         / ( double )getAcquisitionData().getSampleRate() );
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEdgeIndex()
+   */
+  @Override
+  public EdgeIndex getEdgeIndex()
+  {
+    return hasCapturedData() ? getAcquisitionData().getEdgeIndex() : new EdgeIndex( new long[0], new int[0] );
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getEnabledChannels()
    */
@@ -341,6 +350,15 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().getEnabledChannels() : Ols.NOT_AVAILABLE;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleCount()
+   */
+  @Override
+  public int getSampleCount()
+  {
+    return hasCapturedData() ? getAcquisitionData().getSampleCount() : 0;
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getSampleIndex(long)
    */
@@ -368,6 +386,16 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().getTimestamps() : new long[0];
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps(int,
+   *      long[], int, int)
+   */
+  @Override
+  public int getTimestamps( final int aIndex, final long[] aBuffer, final int aOffset, final int aLength )
+  {
+    return hasCapturedData() ? getAcquisitionData().getTimestamps( aIndex, aBuffer, aOffset, aLength ) : 0;
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getTriggerPosition()
    */
@@ -386,6 +414,16 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().getValues() : new int[0];
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues(int,
+   *      int[], int, int)
+   */
+  @Override
+  public int getValues( final int aIndex, final int[] aBuffer, final int aOffset, final int aLength )
+  {
+    return hasCapturedData() ? getAcquisitionData().getValues( aIndex, aBuffer, aOffset, aLength ) : 0;
+  }
+
   /**
    * Returns whether any captured data is available.
    * 
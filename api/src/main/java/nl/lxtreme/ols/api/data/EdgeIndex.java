@@ -0,0 +1,264 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides an index of the edges of the individual channels of captured data,
+ * allowing the next edge and the level of a channel to be found in O(log n)
+ * time instead of walking through the data sample-by-sample.
+ * <p>
+ * The edges of a channel are determined once, the first time the channel is
+ * queried, and are cached afterwards. As such, the captured data should not be
+ * modified after an index is created for it. The captured data is read in
+ * chunks, so it does not need to be present on the heap as a whole.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class EdgeIndex
+{
+  // VARIABLES
+
+  private final AcquisitionResult data;
+  private final long[] timestamps;
+  private final int[] values;
+  private final int firstValue;
+  /** the edge timestamps per channel, lazily determined. */
+  private final long[][] channelEdges;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new EdgeIndex instance.
+   * 
+   * @param aTimestamps
+   *          the timestamps of the captured data, cannot be <code>null</code>;
+   * @param aValues
+   *          the sample values of the captured data, cannot be
+   *          <code>null</code>.
+   */
+  public EdgeIndex( final long[] aTimestamps, final int[] aValues )
+  {
+    if ( aTimestamps == null )
+    {
+      throw new IllegalArgumentException( "Timestamps cannot be null!" );
+    }
+    if ( aValues == null )
+    {
+      throw new IllegalArgumentException( "Values cannot be null!" );
+    }
+    if ( aTimestamps.length != aValues.length )
+    {
+      throw new IllegalArgumentException( "Values and timestamps size mismatch!" );
+    }
+
+    this.data = null;
+    this.timestamps = aTimestamps;
+    this.values = aValues;
+    this.firstValue = ( aValues.length > 0 ) ? aValues[0] : 0;
+    this.channelEdges = new long[Ols.MAX_CHANNELS][];
+  }
+
+  /**
+   * Creates a new EdgeIndex instance.
+   * 
+   * @param aData
+   *          the captured data to index, cannot be <code>null</code>.
+   */
+  public EdgeIndex( final AcquisitionResult aData )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+
+    final int[] first = new int[1];
+
+    this.data = aData;
+    this.timestamps = null;
+    this.values = null;
+    this.firstValue = ( aData.getValues( 0, first, 0, 1 ) > 0 ) ? first[0] : 0;
+    this.channelEdges = new long[Ols.MAX_CHANNELS][];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the number of edges of the given channel.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to return the edge count for, >= 0 &&
+   *          < 32.
+   * @return an edge count, >= 0.
+   */
+  public int getEdgeCount( final int aChannelIdx )
+  {
+    return getEdges( aChannelIdx ).length;
+  }
+
+  /**
+   * Returns the timestamp of the first edge of the given channel that occurs
+   * at or after the given timestamp.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to search the edge on, >= 0 && < 32;
+   * @param aTimestamp
+   *          the timestamp to start searching from (inclusive);
+   * @param aEdge
+   *          the type of edge to search for, {@link Edge#NONE} to search for
+   *          any edge, cannot be <code>null</code>.
+   * @return the timestamp of the found edge, or -1 if no such edge exists.
+   */
+  public long nextEdge( final int aChannelIdx, final long aTimestamp, final Edge aEdge )
+  {
+    final long[] edges = getEdges( aChannelIdx );
+
+    int idx = countEdgesBefore( edges, aTimestamp );
+    if ( ( idx < edges.length ) && !aEdge.isNone() && ( getEdge( aChannelIdx, idx ) != aEdge ) )
+    {
+      // Edges of a single channel always alternate...
+      idx++;
+    }
+
+    return ( idx < edges.length ) ? edges[idx] : -1L;
+  }
+
+  /**
+   * Returns the level of the given channel at the given timestamp, being the
+   * level of the last sample at or before that timestamp.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to return the level for, >= 0 && < 32;
+   * @param aTimestamp
+   *          the timestamp to return the level for. If this timestamp lies
+   *          before the first sample, the level of the first sample is
+   *          returned.
+   * @return the level of the channel, either 0 or 1.
+   */
+  public int valueAt( final int aChannelIdx, final long aTimestamp )
+  {
+    final long[] edges = getEdges( aChannelIdx );
+
+    final int count = countEdgesBefore( edges, aTimestamp + 1L );
+    return getInitialLevel( aChannelIdx ) ^ ( count & 1 );
+  }
+
+  /**
+   * Determines the number of edges before the given timestamp, which is also
+   * the index of the first edge at or after the given timestamp.
+   */
+  private static int countEdgesBefore( final long[] aEdges, final long aTimestamp )
+  {
+    int low = 0;
+    int high = aEdges.length;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( aEdges[mid] < aTimestamp )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the type of the edge with the given index.
+   */
+  private Edge getEdge( final int aChannelIdx, final int aEdgeIdx )
+  {
+    // Edges alternate, starting with the one leaving the initial level...
+    return ( ( getInitialLevel( aChannelIdx ) ^ ( aEdgeIdx & 1 ) ) == 0 ) ? Edge.RISING : Edge.FALLING;
+  }
+
+  /**
+   * Returns the edges of the given channel, determining them if necessary.
+   */
+  private long[] getEdges( final int aChannelIdx )
+  {
+    if ( ( aChannelIdx < 0 ) || ( aChannelIdx >= Ols.MAX_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx + "! Should be between 0 and "
+          + Ols.MAX_CHANNELS );
+    }
+
+    synchronized ( this.channelEdges )
+    {
+      long[] result = this.channelEdges[aChannelIdx];
+      if ( result == null )
+      {
+        result = this.channelEdges[aChannelIdx] = indexEdges( 1 << aChannelIdx );
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Returns the level of the given channel in the first sample.
+   */
+  private int getInitialLevel( final int aChannelIdx )
+  {
+    return ( this.firstValue >>> aChannelIdx ) & 1;
+  }
+
+  /**
+   * Determines the timestamps of all edges for the given channel mask.
+   */
+  private long[] indexEdges( final int aMask )
+  {
+    final SampleReader reader = ( this.data != null ) ? new SampleReader( this.data ) : new SampleReader(
+        this.timestamps, this.values );
+
+    final int sampleCount = reader.getSampleCount();
+
+    long[] result = new long[16];
+    int count = 0;
+
+    int lastValue = this.firstValue;
+    for ( int i = 1; i < sampleCount; i++ )
+    {
+      final int value = reader.getValue( i );
+      if ( ( ( lastValue ^ value ) & aMask ) != 0 )
+      {
+        if ( count == result.length )
+        {
+          result = Arrays.copyOf( result, count + ( count >> 1 ) );
+        }
+        result[count++] = reader.getTimestamp( i );
+      }
+      lastValue = value;
+    }
+
+    return Arrays.copyOf( result, count );
+  }
+}
@@ -0,0 +1,706 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.io.*;
+import java.lang.ref.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides an acquisition result whose sample values and timestamps are kept in
+ * memory-mapped (temporary) files instead of on the heap.
+ * <p>
+ * This allows captures that are larger than the available heap to be processed
+ * in chunks, by means of {@link #getValues(int, int[], int, int)} and
+ * {@link #getTimestamps(int, long[], int, int)}. The methods returning the
+ * entire sample data as array, {@link #getValues()} and
+ * {@link #getTimestamps()}, are still supported for existing callers, but copy
+ * the entire sample data onto the heap upon first use. These copies are
+ * softly referenced, so they are released again when the heap runs low.
+ * </p>
+ * <p>
+ * The temporary files are deleted as soon as they are mapped, which most
+ * platforms allow, leaving their contents available until the result itself
+ * is released. Otherwise, they are deleted once the result is garbage
+ * collected, or when the VM exits at the latest.
+ * </p>
+ * <p>
+ * Instances are created by means of a {@link Builder}. This class is
+ * thread-safe.
+ * </p>
+ */
+public final class MappedCapturedData implements AcquisitionResult
+{
+  // INNER TYPES
+
+  /**
+   * Keeps track of the temporary files of a result that could not be deleted
+   * while the result was still in use.
+   */
+  static final class FileReference extends PhantomReference<MappedCapturedData>
+  {
+    // VARIABLES
+
+    final List<File> files;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new FileReference instance.
+     */
+    FileReference( final MappedCapturedData aData, final List<File> aFiles )
+    {
+      super( aData, RELEASED );
+      this.files = aFiles;
+    }
+  }
+
+  /**
+   * Provides a builder for {@link MappedCapturedData}, writing the transitions
+   * to temporary files while they are added.
+   * <p>
+   * This class is <b>not</b> thread-safe.
+   * </p>
+   */
+  public static final class Builder
+  {
+    // VARIABLES
+
+    private final File valuesFile;
+    private final File timestampsFile;
+    private final RandomAccessFile valuesRaf;
+    private final RandomAccessFile timestampsRaf;
+    private final ByteBuffer valuesBuffer;
+    private final ByteBuffer timestampsBuffer;
+
+    private int size;
+    private int lastValue;
+    private long lastTimestamp;
+    private long endTimestamp;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Builder instance.
+     * 
+     * @throws IOException
+     *           in case the temporary files could not be created.
+     */
+    public Builder() throws IOException
+    {
+      deleteReleasedFiles();
+
+      this.valuesFile = createTempFile( ".values" );
+      this.timestampsFile = createTempFile( ".timestamps" );
+      this.valuesRaf = new RandomAccessFile( this.valuesFile, "rw" );
+      this.timestampsRaf = new RandomAccessFile( this.timestampsFile, "rw" );
+      this.valuesBuffer = ByteBuffer.allocateDirect( BUFFER_SIZE ).order( ByteOrder.nativeOrder() );
+      this.timestampsBuffer = ByteBuffer.allocateDirect( 2 * BUFFER_SIZE ).order( ByteOrder.nativeOrder() );
+      this.endTimestamp = -1L;
+    }
+
+    // METHODS
+
+    /**
+     * Adds a given sample value and timestamp, but only if it differs from the
+     * last added sample value.
+     * 
+     * @param aValue
+     *          the sample value to add;
+     * @param aTimestamp
+     *          the timestamp of the sample value, should be greater than or
+     *          equal to the last added timestamp.
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    public void add( final int aValue, final long aTimestamp ) throws IOException
+    {
+      if ( ( this.size == 0 ) || ( this.lastValue != aValue ) )
+      {
+        append( aValue, aTimestamp );
+      }
+      else
+      {
+        this.endTimestamp = aTimestamp;
+      }
+    }
+
+    /**
+     * Appends a given sample value and timestamp, regardless of the last added
+     * sample value.
+     * 
+     * @param aValue
+     *          the sample value to append;
+     * @param aTimestamp
+     *          the timestamp of the sample value, should be greater than or
+     *          equal to the last added timestamp.
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    public void append( final int aValue, final long aTimestamp ) throws IOException
+    {
+      if ( this.size == Integer.MAX_VALUE )
+      {
+        throw new IOException( "Too many transitions!" );
+      }
+      if ( !this.valuesBuffer.hasRemaining() )
+      {
+        flush();
+      }
+
+      this.valuesBuffer.putInt( aValue );
+      this.timestampsBuffer.putLong( aTimestamp );
+
+      this.lastValue = aValue;
+      this.lastTimestamp = aTimestamp;
+      this.endTimestamp = aTimestamp;
+      this.size++;
+    }
+
+    /**
+     * Creates the captured data from all added transitions.
+     * <p>
+     * After calling this method, this builder should no longer be used.
+     * </p>
+     * 
+     * @param aTriggerPosition
+     *          position of trigger as time value
+     * @param aRate
+     *          sampling rate (may be set to <code>NOT_AVAILABLE</code>)
+     * @param aChannels
+     *          number of used channels
+     * @param aEnabledChannels
+     *          bit mask identifying used channels
+     * @param aAbsoluteLength
+     *          absolute number of samples
+     * @return the captured data, never <code>null</code>.
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    public MappedCapturedData build( final long aTriggerPosition, final int aRate, final int aChannels,
+        final int aEnabledChannels, final long aAbsoluteLength ) throws IOException
+    {
+      // Ensure we've got an absolute length available...
+      long absLength = Math.max( 0L, aAbsoluteLength );
+
+      if ( this.size > 0 )
+      {
+        absLength = Math.max( aAbsoluteLength, this.endTimestamp );
+
+        // Issue #167: make sure the absolute length is *always* present...
+        if ( ( this.lastTimestamp != absLength ) || ( this.size < 2 ) )
+        {
+          append( this.lastValue, absLength );
+        }
+      }
+
+      try
+      {
+        flush();
+
+        final IntBuffer[] values = new IntBuffer[getSegmentCount( this.size )];
+        final LongBuffer[] timestamps = new LongBuffer[values.length];
+
+        final FileChannel valuesChannel = this.valuesRaf.getChannel();
+        final FileChannel timestampsChannel = this.timestampsRaf.getChannel();
+        for ( int i = 0; i < values.length; i++ )
+        {
+          final long start = ( long )i << SEGMENT_SHIFT;
+          final long count = Math.min( SEGMENT_SIZE, this.size - start );
+
+          values[i] = valuesChannel.map( MapMode.READ_ONLY, start * 4L, count * 4L )
+              .order( ByteOrder.nativeOrder() ).asIntBuffer();
+          timestamps[i] = timestampsChannel.map( MapMode.READ_ONLY, start * 8L, count * 8L )
+              .order( ByteOrder.nativeOrder() ).asLongBuffer();
+        }
+
+        final MappedCapturedData result = new MappedCapturedData( values, timestamps, this.size, aTriggerPosition,
+            aRate, aChannels, aEnabledChannels, absLength );
+
+        // The mappings remain valid after closing (and deleting) the files...
+        close();
+
+        deleteWhenReleased( result, this.valuesFile, this.timestampsFile );
+
+        return result;
+      }
+      finally
+      {
+        close();
+      }
+    }
+
+    /**
+     * Discards all added transitions, removing the temporary files.
+     * <p>
+     * After calling this method, this builder should no longer be used.
+     * </p>
+     */
+    public void discard()
+    {
+      close();
+
+      this.valuesFile.delete();
+      this.timestampsFile.delete();
+    }
+
+    /**
+     * Returns the number of transitions added to this builder.
+     * 
+     * @return a transition count, >= 0.
+     */
+    public int size()
+    {
+      return this.size;
+    }
+
+    /**
+     * Closes the temporary files.
+     */
+    private void close()
+    {
+      try
+      {
+        this.valuesRaf.close();
+      }
+      catch ( IOException exception )
+      {
+        // Ignore...
+      }
+      try
+      {
+        this.timestampsRaf.close();
+      }
+      catch ( IOException exception )
+      {
+        // Ignore...
+      }
+    }
+
+    /**
+     * Writes all buffered transitions to the temporary files.
+     */
+    private void flush() throws IOException
+    {
+      write( this.valuesRaf.getChannel(), this.valuesBuffer );
+      write( this.timestampsRaf.getChannel(), this.timestampsBuffer );
+    }
+
+    /**
+     * Writes the entire contents of the given buffer to the given channel.
+     */
+    private void write( final FileChannel aChannel, final ByteBuffer aBuffer ) throws IOException
+    {
+      aBuffer.flip();
+      while ( aBuffer.hasRemaining() )
+      {
+        aChannel.write( aBuffer );
+      }
+      aBuffer.clear();
+    }
+  }
+
+  // CONSTANTS
+
+  /** The number of transitions in a single mapped segment, as power of two. */
+  private static final int SEGMENT_SHIFT = 27;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /** The number of transitions buffered while building. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Enqueues the results whose files are to be deleted. */
+  static final ReferenceQueue<MappedCapturedData> RELEASED = new ReferenceQueue<MappedCapturedData>();
+  /** The files of results still in use. Guarded by itself. */
+  private static final Set<FileReference> PENDING = new HashSet<FileReference>();
+  /** The files of released results that could not be deleted yet. Guarded by PENDING. */
+  private static final List<File> UNDELETED = new ArrayList<File>();
+
+  // VARIABLES
+
+  private final IntBuffer[] valueSegments;
+  private final LongBuffer[] timestampSegments;
+  private final int size;
+  private final long triggerPosition;
+  private final int rate;
+  private final int channels;
+  private final int enabledChannels;
+  private final long absoluteLength;
+
+  private volatile SoftReference<int[]> values;
+  private volatile SoftReference<long[]> timestamps;
+  private volatile EdgeIndex edgeIndex;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new MappedCapturedData instance.
+   */
+  MappedCapturedData( final IntBuffer[] aValueSegments, final LongBuffer[] aTimestampSegments, final int aSize,
+      final long aTriggerPosition, final int aRate, final int aChannels, final int aEnabledChannels,
+      final long aAbsoluteLength )
+  {
+    this.valueSegments = aValueSegments;
+    this.timestampSegments = aTimestampSegments;
+    this.size = aSize;
+    this.triggerPosition = aTriggerPosition;
+    this.rate = aRate;
+    this.channels = aChannels;
+    this.enabledChannels = aEnabledChannels;
+    this.absoluteLength = aAbsoluteLength;
+  }
+
+  // METHODS
+
+  /**
+   * Creates a temporary file that is removed when the VM exits.
+   */
+  static File createTempFile( final String aSuffix ) throws IOException
+  {
+    final File result = File.createTempFile( "ols", aSuffix );
+    result.deleteOnExit();
+    return result;
+  }
+
+  /**
+   * Deletes the temporary files of all results that are released since the
+   * last time this method was called.
+   */
+  static void deleteReleasedFiles()
+  {
+    synchronized ( PENDING )
+    {
+      Reference<? extends MappedCapturedData> ref;
+      while ( ( ref = RELEASED.poll() ) != null )
+      {
+        PENDING.remove( ref );
+        UNDELETED.addAll( ( ( FileReference )ref ).files );
+      }
+
+      // The mappings of a released result are only unmapped after a while,
+      // until then its files cannot be deleted on all platforms...
+      final Iterator<File> iter = UNDELETED.iterator();
+      while ( iter.hasNext() )
+      {
+        final File file = iter.next();
+        if ( file.delete() || !file.exists() )
+        {
+          iter.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the given files, or, if they are still in use, deletes them as
+   * soon as the given result is released.
+   */
+  static void deleteWhenReleased( final MappedCapturedData aData, final File... aFiles )
+  {
+    final List<File> remaining = new ArrayList<File>( aFiles.length );
+    for ( File file : aFiles )
+    {
+      if ( !file.delete() )
+      {
+        remaining.add( file );
+      }
+    }
+
+    if ( !remaining.isEmpty() )
+    {
+      synchronized ( PENDING )
+      {
+        PENDING.add( new FileReference( aData, remaining ) );
+      }
+    }
+  }
+
+  /**
+   * @return the number of segments needed for the given number of transitions.
+   */
+  static int getSegmentCount( final int aSize )
+  {
+    return ( int )( ( aSize + ( long )SEGMENT_MASK ) >>> SEGMENT_SHIFT );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getAbsoluteLength()
+   */
+  @Override
+  public long getAbsoluteLength()
+  {
+    return this.absoluteLength;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getChannels()
+   */
+  @Override
+  public int getChannels()
+  {
+    return this.channels;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEdgeIndex()
+   */
+  @Override
+  public EdgeIndex getEdgeIndex()
+  {
+    EdgeIndex result = this.edgeIndex;
+    if ( result == null )
+    {
+      this.edgeIndex = result = new EdgeIndex( this );
+    }
+    return result;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEnabledChannels()
+   */
+  @Override
+  public int getEnabledChannels()
+  {
+    return this.enabledChannels;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleCount()
+   */
+  @Override
+  public int getSampleCount()
+  {
+    return this.size;
+  }
+
+  /**
+   * Returns the sample index from the given absolute time value, using the
+   * same semantics as {@link CapturedData#getSampleIndex(long)}.
+   * 
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleIndex(long)
+   */
+  @Override
+  public int getSampleIndex( final long aTimeValue )
+  {
+    int mid = -1;
+    int low = 0;
+    int high = this.size - 1;
+
+    while ( low <= high )
+    {
+      mid = ( low + high ) >>> 1;
+      final long midVal = getTimestamp( mid );
+
+      if ( aTimeValue > midVal )
+      {
+        low = mid + 1;
+      }
+      else if ( aTimeValue < midVal )
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        return mid; // key found
+      }
+    }
+
+    if ( mid < 0 )
+    {
+      return low;
+    }
+
+    // Determine the insertion point, avoid crossing the array boundaries...
+    if ( ( mid < ( this.size - 1 ) ) && ( aTimeValue > getTimestamp( mid ) ) )
+    {
+      return mid + 1;
+    }
+
+    return mid;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleRate()
+   */
+  @Override
+  public int getSampleRate()
+  {
+    return this.rate;
+  }
+
+  /**
+   * Returns the timestamp of a single sample.
+   * 
+   * @param aIndex
+   *          the index of the sample, >= 0 && < {@link #getSampleCount()}.
+   * @return the timestamp of the sample.
+   */
+  public long getTimestamp( final int aIndex )
+  {
+    return this.timestampSegments[aIndex >>> SEGMENT_SHIFT].get( aIndex & SEGMENT_MASK );
+  }
+
+  /**
+   * Returns all timestamps, copying them onto the heap if needed.
+   * 
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps()
+   */
+  @Override
+  public long[] getTimestamps()
+  {
+    final SoftReference<long[]> ref = this.timestamps;
+
+    long[] result = ( ref == null ) ? null : ref.get();
+    if ( result == null )
+    {
+      result = new long[this.size];
+      getTimestamps( 0, result, 0, this.size );
+
+      this.timestamps = new SoftReference<long[]>( result );
+    }
+    return result;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps(int,
+   *      long[], int, int)
+   */
+  @Override
+  public int getTimestamps( final int aIndex, final long[] aBuffer, final int aOffset, final int aLength )
+  {
+    final int length = Math.max( 0, Math.min( aLength, this.size - aIndex ) );
+
+    int index = aIndex;
+    int offset = aOffset;
+    int remaining = length;
+    while ( remaining > 0 )
+    {
+      final LongBuffer segment = this.timestampSegments[index >>> SEGMENT_SHIFT].duplicate();
+      segment.position( index & SEGMENT_MASK );
+
+      final int count = Math.min( remaining, segment.remaining() );
+      segment.get( aBuffer, offset, count );
+
+      index += count;
+      offset += count;
+      remaining -= count;
+    }
+
+    return length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTriggerPosition()
+   */
+  @Override
+  public long getTriggerPosition()
+  {
+    return this.triggerPosition;
+  }
+
+  /**
+   * Returns the value of a single sample.
+   * 
+   * @param aIndex
+   *          the index of the sample, >= 0 && < {@link #getSampleCount()}.
+   * @return the sample value.
+   */
+  public int getValue( final int aIndex )
+  {
+    return this.valueSegments[aIndex >>> SEGMENT_SHIFT].get( aIndex & SEGMENT_MASK );
+  }
+
+  /**
+   * Returns all sample values, copying them onto the heap if needed.
+   * 
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues()
+   */
+  @Override
+  public int[] getValues()
+  {
+    final SoftReference<int[]> ref = this.values;
+
+    int[] result = ( ref == null ) ? null : ref.get();
+    if ( result == null )
+    {
+      result = new int[this.size];
+      getValues( 0, result, 0, this.size );
+
+      this.values = new SoftReference<int[]>( result );
+    }
+    return result;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues(int,
+   *      int[], int, int)
+   */
+  @Override
+  public int getValues( final int aIndex, final int[] aBuffer, final int aOffset, final int aLength )
+  {
+    final int length = Math.max( 0, Math.min( aLength, this.size - aIndex ) );
+
+    int index = aIndex;
+    int offset = aOffset;
+    int remaining = length;
+    while ( remaining > 0 )
+    {
+      final IntBuffer segment = this.valueSegments[index >>> SEGMENT_SHIFT].duplicate();
+      segment.position( index & SEGMENT_MASK );
+
+      final int count = Math.min( remaining, segment.remaining() );
+      segment.get( aBuffer, offset, count );
+
+      index += count;
+      offset += count;
+      remaining -= count;
+    }
+
+    return length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTimingData()
+   */
+  @Override
+  public boolean hasTimingData()
+  {
+    return ( this.rate != Ols.NOT_AVAILABLE );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTriggerData()
+   */
+  @Override
+  public boolean hasTriggerData()
+  {
+    return ( this.triggerPosition != Ols.NOT_AVAILABLE );
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides the part of an acquisition result that is available while the
+ * acquisition is still in progress.
+ * <p>
+ * The value and timestamp arrays are <em>not</em> copied, but can be shared
+ * with the partial results that follow, and only their first
+ * {@link #getSampleCount()} elements are valid. Hence, the arrays returned by
+ * {@link #getValues()} and {@link #getTimestamps()} can be longer than the
+ * sample count. Elements up to the sample count are never changed afterwards.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class PartialCapturedData implements AcquisitionResult
+{
+  // VARIABLES
+
+  private final int[] values;
+  private final long[] timestamps;
+  private final int sampleCount;
+  private final long triggerPosition;
+  private final int rate;
+  private final int channels;
+  private final int enabledChannels;
+  private final long absoluteLength;
+
+  /** lazily created edge index */
+  private volatile EdgeIndex edgeIndex;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new PartialCapturedData instance.
+   *
+   * @param aValues
+   *          the sample values, of which the first <tt>aSampleCount</tt> are
+   *          valid, cannot be <code>null</code>;
+   * @param aTimestamps
+   *          the timestamps, of which the first <tt>aSampleCount</tt> are
+   *          valid, cannot be <code>null</code>;
+   * @param aSampleCount
+   *          the number of valid sample values and timestamps;
+   * @param aTriggerPosition
+   *          position of trigger as time value
+   * @param aRate
+   *          sampling rate (may be set to <code>NOT_AVAILABLE</code>)
+   * @param aChannels
+   *          number of used channels
+   * @param aEnabledChannels
+   *          bit mask identifying used channels
+   * @param aAbsoluteLength
+   *          absolute number of samples so far
+   */
+  public PartialCapturedData( final int[] aValues, final long[] aTimestamps, final int aSampleCount,
+      final long aTriggerPosition, final int aRate, final int aChannels, final int aEnabledChannels,
+      final long aAbsoluteLength )
+  {
+    if ( ( aValues == null ) || ( aTimestamps == null ) )
+    {
+      throw new IllegalArgumentException( "Values and timestamps cannot be null!" );
+    }
+    if ( ( aSampleCount < 0 ) || ( aSampleCount > aValues.length ) || ( aSampleCount > aTimestamps.length ) )
+    {
+      throw new IllegalArgumentException( "Invalid sample count: " + aSampleCount + "!" );
+    }
+
+    this.values = aValues;
+    this.timestamps = aTimestamps;
+    this.sampleCount = aSampleCount;
+    this.triggerPosition = aTriggerPosition;
+    this.rate = aRate;
+    this.channels = aChannels;
+    this.enabledChannels = aEnabledChannels;
+    this.absoluteLength = aAbsoluteLength;
+  }
+
+  // METHODS
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getAbsoluteLength()
+   */
+  @Override
+  public long getAbsoluteLength()
+  {
+    return this.absoluteLength;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getChannels()
+   */
+  @Override
+  public int getChannels()
+  {
+    return this.channels;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEdgeIndex()
+   */
+  @Override
+  public EdgeIndex getEdgeIndex()
+  {
+    EdgeIndex result = this.edgeIndex;
+    if ( result == null )
+    {
+      this.edgeIndex = result = new EdgeIndex( this );
+    }
+    return result;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEnabledChannels()
+   */
+  @Override
+  public int getEnabledChannels()
+  {
+    return this.enabledChannels;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleCount()
+   */
+  @Override
+  public int getSampleCount()
+  {
+    return this.sampleCount;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleIndex(long)
+   */
+  @Override
+  public int getSampleIndex( final long aTimeValue )
+  {
+    return CapturedData.binarySearch( this.timestamps, 0, this.sampleCount, Long.valueOf( aTimeValue ) );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleRate()
+   */
+  @Override
+  public int getSampleRate()
+  {
+    return this.rate;
+  }
+
+  /**
+   * Returns the (shared) timestamps array, of which only the first
+   * {@link #getSampleCount()} elements are valid.
+   *
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps()
+   */
+  @Override
+  public long[] getTimestamps()
+  {
+    return this.timestamps;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps(int,
+   *      long[], int, int)
+   */
+  @Override
+  public int getTimestamps( final int aIndex, final long[] aBuffer, final int aOffset, final int aLength )
+  {
+    final int length = Math.max( 0, Math.min( aLength, this.sampleCount - aIndex ) );
+    System.arraycopy( this.timestamps, aIndex, aBuffer, aOffset, length );
+    return length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTriggerPosition()
+   */
+  @Override
+  public long getTriggerPosition()
+  {
+    return this.triggerPosition;
+  }
+
+  /**
+   * Returns the (shared) values array, of which only the first
+   * {@link #getSampleCount()} elements are valid.
+   *
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues()
+   */
+  @Override
+  public int[] getValues()
+  {
+    return this.values;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues(int,
+   *      int[], int, int)
+   */
+  @Override
+  public int getValues( final int aIndex, final int[] aBuffer, final int aOffset, final int aLength )
+  {
+    final int length = Math.max( 0, Math.min( aLength, this.sampleCount - aIndex ) );
+    System.arraycopy( this.values, aIndex, aBuffer, aOffset, length );
+    return length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTimingData()
+   */
+  @Override
+  public boolean hasTimingData()
+  {
+    return ( this.rate != Ols.NOT_AVAILABLE );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTriggerData()
+   */
+  @Override
+  public boolean hasTriggerData()
+  {
+    return ( this.triggerPosition != Ols.NOT_AVAILABLE );
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides access to individual sample values and timestamps of an acquisition
+ * result, without copying its entire sample data onto the heap.
+ * <p>
+ * The sample data is read in chunks, by means of
+ * {@link AcquisitionResult#getValues(int, int[], int, int)} and
+ * {@link AcquisitionResult#getTimestamps(int, long[], int, int)}, making
+ * (nearly) sequential access, in either direction, cheap.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ */
+public final class SampleReader
+{
+  // CONSTANTS
+
+  /** The default number of samples in a single chunk. */
+  private static final int DEFAULT_CHUNK_SIZE = 4096;
+
+  // VARIABLES
+
+  private final AcquisitionResult data;
+  private final int sampleCount;
+  private final int[] values;
+  private final long[] timestamps;
+
+  /** the range of samples currently in the values chunk. */
+  private int valuesStart;
+  private int valuesEnd;
+  /** the range of samples currently in the timestamps chunk. */
+  private int timestampsStart;
+  private int timestampsEnd;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SampleReader instance.
+   *
+   * @param aData
+   *          the acquisition result to read, cannot be <code>null</code>.
+   */
+  public SampleReader( final AcquisitionResult aData )
+  {
+    this( aData, DEFAULT_CHUNK_SIZE );
+  }
+
+  /**
+   * Creates a new SampleReader instance.
+   *
+   * @param aData
+   *          the acquisition result to read, cannot be <code>null</code>;
+   * @param aChunkSize
+   *          the number of samples to read at once, > 0.
+   */
+  public SampleReader( final AcquisitionResult aData, final int aChunkSize )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+    if ( aChunkSize <= 0 )
+    {
+      throw new IllegalArgumentException( "Chunk size should be positive!" );
+    }
+
+    this.data = aData;
+    this.sampleCount = aData.getSampleCount();
+
+    final int chunkSize = Math.max( 1, Math.min( aChunkSize, this.sampleCount ) );
+    this.values = new int[chunkSize];
+    this.timestamps = new long[chunkSize];
+  }
+
+  /**
+   * Creates a new SampleReader instance directly on top of the given arrays.
+   *
+   * @param aTimestamps
+   *          the timestamps to read, cannot be <code>null</code>;
+   * @param aValues
+   *          the sample values to read, cannot be <code>null</code>.
+   */
+  SampleReader( final long[] aTimestamps, final int[] aValues )
+  {
+    this.data = null;
+    this.sampleCount = aValues.length;
+    this.values = aValues;
+    this.timestamps = aTimestamps;
+
+    this.valuesEnd = this.timestampsEnd = this.sampleCount;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the number of samples that can be read.
+   *
+   * @return a sample count, >= 0.
+   */
+  public int getSampleCount()
+  {
+    return this.sampleCount;
+  }
+
+  /**
+   * Returns the timestamp of the sample with the given index.
+   *
+   * @param aIndex
+   *          the index of the sample, >= 0 && < {@link #getSampleCount()}.
+   * @return the timestamp of the sample.
+   * @throws ArrayIndexOutOfBoundsException
+   *           in case the given index is invalid.
+   */
+  public long getTimestamp( final int aIndex )
+  {
+    if ( ( aIndex < this.timestampsStart ) || ( aIndex >= this.timestampsEnd ) )
+    {
+      final int start = getChunkStart( aIndex );
+      this.timestampsEnd = start + this.data.getTimestamps( start, this.timestamps, 0, this.timestamps.length );
+      this.timestampsStart = start;
+    }
+    return this.timestamps[aIndex - this.timestampsStart];
+  }
+
+  /**
+   * Returns the value of the sample with the given index.
+   *
+   * @param aIndex
+   *          the index of the sample, >= 0 && < {@link #getSampleCount()}.
+   * @return the sample value.
+   * @throws ArrayIndexOutOfBoundsException
+   *           in case the given index is invalid.
+   */
+  public int getValue( final int aIndex )
+  {
+    if ( ( aIndex < this.valuesStart ) || ( aIndex >= this.valuesEnd ) )
+    {
+      final int start = getChunkStart( aIndex );
+      this.valuesEnd = start + this.data.getValues( start, this.values, 0, this.values.length );
+      this.valuesStart = start;
+    }
+    return this.values[aIndex - this.valuesStart];
+  }
+
+  /**
+   * Returns the index of the first sample of the chunk containing the given
+   * sample index.
+   */
+  private int getChunkStart( final int aIndex )
+  {
+    if ( ( aIndex < 0 ) || ( aIndex >= this.sampleCount ) || ( this.data == null ) )
+    {
+      throw new ArrayIndexOutOfBoundsException( aIndex );
+    }
+    return aIndex - ( aIndex % this.values.length );
+  }
+}
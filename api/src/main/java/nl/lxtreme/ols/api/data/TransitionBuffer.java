@@ -0,0 +1,268 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+/**
+ * Provides a growable buffer of sample transitions, each consisting of a
+ * primitive sample value and a primitive timestamp.
+ * <p>
+ * The transitions are stored in fixed-size chunks, so growing the buffer never
+ * copies the transitions already added. Only when the buffer is adopted by
+ * {@link CapturedData} the chunks are gathered into arrays of the exact size,
+ * releasing each chunk as soon as it is copied. This keeps the peak heap usage
+ * close to the size of the final arrays.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ */
+public final class TransitionBuffer
+{
+  // CONSTANTS
+
+  private static final int CHUNK_SHIFT = 16;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  // VARIABLES
+
+  private int[][] valueChunks;
+  private long[][] timestampChunks;
+  private int size;
+  private int lastValue;
+  private long endTimestamp;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, TransitionBuffer instance.
+   */
+  public TransitionBuffer()
+  {
+    this.valueChunks = new int[16][];
+    this.timestampChunks = new long[16][];
+    this.size = 0;
+    this.endTimestamp = -1L;
+  }
+
+  // METHODS
+
+  /**
+   * Adds a given sample value and timestamp to this buffer, but only if it
+   * differs from the last added sample value.
+   *
+   * @param aValue
+   *          the sample value to add;
+   * @param aTimestamp
+   *          the timestamp of the sample value, should be greater than or equal
+   *          to the last added timestamp.
+   */
+  public void add( final int aValue, final long aTimestamp )
+  {
+    if ( ( this.size == 0 ) || ( this.lastValue != aValue ) )
+    {
+      append( aValue, aTimestamp );
+    }
+    else
+    {
+      this.endTimestamp = aTimestamp;
+    }
+  }
+
+  /**
+   * Appends a given sample value and timestamp to this buffer, regardless of
+   * the last added sample value.
+   *
+   * @param aValue
+   *          the sample value to append;
+   * @param aTimestamp
+   *          the timestamp of the sample value, should be greater than or equal
+   *          to the last added timestamp.
+   */
+  public void append( final int aValue, final long aTimestamp )
+  {
+    final int chunk = this.size >>> CHUNK_SHIFT;
+    if ( chunk == this.valueChunks.length )
+    {
+      final int newLength = chunk << 1;
+
+      final int[][] newValueChunks = new int[newLength][];
+      System.arraycopy( this.valueChunks, 0, newValueChunks, 0, chunk );
+      this.valueChunks = newValueChunks;
+
+      final long[][] newTimestampChunks = new long[newLength][];
+      System.arraycopy( this.timestampChunks, 0, newTimestampChunks, 0, chunk );
+      this.timestampChunks = newTimestampChunks;
+    }
+    if ( this.valueChunks[chunk] == null )
+    {
+      this.valueChunks[chunk] = new int[CHUNK_SIZE];
+      this.timestampChunks[chunk] = new long[CHUNK_SIZE];
+    }
+
+    final int index = this.size & CHUNK_MASK;
+    this.valueChunks[chunk][index] = aValue;
+    this.timestampChunks[chunk][index] = aTimestamp;
+    this.lastValue = aValue;
+    this.endTimestamp = aTimestamp;
+    this.size++;
+  }
+
+  /**
+   * Returns the timestamp that was last passed to this buffer, including the
+   * timestamps of sample values that were not added as they did not differ
+   * from the last added sample value.
+   *
+   * @return the end timestamp, or -1 if nothing was added to this buffer.
+   */
+  public long getEndTimestamp()
+  {
+    return this.endTimestamp;
+  }
+
+  /**
+   * Returns the timestamp at the given index.
+   *
+   * @param aIndex
+   *          the index of the transition, >= 0 && < {@link #size()}.
+   * @return the timestamp at the given index.
+   */
+  public long getTimestamp( final int aIndex )
+  {
+    return this.timestampChunks[aIndex >>> CHUNK_SHIFT][aIndex & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the sample value at the given index.
+   *
+   * @param aIndex
+   *          the index of the transition, >= 0 && < {@link #size()}.
+   * @return the sample value at the given index.
+   */
+  public int getValue( final int aIndex )
+  {
+    return this.valueChunks[aIndex >>> CHUNK_SHIFT][aIndex & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the last added sample value.
+   *
+   * @return the last sample value.
+   * @throws IllegalStateException
+   *           in case this buffer is empty.
+   */
+  public int getLastValue()
+  {
+    lastIndex();
+    return this.lastValue;
+  }
+
+  /**
+   * Returns the timestamp of the last added sample value.
+   *
+   * @return the last timestamp.
+   * @throws IllegalStateException
+   *           in case this buffer is empty.
+   */
+  public long getLastTimestamp()
+  {
+    final int last = lastIndex();
+    return this.timestampChunks[last >>> CHUNK_SHIFT][last & CHUNK_MASK];
+  }
+
+  /**
+   * Returns whether this buffer is empty.
+   *
+   * @return <code>true</code> if no transitions are added to this buffer,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of transitions in this buffer.
+   *
+   * @return a transition count, >= 0.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Gathers all timestamps into a single array of the exact size of this
+   * buffer, releasing the timestamp chunks while doing so.
+   * <p>
+   * After calling this method, no more timestamps can be obtained from this
+   * buffer.
+   * </p>
+   *
+   * @return the timestamps, never <code>null</code>.
+   */
+  final long[] releaseTimestamps()
+  {
+    final long[] result = new long[this.size];
+    for ( int i = 0, offset = 0; offset < this.size; i++, offset += CHUNK_SIZE )
+    {
+      System.arraycopy( this.timestampChunks[i], 0, result, offset, Math.min( CHUNK_SIZE, this.size - offset ) );
+      this.timestampChunks[i] = null;
+    }
+    return result;
+  }
+
+  /**
+   * Gathers all sample values into a single array of the exact size of this
+   * buffer, releasing the value chunks while doing so.
+   * <p>
+   * After calling this method, no more sample values can be obtained from this
+   * buffer.
+   * </p>
+   *
+   * @return the sample values, never <code>null</code>.
+   */
+  final int[] releaseValues()
+  {
+    final int[] result = new int[this.size];
+    for ( int i = 0, offset = 0; offset < this.size; i++, offset += CHUNK_SIZE )
+    {
+      System.arraycopy( this.valueChunks[i], 0, result, offset, Math.min( CHUNK_SIZE, this.size - offset ) );
+      this.valueChunks[i] = null;
+    }
+    return result;
+  }
+
+  /**
+   * @return the index of the last transition.
+   * @throws IllegalStateException
+   *           in case this buffer is empty.
+   */
+  private int lastIndex()
+  {
+    if ( this.size == 0 )
+    {
+      throw new IllegalStateException( "Buffer is empty!" );
+    }
+    return this.size - 1;
+  }
+}
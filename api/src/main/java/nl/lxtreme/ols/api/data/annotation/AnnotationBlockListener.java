@@ -0,0 +1,55 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.annotation;
+
+
+import java.util.*;
+
+
+/**
+ * Provides an {@link AnnotationListener} that can also process a block of
+ * annotations at once, for example, to update its channels and repaint only
+ * once for the entire block.
+ * <p>
+ * Senders that have multiple annotations at hand should check whether a
+ * listener implements this interface, and otherwise call
+ * {@link #onAnnotation(Annotation)} for each of the annotations.
+ * </p>
+ */
+public interface AnnotationBlockListener extends AnnotationListener
+{
+  // METHODS
+
+  /**
+   * Called for a block of annotations at once, allowing them to be processed
+   * with a single update instead of one update per annotation.
+   * <p>
+   * The annotations are to be processed in the order of the given collection,
+   * as if {@link #onAnnotation(Annotation)} were called for each of them.
+   * </p>
+   * 
+   * @param aAnnotations
+   *          the (new) annotations, cannot be <code>null</code>. This
+   *          collection should not be modified by the listener.
+   */
+  void onAnnotations( Collection<? extends Annotation<?>> aAnnotations );
+
+}
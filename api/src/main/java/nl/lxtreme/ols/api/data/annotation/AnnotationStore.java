@@ -0,0 +1,299 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2013 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.annotation;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.util.*;
+
+
+/**
+ * Provides a time-indexed store for the data annotations of a single channel.
+ * <p>
+ * Annotations are indexed per annotation type, allowing the annotations in a
+ * visible time range to be found in O(log n + k) time, and the annotations
+ * before or after a given moment in O(log n) time.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class AnnotationStore
+{
+  // CONSTANTS
+
+  private static final Comparator<DataAnnotation<?>> START_ORDER = new Comparator<DataAnnotation<?>>()
+  {
+    @Override
+    public int compare( final DataAnnotation<?> aAnnotation1, final DataAnnotation<?> aAnnotation2 )
+    {
+      final long start1 = aAnnotation1.getStartTimestamp();
+      final long start2 = aAnnotation2.getStartTimestamp();
+      if ( start1 != start2 )
+      {
+        return ( start1 < start2 ) ? -1 : 1;
+      }
+      final long end1 = aAnnotation1.getEndTimestamp();
+      final long end2 = aAnnotation2.getEndTimestamp();
+      return ( end1 < end2 ) ? -1 : ( ( end1 == end2 ) ? 0 : 1 );
+    }
+  };
+
+  // VARIABLES
+
+  private final Map<Class<?>, IntervalIndex<DataAnnotation<?>>> indices;
+  private int size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, AnnotationStore instance.
+   */
+  public AnnotationStore()
+  {
+    this.indices = new LinkedHashMap<Class<?>, IntervalIndex<DataAnnotation<?>>>();
+    this.size = 0;
+  }
+
+  // METHODS
+
+  /**
+   * Adds a single annotation to this store.
+   * 
+   * @param aAnnotation
+   *          the annotation to add, cannot be <code>null</code>.
+   */
+  public synchronized void add( final DataAnnotation<?> aAnnotation )
+  {
+    if ( aAnnotation == null )
+    {
+      throw new IllegalArgumentException( "Annotation cannot be null!" );
+    }
+    getIndex( aAnnotation.getClass() ).add( aAnnotation.getStartTimestamp(), aAnnotation.getEndTimestamp(),
+        aAnnotation );
+    this.size++;
+  }
+
+  /**
+   * Adds all given annotations to this store at once.
+   * 
+   * @param aAnnotations
+   *          the annotations to add, cannot be <code>null</code>.
+   */
+  public synchronized void addAll( final Collection<? extends DataAnnotation<?>> aAnnotations )
+  {
+    if ( aAnnotations == null )
+    {
+      throw new IllegalArgumentException( "Annotations cannot be null!" );
+    }
+
+    Class<?> lastType = null;
+    IntervalIndex<DataAnnotation<?>> index = null;
+    for ( DataAnnotation<?> annotation : aAnnotations )
+    {
+      // Normally, all annotations are of the same type...
+      if ( annotation.getClass() != lastType )
+      {
+        lastType = annotation.getClass();
+        index = getIndex( lastType );
+      }
+      index.add( annotation.getStartTimestamp(), annotation.getEndTimestamp(), annotation );
+      this.size++;
+    }
+  }
+
+  /**
+   * Removes all annotations from this store.
+   */
+  public synchronized void clear()
+  {
+    this.indices.clear();
+    this.size = 0;
+  }
+
+  /**
+   * Finds the annotation that starts before or at the given timestamp, and
+   * ends at or after the given timestamp.
+   * 
+   * @param aTimestamp
+   *          the timestamp to search for annotations, >= 0L.
+   * @return the first annotation matching the given timestamp criteria,
+   *         <code>null</code> if not found.
+   */
+  public synchronized DataAnnotation<?> getAnnotation( final long aTimestamp )
+  {
+    DataAnnotation<?> result = null;
+    for ( IntervalIndex<DataAnnotation<?>> index : this.indices.values() )
+    {
+      result = first( result, index.getFirstOverlapping( aTimestamp, aTimestamp ) );
+    }
+    return result;
+  }
+
+  /**
+   * Finds the first annotation that starts at or after the given timestamp.
+   * 
+   * @param aTimestamp
+   *          the timestamp to search for annotations, >= 0L.
+   * @return an annotation matching the given timestamp criteria,
+   *         <code>null</code> if not found.
+   */
+  public synchronized DataAnnotation<?> getAnnotationAfter( final long aTimestamp )
+  {
+    DataAnnotation<?> result = null;
+    for ( IntervalIndex<DataAnnotation<?>> index : this.indices.values() )
+    {
+      result = first( result, index.getFirstAfter( aTimestamp ) );
+    }
+    return result;
+  }
+
+  /**
+   * Finds the last annotation that starts and ends before the given timestamp.
+   * 
+   * @param aTimestamp
+   *          the timestamp to search for annotations, >= 0L.
+   * @return an annotation matching the given timestamp criteria,
+   *         <code>null</code> if not found.
+   */
+  public synchronized DataAnnotation<?> getAnnotationBefore( final long aTimestamp )
+  {
+    DataAnnotation<?> result = null;
+    for ( IntervalIndex<DataAnnotation<?>> index : this.indices.values() )
+    {
+      final DataAnnotation<?> candidate = index.getLastBefore( aTimestamp );
+      if ( ( result == null ) || ( ( candidate != null ) && ( START_ORDER.compare( candidate, result ) > 0 ) ) )
+      {
+        result = candidate;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns all annotations in this store.
+   * 
+   * @return a list with all annotations, ordered by type and start timestamp,
+   *         never <code>null</code>.
+   */
+  public synchronized List<DataAnnotation<?>> getAnnotations()
+  {
+    final List<DataAnnotation<?>> result = new ArrayList<DataAnnotation<?>>( this.size );
+    for ( IntervalIndex<DataAnnotation<?>> index : this.indices.values() )
+    {
+      for ( int i = 0; i < index.size(); i++ )
+      {
+        result.add( index.get( i ) );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns all annotations of the given type that fall inside the given
+   * boundaries.
+   * 
+   * @param aType
+   *          the type of annotations to return, cannot be <code>null</code>;
+   * @param aStartTime
+   *          the start timestamp;
+   * @param aEndTime
+   *          the end timestamp.
+   * @return a list with annotations, ordered by their start timestamp, never
+   *         <code>null</code>.
+   */
+  public synchronized <T extends DataAnnotation<?>> List<T> getAnnotations( final Class<T> aType,
+      final long aStartTime, final long aEndTime )
+  {
+    final List<DataAnnotation<?>> found = new ArrayList<DataAnnotation<?>>();
+
+    int types = 0;
+    for ( Map.Entry<Class<?>, IntervalIndex<DataAnnotation<?>>> entry : this.indices.entrySet() )
+    {
+      if ( aType.isAssignableFrom( entry.getKey() )
+          && ( entry.getValue().getOverlapping( aStartTime, aEndTime, found ) > 0 ) )
+      {
+        types++;
+      }
+    }
+
+    if ( types > 1 )
+    {
+      Collections.sort( found, START_ORDER );
+    }
+
+    final List<T> result = new ArrayList<T>( found.size() );
+    for ( DataAnnotation<?> annotation : found )
+    {
+      result.add( aType.cast( annotation ) );
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether this store is empty.
+   * 
+   * @return <code>true</code> if this store contains no annotations,
+   *         <code>false</code> otherwise.
+   */
+  public synchronized boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of annotations in this store.
+   * 
+   * @return an annotation count, >= 0.
+   */
+  public synchronized int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Returns the first of the two given annotations, in order of their start
+   * timestamp.
+   */
+  private static DataAnnotation<?> first( final DataAnnotation<?> aAnnotation1, final DataAnnotation<?> aAnnotation2 )
+  {
+    if ( ( aAnnotation1 == null ) || ( aAnnotation2 == null ) )
+    {
+      return ( aAnnotation1 == null ) ? aAnnotation2 : aAnnotation1;
+    }
+    return ( START_ORDER.compare( aAnnotation2, aAnnotation1 ) < 0 ) ? aAnnotation2 : aAnnotation1;
+  }
+
+  /**
+   * Returns the index for the given annotation type, creating it if needed.
+   */
+  private IntervalIndex<DataAnnotation<?>> getIndex( final Class<?> aType )
+  {
+    IntervalIndex<DataAnnotation<?>> result = this.indices.get( aType );
+    if ( result == null )
+    {
+      result = new IntervalIndex<DataAnnotation<?>>();
+      this.indices.put( aType, result );
+    }
+    return result;
+  }
+}
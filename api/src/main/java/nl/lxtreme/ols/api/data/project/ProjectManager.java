@@ -24,6 +24,8 @@ package nl.lxtreme.ols.api.data.project;
 import java.beans.*;
 import java.io.*;
 
+import nl.lxtreme.ols.api.task.*;
+
 
 /**
  * Provides a way of loading and storing projects.
@@ -46,6 +48,21 @@ public interface ProjectManager
    */
   public Project createNewProject();
 
+  /**
+   * Creates a snapshot of the current project, which can be saved while the
+   * current project continues to be used and changed.
+   * <p>
+   * The snapshot shares the captured data with the current project, but has
+   * its own copies of the channels, cursors and settings. The current project
+   * is left as is, including its "changed" state.
+   * </p>
+   * 
+   * @return a snapshot of the current project, <b>not</b> managed by this
+   *         manager, never <code>null</code>.
+   * @see #saveProject(Project, OutputStream, TaskProgressListener)
+   */
+  public Project createSnapshot();
+
   /**
    * Creates a temporary project, useful for loading data files.
    * 
@@ -72,6 +89,33 @@ public interface ProjectManager
    */
   public void loadProject( final InputStream aInput ) throws IOException;
 
+  /**
+   * Loads a project from the given file, showing it before its capture results
+   * are loaded.
+   * <p>
+   * The metadata, channel labels and settings of the project are read first,
+   * after which the project replaces the current project. Only then, the
+   * capture results are read, and set on the project on the EDT as soon as
+   * they are available. Listeners are notified of both steps, by a "project"
+   * and a "capturedData" event. Edits made to the project in the meantime are
+   * kept. In case a new acquisition is made in the meantime, the capture
+   * results of the file are discarded.
+   * </p>
+   * <p>
+   * Reading the capture results can be cancelled by interrupting the current
+   * thread, in which case the project remains without capture results.
+   * </p>
+   * 
+   * @param aFile
+   *          the file to read the project from, cannot be <code>null</code>;
+   * @param aListener
+   *          the listener to report the progress of reading the capture
+   *          results to, can be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems during the read of the project.
+   */
+  public void loadProject( final File aFile, final TaskProgressListener aListener ) throws IOException;
+
   /**
    * Removes the given listener from the list of property change listeners.
    * 
@@ -89,4 +133,26 @@ public interface ProjectManager
    *           in case of I/O problems during writing of the project.
    */
   public void saveProject( final OutputStream aOutput ) throws IOException;
+
+  /**
+   * Stores a given project snapshot to the given output stream.
+   * <p>
+   * In contrast to {@link #saveProject(OutputStream)}, this method does not
+   * touch the current project, and can therefore be safely called from any
+   * thread. Marking the current project as saved is left to the caller.
+   * </p>
+   * 
+   * @param aSnapshot
+   *          the snapshot to store, as created by {@link #createSnapshot()},
+   *          cannot be <code>null</code>;
+   * @param aOutput
+   *          the output to write the project to, cannot be <code>null</code>;
+   * @param aListener
+   *          the listener to report the progress of writing to, can be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems during writing of the project.
+   */
+  public void saveProject( final Project aSnapshot, final OutputStream aOutput, final TaskProgressListener aListener )
+      throws IOException;
 }
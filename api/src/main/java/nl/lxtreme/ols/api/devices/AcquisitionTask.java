@@ -30,6 +30,12 @@ import nl.lxtreme.ols.api.task.*;
  * it. The implementation of that method should do all necessary tasks to
  * acquire data from the device and return that data in the form of an
  * {@link AcquisitionResult} object.
+ * <p>
+ * Tasks should not report their progress to their
+ * {@link AcquisitionProgressListener} for every sample they read, but use a
+ * {@link ProgressReporter} instead, which reports it at most once per percent,
+ * at a rate suitable for the UI.
+ * </p>
  */
 public interface AcquisitionTask extends Task<AcquisitionResult>
 {
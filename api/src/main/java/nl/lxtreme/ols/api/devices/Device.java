@@ -39,7 +39,9 @@ public interface Device extends Closeable
    * 
    * @param aProgressListener
    *          the acquisition progress listener the acquisition task can use to
-   *          report its progress, cannot be <code>null</code>.
+   *          report its progress, cannot be <code>null</code>. In case it also
+   *          implements {@link AcquisitionDataListener}, the acquisition task
+   *          can hand it partial results while the acquisition is in progress.
    * @return a new acquisition task, never <code>null</code>.
    * @throws IOException
    *           in case of I/O problems during the creation of the acquisition
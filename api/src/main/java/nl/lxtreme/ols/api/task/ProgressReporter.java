@@ -0,0 +1,330 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.task;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Provides a lightweight way for tasks to report their progress from their
+ * inner loops.
+ * <p>
+ * A task only updates the position of its reporter, which is a single ordered
+ * write without any locking or allocation. A single, shared, timer thread
+ * samples the positions of all active reporters at a fixed rate, and only
+ * publishes the progress to the listener when its percentage changed. Hence,
+ * a listener is called at most once per percent, and at most
+ * {@link #PUBLISH_RATE} times a second.
+ * </p>
+ * <p>
+ * Reporters are active from their creation until they are closed, which
+ * publishes the final progress. Always close a reporter, preferably in a
+ * <tt>finally</tt> block.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public abstract class ProgressReporter
+{
+  // INNER TYPES
+
+  /**
+   * Publishes the progress to an {@link AcquisitionProgressListener}.
+   */
+  static final class AcquisitionProgressReporter extends ProgressReporter
+  {
+    // VARIABLES
+
+    private final AcquisitionProgressListener listener;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new AcquisitionProgressReporter instance.
+     */
+    AcquisitionProgressReporter( final AcquisitionProgressListener aListener, final long aLowerBound,
+        final long aUpperBound )
+    {
+      super( aLowerBound, aUpperBound );
+      this.listener = aListener;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void publish( final int aPercentage )
+    {
+      if ( this.listener != null )
+      {
+        this.listener.acquisitionInProgress( aPercentage );
+      }
+    }
+  }
+
+  /**
+   * Publishes the progress to a {@link TaskProgressListener}, such as a
+   * {@link ToolProgressListener}.
+   */
+  static final class TaskProgressReporter extends ProgressReporter
+  {
+    // VARIABLES
+
+    private final TaskProgressListener listener;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new TaskProgressReporter instance.
+     */
+    TaskProgressReporter( final TaskProgressListener aListener, final long aLowerBound, final long aUpperBound )
+    {
+      super( aLowerBound, aUpperBound );
+      this.listener = aListener;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void publish( final int aPercentage )
+    {
+      if ( this.listener != null )
+      {
+        this.listener.setProgress( aPercentage );
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  /** The number of times per second the progress is published. */
+  public static final int PUBLISH_RATE = 10;
+
+  private static final Set<ProgressReporter> ACTIVE_REPORTERS = new CopyOnWriteArraySet<ProgressReporter>();
+
+  // VARIABLES
+
+  /** Guarded by the class. */
+  private static ScheduledExecutorService publisher;
+
+  private final long lowerBound;
+  private final long upperBound;
+  private final AtomicLong position;
+  /** Guarded by this reporter. */
+  private int lastPercentage;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ProgressReporter instance.
+   *
+   * @param aLowerBound
+   *          the position that denotes 0%;
+   * @param aUpperBound
+   *          the position that denotes 100%.
+   */
+  protected ProgressReporter( final long aLowerBound, final long aUpperBound )
+  {
+    this.lowerBound = aLowerBound;
+    this.upperBound = aUpperBound;
+    this.position = new AtomicLong( aLowerBound );
+    this.lastPercentage = -1;
+  }
+
+  // METHODS
+
+  /**
+   * Creates a new, active, reporter for the progress of an acquisition.
+   *
+   * @param aListener
+   *          the listener to publish the progress to, can be <code>null</code>;
+   * @param aLowerBound
+   *          the position that denotes 0%;
+   * @param aUpperBound
+   *          the position that denotes 100%.
+   * @return a new progress reporter, never <code>null</code>.
+   */
+  public static ProgressReporter create( final AcquisitionProgressListener aListener, final long aLowerBound,
+      final long aUpperBound )
+  {
+    return activate( new AcquisitionProgressReporter( aListener, aLowerBound, aUpperBound ) );
+  }
+
+  /**
+   * Creates a new, active, reporter for the progress of a tool, or any other
+   * task.
+   *
+   * @param aListener
+   *          the listener to publish the progress to, can be <code>null</code>;
+   * @param aLowerBound
+   *          the position that denotes 0%;
+   * @param aUpperBound
+   *          the position that denotes 100%.
+   * @return a new progress reporter, never <code>null</code>.
+   */
+  public static ProgressReporter create( final TaskProgressListener aListener, final long aLowerBound,
+      final long aUpperBound )
+  {
+    return activate( new TaskProgressReporter( aListener, aLowerBound, aUpperBound ) );
+  }
+
+  /**
+   * Activates the given reporter, and publishes its initial progress.
+   */
+  private static ProgressReporter activate( final ProgressReporter aReporter )
+  {
+    register( aReporter );
+
+    aReporter.publishPosition();
+
+    return aReporter;
+  }
+
+  /**
+   * Registers the given reporter, starting the publisher if needed.
+   */
+  private static synchronized void register( final ProgressReporter aReporter )
+  {
+    ACTIVE_REPORTERS.add( aReporter );
+
+    if ( publisher == null )
+    {
+      publisher = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+      {
+        @Override
+        public Thread newThread( final Runnable aRunnable )
+        {
+          final Thread result = new Thread( aRunnable, "Progress publisher" );
+          result.setDaemon( true );
+          return result;
+        }
+      } );
+
+      final long interval = 1000L / PUBLISH_RATE;
+      publisher.scheduleAtFixedRate( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          for ( ProgressReporter reporter : ACTIVE_REPORTERS )
+          {
+            reporter.publishPosition();
+          }
+        }
+      }, interval, interval, TimeUnit.MILLISECONDS );
+    }
+  }
+
+  /**
+   * Unregisters the given reporter, stopping the publisher if no other
+   * reporters are active.
+   */
+  private static synchronized void unregister( final ProgressReporter aReporter )
+  {
+    ACTIVE_REPORTERS.remove( aReporter );
+
+    if ( ACTIVE_REPORTERS.isEmpty() && ( publisher != null ) )
+    {
+      publisher.shutdown();
+      publisher = null;
+    }
+  }
+
+  /**
+   * Deactivates this reporter, and publishes its final progress.
+   * <p>
+   * Closing a reporter more than once has no effect.
+   * </p>
+   */
+  public final void close()
+  {
+    unregister( this );
+
+    publishPosition();
+  }
+
+  /**
+   * Returns the percentage of the current position.
+   *
+   * @return a percentage, >= 0 && <= 100.
+   */
+  public final int getPercentage()
+  {
+    final long range = this.upperBound - this.lowerBound;
+    if ( range <= 0L )
+    {
+      return 100;
+    }
+
+    final long offset = Math.max( 0L, Math.min( range, this.position.get() - this.lowerBound ) );
+    return ( int )( ( 100.0 * offset ) / range );
+  }
+
+  /**
+   * Sets the current position of the task.
+   * <p>
+   * This method is intended to be called from inner loops, and does nothing
+   * more than storing the given position.
+   * </p>
+   *
+   * @param aPosition
+   *          the current position, normally between the lower and upper
+   *          bounds of this reporter.
+   */
+  public final void setPosition( final long aPosition )
+  {
+    this.position.lazySet( aPosition );
+  }
+
+  /**
+   * Publishes the given percentage to the listener of this reporter.
+   *
+   * @param aPercentage
+   *          the percentage to publish, >= 0 && <= 100.
+   */
+  protected abstract void publish( int aPercentage );
+
+  /**
+   * Publishes the percentage of the current position, but only if it changed
+   * since the last publication.
+   */
+  final synchronized void publishPosition()
+  {
+    final int percentage = getPercentage();
+    if ( percentage != this.lastPercentage )
+    {
+      this.lastPercentage = percentage;
+      publish( percentage );
+    }
+  }
+}
@@ -21,15 +21,13 @@
 package nl.lxtreme.ols.api.tools;
 
 
+import nl.lxtreme.ols.api.task.*;
+
+
 /**
  * Can be used to listen to the progress of the invocation of a tool.
  */
-public interface ToolProgressListener
+public interface ToolProgressListener extends TaskProgressListener
 {
-  // METHODS
-
-  /**
-   * @param aPercentage
-   */
-  void setProgress( int aPercentage );
+  // No additional methods...
 }
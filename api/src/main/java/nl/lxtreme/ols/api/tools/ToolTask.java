@@ -27,6 +27,11 @@ import nl.lxtreme.ols.api.task.*;
 /**
  * Denotes a task that is performed by a tool, such as decoding data from
  * acquired data.
+ * <p>
+ * Tasks should not report their progress to their {@link ToolProgressListener}
+ * for every sample they process, but use a {@link ProgressReporter} instead,
+ * which reports it at most once per percent, at a rate suitable for the UI.
+ * </p>
  */
 public interface ToolTask<RESULT_TYPE> extends Task<RESULT_TYPE>
 {
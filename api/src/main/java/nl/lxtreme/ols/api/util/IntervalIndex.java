@@ -0,0 +1,564 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2013 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.util;
+
+
+import java.util.*;
+
+
+/**
+ * Provides an index of items that span a (closed) range of time, allowing all
+ * items overlapping a given range to be found in O(log n + k) time, and the
+ * items directly before or after a given moment in O(log n) time.
+ * <p>
+ * Items are kept in order of their start (and end) time. Adding items is cheap,
+ * especially when they are added in that order, as is normally the case. The
+ * index itself is an implicit, augmented, binary search tree on top of the
+ * ordered items, in which each node keeps the maximum end time of its subtree.
+ * Adding items only marks the index as dirty; it is rebuilt lazily upon the
+ * first query after items are added, in which only the newly added items need
+ * to be sorted.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ * 
+ * @param <T>
+ *          the type of the indexed items.
+ */
+public final class IntervalIndex<T>
+{
+  // CONSTANTS
+
+  /** Subtrees up to this level are scanned linearly instead of traversed. */
+  private static final int SCAN_LEVEL = 3;
+  /** Ranges up to this length are sorted by insertion instead of merging. */
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  // VARIABLES
+
+  private long[] starts;
+  private long[] ends;
+  private Object[] items;
+  private int size;
+  /** the number of leading items that are in order. */
+  private int sortedSize;
+  /** whether items are added since the index was last built. */
+  private boolean dirty;
+
+  /** the maximum end time per subtree. */
+  private long[] maxEnds;
+  /** the maximum end time of all items up to and including a given index. */
+  private long[] prefixMaxEnds;
+  private int maxLevel;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, IntervalIndex instance.
+   */
+  public IntervalIndex()
+  {
+    this.starts = new long[16];
+    this.ends = new long[16];
+    this.items = new Object[16];
+    this.size = 0;
+    this.sortedSize = 0;
+    this.maxEnds = new long[0];
+    this.prefixMaxEnds = new long[0];
+    this.dirty = false;
+  }
+
+  // METHODS
+
+  /**
+   * Adds a given item to this index.
+   * 
+   * @param aStart
+   *          the start time of the item;
+   * @param aEnd
+   *          the end time of the item, should be greater than or equal to the
+   *          given start time;
+   * @param aItem
+   *          the item to add, cannot be <code>null</code>.
+   */
+  public void add( final long aStart, final long aEnd, final T aItem )
+  {
+    if ( aItem == null )
+    {
+      throw new IllegalArgumentException( "Item cannot be null!" );
+    }
+
+    final int n = this.size;
+    if ( n == this.items.length )
+    {
+      final int newLength = n + ( n >> 1 );
+      this.starts = Arrays.copyOf( this.starts, newLength );
+      this.ends = Arrays.copyOf( this.ends, newLength );
+      this.items = Arrays.copyOf( this.items, newLength );
+    }
+
+    if ( ( this.sortedSize == n )
+        && ( ( n == 0 ) || ( compare( aStart, aEnd, this.starts[n - 1], this.ends[n - 1] ) >= 0 ) ) )
+    {
+      this.sortedSize++;
+    }
+
+    this.starts[n] = aStart;
+    this.ends[n] = aEnd;
+    this.items[n] = aItem;
+    this.size++;
+
+    this.dirty = true;
+  }
+
+  /**
+   * Removes all items from this index.
+   */
+  public void clear()
+  {
+    Arrays.fill( this.items, 0, this.size, null );
+    this.size = 0;
+    this.sortedSize = 0;
+    this.dirty = false;
+  }
+
+  /**
+   * Returns the item at the given position, in order of start and end time.
+   * 
+   * @param aIndex
+   *          the position of the item to return, >= 0 && < {@link #size()}.
+   * @return the item at the given position, never <code>null</code>.
+   */
+  public T get( final int aIndex )
+  {
+    if ( ( aIndex < 0 ) || ( aIndex >= this.size ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex + "!" );
+    }
+    ensureIndexed();
+    return item( aIndex );
+  }
+
+  /**
+   * Returns the first item that starts at or after the given time.
+   * 
+   * @param aTime
+   *          the time to search from.
+   * @return the found item, or <code>null</code> if no such item exists.
+   */
+  public T getFirstAfter( final long aTime )
+  {
+    ensureIndexed();
+
+    final int idx = countStartingBefore( aTime );
+    return ( idx < this.size ) ? item( idx ) : null;
+  }
+
+  /**
+   * Returns the first item, in order of start and end time, that overlaps the
+   * given time range.
+   * 
+   * @param aStart
+   *          the start of the time range (inclusive);
+   * @param aEnd
+   *          the end of the time range (inclusive).
+   * @return the found item, or <code>null</code> if no such item exists.
+   */
+  public T getFirstOverlapping( final long aStart, final long aEnd )
+  {
+    final List<T> result = new ArrayList<T>( 1 );
+    findOverlapping( aStart, aEnd, result, 1 );
+    return result.isEmpty() ? null : result.get( 0 );
+  }
+
+  /**
+   * Returns the last item of the leading run of items that end before the
+   * given time, that is, the item preceding the first item that starts or ends
+   * at or after the given time.
+   * 
+   * @param aTime
+   *          the time to search before.
+   * @return the found item, or <code>null</code> if no such item exists.
+   */
+  public T getLastBefore( final long aTime )
+  {
+    ensureIndexed();
+
+    int low = 0;
+    int high = countStartingBefore( aTime );
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.prefixMaxEnds[mid] < aTime )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+
+    return ( low > 0 ) ? item( low - 1 ) : null;
+  }
+
+  /**
+   * Collects all items that overlap the given time range, in order of their
+   * start and end time.
+   * 
+   * @param aStart
+   *          the start of the time range (inclusive);
+   * @param aEnd
+   *          the end of the time range (inclusive);
+   * @param aResult
+   *          the collection to add the overlapping items to, cannot be
+   *          <code>null</code>.
+   * @return the number of items added to the given collection, >= 0.
+   */
+  public int getOverlapping( final long aStart, final long aEnd, final Collection<? super T> aResult )
+  {
+    return findOverlapping( aStart, aEnd, aResult, Integer.MAX_VALUE );
+  }
+
+  /**
+   * Returns whether this index is empty.
+   * 
+   * @return <code>true</code> if this index contains no items,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the number of items in this index.
+   * 
+   * @return an item count, >= 0.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * Compares two time ranges on their start time, and their end time if their
+   * start times are equal.
+   */
+  private static int compare( final long aStart1, final long aEnd1, final long aStart2, final long aEnd2 )
+  {
+    if ( aStart1 != aStart2 )
+    {
+      return ( aStart1 < aStart2 ) ? -1 : 1;
+    }
+    return ( aEnd1 < aEnd2 ) ? -1 : ( ( aEnd1 == aEnd2 ) ? 0 : 1 );
+  }
+
+  /**
+   * Compares the items at the given positions on their start and end time.
+   */
+  private int compareItems( final int aIdx1, final int aIdx2 )
+  {
+    return compare( this.starts[aIdx1], this.ends[aIdx1], this.starts[aIdx2], this.ends[aIdx2] );
+  }
+
+  /**
+   * Determines the number of items that start before the given time, which is
+   * also the position of the first item that starts at or after that time.
+   */
+  private int countStartingBefore( final long aTime )
+  {
+    int low = 0;
+    int high = this.size;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.starts[mid] < aTime )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Ensures the items are sorted and the (implicit) tree is built.
+   */
+  private void ensureIndexed()
+  {
+    if ( !this.dirty )
+    {
+      return;
+    }
+
+    final int n = this.size;
+    if ( this.sortedSize < n )
+    {
+      sortItems();
+    }
+
+    if ( this.maxEnds.length < n )
+    {
+      this.maxEnds = new long[this.starts.length];
+      this.prefixMaxEnds = new long[this.starts.length];
+    }
+
+    long prefixMax = Long.MIN_VALUE;
+    for ( int i = 0; i < n; i++ )
+    {
+      prefixMax = Math.max( prefixMax, this.ends[i] );
+      this.prefixMaxEnds[i] = prefixMax;
+    }
+
+    // Leaves are at the even positions, a node at level k has its k least
+    // significant bits set...
+    int lastIdx = 0;
+    long lastMax = Long.MIN_VALUE;
+    for ( int i = 0; i < n; i += 2 )
+    {
+      lastIdx = i;
+      lastMax = this.maxEnds[i] = this.ends[i];
+    }
+
+    int k;
+    for ( k = 1; ( 1L << k ) <= n; k++ )
+    {
+      final int x = 1 << ( k - 1 );
+      final int step = x << 2;
+      for ( int i = ( x << 1 ) - 1; i < n; i += step )
+      {
+        final long leftMax = this.maxEnds[i - x];
+        // A missing right child can still have (grand)children; those are
+        // covered by the maximum of the last subtree...
+        final long rightMax = ( ( i + x ) < n ) ? this.maxEnds[i + x] : lastMax;
+        this.maxEnds[i] = Math.max( this.ends[i], Math.max( leftMax, rightMax ) );
+      }
+
+      // Move to the parent of the last node...
+      lastIdx = ( ( ( lastIdx >> k ) & 1 ) != 0 ) ? lastIdx - x : lastIdx + x;
+      if ( ( lastIdx < n ) && ( this.maxEnds[lastIdx] > lastMax ) )
+      {
+        lastMax = this.maxEnds[lastIdx];
+      }
+    }
+
+    this.maxLevel = k - 1;
+    this.dirty = false;
+  }
+
+  /**
+   * Collects at most the given number of items that overlap the given time
+   * range, in order of their start and end time.
+   */
+  private int findOverlapping( final long aStart, final long aEnd, final Collection<? super T> aResult,
+      final int aLimit )
+  {
+    ensureIndexed();
+
+    final int n = this.size;
+    if ( n == 0 )
+    {
+      return 0;
+    }
+
+    int count = 0;
+
+    // Each stack entry consists of a node position, its level and whether its
+    // left subtree is already visited...
+    final int stackSize = 2 * ( this.maxLevel + 2 );
+    final int[] stackNode = new int[stackSize];
+    final int[] stackLevel = new int[stackSize];
+    final boolean[] stackLeftDone = new boolean[stackSize];
+
+    int t = 0;
+    stackLevel[t] = this.maxLevel;
+    stackNode[t] = ( 1 << this.maxLevel ) - 1;
+    stackLeftDone[t++] = false;
+
+    while ( ( t > 0 ) && ( count < aLimit ) )
+    {
+      t--;
+      final int node = stackNode[t];
+      final int level = stackLevel[t];
+      final boolean leftDone = stackLeftDone[t];
+
+      if ( level <= SCAN_LEVEL )
+      {
+        // Small subtree; simply scan all its items...
+        final int i0 = ( node >> level ) << level;
+        final int i1 = Math.min( n, i0 + ( 1 << ( level + 1 ) ) - 1 );
+        for ( int i = i0; ( i < i1 ) && ( this.starts[i] <= aEnd ) && ( count < aLimit ); i++ )
+        {
+          if ( this.ends[i] >= aStart )
+          {
+            aResult.add( item( i ) );
+            count++;
+          }
+        }
+      }
+      else if ( !leftDone )
+      {
+        final int left = node - ( 1 << ( level - 1 ) );
+
+        // Revisit this node after its left subtree...
+        stackNode[t] = node;
+        stackLevel[t] = level;
+        stackLeftDone[t++] = true;
+
+        if ( ( left >= n ) || ( this.maxEnds[left] >= aStart ) )
+        {
+          stackNode[t] = left;
+          stackLevel[t] = level - 1;
+          stackLeftDone[t++] = false;
+        }
+      }
+      else if ( ( node < n ) && ( this.starts[node] <= aEnd ) )
+      {
+        if ( this.ends[node] >= aStart )
+        {
+          aResult.add( item( node ) );
+          count++;
+        }
+
+        stackNode[t] = node + ( 1 << ( level - 1 ) );
+        stackLevel[t] = level - 1;
+        stackLeftDone[t++] = false;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Returns the item at the given position.
+   */
+  @SuppressWarnings( "unchecked" )
+  private T item( final int aIndex )
+  {
+    return ( T )this.items[aIndex];
+  }
+
+  /**
+   * Sorts the items on their start and end time, retaining the order in which
+   * they were added for items with equal times.
+   * <p>
+   * Only the items added after the leading, sorted, items are sorted; these
+   * are merged afterwards with the leading items.
+   * </p>
+   */
+  private void sortItems()
+  {
+    final int n = this.size;
+    final int m = this.sortedSize;
+
+    final int[] order = new int[n - m];
+    for ( int i = 0; i < order.length; i++ )
+    {
+      order[i] = m + i;
+    }
+    sortPositions( order, new int[order.length], 0, order.length );
+
+    final long[] s = this.starts;
+    final long[] e = this.ends;
+    final long[] newStarts = new long[s.length];
+    final long[] newEnds = new long[e.length];
+    final Object[] newItems = new Object[this.items.length];
+
+    // The leading items are all added before the other items, so they go
+    // first in case of equal times...
+    int i = 0;
+    int j = 0;
+    for ( int k = 0; k < n; k++ )
+    {
+      final int src;
+      if ( ( j >= order.length ) || ( ( i < m ) && ( compareItems( i, order[j] ) <= 0 ) ) )
+      {
+        src = i++;
+      }
+      else
+      {
+        src = order[j++];
+      }
+      newStarts[k] = s[src];
+      newEnds[k] = e[src];
+      newItems[k] = this.items[src];
+    }
+
+    this.starts = newStarts;
+    this.ends = newEnds;
+    this.items = newItems;
+    this.sortedSize = n;
+  }
+
+  /**
+   * Sorts the given range of item positions on the start and end time of their
+   * items using a (stable) merge sort.
+   */
+  private void sortPositions( final int[] aPositions, final int[] aBuffer, final int aFrom, final int aTo )
+  {
+    if ( ( aTo - aFrom ) <= INSERTION_SORT_THRESHOLD )
+    {
+      for ( int i = aFrom + 1; i < aTo; i++ )
+      {
+        final int pos = aPositions[i];
+        int j = i - 1;
+        while ( ( j >= aFrom ) && ( compareItems( aPositions[j], pos ) > 0 ) )
+        {
+          aPositions[j + 1] = aPositions[j];
+          j--;
+        }
+        aPositions[j + 1] = pos;
+      }
+      return;
+    }
+
+    final int mid = ( aFrom + aTo ) >>> 1;
+    sortPositions( aPositions, aBuffer, aFrom, mid );
+    sortPositions( aPositions, aBuffer, mid, aTo );
+
+    if ( compareItems( aPositions[mid - 1], aPositions[mid] ) <= 0 )
+    {
+      // Both halves are already in order...
+      return;
+    }
+
+    System.arraycopy( aPositions, aFrom, aBuffer, aFrom, aTo - aFrom );
+
+    int i = aFrom;
+    int j = mid;
+    for ( int k = aFrom; k < aTo; k++ )
+    {
+      if ( ( j >= aTo ) || ( ( i < mid ) && ( compareItems( aBuffer[i], aBuffer[j] ) <= 0 ) ) )
+      {
+        aPositions[k] = aBuffer[i++];
+      }
+      else
+      {
+        aPositions[k] = aBuffer[j++];
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link EdgeIndex}.
+ */
+public class EdgeIndexTest
+{
+  // METHODS
+
+  /**
+   * Tests that the edge index yields the same results as walking through the
+   * data sample-by-sample.
+   */
+  @Test
+  public void testEdgeIndexMatchesSampleWalk()
+  {
+    final Random random = new Random( 1L );
+
+    final int count = 40;
+    final int[] values = new int[count];
+    final long[] timestamps = new long[count];
+    for ( int i = 0; i < count; i++ )
+    {
+      values[i] = random.nextInt();
+      timestamps[i] = ( ( i == 0 ) ? 5L : timestamps[i - 1] ) + 1L + random.nextInt( 4 );
+    }
+
+    final EdgeIndex index = new EdgeIndex( timestamps, values );
+    final long end = timestamps[count - 1] + 2L;
+
+    for ( int channel = 0; channel < 32; channel++ )
+    {
+      for ( long time = 0L; time < end; time++ )
+      {
+        assertEquals( getLevel( timestamps, values, channel, time ), index.valueAt( channel, time ) );
+
+        for ( Edge edge : Edge.values() )
+        {
+          assertEquals( "Channel " + channel + ", time " + time + ", edge " + edge,
+              findEdge( timestamps, values, channel, time, end, edge ), index.nextEdge( channel, time, edge ) );
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that an empty data set can be indexed.
+   */
+  @Test
+  public void testEmptyEdgeIndex()
+  {
+    final EdgeIndex index = new EdgeIndex( new long[0], new int[0] );
+
+    assertEquals( 0, index.getEdgeCount( 0 ) );
+    assertEquals( -1L, index.nextEdge( 0, 0L, Edge.NONE ) );
+    assertEquals( 0, index.valueAt( 0, 10L ) );
+  }
+
+  /**
+   * Tests that only the transitions of a channel itself count as edges.
+   */
+  @Test
+  public void testEdgesArePerChannel()
+  {
+    final EdgeIndex index = new EdgeIndex( new long[] { 0L, 3L, 7L, 9L }, new int[] { 0x1, 0x3, 0x2, 0x3 } );
+
+    assertEquals( 2, index.getEdgeCount( 0 ) );
+    assertEquals( 1, index.getEdgeCount( 1 ) );
+    assertEquals( 7L, index.nextEdge( 0, 1L, Edge.FALLING ) );
+    assertEquals( 9L, index.nextEdge( 0, 1L, Edge.RISING ) );
+    assertEquals( 3L, index.nextEdge( 1, 0L, Edge.RISING ) );
+    assertEquals( -1L, index.nextEdge( 1, 0L, Edge.FALLING ) );
+  }
+
+  /**
+   * Walks through the given data sample-by-sample to determine the level of a
+   * channel.
+   */
+  private static int getLevel( final long[] aTimestamps, final int[] aValues, final int aChannel, final long aTime )
+  {
+    int i = 0;
+    while ( ( ( i + 1 ) < aTimestamps.length ) && ( aTimestamps[i + 1] <= aTime ) )
+    {
+      i++;
+    }
+    return ( aValues[i] >>> aChannel ) & 1;
+  }
+
+  /**
+   * Walks through the given data sample-by-sample to find an edge.
+   */
+  private static long findEdge( final long[] aTimestamps, final int[] aValues, final int aChannel,
+      final long aStart, final long aEnd, final Edge aEdge )
+  {
+    for ( long time = Math.max( aStart, 1L ); time < aEnd; time++ )
+    {
+      final Edge edge = Edge.toEdge( getLevel( aTimestamps, aValues, aChannel, time - 1 ),
+          getLevel( aTimestamps, aValues, aChannel, time ) );
+      if ( !edge.isNone() && ( aEdge.isNone() || ( aEdge == edge ) ) )
+      {
+        return time;
+      }
+    }
+    return -1L;
+  }
+}
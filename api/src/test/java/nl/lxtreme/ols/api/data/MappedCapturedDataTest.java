@@ -0,0 +1,191 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link MappedCapturedData}.
+ */
+public class MappedCapturedDataTest
+{
+  // METHODS
+
+  /**
+   * Tests that a mapped result yields the same data as a heap-based result.
+   */
+  @Test
+  public void testMappedDataMatchesCapturedData() throws IOException
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    final MappedCapturedData.Builder builder = new MappedCapturedData.Builder();
+
+    final Random rnd = new Random( 42L );
+    final int count = 300000;
+    for ( int i = 0; i < count; i++ )
+    {
+      final int value = rnd.nextInt( 4 );
+      buffer.add( value, 3L * i );
+      builder.add( value, 3L * i );
+    }
+
+    final CapturedData expected = new CapturedData( buffer, 10L, 100, 8, 0xFF, ( 3L * count ) + 5L );
+    final MappedCapturedData actual = builder.build( 10L, 100, 8, 0xFF, ( 3L * count ) + 5L );
+
+    assertEquals( expected.getSampleCount(), actual.getSampleCount() );
+    assertArrayEquals( expected.getValues(), actual.getValues() );
+    assertArrayEquals( expected.getTimestamps(), actual.getTimestamps() );
+    assertEquals( expected.getAbsoluteLength(), actual.getAbsoluteLength() );
+    assertEquals( expected.getTriggerPosition(), actual.getTriggerPosition() );
+
+    for ( int i = 0; i < 1000; i++ )
+    {
+      final long time = rnd.nextInt( 3 * count + 10 );
+      assertEquals( expected.getSampleIndex( time ), actual.getSampleIndex( time ) );
+    }
+  }
+
+  /**
+   * Tests that ranges of sample data can be obtained in chunks.
+   */
+  @Test
+  public void testGetChunks() throws IOException
+  {
+    final MappedCapturedData.Builder builder = new MappedCapturedData.Builder();
+    for ( int i = 0; i < 1000; i++ )
+    {
+      builder.append( i, 2L * i );
+    }
+    final MappedCapturedData data = builder.build( -1L, 100, 8, 0xFF, 1998L );
+
+    final int[] values = new int[64];
+    final long[] timestamps = new long[64];
+
+    assertEquals( 64, data.getValues( 100, values, 0, 64 ) );
+    assertEquals( 64, data.getTimestamps( 100, timestamps, 0, 64 ) );
+    assertEquals( 100, values[0] );
+    assertEquals( 163, values[63] );
+    assertEquals( 326L, timestamps[63] );
+
+    assertEquals( 40, data.getValues( 960, values, 10, 54 ) );
+    assertEquals( 960, values[10] );
+    assertEquals( 999, values[49] );
+
+    assertEquals( 0, data.getValues( 1000, values, 0, 64 ) );
+    assertEquals( 999, data.getValue( 999 ) );
+    assertEquals( 1998L, data.getTimestamp( 999 ) );
+  }
+
+  /**
+   * Tests that the temporary files of a mapped result do not outlive it.
+   */
+  @Test
+  public void testBuildDeletesTemporaryFiles() throws IOException
+  {
+    final File tempDir = new File( System.getProperty( "java.io.tmpdir" ) );
+    final int fileCount = countTemporaryFiles( tempDir );
+
+    final MappedCapturedData.Builder builder = new MappedCapturedData.Builder();
+    builder.add( 1, 0L );
+    builder.add( 2, 5L );
+    assertEquals( fileCount + 2, countTemporaryFiles( tempDir ) );
+
+    final MappedCapturedData data = builder.build( -1L, 100, 8, 0xFF, 5L );
+    assertEquals( fileCount, countTemporaryFiles( tempDir ) );
+    // The mapped data remains available...
+    assertArrayEquals( new int[] { 1, 2 }, data.getValues() );
+  }
+
+  /**
+   * Tests that files that cannot be deleted directly are deleted once the
+   * result they belong to is released.
+   */
+  @Test
+  public void testDeleteFilesWhenReleased() throws Exception
+  {
+    // A non-empty directory cannot be deleted...
+    final File dir = File.createTempFile( "ols", ".dir" );
+    assertTrue( dir.delete() && dir.mkdir() );
+    final File file = new File( dir, "content" );
+    assertTrue( file.createNewFile() );
+
+    final MappedCapturedData.Builder builder = new MappedCapturedData.Builder();
+    builder.add( 1, 0L );
+    MappedCapturedData data = builder.build( -1L, 100, 8, 0xFF, 1L );
+
+    MappedCapturedData.deleteWhenReleased( data, dir );
+    assertTrue( dir.exists() );
+
+    assertTrue( file.delete() );
+    MappedCapturedData.deleteReleasedFiles();
+    assertTrue( "Deleted while still in use?!", dir.exists() );
+
+    data = null;
+    for ( int i = 0; dir.exists() && ( i < 50 ); i++ )
+    {
+      System.gc();
+      Thread.sleep( 10L );
+      MappedCapturedData.deleteReleasedFiles();
+    }
+    assertFalse( dir.exists() );
+  }
+
+  /**
+   * Tests that the absolute length is always present in the mapped data (issue
+   * #167).
+   */
+  @Test
+  public void testBuildSingleValueAddsAbsoluteLength() throws IOException
+  {
+    final MappedCapturedData.Builder builder = new MappedCapturedData.Builder();
+    builder.add( 3, 0L );
+    builder.add( 3, 7L );
+
+    final MappedCapturedData data = builder.build( -1L, 100, 8, 0xFF, -1L );
+
+    assertArrayEquals( new int[] { 3, 3 }, data.getValues() );
+    assertArrayEquals( new long[] { 0L, 7L }, data.getTimestamps() );
+    assertEquals( 7L, data.getAbsoluteLength() );
+  }
+
+  /**
+   * Counts the temporary files created for mapped results.
+   */
+  private static int countTemporaryFiles( final File aDir )
+  {
+    final String[] names = aDir.list( new FilenameFilter()
+    {
+      @Override
+      public boolean accept( final File aDirectory, final String aName )
+      {
+        return aName.startsWith( "ols" ) && ( aName.endsWith( ".values" ) || aName.endsWith( ".timestamps" ) );
+      }
+    } );
+    return names.length;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link SampleReader}.
+ */
+public class SampleReaderTest
+{
+  // VARIABLES
+
+  private CapturedData data;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    final int[] values = new int[1000];
+    final long[] timestamps = new long[1000];
+    for ( int i = 0; i < values.length; i++ )
+    {
+      values[i] = i;
+      timestamps[i] = 3L * i;
+    }
+    this.data = new CapturedData( values, timestamps, -1L, 100, 8, 0xFF, 2997L );
+  }
+
+  /**
+   * Tests that all samples can be read sequentially, crossing chunks.
+   */
+  @Test
+  public void testReadForward()
+  {
+    final SampleReader reader = new SampleReader( this.data, 64 );
+
+    assertEquals( 1000, reader.getSampleCount() );
+    for ( int i = 0; i < reader.getSampleCount(); i++ )
+    {
+      assertEquals( i, reader.getValue( i ) );
+      assertEquals( 3L * i, reader.getTimestamp( i ) );
+    }
+  }
+
+  /**
+   * Tests that all samples can be read backwards, crossing chunks.
+   */
+  @Test
+  public void testReadBackward()
+  {
+    final SampleReader reader = new SampleReader( this.data, 64 );
+
+    for ( int i = reader.getSampleCount() - 1; i >= 0; i-- )
+    {
+      assertEquals( 3L * i, reader.getTimestamp( i ) );
+      assertEquals( i, reader.getValue( i ) );
+    }
+  }
+
+  /**
+   * Tests that samples can be read in a random order, with a chunk size larger
+   * than the sample count.
+   */
+  @Test
+  public void testReadRandomly()
+  {
+    final SampleReader reader = new SampleReader( this.data, 4096 );
+
+    assertEquals( 999, reader.getValue( 999 ) );
+    assertEquals( 0L, reader.getTimestamp( 0 ) );
+    assertEquals( 500, reader.getValue( 500 ) );
+    assertEquals( 2997L, reader.getTimestamp( 999 ) );
+  }
+
+  /**
+   * Tests that reading before the first sample fails.
+   */
+  @Test( expected = ArrayIndexOutOfBoundsException.class )
+  public void testReadBeforeFirstSampleFail()
+  {
+    new SampleReader( this.data, 64 ).getValue( -1 );
+  }
+
+  /**
+   * Tests that reading beyond the last sample fails.
+   */
+  @Test( expected = ArrayIndexOutOfBoundsException.class )
+  public void testReadBeyondLastSampleFail()
+  {
+    new SampleReader( this.data, 64 ).getTimestamp( 1000 );
+  }
+}
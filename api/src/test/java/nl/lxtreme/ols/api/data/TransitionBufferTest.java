@@ -0,0 +1,113 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link TransitionBuffer}.
+ */
+public class TransitionBufferTest
+{
+  // METHODS
+
+  /**
+   * Tests that adopting a buffer yields the same result as the list-based
+   * constructor of {@link CapturedData}.
+   */
+  @Test
+  public void testAdoptedBufferMatchesListConstructor()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    final List<Integer> values = new ArrayList<Integer>();
+    final List<Long> timestamps = new ArrayList<Long>();
+
+    final int count = 200000;
+    for ( int i = 0; i < count; i++ )
+    {
+      final int value = ( i / 3 ) & 0xFF;
+      buffer.add( value, i );
+      values.add( Integer.valueOf( value ) );
+      timestamps.add( Long.valueOf( i ) );
+    }
+
+    final CapturedData expected = new CapturedData( values, timestamps, 10L, 100, 8, 0xFF, count + 5 );
+    final CapturedData actual = new CapturedData( buffer, 10L, 100, 8, 0xFF, count + 5 );
+
+    assertArrayEquals( expected.getValues(), actual.getValues() );
+    assertArrayEquals( expected.getTimestamps(), actual.getTimestamps() );
+    assertEquals( expected.getAbsoluteLength(), actual.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that only changed sample values are added to a buffer.
+   */
+  @Test
+  public void testAddOnlyAddsChangedValues()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    buffer.add( 1, 0L );
+    buffer.add( 1, 1L );
+    buffer.add( 2, 2L );
+    buffer.add( 2, 3L );
+
+    assertEquals( 2, buffer.size() );
+    assertEquals( 2, buffer.getLastValue() );
+    assertEquals( 2L, buffer.getLastTimestamp() );
+    assertEquals( 3L, buffer.getEndTimestamp() );
+  }
+
+  /**
+   * Tests that the absolute length is always present in the adopted data (issue
+   * #167).
+   */
+  @Test
+  public void testAdoptSingleValueAddsAbsoluteLength()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    buffer.add( 3, 0L );
+    buffer.add( 3, 7L );
+
+    final CapturedData data = new CapturedData( buffer, -1L, 100, 8, 0xFF, -1L );
+
+    assertArrayEquals( new int[] { 3, 3 }, data.getValues() );
+    assertArrayEquals( new long[] { 0L, 7L }, data.getTimestamps() );
+    assertEquals( 7L, data.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that an empty buffer can be adopted.
+   */
+  @Test
+  public void testAdoptEmptyBuffer()
+  {
+    final CapturedData data = new CapturedData( new TransitionBuffer(), -1L, 100, 8, 0xFF, 0L );
+
+    assertEquals( 0, data.getValues().length );
+    assertEquals( 0, data.getTimestamps().length );
+  }
+}
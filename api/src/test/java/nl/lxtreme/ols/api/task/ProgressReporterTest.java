@@ -0,0 +1,136 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.task;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.tools.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ProgressReporter}.
+ */
+public class ProgressReporterTest
+{
+  // METHODS
+
+  /**
+   * Tests that closing a reporter publishes its final progress, only once.
+   */
+  @Test
+  public void testClosePublishesFinalProgress()
+  {
+    final AcquisitionProgressListener listener = mock( AcquisitionProgressListener.class );
+
+    final ProgressReporter reporter = ProgressReporter.create( listener, 0L, 1000L );
+    reporter.setPosition( 1000L );
+    reporter.close();
+    reporter.close();
+
+    verify( listener ).acquisitionInProgress( 0 );
+    verify( listener ).acquisitionInProgress( 100 );
+    verifyNoMoreInteractions( listener );
+  }
+
+  /**
+   * Tests that the percentage is clamped to the bounds of the reporter.
+   */
+  @Test
+  public void testGetPercentage()
+  {
+    final ProgressReporter reporter = ProgressReporter.create( ( ToolProgressListener )null, 10L, 20L );
+    try
+    {
+      assertEquals( 0, reporter.getPercentage() );
+
+      reporter.setPosition( 15L );
+      assertEquals( 50, reporter.getPercentage() );
+
+      reporter.setPosition( 5L );
+      assertEquals( 0, reporter.getPercentage() );
+
+      reporter.setPosition( 25L );
+      assertEquals( 100, reporter.getPercentage() );
+    }
+    finally
+    {
+      reporter.close();
+    }
+
+    final ProgressReporter emptyReporter = ProgressReporter.create( ( ToolProgressListener )null, 10L, 10L );
+    emptyReporter.close();
+
+    assertEquals( 100, emptyReporter.getPercentage() );
+  }
+
+  /**
+   * Tests that the progress is published periodically while the reporter is
+   * active, and that a listener is called at most once per percent.
+   */
+  @Test
+  public void testPublishesProgressPeriodically() throws Exception
+  {
+    final CountDownLatch latch = new CountDownLatch( 1 );
+    final List<Integer> percentages = new CopyOnWriteArrayList<Integer>();
+
+    final ToolProgressListener listener = new ToolProgressListener()
+    {
+      @Override
+      public void setProgress( final int aPercentage )
+      {
+        percentages.add( Integer.valueOf( aPercentage ) );
+        if ( aPercentage == 25 )
+        {
+          latch.countDown();
+        }
+      }
+    };
+
+    final ProgressReporter reporter = ProgressReporter.create( listener, 0L, 1000000L );
+    try
+    {
+      reporter.setPosition( 250000L );
+
+      assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+
+      for ( long position = 250000L; position <= 1000000L; position++ )
+      {
+        reporter.setPosition( position );
+      }
+    }
+    finally
+    {
+      reporter.close();
+    }
+
+    assertEquals( Integer.valueOf( 0 ), percentages.get( 0 ) );
+    assertEquals( Integer.valueOf( 100 ), percentages.get( percentages.size() - 1 ) );
+    assertTrue( percentages.size() <= 101 );
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2013 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.util;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link IntervalIndex}.
+ */
+public class IntervalIndexTest
+{
+  // METHODS
+
+  /**
+   * Tests that the index yields the same results as a linear scan over its
+   * items, for items added in and out of order.
+   */
+  @Test
+  public void testIndexMatchesLinearScan()
+  {
+    final Random random = new Random( 1L );
+
+    for ( int n : new int[] { 0, 1, 2, 3, 7, 16, 17, 31, 100, 257, 1000 } )
+    {
+      for ( boolean inOrder : new boolean[] { true, false } )
+      {
+        final IntervalIndex<long[]> index = new IntervalIndex<long[]>();
+        final List<long[]> items = new ArrayList<long[]>();
+
+        long start = 0L;
+        for ( int i = 0; i < n; i++ )
+        {
+          start = inOrder ? start + random.nextInt( 5 ) : random.nextInt( 5 * n + 1 );
+          final long end = start + ( ( random.nextInt( 10 ) == 0 ) ? random.nextInt( 200 ) : random.nextInt( 4 ) );
+
+          final long[] item = new long[] { start, end };
+          index.add( start, end, item );
+          items.add( item );
+        }
+
+        // Sort the items the way the index does...
+        Collections.sort( items, new Comparator<long[]>()
+        {
+          @Override
+          public int compare( final long[] aItem1, final long[] aItem2 )
+          {
+            if ( aItem1[0] != aItem2[0] )
+            {
+              return ( aItem1[0] < aItem2[0] ) ? -1 : 1;
+            }
+            return ( aItem1[1] < aItem2[1] ) ? -1 : ( ( aItem1[1] == aItem2[1] ) ? 0 : 1 );
+          }
+        } );
+
+        assertEquals( n, index.size() );
+        for ( int i = 0; i < n; i++ )
+        {
+          assertSame( items.get( i ), index.get( i ) );
+        }
+
+        for ( int q = 0; q < 200; q++ )
+        {
+          final long qStart = random.nextInt( 5 * n + 10 ) - 5;
+          final long qEnd = qStart + random.nextInt( 20 );
+
+          final List<long[]> expected = new ArrayList<long[]>();
+          for ( long[] item : items )
+          {
+            if ( ( item[0] <= qEnd ) && ( item[1] >= qStart ) )
+            {
+              expected.add( item );
+            }
+          }
+
+          final List<long[]> actual = new ArrayList<long[]>();
+          assertEquals( expected.size(), index.getOverlapping( qStart, qEnd, actual ) );
+          assertEquals( expected, actual );
+          assertSame( expected.isEmpty() ? null : expected.get( 0 ), index.getFirstOverlapping( qStart, qEnd ) );
+
+          long[] expectedAfter = null;
+          long[] expectedBefore = null;
+          boolean beforeDone = false;
+          for ( long[] item : items )
+          {
+            if ( ( expectedAfter == null ) && ( item[0] >= qStart ) )
+            {
+              expectedAfter = item;
+            }
+            if ( !beforeDone && ( item[0] < qStart ) && ( item[1] < qStart ) )
+            {
+              expectedBefore = item;
+            }
+            else
+            {
+              beforeDone = true;
+            }
+          }
+
+          assertSame( expectedAfter, index.getFirstAfter( qStart ) );
+          assertSame( expectedBefore, index.getLastBefore( qStart ) );
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that items can be added after the index was queried.
+   */
+  @Test
+  public void testAddAfterQuery()
+  {
+    final IntervalIndex<String> index = new IntervalIndex<String>();
+    index.add( 10L, 20L, "a" );
+    assertEquals( "a", index.getFirstOverlapping( 15L, 15L ) );
+
+    index.add( 5L, 15L, "b" );
+    assertEquals( "b", index.getFirstOverlapping( 15L, 15L ) );
+
+    index.clear();
+    assertTrue( index.isEmpty() );
+    assertNull( index.getFirstOverlapping( 15L, 15L ) );
+  }
+
+  /**
+   * Tests that adding items out of order in between queries retains the order
+   * in which items with equal times were added.
+   */
+  @Test
+  public void testInterleavedAddsKeepOrder()
+  {
+    final Random random = new Random( 2L );
+
+    final IntervalIndex<long[]> index = new IntervalIndex<long[]>();
+    final List<long[]> items = new ArrayList<long[]>();
+
+    for ( int i = 0; i < 500; i++ )
+    {
+      final long start = random.nextInt( 50 );
+      final long end = start + random.nextInt( 3 );
+
+      final long[] item = new long[] { start, end, i };
+      index.add( start, end, item );
+      items.add( item );
+
+      if ( ( i % 7 ) == 0 )
+      {
+        index.getFirstOverlapping( start, end );
+      }
+    }
+
+    // Collections.sort is stable, as the index should be...
+    Collections.sort( items, new Comparator<long[]>()
+    {
+      @Override
+      public int compare( final long[] aItem1, final long[] aItem2 )
+      {
+        if ( aItem1[0] != aItem2[0] )
+        {
+          return ( aItem1[0] < aItem2[0] ) ? -1 : 1;
+        }
+        return ( aItem1[1] < aItem2[1] ) ? -1 : ( ( aItem1[1] == aItem2[1] ) ? 0 : 1 );
+      }
+    } );
+
+    assertEquals( items.size(), index.size() );
+    for ( int i = 0; i < items.size(); i++ )
+    {
+      assertSame( items.get( i ), index.get( i ) );
+    }
+  }
+}
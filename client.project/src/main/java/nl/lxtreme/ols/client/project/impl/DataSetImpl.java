@@ -64,6 +64,34 @@ public class DataSetImpl implements PropertyChangeListener, DataSet, ProjectProp
     this.cursors = createCursors( Ols.MAX_CURSORS, aOld.getCursors() );
   }
 
+  /**
+   * Creates a new {@link DataSetImpl} instance as copy of a given data set.
+   * <p>
+   * The copy shares the (immutable) captured data with the given data set, but
+   * has its own channels, without annotations, and cursors.
+   * </p>
+   * 
+   * @param aSource
+   *          the data set to copy, cannot be <code>null</code>.
+   */
+  DataSetImpl( final DataSetImpl aSource )
+  {
+    this.propertyChangeSupport = new PropertyChangeSupport( this );
+
+    this.capturedData = aSource.capturedData;
+    this.cursorsEnabled = aSource.cursorsEnabled;
+    this.channels = new Channel[aSource.channels.length];
+    for ( int i = 0; i < this.channels.length; i++ )
+    {
+      final Channel channel = aSource.channels[i];
+      if ( channel != null )
+      {
+        this.channels[i] = new ChannelImpl( channel, false /* aRetainAnnotations */);
+      }
+    }
+    this.cursors = createCursors( aSource.cursors.length, aSource.cursors );
+  }
+
   /**
    * Creates a new {@link DataSetImpl} instance.
    */
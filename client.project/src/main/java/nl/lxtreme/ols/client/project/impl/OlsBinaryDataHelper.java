@@ -0,0 +1,543 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.nio.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.task.*;
+
+
+/**
+ * Helper class that is capable of reading & writing OLS data in a compact,
+ * binary, format.
+ * <p>
+ * All numbers are stored in little-endian order. The data starts with a header,
+ * containing a magic number, a format version, the acquisition settings and the
+ * defined cursors. The header is followed by the sample values, packed as four
+ * bytes each, and the timestamps, stored as variable-length encoded deltas to
+ * their preceding timestamp. This allows the data to be read directly into the
+ * primitive arrays of {@link CapturedData}, without any intermediary objects.
+ * </p>
+ */
+public final class OlsBinaryDataHelper
+{
+  // INNER TYPES
+
+  /**
+   * Provides a buffered little-endian reader on top of an input stream.
+   */
+  static final class Input
+  {
+    // VARIABLES
+
+    private final InputStream is;
+    private final ByteBuffer buffer;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Input instance.
+     */
+    Input( final InputStream aInputStream )
+    {
+      this.is = aInputStream;
+      this.buffer = ByteBuffer.allocate( BUFFER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+      this.buffer.flip();
+    }
+
+    // METHODS
+
+    /**
+     * Reads a single byte.
+     */
+    byte readByte() throws IOException
+    {
+      require( 1 );
+      return this.buffer.get();
+    }
+
+    /**
+     * Reads a 32-bit integer value.
+     */
+    int readInt() throws IOException
+    {
+      require( 4 );
+      return this.buffer.getInt();
+    }
+
+    /**
+     * Reads the given range of integer values in a single pass.
+     */
+    void readInts( final int[] aValues, final int aOffset, final int aLength ) throws IOException
+    {
+      final int end = aOffset + aLength;
+
+      int offset = aOffset;
+      while ( offset < end )
+      {
+        require( 4 );
+
+        final int count = Math.min( this.buffer.remaining() >> 2, end - offset );
+        this.buffer.asIntBuffer().get( aValues, offset, count );
+        this.buffer.position( this.buffer.position() + ( count << 2 ) );
+        offset += count;
+      }
+    }
+
+    /**
+     * Reads a 64-bit integer value.
+     */
+    long readLong() throws IOException
+    {
+      require( 8 );
+      return this.buffer.getLong();
+    }
+
+    /**
+     * Reads a variable-length, zig-zag encoded, 64-bit integer value.
+     */
+    long readVarLong() throws IOException
+    {
+      long result = 0L;
+      for ( int shift = 0; shift < 64; shift += 7 )
+      {
+        if ( !this.buffer.hasRemaining() )
+        {
+          require( 1 );
+        }
+
+        final int b = this.buffer.get();
+        result |= ( long )( b & 0x7F ) << shift;
+        if ( ( b & 0x80 ) == 0 )
+        {
+          return ( result >>> 1 ) ^ -( result & 1L );
+        }
+      }
+      throw new IOException( "Data file is corrupt?! Invalid timestamp encountered!" );
+    }
+
+    /**
+     * Makes sure at least the given number of bytes is available in the buffer.
+     */
+    private void require( final int aCount ) throws IOException
+    {
+      if ( this.buffer.remaining() >= aCount )
+      {
+        return;
+      }
+
+      this.buffer.compact();
+      try
+      {
+        while ( this.buffer.position() < aCount )
+        {
+          final int read = this.is.read( this.buffer.array(), this.buffer.position(), this.buffer.remaining() );
+          if ( read < 0 )
+          {
+            throw new EOFException( "Data file is corrupt?! Unexpected end of data!" );
+          }
+          this.buffer.position( this.buffer.position() + read );
+        }
+      }
+      finally
+      {
+        this.buffer.flip();
+      }
+    }
+  }
+
+  /**
+   * Provides a buffered little-endian writer on top of an output stream.
+   */
+  static final class Output
+  {
+    // VARIABLES
+
+    private final OutputStream os;
+    private final ByteBuffer buffer;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Output instance.
+     */
+    Output( final OutputStream aOutputStream )
+    {
+      this.os = aOutputStream;
+      this.buffer = ByteBuffer.allocate( BUFFER_SIZE ).order( ByteOrder.LITTLE_ENDIAN );
+    }
+
+    // METHODS
+
+    /**
+     * Writes all pending data to the underlying output stream.
+     */
+    void flush() throws IOException
+    {
+      this.os.write( this.buffer.array(), 0, this.buffer.position() );
+      this.os.flush();
+      this.buffer.clear();
+    }
+
+    /**
+     * Writes a single byte.
+     */
+    void writeByte( final int aValue ) throws IOException
+    {
+      require( 1 );
+      this.buffer.put( ( byte )aValue );
+    }
+
+    /**
+     * Writes a 32-bit integer value.
+     */
+    void writeInt( final int aValue ) throws IOException
+    {
+      require( 4 );
+      this.buffer.putInt( aValue );
+    }
+
+    /**
+     * Writes the given range of integer values in a single pass.
+     */
+    void writeInts( final int[] aValues, final int aOffset, final int aLength ) throws IOException
+    {
+      final int end = aOffset + aLength;
+
+      int offset = aOffset;
+      while ( offset < end )
+      {
+        require( 4 );
+
+        final int count = Math.min( this.buffer.remaining() >> 2, end - offset );
+        this.buffer.asIntBuffer().put( aValues, offset, count );
+        this.buffer.position( this.buffer.position() + ( count << 2 ) );
+        offset += count;
+      }
+    }
+
+    /**
+     * Writes a 64-bit integer value.
+     */
+    void writeLong( final long aValue ) throws IOException
+    {
+      require( 8 );
+      this.buffer.putLong( aValue );
+    }
+
+    /**
+     * Writes a 64-bit integer value as variable-length, zig-zag encoded, value.
+     */
+    void writeVarLong( final long aValue ) throws IOException
+    {
+      require( 10 );
+
+      long value = ( aValue << 1 ) ^ ( aValue >> 63 );
+      while ( ( value & ~0x7FL ) != 0L )
+      {
+        this.buffer.put( ( byte )( ( value & 0x7F ) | 0x80 ) );
+        value >>>= 7;
+      }
+      this.buffer.put( ( byte )value );
+    }
+
+    /**
+     * Makes sure at least the given number of bytes can be put in the buffer.
+     */
+    private void require( final int aCount ) throws IOException
+    {
+      if ( this.buffer.remaining() < aCount )
+      {
+        this.os.write( this.buffer.array(), 0, this.buffer.position() );
+        this.buffer.clear();
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  /** The magic number denoting binary OLS data, "OLSB" in ASCII. */
+  static final int MAGIC = 0x42534c4f;
+  /** The current version of the binary format. */
+  static final int VERSION = 1;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // METHODS
+
+  /**
+   * Reads the data from a given input stream.
+   *
+   * @param aInputStream
+   *          the input stream to read the data from, cannot be
+   *          <code>null</code>.
+   * @return the read data set, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the data is not in the
+   *           expected format.
+   */
+  public static DataSetImpl read( final InputStream aInputStream ) throws IOException
+  {
+    return read( aInputStream, null );
+  }
+
+  /**
+   * Reads the data from a given input stream, reporting the progress to the
+   * given listener.
+   * <p>
+   * Reading can be cancelled by interrupting the current thread, which causes
+   * an {@link InterruptedIOException} to be thrown.
+   * </p>
+   *
+   * @param aInputStream
+   *          the input stream to read the data from, cannot be
+   *          <code>null</code>;
+   * @param aListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   * @return the read data set, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the data is not in the
+   *           expected format.
+   */
+  public static DataSetImpl read( final InputStream aInputStream, final TaskProgressListener aListener )
+      throws IOException
+  {
+    final Input in = new Input( aInputStream );
+
+    if ( in.readInt() != MAGIC )
+    {
+      throw new IOException( "Data file is corrupt?! No binary data found!" );
+    }
+    final int version = in.readInt();
+    if ( version != VERSION )
+    {
+      throw new IOException( "Unsupported data file version: " + version + "!" );
+    }
+
+    final int size = in.readInt();
+    final int rate = in.readInt();
+    final int channels = in.readInt();
+    final int enabledChannels = in.readInt();
+    final long triggerPos = in.readLong();
+    final long absLen = in.readLong();
+
+    // Perform some sanity checks, make it not possible to import invalid
+    // data...
+    if ( size <= 0 )
+    {
+      throw new IOException( "Data file does not contain any sample data!" );
+    }
+    if ( ( channels <= 0 ) || ( channels > Ols.MAX_CHANNELS ) )
+    {
+      throw new IOException( "Data file is corrupt?! Channel count is not provided!" );
+    }
+
+    final DataSetImpl tempDataSet = new DataSetImpl();
+    tempDataSet.setCursorsEnabled( in.readByte() != 0 );
+
+    final int cursorCount = in.readInt();
+    for ( int i = 0; i < cursorCount; i++ )
+    {
+      final int idx = in.readInt();
+      final long pos = in.readLong();
+      if ( ( idx < 0 ) || ( idx >= Ols.MAX_CURSORS ) )
+      {
+        throw new IOException( "Data file is corrupt?! Invalid cursor encountered!" );
+      }
+      tempDataSet.getCursor( idx ).setTimestamp( pos );
+    }
+
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+
+    // Both the values and timestamps take one step per sample...
+    final ProgressReporter reporter = ProgressReporter.create( aListener, 0L, 2L * size );
+
+    try
+    {
+      final int chunkSize = BUFFER_SIZE >> 2;
+      for ( int offset = 0; offset < size; offset += chunkSize )
+      {
+        checkInterrupted();
+
+        in.readInts( values, offset, Math.min( chunkSize, size - offset ) );
+        reporter.setPosition( offset );
+      }
+
+      long timestamp = 0L;
+      for ( int i = 0; i < size; i++ )
+      {
+        if ( ( i % chunkSize ) == 0 )
+        {
+          checkInterrupted();
+        }
+
+        timestamp += in.readVarLong();
+        timestamps[i] = timestamp;
+
+        reporter.setPosition( size + i );
+      }
+
+      reporter.setPosition( 2L * size );
+    }
+    finally
+    {
+      reporter.close();
+    }
+
+    final AcquisitionResult capturedData = new CapturedData( values, timestamps, triggerPos, rate, channels,
+        enabledChannels, absLen );
+
+    return new DataSetImpl( capturedData, tempDataSet, false /* aRetainAnnotations */);
+  }
+
+  /**
+   * Throws an {@link InterruptedIOException} in case the current thread is
+   * interrupted.
+   */
+  private static void checkInterrupted() throws InterruptedIOException
+  {
+    if ( Thread.currentThread().isInterrupted() )
+    {
+      throw new InterruptedIOException( "Reading data interrupted!" );
+    }
+  }
+
+  /**
+   * Writes the data to the given output stream.
+   * <p>
+   * The given output stream is flushed, but not closed.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set to write, cannot be <code>null</code>;
+   * @param aOutputStream
+   *          the output stream to write the data to, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void write( final DataSet aDataSet, final OutputStream aOutputStream ) throws IOException
+  {
+    write( aDataSet, aOutputStream, null );
+  }
+
+  /**
+   * Writes the data to the given output stream, reporting the progress to the
+   * given listener.
+   * <p>
+   * The given output stream is flushed, but not closed.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set to write, cannot be <code>null</code>;
+   * @param aOutputStream
+   *          the output stream to write the data to, cannot be
+   *          <code>null</code>;
+   * @param aListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void write( final DataSet aDataSet, final OutputStream aOutputStream,
+      final TaskProgressListener aListener ) throws IOException
+  {
+    final Output out = new Output( aOutputStream );
+
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+
+    final Cursor[] cursors = aDataSet.getCursors();
+    final boolean cursorsEnabled = aDataSet.isCursorsEnabled();
+
+    final int sampleCount = capturedData.getSampleCount();
+
+    // Both the values and timestamps take one step per sample...
+    final ProgressReporter reporter = ProgressReporter.create( aListener, 0L, 2L * sampleCount );
+
+    try
+    {
+
+      out.writeInt( MAGIC );
+      out.writeInt( VERSION );
+
+      out.writeInt( sampleCount );
+      out.writeInt( capturedData.getSampleRate() );
+      out.writeInt( capturedData.getChannels() );
+      out.writeInt( capturedData.getEnabledChannels() );
+      out.writeLong( capturedData.hasTriggerData() ? capturedData.getTriggerPosition() : Ols.NOT_AVAILABLE );
+      out.writeLong( capturedData.getAbsoluteLength() );
+
+      out.writeByte( cursorsEnabled ? 1 : 0 );
+
+      int cursorCount = 0;
+      for ( int i = 0; cursorsEnabled && ( i < cursors.length ); i++ )
+      {
+        if ( cursors[i].isDefined() )
+        {
+          cursorCount++;
+        }
+      }
+      out.writeInt( cursorCount );
+      for ( int i = 0; cursorsEnabled && ( i < cursors.length ); i++ )
+      {
+        if ( cursors[i].isDefined() )
+        {
+          out.writeInt( i );
+          out.writeLong( cursors[i].getTimestamp() );
+        }
+      }
+
+      final int[] values = new int[BUFFER_SIZE >> 2];
+      for ( int offset = 0; offset < sampleCount; offset += values.length )
+      {
+        final int length = capturedData.getValues( offset, values, 0, values.length );
+        out.writeInts( values, 0, length );
+        reporter.setPosition( offset );
+      }
+
+      final long[] timestamps = new long[BUFFER_SIZE >> 3];
+      long prevTimestamp = 0L;
+      for ( int offset = 0; offset < sampleCount; offset += timestamps.length )
+      {
+        final int length = capturedData.getTimestamps( offset, timestamps, 0, timestamps.length );
+        for ( int i = 0; i < length; i++ )
+        {
+          out.writeVarLong( timestamps[i] - prevTimestamp );
+          prevTimestamp = timestamps[i];
+        }
+
+        reporter.setPosition( ( long )sampleCount + offset );
+      }
+
+      reporter.setPosition( 2L * sampleCount );
+    }
+    finally
+    {
+      reporter.close();
+      out.flush();
+    }
+  }
+}
@@ -239,11 +239,10 @@ public final class OlsDataHelper
 
     try
     {
-      final int[] values = capturedData.getValues();
-      final long[] timestamps = capturedData.getTimestamps();
+      final SampleReader reader = new SampleReader( capturedData );
 
       bw.write( ";Size: " );
-      bw.write( Integer.toString( values.length ) );
+      bw.write( Integer.toString( reader.getSampleCount() ) );
       bw.newLine();
 
       bw.write( ";Rate: " );
@@ -286,9 +285,9 @@ public final class OlsDataHelper
           bw.newLine();
         }
       }
-      for ( int i = 0; i < values.length; i++ )
+      for ( int i = 0; i < reader.getSampleCount(); i++ )
       {
-        bw.write( formatSample( values[i], timestamps[i] ) );
+        bw.write( formatSample( reader.getValue( i ), reader.getTimestamp( i ) ) );
         bw.newLine();
       }
     }
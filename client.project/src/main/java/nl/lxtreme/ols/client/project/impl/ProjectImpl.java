@@ -82,6 +82,40 @@ public final class ProjectImpl implements Project, ProjectProperties, PropertyCh
     this.propertyChangeSupport.addPropertyChangeListener( aListener );
   }
 
+  /**
+   * Creates a snapshot of this project, that can be used independently of
+   * this project.
+   * <p>
+   * This method should be called from the same thread that changes this
+   * project, normally the EDT.
+   * </p>
+   * 
+   * @return a new project, never <code>null</code>.
+   */
+  public ProjectImpl createSnapshot()
+  {
+    final ProjectImpl result = new ProjectImpl();
+    result.setDataSet( new DataSetImpl( this.dataSet ) );
+
+    for ( UserSettings userSettings : this.settings.values() )
+    {
+      final Properties props = new Properties();
+      for ( Map.Entry<String, Object> userSetting : userSettings )
+      {
+        props.put( userSetting.getKey(), userSetting.getValue() );
+      }
+      result.settings.put( userSettings.getName(), new UserSettingsImpl( userSettings.getName(), props ) );
+    }
+
+    result.name = this.name;
+    result.lastModified = this.lastModified;
+    result.sourceVersion = this.sourceVersion;
+    result.filename = this.filename;
+    result.changed = this.changed;
+
+    return result;
+  }
+
   /**
    * {@inheritDoc}
    */
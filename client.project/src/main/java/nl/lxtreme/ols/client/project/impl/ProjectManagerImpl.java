@@ -23,12 +23,17 @@ package nl.lxtreme.ols.client.project.impl;
 
 import java.beans.*;
 import java.io.*;
+import java.lang.reflect.*;
 import java.util.*;
+import java.util.logging.*;
 import java.util.zip.*;
 
+import javax.swing.*;
+
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.util.*;
 
 
@@ -40,10 +45,13 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
 {
   // CONSTANTS
 
+  private static final Logger LOG = Logger.getLogger( ProjectManagerImpl.class.getName() );
+
   private static final String FILENAME_PROJECT_METADATA = "ols.project";
   private static final String FILENAME_CHANNEL_LABELS = "channel.labels";
   private static final String FILENAME_PROJECT_SETTINGS = "settings/";
   private static final String FILENAME_CAPTURE_RESULTS = "data.ols";
+  private static final String FILENAME_BINARY_CAPTURE_RESULTS = "data.bin";
 
   // VARIABLES
 
@@ -51,7 +59,7 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
 
   private final PropertyChangeSupport propertyChangeSupport;
 
-  private ProjectImpl project;
+  private volatile ProjectImpl project;
 
   // CONSTRUCTORS
 
@@ -84,6 +92,15 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     return this.project;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Project createSnapshot()
+  {
+    return this.project.createSnapshot();
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.project.ProjectManager#createTemporaryProject()
    */
@@ -143,6 +160,11 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
           loadCapturedResults( newProject, zipIS );
           entriesSeen = true;
         }
+        else if ( FILENAME_BINARY_CAPTURE_RESULTS.equals( name ) )
+        {
+          loadBinaryCapturedResults( newProject, zipIS );
+          entriesSeen = true;
+        }
         else if ( name.startsWith( FILENAME_PROJECT_SETTINGS ) )
         {
           final String userSettingsName = name.substring( FILENAME_PROJECT_SETTINGS.length() );
@@ -175,6 +197,103 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void loadProject( final File aFile, final TaskProgressListener aListener ) throws IOException
+  {
+    if ( aFile == null )
+    {
+      throw new IllegalArgumentException( "File cannot be null!" );
+    }
+
+    final ZipFile zipFile;
+    try
+    {
+      zipFile = new ZipFile( aFile );
+    }
+    catch ( ZipException exception )
+    {
+      final IOException ioException = new IOException( "Invalid project file!" );
+      ioException.initCause( exception );
+      throw ioException;
+    }
+
+    final ProjectImpl newProject = new ProjectImpl();
+    // Make sure listeners retrieve the proper events...
+    copyPropertyChangeListeners( this.project, newProject );
+
+    List<String> labels = null;
+    // Only seek to the capture results after the project is shown...
+    ZipEntry captureEntry = null;
+
+    try
+    {
+      boolean entriesSeen = false;
+
+      final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while ( entries.hasMoreElements() )
+      {
+        final ZipEntry ze = entries.nextElement();
+
+        final String name = ze.getName();
+        if ( FILENAME_PROJECT_METADATA.equals( name ) )
+        {
+          loadProjectMetadata( newProject, zipFile.getInputStream( ze ) );
+          entriesSeen = true;
+        }
+        else if ( FILENAME_CHANNEL_LABELS.equals( name ) )
+        {
+          labels = loadChannelLabels( zipFile.getInputStream( ze ) );
+          entriesSeen = true;
+        }
+        else if ( FILENAME_CAPTURE_RESULTS.equals( name ) || FILENAME_BINARY_CAPTURE_RESULTS.equals( name ) )
+        {
+          // Prefer the binary capture results, in case both are present...
+          if ( ( captureEntry == null ) || FILENAME_BINARY_CAPTURE_RESULTS.equals( name ) )
+          {
+            captureEntry = ze;
+          }
+          entriesSeen = true;
+        }
+        else if ( name.startsWith( FILENAME_PROJECT_SETTINGS ) )
+        {
+          final String userSettingsName = name.substring( FILENAME_PROJECT_SETTINGS.length() );
+          loadProjectSettings( newProject, userSettingsName, zipFile.getInputStream( ze ) );
+          entriesSeen = true;
+        }
+      }
+
+      if ( !entriesSeen )
+      {
+        throw new IOException( "Invalid project file!" );
+      }
+
+      // Show the channel labels right away, even without capture results...
+      final DataSetImpl emptyDataSet = newProject.getDataSet();
+      emptyDataSet.mergeChannelLabels( labels );
+
+      // Mark the project as no longer changed...
+      newProject.setChanged( false );
+
+      // Overwrite the main project...
+      setProject( newProject );
+
+      if ( captureEntry != null )
+      {
+        final DataSetImpl dataSet = readCapturedResults( zipFile, captureEntry, aListener );
+        dataSet.mergeChannelLabels( labels );
+
+        setCapturedResultsOnEDT( newProject, emptyDataSet, dataSet );
+      }
+    }
+    finally
+    {
+      zipFile.close();
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -199,32 +318,56 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   @Override
   public void saveProject( final OutputStream aOutput ) throws IOException
   {
+    saveProject( this.project, aOutput, null );
+
+    // Mark the project as no longer changed...
+    this.project.setChanged( false );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void saveProject( final Project aSnapshot, final OutputStream aOutput, final TaskProgressListener aListener )
+      throws IOException
+  {
+    if ( aSnapshot == null )
+    {
+      throw new IllegalArgumentException( "Project cannot be null!" );
+    }
     if ( aOutput == null )
     {
       throw new IllegalArgumentException( "Output stream cannot be null!" );
     }
 
     final BufferedOutputStream os = new BufferedOutputStream( aOutput );
-    final ZipOutputStream zipOS = new ZipOutputStream( os );
+    final ZipWriter zipWriter = new ZipWriter( os, Runtime.getRuntime().availableProcessors() );
 
-    zipOS.setComment( this.hostProperties.getFullName().concat( " project file" ) );
+    zipWriter.setComment( this.hostProperties.getFullName().concat( " project file" ) );
 
     try
     {
-      storeProjectMetadata( this.project, zipOS );
+      storeProjectMetadata( aSnapshot, zipWriter );
       // Store the channel labels...
-      storeChannelLabels( this.project.getDataSet(), zipOS );
+      storeChannelLabels( aSnapshot.getDataSet(), zipWriter );
       // Store the settings...
-      storeProjectSettings( this.project, zipOS );
+      storeProjectSettings( aSnapshot, zipWriter );
       // Store the last capture results...
-      storeCapturedResults( this.project, zipOS );
+      storeCapturedResults( aSnapshot, zipWriter, aListener );
 
-      // Mark the project as no longer changed...
-      this.project.setChanged( false );
+      zipWriter.close();
+
+      if ( LOG.isLoggable( Level.INFO ) )
+      {
+        for ( ZipWriter.EntryStatistics statistics : zipWriter.getStatistics() )
+        {
+          LOG.log( Level.INFO, "Stored project entry: {0}", statistics );
+        }
+      }
     }
     finally
     {
-      HostUtils.closeResource( zipOS );
+      HostUtils.closeResource( zipWriter );
       HostUtils.closeResource( os );
     }
   }
@@ -241,33 +384,54 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   }
 
   /**
-   * Reads the capture results from the given ZIP-input stream.
+   * Reads the binary capture results from the given input stream.
+   * 
+   * @param aProject
+   *          the project to read the capture results for;
+   * @param aInputStream
+   *          the input stream to read the capture results from.
+   * @throws IOException
+   *           in case of I/O problems.
+   * @see OlsBinaryDataHelper
+   */
+  protected void loadBinaryCapturedResults( final ProjectImpl aProject, final InputStream aInputStream )
+      throws IOException
+  {
+    aProject.setDataSet( OlsBinaryDataHelper.read( aInputStream ) );
+  }
+
+  /**
+   * Reads the capture results from the given input stream.
+   * <p>
+   * This is the textual format as used by older versions, which is still
+   * supported for reading.
+   * </p>
    * 
    * @param aProject
    *          the project to read the capture results for;
-   * @param aZipIS
-   *          the ZIP input stream to read the capture results from.
+   * @param aInputStream
+   *          the input stream to read the capture results from.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void loadCapturedResults( final Project aProject, final ZipInputStream aZipIS ) throws IOException
+  protected void loadCapturedResults( final Project aProject, final InputStream aInputStream ) throws IOException
   {
-    aProject.readData( new InputStreamReader( aZipIS ) );
+    aProject.readData( new InputStreamReader( aInputStream ) );
   }
 
   /**
-   * Reads the project channel labels from the given ZIP-input stream.
+   * Reads the project channel labels from the given input stream.
    * 
    * @param aProject
    *          the project to read the channel labels for;
-   * @param aZipIS
-   *          the ZIP input stream to read the channel labels from.
+   * @param aInputStream
+   *          the input stream to read the channel labels from.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected List<String> loadChannelLabels( final ZipInputStream aZipIS ) throws IOException
+  protected List<String> loadChannelLabels( final InputStream aInputStream ) throws IOException
   {
-    final InputStreamReader isReader = new InputStreamReader( aZipIS );
+    final InputStreamReader isReader = new InputStreamReader( aInputStream );
     final BufferedReader reader = new BufferedReader( isReader );
 
     List<String> result = new ArrayList<String>();
@@ -283,18 +447,18 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   }
 
   /**
-   * Reads the project metadata to the given ZIP-input stream.
+   * Reads the project metadata to the given input stream.
    * 
    * @param aProject
    *          the project to read the metadata for;
-   * @param aZipIS
-   *          the ZIP input stream to read the metadata from.
+   * @param aInputStream
+   *          the input stream to read the metadata from.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void loadProjectMetadata( final Project aProject, final ZipInputStream aZipIS ) throws IOException
+  protected void loadProjectMetadata( final Project aProject, final InputStream aInputStream ) throws IOException
   {
-    final InputStreamReader isReader = new InputStreamReader( aZipIS );
+    final InputStreamReader isReader = new InputStreamReader( aInputStream );
     final BufferedReader reader = new BufferedReader( isReader );
 
     String name = null;
@@ -316,24 +480,24 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   }
 
   /**
-   * Reads the project settings to the given ZIP-input stream.
+   * Reads the project settings to the given input stream.
    * 
    * @param aProject
    *          the project to read the settings for;
    * @param aUserSettingsName
    *          the name of the user settings that is to be loaded;
-   * @param aZipIS
-   *          the ZIP input stream to read the settings from.
+   * @param aInputStream
+   *          the input stream to read the settings from.
    * @throws IOException
    *           in case of I/O problems.
    */
   protected void loadProjectSettings( final ProjectImpl aProject, final String aUserSettingsName,
-      final ZipInputStream aZipIS ) throws IOException
+      final InputStream aInputStream ) throws IOException
   {
     final Properties settings = new Properties();
     try
     {
-      settings.load( aZipIS );
+      settings.load( aInputStream );
     }
     finally
     {
@@ -346,17 +510,21 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * Stores the captured results to the given ZIP-output stream.
    * <p>
    * If the given project does not have capture results, this method does
-   * nothing.
+   * nothing. The capture results are stored in the binary format, see
+   * {@link OlsBinaryDataHelper}.
    * </p>
    * 
    * @param aProject
    *          the project to write the capture results for;
-   * @param aZipOS
-   *          the ZIP output stream to write the capture results to.
+   * @param aZipWriter
+   *          the ZIP writer to write the capture results to;
+   * @param aListener
+   *          the listener to report the progress to, can be <code>null</code>.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeCapturedResults( final Project aProject, final ZipOutputStream aZipOS ) throws IOException
+  void storeCapturedResults( final Project aProject, final ZipWriter aZipWriter, final TaskProgressListener aListener )
+      throws IOException
   {
     final DataSet dataSet = aProject.getDataSet();
     if ( dataSet.getCapturedData() == null )
@@ -364,10 +532,10 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
       return;
     }
 
-    final ZipEntry zipEntry = new ZipEntry( FILENAME_CAPTURE_RESULTS );
-    aZipOS.putNextEntry( zipEntry );
+    final OutputStream entryOS = aZipWriter.putNextEntry( FILENAME_BINARY_CAPTURE_RESULTS,
+        getCaptureCompression() );
 
-    aProject.writeData( new OutputStreamWriter( aZipOS ) );
+    OlsBinaryDataHelper.write( dataSet, entryOS, aListener );
   }
 
   /**
@@ -379,20 +547,19 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * 
    * @param aDataSet
    *          the project to write the channel labels for;
-   * @param aZipOS
-   *          the ZIP output stream to write the channel labels to.
+   * @param aZipWriter
+   *          the ZIP writer to write the channel labels to.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeChannelLabels( final DataSet aDataSet, final ZipOutputStream aZipOS ) throws IOException
+  void storeChannelLabels( final DataSet aDataSet, final ZipWriter aZipWriter ) throws IOException
   {
     final Channel[] channels = aDataSet.getChannels();
 
-    final ZipEntry zipEntry = new ZipEntry( FILENAME_CHANNEL_LABELS );
-    aZipOS.putNextEntry( zipEntry );
+    final OutputStream entryOS = aZipWriter.putNextEntry( FILENAME_CHANNEL_LABELS, ZipWriter.Compression.DEFAULT );
 
     // Write the channel labels
-    PrintStream out = new PrintStream( aZipOS );
+    PrintStream out = new PrintStream( entryOS );
 
     try
     {
@@ -417,12 +584,12 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * 
    * @param aProject
    *          the project to write the metadata for;
-   * @param aZipOS
-   *          the ZIP output stream to write the metadata to.
+   * @param aZipWriter
+   *          the ZIP writer to write the metadata to.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeProjectMetadata( final Project aProject, final ZipOutputStream aZipOS ) throws IOException
+  void storeProjectMetadata( final Project aProject, final ZipWriter aZipWriter ) throws IOException
   {
     final String name = aProject.getName();
     if ( ( name == null ) || name.trim().isEmpty() )
@@ -430,11 +597,10 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
       return;
     }
 
-    final ZipEntry zipEntry = new ZipEntry( FILENAME_PROJECT_METADATA );
-    aZipOS.putNextEntry( zipEntry );
+    final OutputStream entryOS = aZipWriter.putNextEntry( FILENAME_PROJECT_METADATA, ZipWriter.Compression.DEFAULT );
 
     // Write the project metadata...
-    PrintStream out = new PrintStream( aZipOS );
+    PrintStream out = new PrintStream( entryOS );
 
     try
     {
@@ -458,41 +624,33 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * 
    * @param aProject
    *          the project to write the settings for;
-   * @param aZipOS
-   *          the ZIP output stream to write the settings to.
+   * @param aZipWriter
+   *          the ZIP writer to write the settings to.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeProjectSettings( final ProjectImpl aProject, final ZipOutputStream aZipOS ) throws IOException
+  void storeProjectSettings( final Project aProject, final ZipWriter aZipWriter ) throws IOException
   {
-    try
+    aProject.visit( new ProjectVisitor()
     {
-      aProject.visit( new ProjectVisitor()
+      @Override
+      public void visit( final UserSettings aSettings ) throws IOException
       {
-        @Override
-        public void visit( final UserSettings aSettings ) throws IOException
-        {
-          final String zipEntryName = FILENAME_PROJECT_SETTINGS.concat( aSettings.getName() );
+        final String zipEntryName = FILENAME_PROJECT_SETTINGS.concat( aSettings.getName() );
 
-          final ZipEntry zipEntry = new ZipEntry( zipEntryName );
-          aZipOS.putNextEntry( zipEntry );
+        final OutputStream entryOS = aZipWriter.putNextEntry( zipEntryName, ZipWriter.Compression.DEFAULT );
 
-          // Convert to a properties object...
-          final Properties props = new Properties();
-          for ( Map.Entry<String, Object> userSetting : aSettings )
-          {
-            props.put( userSetting.getKey(), userSetting.getValue() );
-          }
-
-          // Write the project settings
-          props.store( aZipOS, aSettings.getName().concat( " settings" ) );
+        // Convert to a properties object...
+        final Properties props = new Properties();
+        for ( Map.Entry<String, Object> userSetting : aSettings )
+        {
+          props.put( userSetting.getKey(), userSetting.getValue() );
         }
-      } );
-    }
-    finally
-    {
-      aZipOS.flush();
-    }
+
+        // Write the project settings
+        props.store( entryOS, aSettings.getName().concat( " settings" ) );
+      }
+    } );
   }
 
   /**
@@ -514,6 +672,147 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     }
   }
 
+  /**
+   * Returns the compression to use for the capture results, as set in the
+   * preferences.
+   * 
+   * @return the compression of the capture results, never <code>null</code>.
+   */
+  private ZipWriter.Compression getCaptureCompression()
+  {
+    final String compression = UIManager.getString( "ols.project.compression.enum" );
+    if ( compression != null )
+    {
+      try
+      {
+        return ZipWriter.Compression.valueOf( compression.trim().toUpperCase() );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        LOG.log( Level.WARNING, "Unknown project compression: {0}; using default compression...", compression );
+      }
+    }
+    return ZipWriter.Compression.DEFAULT;
+  }
+
+  /**
+   * Reads the capture results of the given entry, without changing any
+   * project.
+   * 
+   * @param aZipFile
+   *          the ZIP file to read the capture results from;
+   * @param aEntry
+   *          the entry with either binary or textual capture results;
+   * @param aListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   * @return the read data set, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private DataSetImpl readCapturedResults( final ZipFile aZipFile, final ZipEntry aEntry,
+      final TaskProgressListener aListener ) throws IOException
+  {
+    final InputStream is = new BufferedInputStream( aZipFile.getInputStream( aEntry ) );
+    try
+    {
+      if ( FILENAME_BINARY_CAPTURE_RESULTS.equals( aEntry.getName() ) )
+      {
+        return OlsBinaryDataHelper.read( is, aListener );
+      }
+
+      // Older, textual, format; read it through a temporary project...
+      final ProjectImpl tempProject = new ProjectImpl();
+      loadCapturedResults( tempProject, is );
+      return new DataSetImpl( tempProject.getDataSet() );
+    }
+    finally
+    {
+      HostUtils.closeResource( is );
+    }
+  }
+
+  /**
+   * Sets the capture results read for the given project, unless it is no longer
+   * the current project or has new capture results in the meantime.
+   * <p>
+   * As the project is shown while its capture results are read, it might be
+   * edited, or get capture results of a new acquisition in the meantime.
+   * Therefore, the capture results are set on the EDT, where the project is
+   * edited, and merged into its data set in case it is edited.
+   * </p>
+   * 
+   * @param aProject
+   *          the project to set the capture results for;
+   * @param aEmptyDataSet
+   *          the data set of the project without capture results;
+   * @param aDataSet
+   *          the data set with the capture results read.
+   * @throws IOException
+   *           in case the current thread is interrupted while waiting for the
+   *           EDT.
+   */
+  private void setCapturedResultsOnEDT( final ProjectImpl aProject, final DataSetImpl aEmptyDataSet,
+      final DataSetImpl aDataSet ) throws IOException
+  {
+    final Runnable runner = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        // A new acquisition or project supersedes the capture results of the
+        // file, so only fill in the data set if it is still empty...
+        if ( ( ProjectManagerImpl.this.project != aProject ) || ( aProject.getDataSet() != aEmptyDataSet ) )
+        {
+          return;
+        }
+
+        if ( aProject.isChanged() )
+        {
+          // Keep the edits made while the capture results were read...
+          aProject.setCapturedData( aDataSet.getCapturedData() );
+
+          // Only place the cursors of the file that are not placed yet...
+          final Cursor[] cursors = aDataSet.getCursors();
+          for ( int i = 0; i < cursors.length; i++ )
+          {
+            final Cursor cursor = aProject.getDataSet().getCursor( i );
+            if ( !cursor.isDefined() && cursors[i].isDefined() )
+            {
+              cursor.setTimestamp( cursors[i].getTimestamp() );
+              cursor.setLabel( cursors[i].getLabel() );
+            }
+          }
+        }
+        else
+        {
+          // Nothing is edited, so the read data set is what is shown...
+          aProject.setDataSet( aDataSet );
+          aProject.setChanged( false );
+        }
+      }
+    };
+
+    if ( SwingUtilities.isEventDispatchThread() )
+    {
+      runner.run();
+      return;
+    }
+
+    try
+    {
+      SwingUtilities.invokeAndWait( runner );
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Loading project interrupted!" );
+    }
+    catch ( InvocationTargetException exception )
+    {
+      throw new IOException( "Setting the capture results failed!", exception.getCause() );
+    }
+  }
+
   /**
    * Sets the current project to the given project.
    * 
@@ -529,6 +828,9 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     }
 
     this.project = aProject;
+    // The listeners of the new project might be copied from the old project,
+    // including ourselves; make sure we relay its events only once...
+    this.project.removePropertyChangeListener( this );
     this.project.addPropertyChangeListener( this );
 
     this.propertyChangeSupport.firePropertyChange( "project", oldProject, this.project );
@@ -0,0 +1,866 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+
+/**
+ * Writes standard ZIP-files, like {@link ZipOutputStream}, but allows the
+ * compression to be chosen per entry, and compresses large entries using
+ * multiple threads.
+ * <p>
+ * Deflated entries are split into blocks that are compressed independently, in
+ * the style of <tt>pigz</tt>. Each block is primed with the last 32KiB of its
+ * preceding block and ends on a byte boundary (sync flush), so the compressed
+ * blocks can be concatenated into a single deflate stream that any ZIP reader
+ * can inflate. Sync flushing is only available as of Java 7; on older
+ * platforms, entries are compressed sequentially instead.
+ * </p>
+ * <p>
+ * The sizes and checksums of all entries are written in a data descriptor
+ * after their data, so no entry is kept in memory. As readers like
+ * {@link ZipInputStream} only support data descriptors for deflated entries,
+ * entries without compression are written as deflate stream of uncompressed
+ * blocks, which adds about five bytes per 64KiB of data. Like
+ * {@link ZipOutputStream} does as of Java 7, entries and ZIP-files that exceed
+ * the 4GiB limit of the ZIP-format are written using its ZIP64 extensions.
+ * </p>
+ * <p>
+ * All writers share a single pool of compression threads, which is created on
+ * first use and whose threads end when idle.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ */
+final class ZipWriter implements Closeable
+{
+  // INNER TYPES
+
+  /**
+   * Denotes the compression of a single entry.
+   */
+  static enum Compression
+  {
+    /** No compression at all, apart from the framing of the deflate format. */
+    STORE( Deflater.NO_COMPRESSION ),
+    /** Fastest compression, at the expense of compression ratio. */
+    FAST( Deflater.BEST_SPEED ),
+    /** The default compression, as used by {@link ZipOutputStream}. */
+    DEFAULT( Deflater.DEFAULT_COMPRESSION ),
+    /** Best compression ratio, at the expense of speed. */
+    BEST( Deflater.BEST_COMPRESSION );
+
+    final int level;
+
+    /**
+     * Creates a new Compression instance.
+     */
+    private Compression( final int aLevel )
+    {
+      this.level = aLevel;
+    }
+  }
+
+  /**
+   * Provides the sizes and write time of a single entry, to allow the
+   * compression to be tuned.
+   */
+  static final class EntryStatistics
+  {
+    // VARIABLES
+
+    final String name;
+    final Compression compression;
+    final long size;
+    final long compressedSize;
+    final long time;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new EntryStatistics instance.
+     */
+    EntryStatistics( final String aName, final Compression aCompression, final long aSize,
+        final long aCompressedSize, final long aTime )
+    {
+      this.name = aName;
+      this.compression = aCompression;
+      this.size = aSize;
+      this.compressedSize = aCompressedSize;
+      this.time = aTime;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return String.format( "%s (%s): %d bytes compressed to %d bytes in %d ms", this.name, this.compression,
+          Long.valueOf( this.size ), Long.valueOf( this.compressedSize ), Long.valueOf( this.time ) );
+    }
+  }
+
+  /**
+   * Compresses a single block of an entry.
+   */
+  static final class DeflateJob implements Callable<byte[]>
+  {
+    // VARIABLES
+
+    private final int level;
+    private final byte[] block;
+    private final int length;
+    private final byte[] previousBlock;
+    private final boolean last;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DeflateJob instance.
+     */
+    DeflateJob( final int aLevel, final byte[] aBlock, final int aLength, final byte[] aPreviousBlock,
+        final boolean aLast )
+    {
+      this.level = aLevel;
+      this.block = aBlock;
+      this.length = aLength;
+      this.previousBlock = aPreviousBlock;
+      this.last = aLast;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] call() throws Exception
+    {
+      final Deflater deflater = new Deflater( this.level, true /* nowrap */);
+      try
+      {
+        if ( this.previousBlock != null )
+        {
+          deflater.setDictionary( this.previousBlock, this.previousBlock.length - DICTIONARY_SIZE, DICTIONARY_SIZE );
+        }
+        deflater.setInput( this.block, 0, this.length );
+
+        final ByteArrayOutputStream result = new ByteArrayOutputStream( ( this.length >> 1 ) + 64 );
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        if ( this.last )
+        {
+          deflater.finish();
+          while ( !deflater.finished() )
+          {
+            result.write( buffer, 0, deflater.deflate( buffer ) );
+          }
+        }
+        else
+        {
+          // A filled up buffer means there is more output pending...
+          int count;
+          do
+          {
+            count = ( ( Integer )DEFLATE_METHOD.invoke( deflater, buffer, Integer.valueOf( 0 ),
+                Integer.valueOf( buffer.length ), Integer.valueOf( SYNC_FLUSH ) ) ).intValue();
+            result.write( buffer, 0, count );
+          }
+          while ( count == buffer.length );
+        }
+
+        return result.toByteArray();
+      }
+      finally
+      {
+        deflater.end();
+      }
+    }
+  }
+
+  /**
+   * Provides the data of a single entry.
+   */
+  final class EntryOutputStream extends OutputStream
+  {
+    // VARIABLES
+
+    private final String name;
+    private final byte[] nameBytes;
+    private final Compression compression;
+    private final long startTime;
+    private final int dosTime;
+    private final long headerOffset;
+    private final CRC32 crc;
+    private final boolean parallel;
+    /** The sequential deflater, only used if not compressing in parallel. */
+    private final Deflater deflater;
+    private final Deque<Future<byte[]>> pendingBlocks;
+
+    private byte[] block;
+    private int blockLength;
+    private byte[] previousBlock;
+    private long size;
+    private long compressedSize;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new EntryOutputStream instance.
+     */
+    EntryOutputStream( final String aName, final Compression aCompression ) throws IOException
+    {
+      this.name = aName;
+      this.nameBytes = aName.getBytes( "UTF-8" );
+      this.compression = aCompression;
+      this.startTime = System.currentTimeMillis();
+      this.dosTime = toDosTime( this.startTime );
+      this.headerOffset = ZipWriter.this.offset;
+      this.crc = new CRC32();
+      this.parallel = ( aCompression != Compression.STORE ) && ( ZipWriter.this.threadCount > 1 )
+          && ( DEFLATE_METHOD != null );
+      this.deflater = this.parallel ? null : new Deflater( aCompression.level, true /* nowrap */);
+      this.pendingBlocks = new ArrayDeque<Future<byte[]>>();
+      this.block = new byte[BLOCK_SIZE];
+
+      // Sizes and checksum follow in the data descriptor...
+      writeLocalHeader( this );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+      closeEntry();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+    {
+      if ( ZipWriter.this.entry != this )
+      {
+        throw new IOException( "Entry already closed!" );
+      }
+
+      int offset = aOffset;
+      int remaining = aLength;
+      while ( remaining > 0 )
+      {
+        final int count = Math.min( remaining, this.block.length - this.blockLength );
+        System.arraycopy( aBuffer, offset, this.block, this.blockLength, count );
+        this.blockLength += count;
+        offset += count;
+        remaining -= count;
+
+        if ( this.blockLength == this.block.length )
+        {
+          writeBlock( false /* aLast */);
+        }
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final int aByte ) throws IOException
+    {
+      write( new byte[] { ( byte )aByte }, 0, 1 );
+    }
+
+    /**
+     * Finishes this entry, writing all pending data.
+     */
+    EntryStatistics finish() throws IOException
+    {
+      try
+      {
+        writeBlock( true /* aLast */);
+
+        while ( !this.pendingBlocks.isEmpty() )
+        {
+          writeCompressed( this.pendingBlocks.removeFirst() );
+        }
+
+        writeInt( DATA_DESCRIPTOR_SIGNATURE );
+        writeInt( this.crc.getValue() );
+        if ( isZip64( this ) )
+        {
+          writeLong( this.compressedSize );
+          writeLong( this.size );
+        }
+        else
+        {
+          writeInt( this.compressedSize );
+          writeInt( this.size );
+        }
+
+        return new EntryStatistics( this.name, this.compression, this.size, this.compressedSize,
+            System.currentTimeMillis() - this.startTime );
+      }
+      finally
+      {
+        for ( Future<byte[]> pendingBlock : this.pendingBlocks )
+        {
+          pendingBlock.cancel( true /* mayInterruptIfRunning */);
+        }
+        if ( this.deflater != null )
+        {
+          this.deflater.end();
+        }
+      }
+    }
+
+    /**
+     * Compresses the current block, or hands it to a compression thread.
+     */
+    private void writeBlock( final boolean aLast ) throws IOException
+    {
+      this.crc.update( this.block, 0, this.blockLength );
+      this.size += this.blockLength;
+
+      if ( this.parallel )
+      {
+        this.pendingBlocks.addLast( getExecutorService().submit(
+            new DeflateJob( this.compression.level, this.block, this.blockLength, this.previousBlock, aLast ) ) );
+
+        // Limit the amount of memory used for pending blocks...
+        while ( this.pendingBlocks.size() > ( 2 * ZipWriter.this.threadCount ) )
+        {
+          writeCompressed( this.pendingBlocks.removeFirst() );
+        }
+
+        // Blocks are handed over, so we continue with a new one...
+        this.previousBlock = this.block;
+        this.block = new byte[BLOCK_SIZE];
+      }
+      else
+      {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        this.deflater.setInput( this.block, 0, this.blockLength );
+        if ( aLast )
+        {
+          this.deflater.finish();
+        }
+        while ( aLast ? !this.deflater.finished() : !this.deflater.needsInput() )
+        {
+          final int count = this.deflater.deflate( buffer );
+          writeBytes( buffer, 0, count );
+          this.compressedSize += count;
+        }
+      }
+
+      this.blockLength = 0;
+    }
+
+    /**
+     * Writes the result of the given compression job.
+     */
+    private void writeCompressed( final Future<byte[]> aPendingBlock ) throws IOException
+    {
+      final byte[] compressed;
+      try
+      {
+        compressed = aPendingBlock.get();
+      }
+      catch ( InterruptedException exception )
+      {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException( "Compression interrupted!" );
+      }
+      catch ( ExecutionException exception )
+      {
+        final IOException ioException = new IOException( "Compression failed!" );
+        ioException.initCause( exception.getCause() );
+        throw ioException;
+      }
+
+      writeBytes( compressed, 0, compressed.length );
+      this.compressedSize += compressed.length;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The size of the blocks that are compressed independently. */
+  static final int BLOCK_SIZE = 128 * 1024;
+
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+  /** Marks 16- and 32-bit fields whose value is found in a ZIP64 record. */
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+  private static final long ZIP64_MAGIC_SIZE = 0xFFFFFFFFL;
+
+  private static final int VERSION = 20;
+  private static final int VERSION_ZIP64 = 45;
+  private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+  private static final int FLAG_UTF8 = 1 << 11;
+
+  /** The value of <tt>Deflater.SYNC_FLUSH</tt>, as of Java 7. */
+  private static final int SYNC_FLUSH = 2;
+  /** <tt>Deflater.deflate(byte[], int, int, int)</tt>, or null before Java 7. */
+  private static final Method DEFLATE_METHOD;
+
+  static
+  {
+    Method method = null;
+    try
+    {
+      method = Deflater.class.getMethod( "deflate", byte[].class, Integer.TYPE, Integer.TYPE, Integer.TYPE );
+    }
+    catch ( NoSuchMethodException exception )
+    {
+      // Ignore; we're running on Java 6...
+    }
+    DEFLATE_METHOD = method;
+  }
+
+  /** The number of threads used for compression, shared by all writers. */
+  private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+  /** The time, in seconds, after which idle compression threads end. */
+  private static final long KEEP_ALIVE_TIME = 10L;
+
+  // VARIABLES
+
+  private static ExecutorService executorService;
+
+  private final OutputStream out;
+  private final int threadCount;
+  private final ByteArrayOutputStream centralDirectory;
+  private final List<EntryStatistics> statistics;
+
+  private EntryOutputStream entry;
+  private int entryCount;
+  private long offset;
+  private String comment;
+  private boolean closed;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ZipWriter instance.
+   * 
+   * @param aOutputStream
+   *          the output stream to write the ZIP-file to, cannot be
+   *          <code>null</code>;
+   * @param aThreadCount
+   *          the number of blocks to compress in parallel, > 0. A value of 1
+   *          compresses all entries sequentially.
+   */
+  public ZipWriter( final OutputStream aOutputStream, final int aThreadCount )
+  {
+    this.out = aOutputStream;
+    this.threadCount = aThreadCount;
+    this.centralDirectory = new ByteArrayOutputStream();
+    this.statistics = new ArrayList<EntryStatistics>();
+    this.comment = "";
+  }
+
+  // METHODS
+
+  /**
+   * Returns whether entries can be compressed in parallel on this platform.
+   * 
+   * @return <code>true</code> if parallel compression is supported,
+   *         <code>false</code> otherwise.
+   */
+  static boolean isParallelCompressionSupported()
+  {
+    return DEFLATE_METHOD != null;
+  }
+
+  /**
+   * Returns the executor service shared by all writers, creating it if needed.
+   */
+  private static synchronized ExecutorService getExecutorService()
+  {
+    if ( executorService == null )
+    {
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor( PARALLELISM, PARALLELISM, KEEP_ALIVE_TIME,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+          {
+            @Override
+            public Thread newThread( final Runnable aRunnable )
+            {
+              final Thread result = new Thread( aRunnable, "Project compressor" );
+              result.setDaemon( true );
+              return result;
+            }
+          } );
+      executor.allowCoreThreadTimeOut( true );
+
+      executorService = executor;
+    }
+    return executorService;
+  }
+
+  /**
+   * Returns whether the sizes of the given entry need ZIP64 extensions.
+   */
+  private static boolean isZip64( final EntryOutputStream aEntry )
+  {
+    return ( aEntry.size >= ZIP64_MAGIC_SIZE ) || ( aEntry.compressedSize >= ZIP64_MAGIC_SIZE );
+  }
+
+  /**
+   * Writes a 32-bit value in little-endian order to the given output stream.
+   */
+  private static void putInt( final OutputStream aOutputStream, final long aValue ) throws IOException
+  {
+    putShort( aOutputStream, ( int )( aValue & 0xFFFF ) );
+    putShort( aOutputStream, ( int )( ( aValue >>> 16 ) & 0xFFFF ) );
+  }
+
+  /**
+   * Writes a 64-bit value in little-endian order to the given output stream.
+   */
+  private static void putLong( final OutputStream aOutputStream, final long aValue ) throws IOException
+  {
+    putInt( aOutputStream, aValue & 0xFFFFFFFFL );
+    putInt( aOutputStream, aValue >>> 32 );
+  }
+
+  /**
+   * Writes a 16-bit value in little-endian order to the given output stream.
+   */
+  private static void putShort( final OutputStream aOutputStream, final int aValue ) throws IOException
+  {
+    aOutputStream.write( aValue & 0xFF );
+    aOutputStream.write( ( aValue >>> 8 ) & 0xFF );
+  }
+
+  /**
+   * Converts the given time to the MS-DOS date and time format.
+   */
+  private static int toDosTime( final long aTime )
+  {
+    final Calendar cal = Calendar.getInstance();
+    cal.setTimeInMillis( aTime );
+
+    final int year = cal.get( Calendar.YEAR );
+    if ( year < 1980 )
+    {
+      return ( 1 << 21 ) | ( 1 << 16 );
+    }
+    return ( ( year - 1980 ) << 25 ) | ( ( cal.get( Calendar.MONTH ) + 1 ) << 21 )
+        | ( cal.get( Calendar.DAY_OF_MONTH ) << 16 ) | ( cal.get( Calendar.HOUR_OF_DAY ) << 11 )
+        | ( cal.get( Calendar.MINUTE ) << 5 ) | ( cal.get( Calendar.SECOND ) >> 1 );
+  }
+
+  /**
+   * Finishes the current entry, if any, and writes the central directory. The
+   * underlying output stream is flushed, but not closed. Closing a writer more
+   * than once has no effect.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if ( this.closed )
+    {
+      return;
+    }
+    this.closed = true;
+
+    closeEntry();
+
+    final long centralDirectoryOffset = this.offset;
+    final byte[] centralDirectoryBytes = this.centralDirectory.toByteArray();
+    writeBytes( centralDirectoryBytes, 0, centralDirectoryBytes.length );
+
+    final byte[] commentBytes = this.comment.getBytes( "UTF-8" );
+
+    final boolean zip64 = ( this.entryCount >= ZIP64_MAGIC_COUNT )
+        || ( centralDirectoryBytes.length >= ZIP64_MAGIC_SIZE ) || ( centralDirectoryOffset >= ZIP64_MAGIC_SIZE );
+    if ( zip64 )
+    {
+      final long zip64EndOffset = this.offset;
+
+      writeInt( ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE );
+      writeLong( 44L ); // size of the remainder of this record
+      writeShort( VERSION_ZIP64 ); // version made by
+      writeShort( VERSION_ZIP64 ); // version needed to extract
+      writeInt( 0L ); // number of this disk
+      writeInt( 0L ); // disk with the central directory
+      writeLong( this.entryCount );
+      writeLong( this.entryCount );
+      writeLong( centralDirectoryBytes.length );
+      writeLong( centralDirectoryOffset );
+
+      writeInt( ZIP64_LOCATOR_SIGNATURE );
+      writeInt( 0L ); // disk with the ZIP64 end of central directory
+      writeLong( zip64EndOffset );
+      writeInt( 1L ); // total number of disks
+    }
+
+    writeInt( END_OF_CENTRAL_DIRECTORY_SIGNATURE );
+    writeShort( 0 ); // number of this disk
+    writeShort( 0 ); // disk with the central directory
+    writeShort( Math.min( this.entryCount, ZIP64_MAGIC_COUNT ) );
+    writeShort( Math.min( this.entryCount, ZIP64_MAGIC_COUNT ) );
+    writeInt( Math.min( centralDirectoryBytes.length, ZIP64_MAGIC_SIZE ) );
+    writeInt( Math.min( centralDirectoryOffset, ZIP64_MAGIC_SIZE ) );
+    writeShort( checkCount( commentBytes.length ) );
+    writeBytes( commentBytes, 0, commentBytes.length );
+
+    this.out.flush();
+  }
+
+  /**
+   * Finishes the current entry, if any.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void closeEntry() throws IOException
+  {
+    final EntryOutputStream current = this.entry;
+    if ( current == null )
+    {
+      return;
+    }
+
+    try
+    {
+      this.statistics.add( current.finish() );
+      writeCentralHeader( current );
+    }
+    finally
+    {
+      this.entry = null;
+    }
+  }
+
+  /**
+   * Returns the statistics of all finished entries.
+   * 
+   * @return a list of entry statistics, in the order of the entries, never
+   *         <code>null</code>.
+   */
+  public List<EntryStatistics> getStatistics()
+  {
+    return Collections.unmodifiableList( this.statistics );
+  }
+
+  /**
+   * Finishes the current entry, if any, and starts a new entry.
+   * 
+   * @param aName
+   *          the name of the entry, cannot be <code>null</code>;
+   * @param aCompression
+   *          the compression of the entry, cannot be <code>null</code>.
+   * @return the output stream to write the data of the entry to, which is
+   *         valid until the next entry is started or this writer is closed.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public OutputStream putNextEntry( final String aName, final Compression aCompression ) throws IOException
+  {
+    if ( aName == null )
+    {
+      throw new IllegalArgumentException( "Name cannot be null!" );
+    }
+    if ( aCompression == null )
+    {
+      throw new IllegalArgumentException( "Compression cannot be null!" );
+    }
+
+    if ( this.closed )
+    {
+      throw new IOException( "ZIP writer already closed!" );
+    }
+
+    closeEntry();
+
+    this.entry = new EntryOutputStream( aName, aCompression );
+    return this.entry;
+  }
+
+  /**
+   * Sets the comment of the ZIP-file.
+   * 
+   * @param aComment
+   *          the comment to set, cannot be <code>null</code>.
+   */
+  public void setComment( final String aComment )
+  {
+    this.comment = aComment;
+  }
+
+  /**
+   * Makes sure the given length fits in the 16-bit fields of the ZIP-format.
+   */
+  private int checkCount( final int aCount ) throws IOException
+  {
+    if ( aCount > 0xFFFF )
+    {
+      throw new IOException( "Name or comment too long for the ZIP-format!" );
+    }
+    return aCount;
+  }
+
+  /**
+   * Returns the general purpose flags of the given entry.
+   */
+  private int getFlags( final EntryOutputStream aEntry )
+  {
+    int flags = FLAG_DATA_DESCRIPTOR;
+    if ( aEntry.nameBytes.length != aEntry.name.length() )
+    {
+      flags |= FLAG_UTF8;
+    }
+    return flags;
+  }
+
+  /**
+   * Writes the given bytes to the underlying output stream.
+   */
+  private void writeBytes( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    this.out.write( aBuffer, aOffset, aLength );
+    this.offset += aLength;
+  }
+
+  /**
+   * Adds the header of the given (finished) entry to the central directory.
+   */
+  private void writeCentralHeader( final EntryOutputStream aEntry ) throws IOException
+  {
+    // Values that do not fit are replaced by a marker, and moved to the ZIP64
+    // extra field, in the order defined by the ZIP-format...
+    final ByteArrayOutputStream zip64Extra = new ByteArrayOutputStream();
+    if ( aEntry.size >= ZIP64_MAGIC_SIZE )
+    {
+      putLong( zip64Extra, aEntry.size );
+    }
+    if ( aEntry.compressedSize >= ZIP64_MAGIC_SIZE )
+    {
+      putLong( zip64Extra, aEntry.compressedSize );
+    }
+    if ( aEntry.headerOffset >= ZIP64_MAGIC_SIZE )
+    {
+      putLong( zip64Extra, aEntry.headerOffset );
+    }
+    final boolean zip64 = zip64Extra.size() > 0;
+
+    final OutputStream header = this.centralDirectory;
+    putInt( header, CENTRAL_HEADER_SIGNATURE );
+    putShort( header, zip64 ? VERSION_ZIP64 : VERSION ); // version made by
+    putShort( header, zip64 ? VERSION_ZIP64 : VERSION ); // version needed to extract
+    putShort( header, getFlags( aEntry ) );
+    putShort( header, ZipEntry.DEFLATED );
+    putInt( header, aEntry.dosTime );
+    putInt( header, aEntry.crc.getValue() );
+    putInt( header, Math.min( aEntry.compressedSize, ZIP64_MAGIC_SIZE ) );
+    putInt( header, Math.min( aEntry.size, ZIP64_MAGIC_SIZE ) );
+    putShort( header, checkCount( aEntry.nameBytes.length ) );
+    putShort( header, zip64 ? ( zip64Extra.size() + 4 ) : 0 ); // extra field length
+    putShort( header, 0 ); // comment length
+    putShort( header, 0 ); // disk number start
+    putShort( header, 0 ); // internal attributes
+    putInt( header, 0L ); // external attributes
+    putInt( header, Math.min( aEntry.headerOffset, ZIP64_MAGIC_SIZE ) );
+    header.write( aEntry.nameBytes );
+    if ( zip64 )
+    {
+      putShort( header, ZIP64_EXTRA_FIELD_ID );
+      putShort( header, zip64Extra.size() );
+      zip64Extra.writeTo( header );
+    }
+
+    this.entryCount++;
+  }
+
+  /**
+   * Writes a 32-bit value in little-endian order.
+   */
+  private void writeInt( final long aValue ) throws IOException
+  {
+    putInt( this.out, aValue );
+    this.offset += 4;
+  }
+
+  /**
+   * Writes a 64-bit value in little-endian order.
+   */
+  private void writeLong( final long aValue ) throws IOException
+  {
+    putLong( this.out, aValue );
+    this.offset += 8;
+  }
+
+  /**
+   * Writes the local header of the given entry, whose checksum and sizes
+   * follow in its data descriptor.
+   */
+  private void writeLocalHeader( final EntryOutputStream aEntry ) throws IOException
+  {
+    writeInt( LOCAL_HEADER_SIGNATURE );
+    writeShort( VERSION );
+    writeShort( getFlags( aEntry ) );
+    writeShort( ZipEntry.DEFLATED );
+    writeInt( aEntry.dosTime );
+    writeInt( 0L ); // checksum
+    writeInt( 0L ); // compressed size
+    writeInt( 0L ); // size
+    writeShort( checkCount( aEntry.nameBytes.length ) );
+    writeShort( 0 ); // extra field length
+    writeBytes( aEntry.nameBytes, 0, aEntry.nameBytes.length );
+  }
+
+  /**
+   * Writes a 16-bit value in little-endian order.
+   */
+  private void writeShort( final int aValue ) throws IOException
+  {
+    putShort( this.out, aValue );
+    this.offset += 2;
+  }
+}
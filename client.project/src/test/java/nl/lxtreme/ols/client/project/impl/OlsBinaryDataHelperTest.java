@@ -0,0 +1,124 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link OlsBinaryDataHelper}.
+ */
+public class OlsBinaryDataHelperTest
+{
+  // METHODS
+
+  /**
+   * Tests that the binary format yields the same data as the textual format.
+   */
+  @Test
+  public void testBinaryFormatMatchesTextFormat() throws IOException
+  {
+    final DataSetImpl dataSet = createDataSet( 100000 );
+    dataSet.setCursorsEnabled( true );
+    dataSet.getCursor( 0 ).setTimestamp( 12L );
+    dataSet.getCursor( 7 ).setTimestamp( 4711L );
+
+    final ByteArrayOutputStream text = new ByteArrayOutputStream();
+    OlsDataHelper.write( dataSet, new OutputStreamWriter( text ) );
+    final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    OlsBinaryDataHelper.write( dataSet, binary );
+
+    final DataSetImpl fromText = OlsDataHelper.read( new InputStreamReader( new ByteArrayInputStream(
+        text.toByteArray() ) ) );
+    final DataSetImpl fromBinary = OlsBinaryDataHelper.read( new ByteArrayInputStream( binary.toByteArray() ) );
+
+    DataTestUtils.assertEquals( fromText.getCapturedData(), fromBinary.getCapturedData() );
+    assertEquals( fromText.getCapturedData().getTriggerPosition(), fromBinary.getCapturedData()
+        .getTriggerPosition() );
+    assertEquals( fromText.isCursorsEnabled(), fromBinary.isCursorsEnabled() );
+    for ( int i = 0; i < fromText.getCursors().length; i++ )
+    {
+      assertEquals( fromText.getCursor( i ).isDefined(), fromBinary.getCursor( i ).isDefined() );
+      if ( fromText.getCursor( i ).isDefined() )
+      {
+        assertEquals( fromText.getCursor( i ).getTimestamp(), fromBinary.getCursor( i ).getTimestamp() );
+      }
+    }
+
+    assertTrue( binary.size() < text.size() );
+  }
+
+  /**
+   * Tests that reading data without the binary header fails.
+   */
+  @Test( expected = IOException.class )
+  public void testReadTextDataFail() throws IOException
+  {
+    final ByteArrayOutputStream text = new ByteArrayOutputStream();
+    OlsDataHelper.write( createDataSet( 10 ), new OutputStreamWriter( text ) );
+
+    OlsBinaryDataHelper.read( new ByteArrayInputStream( text.toByteArray() ) );
+  }
+
+  /**
+   * Tests that reading truncated data fails.
+   */
+  @Test( expected = EOFException.class )
+  public void testReadTruncatedDataFail() throws IOException
+  {
+    final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+    OlsBinaryDataHelper.write( createDataSet( 1000 ), binary );
+
+    final byte[] data = Arrays.copyOf( binary.toByteArray(), binary.size() - 10 );
+    OlsBinaryDataHelper.read( new ByteArrayInputStream( data ) );
+  }
+
+  /**
+   * Creates a data set with random sample values and (large) timestamps.
+   */
+  private DataSetImpl createDataSet( final int aSize )
+  {
+    final Random rnd = new Random( 1234L );
+
+    final int[] values = new int[aSize];
+    final long[] timestamps = new long[aSize];
+    long timestamp = 1L << 40;
+    for ( int i = 0; i < aSize; i++ )
+    {
+      values[i] = rnd.nextInt();
+      timestamps[i] = timestamp;
+      timestamp += 1 + rnd.nextInt( 1 << ( i % 31 ) );
+    }
+
+    final CapturedData capturedData = new CapturedData( values, timestamps, timestamps[aSize / 2], 200000000, 32,
+        0xFF00FF00, timestamp );
+    return new DataSetImpl( capturedData, new DataSetImpl(), false /* aRetainAnnotations */);
+  }
+}
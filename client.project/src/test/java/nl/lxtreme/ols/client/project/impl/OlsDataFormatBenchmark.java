@@ -0,0 +1,135 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+
+/**
+ * Benchmarks the binary capture format of {@link OlsBinaryDataHelper} against
+ * the textual capture format of {@link OlsDataHelper}.
+ * <p>
+ * Run this benchmark by running its {@link #main(String[])} method with the
+ * test classpath of this project.
+ * </p>
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class OlsDataFormatBenchmark
+{
+  // VARIABLES
+
+  @Param( { "100000", "1000000" } )
+  public int transitionCount;
+
+  private DataSetImpl dataSet;
+  private byte[] textData;
+  private byte[] binaryData;
+
+  // METHODS
+
+  /**
+   * Runs this benchmark.
+   */
+  public static void main( final String[] aArgs ) throws Exception
+  {
+    final Options options = new OptionsBuilder().include( OlsDataFormatBenchmark.class.getSimpleName() ).build();
+    new Runner( options ).run();
+  }
+
+  /**
+   * Sets up the benchmark state.
+   */
+  @Setup
+  public void setUp() throws IOException
+  {
+    final Random rnd = new Random( 42L );
+
+    final int[] values = new int[this.transitionCount];
+    final long[] timestamps = new long[this.transitionCount];
+    long timestamp = 0L;
+    for ( int i = 0; i < this.transitionCount; i++ )
+    {
+      values[i] = rnd.nextInt();
+      timestamps[i] = timestamp;
+      timestamp += 1 + rnd.nextInt( 1000 );
+    }
+
+    final CapturedData capturedData = new CapturedData( values, timestamps, -1L, 100000000, 32, -1, timestamp );
+    this.dataSet = new DataSetImpl( capturedData, new DataSetImpl(), false /* aRetainAnnotations */);
+
+    this.textData = writeText();
+    this.binaryData = writeBinary();
+  }
+
+  /**
+   * Reads all data in the binary format.
+   */
+  @Benchmark
+  public DataSetImpl readBinary() throws IOException
+  {
+    return OlsBinaryDataHelper.read( new ByteArrayInputStream( this.binaryData ) );
+  }
+
+  /**
+   * Reads all data in the textual format.
+   */
+  @Benchmark
+  public DataSetImpl readText() throws IOException
+  {
+    return OlsDataHelper.read( new InputStreamReader( new ByteArrayInputStream( this.textData ) ) );
+  }
+
+  /**
+   * Writes all data in the binary format.
+   */
+  @Benchmark
+  public byte[] writeBinary() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    OlsBinaryDataHelper.write( this.dataSet, baos );
+    return baos.toByteArray();
+  }
+
+  /**
+   * Writes all data in the textual format.
+   */
+  @Benchmark
+  public byte[] writeText() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    OlsDataHelper.write( this.dataSet, new OutputStreamWriter( baos ) );
+    return baos.toByteArray();
+  }
+}
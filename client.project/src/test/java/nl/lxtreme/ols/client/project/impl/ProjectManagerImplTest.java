@@ -24,7 +24,10 @@ package nl.lxtreme.ols.client.project.impl;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
+import java.beans.*;
 import java.io.*;
+import java.util.*;
+import java.util.zip.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
@@ -84,6 +87,150 @@ public class ProjectManagerImplTest
     assertNotSame( "No new instance of a project created?!", currentProject, tempProject );
   }
 
+  /**
+   * Test method for
+   * {@link SimpleProjectManager#loadProject(java.io.InputStream)}.
+   */
+  @Test
+  public void testLoadProjectWithTextualCaptureResultsOk() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.createTemporaryProject();
+    project.setCapturedData( mockedCapturedData );
+
+    // Create a project file as written by older versions...
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( 1024 );
+    final ZipOutputStream zipOS = new ZipOutputStream( baos );
+    zipOS.putNextEntry( new ZipEntry( "data.ols" ) );
+    project.writeData( new OutputStreamWriter( zipOS ) );
+    zipOS.close();
+
+    final ByteArrayInputStream bais = new ByteArrayInputStream( baos.toByteArray() );
+    this.projectManager.loadProject( bais );
+
+    DataTestUtils.assertEquals( mockedCapturedData, this.projectManager.getCurrentProject().getDataSet()
+        .getCapturedData() );
+  }
+
+  /**
+   * Tests that edits made to a project loaded from a file, before its capture
+   * results are read, are kept.
+   */
+  @Test
+  public void testLoadProjectFromFileKeepsEditsOk() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( mockedCapturedData );
+    project.getDataSet().getChannel( 1 ).setLabel( "labelA" );
+
+    final File file = File.createTempFile( "ols", ".olp" );
+    try
+    {
+      final OutputStream os = new FileOutputStream( file );
+      try
+      {
+        this.projectManager.saveProject( os );
+      }
+      finally
+      {
+        os.close();
+      }
+
+      this.projectManager.addPropertyChangeListener( new PropertyChangeListener()
+      {
+        @Override
+        public void propertyChange( final PropertyChangeEvent aEvent )
+        {
+          if ( "project".equals( aEvent.getPropertyName() ) )
+          {
+            // Edit the project while its capture results are read...
+            ( ( Project )aEvent.getNewValue() ).getDataSet().getChannel( 1 ).setLabel( "labelB" );
+          }
+        }
+      } );
+
+      this.projectManager.loadProject( file, null );
+
+      final Project loadedProject = this.projectManager.getCurrentProject();
+      assertEquals( "labelB", loadedProject.getDataSet().getChannel( 1 ).getLabel() );
+      assertTrue( loadedProject.isChanged() );
+      DataTestUtils.assertEquals( mockedCapturedData, loadedProject.getDataSet().getCapturedData() );
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that loading a project from a file first shows the project without
+   * capture results, and fills in the capture results thereafter.
+   */
+  @Test
+  public void testLoadProjectFromFileOk() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( mockedCapturedData );
+    project.setName( "lazy" );
+    project.getDataSet().getChannel( 1 ).setLabel( "labelA" );
+
+    final File file = File.createTempFile( "ols", ".olp" );
+    try
+    {
+      final OutputStream os = new FileOutputStream( file );
+      try
+      {
+        this.projectManager.saveProject( os );
+      }
+      finally
+      {
+        os.close();
+      }
+
+      final List<String> events = new ArrayList<String>();
+      this.projectManager.addPropertyChangeListener( new PropertyChangeListener()
+      {
+        @Override
+        public void propertyChange( final PropertyChangeEvent aEvent )
+        {
+          final String name = aEvent.getPropertyName();
+          if ( "project".equals( name ) )
+          {
+            final Project newProject = ( Project )aEvent.getNewValue();
+            // Shown before the capture results are read...
+            assertEquals( "lazy", newProject.getName() );
+            assertEquals( "labelA", newProject.getDataSet().getChannel( 1 ).getLabel() );
+            assertNull( newProject.getDataSet().getCapturedData() );
+            events.add( name );
+          }
+          else if ( "capturedData".equals( name ) )
+          {
+            events.add( name );
+          }
+        }
+      } );
+
+      this.projectManager.loadProject( file, null );
+
+      assertEquals( Arrays.asList( "project", "capturedData" ), events );
+
+      final Project loadedProject = this.projectManager.getCurrentProject();
+      assertEquals( "lazy", loadedProject.getName() );
+      assertEquals( "labelA", loadedProject.getDataSet().getChannel( 1 ).getLabel() );
+      assertFalse( loadedProject.isChanged() );
+      DataTestUtils.assertEquals( mockedCapturedData, loadedProject.getDataSet().getCapturedData() );
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
   /**
    * Test method for
    * {@link SimpleProjectManager#loadProject(java.io.InputStream)}.
@@ -116,6 +263,44 @@ public class ProjectManagerImplTest
     this.projectManager.saveProject( null );
   }
 
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#saveProject(Project, java.io.OutputStream, nl.lxtreme.ols.api.task.TaskProgressListener)}
+   * .
+   */
+  @Test
+  public void testSaveProjectSnapshotOk() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( mockedCapturedData );
+    project.setName( "snapshot" );
+    project.getDataSet().getChannel( 0 ).setLabel( "labelA" );
+
+    final Project snapshot = this.projectManager.createSnapshot();
+    assertNotSame( project, snapshot );
+    assertSame( project, this.projectManager.getCurrentProject() );
+
+    // Changes made after the snapshot is taken should not be saved...
+    project.setName( "changed" );
+    project.getDataSet().getChannel( 0 ).setLabel( "labelB" );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( snapshot, baos, null ); // should succeed...
+
+    // The current project should be left as is...
+    assertTrue( project.isChanged() );
+
+    final ByteArrayInputStream bais = new ByteArrayInputStream( baos.toByteArray() );
+    this.projectManager.loadProject( bais );
+
+    final Project loadedProject = this.projectManager.getCurrentProject();
+    assertEquals( "snapshot", loadedProject.getName() );
+    assertEquals( "labelA", loadedProject.getDataSet().getChannel( 0 ).getLabel() );
+    DataTestUtils.assertEquals( mockedCapturedData, loadedProject.getDataSet().getCapturedData() );
+  }
+
   /**
    * Test method for
    * {@link SimpleProjectManager#saveProject(java.io.OutputStream)}.
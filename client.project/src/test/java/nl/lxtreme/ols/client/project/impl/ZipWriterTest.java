@@ -0,0 +1,276 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import nl.lxtreme.ols.client.project.impl.ZipWriter.Compression;
+import nl.lxtreme.ols.client.project.impl.ZipWriter.EntryStatistics;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ZipWriter}.
+ */
+public class ZipWriterTest
+{
+  // VARIABLES
+
+  private byte[] smallData;
+  private byte[] largeData;
+
+  // METHODS
+
+  /**
+   * @throws java.lang.Exception
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.smallData = "Hello world!\n".getBytes( "UTF-8" );
+
+    // Reasonably compressible data, spanning multiple blocks...
+    final Random rnd = new Random( 4711L );
+    this.largeData = new byte[( 3 * ZipWriter.BLOCK_SIZE ) + 1234];
+    for ( int i = 0; i < this.largeData.length; i++ )
+    {
+      this.largeData[i] = ( byte )( ( i >> 6 ) + rnd.nextInt( 4 ) );
+    }
+  }
+
+  /**
+   * Tests that entries of all compressions can be read back by
+   * {@link ZipFile}, which relies on the central directory.
+   */
+  @Test
+  public void testReadWithZipFile() throws IOException
+  {
+    for ( int threadCount : new int[] { 1, 4 } )
+    {
+      final File file = File.createTempFile( "zipwriter", ".zip" );
+      try
+      {
+        final OutputStream os = new FileOutputStream( file );
+        try
+        {
+          writeZip( os, threadCount );
+        }
+        finally
+        {
+          os.close();
+        }
+
+        final ZipFile zipFile = new ZipFile( file );
+        try
+        {
+          assertEquals( 2 * Compression.values().length, zipFile.size() );
+
+          for ( Compression compression : Compression.values() )
+          {
+            assertArrayEquals( this.smallData, readFully( zipFile.getInputStream( zipFile.getEntry( "small-"
+                + compression ) ) ) );
+            assertArrayEquals( this.largeData, readFully( zipFile.getInputStream( zipFile.getEntry( "large-"
+                + compression ) ) ) );
+          }
+        }
+        finally
+        {
+          zipFile.close();
+        }
+      }
+      finally
+      {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Tests that entries of all compressions can be read back by
+   * {@link ZipInputStream}, which relies on the local headers and data
+   * descriptors.
+   */
+  @Test
+  public void testReadWithZipInputStream() throws IOException
+  {
+    for ( int threadCount : new int[] { 1, 4 } )
+    {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final List<EntryStatistics> statistics = writeZip( baos, threadCount );
+
+      final Map<String, byte[]> entries = new HashMap<String, byte[]>();
+
+      final ZipInputStream zis = new ZipInputStream( new ByteArrayInputStream( baos.toByteArray() ) );
+      ZipEntry entry;
+      while ( ( entry = zis.getNextEntry() ) != null )
+      {
+        entries.put( entry.getName(), readFully( zis ) );
+      }
+      zis.close();
+
+      assertEquals( statistics.size(), entries.size() );
+      for ( EntryStatistics stats : statistics )
+      {
+        final byte[] data = entries.get( stats.name );
+        assertNotNull( data );
+        assertEquals( data.length, stats.size );
+
+        if ( stats.compression == Compression.STORE )
+        {
+          // Only the framing of the uncompressed deflate blocks is added...
+          assertTrue( stats.compressedSize >= stats.size );
+          assertTrue( stats.compressedSize <= stats.size + 5 * ( stats.size / 16383 + 1 ) );
+        }
+        else if ( stats.name.startsWith( "large" ) )
+        {
+          assertTrue( stats.compressedSize < stats.size );
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that an entry exceeding the 4GiB limit of the ZIP-format is written
+   * using ZIP64 extensions, and can be read back by both {@link ZipFile} and
+   * {@link ZipInputStream}.
+   */
+  @Test
+  public void testWriteZip64Entry() throws IOException
+  {
+    final long size = 0x100000000L + 1234L;
+
+    final File file = File.createTempFile( "zipwriter", ".zip" );
+    try
+    {
+      final OutputStream os = new BufferedOutputStream( new FileOutputStream( file ) );
+      try
+      {
+        final ZipWriter writer = new ZipWriter( os, 4 );
+
+        // Zeros compress well, keeping the ZIP-file itself small...
+        final OutputStream entryOS = writer.putNextEntry( "huge", Compression.FAST );
+        final byte[] buffer = new byte[ZipWriter.BLOCK_SIZE];
+        for ( long remaining = size; remaining > 0; remaining -= buffer.length )
+        {
+          entryOS.write( buffer, 0, ( int )Math.min( remaining, buffer.length ) );
+        }
+        writer.putNextEntry( "small", Compression.DEFAULT ).write( this.smallData );
+
+        writer.close();
+      }
+      finally
+      {
+        os.close();
+      }
+
+      final ZipFile zipFile = new ZipFile( file );
+      try
+      {
+        assertEquals( size, zipFile.getEntry( "huge" ).getSize() );
+        assertArrayEquals( this.smallData, readFully( zipFile.getInputStream( zipFile.getEntry( "small" ) ) ) );
+      }
+      finally
+      {
+        zipFile.close();
+      }
+
+      final ZipInputStream zis = new ZipInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+      try
+      {
+        assertEquals( "huge", zis.getNextEntry().getName() );
+        assertEquals( size, skipFully( zis ) );
+        assertEquals( "small", zis.getNextEntry().getName() );
+        assertArrayEquals( this.smallData, readFully( zis ) );
+        assertNull( zis.getNextEntry() );
+      }
+      finally
+      {
+        zis.close();
+      }
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
+  /**
+   * Reads the given input stream until its end.
+   */
+  private byte[] readFully( final InputStream aInputStream ) throws IOException
+  {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+    int count;
+    while ( ( count = aInputStream.read( buffer ) ) > 0 )
+    {
+      result.write( buffer, 0, count );
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Reads the given input stream until its end, discarding its data.
+   */
+  private long skipFully( final InputStream aInputStream ) throws IOException
+  {
+    final byte[] buffer = new byte[65536];
+    long result = 0L;
+    int count;
+    while ( ( count = aInputStream.read( buffer ) ) > 0 )
+    {
+      result += count;
+    }
+    return result;
+  }
+
+  /**
+   * Writes a small and a large entry for each compression.
+   */
+  private List<EntryStatistics> writeZip( final OutputStream aOutputStream, final int aThreadCount )
+      throws IOException
+  {
+    final ZipWriter writer = new ZipWriter( aOutputStream, aThreadCount );
+    writer.setComment( "test" );
+
+    for ( Compression compression : Compression.values() )
+    {
+      writer.putNextEntry( "small-" + compression, compression ).write( this.smallData );
+
+      final OutputStream os = writer.putNextEntry( "large-" + compression, compression );
+      // Write in odd chunks to cross the block boundaries...
+      for ( int offset = 0; offset < this.largeData.length; offset += 10007 )
+      {
+        os.write( this.largeData, offset, Math.min( 10007, this.largeData.length - offset ) );
+      }
+    }
+
+    writer.close();
+
+    return writer.getStatistics();
+  }
+}
@@ -22,6 +22,7 @@ package nl.lxtreme.ols.client;
 
 
 import java.awt.GraphicsEnvironment;
+import java.io.*;
 import java.util.*;
 
 import nl.lxtreme.ols.api.*;
@@ -30,6 +31,7 @@ import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.api.ui.*;
 import nl.lxtreme.ols.client.osgi.*;
@@ -44,7 +46,8 @@ import org.osgi.service.prefs.*;
 
 /**
  * Provides the client bundle activator, which is responsible for starting the
- * entire client UI.
+ * entire client UI, or, when a batch script is given, for running that script
+ * without any UI.
  */
 public class Activator extends DependencyActivatorBase
 {
@@ -149,6 +152,14 @@ public class Activator extends DependencyActivatorBase
   @Override
   public void init( final BundleContext aContext, final DependencyManager aManager ) throws Exception
   {
+    final String batchScript = aContext.getProperty( HostUtils.BATCH_SCRIPT_KEY );
+    if ( batchScript != null )
+    {
+      // Run the batch script instead of starting the UI...
+      initBatchMode( aManager, new BatchController( aContext, new File( batchScript ) ) );
+      return;
+    }
+
     // Do not start if we're running headless...
     if ( GraphicsEnvironment.isHeadless() )
     {
@@ -160,14 +171,7 @@ public class Activator extends DependencyActivatorBase
     aManager.add( createBundleAdapterService( Bundle.ACTIVE, CP_BUNDLE_FILTER, true /* propagate */) //
         .setImplementation( ComponentProviderBundleAdapter.class ) );
 
-    aManager.add( createBundleAdapterService( Bundle.ACTIVE, TOOL_BUNDLE_FILTER, true /* propagate */) //
-        .setImplementation( ToolBundleAdapter.class ) );
-
-    aManager.add( createBundleAdapterService( Bundle.ACTIVE, DEVICE_BUNDLE_FILTER, true /* propagate */) //
-        .setImplementation( DeviceBundleAdapter.class ) );
-
-    aManager.add( createBundleAdapterService( Bundle.ACTIVE, EXPORTER_BUNDLE_FILTER, true /* propagate */) //
-        .setImplementation( ExporterBundleAdapter.class ) );
+    addBundleAdapters( aManager );
 
     Properties props = new Properties();
     props.put( Constants.SERVICE_PID, UIManagerConfigurator.PID );
@@ -208,7 +212,8 @@ public class Activator extends DependencyActivatorBase
 
     // All the interfaces we're registering the client controller under...
     serviceNames = new String[] { AcquisitionDataListener.class.getName(), AcquisitionProgressListener.class.getName(),
-        AcquisitionStatusListener.class.getName(), AnnotationListener.class.getName(), PlatformCallback.class.getName() };
+        AcquisitionStatusListener.class.getName(), AnnotationListener.class.getName(), PlatformCallback.class.getName(),
+        TaskStatusListener.class.getName() };
 
     // Client controller...
     aManager.add( createComponent() //
@@ -224,6 +229,9 @@ public class Activator extends DependencyActivatorBase
         .add( createServiceDependency() //
             .setService( DataAcquisitionService.class ) //
             .setRequired( true ) ) //
+        .add( createServiceDependency() //
+            .setService( TaskExecutionService.class ) //
+            .setRequired( true ) ) //
         .add( createServiceDependency() //
             .setService( UIColorSchemeManager.class ) //
             .setRequired( true ) ) //
@@ -247,6 +255,58 @@ public class Activator extends DependencyActivatorBase
             .setPid( UIManagerConfigurator.PID ) ) //
         );
   }
+
+  /**
+   * Adds the bundle adapters that register the tools, devices and exporters of
+   * all OLS-bundles as services.
+   */
+  private void addBundleAdapters( final DependencyManager aManager )
+  {
+    aManager.add( createBundleAdapterService( Bundle.ACTIVE, TOOL_BUNDLE_FILTER, true /* propagate */) //
+        .setImplementation( ToolBundleAdapter.class ) );
+
+    aManager.add( createBundleAdapterService( Bundle.ACTIVE, DEVICE_BUNDLE_FILTER, true /* propagate */) //
+        .setImplementation( DeviceBundleAdapter.class ) );
+
+    aManager.add( createBundleAdapterService( Bundle.ACTIVE, EXPORTER_BUNDLE_FILTER, true /* propagate */) //
+        .setImplementation( ExporterBundleAdapter.class ) );
+  }
+
+  /**
+   * Initializes the batch mode, in which only the services needed to acquire,
+   * analyse and export data are used, without any UI.
+   */
+  private void initBatchMode( final DependencyManager aManager, final BatchController aBatchController )
+  {
+    addBundleAdapters( aManager );
+
+    final String[] serviceNames = new String[] { AcquisitionDataListener.class.getName(),
+        AcquisitionStatusListener.class.getName() };
+
+    // Batch controller...
+    aManager.add( createComponent() //
+        .setInterface( serviceNames, null ) //
+        .setImplementation( aBatchController ) //
+        .add( createServiceDependency() //
+            .setService( ProjectManager.class ) //
+            .setRequired( true ) ) //
+        .add( createServiceDependency() //
+            .setService( DataAcquisitionService.class ) //
+            .setRequired( true ) ) //
+        .add( createServiceDependency() //
+            .setService( Device.class ) //
+            .setCallbacks( "addDevice", "removeDevice" ) //
+            .setRequired( false ) ) //
+        .add( createServiceDependency() //
+            .setService( Tool.class ) //
+            .setCallbacks( "addTool", "removeTool" ) //
+            .setRequired( false ) ) //
+        .add( createServiceDependency() //
+            .setService( Exporter.class ) //
+            .setCallbacks( "addExporter", "removeExporter" ) //
+            .setRequired( false ) ) //
+        );
+  }
 }
 
 /* EOF */
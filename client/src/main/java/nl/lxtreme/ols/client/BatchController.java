@@ -0,0 +1,958 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client;
+
+
+import java.beans.*;
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.Annotation;
+import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.client.ClientController.DefaultToolContext;
+import nl.lxtreme.ols.util.*;
+
+import org.osgi.framework.*;
+
+
+/**
+ * Provides a controller that runs a batch script without any UI, allowing the
+ * client to be used unattended, for example, on a test bench without display.
+ * <p>
+ * A batch script consists of one step per line. Empty lines and lines starting
+ * with a <tt>#</tt> are ignored. Arguments containing spaces can be quoted with
+ * double quotes. Relative file names of steps are resolved against the
+ * directory of the script, those in settings are passed as-is. Devices, tools
+ * and exporters are referred to by their names, which are matched case
+ * insensitively, ignoring any trailing ellipsis. The following steps are
+ * supported:
+ * </p>
+ * <dl>
+ * <dt><tt>open</tt> <i>file</i></dt>
+ * <dd>opens the given OLS project file;</dd>
+ * <dt><tt>read</tt> <i>file</i></dt>
+ * <dd>reads the given OLS data file;</dd>
+ * <dt><tt>acquire</tt> <i>device</i> [<i>name</i>=<i>value</i> ...]</dt>
+ * <dd>sets up the named device with the given settings and acquires data from
+ * it. Only devices implementing {@link HeadlessDevice} can be used, like the
+ * "Generic I/O" device, reading from a file, and the LogicSniffer device. The
+ * settings use the same names as the dialog of the device stores, for example,
+ * <tt>port=/dev/ttyACM0 speed=1 trigger=true</tt> for the LogicSniffer;</dd>
+ * <dt><tt>repeat</tt> <i>device</i> <i>count</i> [<i>name</i>=<i>value</i> ...]</dt>
+ * <dd>sets up the named device like <tt>acquire</tt>, and acquires data from it
+ * the given number of times, re-arming it directly after each capture. The
+ * captures that differ from their predecessor are reported, together with the
+ * first time at which they differ. The last capture is kept as acquired data;</dd>
+ * <dt><tt>tool</tt> <i>tool</i> [<i>name</i>=<i>value</i> ...]</dt>
+ * <dd>runs the named tool on all acquired data, the given settings are set as
+ * properties on its tool task;</dd>
+ * <dt><tt>export</tt> <i>exporter</i> <i>file</i></dt>
+ * <dd>exports the acquired data to the given file using the named exporter;</dd>
+ * <dt><tt>save</tt> <i>file</i></dt>
+ * <dd>saves the current project to the given OLS project file;</dd>
+ * <dt><tt>write</tt> <i>file</i></dt>
+ * <dd>writes the acquired data to the given OLS data file.</dd>
+ * </dl>
+ * <p>
+ * The steps are run in order, and the time taken by each of them is reported
+ * on the standard output. The first failing step ends the script and causes
+ * the client to exit with a non-zero status.
+ * </p>
+ */
+public final class BatchController implements AcquisitionDataListener, AcquisitionStatusListener, AnnotationListener,
+    ToolProgressListener
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( BatchController.class.getName() );
+
+  /** The time (in milliseconds) to wait for a device, tool or exporter. */
+  private static final long SERVICE_TIMEOUT = 30000L;
+
+  // VARIABLES
+
+  private final BundleContext bundleContext;
+  private final File script;
+
+  private final Map<String, Device> devices;
+  private final Map<String, Tool<?>> tools;
+  private final Map<String, Exporter> exporters;
+
+  private volatile ProjectManager projectManager;
+  private volatile DataAcquisitionService dataAcquisitionService;
+
+  private volatile CountDownLatch acquisitionLatch;
+  private volatile AcquisitionResultStatus acquisitionStatus;
+  private volatile int annotationCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BatchController instance.
+   *
+   * @param aBundleContext
+   *          the bundle context to use for interaction with the OSGi framework,
+   *          cannot be <code>null</code>;
+   * @param aScript
+   *          the batch script to run, cannot be <code>null</code>.
+   */
+  public BatchController( final BundleContext aBundleContext, final File aScript )
+  {
+    if ( aScript == null )
+    {
+      throw new IllegalArgumentException( "Script cannot be null!" );
+    }
+
+    this.bundleContext = aBundleContext;
+    this.script = aScript;
+
+    this.devices = new HashMap<String, Device>();
+    this.tools = new HashMap<String, Tool<?>>();
+    this.exporters = new HashMap<String, Exporter>();
+  }
+
+  // METHODS
+
+  /**
+   * Sets the given settings as bean properties on the given object. The names
+   * of the settings are matched case insensitively to the property names.
+   *
+   * @param aBean
+   *          the object to set the properties on, cannot be <code>null</code>;
+   * @param aSettings
+   *          the settings to set, cannot be <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case a setting does not denote a writable property, or its
+   *           value cannot be converted to the type of that property.
+   * @throws Exception
+   *           in case setting a property failed.
+   */
+  static void applySettings( final Object aBean, final Map<String, String> aSettings ) throws Exception
+  {
+    final PropertyDescriptor[] descriptors = Introspector.getBeanInfo( aBean.getClass() ).getPropertyDescriptors();
+
+    for ( Map.Entry<String, String> entry : aSettings.entrySet() )
+    {
+      final String name = entry.getKey();
+
+      Method writeMethod = null;
+      for ( PropertyDescriptor descriptor : descriptors )
+      {
+        if ( ( descriptor.getWriteMethod() != null ) && descriptor.getName().equalsIgnoreCase( name ) )
+        {
+          writeMethod = descriptor.getWriteMethod();
+          break;
+        }
+      }
+
+      if ( writeMethod == null )
+      {
+        throw new IllegalArgumentException( "No such setting: " + name + "!" );
+      }
+
+      final Object value = convertValue( writeMethod.getParameterTypes()[0], entry.getValue() );
+      try
+      {
+        writeMethod.invoke( aBean, value );
+      }
+      catch ( InvocationTargetException exception )
+      {
+        final Throwable cause = exception.getCause();
+        if ( cause instanceof Exception )
+        {
+          throw ( Exception )cause;
+        }
+        throw exception;
+      }
+    }
+  }
+
+  /**
+   * Splits a given line of a batch script into its arguments. Arguments are
+   * separated by whitespace, unless the whitespace is enclosed in double quotes.
+   *
+   * @param aLine
+   *          the line to split, cannot be <code>null</code>.
+   * @return the arguments, without quotes, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given line contains an unterminated quote.
+   */
+  static List<String> tokenize( final String aLine )
+  {
+    final List<String> result = new ArrayList<String>();
+    final StringBuilder sb = new StringBuilder();
+
+    boolean quoted = false;
+    boolean inToken = false;
+    for ( int i = 0; i < aLine.length(); i++ )
+    {
+      final char ch = aLine.charAt( i );
+      if ( ch == '"' )
+      {
+        quoted = !quoted;
+        inToken = true;
+      }
+      else if ( !quoted && Character.isWhitespace( ch ) )
+      {
+        if ( inToken )
+        {
+          result.add( sb.toString() );
+          sb.setLength( 0 );
+          inToken = false;
+        }
+      }
+      else
+      {
+        sb.append( ch );
+        inToken = true;
+      }
+    }
+
+    if ( quoted )
+    {
+      throw new IllegalArgumentException( "Unterminated quote in: " + aLine );
+    }
+    if ( inToken )
+    {
+      result.add( sb.toString() );
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquisitionComplete( final AcquisitionResult aData )
+  {
+    this.projectManager.getCurrentProject().setCapturedData( aData );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquisitionEnded( final AcquisitionResultStatus aStatus )
+  {
+    this.acquisitionStatus = aStatus;
+
+    final CountDownLatch latch = this.acquisitionLatch;
+    if ( latch != null )
+    {
+      latch.countDown();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquisitionPartiallyComplete( final AcquisitionResult aPartialData )
+  {
+    // Nothing to display in batch mode...
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquisitionStarted()
+  {
+    // Nothing...
+  }
+
+  /**
+   * Adds a given device to this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   *
+   * @param aDevice
+   *          the device to add, cannot be <code>null</code>.
+   */
+  public void addDevice( final Device aDevice )
+  {
+    addService( this.devices, aDevice.getName(), aDevice );
+  }
+
+  /**
+   * Adds a given exporter to this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   *
+   * @param aExporter
+   *          the exporter to add, cannot be <code>null</code>.
+   */
+  public void addExporter( final Exporter aExporter )
+  {
+    addService( this.exporters, aExporter.getName(), aExporter );
+  }
+
+  /**
+   * Adds a given tool to this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   *
+   * @param aTool
+   *          the tool to add, cannot be <code>null</code>.
+   */
+  public void addTool( final Tool<?> aTool )
+  {
+    addService( this.tools, aTool.getName(), aTool );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations()
+  {
+    for ( Channel channel : getCurrentDataSet().getChannels() )
+    {
+      channel.clearAnnotations();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations( final int aChannelIdx )
+  {
+    getCurrentDataSet().getChannel( aChannelIdx ).clearAnnotations();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    getCurrentDataSet().getChannel( aAnnotation.getChannel() ).addAnnotation( aAnnotation );
+    this.annotationCount++;
+  }
+
+  /**
+   * Removes a given device from this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   *
+   * @param aDevice
+   *          the device to remove, cannot be <code>null</code>.
+   */
+  public void removeDevice( final Device aDevice )
+  {
+    removeService( this.devices, aDevice.getName() );
+  }
+
+  /**
+   * Removes a given exporter from this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   *
+   * @param aExporter
+   *          the exporter to remove, cannot be <code>null</code>.
+   */
+  public void removeExporter( final Exporter aExporter )
+  {
+    removeService( this.exporters, aExporter.getName() );
+  }
+
+  /**
+   * Removes a given tool from this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   *
+   * @param aTool
+   *          the tool to remove, cannot be <code>null</code>.
+   */
+  public void removeTool( final Tool<?> aTool )
+  {
+    removeService( this.tools, aTool.getName() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setProgress( final int aPercentage )
+  {
+    // Nothing; only the total time of a tool is reported...
+  }
+
+  /**
+   * Called by the dependency manager when this component is about to be
+   * started.
+   */
+  public void start()
+  {
+    final Thread runner = new Thread( "OLS batch runner" )
+    {
+      @Override
+      public void run()
+      {
+        final boolean succeeded = runScript();
+        exit( succeeded );
+      }
+    };
+    runner.start();
+  }
+
+  /**
+   * Runs all steps of the batch script, reporting the time taken by each step.
+   *
+   * @return <code>true</code> if all steps succeeded, <code>false</code> if a
+   *         step failed.
+   */
+  final boolean runScript()
+  {
+    final long scriptStart = System.nanoTime();
+
+    BufferedReader reader = null;
+    try
+    {
+      reader = new BufferedReader( new FileReader( this.script ) );
+
+      String line;
+      int lineNo = 0;
+      while ( ( line = reader.readLine() ) != null )
+      {
+        lineNo++;
+
+        line = line.trim();
+        if ( "".equals( line ) || line.startsWith( "#" ) )
+        {
+          continue;
+        }
+
+        final long stepStart = System.nanoTime();
+        try
+        {
+          final String result = runStep( tokenize( line ) );
+
+          System.out.printf( "[%d] %s: %d ms%s%n", Integer.valueOf( lineNo ), line, getMillisSince( stepStart ),
+              ( result == null ) ? "" : " (" + result + ")" );
+        }
+        catch ( Exception exception )
+        {
+          System.err.printf( "[%d] %s: FAILED after %d ms: %s%n", Integer.valueOf( lineNo ), line,
+              getMillisSince( stepStart ), exception.getMessage() );
+          LOG.log( Level.WARNING, "Batch step failed!", exception );
+          return false;
+        }
+      }
+    }
+    catch ( IOException exception )
+    {
+      System.err.printf( "Failed to read batch script %s: %s%n", this.script, exception.getMessage() );
+      return false;
+    }
+    finally
+    {
+      HostUtils.closeResource( reader );
+    }
+
+    System.out.printf( "Batch script completed: %d ms%n", getMillisSince( scriptStart ) );
+    return true;
+  }
+
+  /**
+   * Acquires data from the device with the given name.
+   */
+  private String acquire( final String aDeviceName, final Map<String, String> aSettings ) throws Exception
+  {
+    final Device device = setupDevice( aDeviceName, aSettings );
+
+    this.acquisitionStatus = null;
+    this.acquisitionLatch = new CountDownLatch( 1 );
+
+    this.dataAcquisitionService.acquireData( device );
+
+    awaitAcquisition();
+
+    return getCapturedData().getSampleCount() + " samples";
+  }
+
+  /**
+   * Acquires data from the device with the given name repeatedly, and reports
+   * the captures that differ from their predecessor.
+   */
+  private String acquireRepeatedly( final String aDeviceName, final String aCount,
+      final Map<String, String> aSettings ) throws Exception
+  {
+    final int count = Integer.parseInt( aCount );
+    if ( count < 1 )
+    {
+      throw new IllegalArgumentException( "Invalid repeat count: " + aCount + "!" );
+    }
+
+    final Device device = setupDevice( aDeviceName, aSettings );
+
+    this.acquisitionStatus = null;
+    this.acquisitionLatch = new CountDownLatch( 1 );
+
+    this.dataAcquisitionService.acquireDataRepeatedly( device, count );
+
+    awaitAcquisition();
+
+    // Compare each capture with its predecessor, oldest first...
+    final CaptureHistory history = this.dataAcquisitionService.getCaptureHistory();
+    final int size = history.size();
+    int differing = 0;
+    for ( int i = size - 1; i > 0; i-- )
+    {
+      final long time = history.getFirstDifference( i, i - 1 );
+      if ( time >= 0L )
+      {
+        System.out.printf( "  capture %d differs from capture %d at %d%n", Integer.valueOf( size - i + 1 ),
+            Integer.valueOf( size - i ), Long.valueOf( time ) );
+        differing++;
+      }
+    }
+
+    return size + " captures, " + differing + " differing from their predecessor";
+  }
+
+  /**
+   * Waits until the current acquisition is ended.
+   *
+   * @throws IOException
+   *           in case the acquisition did not complete normally.
+   */
+  private void awaitAcquisition() throws InterruptedException, IOException
+  {
+    this.acquisitionLatch.await();
+
+    final AcquisitionResultStatus status = this.acquisitionStatus;
+    if ( !status.isCompletedNormally() )
+    {
+      throw new IOException( "Acquisition " + status.getStatus().name().toLowerCase() + ": " + status.getMessage() );
+    }
+  }
+
+  /**
+   * Sets up the device with the given name by means of the given settings.
+   *
+   * @return the set up device, never <code>null</code>.
+   */
+  private Device setupDevice( final String aDeviceName, final Map<String, String> aSettings ) throws Exception
+  {
+    final Device device = getService( this.devices, aDeviceName );
+    if ( !( device instanceof HeadlessDevice ) )
+    {
+      throw new IllegalArgumentException( "Device " + device.getName()
+          + " cannot be set up without UI! Only headless devices, like Generic I/O or the LogicSniffer, can be used"
+          + " in batch mode." );
+    }
+
+    final UserSettings settings = getCurrentProject().getSettings( device.getClass().getName() );
+    settings.putAll( aSettings );
+
+    if ( !( ( HeadlessDevice )device ).setupCapture( settings ) )
+    {
+      throw new IllegalArgumentException( "Invalid settings for device " + device.getName() + "!" );
+    }
+
+    return device;
+  }
+
+  /**
+   * Adds a given service under the given name and notifies all threads
+   * waiting for it.
+   */
+  private <T> void addService( final Map<String, T> aServices, final String aName, final T aService )
+  {
+    synchronized ( aServices )
+    {
+      aServices.put( aName, aService );
+      aServices.notifyAll();
+    }
+  }
+
+  /**
+   * Converts a given textual value to the given type.
+   *
+   * @return the converted value, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the value cannot be converted.
+   */
+  private static Object convertValue( final Class<?> aType, final String aValue )
+  {
+    if ( String.class.equals( aType ) )
+    {
+      return aValue;
+    }
+    else if ( Integer.TYPE.equals( aType ) || Integer.class.equals( aType ) )
+    {
+      return Integer.decode( aValue );
+    }
+    else if ( Long.TYPE.equals( aType ) || Long.class.equals( aType ) )
+    {
+      return Long.decode( aValue );
+    }
+    else if ( Double.TYPE.equals( aType ) || Double.class.equals( aType ) )
+    {
+      return Double.valueOf( aValue );
+    }
+    else if ( Boolean.TYPE.equals( aType ) || Boolean.class.equals( aType ) )
+    {
+      return Boolean.valueOf( aValue );
+    }
+    else if ( aType.isEnum() )
+    {
+      for ( Object constant : aType.getEnumConstants() )
+      {
+        final String name = ( ( Enum<?> )constant ).name();
+        if ( name.equalsIgnoreCase( aValue ) || constant.toString().equalsIgnoreCase( aValue ) )
+        {
+          return constant;
+        }
+      }
+      throw new IllegalArgumentException( "Invalid value: " + aValue + "; expected one of "
+          + Arrays.toString( aType.getEnumConstants() ) + "!" );
+    }
+
+    throw new IllegalArgumentException( "Unsupported setting type: " + aType.getSimpleName() + "!" );
+  }
+
+  /**
+   * Exits the client by stopping the framework, or, in case the script failed,
+   * by exiting the VM with a non-zero status.
+   */
+  private void exit( final boolean aSucceeded )
+  {
+    if ( !aSucceeded )
+    {
+      System.exit( 1 );
+    }
+
+    try
+    {
+      // Stop the framework bundle; which should stop all other bundles as
+      // well...
+      this.bundleContext.getBundle( 0 ).stop( Bundle.STOP_TRANSIENT );
+    }
+    catch ( final IllegalStateException ex )
+    {
+      LOG.warning( "Bundle context no longer valid while shutting down client?!" );
+
+      System.exit( -1 );
+    }
+    catch ( final BundleException be )
+    {
+      LOG.warning( "Bundle context no longer valid while shutting down client?!" );
+
+      System.exit( -1 );
+    }
+  }
+
+  /**
+   * Exports the captured data using the exporter with the given name.
+   */
+  private void export( final String aExporterName, final File aFile ) throws Exception
+  {
+    final Exporter exporter = getService( this.exporters, aExporterName );
+
+    final OutputStream out = new BufferedOutputStream( new FileOutputStream( aFile ) );
+    try
+    {
+      exporter.export( getCurrentDataSet(), null /* aComponent */, out );
+    }
+    finally
+    {
+      HostUtils.closeResource( out );
+    }
+  }
+
+  /**
+   * @return the captured data of the current project, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case no data is captured yet.
+   */
+  private AcquisitionResult getCapturedData()
+  {
+    final AcquisitionResult result = getCurrentDataSet().getCapturedData();
+    if ( result == null )
+    {
+      throw new IllegalStateException( "No data acquired or read!" );
+    }
+    return result;
+  }
+
+  /**
+   * @return the current project, never <code>null</code>.
+   */
+  private Project getCurrentProject()
+  {
+    return this.projectManager.getCurrentProject();
+  }
+
+  /**
+   * @return the data set of the current project, never <code>null</code>.
+   */
+  private DataSet getCurrentDataSet()
+  {
+    return getCurrentProject().getDataSet();
+  }
+
+  /**
+   * @return the file with the given name, resolved against the directory of
+   *         the batch script in case it is relative.
+   */
+  private File getFile( final String aName )
+  {
+    final File file = new File( aName );
+    if ( file.isAbsolute() )
+    {
+      return file;
+    }
+    return new File( this.script.getAbsoluteFile().getParentFile(), aName );
+  }
+
+  /**
+   * @return the number of milliseconds since the given start time, as returned
+   *         by {@link System#nanoTime()}.
+   */
+  private static Long getMillisSince( final long aStartTime )
+  {
+    return Long.valueOf( TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - aStartTime ) );
+  }
+
+  /**
+   * Returns the service with the given name, waiting for it to become available
+   * in case it is not (yet) registered.
+   *
+   * @return the service, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case no service with the given name became available.
+   */
+  private <T> T getService( final Map<String, T> aServices, final String aName ) throws InterruptedException
+  {
+    final long deadline = System.currentTimeMillis() + SERVICE_TIMEOUT;
+
+    synchronized ( aServices )
+    {
+      while ( true )
+      {
+        for ( Map.Entry<String, T> entry : aServices.entrySet() )
+        {
+          if ( normalizeName( entry.getKey() ).equalsIgnoreCase( normalizeName( aName ) ) )
+          {
+            return entry.getValue();
+          }
+        }
+
+        final long remaining = deadline - System.currentTimeMillis();
+        if ( remaining <= 0L )
+        {
+          throw new IllegalArgumentException( "No such device, tool or exporter: " + aName + "; available are: "
+              + aServices.keySet() + "!" );
+        }
+        aServices.wait( remaining );
+      }
+    }
+  }
+
+  /**
+   * Creates a map with the settings given as <tt>name=value</tt> arguments,
+   * starting at the given index.
+   */
+  private Map<String, String> getSettings( final List<String> aArgs, final int aStartIdx )
+  {
+    final Map<String, String> result = new LinkedHashMap<String, String>();
+    for ( String arg : aArgs.subList( Math.min( aStartIdx, aArgs.size() ), aArgs.size() ) )
+    {
+      final int idx = arg.indexOf( '=' );
+      if ( idx <= 0 )
+      {
+        throw new IllegalArgumentException( "Invalid setting: " + arg + "; expected name=value!" );
+      }
+      result.put( arg.substring( 0, idx ), arg.substring( idx + 1 ) );
+    }
+    return result;
+  }
+
+  /**
+   * @return the given name without any trailing ellipsis, as used in the names
+   *         of tools.
+   */
+  private static String normalizeName( final String aName )
+  {
+    String result = aName.trim();
+    while ( result.endsWith( "." ) )
+    {
+      result = result.substring( 0, result.length() - 1 );
+    }
+    return result.trim();
+  }
+
+  /**
+   * Removes the service with the given name.
+   */
+  private <T> void removeService( final Map<String, T> aServices, final String aName )
+  {
+    synchronized ( aServices )
+    {
+      aServices.remove( aName );
+    }
+  }
+
+  /**
+   * Runs a single step of the batch script.
+   *
+   * @param aArgs
+   *          the arguments of the step, the first being the step itself.
+   * @return an optional description of the result of the step, can be
+   *         <code>null</code>.
+   */
+  private String runStep( final List<String> aArgs ) throws Exception
+  {
+    final String step = aArgs.get( 0 ).toLowerCase();
+    if ( "acquire".equals( step ) )
+    {
+      requireArguments( aArgs, 2 );
+      return acquire( aArgs.get( 1 ), getSettings( aArgs, 2 ) );
+    }
+    else if ( "repeat".equals( step ) )
+    {
+      requireArguments( aArgs, 3 );
+      return acquireRepeatedly( aArgs.get( 1 ), aArgs.get( 2 ), getSettings( aArgs, 3 ) );
+    }
+    else if ( "tool".equals( step ) )
+    {
+      requireArguments( aArgs, 2 );
+      return runTool( aArgs.get( 1 ), getSettings( aArgs, 2 ) );
+    }
+    else if ( "export".equals( step ) )
+    {
+      requireArguments( aArgs, 3 );
+      export( aArgs.get( 1 ), getFile( aArgs.get( 2 ) ) );
+    }
+    else if ( "open".equals( step ) )
+    {
+      requireArguments( aArgs, 2 );
+      final InputStream in = new BufferedInputStream( new FileInputStream( getFile( aArgs.get( 1 ) ) ) );
+      try
+      {
+        this.projectManager.loadProject( in );
+      }
+      finally
+      {
+        HostUtils.closeResource( in );
+      }
+    }
+    else if ( "read".equals( step ) )
+    {
+      requireArguments( aArgs, 2 );
+      final Reader reader = new BufferedReader( new FileReader( getFile( aArgs.get( 1 ) ) ) );
+      try
+      {
+        getCurrentProject().readData( reader );
+      }
+      finally
+      {
+        HostUtils.closeResource( reader );
+      }
+    }
+    else if ( "save".equals( step ) )
+    {
+      requireArguments( aArgs, 2 );
+      final File file = getFile( aArgs.get( 1 ) );
+      final OutputStream out = new BufferedOutputStream( new FileOutputStream( file ) );
+      try
+      {
+        getCurrentProject().setFilename( file );
+        this.projectManager.saveProject( out );
+      }
+      finally
+      {
+        HostUtils.closeResource( out );
+      }
+    }
+    else if ( "write".equals( step ) )
+    {
+      requireArguments( aArgs, 2 );
+      final Writer writer = new BufferedWriter( new FileWriter( getFile( aArgs.get( 1 ) ) ) );
+      try
+      {
+        getCurrentProject().writeData( writer );
+      }
+      finally
+      {
+        HostUtils.closeResource( writer );
+      }
+    }
+    else
+    {
+      throw new IllegalArgumentException( "Unknown step: " + aArgs.get( 0 ) + "!" );
+    }
+    return null;
+  }
+
+  /**
+   * Runs the tool with the given name on all captured data.
+   */
+  private String runTool( final String aToolName, final Map<String, String> aSettings ) throws Exception
+  {
+    final Tool<?> tool = getService( this.tools, aToolName );
+
+    final AcquisitionResult capturedData = getCapturedData();
+    final int endOfDecode = Math.max( 0, capturedData.getSampleCount() - 1 );
+    final ToolContext context = new DefaultToolContext( 0, endOfDecode, getCurrentDataSet() );
+
+    final ToolTask<?> toolTask = tool.createToolTask( context, this /* aProgressListener */, this /* aListener */);
+    applySettings( toolTask, aSettings );
+
+    this.annotationCount = 0;
+    toolTask.call();
+
+    return this.annotationCount + " annotations";
+  }
+
+  /**
+   * Verifies that the given arguments contain at least the given number of
+   * arguments.
+   */
+  private void requireArguments( final List<String> aArgs, final int aCount )
+  {
+    if ( aArgs.size() < aCount )
+    {
+      throw new IllegalArgumentException( "Missing argument(s) for step: " + aArgs.get( 0 ) + "!" );
+    }
+  }
+}
+
+/* EOF */
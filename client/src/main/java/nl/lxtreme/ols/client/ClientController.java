@@ -27,6 +27,7 @@ import java.io.*;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 import javax.swing.*;
@@ -36,10 +37,11 @@ import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.Cursor;
 import nl.lxtreme.ols.api.data.annotation.Annotation;
-import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.data.annotation.AnnotationBlockListener;
 import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.api.ui.*;
 import nl.lxtreme.ols.api.util.*;
@@ -47,6 +49,7 @@ import nl.lxtreme.ols.client.action.*;
 import nl.lxtreme.ols.client.actionmanager.*;
 import nl.lxtreme.ols.client.osgi.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
+import nl.lxtreme.ols.client.task.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
@@ -61,7 +64,7 @@ import org.osgi.service.cm.*;
  * Denotes a front-end controller for the client.
  */
 public final class ClientController implements ActionProvider, AcquisitionProgressListener, AcquisitionStatusListener,
-AcquisitionDataListener, AnnotationListener, PlatformCallback
+AcquisitionDataListener, AnnotationBlockListener, PlatformCallback, TaskStatusListener
 {
   // INNER TYPES
 
@@ -250,20 +253,55 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
   }
 
   /**
-   * A runnable implementation that accumulates several calls to avoid an
-   * avalanche of events on the EDT.
+   * A runnable implementation that coalesces several calls to avoid an
+   * avalanche of events on the EDT. Only the last percentage is kept, without
+   * locking or boxing it.
    */
-  final class ProgressUpdatingRunnable extends AccumulatingRunnable<Integer>
+  final class ProgressUpdatingRunnable implements Runnable, TaskProgressListener
   {
+    // VARIABLES
+
+    /** the percentage to show next, or -1 if nothing is pending. */
+    private final AtomicInteger pending = new AtomicInteger( -1 );
+
+    // METHODS
+
+    /**
+     * Sets the percentage to show next, and schedules this runnable on the EDT
+     * in case it is not already scheduled.
+     *
+     * @param aPercentage
+     *          the percentage to show, >= 0.
+     */
+    public void add( final int aPercentage )
+    {
+      if ( this.pending.getAndSet( aPercentage ) < 0 )
+      {
+        SwingUtilities.invokeLater( this );
+      }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    protected void run( final Deque<Integer> aArgs )
+    public void run()
     {
-      final Integer percentage = aArgs.getLast();
-      setProgressOnEDT( percentage.intValue() );
-      updateActionsOnEDT();
+      final int percentage = this.pending.getAndSet( -1 );
+      if ( percentage >= 0 )
+      {
+        setProgressOnEDT( percentage );
+        updateActionsOnEDT();
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setProgress( final int aPercentage )
+    {
+      add( aPercentage );
     }
   }
 
@@ -286,12 +324,17 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
 
   private volatile ProjectManager projectManager;
   private volatile DataAcquisitionService dataAcquisitionService;
+  private volatile TaskExecutionService taskExecutionService;
   private volatile MainFrame mainFrame;
   private volatile HostProperties hostProperties;
   private volatile UIColorSchemeManager colorSchemeManager;
 
   private volatile long acquisitionStartTime;
 
+  /** The project save/load or export task in progress, if any. */
+  private volatile Task<?> fileTask;
+  private volatile Future<?> fileTaskFuture;
+
   // CONSTRUCTORS
 
   /**
@@ -339,18 +382,27 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
   @Override
   public void acquisitionComplete( final AcquisitionResult aData )
   {
-    try
-    {
-      getCurrentProject().setCapturedData( aData );
-    }
-    catch ( Exception exception )
-    {
-      exception.printStackTrace();
-    }
-    finally
+    // Projects are loaded and edited on the EDT, so set the data there as well,
+    // see ProjectManager#loadProject(File, TaskProgressListener)...
+    SwingComponentUtils.invokeOnEDT( new Runnable()
     {
-      updateActionsOnEDT();
-    }
+      @Override
+      public void run()
+      {
+        try
+        {
+          getCurrentProject().setCapturedData( aData );
+        }
+        catch ( Exception exception )
+        {
+          exception.printStackTrace();
+        }
+        finally
+        {
+          updateActionsOnEDT();
+        }
+      }
+    } );
   }
 
   /**
@@ -359,6 +411,9 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
   @Override
   public void acquisitionEnded( final AcquisitionResultStatus aStatus )
   {
+    // Stop displaying the partial results of an aborted or failed capture...
+    this.signalDiagramController.setPartialDataModel( null );
+
     if ( aStatus.isAborted() )
     {
       setStatusOnEDT( "Capture aborted! {0}", aStatus.getMessage() );
@@ -384,7 +439,17 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
   @Override
   public void acquisitionInProgress( final int aPercentage )
   {
-    this.progressAccumulatingRunnable.add( Integer.valueOf( aPercentage ) );
+    this.progressAccumulatingRunnable.add( aPercentage );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquisitionPartiallyComplete( final AcquisitionResult aPartialData )
+  {
+    // Only display the partial data; the project is updated upon completion...
+    this.signalDiagramController.setPartialDataModel( aPartialData );
   }
 
   /**
@@ -487,6 +552,12 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
    */
   public void cancelCapture()
   {
+    // A project save/load or export is cancelled first...
+    if ( cancelFileTask() )
+    {
+      return;
+    }
+
     final DataAcquisitionService acquisitionService = getDataAcquisitionService();
     final Device device = getDevice();
     if ( ( device == null ) || ( acquisitionService == null ) )
@@ -640,38 +711,29 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
   /**
    * Exports the current data set to a file using an {@link Exporter} with a
    * given name.
+   * <p>
+   * The export runs in the background on a snapshot of the current data set.
+   * Its outcome is reported in the status bar, or, in case of failure, in an
+   * error dialog.
+   * </p>
    *
    * @param aExporterName
    *          the name of the exporter to use, cannot be <code>null</code>;
    * @param aExportFile
    *          the file to export the results to, cannot be <code>null</code>.
-   * @throws IOException
-   *           in case of I/O problems during the export.
    */
-  public void exportTo( final String aExporterName, final File aExportFile ) throws IOException
+  public void exportTo( final String aExporterName, final File aExportFile )
   {
     if ( this.mainFrame == null )
     {
       return;
     }
 
-    OutputStream writer = null;
-
-    try
-    {
-      writer = new FileOutputStream( aExportFile );
-
-      final Exporter exporter = getExporter( aExporterName );
-      exporter.export( getCurrentDataSet(), this.mainFrame.getViewComponent(), writer );
-
-      setStatusOnEDT( "Export to {0} succesful ...", aExporterName );
-    }
-    finally
-    {
-      HostUtils.closeResource( writer );
+    final Exporter exporter = getExporter( aExporterName );
+    final DataSet snapshot = this.projectManager.createSnapshot().getDataSet();
 
-      updateActionsOnEDT();
-    }
+    executeFileTask( new ExportTask( exporter, snapshot, this.mainFrame.getViewComponent(), aExportFile,
+        this.progressAccumulatingRunnable ) );
   }
 
   /**
@@ -1000,6 +1062,41 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     this.repaintAccumulatingRunnable.add( ( Void )null );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    // Group the annotations per channel, keeping their order, so each channel
+    // is updated only once for the entire block...
+    final Map<Integer, List<Annotation<?>>> annotationsPerChannel = new LinkedHashMap<Integer, List<Annotation<?>>>();
+    for ( Annotation<?> annotation : aAnnotations )
+    {
+      final Integer channelIdx = Integer.valueOf( annotation.getChannel() );
+
+      List<Annotation<?>> channelAnnotations = annotationsPerChannel.get( channelIdx );
+      if ( channelAnnotations == null )
+      {
+        channelAnnotations = new ArrayList<Annotation<?>>();
+        annotationsPerChannel.put( channelIdx, channelAnnotations );
+      }
+      channelAnnotations.add( annotation );
+    }
+
+    for ( Map.Entry<Integer, List<Annotation<?>>> entry : annotationsPerChannel.entrySet() )
+    {
+      final Channel channel = getChannel( entry.getKey().intValue() );
+      channel.addAnnotations( entry.getValue() );
+    }
+
+    if ( !annotationsPerChannel.isEmpty() )
+    {
+      // A single repaint for the entire block of annotations...
+      this.repaintAccumulatingRunnable.add( ( Void )null );
+    }
+  }
+
   /**
    * Opens a given file as OLS-data file.
    *
@@ -1027,32 +1124,19 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
 
   /**
    * Opens a given file as OLS-project file.
+   * <p>
+   * The project is loaded in the background, and replaces the current project
+   * as soon as its metadata is loaded; its capture results are shown once they
+   * are loaded as well. The outcome is reported in the status bar, or, in case
+   * of failure, in an error dialog.
+   * </p>
    *
    * @param aFile
    *          the file to open, cannot be <code>null</code>.
-   * @throws IOException
-   *           in case opening/reading from the given file failed.
    */
-  public void openProjectFile( final File aFile ) throws IOException
+  public void openProjectFile( final File aFile )
   {
-    FileInputStream fis = null;
-
-    try
-    {
-      fis = new FileInputStream( aFile );
-
-      this.projectManager.loadProject( fis );
-
-      final Project project = getCurrentProject();
-      project.setFilename( aFile );
-
-      setStatusOnEDT( "Project {0} loaded ...", project.getName() );
-    }
-    finally
-    {
-      HostUtils.closeResource( fis );
-      updateActionsOnEDT();
-    }
+    executeFileTask( new LoadProjectTask( this.projectManager, aFile, this.progressAccumulatingRunnable ) );
   }
 
   /**
@@ -1237,32 +1321,28 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
   /**
    * Stores the current acquisition data to the given file, in the OLS-project
    * file format.
+   * <p>
+   * The project is saved in the background from a snapshot, allowing the
+   * current project to be used and changed meanwhile. The outcome is reported
+   * in the status bar, or, in case of failure, in an error dialog.
+   * </p>
    *
    * @param aName
    *          the name of the project to store, cannot be <code>null</code>;
    * @param aFile
    *          the file to write the data to, cannot be <code>null</code>.
-   * @throws IOException
-   *           in case of errors during opening/writing to the file.
    */
-  public void saveProjectFile( final String aName, final File aFile ) throws IOException
+  public void saveProjectFile( final String aName, final File aFile )
   {
-    FileOutputStream out = null;
-    try
-    {
-      final Project project = getCurrentProject();
-      project.setFilename( aFile );
-      project.setName( aName );
+    final Project project = getCurrentProject();
+    project.setFilename( aFile );
+    project.setName( aName );
 
-      out = new FileOutputStream( aFile );
-      this.projectManager.saveProject( out );
+    final Project snapshot = this.projectManager.createSnapshot();
+    // Any change made while saving marks the project as changed again...
+    project.setChanged( false );
 
-      setStatusOnEDT( "Project {0} saved ...", aName );
-    }
-    finally
-    {
-      HostUtils.closeResource( out );
-    }
+    executeFileTask( new SaveProjectTask( this.projectManager, snapshot, aFile, this.progressAccumulatingRunnable ) );
   }
 
   /**
@@ -1430,6 +1510,117 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     } );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <RT> void taskEnded( final Task<RT> aTask, final RT aResult )
+  {
+    if ( aTask != this.fileTask )
+    {
+      return;
+    }
+
+    this.fileTask = null;
+    this.fileTaskFuture = null;
+
+    if ( aTask instanceof SaveProjectTask )
+    {
+      setStatusOnEDT( "Project {0} saved ...", ( ( SaveProjectTask )aTask ).getSnapshot().getName() );
+    }
+    else if ( aTask instanceof LoadProjectTask )
+    {
+      final File file = ( ( LoadProjectTask )aTask ).getFile();
+      final Project project = ( Project )aResult;
+
+      SwingComponentUtils.invokeOnEDT( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          project.setFilename( file );
+        }
+      } );
+
+      setStatusOnEDT( "Project {0} loaded ...", project.getName() );
+    }
+    else if ( aTask instanceof ExportTask )
+    {
+      setStatusOnEDT( "Export to {0} succesful ...", ( ( ExportTask )aTask ).getExporterName() );
+    }
+
+    updateActionsOnEDT();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <RT> void taskFailed( final Task<RT> aTask, final Exception aException )
+  {
+    if ( aTask != this.fileTask )
+    {
+      return;
+    }
+
+    this.fileTask = null;
+    this.fileTaskFuture = null;
+
+    final String message;
+    if ( aTask instanceof SaveProjectTask )
+    {
+      message = "Saving the project data failed!";
+
+      // The project is not saved after all...
+      SwingComponentUtils.invokeOnEDT( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          getCurrentProject().setChanged( true );
+        }
+      } );
+    }
+    else if ( aTask instanceof LoadProjectTask )
+    {
+      message = "Loading the project data failed!";
+    }
+    else
+    {
+      message = "Export capture data failed!";
+    }
+
+    // Make sure to handle IO-interrupted exceptions properly!
+    if ( HostUtils.handleInterruptedException( aException ) )
+    {
+      setStatusOnEDT( "Cancelled! {0}", message );
+    }
+    else
+    {
+      LOG.log( Level.WARNING, message, aException );
+
+      SwingComponentUtils.invokeOnEDT( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          JErrorDialog.showDialog( getMainFrame(), message, aException );
+        }
+      } );
+    }
+
+    updateActionsOnEDT();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <RT> void taskStarted( final Task<RT> aTask )
+  {
+    // Nothing; file tasks are administered upon their execution...
+  }
+
   /**
    * Returns the current data set.
    *
@@ -1608,8 +1799,10 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
         final boolean deviceSetup = deviceControllerSet && !deviceCapturing && device.isSetup();
         final boolean timingDataPresent = hasTimingData();
 
+        final boolean fileTaskRunning = ( ClientController.this.fileTask != null );
+
         getAction( CaptureAction.ID ).setEnabled( deviceControllerSet );
-        getAction( CancelCaptureAction.ID ).setEnabled( deviceCapturing );
+        getAction( CancelCaptureAction.ID ).setEnabled( deviceCapturing || fileTaskRunning );
         getAction( RepeatCaptureAction.ID ).setEnabled( deviceSetup );
 
         final boolean projectChanged = isProjectChanged();
@@ -1619,9 +1812,13 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
         final boolean cursorsEnabled = areCursorsEnabled();
         final boolean enableCursors = dataAvailable && cursorsEnabled;
 
-        getAction( SaveProjectAction.ID ).setEnabled( projectChanged );
-        getAction( SaveProjectAsAction.ID ).setEnabled( projectSavedBefore && projectChanged );
-        getAction( SaveDataFileAction.ID ).setEnabled( dataAvailable );
+        // Only a single project save/load or export can be in progress...
+        getAction( NewProjectAction.ID ).setEnabled( !fileTaskRunning );
+        getAction( OpenProjectAction.ID ).setEnabled( !fileTaskRunning );
+        getAction( OpenDataFileAction.ID ).setEnabled( !fileTaskRunning );
+        getAction( SaveProjectAction.ID ).setEnabled( projectChanged && !fileTaskRunning );
+        getAction( SaveProjectAsAction.ID ).setEnabled( projectSavedBefore && projectChanged && !fileTaskRunning );
+        getAction( SaveDataFileAction.ID ).setEnabled( dataAvailable && !fileTaskRunning );
 
         getAction( GotoTriggerAction.ID ).setEnabled( dataAvailable && hasTriggerData );
 
@@ -1668,7 +1865,7 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
         final IManagedAction[] exportActions = getActionsByType( ExportAction.class );
         for ( final IManagedAction exportAction : exportActions )
         {
-          exportAction.setEnabled( dataAvailable );
+          exportAction.setEnabled( dataAvailable && !fileTaskRunning );
         }
 
         getAction( ZoomAllAction.ID ).setEnabled( timingDataPresent );
@@ -1781,6 +1978,25 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     return cursor.isDefined();
   }
 
+  /**
+   * Cancels the project save/load or export task in progress, if any.
+   *
+   * @return <code>true</code> if a task was cancelled, <code>false</code> if
+   *         no such task was in progress.
+   */
+  private boolean cancelFileTask()
+  {
+    final Future<?> future = this.fileTaskFuture;
+    if ( ( this.fileTask == null ) || ( future == null ) )
+    {
+      return false;
+    }
+
+    // Interrupts the task, causing it to fail with an InterruptedIOException...
+    future.cancel( true /* mayInterruptIfRunning */);
+    return true;
+  }
+
   /**
    * Creates the tool context denoting the range of samples that should be
    * analysed by a tool.
@@ -1797,7 +2013,7 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
 
     if ( capturedData != null )
     {
-      final int dataLength = capturedData.getValues().length;
+      final int dataLength = capturedData.getSampleCount();
       if ( areCursorsEnabled() )
       {
         if ( isCursorSet( 0 ) )
@@ -1827,6 +2043,27 @@ AcquisitionDataListener, AnnotationListener, PlatformCallback
     return new DefaultToolContext( startOfDecode, endOfDecode, dataSet );
   }
 
+  /**
+   * Executes the given project save/load or export task in the background,
+   * unless such a task is already in progress.
+   *
+   * @param aTask
+   *          the task to execute, cannot be <code>null</code>.
+   */
+  private void executeFileTask( final Task<?> aTask )
+  {
+    if ( this.fileTask != null )
+    {
+      setStatusOnEDT( "Another project or export operation is still in progress!" );
+      return;
+    }
+
+    this.fileTask = aTask;
+    updateActionsOnEDT();
+
+    this.fileTaskFuture = this.taskExecutionService.execute( aTask );
+  }
+
   /**
    * Returns the {@link Channel} with the given index.
    *
@@ -152,6 +152,7 @@ public class PreferencesDialog extends JDialog implements StatusAwareCloseableDi
   private final JComboBox annotationAlignment;
   private final JComboBox signalAlignment;
   private final JComboBox colorScheme;
+  private final JComboBox captureCompression;
 
   private volatile boolean dialogResult;
   private volatile ConfigurationAdmin configAdmin;
@@ -208,6 +209,9 @@ public class PreferencesDialog extends JDialog implements StatusAwareCloseableDi
 
     this.colorScheme = new JComboBox( new ColorSchemeModel() );
     this.colorScheme.setToolTipText( "What color scheme is to be used. Will be applied immediately." );
+
+    this.captureCompression = new JComboBox( new String[] { "STORE", "FAST", "DEFAULT", "BEST" } );
+    this.captureCompression.setToolTipText( "How the capture results are compressed in project files; STORE is fastest, BEST yields the smallest files. Will be applied when saving a project." );
     // @formatter:on
 
     buildDialog();
@@ -285,6 +289,7 @@ public class PreferencesDialog extends JDialog implements StatusAwareCloseableDi
     this.signalAlignment.setSelectedItem( getSignalAlignment( properties.get( SIGNALVIEW_SIGNAL_ALIGNMENT ) ) );
     this.annotationAlignment.setSelectedItem( getSignalAlignment( properties.get( SIGNALVIEW_ANNOTATION_ALIGNMENT ) ) );
     this.colorScheme.setSelectedItem( String.valueOf( properties.get( COLOR_SCHEME ) ) );
+    this.captureCompression.setSelectedItem( getCaptureCompression( properties.get( PROJECT_CAPTURE_COMPRESSION ) ) );
   }
 
   /**
@@ -345,6 +350,7 @@ public class PreferencesDialog extends JDialog implements StatusAwareCloseableDi
 
     properties.put( SIGNALVIEW_SIGNAL_ALIGNMENT, String.valueOf( this.signalAlignment.getSelectedItem() ) );
     properties.put( SIGNALVIEW_ANNOTATION_ALIGNMENT, String.valueOf( this.annotationAlignment.getSelectedItem() ) );
+    properties.put( PROJECT_CAPTURE_COMPRESSION, String.valueOf( this.captureCompression.getSelectedItem() ) );
 
     String colorScheme = ( String )this.colorScheme.getSelectedItem();
     if ( colorScheme != null )
@@ -420,6 +426,11 @@ public class PreferencesDialog extends JDialog implements StatusAwareCloseableDi
     pane.add( createRightAlignedLabel( "Annotation alignment" ) );
     pane.add( this.annotationAlignment );
 
+    addSeparator( pane, "Project files" );
+
+    pane.add( createRightAlignedLabel( "Capture compression" ) );
+    pane.add( this.captureCompression );
+
     addSeparator( pane, "Color scheme" );
 
     pane.add( createRightAlignedLabel( "Default scheme" ) );
@@ -446,6 +457,23 @@ public class PreferencesDialog extends JDialog implements StatusAwareCloseableDi
     return Boolean.parseBoolean( String.valueOf( aValue ) );
   }
 
+  /**
+   * Returns the capture compression for the given value representation.
+   *
+   * @param aValue
+   *          the value to parse as capture compression, can be
+   *          <code>null</code>.
+   * @return a capture compression, defaults to <tt>DEFAULT</tt>.
+   */
+  private String getCaptureCompression( final Object aValue )
+  {
+    if ( aValue == null )
+    {
+      return "DEFAULT";
+    }
+    return aValue.toString().trim().toUpperCase();
+  }
+
   /**
    * Returns the {@link SignalAlignment} for the given value representation.
    *
@@ -32,7 +32,6 @@ import javax.swing.filechooser.*;
 import nl.lxtreme.ols.client.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.swing.*;
-import nl.lxtreme.ols.util.swing.component.*;
 
 
 /**
@@ -116,19 +115,8 @@ public class ExportAction extends BaseAction
         LOG.info( "Exporting capture data to file: " + actualFile );
       }
 
-      try
-      {
-        controller.exportTo( this.exporterName, actualFile );
-      }
-      catch ( IOException exception )
-      {
-        // Make sure to handle IO-interrupted exceptions properly!
-        if ( !HostUtils.handleInterruptedException( exception ) )
-        {
-          LOG.log( Level.WARNING, "Export with '" + this.exporterName + "' failed!", exception );
-          JErrorDialog.showDialog( owner, "Export capture data failed!", exception );
-        }
-      }
+      // Any failure is reported by the controller...
+      controller.exportTo( this.exporterName, actualFile );
     }
   }
 }
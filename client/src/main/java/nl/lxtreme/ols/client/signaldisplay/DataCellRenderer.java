@@ -25,11 +25,10 @@ import java.awt.*;
 import javax.swing.*;
 import javax.swing.table.*;
 
-import nl.lxtreme.ols.client.*;
-
 
 /**
- * Provides a cell renderer for data values.
+ * Provides a cell renderer for data values, which are formatted by the
+ * {@link StateTableModel} in the radix of their column.
  */
 class DataCellRenderer extends DefaultTableCellRenderer
 {
@@ -46,13 +45,8 @@ class DataCellRenderer extends DefaultTableCellRenderer
     JLabel label = ( JLabel )super
         .getTableCellRendererComponent( aTable, aValue, aIsSelected, aHasFocus, aRow, aColumn );
 
-    StateTableModel tableModel = ( StateTableModel )aTable.getModel();
-
-    Radix radix = tableModel.getRadix( aColumn );
-    int width = tableModel.getViewWidth( aColumn );
-
+    // The value already is formatted in the radix of its column...
     label.setHorizontalAlignment( SwingConstants.RIGHT );
-    label.setText( radix.toString( ( ( Integer )aValue ).intValue(), width ) );
     return label;
   }
 }
@@ -558,6 +558,42 @@ public final class SignalDiagramController implements ZoomListener
     getViewModel().setMeasurementMode( aEnabled );
   }
 
+  /**
+   * Displays the given partial result of an acquisition in progress, until the
+   * data model is set again.
+   *
+   * @param aPartialData
+   *          the partial result to display, or <code>null</code> to display the
+   *          current data model again.
+   */
+  public void setPartialDataModel( final AcquisitionResult aPartialData )
+  {
+    SwingComponentUtils.invokeOnEDT( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        final SignalDiagramModel model = getViewModel();
+        if ( ( aPartialData == null ) && !model.hasPartialData() )
+        {
+          // Nothing partial is displayed...
+          return;
+        }
+
+        // Swap the data on the EDT, so the data does not change halfway
+        // painting...
+        model.setPartialData( aPartialData );
+
+        if ( isViewZoomable() )
+        {
+          // Make sure the view is updated to the grown length...
+          getZoomController().restoreZoomLevel();
+          revalidateAll();
+        }
+      }
+    } );
+  }
+
   /**
    * @param aPosition
    */
@@ -30,7 +30,6 @@ import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.client.*;
 import nl.lxtreme.ols.client.signaldisplay.model.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
-import nl.lxtreme.ols.client.signaldisplay.signalelement.SignalElement.SignalElementType;
 
 
 /**
@@ -42,10 +41,15 @@ class StateTableModel extends AbstractTableModel
 
   private static final long serialVersionUID = 1L;
 
+  /** The number of states that are fetched at once. */
+  private static final int CHUNK_SIZE = 4096;
+
   // VARIABLES
 
+  private final AcquisitionResult capturedData;
   private final int[] values;
   private final long[] timestamps;
+  private int chunkIndex;
   private final List<ElementGroup> groups;
   private final Radix[] viewModes;
 
@@ -56,9 +60,11 @@ class StateTableModel extends AbstractTableModel
    */
   public StateTableModel( final SignalDiagramModel aModel )
   {
-    AcquisitionResult capturedData = aModel.getCapturedData();
-    this.values = capturedData.getValues();
-    this.timestamps = capturedData.getTimestamps();
+    this.capturedData = aModel.getCapturedData();
+    // Only keep the visible states around, the table can be huge...
+    this.values = new int[CHUNK_SIZE];
+    this.timestamps = new long[CHUNK_SIZE];
+    this.chunkIndex = -1;
 
     SignalElementManager sem = aModel.getSignalElementManager();
     Collection<ElementGroup> elementGroups = sem.getGroups();
@@ -96,7 +102,7 @@ class StateTableModel extends AbstractTableModel
     {
       return Long.class;
     }
-    return Integer.class;
+    return String.class;
   }
 
   /**
@@ -151,7 +157,7 @@ class StateTableModel extends AbstractTableModel
   @Override
   public int getRowCount()
   {
-    return this.values.length;
+    return this.capturedData.getSampleCount();
   }
 
   /**
@@ -160,9 +166,11 @@ class StateTableModel extends AbstractTableModel
   @Override
   public Object getValueAt( final int aRowIndex, final int aColumnIndex )
   {
+    final int idx = fetchChunk( aRowIndex );
+
     if ( aColumnIndex == 0 )
     {
-      return Long.valueOf( this.timestamps[aRowIndex] );
+      return Long.valueOf( this.timestamps[idx] );
     }
 
     int groupIdx = aColumnIndex - 1;
@@ -171,7 +179,10 @@ class StateTableModel extends AbstractTableModel
       return null;
     }
 
-    return Integer.valueOf( this.groups.get( groupIdx ).getValue( this.values[aRowIndex] ) );
+    // The labels are cached by the extractor, avoiding the need to allocate
+    // anything for each cell...
+    final ValueExtractor extractor = this.groups.get( groupIdx ).getValueExtractor();
+    return extractor.getLabel( extractor.getValue( this.values[idx] ), this.viewModes[groupIdx] );
   }
 
   /**
@@ -192,32 +203,33 @@ class StateTableModel extends AbstractTableModel
 
   /**
    * @param aColumnIndex
-   * @return
+   * @param aMode
    */
-  public int getViewWidth( final int aColumnIndex )
+  public void setViewMode( final int aColumnIndex, final Radix aMode )
   {
-    if ( aColumnIndex == 0 )
+    if ( aColumnIndex > 0 )
     {
-      return -1;
+      this.viewModes[aColumnIndex - 1] = aMode;
     }
-
-    int groupIdx = aColumnIndex - 1;
-
-    int channels = this.groups.get( groupIdx ).getElementCount( SignalElementType.DIGITAL_SIGNAL );
-    double width = this.viewModes[groupIdx].getWidth();
-
-    return ( int )Math.ceil( channels / width );
   }
 
   /**
-   * @param aColumnIndex
-   * @param aMode
+   * Makes sure the chunk containing the given row is fetched.
+   *
+   * @param aRowIndex
+   *          the index of the row to fetch the chunk for.
+   * @return the index of the given row in the current chunk.
    */
-  public void setViewMode( final int aColumnIndex, final Radix aMode )
+  private int fetchChunk( final int aRowIndex )
   {
-    if ( aColumnIndex > 0 )
+    final int chunk = aRowIndex / CHUNK_SIZE;
+    if ( chunk != this.chunkIndex )
     {
-      this.viewModes[aColumnIndex - 1] = aMode;
+      final int offset = chunk * CHUNK_SIZE;
+      this.capturedData.getValues( offset, this.values, 0, CHUNK_SIZE );
+      this.capturedData.getTimestamps( offset, this.timestamps, 0, CHUNK_SIZE );
+      this.chunkIndex = chunk;
     }
+    return aRowIndex - ( chunk * CHUNK_SIZE );
   }
 }
@@ -76,7 +76,7 @@ public class StateViewComponent extends JPanel
     this.table.setShowHorizontalLines( true );
     this.table.setAutoCreateRowSorter( true );
     this.table.setAutoCreateColumnsFromModel( false );
-    this.table.setDefaultRenderer( Integer.class, new DataCellRenderer() );
+    this.table.setDefaultRenderer( String.class, new DataCellRenderer() );
     this.table.setAutoResizeMode( JTable.AUTO_RESIZE_OFF );
 
     this.table.getTableHeader().addMouseListener( new MouseAdapter()
@@ -106,6 +106,6 @@ public class RemoveChannelAnnotations extends AbstractAction
    */
   private boolean hasAnnotations()
   {
-    return !getChannel().getAnnotations().isEmpty();
+    return !getChannel().getAnnotationStore().isEmpty();
   }
 }
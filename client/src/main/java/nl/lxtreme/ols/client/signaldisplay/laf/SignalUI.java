@@ -26,7 +26,10 @@ import javax.swing.*;
 import javax.swing.plaf.*;
 
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.client.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
@@ -48,6 +51,11 @@ public class SignalUI extends ComponentUI
    * to draw the group summary and scope a bit sloppy.
    */
   private static final int SLOPPY_DRAW_THRESHOLD = 10000;
+  /**
+   * The average number of samples per pixel upon which is decided to draw the
+   * signals per pixel column using the signal summary.
+   */
+  private static final int SUMMARY_DRAW_THRESHOLD = 4;
 
   // VARIABLES
 
@@ -60,6 +68,117 @@ public class SignalUI extends ComponentUI
 
   // METHODS
 
+  /**
+   * Creates the polyline points for an analog signal, using the given signal
+   * summary to determine the value range of each pixel column.
+   *
+   * @return the number of created points.
+   */
+  private static int createAnalogSummaryPoints( final SignalSummary aSummary, final SampleReader aReader,
+      final int aStartIdx, final int aEndIdx, final double aZoomFactor, final int aMask, final long aMaxValue,
+      final double aScaleFactor )
+  {
+    final long mask = aMask & 0xFFFFFFFFL;
+    final int trailingZeros = Long.numberOfTrailingZeros( mask );
+
+    long prevSampleValue = ( ( aReader.getValue( aStartIdx ) & mask ) >> trailingZeros );
+
+    x[0] = ( int )( aZoomFactor * aReader.getTimestamp( aStartIdx ) );
+    y[0] = ( int )( aScaleFactor * ( aMaxValue - prevSampleValue ) );
+    int p = 1;
+
+    int sampleIdx = aStartIdx + 1;
+    while ( ( p < POINT_COUNT ) && ( sampleIdx < aEndIdx ) )
+    {
+      final int nextIdx = getNextColumnIndex( aReader, aZoomFactor, sampleIdx, aEndIdx );
+
+      if ( ( aSummary.getToggledBits( sampleIdx, nextIdx ) & aMask ) != 0 )
+      {
+        final int xValue = ( int )( aZoomFactor * aReader.getTimestamp( sampleIdx ) );
+
+        final long minValue = aSummary.getMinimumValue( aMask, sampleIdx, nextIdx ) & 0xFFFFFFFFL;
+        final long maxValue = aSummary.getMaximumValue( aMask, sampleIdx, nextIdx ) & 0xFFFFFFFFL;
+        final long sampleValue = ( ( aReader.getValue( nextIdx - 1 ) & mask ) >> trailingZeros );
+
+        // Draw the entire value range of this column, so no peak is lost...
+        x[p] = xValue;
+        y[p] = ( int )( aScaleFactor * ( aMaxValue - prevSampleValue ) );
+        p++;
+        x[p] = xValue;
+        y[p] = ( int )( aScaleFactor * ( aMaxValue - maxValue ) );
+        p++;
+        x[p] = xValue;
+        y[p] = ( int )( aScaleFactor * ( aMaxValue - minValue ) );
+        p++;
+        x[p] = xValue;
+        y[p] = ( int )( aScaleFactor * ( aMaxValue - sampleValue ) );
+        p++;
+
+        prevSampleValue = sampleValue;
+      }
+
+      sampleIdx = nextIdx;
+    }
+
+    return p;
+  }
+
+  /**
+   * Creates the polyline points for a digital signal, using the given signal
+   * summary to determine whether the signal toggles in a pixel column.
+   *
+   * @return the number of created points.
+   */
+  private static int createDigitalSummaryPoints( final SignalSummary aSummary, final SampleReader aReader,
+      final int aStartIdx, final int aEndIdx, final double aZoomFactor, final int aMask, final int aSignalHeight )
+  {
+    int prevSampleValue = ( aReader.getValue( aStartIdx ) & aMask );
+
+    x[0] = ( int )( aZoomFactor * aReader.getTimestamp( aStartIdx ) );
+    y[0] = ( prevSampleValue == 0 ? aSignalHeight : 0 );
+    int p = 1;
+
+    int sampleIdx = aStartIdx + 1;
+    while ( ( p < POINT_COUNT ) && ( sampleIdx <= aEndIdx ) )
+    {
+      final int nextIdx = getNextColumnIndex( aReader, aZoomFactor, sampleIdx, aEndIdx + 1 );
+
+      if ( ( aSummary.getToggledBits( sampleIdx, nextIdx ) & aMask ) != 0 )
+      {
+        final int xValue = ( int )( aZoomFactor * aReader.getTimestamp( sampleIdx ) );
+        final int sampleValue = ( aReader.getValue( nextIdx - 1 ) & aMask );
+
+        x[p] = xValue;
+        y[p] = ( prevSampleValue == 0 ? aSignalHeight : 0 );
+        p++;
+
+        if ( prevSampleValue == sampleValue )
+        {
+          // The signal toggled back within this column; make sure this glitch
+          // remains visible...
+          x[p] = xValue;
+          y[p] = ( prevSampleValue == 0 ? 0 : aSignalHeight );
+          p++;
+        }
+
+        x[p] = xValue;
+        y[p] = ( sampleValue == 0 ? aSignalHeight : 0 );
+        p++;
+
+        prevSampleValue = sampleValue;
+      }
+
+      sampleIdx = nextIdx;
+    }
+
+    // Make sure we end at the last visible sample index...
+    x[p] = ( int )( aZoomFactor * aReader.getTimestamp( aEndIdx ) );
+    y[p] = ( prevSampleValue == 0 ? aSignalHeight : 0 );
+    p++;
+
+    return p;
+  }
+
   /**
    * Creates the rendering hints for this the drawing of arrows.
    */
@@ -105,6 +224,54 @@ public class SignalUI extends ComponentUI
     return hints;
   }
 
+  /**
+   * Returns the index of the first sample that is drawn in a pixel column after
+   * the one of the sample at the given index.
+   *
+   * @param aReader
+   *          the reader providing the timestamps of the samples;
+   * @param aZoomFactor
+   *          the current zoom factor;
+   * @param aFromIdx
+   *          the index of the sample to start searching from;
+   * @param aToIdx
+   *          the index up to which to search (exclusive).
+   * @return the index of the first sample in a next pixel column, or aToIdx if
+   *         there is no such sample.
+   */
+  private static int getNextColumnIndex( final SampleReader aReader, final double aZoomFactor, final int aFromIdx,
+      final int aToIdx )
+  {
+    final int column = ( int )( aZoomFactor * aReader.getTimestamp( aFromIdx ) );
+
+    // Most columns contain only a few samples, so gallop before bisecting...
+    int lo = aFromIdx;
+    int hi = aFromIdx + 1;
+    int step = 1;
+    while ( ( hi < aToIdx ) && ( ( int )( aZoomFactor * aReader.getTimestamp( hi ) ) <= column ) )
+    {
+      lo = hi;
+      step <<= 1;
+      hi = aFromIdx + step;
+    }
+    hi = Math.min( hi, aToIdx );
+
+    while ( ( hi - lo ) > 1 )
+    {
+      final int mid = ( lo + hi ) >>> 1;
+      if ( ( int )( aZoomFactor * aReader.getTimestamp( mid ) ) <= column )
+      {
+        lo = mid;
+      }
+      else
+      {
+        hi = mid;
+      }
+    }
+
+    return hi;
+  }
+
   /**
    * Returns the current value of measurementRect.
    *
@@ -234,8 +401,8 @@ public class SignalUI extends ComponentUI
   private void paintAnnotations( final Graphics2D aCanvas, final SignalViewModel aModel,
       final IUIElement[] aSignalElements )
   {
-    final long[] timestamps = aModel.getTimestamps();
-    if ( ( timestamps == null ) || ( timestamps.length == 0 ) || ( aSignalElements.length == 0 ) )
+    final AcquisitionResult data = aModel.getCapturedData();
+    if ( ( data == null ) || ( data.getSampleCount() == 0 ) || ( aSignalElements.length == 0 ) )
     {
       // Nothing to do...
       return;
@@ -243,10 +410,11 @@ public class SignalUI extends ComponentUI
 
     final Rectangle clip = aCanvas.getClipBounds();
     final int startIdx = aModel.getStartIndex( clip );
-    final int endIdx = aModel.getEndIndex( clip, timestamps.length );
+    final int endIdx = aModel.getEndIndex( clip, data.getSampleCount() );
 
-    final long startTimestamp = timestamps[startIdx];
-    final long endTimestamp = timestamps[endIdx];
+    final SampleReader reader = new SampleReader( data );
+    final long startTimestamp = reader.getTimestamp( startIdx );
+    final long endTimestamp = reader.getTimestamp( endIdx );
 
     final double zoomFactor = aModel.getZoomFactor();
 
@@ -412,6 +580,54 @@ public class SignalUI extends ComponentUI
     aCanvas.translate( -x, -y );
   }
 
+  /**
+   * Paints a single cell of a group summary, consisting of the group value
+   * (when it fits) and the bar denoting the end of the cell.
+   *
+   * @param aCanvas
+   *          the canvas to paint on;
+   * @param aModel
+   *          the model to use;
+   * @param aSignalElement
+   *          the group summary signal element;
+   * @param aValueExtractor
+   *          the value extractor of the group of the signal element;
+   * @param aFontMetrics
+   *          the font metrics of the group summary text;
+   * @param aTextYpos
+   *          the Y-position of the group summary text;
+   * @param aStartX
+   *          the X-position where the cell starts;
+   * @param aEndX
+   *          the X-position where the cell ends;
+   * @param aSampleValue
+   *          the masked sample value of the cell.
+   */
+  private void paintGroupSummaryCell( final Graphics2D aCanvas, final SignalViewModel aModel,
+      final SignalElement aSignalElement, final ValueExtractor aValueExtractor, final FontMetrics aFontMetrics,
+      final int aTextYpos, final int aStartX, final int aEndX, final int aSampleValue )
+  {
+    final int padding = aModel.getGroupSummaryPadding();
+
+    String text = aValueExtractor.getLabel( aValueExtractor.getValue( aSampleValue ), Radix.HEX );
+
+    int textWidth = aFontMetrics.stringWidth( text ) + ( 2 * padding );
+    int cellWidth = aEndX - aStartX;
+    if ( textWidth < cellWidth )
+    {
+      int textXpos = aStartX + ( int )( ( cellWidth - textWidth ) / 2.0 ) + padding;
+
+      aCanvas.setColor( aSignalElement.getColor() );
+
+      aCanvas.drawString( text, textXpos, aTextYpos );
+    }
+
+    aCanvas.setColor( aModel.getGroupSummaryBarColor() );
+
+    // draw a small line...
+    aCanvas.drawLine( aEndX, padding, aEndX, aSignalElement.getHeight() - padding );
+  }
+
   /**
    * Paints the individual signal channels, group bytes and analogue scope
    * signals.
@@ -425,8 +641,8 @@ public class SignalUI extends ComponentUI
    */
   private void paintSignals( final Graphics2D aCanvas, final SignalViewModel aModel, final IUIElement[] aElements )
   {
-    final int[] values = aModel.getDataValues();
-    final long[] timestamps = aModel.getTimestamps();
+    final AcquisitionResult data = aModel.getCapturedData();
+    final SampleReader reader = new SampleReader( data );
 
     final Rectangle clip = aCanvas.getClipBounds();
 
@@ -434,14 +650,14 @@ public class SignalUI extends ComponentUI
     aCanvas.clearRect( clip.x, clip.y, clip.width, clip.height );
 
     final int startIdx = aModel.getStartIndex( clip );
-    final int endIdx = aModel.getEndIndex( clip, values.length );
+    final int endIdx = aModel.getEndIndex( clip, reader.getSampleCount() );
 
     final double zoomFactor = aModel.getZoomFactor();
 
     if ( aModel.hasTriggerData() )
     {
       final long triggerOffset = aModel.getTriggerOffset();
-      if ( ( timestamps[startIdx] <= triggerOffset ) && ( timestamps[endIdx] >= triggerOffset ) )
+      if ( ( reader.getTimestamp( startIdx ) <= triggerOffset ) && ( reader.getTimestamp( endIdx ) >= triggerOffset ) )
       {
         // Draw a line denoting the trigger position...
         final int x = ( int )Math.round( triggerOffset * zoomFactor ) - 1;
@@ -457,6 +673,14 @@ public class SignalUI extends ComponentUI
     final boolean enableSloppyScopePainting = aModel.isSloppyScopeRenderingAllowed();
     int lastP = 0;
 
+    // When zoomed out, draw per pixel column instead of per sample...
+    SignalSummary summary = aModel.getSignalSummary();
+    if ( ( summary == null ) || !summary.isSummaryFor( data )
+        || ( ( endIdx - startIdx ) <= ( SUMMARY_DRAW_THRESHOLD * clip.width ) ) )
+    {
+      summary = null;
+    }
+
     for ( IUIElement element : aElements )
     {
       if ( element instanceof ElementGroup )
@@ -488,14 +712,22 @@ public class SignalUI extends ComponentUI
           // Forced zero'd channel is *very* easy to draw...
           aCanvas.drawLine( clip.x, signalHeight, clip.x + clip.width, signalHeight );
         }
+        else if ( summary != null )
+        {
+          // Large data set; draw each pixel column, including all glitches...
+          final int p = createDigitalSummaryPoints( summary, reader, startIdx, endIdx, zoomFactor,
+              signalElement.getMask(), signalHeight );
+
+          aCanvas.drawPolyline( x, y, p );
+        }
         else
         {
           // "Normal" data set; draw as accurate as possible...
           final int mask = signalElement.getMask();
 
           // Make sure we always start with time 0...
-          long timestamp = timestamps[startIdx];
-          int prevSampleValue = ( values[startIdx] & mask );
+          long timestamp = reader.getTimestamp( startIdx );
+          int prevSampleValue = ( reader.getValue( startIdx ) & mask );
 
           int xValue = ( int )( zoomFactor * timestamp );
           int yValue = ( prevSampleValue == 0 ? signalHeight : 0 );
@@ -506,8 +738,8 @@ public class SignalUI extends ComponentUI
 
           for ( int sampleIdx = startIdx + 1; ( p < POINT_COUNT ) && ( sampleIdx <= endIdx ); sampleIdx++ )
           {
-            timestamp = timestamps[sampleIdx];
-            int sampleValue = ( values[sampleIdx] & mask );
+            timestamp = reader.getTimestamp( sampleIdx );
+            int sampleValue = ( reader.getValue( sampleIdx ) & mask );
 
             xValue = ( int )( zoomFactor * timestamp );
 
@@ -546,47 +778,57 @@ public class SignalUI extends ComponentUI
         aCanvas.setRenderingHints( createSignalRenderingHints( aModel.isRenderGroupSummaryAntiAliased() ) );
 
         int mask = signalElement.getMask();
+        ValueExtractor extractor = signalElement.getGroup().getValueExtractor();
 
         int padding = aModel.getGroupSummaryPadding();
 
-        int prevSampleValue = values[startIdx] & mask;
-        int prevX = ( int )( zoomFactor * timestamps[startIdx] );
+        int prevSampleValue = reader.getValue( startIdx ) & mask;
+        int prevX = ( int )( zoomFactor * reader.getTimestamp( startIdx ) );
 
         aCanvas.setFont( aModel.getGroupSummaryTextFont() );
 
         FontMetrics fm = aCanvas.getFontMetrics();
         int textYpos = ( int )( ( signalElement.getHeight() + fm.getLeading() + fm.getMaxAscent() ) / 2.0 ) - padding;
 
-        for ( int sampleIdx = startIdx + 1; sampleIdx < endIdx; sampleIdx += sampleIncr )
+        if ( summary != null )
         {
-          int sampleValue = ( values[sampleIdx] & mask );
-
-          if ( sampleValue != prevSampleValue )
+          int sampleIdx = startIdx + 1;
+          while ( sampleIdx < endIdx )
           {
-            int x = ( int )( zoomFactor * timestamps[sampleIdx] );
-
-            String text = String.format( "%02X", Integer.valueOf( signalElement.getValue( prevSampleValue ) ) );
+            int nextIdx = getNextColumnIndex( reader, zoomFactor, sampleIdx, endIdx );
 
-            int textWidth = fm.stringWidth( text ) + ( 2 * padding );
-            int cellWidth = x - prevX;
-            if ( textWidth < cellWidth )
+            if ( ( summary.getToggledBits( sampleIdx, nextIdx ) & mask ) != 0 )
             {
-              int textXpos = prevX + ( int )( ( cellWidth - textWidth ) / 2.0 ) + padding;
+              int x = ( int )( zoomFactor * reader.getTimestamp( sampleIdx ) );
 
-              aCanvas.setColor( signalElement.getColor() );
+              paintGroupSummaryCell( aCanvas, aModel, signalElement, extractor, fm, textYpos, prevX, x,
+                  prevSampleValue );
 
-              aCanvas.drawString( text, textXpos, textYpos );
+              prevX = x;
             }
 
-            aCanvas.setColor( aModel.getGroupSummaryBarColor() );
+            prevSampleValue = ( reader.getValue( nextIdx - 1 ) & mask );
+            sampleIdx = nextIdx;
+          }
+        }
+        else
+        {
+          for ( int sampleIdx = startIdx + 1; sampleIdx < endIdx; sampleIdx += sampleIncr )
+          {
+            int sampleValue = ( reader.getValue( sampleIdx ) & mask );
 
-            // draw a small line...
-            aCanvas.drawLine( x, padding, x, signalElement.getHeight() - padding );
+            if ( sampleValue != prevSampleValue )
+            {
+              int x = ( int )( zoomFactor * reader.getTimestamp( sampleIdx ) );
 
-            prevX = x;
-          }
+              paintGroupSummaryCell( aCanvas, aModel, signalElement, extractor, fm, textYpos, prevX, x,
+                  prevSampleValue );
 
-          prevSampleValue = sampleValue;
+              prevX = x;
+            }
+
+            prevSampleValue = sampleValue;
+          }
         }
       }
 
@@ -611,17 +853,22 @@ public class SignalUI extends ComponentUI
           y[p] = signalElement.getHeight();
           p++;
         }
+        else if ( summary != null )
+        {
+          p = createAnalogSummaryPoints( summary, reader, startIdx, endIdx, zoomFactor,
+              signalElement.getMask(), maxValue, scaleFactor );
+        }
         else
         {
           for ( int sampleIdx = startIdx; ( p < POINT_COUNT ) && ( sampleIdx < endIdx ); sampleIdx += sampleIncr )
           {
-            long timestamp = timestamps[sampleIdx];
+            long timestamp = reader.getTimestamp( sampleIdx );
 
-            int sampleValue = ( int )( ( values[sampleIdx] & mask ) >> trailingZeros );
+            int sampleValue = ( int )( ( reader.getValue( sampleIdx ) & mask ) >> trailingZeros );
             final int i_max = Math.min( endIdx, ( sampleIdx + sampleIncr ) - 1 );
             for ( int i = sampleIdx + 1; i < i_max; i++ )
             {
-              sampleValue += ( ( values[i] & mask ) >> trailingZeros );
+              sampleValue += ( ( reader.getValue( i ) & mask ) >> trailingZeros );
             }
             sampleValue = ( int )( maxValue - ( sampleValue / ( double )sampleIncr ) );
 
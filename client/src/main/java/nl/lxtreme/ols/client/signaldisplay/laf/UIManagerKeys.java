@@ -48,6 +48,11 @@ public interface UIManagerKeys
    * recapture.
    */
   String RETAIN_ANNOTATIONS_WITH_RECAPTURE = "ols.retain.annotations.boolean";
+  /**
+   * The compression of the capture results in project files, one of STORE,
+   * FAST, DEFAULT or BEST.
+   */
+  String PROJECT_CAPTURE_COMPRESSION = "ols.project.compression.enum";
   /**
    * Disables the sloppy drawing of scopes (and group summary) when too many
    * transitions are shown.
@@ -25,6 +25,7 @@ import java.awt.*;
 import java.beans.*;
 import java.util.*;
 import java.util.List;
+import java.util.logging.*;
 
 import javax.swing.*;
 import javax.swing.event.*;
@@ -36,6 +37,7 @@ import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.laf.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.SignalElementManager.SignalElementMeasurer;
+import nl.lxtreme.ols.client.signaldisplay.util.*;
 
 
 /**
@@ -54,8 +56,85 @@ public class SignalDiagramModel
     TOP, CENTER, BOTTOM;
   }
 
+  /**
+   * Provides a {@link SwingWorker} to create the {@link SignalSummary} of the
+   * captured data asynchronously from the UI.
+   */
+  final class SignalSummaryWorker extends SwingWorker<SignalSummary, Boolean>
+  {
+    // VARIABLES
+
+    private final AcquisitionResult data;
+    private final int[] groupMasks;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link SignalSummaryWorker} instance.
+     *
+     * @param aData
+     *          the captured data to summarize;
+     * @param aGroupMasks
+     *          the masks of the channel groups to summarize the values of.
+     */
+    public SignalSummaryWorker( final AcquisitionResult aData, final int[] aGroupMasks )
+    {
+      this.data = aData;
+      this.groupMasks = aGroupMasks;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected SignalSummary doInBackground() throws Exception
+    {
+      final SignalSummary result = new SignalSummary( this.data );
+      for ( int mask : this.groupMasks )
+      {
+        if ( isCancelled() )
+        {
+          break;
+        }
+        result.prepareValueRange( mask );
+      }
+      return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( isCancelled() )
+      {
+        return;
+      }
+
+      try
+      {
+        SignalDiagramModel.this.signalSummary = get();
+
+        final JComponent view = SignalDiagramModel.this.controller.getViewComponent();
+        if ( view != null )
+        {
+          view.repaint( 50L );
+        }
+      }
+      catch ( Exception exception )
+      {
+        LOG.log( Level.WARNING, "Failed to create signal summary!", exception );
+      }
+    }
+  }
+
   // CONSTANTS
 
+  private static final Logger LOG = Logger.getLogger( SignalDiagramModel.class.getName() );
+
   private static final int SNAP_CURSOR_MODE = ( 1 << 0 );
   private static final int MEASUREMENT_MODE = ( 1 << 1 );
 
@@ -66,6 +145,9 @@ public class SignalDiagramModel
   private volatile int mode;
   private volatile int selectedChannelIndex;
   private volatile DataSet dataSet;
+  private volatile AcquisitionResult partialData;
+  private volatile SignalSummary signalSummary;
+  private volatile SignalSummaryWorker signalSummaryWorker;
 
   private final ZoomController zoomController;
   private final SignalElementManager channelGroupManager;
@@ -236,6 +318,23 @@ public class SignalDiagramModel
     this.propertyChangeSupport.addPropertyChangeListener( aListener );
   }
 
+  /**
+   * Creates a reader for the sample values and timestamps of the current
+   * captured data, which reads them in chunks rather than copying them all.
+   *
+   * @return a new sample reader, or <code>null</code> if there is no captured
+   *         data.
+   */
+  public SampleReader createSampleReader()
+  {
+    final AcquisitionResult capturedData = getCapturedData();
+    if ( capturedData == null )
+    {
+      return null;
+    }
+    return new SampleReader( capturedData );
+  }
+
   /**
    * @param aChannelIdx
    * @param aTimestamp
@@ -243,32 +342,32 @@ public class SignalDiagramModel
    */
   public final long findEdgeAfter( final int aChannelIdx, final long aTimestamp )
   {
-    final long[] timestamps = getTimestamps();
-    final int[] values = getValues();
-
-    int refIdx = Arrays.binarySearch( timestamps, aTimestamp );
-    if ( refIdx < 0 )
+    final SampleReader reader = createSampleReader();
+    if ( reader == null )
     {
-      refIdx = -( refIdx + 1 ) - 1;
+      return aTimestamp;
     }
 
-    if ( ( refIdx < 0 ) || ( refIdx >= values.length ) )
+    final int sampleCount = reader.getSampleCount();
+
+    int refIdx = findSampleIndex( reader, aTimestamp );
+    if ( ( refIdx < 0 ) || ( refIdx >= sampleCount ) )
     {
-      return timestamps[0];
+      return reader.getTimestamp( 0 );
     }
 
     // find the reference time value; which is the "timestamp" under the
     // cursor...
     final int mask = ( 1 << aChannelIdx );
-    final int refValue = ( values[refIdx] & mask );
+    final int refValue = ( reader.getValue( refIdx ) & mask );
 
     do
     {
       refIdx++;
     }
-    while ( ( refIdx < ( values.length - 1 ) ) && ( ( values[refIdx] & mask ) == refValue ) );
+    while ( ( refIdx < ( sampleCount - 1 ) ) && ( ( reader.getValue( refIdx ) & mask ) == refValue ) );
 
-    return timestamps[refIdx];
+    return reader.getTimestamp( refIdx );
   }
 
   /**
@@ -278,32 +377,32 @@ public class SignalDiagramModel
    */
   public final long findEdgeBefore( final int aChannelIdx, final long aTimestamp )
   {
-    final long[] timestamps = getTimestamps();
-    final int[] values = getValues();
-
-    int refIdx = Arrays.binarySearch( timestamps, aTimestamp );
-    if ( refIdx < 0 )
+    final SampleReader reader = createSampleReader();
+    if ( reader == null )
     {
-      refIdx = -( refIdx + 1 ) - 1;
+      return aTimestamp;
     }
 
-    if ( ( refIdx < 0 ) || ( refIdx >= values.length ) )
+    final int sampleCount = reader.getSampleCount();
+
+    int refIdx = findSampleIndex( reader, aTimestamp );
+    if ( ( refIdx < 0 ) || ( refIdx >= sampleCount ) )
     {
-      return timestamps[0];
+      return reader.getTimestamp( 0 );
     }
 
     // find the reference time value; which is the "timestamp" under the
     // cursor...
     final int mask = ( 1 << aChannelIdx );
-    final int refValue = ( values[refIdx] & mask );
+    final int refValue = ( reader.getValue( refIdx ) & mask );
 
     do
     {
       refIdx--;
     }
-    while ( ( refIdx > 0 ) && ( ( values[refIdx] & mask ) == refValue ) );
+    while ( ( refIdx > 0 ) && ( ( reader.getValue( refIdx ) & mask ) == refValue ) );
 
-    return timestamps[Math.max( 0, refIdx )];
+    return reader.getTimestamp( Math.max( 0, refIdx ) );
   }
 
   /**
@@ -355,7 +454,10 @@ public class SignalDiagramModel
   }
 
   /**
-   * @return
+   * Returns the captured data to display, which is the partial result of an
+   * acquisition in progress, if any.
+   *
+   * @return the captured data, can be <code>null</code>.
    */
   public AcquisitionResult getCapturedData()
   {
@@ -363,6 +465,11 @@ public class SignalDiagramModel
     {
       return null;
     }
+    final AcquisitionResult partial = this.partialData;
+    if ( partial != null )
+    {
+      return partial;
+    }
     return this.dataSet.getCapturedData();
   }
 
@@ -528,6 +635,26 @@ public class SignalDiagramModel
     return this.channelGroupManager;
   }
 
+  /**
+   * Returns the level-of-detail summary of the current sample values.
+   * <p>
+   * The summary is created in the background once the data model is set, so
+   * it might not be available (yet).
+   * </p>
+   *
+   * @return the signal summary, or <code>null</code> if no summary is
+   *         available for the current sample values.
+   */
+  public SignalSummary getSignalSummary()
+  {
+    final SignalSummary summary = this.signalSummary;
+    if ( ( summary == null ) || !summary.isSummaryFor( getCapturedData() ) )
+    {
+      return null;
+    }
+    return summary;
+  }
+
   /**
    * Returns the hover area of the signal under the given coordinate (= mouse
    * position).
@@ -583,7 +710,7 @@ public class SignalDiagramModel
       return new MeasurementInfo( aSignalElement, refTime );
     }
 
-    final long[] timestamps = getTimestamps();
+    final SampleReader reader = createSampleReader();
 
     long ts = -1L;
     long tm = -1L;
@@ -592,47 +719,47 @@ public class SignalDiagramModel
 
     // find the reference time value; which is the "timestamp" under the
     // cursor...
-    final int[] values = getValues();
-    if ( ( refIdx >= 0 ) && ( refIdx < values.length ) )
+    final int sampleCount = getSampleCount();
+    if ( ( reader != null ) && ( refIdx >= 0 ) && ( refIdx < sampleCount ) )
     {
       final int mask = channel.getMask();
-      final int refValue = ( values[refIdx] & mask );
+      final int refValue = ( reader.getValue( refIdx ) & mask );
 
       int idx = refIdx;
       do
       {
         idx--;
       }
-      while ( ( idx >= 0 ) && ( ( values[idx] & mask ) == refValue ) );
+      while ( ( idx >= 0 ) && ( ( reader.getValue( idx ) & mask ) == refValue ) );
 
       // convert the found index back to "screen" values...
       final int tm_idx = Math.max( 0, idx + 1 );
-      tm = ( tm_idx == 0 ) ? 0 : timestamps[tm_idx];
+      tm = ( tm_idx == 0 ) ? 0 : reader.getTimestamp( tm_idx );
 
       // Search for the original value again, to complete the pulse...
       do
       {
         idx--;
       }
-      while ( ( idx >= 0 ) && ( ( values[idx] & mask ) != refValue ) );
+      while ( ( idx >= 0 ) && ( ( reader.getValue( idx ) & mask ) != refValue ) );
 
       // convert the found index back to "screen" values...
       final int ts_idx = Math.max( 0, idx + 1 );
-      ts = ( ts_idx == 0 ) ? 0 : timestamps[ts_idx];
+      ts = ( ts_idx == 0 ) ? 0 : reader.getTimestamp( ts_idx );
 
       idx = refIdx;
       do
       {
         idx++;
       }
-      while ( ( idx < values.length ) && ( ( values[idx] & mask ) == refValue ) );
+      while ( ( idx < sampleCount ) && ( ( reader.getValue( idx ) & mask ) == refValue ) );
 
       // convert the found index back to "screen" values...
-      final int te_idx = Math.min( idx, timestamps.length - 1 );
-      te = ( te_idx == 0 ) ? 0 : timestamps[te_idx];
+      final int te_idx = Math.min( idx, sampleCount - 1 );
+      te = ( te_idx == 0 ) ? 0 : reader.getTimestamp( te_idx );
 
       // Determine the width of the "high" part...
-      if ( ( values[ts_idx] & mask ) != 0 )
+      if ( ( reader.getValue( ts_idx ) & mask ) != 0 )
       {
         th = Math.abs( tm - ts );
       }
@@ -769,29 +896,31 @@ public class SignalDiagramModel
   }
 
   /**
-   * {@inheritDoc}
+   * Returns the number of valid sample values and timestamps.
+   *
+   * @return a sample count, >= 0.
    */
-  public int getTimestampIndex( final long aValue )
+  public int getSampleCount()
   {
     final AcquisitionResult capturedData = getCapturedData();
     if ( capturedData == null )
     {
       return 0;
     }
-    return capturedData.getSampleIndex( aValue );
+    return capturedData.getSampleCount();
   }
 
   /**
    * {@inheritDoc}
    */
-  public long[] getTimestamps()
+  public int getTimestampIndex( final long aValue )
   {
     final AcquisitionResult capturedData = getCapturedData();
     if ( capturedData == null )
     {
-      return new long[0];
+      return 0;
     }
-    return capturedData.getTimestamps();
+    return capturedData.getSampleIndex( aValue );
   }
 
   /**
@@ -810,19 +939,6 @@ public class SignalDiagramModel
     return Long.valueOf( capturedData.getTriggerPosition() );
   }
 
-  /**
-   * {@inheritDoc}
-   */
-  public int[] getValues()
-  {
-    final AcquisitionResult capturedData = getCapturedData();
-    if ( capturedData == null )
-    {
-      return new int[0];
-    }
-    return capturedData.getValues();
-  }
-
   /**
    * Calculates the vertical block increment.
    * <p>
@@ -921,6 +1037,18 @@ public class SignalDiagramModel
     return ( this.dataSet != null ) && ( getCapturedData() != null );
   }
 
+  /**
+   * Returns whether the partial result of an acquisition in progress is
+   * displayed.
+   *
+   * @return <code>true</code> if partial data is displayed, <code>false</code>
+   *         otherwise.
+   */
+  public final boolean hasPartialData()
+  {
+    return this.partialData != null;
+  }
+
   /**
    * Returns whether the data is a timed-capture or a state-capture.
    *
@@ -1221,12 +1349,15 @@ public class SignalDiagramModel
     }
 
     this.dataSet = aDataSet;
+    this.partialData = null;
 
     final IDataModelChangeListener[] listeners = this.eventListeners.getListeners( IDataModelChangeListener.class );
     for ( IDataModelChangeListener listener : listeners )
     {
       listener.dataModelChanged( aDataSet );
     }
+
+    createSignalSummary();
   }
 
   /**
@@ -1257,6 +1388,24 @@ public class SignalDiagramModel
     }
   }
 
+  /**
+   * Sets the partial result of an acquisition in progress, which is displayed
+   * instead of the captured data of the data model, until the data model is
+   * set again.
+   * <p>
+   * Partial results are neither summarized nor copied, as they are superseded
+   * shortly after.
+   * </p>
+   *
+   * @param aPartialData
+   *          the partial result to display, or <code>null</code> to display the
+   *          captured data of the data model again.
+   */
+  public void setPartialData( final AcquisitionResult aPartialData )
+  {
+    this.partialData = aPartialData;
+  }
+
   /**
    * Sets the selected channel index to the given value.
    *
@@ -1284,6 +1433,72 @@ public class SignalDiagramModel
     }
   }
 
+  /**
+   * Starts creating the level-of-detail summary of the current sample values
+   * in the background, cancelling any summary that is still being created.
+   */
+  private void createSignalSummary()
+  {
+    final SignalSummaryWorker oldWorker = this.signalSummaryWorker;
+    if ( oldWorker != null )
+    {
+      oldWorker.cancel( true /* mayInterruptIfRunning */);
+    }
+
+    this.signalSummary = null;
+
+    final AcquisitionResult capturedData = getCapturedData();
+    if ( capturedData == null )
+    {
+      return;
+    }
+
+    final Collection<ElementGroup> groups = getSignalElementManager().getGroups();
+    final int[] groupMasks = new int[groups.size()];
+    int i = 0;
+    for ( ElementGroup group : groups )
+    {
+      groupMasks[i++] = group.getMask();
+    }
+
+    this.signalSummaryWorker = new SignalSummaryWorker( capturedData, groupMasks );
+    this.signalSummaryWorker.execute();
+  }
+
+  /**
+   * Returns the index of the last sample whose timestamp is at or before the
+   * given timestamp.
+   *
+   * @return a sample index, or -1 if the given timestamp lies before the first
+   *         sample.
+   */
+  private int findSampleIndex( final SampleReader aReader, final long aTimestamp )
+  {
+    int low = 0;
+    int high = aReader.getSampleCount() - 1;
+
+    while ( low <= high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      final long midTimestamp = aReader.getTimestamp( mid );
+
+      if ( midTimestamp < aTimestamp )
+      {
+        low = mid + 1;
+      }
+      else if ( midTimestamp > aTimestamp )
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        return mid;
+      }
+    }
+
+    return high;
+  }
+
   /**
    * @param aOldCursor
    * @param aCursor
@@ -1303,12 +1518,4 @@ public class SignalDiagramModel
       }
     }
   }
-
-  /**
-   * {@inheritDoc}
-   */
-  private int getSampleCount()
-  {
-    return getValues().length;
-  }
 }
@@ -26,8 +26,10 @@ import java.awt.*;
 
 import javax.swing.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.SignalDiagramModel.*;
+import nl.lxtreme.ols.client.signaldisplay.util.*;
 import nl.lxtreme.ols.client.signaldisplay.view.*;
 
 
@@ -134,11 +136,14 @@ public class SignalViewModel extends AbstractViewModel
   }
 
   /**
-   * @return
+   * Returns the captured data to display.
+   *
+   * @return the captured data, can be <code>null</code>.
+   * @see SignalDiagramModel#getCapturedData()
    */
-  public int[] getDataValues()
+  public AcquisitionResult getCapturedData()
   {
-    return this.controller.getViewModel().getValues();
+    return this.controller.getViewModel().getCapturedData();
   }
 
   /**
@@ -208,22 +213,36 @@ public class SignalViewModel extends AbstractViewModel
   }
 
   /**
-   * @param aClip
-   * @return
+   * Returns the number of valid sample values and timestamps.
+   *
+   * @return a sample count, >= 0.
+   * @see SignalDiagramModel#getSampleCount()
    */
-  public int getStartIndex( final Rectangle aClip )
+  public int getSampleCount()
   {
-    final Point location = aClip.getLocation();
-    int index = locationToSampleIndex( location );
-    return Math.max( index - 1, 0 );
+    return this.controller.getViewModel().getSampleCount();
   }
 
   /**
+   * Returns the level-of-detail summary of the sample values.
+   *
+   * @return the signal summary, or <code>null</code> if no summary is
+   *         available (yet).
+   */
+  public SignalSummary getSignalSummary()
+  {
+    return this.controller.getViewModel().getSignalSummary();
+  }
+
+  /**
+   * @param aClip
    * @return
    */
-  public long[] getTimestamps()
+  public int getStartIndex( final Rectangle aClip )
   {
-    return this.controller.getViewModel().getTimestamps();
+    final Point location = aClip.getLocation();
+    int index = locationToSampleIndex( location );
+    return Math.max( index - 1, 0 );
   }
 
   /**
@@ -91,6 +91,8 @@ public class ElementGroup implements IUIElement
   private final List<SignalElement> elements;
 
   private int mask;
+  /** The compiled channel ordering of this group. */
+  private volatile ValueExtractor valueExtractor;
   /** The name of this group. */
   private String name;
   /** The label used for the group summary. */
@@ -126,6 +128,7 @@ public class ElementGroup implements IUIElement
     this.viewOptions = aElementGroup.viewOptions;
     this.yPosition = aElementGroup.yPosition;
     this.height = aElementGroup.height;
+    this.valueExtractor = ValueExtractor.EMPTY;
 
     this.elements = new ArrayList<SignalElement>();
 
@@ -173,6 +176,8 @@ public class ElementGroup implements IUIElement
       this.viewOptions |= ChannelElementType.GROUP_SUMMARY.mask;
     }
 
+    this.valueExtractor = ValueExtractor.EMPTY;
+
     this.elements = new ArrayList<SignalElement>();
   }
 
@@ -215,6 +220,8 @@ public class ElementGroup implements IUIElement
 
       // Update our local mask...
       this.mask |= aElement.getMask();
+
+      compileValueExtractor();
     }
   }
 
@@ -424,20 +431,28 @@ public class ElementGroup implements IUIElement
   }
 
   /**
-   * @return the masked sample value.
+   * Returns the value of this group for the given sample value, in which the
+   * first digital signal of this group denotes the least significant bit.
+   *
+   * @param aSampleValue
+   *          the sample value to return the group value for.
+   * @return the group value.
+   * @see #getValueExtractor()
    */
   public int getValue( final int aSampleValue )
   {
-    int value = 0;
-    for ( SignalElement el : this.elements )
-    {
-      if ( ( aSampleValue & el.getMask() ) != 0 )
-      {
-        value |= 0x01;
-      }
-      value <<= 1;
-    }
-    return value;
+    return this.valueExtractor.getValue( aSampleValue );
+  }
+
+  /**
+   * Returns the compiled channel ordering of this group, which is replaced
+   * each time the digital signals of this group are changed.
+   *
+   * @return the value extractor of this group, never <code>null</code>.
+   */
+  public ValueExtractor getValueExtractor()
+  {
+    return this.valueExtractor;
   }
 
   /**
@@ -782,6 +797,8 @@ public class ElementGroup implements IUIElement
 
       // Update our local mask...
       this.mask |= aElement.getMask();
+
+      compileValueExtractor();
     }
   }
 
@@ -808,6 +825,8 @@ public class ElementGroup implements IUIElement
 
         // Remove channel's mask from our local mask...
         this.mask &= ~aElement.getMask();
+
+        compileValueExtractor();
       }
     }
   }
@@ -823,6 +842,29 @@ public class ElementGroup implements IUIElement
     this.yPosition = aYPosition;
   }
 
+  /**
+   * Compiles the current order of the digital signals of this group into a
+   * new value extractor.
+   * <p>
+   * Should be called while holding the lock on the elements of this group.
+   * </p>
+   */
+  private void compileValueExtractor()
+  {
+    final int[] masks = new int[this.elements.size()];
+
+    int count = 0;
+    for ( SignalElement element : this.elements )
+    {
+      if ( element.isDigitalSignal() )
+      {
+        masks[count++] = element.getMask();
+      }
+    }
+
+    this.valueExtractor = new ValueExtractor( Arrays.copyOf( masks, count ) );
+  }
+
   /**
    * @return a key to access the color for this element group, never
    *         <code>null</code>.
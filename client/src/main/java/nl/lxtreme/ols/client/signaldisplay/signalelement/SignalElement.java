@@ -24,7 +24,6 @@ package nl.lxtreme.ols.client.signaldisplay.signalelement;
 import static nl.lxtreme.ols.client.signaldisplay.laf.UIManagerKeys.*;
 
 import java.awt.*;
-import java.util.List;
 
 import javax.swing.*;
 
@@ -419,15 +418,7 @@ public final class SignalElement implements Comparable<SignalElement>, IUIElemen
     }
     else if ( isAnalogSignal() || isGroupSummary() )
     {
-      List<SignalElement> elements = getGroup().getElements();
-      for ( int i = elements.size() - 1; i >= 0; i-- )
-      {
-        SignalElement el = elements.get( i );
-        if ( el.isDigitalSignal() )
-        {
-          value = ( value << 1 ) | el.getValue( aSampleValue );
-        }
-      }
+      value = getGroup().getValue( aSampleValue );
     }
 
     return value;
@@ -0,0 +1,222 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay.signalelement;
+
+
+import nl.lxtreme.ols.client.*;
+
+
+/**
+ * Provides the compiled channel ordering of an {@link ElementGroup}, which
+ * gathers the bits of its digital signals from a sample value into a single
+ * group value, and formats group values as labels.
+ * <p>
+ * The first digital signal of a group denotes the least significant bit of
+ * the group value. In case the channels of a group form a contiguous,
+ * ascending, range, the group value is obtained by a single shift and mask.
+ * Otherwise, it is obtained from a lookup table for each byte of the sample
+ * value.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class ValueExtractor
+{
+  // CONSTANTS
+
+  /** The extractor of a group without any digital signals. */
+  static final ValueExtractor EMPTY = new ValueExtractor( new int[0] );
+
+  /** The maximum number of bits for which the labels are cached. */
+  private static final int MAX_CACHED_BITS = 12;
+
+  // VARIABLES
+
+  private final int bitCount;
+  /** The shift of a contiguous range of channels, or -1 if not contiguous. */
+  private final int shift;
+  private final int mask;
+  /** The lookup table per byte of the sample value, or null if not needed. */
+  private final int[][] tables;
+  /** The lazily created labels per radix. */
+  private final String[][] labels;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link ValueExtractor} instance.
+   *
+   * @param aChannelMasks
+   *          the (single-bit) masks of the channels, in the order of the
+   *          digital signals of the group, cannot be <code>null</code>.
+   */
+  ValueExtractor( final int[] aChannelMasks )
+  {
+    this.bitCount = aChannelMasks.length;
+    this.mask = ( this.bitCount >= 32 ) ? -1 : ( ( 1 << this.bitCount ) - 1 );
+    this.labels = new String[Radix.values().length][];
+
+    if ( isContiguous( aChannelMasks ) )
+    {
+      this.shift = ( this.bitCount == 0 ) ? 0 : Integer.numberOfTrailingZeros( aChannelMasks[0] );
+      this.tables = null;
+    }
+    else
+    {
+      this.shift = -1;
+      this.tables = new int[4][];
+
+      for ( int i = 0; i < this.bitCount; i++ )
+      {
+        final int bit = Integer.numberOfTrailingZeros( aChannelMasks[i] );
+
+        int[] table = this.tables[bit >> 3];
+        if ( table == null )
+        {
+          table = this.tables[bit >> 3] = new int[256];
+        }
+
+        final int byteMask = 1 << ( bit & 7 );
+        for ( int byteValue = 0; byteValue < table.length; byteValue++ )
+        {
+          if ( ( byteValue & byteMask ) != 0 )
+          {
+            table[byteValue] |= ( 1 << i );
+          }
+        }
+      }
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Returns whether the given channel masks form a contiguous, ascending,
+   * range of bits.
+   */
+  private static boolean isContiguous( final int[] aChannelMasks )
+  {
+    for ( int i = 1; i < aChannelMasks.length; i++ )
+    {
+      if ( aChannelMasks[i] != ( aChannelMasks[i - 1] << 1 ) )
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of bits of the group values.
+   *
+   * @return the number of digital signals in the group, >= 0.
+   */
+  public int getBitCount()
+  {
+    return this.bitCount;
+  }
+
+  /**
+   * Returns the number of digits needed to show a group value in the given
+   * radix.
+   *
+   * @param aRadix
+   *          the radix to show the group value in, cannot be <code>null</code>.
+   * @return a digit count, >= 0.
+   */
+  public int getDigitCount( final Radix aRadix )
+  {
+    return ( int )Math.ceil( this.bitCount / aRadix.getWidth() );
+  }
+
+  /**
+   * Returns the label for the given group value in the given radix, padded
+   * with '0's up to {@link #getDigitCount(Radix)} digits.
+   * <p>
+   * For groups of at most {@value #MAX_CACHED_BITS} digital signals, the labels
+   * are created only once.
+   * </p>
+   *
+   * @param aValue
+   *          the group value, as returned by {@link #getValue(int)};
+   * @param aRadix
+   *          the radix to show the group value in, cannot be <code>null</code>.
+   * @return a label, never <code>null</code>.
+   */
+  public String getLabel( final int aValue, final Radix aRadix )
+  {
+    if ( ( this.bitCount > MAX_CACHED_BITS ) || ( aValue < 0 ) || ( aValue > this.mask ) )
+    {
+      return aRadix.toString( aValue, getDigitCount( aRadix ) );
+    }
+
+    // Racy, but harmless, as labels are immutable and recreated equally...
+    String[] cache = this.labels[aRadix.ordinal()];
+    if ( cache == null )
+    {
+      cache = this.labels[aRadix.ordinal()] = new String[this.mask + 1];
+    }
+
+    String result = cache[aValue];
+    if ( result == null )
+    {
+      result = cache[aValue] = aRadix.toString( aValue, getDigitCount( aRadix ) );
+    }
+    return result;
+  }
+
+  /**
+   * Gathers the group value from the given sample value.
+   *
+   * @param aSampleValue
+   *          the sample value to gather the group value from.
+   * @return the group value, >= 0 for groups of less than 32 digital signals.
+   */
+  public int getValue( final int aSampleValue )
+  {
+    if ( this.shift >= 0 )
+    {
+      return ( aSampleValue >>> this.shift ) & this.mask;
+    }
+
+    final int[][] t = this.tables;
+
+    int value = 0;
+    if ( t[0] != null )
+    {
+      value |= t[0][aSampleValue & 0xFF];
+    }
+    if ( t[1] != null )
+    {
+      value |= t[1][( aSampleValue >>> 8 ) & 0xFF];
+    }
+    if ( t[2] != null )
+    {
+      value |= t[2][( aSampleValue >>> 16 ) & 0xFF];
+    }
+    if ( t[3] != null )
+    {
+      value |= t[3][aSampleValue >>> 24];
+    }
+    return value;
+  }
+}
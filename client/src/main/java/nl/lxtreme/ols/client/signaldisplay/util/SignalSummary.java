@@ -0,0 +1,414 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay.util;
+
+
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides a level-of-detail summary of captured sample values, allowing the
+ * signal diagram to be rendered per screen pixel instead of per sample when
+ * zoomed out.
+ * <p>
+ * The summary is a pyramid of power-of-two sized buckets over the sample
+ * indexes. For each bucket it keeps the bits that toggle somewhere inside that
+ * bucket, for all channels at once. Ranges of sample indexes are answered by
+ * combining at most a logarithmic number of buckets, so a pixel column that
+ * covers millions of samples can still show every glitch in it.
+ * </p>
+ * <p>
+ * In addition, for the masks of channel groups, the minimum and maximum group
+ * value per bucket can be kept, which is used for rendering the group summary
+ * and analog signals.
+ * </p>
+ * <p>
+ * The sample values are read in chunks, both for creating the summary and for
+ * the few individual samples at the edges of a queried range, so the sample
+ * data itself does not need to be present on the heap.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class SignalSummary
+{
+  // INNER TYPES
+
+  /**
+   * Keeps the minimum and maximum values of a channel group per bucket.
+   */
+  static final class ValueRange
+  {
+    // VARIABLES
+
+    private final int mask;
+    private final int shift;
+    private final int[][] minimums;
+    private final int[][] maximums;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ValueRange instance.
+     */
+    ValueRange( final SampleReader aReader, final int aMask )
+    {
+      this.mask = aMask;
+      this.shift = Integer.numberOfTrailingZeros( aMask );
+
+      final int sampleCount = aReader.getSampleCount();
+      final int levelCount = getLevelCount( sampleCount );
+      this.minimums = new int[levelCount][];
+      this.maximums = new int[levelCount][];
+
+      for ( int level = 0; level < levelCount; level++ )
+      {
+        final int bucketCount = sampleCount >>> ( MIN_LEVEL + level );
+
+        final int[] mins = new int[bucketCount];
+        final int[] maxs = new int[bucketCount];
+
+        if ( level == 0 )
+        {
+          for ( int b = 0, i = 0; b < bucketCount; b++ )
+          {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for ( int j = 0; j < ( 1 << MIN_LEVEL ); j++, i++ )
+            {
+              final int value = getSortableValue( aReader.getValue( i ) );
+              min = Math.min( min, value );
+              max = Math.max( max, value );
+            }
+            mins[b] = min;
+            maxs[b] = max;
+          }
+        }
+        else
+        {
+          final int[] prevMins = this.minimums[level - 1];
+          final int[] prevMaxs = this.maximums[level - 1];
+          for ( int b = 0; b < bucketCount; b++ )
+          {
+            mins[b] = Math.min( prevMins[2 * b], prevMins[( 2 * b ) + 1] );
+            maxs[b] = Math.max( prevMaxs[2 * b], prevMaxs[( 2 * b ) + 1] );
+          }
+        }
+
+        this.minimums[level] = mins;
+        this.maximums[level] = maxs;
+      }
+    }
+
+    // METHODS
+
+    /**
+     * Returns the largest group value in the given range of sample indexes.
+     */
+    int getMaximum( final SampleReader aReader, final int aFromIdx, final int aToIdx )
+    {
+      int result = Integer.MIN_VALUE;
+      int i = aFromIdx;
+      while ( i < aToIdx )
+      {
+        final int level = getLevel( i, aToIdx, this.maximums.length );
+        if ( level < MIN_LEVEL )
+        {
+          result = Math.max( result, getSortableValue( aReader.getValue( i ) ) );
+          i++;
+        }
+        else
+        {
+          result = Math.max( result, this.maximums[level - MIN_LEVEL][i >>> level] );
+          i += ( 1 << level );
+        }
+      }
+      return result ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the smallest group value in the given range of sample indexes.
+     */
+    int getMinimum( final SampleReader aReader, final int aFromIdx, final int aToIdx )
+    {
+      int result = Integer.MAX_VALUE;
+      int i = aFromIdx;
+      while ( i < aToIdx )
+      {
+        final int level = getLevel( i, aToIdx, this.minimums.length );
+        if ( level < MIN_LEVEL )
+        {
+          result = Math.min( result, getSortableValue( aReader.getValue( i ) ) );
+          i++;
+        }
+        else
+        {
+          result = Math.min( result, this.minimums[level - MIN_LEVEL][i >>> level] );
+          i += ( 1 << level );
+        }
+      }
+      return result ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the group value of the given sample value, with its sign bit
+     * flipped so that it can be compared as signed integer.
+     */
+    private int getSortableValue( final int aValue )
+    {
+      return ( ( aValue & this.mask ) >>> this.shift ) ^ Integer.MIN_VALUE;
+    }
+  }
+
+  // CONSTANTS
+
+  /**
+   * The size of the smallest bucket, as power of two. Smaller ranges are
+   * directly obtained from the sample values, which keeps the memory needed for
+   * the summary down to one eighth of the sample values.
+   */
+  static final int MIN_LEVEL = 4;
+
+  // VARIABLES
+
+  private final AcquisitionResult data;
+  private final int[][] toggles;
+  private final ConcurrentMap<Integer, ValueRange> valueRanges;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SignalSummary instance.
+   *
+   * @param aData
+   *          the captured data to summarize the sample values of, cannot be
+   *          <code>null</code>.
+   */
+  public SignalSummary( final AcquisitionResult aData )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+
+    this.data = aData;
+    this.valueRanges = new ConcurrentHashMap<Integer, ValueRange>();
+
+    final SampleReader reader = new SampleReader( aData );
+    final int sampleCount = reader.getSampleCount();
+
+    final int levelCount = getLevelCount( sampleCount );
+    this.toggles = new int[levelCount][];
+
+    for ( int level = 0; level < levelCount; level++ )
+    {
+      final int bucketCount = sampleCount >>> ( MIN_LEVEL + level );
+
+      final int[] buckets = new int[bucketCount];
+      if ( level == 0 )
+      {
+        int prevValue = ( bucketCount > 0 ) ? reader.getValue( 0 ) : 0;
+        for ( int b = 0, i = 0; b < bucketCount; b++ )
+        {
+          int toggled = 0;
+          for ( int j = 0; j < ( 1 << MIN_LEVEL ); j++, i++ )
+          {
+            final int value = reader.getValue( i );
+            toggled |= ( value ^ prevValue );
+            prevValue = value;
+          }
+          buckets[b] = toggled;
+        }
+      }
+      else
+      {
+        final int[] prevBuckets = this.toggles[level - 1];
+        for ( int b = 0; b < bucketCount; b++ )
+        {
+          buckets[b] = prevBuckets[2 * b] | prevBuckets[( 2 * b ) + 1];
+        }
+      }
+
+      this.toggles[level] = buckets;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Returns the number of bucket levels for the given number of sample values.
+   */
+  static int getLevelCount( final int aLength )
+  {
+    return Math.max( 0, ( 31 - Integer.numberOfLeadingZeros( aLength ) ) - MIN_LEVEL + 1 );
+  }
+
+  /**
+   * Returns the level of the largest bucket that starts at the given index and
+   * fits in the given range, or a level smaller than {@link #MIN_LEVEL} if the
+   * sample value at the given index should be used directly.
+   */
+  static int getLevel( final int aIndex, final int aToIdx, final int aLevelCount )
+  {
+    final int alignment = Integer.numberOfTrailingZeros( aIndex );
+    final int fit = 31 - Integer.numberOfLeadingZeros( aToIdx - aIndex );
+    return Math.min( Math.min( alignment, fit ), ( MIN_LEVEL + aLevelCount ) - 1 );
+  }
+
+  /**
+   * Returns the largest value of the given channel group in the given range of
+   * sample indexes.
+   *
+   * @param aMask
+   *          the mask of the channel group;
+   * @param aFromIdx
+   *          the first sample index (inclusive);
+   * @param aToIdx
+   *          the last sample index (exclusive), > aFromIdx.
+   * @return the largest group value, that is, the masked sample value shifted
+   *         to the right by the number of trailing zeros of the mask.
+   */
+  public int getMaximumValue( final int aMask, final int aFromIdx, final int aToIdx )
+  {
+    return getValueRange( aMask ).getMaximum( createQueryReader(), aFromIdx, aToIdx );
+  }
+
+  /**
+   * Returns the smallest value of the given channel group in the given range of
+   * sample indexes.
+   *
+   * @param aMask
+   *          the mask of the channel group;
+   * @param aFromIdx
+   *          the first sample index (inclusive);
+   * @param aToIdx
+   *          the last sample index (exclusive), > aFromIdx.
+   * @return the smallest group value, that is, the masked sample value shifted
+   *         to the right by the number of trailing zeros of the mask.
+   */
+  public int getMinimumValue( final int aMask, final int aFromIdx, final int aToIdx )
+  {
+    return getValueRange( aMask ).getMinimum( createQueryReader(), aFromIdx, aToIdx );
+  }
+
+  /**
+   * Returns the bits that toggle in the given range of sample indexes, that
+   * is, the bits for which at least one sample value in the given range differs
+   * from its preceding sample value.
+   *
+   * @param aFromIdx
+   *          the first sample index (inclusive);
+   * @param aToIdx
+   *          the last sample index (exclusive).
+   * @return the toggled bits, or 0 if no bits toggle in the given range.
+   */
+  public int getToggledBits( final int aFromIdx, final int aToIdx )
+  {
+    final SampleReader reader = createQueryReader();
+
+    int result = 0;
+    int i = aFromIdx;
+    while ( i < aToIdx )
+    {
+      final int level = getLevel( i, aToIdx, this.toggles.length );
+      if ( level < MIN_LEVEL )
+      {
+        result |= getToggledBits( reader, i );
+        i++;
+      }
+      else
+      {
+        result |= this.toggles[level - MIN_LEVEL][i >>> level];
+        i += ( 1 << level );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether this summary is created for the given captured data.
+   *
+   * @param aData
+   *          the captured data to test, may be <code>null</code>.
+   * @return <code>true</code> if this summary summarizes the given captured
+   *         data, <code>false</code> otherwise.
+   */
+  public boolean isSummaryFor( final AcquisitionResult aData )
+  {
+    return this.data == aData;
+  }
+
+  /**
+   * Prepares the minimum and maximum values for the given channel group, which
+   * would otherwise be done upon their first use.
+   *
+   * @param aMask
+   *          the mask of the channel group.
+   */
+  public void prepareValueRange( final int aMask )
+  {
+    getValueRange( aMask );
+  }
+
+  /**
+   * @return the bits that differ between the sample value at the given index
+   *         and its preceding sample value.
+   */
+  private static int getToggledBits( final SampleReader aReader, final int aIndex )
+  {
+    return ( aIndex == 0 ) ? 0 : ( aReader.getValue( aIndex ) ^ aReader.getValue( aIndex - 1 ) );
+  }
+
+  /**
+   * @return a reader for the individual samples that are not covered by a
+   *         bucket, which are at most a few per query.
+   */
+  private SampleReader createQueryReader()
+  {
+    return new SampleReader( this.data, 1 << MIN_LEVEL );
+  }
+
+  /**
+   * @return the (possibly new) value range for the given mask, never
+   *         <code>null</code>.
+   */
+  private ValueRange getValueRange( final int aMask )
+  {
+    final Integer key = Integer.valueOf( aMask );
+
+    ValueRange result = this.valueRanges.get( key );
+    if ( result == null )
+    {
+      result = new ValueRange( new SampleReader( this.data ), aMask );
+
+      final ValueRange existing = this.valueRanges.putIfAbsent( key, result );
+      if ( existing != null )
+      {
+        result = existing;
+      }
+    }
+    return result;
+  }
+}
@@ -250,8 +250,7 @@ ICursorChangeListener, IMeasurementListener
 
       final boolean hasTimingData = this.result.hasTimingData();
 
-      final int[] values = this.result.getValues();
-      final long[] timestamps = this.result.getTimestamps();
+      final SampleReader reader = new SampleReader( this.result );
 
       int fallingEdgeCount = 0;
       long highTime = 0;
@@ -259,18 +258,18 @@ ICursorChangeListener, IMeasurementListener
       long lowTime = 0;
 
       int i = startIdx;
-      long lastTransition = timestamps[i];
-      int lastBitValue = values[i++] & this.mask;
+      long lastTransition = reader.getTimestamp( i );
+      int lastBitValue = reader.getValue( i++ ) & this.mask;
 
       for ( ; !Thread.currentThread().isInterrupted() && ( i <= endIdx ); i++ )
       {
-        final int bitValue = values[i] & this.mask;
+        final int bitValue = reader.getValue( i ) & this.mask;
         final Edge edge = Edge.toEdge( lastBitValue, bitValue );
 
         if ( !edge.isNone() )
         {
-          final long periodTime = timestamps[i] - lastTransition;
-          lastTransition = timestamps[i];
+          final long periodTime = reader.getTimestamp( i ) - lastTransition;
+          lastTransition = reader.getTimestamp( i );
 
           if ( edge.isRising() )
           {
@@ -342,7 +341,7 @@ ICursorChangeListener, IMeasurementListener
       long start = this.startTimestamp;
       if ( start < 0L )
       {
-        start = model.getTimestamps()[0];
+        start = model.createSampleReader().getTimestamp( 0 );
       }
       long end = this.endTimestamp;
       if ( end < 0L )
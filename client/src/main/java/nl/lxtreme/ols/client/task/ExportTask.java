@@ -0,0 +1,129 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.task;
+
+
+import java.io.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.task.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a task that exports a data set to a file using an {@link Exporter}.
+ * <p>
+ * As exporters do not report their progress themselves, only the start and
+ * the end of the export are reported. A failed or cancelled export removes the
+ * partially written file.
+ * </p>
+ * <p>
+ * The given component is the live view, so exporters that paint it should do
+ * so on the event dispatch thread, leaving only the writing of the file to
+ * this task.
+ * </p>
+ */
+public class ExportTask implements Task<File>
+{
+  // VARIABLES
+
+  private final Exporter exporter;
+  private final DataSet dataSet;
+  private final JComponent component;
+  private final File file;
+  private final TaskProgressListener progressListener;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ExportTask instance.
+   * 
+   * @param aExporter
+   *          the exporter to use, cannot be <code>null</code>;
+   * @param aDataSet
+   *          the (snapshot of the) data set to export, cannot be
+   *          <code>null</code>;
+   * @param aComponent
+   *          the component to export, cannot be <code>null</code>;
+   * @param aFile
+   *          the file to export to, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   */
+  public ExportTask( final Exporter aExporter, final DataSet aDataSet, final JComponent aComponent,
+      final File aFile, final TaskProgressListener aProgressListener )
+  {
+    this.exporter = aExporter;
+    this.dataSet = aDataSet;
+    this.component = aComponent;
+    this.file = aFile;
+    this.progressListener = aProgressListener;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public File call() throws IOException
+  {
+    final ProgressReporter reporter = ProgressReporter.create( this.progressListener, 0L, 1L );
+
+    OutputStream out = null;
+    boolean success = false;
+    try
+    {
+      out = new InterruptibleOutputStream( new FileOutputStream( this.file ) );
+
+      this.exporter.export( this.dataSet, this.component, out );
+
+      success = true;
+      reporter.setPosition( 1L );
+
+      return this.file;
+    }
+    finally
+    {
+      HostUtils.closeResource( out );
+
+      if ( !success )
+      {
+        this.file.delete();
+      }
+
+      reporter.close();
+    }
+  }
+
+  /**
+   * Returns the name of the exporter used.
+   * 
+   * @return the exporter name, never <code>null</code>.
+   */
+  public String getExporterName()
+  {
+    return this.exporter.getName();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.task;
+
+
+import java.io.*;
+
+
+/**
+ * Provides an output stream that can be cancelled by interrupting the thread
+ * that writes to it, even if the underlying stream itself is not
+ * interruptible, such as a {@link FileOutputStream}.
+ */
+final class InterruptibleOutputStream extends FilterOutputStream
+{
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new InterruptibleOutputStream instance.
+   * 
+   * @param aOutputStream
+   *          the output stream to write to, cannot be <code>null</code>.
+   */
+  public InterruptibleOutputStream( final OutputStream aOutputStream )
+  {
+    super( aOutputStream );
+  }
+
+  // METHODS
+
+  /**
+   * Throws an {@link InterruptedIOException} in case the current thread is
+   * interrupted.
+   * 
+   * @throws InterruptedIOException
+   *           in case the current thread is interrupted.
+   */
+  static void checkInterrupted() throws InterruptedIOException
+  {
+    if ( Thread.currentThread().isInterrupted() )
+    {
+      throw new InterruptedIOException( "Task cancelled!" );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    checkInterrupted();
+
+    this.out.write( aBuffer, aOffset, aLength );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final int aByte ) throws IOException
+  {
+    checkInterrupted();
+
+    this.out.write( aByte );
+  }
+}
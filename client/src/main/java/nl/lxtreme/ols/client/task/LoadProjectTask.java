@@ -0,0 +1,90 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.task;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.task.*;
+
+
+/**
+ * Provides a task that loads a project from a file, replacing the current
+ * project of a project manager.
+ * <p>
+ * The project is shown as soon as its metadata, channel labels and settings
+ * are read. The progress of this task is that of reading the capture results
+ * thereafter, see {@link ProjectManager#loadProject(File, TaskProgressListener)}.
+ * </p>
+ */
+public class LoadProjectTask implements Task<Project>
+{
+  // VARIABLES
+
+  private final ProjectManager projectManager;
+  private final File file;
+  private final TaskProgressListener progressListener;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LoadProjectTask instance.
+   * 
+   * @param aProjectManager
+   *          the project manager to load the project with, cannot be
+   *          <code>null</code>;
+   * @param aFile
+   *          the file to load the project from, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   */
+  public LoadProjectTask( final ProjectManager aProjectManager, final File aFile,
+      final TaskProgressListener aProgressListener )
+  {
+    this.projectManager = aProjectManager;
+    this.file = aFile;
+    this.progressListener = aProgressListener;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Project call() throws IOException
+  {
+    this.projectManager.loadProject( this.file, this.progressListener );
+
+    return this.projectManager.getCurrentProject();
+  }
+
+  /**
+   * Returns the file the project is loaded from.
+   * 
+   * @return the file, never <code>null</code>.
+   */
+  public File getFile()
+  {
+    return this.file;
+  }
+}
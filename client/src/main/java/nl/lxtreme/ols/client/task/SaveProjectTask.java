@@ -0,0 +1,179 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.task;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.task.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a task that saves a snapshot of a project to a file.
+ * <p>
+ * The project is first written to a temporary file, which replaces the given
+ * file only after it is completely written. Hence, a failed or cancelled save
+ * leaves an existing project file as is. The existing file is kept as backup
+ * until the temporary file is renamed, and is restored in case that fails.
+ * </p>
+ */
+public class SaveProjectTask implements Task<Project>
+{
+  // VARIABLES
+
+  private final ProjectManager projectManager;
+  private final Project snapshot;
+  private final File file;
+  private final TaskProgressListener progressListener;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SaveProjectTask instance.
+   * 
+   * @param aProjectManager
+   *          the project manager to save the project with, cannot be
+   *          <code>null</code>;
+   * @param aSnapshot
+   *          the snapshot of the project to save, cannot be <code>null</code>;
+   * @param aFile
+   *          the file to save the project to, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the listener to report the progress to, can be <code>null</code>.
+   */
+  public SaveProjectTask( final ProjectManager aProjectManager, final Project aSnapshot, final File aFile,
+      final TaskProgressListener aProgressListener )
+  {
+    this.projectManager = aProjectManager;
+    this.snapshot = aSnapshot;
+    this.file = aFile;
+    this.progressListener = aProgressListener;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Project call() throws IOException
+  {
+    final File dir = this.file.getAbsoluteFile().getParentFile();
+    final File tempFile = File.createTempFile( "ols", ".tmp", dir );
+    File backupFile = null;
+    boolean keepTempFile = false;
+
+    OutputStream out = null;
+    try
+    {
+      out = new InterruptibleOutputStream( new FileOutputStream( tempFile ) );
+
+      this.projectManager.saveProject( this.snapshot, out, this.progressListener );
+
+      HostUtils.closeResource( out );
+      out = null;
+
+      // Not all platforms are able to rename onto an existing file, so move
+      // the existing file out of the way, but keep it until we're done...
+      if ( this.file.exists() )
+      {
+        backupFile = File.createTempFile( "ols", ".bak", dir );
+        if ( !backupFile.delete() || !rename( this.file, backupFile ) )
+        {
+          backupFile.delete();
+          backupFile = null;
+
+          throw new IOException( "Failed to replace " + this.file + "!" );
+        }
+      }
+
+      if ( !rename( tempFile, this.file ) )
+      {
+        if ( ( backupFile == null ) || rename( backupFile, this.file ) )
+        {
+          backupFile = null;
+
+          throw new IOException( "Failed to rename " + tempFile + " to " + this.file + "!" );
+        }
+
+        // Neither the new nor the existing project is in place; keep both...
+        keepTempFile = true;
+        final File oldFile = backupFile;
+        backupFile = null;
+
+        throw new IOException( "Failed to rename " + tempFile + " to " + this.file + "! The project is saved in "
+            + tempFile + ", the previous project is kept in " + oldFile + "." );
+      }
+
+      return this.snapshot;
+    }
+    finally
+    {
+      HostUtils.closeResource( out );
+
+      if ( !keepTempFile && tempFile.exists() )
+      {
+        tempFile.delete();
+      }
+      if ( backupFile != null )
+      {
+        backupFile.delete();
+      }
+    }
+  }
+
+  /**
+   * Returns the file the project is saved to.
+   * 
+   * @return the file, never <code>null</code>.
+   */
+  public File getFile()
+  {
+    return this.file;
+  }
+
+  /**
+   * Returns the snapshot of the project that is saved.
+   * 
+   * @return the project snapshot, never <code>null</code>.
+   */
+  public Project getSnapshot()
+  {
+    return this.snapshot;
+  }
+
+  /**
+   * Renames the given source file to the given target file.
+   * 
+   * @param aSource
+   *          the file to rename;
+   * @param aTarget
+   *          the new name of the file, should not exist.
+   * @return <code>true</code> if the file is renamed, <code>false</code>
+   *         otherwise.
+   */
+  protected boolean rename( final File aSource, final File aTarget )
+  {
+    return aSource.renameTo( aTarget );
+  }
+}
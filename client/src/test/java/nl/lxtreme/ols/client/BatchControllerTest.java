@@ -0,0 +1,142 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link BatchController}.
+ */
+public class BatchControllerTest
+{
+  // INNER TYPES
+
+  public static enum Mode
+  {
+    FIRST, SECOND;
+  }
+
+  public static final class Settings
+  {
+    int csIndex;
+    long length;
+    boolean honourCS;
+    String label;
+    Mode mode;
+
+    public void setCSIndex( final int aIndex )
+    {
+      this.csIndex = aIndex;
+    }
+
+    public void setHonourCS( final boolean aHonourCS )
+    {
+      this.honourCS = aHonourCS;
+    }
+
+    public void setLabel( final String aLabel )
+    {
+      this.label = aLabel;
+    }
+
+    public void setLength( final long aLength )
+    {
+      this.length = aLength;
+    }
+
+    public void setMode( final Mode aMode )
+    {
+      this.mode = aMode;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that settings are set on write-only bean properties, regardless of
+   * the case of their names.
+   */
+  @Test
+  public void testApplySettingsOk() throws Exception
+  {
+    final Map<String, String> settings = new LinkedHashMap<String, String>();
+    settings.put( "csIndex", "0x3" );
+    settings.put( "honourCS", "true" );
+    settings.put( "label", "a b" );
+    settings.put( "LENGTH", "4711" );
+    settings.put( "mode", "second" );
+
+    final Settings bean = new Settings();
+    BatchController.applySettings( bean, settings );
+
+    assertEquals( 3, bean.csIndex );
+    assertTrue( bean.honourCS );
+    assertEquals( "a b", bean.label );
+    assertEquals( 4711L, bean.length );
+    assertEquals( Mode.SECOND, bean.mode );
+  }
+
+  /**
+   * Tests that unknown settings are refused.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testApplyUnknownSettingFail() throws Exception
+  {
+    BatchController.applySettings( new Settings(), Collections.singletonMap( "foo", "bar" ) );
+  }
+
+  /**
+   * Tests that unknown enum values are refused.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testApplyUnknownEnumValueFail() throws Exception
+  {
+    BatchController.applySettings( new Settings(), Collections.singletonMap( "mode", "third" ) );
+  }
+
+  /**
+   * Tests that a line is split on whitespace, except for quoted parts.
+   */
+  @Test
+  public void testTokenizeOk()
+  {
+    final String line = "acquire  \"Generic I/O\" dataFormat=\"Value change dump (VCD)\"\tdevicePath=a.vcd ";
+    assertEquals( Arrays.asList( "acquire", "Generic I/O", "dataFormat=Value change dump (VCD)", "devicePath=a.vcd" ),
+        BatchController.tokenize( line ) );
+    assertEquals( Arrays.asList( "save", "" ), BatchController.tokenize( "save \"\"" ) );
+    assertEquals( Collections.emptyList(), BatchController.tokenize( "   " ) );
+  }
+
+  /**
+   * Tests that an unterminated quote is refused.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testTokenizeUnterminatedQuoteFail()
+  {
+    BatchController.tokenize( "tool \"SPI analyser" );
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay.signalelement;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.client.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ValueExtractor}.
+ */
+public class ValueExtractorTest
+{
+  // METHODS
+
+  /**
+   * Tests that the labels are padded to the number of digits of the group.
+   */
+  @Test
+  public void testLabels()
+  {
+    final ValueExtractor extractor = new ValueExtractor( new int[] { 0x01, 0x02, 0x04, 0x08, 0x10 } );
+
+    assertEquals( "1A", extractor.getLabel( 0x1A, Radix.HEX ) );
+    assertEquals( "05", extractor.getLabel( 0x05, Radix.HEX ) );
+    assertEquals( "26", extractor.getLabel( 26, Radix.DEC ) );
+    assertEquals( "07", extractor.getLabel( 7, Radix.DEC ) );
+    assertEquals( "00101", extractor.getLabel( 0x05, Radix.BIN ) );
+    // Cached labels are reused...
+    assertSame( extractor.getLabel( 0x05, Radix.HEX ), extractor.getLabel( 0x05, Radix.HEX ) );
+  }
+
+  /**
+   * Tests that the group values of arbitrary channel orderings match those of
+   * gathering the bits one by one.
+   */
+  @Test
+  public void testValuesMatchBitByBit()
+  {
+    final Random rnd = new Random( 4711L );
+
+    final List<Integer> bits = new ArrayList<Integer>();
+    for ( int i = 0; i < 32; i++ )
+    {
+      bits.add( Integer.valueOf( i ) );
+    }
+
+    for ( int n = 0; n < 100; n++ )
+    {
+      final int[] masks;
+      if ( ( n % 2 ) == 0 )
+      {
+        // Contiguous range of channels...
+        final int start = rnd.nextInt( 32 );
+        masks = new int[rnd.nextInt( 33 - start )];
+        for ( int i = 0; i < masks.length; i++ )
+        {
+          masks[i] = 1 << ( start + i );
+        }
+      }
+      else
+      {
+        // Arbitrary ordering of channels...
+        Collections.shuffle( bits, rnd );
+        masks = new int[1 + rnd.nextInt( 32 )];
+        for ( int i = 0; i < masks.length; i++ )
+        {
+          masks[i] = 1 << bits.get( i ).intValue();
+        }
+      }
+
+      final ValueExtractor extractor = new ValueExtractor( masks );
+      assertEquals( masks.length, extractor.getBitCount() );
+
+      for ( int i = 0; i < 1000; i++ )
+      {
+        final int sampleValue = rnd.nextInt();
+
+        int expected = 0;
+        for ( int j = masks.length - 1; j >= 0; j-- )
+        {
+          expected = ( expected << 1 ) | ( ( ( sampleValue & masks[j] ) != 0 ) ? 1 : 0 );
+        }
+
+        assertEquals( expected, extractor.getValue( sampleValue ) );
+      }
+    }
+  }
+}
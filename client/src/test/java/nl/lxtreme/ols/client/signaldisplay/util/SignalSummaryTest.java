@@ -0,0 +1,159 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay.util;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link SignalSummary}.
+ */
+public class SignalSummaryTest
+{
+  // METHODS
+
+  /**
+   * Tests that the minimum and maximum group values of arbitrary ranges match
+   * those of a brute-force scan, also for masks including the sign bit.
+   */
+  @Test
+  public void testValueRangesMatchBruteForce()
+  {
+    final Random rnd = new Random( 4711L );
+    final int[] values = createValues( rnd, 1237 );
+
+    final int[] masks = { 0x000000FF, 0x0000FF00, 0x00F0F000, 0xFF000000, 0xFFFFFFFF };
+    final SignalSummary summary = new SignalSummary( createData( values ) );
+
+    for ( int mask : masks )
+    {
+      final long lmask = mask & 0xFFFFFFFFL;
+      final int shift = Long.numberOfTrailingZeros( lmask );
+
+      for ( int n = 0; n < 500; n++ )
+      {
+        final int from = rnd.nextInt( values.length );
+        final int to = from + 1 + rnd.nextInt( values.length - from );
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for ( int i = from; i < to; i++ )
+        {
+          final long value = ( values[i] & lmask ) >> shift;
+          min = Math.min( min, value );
+          max = Math.max( max, value );
+        }
+
+        assertEquals( min, summary.getMinimumValue( mask, from, to ) & 0xFFFFFFFFL );
+        assertEquals( max, summary.getMaximumValue( mask, from, to ) & 0xFFFFFFFFL );
+      }
+    }
+  }
+
+  /**
+   * Tests that the toggled bits of arbitrary ranges match those of a
+   * brute-force scan.
+   */
+  @Test
+  public void testToggledBitsMatchBruteForce()
+  {
+    final Random rnd = new Random( 1234L );
+    final int[] values = createValues( rnd, 5003 );
+
+    final SignalSummary summary = new SignalSummary( createData( values ) );
+
+    for ( int n = 0; n < 2000; n++ )
+    {
+      final int from = rnd.nextInt( values.length );
+      final int to = from + rnd.nextInt( values.length - from + 1 );
+
+      int expected = 0;
+      for ( int i = Math.max( 1, from ); i < to; i++ )
+      {
+        expected |= values[i] ^ values[i - 1];
+      }
+
+      assertEquals( expected, summary.getToggledBits( from, to ) );
+    }
+  }
+
+  /**
+   * Tests that a single glitch in a large range of samples is not lost.
+   */
+  @Test
+  public void testSingleGlitchIsRetained()
+  {
+    final int[] values = new int[1 << 20];
+    values[123457] = 0x04;
+
+    final AcquisitionResult data = createData( values );
+    final SignalSummary summary = new SignalSummary( data );
+
+    assertEquals( 0x04, summary.getToggledBits( 0, values.length ) );
+    assertEquals( 0x04, summary.getToggledBits( 123457, 123458 ) );
+    assertEquals( 0x04, summary.getToggledBits( 123458, values.length ) );
+    assertEquals( 0, summary.getToggledBits( 123459, values.length ) );
+    assertEquals( 0, summary.getToggledBits( 0, 123457 ) );
+    assertTrue( summary.isSummaryFor( data ) );
+    assertFalse( summary.isSummaryFor( createData( values ) ) );
+  }
+
+  /**
+   * Creates captured data for the given sample values, one per time unit.
+   */
+  private static AcquisitionResult createData( final int[] aValues )
+  {
+    final long[] timestamps = new long[aValues.length];
+    for ( int i = 0; i < timestamps.length; i++ )
+    {
+      timestamps[i] = i;
+    }
+    return new PartialCapturedData( aValues, timestamps, aValues.length, Ols.NOT_AVAILABLE, Ols.NOT_AVAILABLE,
+        Ols.MAX_CHANNELS, 0xFFFFFFFF, aValues.length );
+  }
+
+  /**
+   * Creates random sample values with runs of equal values.
+   */
+  private static int[] createValues( final Random aRandom, final int aCount )
+  {
+    final int[] result = new int[aCount];
+    int value = 0;
+    for ( int i = 0; i < aCount; i++ )
+    {
+      if ( aRandom.nextInt( 4 ) == 0 )
+      {
+        value = aRandom.nextInt();
+      }
+      result[i] = value;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.task;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.task.*;
+
+import org.junit.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+
+
+/**
+ * Test cases for {@link SaveProjectTask}.
+ */
+public class SaveProjectTaskTest
+{
+  // VARIABLES
+
+  private File file;
+  private ProjectManager projectManager;
+  private Project snapshot;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.file = File.createTempFile( "project", ".olp" );
+    writeFile( this.file, "old" );
+
+    this.snapshot = mock( Project.class );
+    this.projectManager = mock( ProjectManager.class );
+    doAnswer( new Answer<Void>()
+    {
+      @Override
+      public Void answer( final InvocationOnMock aInvocation ) throws Throwable
+      {
+        final OutputStream out = ( OutputStream )aInvocation.getArguments()[1];
+        out.write( "new".getBytes( "ASCII" ) );
+        return null;
+      }
+    } ).when( this.projectManager ).saveProject( any( Project.class ), any( OutputStream.class ),
+        any( TaskProgressListener.class ) );
+  }
+
+  /**
+   * Tear down for each test case.
+   */
+  @After
+  public void tearDown()
+  {
+    this.file.delete();
+  }
+
+  /**
+   * Tests that a cancelled save leaves the existing project file as is.
+   */
+  @Test
+  public void testCancelledSaveKeepsExistingFile() throws Exception
+  {
+    final SaveProjectTask task = new SaveProjectTask( this.projectManager, this.snapshot, this.file, null );
+
+    Thread.currentThread().interrupt();
+    try
+    {
+      task.call();
+      fail( "Expected InterruptedIOException!" );
+    }
+    catch ( InterruptedIOException exception )
+    {
+      // Ok; expected...
+    }
+    finally
+    {
+      // Clear the interrupted flag...
+      Thread.interrupted();
+    }
+
+    assertEquals( "old", readFile( this.file ) );
+  }
+
+  /**
+   * Tests that the existing project file is restored in case the saved project
+   * cannot be put in its place.
+   */
+  @Test
+  public void testFailedRenameRestoresExistingFile() throws Exception
+  {
+    final SaveProjectTask task = new SaveProjectTask( this.projectManager, this.snapshot, this.file, null )
+    {
+      @Override
+      protected boolean rename( final File aSource, final File aTarget )
+      {
+        // Only fail to rename the saved project...
+        return !aSource.getName().endsWith( ".tmp" ) && super.rename( aSource, aTarget );
+      }
+    };
+
+    try
+    {
+      task.call();
+      fail( "Expected IOException!" );
+    }
+    catch ( IOException exception )
+    {
+      // Ok; expected...
+    }
+
+    assertEquals( "old", readFile( this.file ) );
+  }
+
+  /**
+   * Tests that the saved project is kept in case neither it nor the existing
+   * project file can be put in place.
+   */
+  @Test
+  public void testFailedRestoreKeepsSavedProject() throws Exception
+  {
+    final File[] files = new File[2];
+    final SaveProjectTask task = new SaveProjectTask( this.projectManager, this.snapshot, this.file, null )
+    {
+      @Override
+      protected boolean rename( final File aSource, final File aTarget )
+      {
+        if ( aSource.getName().endsWith( ".tmp" ) )
+        {
+          files[0] = aSource;
+          return false;
+        }
+        if ( aSource.getName().endsWith( ".bak" ) )
+        {
+          files[1] = aSource;
+          return false;
+        }
+        return super.rename( aSource, aTarget );
+      }
+    };
+
+    try
+    {
+      task.call();
+      fail( "Expected IOException!" );
+    }
+    catch ( IOException exception )
+    {
+      assertTrue( exception.getMessage().contains( files[0].getPath() ) );
+      assertTrue( exception.getMessage().contains( files[1].getPath() ) );
+    }
+    finally
+    {
+      for ( File file : files )
+      {
+        if ( file != null )
+        {
+          file.deleteOnExit();
+        }
+      }
+    }
+
+    assertFalse( this.file.exists() );
+    assertEquals( "new", readFile( files[0] ) );
+    assertEquals( "old", readFile( files[1] ) );
+  }
+
+  /**
+   * Tests that a save replaces the existing project file.
+   */
+  @Test
+  public void testSaveReplacesExistingFile() throws Exception
+  {
+    final SaveProjectTask task = new SaveProjectTask( this.projectManager, this.snapshot, this.file, null );
+
+    assertSame( this.snapshot, task.call() );
+    assertEquals( "new", readFile( this.file ) );
+
+    verify( this.projectManager ).saveProject( same( this.snapshot ), any( OutputStream.class ),
+        any( TaskProgressListener.class ) );
+  }
+
+  /**
+   * Reads the contents of the given file as string.
+   */
+  private String readFile( final File aFile ) throws IOException
+  {
+    final BufferedReader reader = new BufferedReader( new FileReader( aFile ) );
+    try
+    {
+      return reader.readLine();
+    }
+    finally
+    {
+      reader.close();
+    }
+  }
+
+  /**
+   * Writes the given string as contents of the given file.
+   */
+  private void writeFile( final File aFile, final String aContents ) throws IOException
+  {
+    final FileWriter writer = new FileWriter( aFile );
+    try
+    {
+      writer.write( aContents );
+    }
+    finally
+    {
+      writer.close();
+    }
+  }
+}
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.device.generic;
 import java.awt.*;
 import java.io.*;
 
+import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.devices.*;
 
@@ -32,7 +33,7 @@ import nl.lxtreme.ols.api.devices.*;
  * Provides a device that can read from any file-based source and use this as
  * capture device.
  */
-public class GenericDevice implements Device
+public class GenericDevice implements HeadlessDevice
 {
   // CONSTANTS
 
@@ -40,7 +41,8 @@ public class GenericDevice implements Device
 
   // VARIABLES
 
-  private GenericDeviceConfigDialog deviceConfig = null;
+  private GenericDeviceConfigDialog configDialog = null;
+  private GenericDeviceConfig deviceConfig = null;
   private boolean setup = false;
 
   // METHODS
@@ -66,6 +68,10 @@ public class GenericDevice implements Device
     {
       return new RawDataAcquisitionTask( this.deviceConfig, aProgressListener );
     }
+    else if ( GenericDeviceConfigDialog.DATA_FORMATS[2].equals( dataFormat ) )
+    {
+      return new VcdDataAcquisitionTask( this.deviceConfig, aProgressListener );
+    }
 
     return new OlsDataAcquisitionTask( this.deviceConfig, aProgressListener );
   }
@@ -98,6 +104,18 @@ public class GenericDevice implements Device
     return this.setup;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.devices.HeadlessDevice#setupCapture(nl.lxtreme.ols.api.UserSettings)
+   */
+  @Override
+  public boolean setupCapture( final UserSettings aSettings )
+  {
+    final GenericDeviceSettings settings = new GenericDeviceSettings( aSettings );
+    this.deviceConfig = settings;
+
+    return ( this.setup = settings.isValid() );
+  }
+
   /**
    * @see nl.lxtreme.ols.api.devices.Device#setupCapture(java.awt.Window)
    */
@@ -105,17 +123,18 @@ public class GenericDevice implements Device
   public boolean setupCapture( final Window aParent )
   {
     // check if dialog exists with different owner and dispose if so
-    if ( ( this.deviceConfig != null ) && ( this.deviceConfig.getOwner() != aParent ) )
+    if ( ( this.configDialog != null ) && ( this.configDialog.getOwner() != aParent ) )
     {
-      this.deviceConfig.dispose();
-      this.deviceConfig = null;
+      this.configDialog.dispose();
+      this.configDialog = null;
     }
     // if no valid dialog exists, create one
-    if ( this.deviceConfig == null )
+    if ( this.configDialog == null )
     {
-      this.deviceConfig = new GenericDeviceConfigDialog( aParent );
+      this.configDialog = new GenericDeviceConfigDialog( aParent );
     }
+    this.deviceConfig = this.configDialog;
 
-    return ( this.setup = this.deviceConfig.showDialog() );
+    return ( this.setup = this.configDialog.showDialog() );
   }
 }
@@ -0,0 +1,84 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+/**
+ * Provides the configuration of the generic device, regardless whether it is
+ * entered by the user or given as settings.
+ */
+public interface GenericDeviceConfig
+{
+  // METHODS
+
+  /**
+   * Returns the number of channels in each sample.
+   *
+   * @return the channel count, >= 0.
+   */
+  int getChannelCount();
+
+  /**
+   * @return the selected data format, as string value.
+   */
+  String getDataFormat();
+
+  /**
+   * Returns the path to the device, like <tt>/dev/ttyS0</tt> or similar.
+   *
+   * @return the device path, never <code>null</code>.
+   */
+  String getDevicePath();
+
+  /**
+   * @return the bitmask of the enabled channels.
+   */
+  int getEnabledChannelsMask();
+
+  /**
+   * Returns the number of samples to take.
+   *
+   * @return the sample depth, >= 0.
+   */
+  int getSampleDepth();
+
+  /**
+   * Returns the sample rate of the generic device.
+   *
+   * @return the sample rate in Hertz (Hz), or -1 if not available.
+   */
+  int getSampleRate();
+
+  /**
+   * Returns the width (in bytes) of each sample.
+   *
+   * @return the sample width, in bytes, >= 0.
+   */
+  int getSampleWidth();
+
+  /**
+   * Returns whether or not the data contains timing information.
+   *
+   * @return <code>true</code> if timing data is present, <code>false</code>
+   *         otherwise.
+   */
+  boolean isTimingDataPresent();
+}
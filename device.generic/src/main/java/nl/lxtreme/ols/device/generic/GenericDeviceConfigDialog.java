@@ -39,13 +39,14 @@ import static nl.lxtreme.ols.util.swing.SwingComponentUtils.createRightAlignedLa
 
 
 /**
- * Configuration dialog for supporting capturing raw or OLS capture file data.
+ * Configuration dialog for supporting capturing raw, OLS capture file or value
+ * change dump data.
  */
-public class GenericDeviceConfigDialog extends JDialog implements Configurable, Closeable
+public class GenericDeviceConfigDialog extends JDialog implements GenericDeviceConfig, Configurable, Closeable
 {
   // CONSTANTS
 
-  public static final String[] DATA_FORMATS = { "Raw", "OLS data format" };
+  public static final String[] DATA_FORMATS = { "Raw", "OLS data format", "Value change dump (VCD)" };
 
   private static final String DEFAULT_DATA_FORMAT = DATA_FORMATS[0];
 
@@ -213,7 +214,7 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     aSettings.put( "devicePath", this.devicePath.getText() );
     aSettings.put( "channelCount", this.channelCount.getText() );
     aSettings.put( "sampleDepth", this.sampleDepth.getText() );
-    aSettings.getBoolean( "timeDataPresent", this.timeDataPresent.isSelected() );
+    aSettings.putBoolean( "timeDataPresent", this.timeDataPresent.isSelected() );
     aSettings.put( "sampleRate", this.sampleRate.getText() );
     aSettings.put( "sampleWidth", this.sampleWidth.getText() );
   }
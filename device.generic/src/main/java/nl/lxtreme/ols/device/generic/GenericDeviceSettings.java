@@ -0,0 +1,167 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.NumberUtils.UnitDefinition;
+
+
+/**
+ * Provides the configuration of the generic device from user settings, using
+ * the same names and defaults as {@link GenericDeviceConfigDialog}.
+ */
+final class GenericDeviceSettings implements GenericDeviceConfig
+{
+  // VARIABLES
+
+  private final String dataFormat;
+  private final String devicePath;
+  private final String channelCount;
+  private final String sampleDepth;
+  private final String sampleRate;
+  private final String sampleWidth;
+  private final boolean timeDataPresent;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new GenericDeviceSettings instance.
+   *
+   * @param aSettings
+   *          the user settings to take the configuration from, cannot be
+   *          <code>null</code>.
+   */
+  public GenericDeviceSettings( final UserSettings aSettings )
+  {
+    if ( aSettings == null )
+    {
+      throw new IllegalArgumentException( "Settings cannot be null!" );
+    }
+
+    this.dataFormat = aSettings.get( "dataFormat", GenericDeviceConfigDialog.DATA_FORMATS[0] );
+    this.devicePath = aSettings.get( "devicePath", "" );
+    this.channelCount = aSettings.get( "channelCount", "1" );
+    this.sampleDepth = aSettings.get( "sampleDepth", "256" );
+    this.sampleRate = aSettings.get( "sampleRate", "1000000" );
+    this.sampleWidth = aSettings.get( "sampleWidth", "1" );
+    this.timeDataPresent = aSettings.getBoolean( "timeDataPresent", true );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getChannelCount()
+  {
+    return NumberUtils.safeParseInt( this.channelCount, 8 );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getDataFormat()
+  {
+    return this.dataFormat;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getDevicePath()
+  {
+    return this.devicePath;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getEnabledChannelsMask()
+  {
+    final int bits = 8 * getSampleWidth();
+    return ( int )( ( 1L << bits ) - 1 );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getSampleDepth()
+  {
+    return NumberUtils.smartParseInt( this.sampleDepth, 1024 );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getSampleRate()
+  {
+    if ( isTimingDataPresent() )
+    {
+      return NumberUtils.smartParseInt( this.sampleRate, UnitDefinition.SI, 1000000 );
+    }
+    return Ols.NOT_AVAILABLE;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getSampleWidth()
+  {
+    return NumberUtils.safeParseInt( this.sampleWidth, 1 );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isTimingDataPresent()
+  {
+    return this.timeDataPresent;
+  }
+
+  /**
+   * Returns whether these settings denote a valid configuration, that is, a
+   * known data format and an existing file to read from.
+   *
+   * @return <code>true</code> if these settings are valid, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isValid()
+  {
+    boolean knownFormat = false;
+    for ( String format : GenericDeviceConfigDialog.DATA_FORMATS )
+    {
+      knownFormat |= format.equals( this.dataFormat );
+    }
+    return knownFormat && new File( this.devicePath ).isFile();
+  }
+}
@@ -37,7 +37,7 @@ public final class OlsDataAcquisitionTask implements AcquisitionTask
   // VARIABLES
 
   private final AcquisitionProgressListener progressListener;
-  private final GenericDeviceConfigDialog deviceConfig;
+  private final GenericDeviceConfig deviceConfig;
 
   // CONSTRUCTORS
 
@@ -49,7 +49,7 @@ public final class OlsDataAcquisitionTask implements AcquisitionTask
    * @param aDeviceConfig
    *          the device configuration to use.
    */
-  public OlsDataAcquisitionTask( final GenericDeviceConfigDialog aDeviceConfig,
+  public OlsDataAcquisitionTask( final GenericDeviceConfig aDeviceConfig,
       final AcquisitionProgressListener aProgressListener )
   {
     this.deviceConfig = aDeviceConfig;
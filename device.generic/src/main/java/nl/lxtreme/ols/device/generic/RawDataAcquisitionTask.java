@@ -28,6 +28,7 @@ import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.util.*;
 
 
@@ -43,7 +44,7 @@ public final class RawDataAcquisitionTask implements AcquisitionTask
   // VARIABLES
 
   private final AcquisitionProgressListener progressListener;
-  private final GenericDeviceConfigDialog deviceConfig;
+  private final GenericDeviceConfig deviceConfig;
 
   private InputStream inputStream;
 
@@ -57,7 +58,7 @@ public final class RawDataAcquisitionTask implements AcquisitionTask
    * @param aDeviceConfig
    *          the device configuration to use.
    */
-  public RawDataAcquisitionTask( final GenericDeviceConfigDialog aDeviceConfig,
+  public RawDataAcquisitionTask( final GenericDeviceConfig aDeviceConfig,
       final AcquisitionProgressListener aProgressListener )
   {
     this.deviceConfig = aDeviceConfig;
@@ -80,10 +81,12 @@ public final class RawDataAcquisitionTask implements AcquisitionTask
 
     final int count = depth * width;
 
-    final int[] values = new int[count];
-    final long[] timestamps = new long[count];
+    // Raw dumps can be larger than the heap, so keep them off-heap...
+    final MappedCapturedData.Builder builder = new MappedCapturedData.Builder();
 
-    this.inputStream = new FileInputStream( this.deviceConfig.getDevicePath() );
+    this.inputStream = new BufferedInputStream( new FileInputStream( this.deviceConfig.getDevicePath() ) );
+
+    final ProgressReporter progressReporter = ProgressReporter.create( this.progressListener, 0, count );
 
     try
     {
@@ -97,25 +100,28 @@ public final class RawDataAcquisitionTask implements AcquisitionTask
           LOG.log( Level.FINE, "Read: 0x{0}", Integer.toHexString( sample ) );
         }
 
-        values[idx] = sample;
-        timestamps[idx] = idx;
+        builder.add( sample, idx++ );
 
         // Update the progress...
-        this.progressListener.acquisitionInProgress( ( int )( ( idx++ * 100.0 ) / count ) );
+        progressReporter.setPosition( idx );
       }
 
-      final long absLength = timestamps[idx - 1];
+      final long absLength = idx - 1;
       final int enabledChannels = ( 1 << channels ) - 1;
 
-      return new CapturedData( values, timestamps, Ols.NOT_AVAILABLE, rate, channels, enabledChannels, absLength );
+      return builder.build( Ols.NOT_AVAILABLE, rate, channels, enabledChannels, absLength );
     }
     catch ( IOException exception )
     {
+      builder.discard();
+
       // Rethrow the caught exception...
       throw exception;
     }
     finally
     {
+      progressReporter.close();
+
       HostUtils.closeResource( this.inputStream );
     }
   }
@@ -0,0 +1,75 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.devices.*;
+
+
+/**
+ * Provides a generic acquisition task that can read "value change dump" (VCD)
+ * files, for example, as written by HDL simulators.
+ */
+public final class VcdDataAcquisitionTask implements AcquisitionTask
+{
+  // VARIABLES
+
+  private final AcquisitionProgressListener progressListener;
+  private final GenericDeviceConfig deviceConfig;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new VcdDataAcquisitionTask instance.
+   *
+   * @param aDeviceConfig
+   *          the device configuration to use;
+   * @param aProgressListener
+   *          the progress listener to use.
+   */
+  public VcdDataAcquisitionTask( final GenericDeviceConfig aDeviceConfig,
+      final AcquisitionProgressListener aProgressListener )
+  {
+    this.deviceConfig = aDeviceConfig;
+    this.progressListener = aProgressListener;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public AcquisitionResult call() throws IOException, InterruptedException
+  {
+    this.progressListener.acquisitionInProgress( 0 );
+
+    final AcquisitionResult result = VcdDataHelper.read( new File( this.deviceConfig.getDevicePath() ),
+        this.progressListener );
+
+    this.progressListener.acquisitionInProgress( 100 );
+
+    return result;
+  }
+}
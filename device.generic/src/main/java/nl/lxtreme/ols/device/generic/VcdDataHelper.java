@@ -0,0 +1,641 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Helper class that is capable of reading "value change dump" (VCD) files, as
+ * specified in IEEE Std 1364-2001.
+ * <p>
+ * The file is memory-mapped and parsed in a single pass, turning the value
+ * changes directly into transitions. No text of the value changes is retained,
+ * so the memory needed only depends on the number of transitions.
+ * </p>
+ * <p>
+ * The scalar and vector variables are mapped onto consecutive channels, in
+ * order of their declaration, until all 32 channels are used. The value
+ * changes of all other variables are ignored, as are real values. Unknown
+ * (<tt>x</tt>) and high-impedance (<tt>z</tt>) values are read as zero. The
+ * timescale of the dump determines the sample rate; if times are scaled down
+ * to a lower sample rate, all value changes that end up at the same sample
+ * are merged into a single transition.
+ * </p>
+ */
+final class VcdDataHelper
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( VcdDataHelper.class.getName() );
+
+  /** The number of bytes of the file that are mapped at once. */
+  private static final long WINDOW_SIZE = 64L * 1024L * 1024L;
+  /** The largest sample rate is 1 GHz, as power of ten. */
+  private static final int MAX_RATE_EXPONENT = 9;
+  private static final int MAX_CHANNELS = 32;
+  /** The maximum length of an identifier that can be looked up as number. */
+  private static final int MAX_KEY_LENGTH = 9;
+
+  private static final String[] UNITS = { "s", "ms", "us", "ns", "ps", "fs", "as" };
+
+  private static final byte[] COMMENT = { '$', 'c', 'o', 'm', 'm', 'e', 'n', 't' };
+  private static final byte[] END = { '$', 'e', 'n', 'd' };
+
+  // VARIABLES
+
+  private final FileChannel channel;
+  private final long fileSize;
+  private final AcquisitionProgressListener progressListener;
+
+  private MappedByteBuffer window;
+  private long windowStart;
+  private byte[] token;
+  private int tokenLength;
+  private int progress;
+
+  private int rate;
+  private long timeMultiplier;
+  private long timeDivider;
+
+  private int channelCount;
+  private final long[] variableKeys;
+  private final int[] variableIndexes;
+  private final Map<String, Integer> longVariables;
+  private final int[] variableShifts;
+  private final int[] variableMasks;
+  private int variableCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new VcdDataHelper instance.
+   */
+  private VcdDataHelper( final FileChannel aChannel, final AcquisitionProgressListener aProgressListener )
+      throws IOException
+  {
+    this.channel = aChannel;
+    this.fileSize = aChannel.size();
+    this.progressListener = aProgressListener;
+
+    this.token = new byte[64];
+    this.progress = -1;
+
+    // Open addressing table of identifier keys onto variable indexes...
+    this.variableKeys = new long[2 * MAX_CHANNELS];
+    this.variableIndexes = new int[2 * MAX_CHANNELS];
+    this.longVariables = new HashMap<String, Integer>();
+    this.variableShifts = new int[MAX_CHANNELS];
+    this.variableMasks = new int[MAX_CHANNELS];
+  }
+
+  // METHODS
+
+  /**
+   * Reads the value changes from the given file.
+   *
+   * @param aFile
+   *          the VCD-file to read, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, cannot be
+   *          <code>null</code>.
+   * @return the read acquisition result, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the file is not a valid VCD
+   *           file;
+   * @throws InterruptedException
+   *           in case the current thread is interrupted while reading the file.
+   */
+  public static AcquisitionResult read( final File aFile, final AcquisitionProgressListener aProgressListener )
+      throws IOException, InterruptedException
+  {
+    if ( LOG.isLoggable( Level.INFO ) )
+    {
+      LOG.info( "Parsing VCD data from " + aFile + "..." );
+    }
+
+    final FileInputStream fis = new FileInputStream( aFile );
+    try
+    {
+      return new VcdDataHelper( fis.getChannel(), aProgressListener ).read();
+    }
+    finally
+    {
+      HostUtils.closeResource( fis );
+    }
+  }
+
+  /**
+   * Reads the declarations and value changes.
+   */
+  private AcquisitionResult read() throws IOException, InterruptedException
+  {
+    this.windowStart = 0L;
+    this.window = this.channel.map( MapMode.READ_ONLY, 0L, Math.min( WINDOW_SIZE, this.fileSize ) );
+
+    readDeclarations();
+
+    if ( this.rate == 0 )
+    {
+      throw new IOException( "Data file is corrupt?! Timescale is not provided!" );
+    }
+    if ( this.channelCount == 0 )
+    {
+      throw new IOException( "Data file does not contain any variables!" );
+    }
+
+    final TransitionBuffer buffer = readValueChanges();
+    if ( buffer.isEmpty() )
+    {
+      throw new IOException( "Data file does not contain any sample data!" );
+    }
+
+    final int enabledChannels = ( int )( ( 1L << this.channelCount ) - 1L );
+    return new CapturedData( buffer, Ols.NOT_AVAILABLE, this.rate, this.channelCount, enabledChannels, -1L );
+  }
+
+  /**
+   * Adds a variable with the given identifier, if there are channels left to
+   * map it onto.
+   */
+  private void addVariable( final String aIdentifier, final int aSize )
+  {
+    final byte[] identifier = aIdentifier.getBytes();
+    final long key = getKey( identifier, 0, identifier.length );
+
+    if ( ( key == 0L ) ? this.longVariables.containsKey( aIdentifier ) : ( findVariable( key ) >= 0 ) )
+    {
+      // Alias of an already mapped variable...
+      return;
+    }
+
+    final int width = Math.min( aSize, MAX_CHANNELS - this.channelCount );
+    if ( width <= 0 )
+    {
+      if ( LOG.isLoggable( Level.INFO ) )
+      {
+        LOG.info( "All channels are in use, ignoring variable " + aIdentifier + "..." );
+      }
+      return;
+    }
+
+    final int index = this.variableCount++;
+    this.variableShifts[index] = this.channelCount;
+    this.variableMasks[index] = ( int )( ( 1L << width ) - 1L );
+    this.channelCount += width;
+
+    if ( key == 0L )
+    {
+      this.longVariables.put( aIdentifier, Integer.valueOf( index ) );
+    }
+    else
+    {
+      int slot = getSlot( key );
+      while ( this.variableKeys[slot] != 0L )
+      {
+        slot = ( slot + 1 ) & ( this.variableKeys.length - 1 );
+      }
+      this.variableKeys[slot] = key;
+      this.variableIndexes[slot] = index;
+    }
+  }
+
+  /**
+   * Applies the given bits of a value change to the given sample value.
+   *
+   * @return the new sample value.
+   */
+  private int applyValueChange( final int aValue, final int aVariable, final int aBits )
+  {
+    final int shift = this.variableShifts[aVariable];
+    final int mask = this.variableMasks[aVariable];
+    return ( aValue & ~( mask << shift ) ) | ( ( aBits & mask ) << shift );
+  }
+
+  /**
+   * Looks up the variable with the given identifier key.
+   *
+   * @return the index of the variable, or -1 if the identifier is not mapped
+   *         onto any channel.
+   */
+  private int findVariable( final long aKey )
+  {
+    int slot = getSlot( aKey );
+    long slotKey;
+    while ( ( slotKey = this.variableKeys[slot] ) != 0L )
+    {
+      if ( slotKey == aKey )
+      {
+        return this.variableIndexes[slot];
+      }
+      slot = ( slot + 1 ) & ( this.variableKeys.length - 1 );
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the given identifier as number. Identifiers consist of printable
+   * ASCII characters, which are taken as base-95 digits.
+   *
+   * @return the identifier key, or 0 if the identifier is too long or contains
+   *         non-printable characters.
+   */
+  private long getKey( final byte[] aBytes, final int aOffset, final int aLength )
+  {
+    if ( aLength > MAX_KEY_LENGTH )
+    {
+      return 0L;
+    }
+    long key = 0L;
+    for ( int i = aOffset; i < ( aOffset + aLength ); i++ )
+    {
+      final int b = aBytes[i];
+      if ( ( b <= ' ' ) || ( b > '~' ) )
+      {
+        return 0L;
+      }
+      key = ( key * 95L ) + ( b - ' ' );
+    }
+    return key;
+  }
+
+  /**
+   * @return the first slot to look for the given key.
+   */
+  private int getSlot( final long aKey )
+  {
+    final long hash = aKey * 0x9E3779B97F4A7C15L;
+    return ( int )( hash >>> 58 ) & ( this.variableKeys.length - 1 );
+  }
+
+  /**
+   * Looks up the variable whose identifier is in the current token, starting
+   * at the given offset.
+   *
+   * @return the index of the variable, or -1 if the identifier is not mapped
+   *         onto any channel.
+   */
+  private int lookupVariable( final int aOffset )
+  {
+    final int length = this.tokenLength - aOffset;
+
+    final long key = getKey( this.token, aOffset, length );
+    if ( key == 0L )
+    {
+      final Integer index = this.longVariables.get( new String( this.token, aOffset, length ) );
+      return ( index == null ) ? -1 : index.intValue();
+    }
+    return findVariable( key );
+  }
+
+  /**
+   * Reads the next byte of the file, mapping the next part of the file if
+   * needed.
+   *
+   * @return the next byte, or -1 if the end of the file is reached.
+   */
+  private int nextByte() throws IOException
+  {
+    if ( !this.window.hasRemaining() )
+    {
+      final long start = this.windowStart + this.window.capacity();
+      if ( start >= this.fileSize )
+      {
+        return -1;
+      }
+      this.windowStart = start;
+      this.window = this.channel.map( MapMode.READ_ONLY, start, Math.min( WINDOW_SIZE, this.fileSize - start ) );
+    }
+    return this.window.get() & 0xFF;
+  }
+
+  /**
+   * Reads the next whitespace-separated token of the file.
+   *
+   * @return <code>true</code> if a token is read, <code>false</code> if the
+   *         end of the file is reached.
+   */
+  private boolean nextToken() throws IOException
+  {
+    int b;
+    do
+    {
+      if ( ( b = nextByte() ) < 0 )
+      {
+        return false;
+      }
+    }
+    while ( b <= ' ' );
+
+    int length = 0;
+    do
+    {
+      if ( length == this.token.length )
+      {
+        this.token = Arrays.copyOf( this.token, 2 * length );
+      }
+      this.token[length++] = ( byte )b;
+    }
+    while ( ( b = nextByte() ) > ' ' );
+
+    this.tokenLength = length;
+    return true;
+  }
+
+  /**
+   * Parses the given timescale, like "1 ns" or "100ps", into a sample rate.
+   * Sample rates above 1 GHz cannot be represented, in which case all times
+   * are scaled down to a sample rate of 1 GHz.
+   */
+  private void parseTimescale( final String aTimescale ) throws IOException
+  {
+    final String timescale = aTimescale.replaceAll( "\\s+", "" );
+
+    int digits = 0;
+    while ( ( digits < timescale.length() ) && Character.isDigit( timescale.charAt( digits ) ) )
+    {
+      digits++;
+    }
+
+    final String magnitude = timescale.substring( 0, digits );
+    final int unit = Arrays.asList( UNITS ).indexOf( timescale.substring( digits ) );
+    if ( !( "1".equals( magnitude ) || "10".equals( magnitude ) || "100".equals( magnitude ) ) || ( unit < 0 ) )
+    {
+      throw new IOException( "Data file is corrupt?! Invalid timescale: " + aTimescale );
+    }
+
+    // The period is 10^(digits - 1) * 10^(-3 * unit) seconds...
+    final int rateExponent = ( 3 * unit ) - ( digits - 1 );
+
+    this.rate = ( int )pow10( Math.max( 0, Math.min( MAX_RATE_EXPONENT, rateExponent ) ) );
+    this.timeMultiplier = pow10( Math.max( 0, -rateExponent ) );
+    this.timeDivider = pow10( Math.max( 0, rateExponent - MAX_RATE_EXPONENT ) );
+  }
+
+  /**
+   * Reads all declarations, up to and including the
+   * <tt>$enddefinitions</tt>-command.
+   */
+  private void readDeclarations() throws IOException
+  {
+    while ( nextToken() )
+    {
+      final String keyword = new String( this.token, 0, this.tokenLength );
+      if ( "$enddefinitions".equals( keyword ) )
+      {
+        readUntilEnd();
+        return;
+      }
+      else if ( "$timescale".equals( keyword ) )
+      {
+        final StringBuilder sb = new StringBuilder();
+        for ( String value : readUntilEnd() )
+        {
+          sb.append( value ).append( ' ' );
+        }
+        parseTimescale( sb.toString() );
+      }
+      else if ( "$var".equals( keyword ) )
+      {
+        readVariable( readUntilEnd() );
+      }
+      else if ( keyword.startsWith( "$" ) )
+      {
+        // $scope, $upscope, $date, $version, $comment; not interesting...
+        readUntilEnd();
+      }
+    }
+
+    throw new IOException( "Data file is corrupt?! No end of definitions found!" );
+  }
+
+  /**
+   * Reads the time in the current token, which starts with a '#'.
+   *
+   * @return the time, scaled to the sample rate.
+   */
+  private long readTime() throws IOException
+  {
+    if ( this.tokenLength < 2 )
+    {
+      throw new IOException( "Data file is corrupt?! Time value is missing!" );
+    }
+
+    long time = 0L;
+    for ( int i = 1; i < this.tokenLength; i++ )
+    {
+      final int digit = this.token[i] - '0';
+      if ( ( digit < 0 ) || ( digit > 9 ) )
+      {
+        throw new IOException( "Data file is corrupt?! Invalid time value: "
+            + new String( this.token, 0, this.tokenLength ) );
+      }
+      time = ( time * 10L ) + digit;
+    }
+    return ( time * this.timeMultiplier ) / this.timeDivider;
+  }
+
+  /**
+   * Reads all tokens up to the next <tt>$end</tt>.
+   *
+   * @return the read tokens, excluding the <tt>$end</tt>, never
+   *         <code>null</code>.
+   */
+  private List<String> readUntilEnd() throws IOException
+  {
+    final List<String> result = new ArrayList<String>();
+    while ( nextToken() && !tokenEquals( END ) )
+    {
+      result.add( new String( this.token, 0, this.tokenLength ) );
+    }
+    return result;
+  }
+
+  /**
+   * Reads all value changes into a transition buffer.
+   *
+   * @return the read transitions, never <code>null</code>.
+   */
+  private TransitionBuffer readValueChanges() throws IOException, InterruptedException
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+
+    int value = 0;
+    long time = 0L;
+    boolean timeSeen = false;
+
+    while ( nextToken() )
+    {
+      final byte first = this.token[0];
+      if ( first == '#' )
+      {
+        final long newTime = readTime();
+        // All value changes of the previous time are read; times that are
+        // scaled down onto the same sample are merged into one transition...
+        if ( timeSeen && ( newTime != time ) )
+        {
+          buffer.add( value, time );
+        }
+        time = newTime;
+        timeSeen = true;
+
+        updateProgress();
+      }
+      else if ( ( first == '0' ) || ( first == '1' ) || ( first == 'x' ) || ( first == 'X' ) || ( first == 'z' )
+          || ( first == 'Z' ) )
+      {
+        final int variable = lookupVariable( 1 );
+        if ( variable >= 0 )
+        {
+          value = applyValueChange( value, variable, ( first == '1' ) ? 1 : 0 );
+        }
+      }
+      else if ( ( first == 'b' ) || ( first == 'B' ) )
+      {
+        // The least significant bit comes last...
+        int bits = 0;
+        for ( int i = this.tokenLength - 1, bit = 0; ( i > 0 ) && ( bit < MAX_CHANNELS ); i--, bit++ )
+        {
+          if ( this.token[i] == '1' )
+          {
+            bits |= ( 1 << bit );
+          }
+        }
+
+        if ( !nextToken() )
+        {
+          throw new IOException( "Data file is corrupt?! Identifier of vector value is missing!" );
+        }
+
+        final int variable = lookupVariable( 0 );
+        if ( variable >= 0 )
+        {
+          value = applyValueChange( value, variable, bits );
+        }
+      }
+      else if ( ( first == 'r' ) || ( first == 'R' ) )
+      {
+        // Real values cannot be represented; skip its identifier...
+        nextToken();
+      }
+      else if ( tokenEquals( COMMENT ) )
+      {
+        readUntilEnd();
+      }
+      // else: $dumpvars, $dumpall, $dumpon, $dumpoff or $end; nothing to do...
+    }
+
+    if ( timeSeen )
+    {
+      buffer.add( value, time );
+    }
+
+    return buffer;
+  }
+
+  /**
+   * Reads a variable declaration, in the form of
+   * <tt>&lt;type&gt; &lt;size&gt; &lt;identifier&gt; &lt;reference&gt;</tt>.
+   */
+  private void readVariable( final List<String> aDeclaration ) throws IOException
+  {
+    if ( aDeclaration.size() < 4 )
+    {
+      throw new IOException( "Data file is corrupt?! Invalid variable declaration: " + aDeclaration );
+    }
+
+    final String type = aDeclaration.get( 0 );
+    if ( "real".equals( type ) || "realtime".equals( type ) )
+    {
+      // Cannot be represented on channels...
+      return;
+    }
+
+    final int size = NumberUtils.safeParseInt( aDeclaration.get( 1 ), 1 );
+    addVariable( aDeclaration.get( 2 ), Math.max( 1, size ) );
+  }
+
+  /**
+   * @return <code>true</code> if the current token equals the given bytes,
+   *         <code>false</code> otherwise.
+   */
+  private boolean tokenEquals( final byte[] aBytes )
+  {
+    if ( this.tokenLength != aBytes.length )
+    {
+      return false;
+    }
+    for ( int i = 0; i < aBytes.length; i++ )
+    {
+      if ( this.token[i] != aBytes[i] )
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reports the progress of reading the file, if changed.
+   *
+   * @throws InterruptedException
+   *           in case the current thread is interrupted.
+   */
+  private void updateProgress() throws InterruptedException
+  {
+    final long position = this.windowStart + this.window.position();
+    final int newProgress = ( int )( ( position * 100L ) / Math.max( 1L, this.fileSize ) );
+    if ( newProgress != this.progress )
+    {
+      this.progress = newProgress;
+      this.progressListener.acquisitionInProgress( newProgress );
+
+      if ( Thread.interrupted() )
+      {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  /**
+   * @return 10 raised to the given power.
+   */
+  private static long pow10( final int aExponent )
+  {
+    long result = 1L;
+    for ( int i = 0; i < aExponent; i++ )
+    {
+      result *= 10L;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+
+
+/**
+ * Provides test cases for {@link VcdDataHelper}.
+ */
+public class VcdDataHelperTest
+{
+  // CONSTANTS
+
+  private static final String HEADER = "$timescale %s $end\n" //
+      + "$scope module top $end\n" //
+      + "$var wire 1 ! clk $end\n" //
+      + "$var wire 4 \" bus [3:0] $end\n" //
+      + "$upscope $end\n" //
+      + "$enddefinitions $end\n";
+
+  // VARIABLES
+
+  private AcquisitionProgressListener progressListener;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.progressListener = mock( AcquisitionProgressListener.class );
+  }
+
+  /**
+   * Tests that interrupting the reading of a dump yields an
+   * {@link InterruptedException} instead of a partial result.
+   */
+  @Test( expected = InterruptedException.class )
+  public void testReadInterruptedFail() throws Exception
+  {
+    final File file = createDump( "1 ns", "#0 0! b0000 \" #10 1! #20 0!" );
+
+    // Interrupt the reading thread as soon as the first progress is reported...
+    doAnswer( new Answer<Void>()
+    {
+      @Override
+      public Void answer( final InvocationOnMock aInvocation )
+      {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    } ).when( this.progressListener ).acquisitionInProgress( anyInt() );
+
+    try
+    {
+      VcdDataHelper.read( file, this.progressListener );
+    }
+    finally
+    {
+      // Clear the interrupted flag for subsequent tests...
+      Thread.interrupted();
+    }
+  }
+
+  /**
+   * Tests that value changes that are scaled down onto the same sample are
+   * merged into a single transition.
+   */
+  @Test
+  public void testReadMergesValueChangesAtSameSampleOk() throws Exception
+  {
+    // 1 ps is scaled down to 1 ns, so #0 and #100 end up at sample 0, and
+    // #1000 and #1500 at sample 1...
+    final File file = createDump( "1 ps", "#0 0! b0000 \" #100 1! #1000 0! #1500 1! #2000 0!" );
+
+    final AcquisitionResult result = VcdDataHelper.read( file, this.progressListener );
+
+    assertEquals( 1000000000, result.getSampleRate() );
+    assertTimestampsIncreasing( result.getTimestamps() );
+
+    assertEquals( 0L, result.getTimestamps()[0] );
+    assertEquals( 1, result.getValues()[0] );
+    assertEquals( 2L, result.getTimestamps()[1] );
+    assertEquals( 0, result.getValues()[1] );
+  }
+
+  /**
+   * Tests that the value changes of scalar and vector variables are mapped
+   * onto consecutive channels.
+   */
+  @Test
+  public void testReadScalarAndVectorValueChangesOk() throws Exception
+  {
+    final File file = createDump( "10 ns", "$dumpvars 0! b0101 \" $end #0 #10 1! #20 0! b1111 \"" );
+
+    final AcquisitionResult result = VcdDataHelper.read( file, this.progressListener );
+
+    assertEquals( 100000000, result.getSampleRate() );
+    assertEquals( 5, result.getChannels() );
+    assertTimestampsIncreasing( result.getTimestamps() );
+
+    final long[] timestamps = result.getTimestamps();
+    final int[] values = result.getValues();
+    assertEquals( 0L, timestamps[0] );
+    assertEquals( 0x0A, values[0] );
+    assertEquals( 10L, timestamps[1] );
+    assertEquals( 0x0B, values[1] );
+    assertEquals( 20L, timestamps[2] );
+    assertEquals( 0x1E, values[2] );
+
+    verify( this.progressListener, atLeastOnce() ).acquisitionInProgress( anyInt() );
+  }
+
+  /**
+   * Tests that a dump without a timescale is rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testReadWithoutTimescaleFail() throws Exception
+  {
+    final File file = this.folder.newFile( "notimescale.vcd" );
+    write( file, "$var wire 1 ! clk $end $enddefinitions $end #0 0!" );
+
+    VcdDataHelper.read( file, this.progressListener );
+  }
+
+  /**
+   * Asserts that the given timestamps are strictly increasing.
+   */
+  private void assertTimestampsIncreasing( final long[] aTimestamps )
+  {
+    for ( int i = 1; i < aTimestamps.length; i++ )
+    {
+      assertTrue( "Duplicate or decreasing timestamp at index " + i, aTimestamps[i - 1] < aTimestamps[i] );
+    }
+  }
+
+  /**
+   * Creates a dump file with the given timescale and value changes.
+   */
+  private File createDump( final String aTimescale, final String aValueChanges ) throws IOException
+  {
+    final File file = this.folder.newFile( "dump.vcd" );
+    write( file, String.format( HEADER, aTimescale ) + aValueChanges + "\n" );
+    return file;
+  }
+
+  /**
+   * Writes the given contents to the given file.
+   */
+  private void write( final File aFile, final String aContents ) throws IOException
+  {
+    final Writer writer = new OutputStreamWriter( new FileOutputStream( aFile ), "US-ASCII" );
+    try
+    {
+      writer.write( aContents );
+    }
+    finally
+    {
+      writer.close();
+    }
+  }
+}
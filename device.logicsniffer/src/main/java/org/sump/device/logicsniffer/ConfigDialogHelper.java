@@ -104,14 +104,7 @@ final class ConfigDialogHelper
    */
   static void updateCaptureSpeedComboBoxModel( final JComboBox aComboBox, final DeviceProfile aProfile )
   {
-    Vector<Integer> sampleRates = new Vector<Integer>( Arrays.asList( aProfile.getSampleRates() ) );
-    if ( aProfile.isDoubleDataRateSupported() )
-    {
-      // assume the sample rates are ordered in reverse order, so adding it at
-      // the beginning should be fine...
-      sampleRates.add( 0, Integer.valueOf( 2 * aProfile.getClockspeed() ) );
-    }
-    updateComboBoxModel( aComboBox, sampleRates );
+    updateComboBoxModel( aComboBox, LogicSnifferSettings.getCaptureSpeeds( aProfile ) );
   }
 
   /**
@@ -205,16 +198,7 @@ final class ConfigDialogHelper
   static void updateTriggerTypeComboBoxModel( final JComboBox aComboBox, final DeviceProfile aProfile )
   {
     final boolean complexTriggersSupported = aProfile.isComplexTriggersSupported();
-    final TriggerType[] values;
-    if ( complexTriggersSupported )
-    {
-      values = TriggerType.values();
-    }
-    else
-    {
-      values = new TriggerType[] { TriggerType.SIMPLE };
-    }
-    updateComboBoxModel( aComboBox, values );
+    updateComboBoxModel( aComboBox, LogicSnifferSettings.getTriggerTypes( aProfile ) );
     if ( !complexTriggersSupported )
     {
       aComboBox.setSelectedItem( TriggerType.SIMPLE );
@@ -22,7 +22,7 @@ package org.sump.device.logicsniffer;
 
 
 import java.io.*;
-import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import javax.microedition.io.*;
@@ -53,6 +53,7 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   private final DeviceProfileManager deviceProfileManager;
   private final AcquisitionProgressListener acquisitionProgressListener;
   private final LogicSnifferConfig config;
+  private final SumpDeviceState deviceState;
 
   private StreamConnection connection;
   private SumpResultReader inputStream;
@@ -66,11 +67,27 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
    */
   public LogicSnifferAcquisitionTask( final LogicSnifferConfig aConfig, final StreamConnection aConnection,
       final DeviceProfileManager aDeviceProfileManager, final AcquisitionProgressListener aProgressListener )
+  {
+    this( aConfig, aConnection, aDeviceProfileManager, aProgressListener, new SumpDeviceState() );
+  }
+
+  /**
+   * Creates a new LogicSnifferDevice instance that reuses what is known about
+   * the device from earlier acquisitions over the same connection.
+   * 
+   * @param aDeviceState
+   *          the state of the device as left by the last acquisition over the
+   *          given connection, cannot be <code>null</code>.
+   */
+  public LogicSnifferAcquisitionTask( final LogicSnifferConfig aConfig, final StreamConnection aConnection,
+      final DeviceProfileManager aDeviceProfileManager, final AcquisitionProgressListener aProgressListener,
+      final SumpDeviceState aDeviceState )
   {
     this.config = aConfig;
     this.connection = aConnection;
     this.deviceProfileManager = aDeviceProfileManager;
     this.acquisitionProgressListener = aProgressListener;
+    this.deviceState = aDeviceState;
   }
 
   // METHODS
@@ -95,8 +112,18 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     // Opens the device...
     open();
 
-    // First try to find the logic sniffer itself...
-    detectDevice();
+    // First try to find the logic sniffer itself, unless we already found it
+    // during an earlier acquisition over the same connection...
+    if ( this.deviceState.beginAcquisition() )
+    {
+      LOG.fine( "Device already detected, skipping detection ..." );
+    }
+    else
+    {
+      detectDevice();
+
+      this.deviceState.setDetected();
+    }
 
     // check if data needs to be multiplexed
     final int channelCount = this.config.getChannelCount();
@@ -114,20 +141,7 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     // Setup/configure the device with the UI-settings...
     configureAndArmDevice();
 
-    // read all samples
-    int[] samples = readSamples( this.config.getEnabledGroupCount(), sampleCount );
-
-    if ( samples.length < sampleCount )
-    {
-      LOG.log( Level.INFO, "Only {0} samples read!", Integer.valueOf( samples.length ) );
-    }
-    else
-    {
-      LOG.log( Level.FINE, "{0} samples read. Starting post processing...", Integer.valueOf( sampleCount ) );
-    }
-
-    final List<Integer> values = new ArrayList<Integer>();
-    final List<Long> timestamps = new ArrayList<Long>();
+    final TransitionBuffer transitions = new TransitionBuffer();
 
     // collect additional information for CapturedData; we use arrays here,
     // as their values are to be filled from anonymous inner classes...
@@ -137,10 +151,13 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
 
     final SampleProcessorCallback callback = new SampleProcessorCallback()
     {
-      public void addValue( final int aSampleValue, final long aTimestamp )
+      public void preview( final TransitionPreview aPreview )
       {
-        values.add( Integer.valueOf( aSampleValue ) );
-        timestamps.add( Long.valueOf( aTimestamp ) );
+        // The arrays of the preview are shared, not copied...
+        final LogicSnifferConfig cfg = LogicSnifferAcquisitionTask.this.config;
+        firePartialResult( new PartialCapturedData( aPreview.getValues(), aPreview.getTimestamps(), aPreview.size(),
+            Ols.NOT_AVAILABLE, rate, cfg.getEnabledChannelsCount(), cfg.getEnabledChannelsMask(),
+            aPreview.getAbsoluteLength() ) );
       }
 
       public void ready( final long aAbsoluteLength, final long aTriggerPosition )
@@ -152,15 +169,20 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
         }
       }
     };
-    // Process the actual samples...
-    createSampleProcessor( sampleCount, samples, callback ).process();
+
+    // read all samples, and process them while they are coming in...
+    readSamples( sampleCount, createSampleProcessor( sampleCount, transitions, callback ), callback );
+
+    LOG.log( Level.FINE, "{0} samples read and processed.", Integer.valueOf( sampleCount ) );
 
     // Close the connection...
     close();
 
+    this.deviceState.endAcquisition();
+
     // Issue #98: use the *enabled* channel count, not the total channel
     // count...
-    return new CapturedData( values, timestamps, triggerPos[0], rate, this.config.getEnabledChannelsCount(),
+    return new CapturedData( transitions, triggerPos[0], rate, this.config.getEnabledChannelsCount(),
         this.config.getEnabledChannelsMask(), absoluteLength[0] );
   }
 
@@ -293,7 +315,7 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
         throw new IOException( "Failed to open a valid connection!" );
       }
 
-      this.outputStream = new SumpCommandWriter( this.config, conn.openDataOutputStream() );
+      this.outputStream = new SumpCommandWriter( this.config, conn.openDataOutputStream(), this.deviceState );
       this.inputStream = new SumpResultReader( conn.openDataInputStream() );
 
       // We don't expect any data, so flush all data pending in the given
@@ -314,27 +336,57 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   }
 
   /**
+   * Creates the sample processor for the given number of samples.
+   * <p>
+   * Normally, the device sends its samples back-to-front, that is, the last
+   * sample first, unless the device profile states otherwise. In the first
+   * case, the samples are processed back-to-front as well, as to allow them to
+   * be processed while they are read.
+   * </p>
+   * 
    * @param aSampleCount
    *          the actual number of samples to process;
-   * @param aSampleValues
-   *          the sample values to process;
+   * @param aTransitions
+   *          the buffer to write the processed sample values into;
    * @param aCallback
    *          the processor callback to use.
    * @return a sample processor instance, never <code>null</code>.
    */
-  private SampleProcessor createSampleProcessor( final int aSampleCount, final int[] aSampleValues,
+  private SampleProcessor createSampleProcessor( final int aSampleCount, final TransitionBuffer aTransitions,
       final SampleProcessorCallback aCallback )
   {
+    final boolean lastSampleFirst = !this.config.isSamplesInReverseOrder();
+
     final SampleProcessor processor;
     if ( this.config.isRleEnabled() )
     {
       LOG.log( Level.INFO, "Decoding Run Length Encoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
-      processor = new RleDecoder( this.config, aSampleValues, this.trigcount, aCallback );
+      if ( !lastSampleFirst )
+      {
+        processor = new RleDecoder( this.config, this.trigcount, aTransitions, aCallback );
+      }
+      else if ( this.config.isDoubleDataRateEnabled() )
+      {
+        // DDR-encoded RLE-counts can only be decoded front-to-back...
+        processor = new SampleReverser( aSampleCount, new RleDecoder( this.config, this.trigcount, aTransitions,
+            aCallback ) );
+      }
+      else
+      {
+        processor = new ReverseRleDecoder( this.config, aSampleCount, this.trigcount, aTransitions, aCallback );
+      }
     }
     else
     {
       LOG.log( Level.INFO, "Decoding unencoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
-      processor = new EqualityFilter( this.config, aSampleValues, this.trigcount, aCallback );
+      if ( lastSampleFirst )
+      {
+        processor = new ReverseEqualityFilter( this.config, aSampleCount, this.trigcount, aTransitions, aCallback );
+      }
+      else
+      {
+        processor = new EqualityFilter( this.config, this.trigcount, aTransitions, aCallback );
+      }
     }
     return processor;
   }
@@ -398,87 +450,166 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   }
 
   /**
-   * Reads all (or as many as possible) samples from the OLS device.
+   * Hands the given partial result to the progress listener, in case it is
+   * interested in partial results.
+   * 
+   * @param aPartialResult
+   *          the partial result to hand over, cannot be <code>null</code>.
+   */
+  private void firePartialResult( final AcquisitionResult aPartialResult )
+  {
+    if ( this.acquisitionProgressListener instanceof AcquisitionDataListener )
+    {
+      ( ( AcquisitionDataListener )this.acquisitionProgressListener ).acquisitionPartiallyComplete( aPartialResult );
+    }
+  }
+
+  /**
+   * Reads all samples from the OLS device, and processes them while they are
+   * read.
+   * <p>
+   * The raw sample data is read in fixed-size chunks, which are unpacked and
+   * processed on a separate thread while the next chunks are being read. This
+   * way, the processing is (nearly) finished as soon as the last sample is
+   * read.
+   * </p>
    * 
-   * @param aEnabledGroupCount
-   *          the number of enabled groups (denotes the number of bytes for one sample);
    * @param aSampleCount
-   *          the number of samples to read.
-   * @return the read samples, normalized to match the layout of the enabled groups.
+   *          the number of samples to read;
+   * @param aProcessor
+   *          the sample processor to process the read samples with;
+   * @param aCallback
+   *          the callback to hand the previews of the processed samples to,
+   *          if the progress listener is interested in partial results.
    * @throws IOException
    *           in case of I/O problems;
    * @throws InterruptedException
    *           in case the current thread was interrupted.
    */
-  private int[] readSamples( final int aEnabledGroupCount, int aSampleCount ) throws IOException, InterruptedException
+  private void readSamples( final int aSampleCount, final SampleProcessor aProcessor,
+      final SampleProcessorCallback aCallback ) throws IOException, InterruptedException
   {
-    final int length = aEnabledGroupCount * aSampleCount;
-    final byte[] rawData = new byte[length];
+    // Only bother creating previews when someone is interested in them...
+    final SampleProcessorCallback previewCallback;
+    if ( this.acquisitionProgressListener instanceof AcquisitionDataListener )
+    {
+      previewCallback = aCallback;
+    }
+    else
+    {
+      previewCallback = null;
+    }
+
+    if ( ChannelGroupLayout.create( this.config ).getSampleWidth() == 0 )
+    {
+      // No groups are enabled, hence there is nothing to read or decode; only
+      // leave the device in a correct state...
+      resetAfterRead();
+
+      this.acquisitionProgressListener.acquisitionInProgress( 100 );
+
+      aProcessor.finish();
+      return;
+    }
+
+    final ChunkedSampleDecoder decoder = new ChunkedSampleDecoder( this.config, aSampleCount, aProcessor,
+        previewCallback );
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final Future<Void> result = executor.submit( decoder );
 
     try
     {
-      int offset = 0;
-      int count = length;
-      while ( !Thread.currentThread().isInterrupted() && ( offset >= 0 ) && ( offset < length ) )
+      final int length = decoder.getLength();
+
+      try
       {
-        int read = this.inputStream.readRawData( rawData, offset, count );
-        if ( read < 0 )
+        int offset = 0;
+        while ( !Thread.currentThread().isInterrupted() && ( offset < length ) )
         {
-          throw new EOFException();
+          final byte[] chunk = decoder.obtainChunk();
+          final int chunkLength = Math.min( chunk.length, length - offset );
+
+          int chunkOffset = 0;
+          while ( !Thread.currentThread().isInterrupted() && ( chunkOffset < chunkLength ) )
+          {
+            int read = this.inputStream.readRawData( chunk, chunkOffset, chunkLength - chunkOffset );
+            if ( read < 0 )
+            {
+              throw new EOFException();
+            }
+
+            chunkOffset += read;
+            offset += read;
+
+            this.acquisitionProgressListener.acquisitionInProgress( ( int )( ( 100L * offset ) / length ) );
+          }
+
+          decoder.submitChunk( chunk );
         }
-        else
+      }
+      catch ( IOException exception )
+      {
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !HostUtils.handleInterruptedException( exception ) )
         {
-          count -= read;
-          offset += read;
+          throw exception;
         }
+      }
+      finally
+      {
+        // Make sure we leave the device in a correct state...
+        resetAfterRead();
+
+        this.acquisitionProgressListener.acquisitionInProgress( 100 );
+      }
 
-        this.acquisitionProgressListener.acquisitionInProgress( ( 100 * offset ) / length );
+      if ( Thread.currentThread().isInterrupted() )
+      {
+        // We're interrupted while read samples, do not proceed...
+        throw new InterruptedException();
       }
+
+      // Wait until the last chunks are processed...
+      result.get();
     }
-    catch ( IOException exception )
+    catch ( ExecutionException exception )
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
+      final Throwable cause = exception.getCause();
+      if ( cause instanceof RuntimeException )
+      {
+        throw ( RuntimeException )cause;
+      }
+      else if ( cause instanceof Error )
       {
-        throw exception;
+        throw ( Error )cause;
       }
+      throw new IOException( "Processing of samples failed! Possible reason: " + cause.getMessage() );
     }
     finally
     {
-      // Make sure we leave the device in a correct state...
-      this.outputStream.writeCmdReset();
-
-      this.acquisitionProgressListener.acquisitionInProgress( 100 );
+      result.cancel( true /* mayInterruptIfRunning */);
+      executor.shutdownNow();
     }
-    
-    if ( Thread.currentThread().isInterrupted() )
+  }
+
+  /**
+   * Resets the device after its samples are read. A failing reset is only
+   * logged, as not to hide the outcome of reading the samples itself.
+   */
+  private void resetAfterRead()
+  {
+    try
     {
-      // We're interrupted while read samples, do not proceed...
-      throw new InterruptedException();
+      this.outputStream.writeCmdReset();
     }
-    
-    final int groupCount = this.config.getGroupCount();
-    
-    // Normalize the raw data into the sample data, as expected...
-    int[] samples = new int[aSampleCount];
-    for ( int i = samples.length - 1, j = 0; i >= 0; i-- )
+    catch ( IOException exception )
     {
-      for ( int g = 0; g < groupCount; g++ )
+      // Make sure to handle IO-interrupted exceptions properly!
+      if ( !HostUtils.handleInterruptedException( exception ) )
       {
-        if ( this.config.isGroupEnabled( g ) )
-        {
-          samples[i] |= ( ( rawData[j++] & 0xff ) << ( 8 * g ) );
-        }
+        LOG.log( Level.WARNING, "Resetting device after reading samples failed!", exception );
       }
     }
-
-    // In case the device sends its samples in "reverse" order, we need to
-    // revert it now, before processing them further...
-    if ( this.config.isSamplesInReverseOrder() )
-    {
-      HostUtils.reverse( samples );
-    }
-
-    return samples;
   }
 }
@@ -252,9 +252,12 @@ public final class LogicSnifferConfigDialog extends JDialog implements Configura
   private static final String rleWarning = "The last channel will always be low when RLE is enabled!";
 
   /** The serial port baudrates that can be chosen. */
-  private static final String[] BAUDRATES = { "921600bps", "460800bps", "230400bps", "115200bps", "57600bps",
+  static final String[] BAUDRATES = { "921600bps", "460800bps", "230400bps", "115200bps", "57600bps",
       "38400bps", "19200bps", "14400bps", "9600bps", "4800bps" };
 
+  /** The interfaces that can be chosen to connect to the device. */
+  static final DeviceInterface[] DEVICE_INTERFACES = { DeviceInterface.NETWORK, DeviceInterface.SERIAL };
+
   // VARIABLES
 
   private final LogicSnifferDevice logicSnifferDevice;
@@ -461,36 +464,8 @@ public final class LogicSnifferConfigDialog extends JDialog implements Configura
         final int channel = this.triggerChannel[stage].getSelectedIndex();
         final boolean startCapture = this.triggerStart[stage].isSelected();
 
-        if ( complex )
-        {
-          if ( parallelTriggerStage )
-          {
-            config.setParallelTrigger( stage, m, v, level, delay, startCapture );
-          }
-          else
-          {
-            config.setSerialTrigger( stage, channel, m, v, level, delay, startCapture );
-          }
-        }
-        else
-        {
-          if ( stage == 0 )
-          {
-            if ( parallelTriggerStage )
-            {
-              config.setParallelTrigger( stage, m, v, 0, delay, true );
-            }
-            else
-            {
-              config.setSerialTrigger( stage, channel, m, v, 0, delay, true );
-            }
-          }
-          else
-          {
-            // make sure stages > 0 will not interfere
-            config.setParallelTrigger( stage, 0, 0, 3, 0, false );
-          }
-        }
+        LogicSnifferSettings.setTrigger( config, stage, complex, parallelTriggerStage, channel, m, v, level, delay,
+            startCapture );
       }
     }
 
@@ -668,43 +643,9 @@ public final class LogicSnifferConfigDialog extends JDialog implements Configura
    */
   final String getConnectionURI()
   {
-    String result;
-
-    if ( this.connTypeSelect.getSelectedItem() == DeviceInterface.NETWORK )
-    {
-      final String address = this.remAddress.getText();
-      final Integer port = getNumericValue( this.remPort );
-
-      result = String.format( "socket://%s:%d", address, port );
-    }
-    else if ( this.connTypeSelect.getSelectedItem() == DeviceInterface.SERIAL )
-    {
-      final String portName = getComboBoxText( this.portSelect );
-      final Integer baudrate = getNumericValue( this.portRateSelect );
-
-      result = String.format( "comm:%s;baudrate=%d;bitsperchar=8;parity=none;stopbits=1;flowcontrol=xon_xoff",
-          portName, baudrate );
-
-      if ( this.deviceProfile != null )
-      {
-        Integer openDelay = Integer.valueOf( this.deviceProfile.getOpenPortDelay() );
-        boolean dtrValue = this.deviceProfile.isOpenPortDtr();
-
-        result = String.format( "%s;dtr=%s;delay=%d", result, ( dtrValue ? "on" : "off" ), openDelay );
-
-        Integer recvTimeout = this.deviceProfile.getReceiveTimeout();
-        if ( recvTimeout != null )
-        {
-          result = String.format( "%s;recv_timeout=%d", result, recvTimeout );
-        }
-      }
-    }
-    else
-    {
-      throw new IllegalStateException( "Unknown/unsupported device interface: " + this.connTypeSelect.getSelectedItem() );
-    }
-
-    return result;
+    return LogicSnifferSettings.createConnectionURI( ( DeviceInterface )this.connTypeSelect.getSelectedItem(),
+        this.remAddress.getText(), getNumericValue( this.remPort ), getComboBoxText( this.portSelect ),
+        getNumericValue( this.portRateSelect ), this.deviceProfile );
   }
 
   /**
@@ -1194,9 +1135,7 @@ public final class LogicSnifferConfigDialog extends JDialog implements Configura
       }
     };
 
-    final DeviceInterface[] devInterfaces = new DeviceInterface[] { DeviceInterface.NETWORK, DeviceInterface.SERIAL };
-
-    this.connTypeSelect = new JComboBox( devInterfaces );
+    this.connTypeSelect = new JComboBox( DEVICE_INTERFACES );
     this.connTypeSelect.setRenderer( new DeviceInterfaceComboBoxRenderer() );
     this.connTypeSelect.setSelectedItem( DeviceInterface.SERIAL );
     this.connTypeSelect.addActionListener( fieldUpdater );
@@ -27,6 +27,7 @@ import java.util.logging.*;
 
 import javax.microedition.io.*;
 
+import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.devices.*;
 import nl.lxtreme.ols.util.swing.*;
@@ -37,19 +38,30 @@ import org.osgi.framework.*;
 import org.osgi.service.cm.*;
 import org.osgi.service.io.*;
 import org.sump.device.logicsniffer.profile.*;
+import org.sump.device.logicsniffer.protocol.*;
 
 
 /**
  * A representation of the LogicSniffer device.
+ * <p>
+ * The device is set up either through its dialog, or by means of the settings
+ * the dialog stores, for example, when running in batch mode.
+ * </p>
  * 
  * @author J.W. Janssen
  */
-public class LogicSnifferDevice implements Device
+public class LogicSnifferDevice implements HeadlessDevice
 {
   // CONSTANTS
 
   private static final String NAME = "OpenBench LogicSniffer";
 
+  /**
+   * The connection URI option that asks the connector service to keep the
+   * connection open between acquisitions.
+   */
+  private static final String POOLED_OPTION = ";pooled=true";
+
   private static final Logger LOG = Logger.getLogger( LogicSnifferDevice.class.getName() );
 
   // VARIABLES
@@ -60,6 +72,8 @@ public class LogicSnifferDevice implements Device
   private volatile ManagedServiceFactory deviceProfileManagerServiceFactory;
   private volatile ConnectorService connectorService;
   private volatile StreamConnection connection;
+  private volatile StreamConnection sessionConnection;
+  private volatile SumpDeviceState deviceState;
   private volatile LogicSnifferConfigDialog configDialog;
 
   // METHODS
@@ -84,8 +98,9 @@ public class LogicSnifferDevice implements Device
   public AcquisitionTask createAcquisitionTask( final AcquisitionProgressListener aProgressListener )
       throws IOException
   {
-    return new LogicSnifferAcquisitionTask( this.config, getStreamConnection(), getDeviceProfileManager(),
-        aProgressListener );
+    final StreamConnection conn = getStreamConnection();
+    return new LogicSnifferAcquisitionTask( this.config, conn, getDeviceProfileManager(), aProgressListener,
+        getDeviceState( conn ) );
   }
 
   /**
@@ -119,6 +134,25 @@ public class LogicSnifferDevice implements Device
     return this.config != null;
   }
 
+  /**
+   * Sets up the device by means of the given settings, which use the same names
+   * as {@link LogicSnifferConfigDialog} stores, without showing any dialog.
+   * 
+   * @see nl.lxtreme.ols.api.devices.HeadlessDevice#setupCapture(nl.lxtreme.ols.api.UserSettings)
+   */
+  @Override
+  public boolean setupCapture( final UserSettings aSettings )
+  {
+    final LogicSnifferSettings settings = new LogicSnifferSettings( aSettings, getDeviceProfileManager() );
+    if ( !settings.isValid() )
+    {
+      return false;
+    }
+
+    this.config = settings.getConfiguration();
+    return true;
+  }
+
   /**
    * Displays the device controller dialog with enabled configuration portion
    * and waits for user input.
@@ -224,8 +258,35 @@ public class LogicSnifferDevice implements Device
     }
   }
 
+  /**
+   * Returns the known state of the device behind the given connection.
+   * <p>
+   * As long as the connector service hands out the same (pooled) connection,
+   * the device stays connected, and the state of the last acquisition can be
+   * reused. Any other connection starts with a fresh device state.
+   * </p>
+   * 
+   * @param aConnection
+   *          the connection to get the device state for, cannot be
+   *          <code>null</code>.
+   * @return a device state, never <code>null</code>.
+   */
+  private SumpDeviceState getDeviceState( final StreamConnection aConnection )
+  {
+    if ( ( this.deviceState == null ) || ( this.sessionConnection != aConnection ) )
+    {
+      this.deviceState = new SumpDeviceState();
+      this.sessionConnection = aConnection;
+    }
+    return this.deviceState;
+  }
+
   /**
    * Returns the current stream connection that is opened.
+   * <p>
+   * The connection is pooled by the connector service, so closing it after an
+   * acquisition keeps the port open for the next acquisition.
+   * </p>
    * 
    * @return a stream connection, can be a cached one, never <code>null</code>.
    * @throws IOException
@@ -242,7 +303,7 @@ public class LogicSnifferDevice implements Device
         LOG.info( "Connecting to " + uri );
       }
 
-      this.connection = createStreamConnection( uri );
+      this.connection = createStreamConnection( uri.concat( POOLED_OPTION ) );
     }
     return this.connection;
   }
@@ -0,0 +1,579 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static nl.lxtreme.ols.api.Ols.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.util.*;
+
+import org.sump.device.logicsniffer.LogicSnifferConfigDialog.TriggerRatioChangeListener;
+import org.sump.device.logicsniffer.profile.*;
+import org.sump.device.logicsniffer.profile.DeviceProfile.CaptureClockSource;
+import org.sump.device.logicsniffer.profile.DeviceProfile.DeviceInterface;
+import org.sump.device.logicsniffer.profile.DeviceProfile.NumberingScheme;
+import org.sump.device.logicsniffer.profile.DeviceProfile.TriggerType;
+import org.sump.device.logicsniffer.protocol.*;
+
+
+/**
+ * Provides the configuration of the LogicSniffer device from user settings,
+ * using the same names and defaults as {@link LogicSnifferConfigDialog}, so the
+ * device can be set up without its dialog.
+ * <p>
+ * Like the dialog, the settings refer to the choices offered by the device
+ * profile by their index, for example, <tt>speed=0</tt> denotes the fastest
+ * sample rate of the device. Options that are not supported by the device
+ * profile are disabled, regardless of the settings. Unlike the dialog, test
+ * mode is disabled unless it is explicitly enabled.
+ * </p>
+ */
+final class LogicSnifferSettings
+{
+  // CONSTANTS
+
+  private static final int MAX_TRIGGER_DELAY = 65535;
+
+  // VARIABLES
+
+  private final UserSettings settings;
+  private final DeviceProfile deviceProfile;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LogicSnifferSettings instance.
+   * 
+   * @param aSettings
+   *          the user settings to take the configuration from, cannot be
+   *          <code>null</code>;
+   * @param aProfileManager
+   *          the device profile manager to look up the configured device type
+   *          in, cannot be <code>null</code>.
+   */
+  public LogicSnifferSettings( final UserSettings aSettings, final DeviceProfileManager aProfileManager )
+  {
+    if ( aSettings == null )
+    {
+      throw new IllegalArgumentException( "Settings cannot be null!" );
+    }
+    if ( aProfileManager == null )
+    {
+      throw new IllegalArgumentException( "Profile manager cannot be null!" );
+    }
+
+    this.settings = aSettings;
+
+    final String deviceType = aSettings.get( "deviceType", null );
+    if ( ( deviceType == null ) || "null".equals( deviceType ) )
+    {
+      this.deviceProfile = aProfileManager.getDefaultProfile();
+    }
+    else
+    {
+      this.deviceProfile = aProfileManager.getProfile( deviceType );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Creates the URI to connect to the LogicSniffer device.
+   * 
+   * @param aInterface
+   *          the interface to connect through, cannot be <code>null</code>;
+   * @param aAddress
+   *          the remote host address, only used for network connections;
+   * @param aPort
+   *          the remote port, only used for network connections;
+   * @param aPortName
+   *          the name of the serial port, only used for serial connections;
+   * @param aBaudrate
+   *          the baud rate of the serial port, only used for serial
+   *          connections;
+   * @param aProfile
+   *          the device profile that defines the timing of serial ports, can
+   *          be <code>null</code>.
+   * @return the connection string, used for the connector service, never
+   *         <code>null</code>.
+   */
+  static String createConnectionURI( final DeviceInterface aInterface, final String aAddress, final Integer aPort,
+      final String aPortName, final Integer aBaudrate, final DeviceProfile aProfile )
+  {
+    String result;
+
+    if ( aInterface == DeviceInterface.NETWORK )
+    {
+      result = String.format( "socket://%s:%d", aAddress, aPort );
+    }
+    else if ( aInterface == DeviceInterface.SERIAL )
+    {
+      result = String.format( "comm:%s;baudrate=%d;bitsperchar=8;parity=none;stopbits=1;flowcontrol=xon_xoff",
+          aPortName, aBaudrate );
+
+      if ( aProfile != null )
+      {
+        Integer openDelay = Integer.valueOf( aProfile.getOpenPortDelay() );
+        boolean dtrValue = aProfile.isOpenPortDtr();
+
+        result = String.format( "%s;dtr=%s;delay=%d", result, ( dtrValue ? "on" : "off" ), openDelay );
+
+        Integer recvTimeout = aProfile.getReceiveTimeout();
+        if ( recvTimeout != null )
+        {
+          result = String.format( "%s;recv_timeout=%d", result, recvTimeout );
+        }
+      }
+    }
+    else
+    {
+      throw new IllegalStateException( "Unknown/unsupported device interface: " + aInterface );
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the sample rates offered for the given device profile, fastest
+   * first.
+   * 
+   * @param aProfile
+   *          the device profile to get the sample rates for, cannot be
+   *          <code>null</code>.
+   * @return the sample rates, in Hertz, never <code>null</code>.
+   */
+  static Integer[] getCaptureSpeeds( final DeviceProfile aProfile )
+  {
+    List<Integer> sampleRates = new ArrayList<Integer>( Arrays.asList( aProfile.getSampleRates() ) );
+    if ( aProfile.isDoubleDataRateSupported() )
+    {
+      // assume the sample rates are ordered in reverse order, so adding it at
+      // the beginning should be fine...
+      sampleRates.add( 0, Integer.valueOf( 2 * aProfile.getClockspeed() ) );
+    }
+    return sampleRates.toArray( new Integer[sampleRates.size()] );
+  }
+
+  /**
+   * Returns the trigger types offered for the given device profile.
+   * 
+   * @param aProfile
+   *          the device profile to get the trigger types for, cannot be
+   *          <code>null</code>.
+   * @return the trigger types, never <code>null</code>.
+   */
+  static TriggerType[] getTriggerTypes( final DeviceProfile aProfile )
+  {
+    if ( aProfile.isComplexTriggersSupported() )
+    {
+      return TriggerType.values();
+    }
+    return new TriggerType[] { TriggerType.SIMPLE };
+  }
+
+  /**
+   * Configures a single trigger stage of the given configuration. Simple
+   * triggers only use the first stage, which directly starts the capture.
+   * 
+   * @param aConfig
+   *          the configuration to set the trigger stage for, cannot be
+   *          <code>null</code>;
+   * @param aStage
+   *          the trigger stage to set, >= 0;
+   * @param aComplex
+   *          <code>true</code> for complex triggers, <code>false</code> for
+   *          simple triggers;
+   * @param aParallel
+   *          <code>true</code> for a parallel trigger, <code>false</code> for
+   *          a serial trigger;
+   * @param aChannel
+   *          the channel of a serial trigger;
+   * @param aMask
+   *          the trigger mask;
+   * @param aValue
+   *          the trigger value;
+   * @param aLevel
+   *          the trigger level at which this stage is armed;
+   * @param aDelay
+   *          the number of samples to delay the trigger;
+   * @param aStartCapture
+   *          <code>true</code> to start the capture when this stage matches,
+   *          <code>false</code> to raise the trigger level.
+   */
+  static void setTrigger( final LogicSnifferConfig aConfig, final int aStage, final boolean aComplex,
+      final boolean aParallel, final int aChannel, final int aMask, final int aValue, final int aLevel,
+      final int aDelay, final boolean aStartCapture )
+  {
+    if ( aComplex )
+    {
+      if ( aParallel )
+      {
+        aConfig.setParallelTrigger( aStage, aMask, aValue, aLevel, aDelay, aStartCapture );
+      }
+      else
+      {
+        aConfig.setSerialTrigger( aStage, aChannel, aMask, aValue, aLevel, aDelay, aStartCapture );
+      }
+    }
+    else
+    {
+      if ( aStage == 0 )
+      {
+        if ( aParallel )
+        {
+          aConfig.setParallelTrigger( aStage, aMask, aValue, 0, aDelay, true );
+        }
+        else
+        {
+          aConfig.setSerialTrigger( aStage, aChannel, aMask, aValue, 0, aDelay, true );
+        }
+      }
+      else
+      {
+        // make sure stages > 0 will not interfere
+        aConfig.setParallelTrigger( aStage, 0, 0, 3, 0, false );
+      }
+    }
+  }
+
+  /**
+   * Returns the element of the given values at the given index, or
+   * <code>null</code> if the index is out of range.
+   */
+  private static <T> T getElement( final T[] aValues, final int aIndex )
+  {
+    if ( ( aValues == null ) || ( aIndex < 0 ) || ( aIndex >= aValues.length ) )
+    {
+      return null;
+    }
+    return aValues[aIndex];
+  }
+
+  /**
+   * Converts the given string of '0' and '1' characters to a bitmask, taking
+   * at most the given number of bits into account.
+   */
+  private static int toMask( final String aBits, final int aCount )
+  {
+    int result = 0;
+    for ( int i = 0; ( i < aCount ) && ( i < aBits.length() ); i++ )
+    {
+      if ( aBits.charAt( i ) == '1' )
+      {
+        result |= 1 << i;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the configuration denoted by these settings.
+   * 
+   * @return a {@link LogicSnifferConfig} instance, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case these settings are not valid.
+   * @see #isValid()
+   */
+  public LogicSnifferConfig getConfiguration()
+  {
+    if ( !isValid() )
+    {
+      throw new IllegalStateException( "Invalid settings!" );
+    }
+
+    final DeviceProfile profile = this.deviceProfile;
+    final LogicSnifferConfig config = new LogicSnifferConfig();
+
+    config.setDeviceProfile( profile );
+    config.setConnectionURI( getConnectionURI() );
+    config.setClockSource( getClockSource() );
+    config.setEnabledChannels( getEnabledChannels() );
+    config.setSampleRate( getSampleRate().intValue() );
+    config.setSampleCount( getSampleCount() );
+    config.setRatio( 1.0 - ( this.settings.getInt( "ratio", TriggerRatioChangeListener.DEFAULT_RATIO ) / 100.0 ) );
+
+    config.setFilterEnabled( profile.isNoiseFilterSupported() && !isDdrMode()
+        && this.settings.getBoolean( "filter", true ) );
+    config.setRleEnabled( profile.isRleSupported() && this.settings.getBoolean( "rle", false ) );
+    config.setAltNumberSchemeEnabled( NumberingScheme.OUTSIDE.equals( getNumberingScheme() ) );
+    config.setTestModeEnabled( profile.isTestModeSupported() && this.settings.getBoolean( "testMode", false ) );
+
+    final boolean triggerEnabled = isTriggerEnabled();
+    config.setTriggerEnabled( triggerEnabled );
+
+    if ( triggerEnabled )
+    {
+      final boolean complex = TriggerType.COMPLEX.equals( getTriggerType() );
+      final int channelCount = getChannelCount();
+
+      for ( int stage = 0; stage < LogicSnifferConfig.TRIGGER_STAGES; stage++ )
+      {
+        final String prefix = "triggerStage." + stage;
+
+        // Stages that are not supported are cleared...
+        int mask = 0;
+        int value = 0;
+        if ( stage < profile.getTriggerStages() )
+        {
+          mask = toMask( this.settings.get( prefix + ".mask", "" ), channelCount );
+          value = toMask( this.settings.get( prefix + ".value", "" ), channelCount );
+        }
+
+        final boolean parallel = this.settings.getInt( prefix + ".mode", 0 ) == 0;
+        final int channel = this.settings.getInt( prefix + ".channel", 0 );
+        final int level = this.settings.getInt( prefix + ".level", stage );
+        final boolean startCapture = this.settings.getBoolean( prefix + ".startCapture", false );
+
+        setTrigger( config, stage, complex, parallel, channel, mask, value, level, getTriggerDelay( stage ),
+            startCapture );
+      }
+    }
+
+    return config;
+  }
+
+  /**
+   * Returns whether these settings denote a valid configuration, that is, a
+   * known device profile, a complete connection, valid choices for the device
+   * profile, a valid ratio and trigger delays, and a sample count the device
+   * can provide.
+   * 
+   * @return <code>true</code> if these settings are valid, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isValid()
+  {
+    if ( this.deviceProfile == null )
+    {
+      return false;
+    }
+
+    final DeviceInterface deviceInterface = getDeviceInterface();
+    if ( deviceInterface == DeviceInterface.SERIAL )
+    {
+      if ( "".equals( this.settings.get( "port", "" ) ) || ( getBaudrate() <= 0 ) )
+      {
+        return false;
+      }
+    }
+    else if ( deviceInterface == DeviceInterface.NETWORK )
+    {
+      if ( "".equals( this.settings.get( "remAddress", "localhost" ) ) || ( getRemotePort() <= 0 ) )
+      {
+        return false;
+      }
+    }
+    else
+    {
+      return false;
+    }
+
+    if ( ( getClockSource() == null ) || ( getSampleRate() == null ) || ( getNumberingScheme() == null )
+        || ( getTriggerType() == null ) )
+    {
+      return false;
+    }
+
+    final int ratio = this.settings.getInt( "ratio", TriggerRatioChangeListener.DEFAULT_RATIO );
+    if ( ( ratio < 0 ) || ( ratio > 100 ) )
+    {
+      return false;
+    }
+
+    if ( isTriggerEnabled() )
+    {
+      for ( int stage = 0; stage < LogicSnifferConfig.TRIGGER_STAGES; stage++ )
+      {
+        if ( getTriggerDelay( stage ) > MAX_TRIGGER_DELAY )
+        {
+          return false;
+        }
+      }
+    }
+
+    final int enabledChannelGroups = Integer.bitCount( getEnabledChannels() ) / CHANNELS_PER_BLOCK;
+    final int maxSampleCount = this.deviceProfile.getMaximumCaptureSizeFor( enabledChannelGroups );
+    final int sampleCount = getSampleCount();
+
+    return ( enabledChannelGroups > 0 ) && ( sampleCount > 0 )
+        && ( ( maxSampleCount < 0 ) || ( sampleCount <= maxSampleCount ) );
+  }
+
+  /**
+   * @return the baud rate of the serial port, or -1 if it is not valid.
+   */
+  private int getBaudrate()
+  {
+    String portRate = this.settings.get( "portRate", LogicSnifferConfigDialog.BAUDRATES[3] );
+
+    // Like the dialog, small values are regarded as an index...
+    final int value = NumberUtils.safeParseInt( portRate, -1 );
+    if ( ( value >= 0 ) && ( value < LogicSnifferConfigDialog.BAUDRATES.length ) )
+    {
+      portRate = LogicSnifferConfigDialog.BAUDRATES[value];
+    }
+    return NumberUtils.smartParseInt( portRate, -1 );
+  }
+
+  /**
+   * @return the maximum number of channels, handling DDR-mode.
+   */
+  private int getChannelCount()
+  {
+    return Math.min( isDdrMode() ? 16 : MAX_CHANNELS, this.deviceProfile.getChannelCount() );
+  }
+
+  /**
+   * @return the maximum number of channel groups, handling DDR-mode.
+   */
+  private int getChannelGroupCount()
+  {
+    return Math.min( isDdrMode() ? ( MAX_BLOCKS >> 1 ) : MAX_BLOCKS, this.deviceProfile.getChannelGroupCount() );
+  }
+
+  /**
+   * @return the selected clock source, or <code>null</code> if none is
+   *         selected.
+   */
+  private CaptureClockSource getClockSource()
+  {
+    return getElement( this.deviceProfile.getCaptureClock(), this.settings.getInt( "source", 0 ) );
+  }
+
+  /**
+   * @return the connection URI.
+   */
+  private String getConnectionURI()
+  {
+    return createConnectionURI( getDeviceInterface(), this.settings.get( "remAddress", "localhost" ),
+        Integer.valueOf( getRemotePort() ), this.settings.get( "port", "" ), Integer.valueOf( getBaudrate() ),
+        this.deviceProfile );
+  }
+
+  /**
+   * @return the selected device interface, or <code>null</code> if none is
+   *         selected.
+   */
+  private DeviceInterface getDeviceInterface()
+  {
+    return getElement( LogicSnifferConfigDialog.DEVICE_INTERFACES, this.settings.getInt( "connType", 1 ) );
+  }
+
+  /**
+   * @return the mask of the enabled channels; only the first channel group is
+   *         enabled by default.
+   */
+  private int getEnabledChannels()
+  {
+    final int groups = toMask( this.settings.get( "channelGroup", "1" ), getChannelGroupCount() );
+
+    int result = 0;
+    for ( int i = 0; i < MAX_BLOCKS; i++ )
+    {
+      if ( ( groups & ( 1 << i ) ) != 0 )
+      {
+        result |= 0xff << ( 8 * i );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the selected numbering scheme, or <code>null</code> if none is
+   *         selected.
+   */
+  private NumberingScheme getNumberingScheme()
+  {
+    return getElement( this.deviceProfile.getChannelNumberingSchemes(), this.settings.getInt( "numberScheme", 0 ) );
+  }
+
+  /**
+   * @return the remote port, or -1 if it is not valid.
+   */
+  private int getRemotePort()
+  {
+    return NumberUtils.smartParseInt( this.settings.get( "remPort", "5678" ), -1 );
+  }
+
+  /**
+   * @return the selected sample count, or the maximum sample count for the
+   *         enabled channel groups if the size is automatically determined.
+   */
+  private int getSampleCount()
+  {
+    if ( this.settings.getBoolean( "autosize", false ) )
+    {
+      final int enabledChannelGroups = Integer.bitCount( getEnabledChannels() ) / CHANNELS_PER_BLOCK;
+      return this.deviceProfile.getMaximumCaptureSizeFor( enabledChannelGroups );
+    }
+
+    final Integer size = getElement( this.deviceProfile.getCaptureSizes(), this.settings.getInt( "size", 0 ) );
+    return ( size == null ) ? -1 : size.intValue();
+  }
+
+  /**
+   * @return the selected sample rate, in Hertz, or <code>null</code> if none
+   *         is selected.
+   */
+  private Integer getSampleRate()
+  {
+    return getElement( getCaptureSpeeds( this.deviceProfile ), this.settings.getInt( "speed", 0 ) );
+  }
+
+  /**
+   * @return the delay of the given trigger stage, in samples.
+   */
+  private int getTriggerDelay( final int aStage )
+  {
+    return NumberUtils.smartParseInt( this.settings.get( "triggerStage." + aStage + ".delay", "0" ) );
+  }
+
+  /**
+   * @return the selected trigger type, or <code>null</code> if none is
+   *         selected.
+   */
+  private TriggerType getTriggerType()
+  {
+    return getElement( getTriggerTypes( this.deviceProfile ), this.settings.getInt( "triggerType", 0 ) );
+  }
+
+  /**
+   * @return <code>true</code> if double-data rate mode is enabled,
+   *         <code>false</code> if it disabled.
+   */
+  private boolean isDdrMode()
+  {
+    final Integer sampleRate = getSampleRate();
+    return ( sampleRate != null ) && ( sampleRate.intValue() > SumpProtocolConstants.CLOCK );
+  }
+
+  /**
+   * @return <code>true</code> if triggers are enabled and supported,
+   *         <code>false</code> otherwise.
+   */
+  private boolean isTriggerEnabled()
+  {
+    return this.deviceProfile.isTriggerSupported() && this.settings.getBoolean( "trigger", false );
+  }
+}
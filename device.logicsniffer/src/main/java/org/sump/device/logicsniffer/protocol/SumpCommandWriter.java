@@ -85,6 +85,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
 
   protected final LogicSnifferConfig config;
   private final DataOutputStream outputStream;
+  private final SumpDeviceState deviceState;
 
   // CONSTRUCTORS
 
@@ -97,9 +98,28 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
    *          the {@link DataOutputStream} to wrap, cannot be <code>null</code>.
    */
   public SumpCommandWriter( final LogicSnifferConfig aConfiguration, final DataOutputStream aOutputStream )
+  {
+    this( aConfiguration, aOutputStream, null /* aDeviceState */);
+  }
+
+  /**
+   * Creates a new {@link SumpCommandWriter} instance that only writes those
+   * configuration commands whose values differ from the given device state.
+   * 
+   * @param aConfiguration
+   *          the configuration to use, cannot be <code>null</code>;
+   * @param aOutputStream
+   *          the {@link DataOutputStream} to wrap, cannot be <code>null</code>;
+   * @param aDeviceState
+   *          the known state of the device, can be <code>null</code> to always
+   *          write all configuration commands.
+   */
+  public SumpCommandWriter( final LogicSnifferConfig aConfiguration, final DataOutputStream aOutputStream,
+      final SumpDeviceState aDeviceState )
   {
     this.config = aConfiguration;
     this.outputStream = aOutputStream;
+    this.deviceState = aDeviceState;
   }
 
   // METHODS
@@ -203,7 +223,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     int trigcount;
 
     // set the sampling frequency...
-    sendCommand( SETDIVIDER, this.config.getDivider() );
+    sendConfigCommand( SETDIVIDER, this.config.getDivider() );
 
     final int stopCounter = configureTriggers();
     final int readCounter = this.config.getReadCounter();
@@ -231,7 +251,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     }
 
     // set the capture size...
-    sendCommand( SETSIZE, size );
+    sendConfigCommand( SETSIZE, size );
 
     int flags = 0;
     if ( this.config.isExternalClock() )
@@ -309,7 +329,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     LOG.log( Level.FINE, "Flags: 0b{0}", Integer.toBinaryString( flags ) );
 
     // finally set the device flags...
-    sendCommand( SETFLAGS, flags );
+    sendConfigCommand( SETFLAGS, flags );
 
     return trigcount;
   }
@@ -384,20 +404,51 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
       for ( int i = 0; i < this.config.getMaxTriggerStages(); i++ )
       {
         final int indexMask = 4 * i;
-        sendCommand( SETTRIGMASK | indexMask, this.config.getTriggerMask( i ) );
-        sendCommand( SETTRIGVAL | indexMask, this.config.getTriggerValue( i ) );
-        sendCommand( SETTRIGCFG | indexMask, this.config.getTriggerConfig( i ) );
+        sendConfigCommand( SETTRIGMASK | indexMask, this.config.getTriggerMask( i ) );
+        sendConfigCommand( SETTRIGVAL | indexMask, this.config.getTriggerValue( i ) );
+        sendConfigCommand( SETTRIGCFG | indexMask, this.config.getTriggerConfig( i ) );
       }
       effectiveStopCounter = this.config.getStopCounter();
     }
     else
     {
-      sendCommand( SETTRIGMASK, 0 );
-      sendCommand( SETTRIGVAL, 0 );
-      sendCommand( SETTRIGCFG, LogicSnifferConfig.TRIGGER_CAPTURE );
+      sendConfigCommand( SETTRIGMASK, 0 );
+      sendConfigCommand( SETTRIGVAL, 0 );
+      sendConfigCommand( SETTRIGCFG, LogicSnifferConfig.TRIGGER_CAPTURE );
       effectiveStopCounter = this.config.getReadCounter();
     }
 
     return effectiveStopCounter;
   }
+
+  /**
+   * Sends a long command that writes a configuration register of the device,
+   * unless the device state tells the register already holds the given value.
+   * 
+   * @param aOpcode
+   *          one byte operation code
+   * @param aData
+   *          four byte data portion
+   * @throws IOException
+   *           if writing to stream fails
+   */
+  private void sendConfigCommand( final int aOpcode, final int aData ) throws IOException
+  {
+    if ( this.deviceState == null )
+    {
+      sendCommand( aOpcode, aData );
+    }
+    else if ( this.deviceState.isCurrent( aOpcode, aData ) )
+    {
+      if ( LOG.isLoggable( Level.FINE ) )
+      {
+        LOG.log( Level.FINE, String.format( "Skipping unchanged command: 0x%02x", Integer.valueOf( aOpcode & 0xFF ) ) );
+      }
+    }
+    else
+    {
+      sendCommand( aOpcode, aData );
+      this.deviceState.setRegister( aOpcode, aData );
+    }
+  }
 }
@@ -0,0 +1,123 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.protocol;
+
+
+import java.util.*;
+
+
+/**
+ * Keeps track of what is known about a SUMP-compatible device while it stays
+ * connected, that is, whether it is already detected, and the last values
+ * written to its configuration registers.
+ * <p>
+ * This allows consecutive acquisitions over the same connection to skip the
+ * device detection, and to only send the configuration commands whose values
+ * changed since the last acquisition. In case an acquisition does not end
+ * normally, the device is in an unknown state, and everything is forgotten
+ * upon the start of the next acquisition.
+ * </p>
+ */
+public final class SumpDeviceState
+{
+  // VARIABLES
+
+  private final Map<Integer, Integer> registers;
+  private boolean detected;
+  private boolean pending;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SumpDeviceState instance for a device that is not yet
+   * detected.
+   */
+  public SumpDeviceState()
+  {
+    this.registers = new HashMap<Integer, Integer>();
+  }
+
+  // METHODS
+
+  /**
+   * Marks the start of an acquisition.
+   *
+   * @return <code>true</code> if the device is already detected,
+   *         <code>false</code> if it needs to be (re)detected.
+   */
+  public synchronized boolean beginAcquisition()
+  {
+    if ( this.pending )
+    {
+      // The last acquisition did not end normally...
+      this.registers.clear();
+      this.detected = false;
+    }
+    this.pending = true;
+    return this.detected;
+  }
+
+  /**
+   * Marks the normal end of an acquisition.
+   */
+  public synchronized void endAcquisition()
+  {
+    this.pending = false;
+  }
+
+  /**
+   * Returns whether the given configuration register is known to hold the
+   * given value.
+   *
+   * @param aOpcode
+   *          the opcode of the command that writes the register;
+   * @param aValue
+   *          the register value.
+   * @return <code>true</code> if the register does not need to be written,
+   *         <code>false</code> otherwise.
+   */
+  public synchronized boolean isCurrent( final int aOpcode, final int aValue )
+  {
+    final Integer value = this.registers.get( Integer.valueOf( aOpcode ) );
+    return ( value != null ) && ( value.intValue() == aValue );
+  }
+
+  /**
+   * Marks the device as detected.
+   */
+  public synchronized void setDetected()
+  {
+    this.detected = true;
+  }
+
+  /**
+   * Records the value that is written to the given configuration register.
+   *
+   * @param aOpcode
+   *          the opcode of the command that writes the register;
+   * @param aValue
+   *          the written register value.
+   */
+  public synchronized void setRegister( final int aOpcode, final int aValue )
+  {
+    this.registers.put( Integer.valueOf( aOpcode ), Integer.valueOf( aValue ) );
+  }
+}
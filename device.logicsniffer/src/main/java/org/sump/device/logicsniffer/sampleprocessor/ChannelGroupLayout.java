@@ -0,0 +1,295 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Provides a compiled form of the enabled channel groups, used to unpack the
+ * raw sample data and to normalize sample values without having to consult the
+ * configuration for every single sample.
+ * <p>
+ * Samples are unpacked into the "channel layout", in which each channel group
+ * occupies its own byte in the sample value, regardless of which groups are
+ * enabled. A normalized sample value has the bytes of the enabled groups packed
+ * together, starting at the least significant byte.
+ * </p>
+ */
+public abstract class ChannelGroupLayout
+{
+  // INNER TYPES
+
+  /**
+   * Provides a layout for when none of the channel groups is enabled (which
+   * can happen in DDR-mode when only the upper groups are enabled), yielding
+   * no sample data at all.
+   */
+  static final class NoGroupLayout extends ChannelGroupLayout
+  {
+    NoGroupLayout( final int[] aShifts )
+    {
+      super( aShifts );
+    }
+
+    @Override
+    public int normalize( final int aSampleValue )
+    {
+      return 0;
+    }
+
+    @Override
+    public int unpack( final byte[] aRawData, final int aLength, final int[] aSamples )
+    {
+      return 0;
+    }
+  }
+
+  /**
+   * Provides a layout for a single enabled channel group.
+   */
+  static final class OneGroupLayout extends ChannelGroupLayout
+  {
+    private final int s0;
+
+    OneGroupLayout( final int[] aShifts )
+    {
+      super( aShifts );
+      this.s0 = aShifts[0];
+    }
+
+    @Override
+    public int normalize( final int aSampleValue )
+    {
+      return ( aSampleValue >>> this.s0 ) & 0xff;
+    }
+
+    @Override
+    public int unpack( final byte[] aRawData, final int aLength, final int[] aSamples )
+    {
+      final int count = aLength;
+      for ( int i = 0; i < count; i++ )
+      {
+        aSamples[i] = ( aRawData[i] & 0xff ) << this.s0;
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Provides a layout for two enabled channel groups.
+   */
+  static final class TwoGroupLayout extends ChannelGroupLayout
+  {
+    private final int s0;
+    private final int s1;
+
+    TwoGroupLayout( final int[] aShifts )
+    {
+      super( aShifts );
+      this.s0 = aShifts[0];
+      this.s1 = aShifts[1];
+    }
+
+    @Override
+    public int normalize( final int aSampleValue )
+    {
+      return ( ( aSampleValue >>> this.s0 ) & 0xff ) //
+          | ( ( ( aSampleValue >>> this.s1 ) & 0xff ) << 8 );
+    }
+
+    @Override
+    public int unpack( final byte[] aRawData, final int aLength, final int[] aSamples )
+    {
+      final int count = aLength >> 1;
+      for ( int i = 0, j = 0; i < count; i++, j += 2 )
+      {
+        aSamples[i] = ( ( aRawData[j] & 0xff ) << this.s0 ) //
+            | ( ( aRawData[j + 1] & 0xff ) << this.s1 );
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Provides a layout for three enabled channel groups.
+   */
+  static final class ThreeGroupLayout extends ChannelGroupLayout
+  {
+    private final int s0;
+    private final int s1;
+    private final int s2;
+
+    ThreeGroupLayout( final int[] aShifts )
+    {
+      super( aShifts );
+      this.s0 = aShifts[0];
+      this.s1 = aShifts[1];
+      this.s2 = aShifts[2];
+    }
+
+    @Override
+    public int normalize( final int aSampleValue )
+    {
+      return ( ( aSampleValue >>> this.s0 ) & 0xff ) //
+          | ( ( ( aSampleValue >>> this.s1 ) & 0xff ) << 8 ) //
+          | ( ( ( aSampleValue >>> this.s2 ) & 0xff ) << 16 );
+    }
+
+    @Override
+    public int unpack( final byte[] aRawData, final int aLength, final int[] aSamples )
+    {
+      final int count = aLength / 3;
+      for ( int i = 0, j = 0; i < count; i++, j += 3 )
+      {
+        aSamples[i] = ( ( aRawData[j] & 0xff ) << this.s0 ) //
+            | ( ( aRawData[j + 1] & 0xff ) << this.s1 ) //
+            | ( ( aRawData[j + 2] & 0xff ) << this.s2 );
+      }
+      return count;
+    }
+  }
+
+  /**
+   * Provides a layout for all four channel groups enabled, in which case the
+   * channel layout and the normalized layout are the same.
+   */
+  static final class FourGroupLayout extends ChannelGroupLayout
+  {
+    FourGroupLayout( final int[] aShifts )
+    {
+      super( aShifts );
+    }
+
+    @Override
+    public int normalize( final int aSampleValue )
+    {
+      return aSampleValue;
+    }
+
+    @Override
+    public int unpack( final byte[] aRawData, final int aLength, final int[] aSamples )
+    {
+      final int count = aLength >> 2;
+      for ( int i = 0, j = 0; i < count; i++, j += 4 )
+      {
+        aSamples[i] = ( aRawData[j] & 0xff ) //
+            | ( ( aRawData[j + 1] & 0xff ) << 8 ) //
+            | ( ( aRawData[j + 2] & 0xff ) << 16 ) //
+            | ( ( aRawData[j + 3] & 0xff ) << 24 );
+      }
+      return count;
+    }
+  }
+
+  // VARIABLES
+
+  private final int[] shifts;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ChannelGroupLayout instance.
+   * 
+   * @param aShifts
+   *          the bit shifts of the enabled channel groups, in ascending order.
+   */
+  ChannelGroupLayout( final int[] aShifts )
+  {
+    this.shifts = aShifts;
+  }
+
+  // METHODS
+
+  /**
+   * Compiles the enabled channel groups of the given configuration into a
+   * channel group layout.
+   * 
+   * @param aConfig
+   *          the configuration to compile, cannot be <code>null</code>.
+   * @return a channel group layout, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case more than four channel groups are enabled.
+   */
+  public static ChannelGroupLayout create( final LogicSnifferConfig aConfig )
+  {
+    final int groupCount = aConfig.getGroupCount();
+    final int[] shifts = new int[aConfig.getEnabledGroupCount()];
+    for ( int g = 0, j = 0; g < groupCount; g++ )
+    {
+      if ( aConfig.isGroupEnabled( g ) )
+      {
+        shifts[j++] = 8 * g;
+      }
+    }
+
+    switch ( shifts.length )
+    {
+      case 0:
+        return new NoGroupLayout( shifts );
+      case 1:
+        return new OneGroupLayout( shifts );
+      case 2:
+        return new TwoGroupLayout( shifts );
+      case 3:
+        return new ThreeGroupLayout( shifts );
+      case 4:
+        return new FourGroupLayout( shifts );
+      default:
+        throw new IllegalArgumentException( "Illegal number of enabled groups! Should be at most 4!" );
+    }
+  }
+
+  /**
+   * Returns the number of bytes a single raw sample occupies.
+   * 
+   * @return a sample width, in bytes, 0..4.
+   */
+  public final int getSampleWidth()
+  {
+    return this.shifts.length;
+  }
+
+  /**
+   * Normalizes the given sample value to mask out the unused channel groups and
+   * get a sample value in the correct width.
+   * 
+   * @param aSampleValue
+   *          the sample value, in channel layout, to normalize.
+   * @return the normalized sample value.
+   */
+  public abstract int normalize( int aSampleValue );
+
+  /**
+   * Unpacks the given raw sample data into sample values in channel layout.
+   * 
+   * @param aRawData
+   *          the raw sample data, as read from the device;
+   * @param aLength
+   *          the number of bytes to unpack, should be a multiple of the sample
+   *          width;
+   * @param aSamples
+   *          the array to write the unpacked sample values to.
+   * @return the number of unpacked sample values.
+   */
+  public abstract int unpack( byte[] aRawData, int aLength, int[] aSamples );
+}
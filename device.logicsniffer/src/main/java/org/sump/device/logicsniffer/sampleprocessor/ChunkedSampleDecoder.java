@@ -0,0 +1,201 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+
+import java.util.concurrent.*;
+
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Provides an incremental decoding stage for the raw sample data as read from
+ * the device.
+ * <p>
+ * The raw sample data is offered in fixed-size chunks, which are unpacked into
+ * sample values and handed to a {@link SampleProcessor} while the remainder of
+ * the sample data is still being read. This decoder is intended to run on its
+ * own thread, separate from the thread reading the sample data.
+ * </p>
+ * <p>
+ * Optionally, the transitions decoded so far are periodically handed to a
+ * {@link SampleProcessorCallback} as {@link TransitionPreview}, allowing them to
+ * be shown while the acquisition is still in progress.
+ * </p>
+ */
+public final class ChunkedSampleDecoder implements Callable<Void>
+{
+  // CONSTANTS
+
+  /** The number of samples in a single chunk. */
+  private static final int CHUNK_SAMPLES = 16384;
+  /** The maximum number of chunks to keep around for reuse. */
+  private static final int MAX_FREE_CHUNKS = 8;
+  /** The minimal time between two previews, in milliseconds. */
+  private static final long PREVIEW_INTERVAL = 250L;
+
+  // VARIABLES
+
+  private final ChannelGroupLayout layout;
+  private final int length;
+  private final SampleProcessor processor;
+  private final SampleProcessorCallback previewCallback;
+
+  private final BlockingQueue<byte[]> fullChunks;
+  private final BlockingQueue<byte[]> freeChunks;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ChunkedSampleDecoder instance.
+   * 
+   * @param aConfig
+   *          the configuration to use, cannot be <code>null</code>;
+   * @param aSampleCount
+   *          the total number of samples to decode;
+   * @param aProcessor
+   *          the sample processor to hand the unpacked sample values to, cannot
+   *          be <code>null</code>.
+   */
+  public ChunkedSampleDecoder( final LogicSnifferConfig aConfig, final int aSampleCount,
+      final SampleProcessor aProcessor )
+  {
+    this( aConfig, aSampleCount, aProcessor, null /* aPreviewCallback */);
+  }
+
+  /**
+   * Creates a new ChunkedSampleDecoder instance that periodically hands the
+   * transitions decoded so far to the given callback.
+   * 
+   * @param aConfig
+   *          the configuration to use, cannot be <code>null</code>;
+   * @param aSampleCount
+   *          the total number of samples to decode;
+   * @param aProcessor
+   *          the sample processor to hand the unpacked sample values to, cannot
+   *          be <code>null</code>;
+   * @param aPreviewCallback
+   *          the callback to hand the previews to, can be <code>null</code> if
+   *          no previews are needed.
+   */
+  public ChunkedSampleDecoder( final LogicSnifferConfig aConfig, final int aSampleCount,
+      final SampleProcessor aProcessor, final SampleProcessorCallback aPreviewCallback )
+  {
+    if ( aProcessor == null )
+    {
+      throw new IllegalArgumentException( "Processor cannot be null!" );
+    }
+
+    this.layout = ChannelGroupLayout.create( aConfig );
+    this.length = this.layout.getSampleWidth() * aSampleCount;
+    this.processor = aProcessor;
+    this.previewCallback = aPreviewCallback;
+
+    this.fullChunks = new LinkedBlockingQueue<byte[]>();
+    this.freeChunks = new ArrayBlockingQueue<byte[]>( MAX_FREE_CHUNKS );
+  }
+
+  // METHODS
+
+  /**
+   * Decodes all chunks of raw sample data until all samples are decoded.
+   * 
+   * @see java.util.concurrent.Callable#call()
+   */
+  @Override
+  public Void call() throws InterruptedException
+  {
+    final int[] samples = new int[CHUNK_SAMPLES];
+    final TransitionPreview preview = new TransitionPreview();
+
+    long lastPreview = System.currentTimeMillis();
+    int remaining = this.length;
+    while ( remaining > 0 )
+    {
+      final byte[] chunk = this.fullChunks.take();
+      final int chunkLength = Math.min( chunk.length, remaining );
+
+      final int count = this.layout.unpack( chunk, chunkLength, samples );
+      // Allow the chunk to be reused for reading...
+      this.freeChunks.offer( chunk );
+
+      this.processor.process( samples, 0, count );
+
+      remaining -= chunkLength;
+
+      if ( ( this.previewCallback != null ) && ( remaining > 0 ) )
+      {
+        final long now = System.currentTimeMillis();
+        if ( ( ( now - lastPreview ) >= PREVIEW_INTERVAL ) && this.processor.preview( preview ) )
+        {
+          this.previewCallback.preview( preview );
+          lastPreview = now;
+        }
+      }
+    }
+
+    this.processor.finish();
+
+    return null;
+  }
+
+  /**
+   * Returns the total length of raw sample data to read.
+   * 
+   * @return a length, in bytes.
+   */
+  public int getLength()
+  {
+    return this.length;
+  }
+
+  /**
+   * Obtains an empty chunk for reading raw sample data into. This method never
+   * blocks.
+   * <p>
+   * The chunk should be filled completely, unless the end of the raw sample
+   * data is reached.
+   * </p>
+   * 
+   * @return an empty chunk, never <code>null</code>.
+   */
+  public byte[] obtainChunk()
+  {
+    byte[] result = this.freeChunks.poll();
+    if ( result == null )
+    {
+      result = new byte[CHUNK_SAMPLES * this.layout.getSampleWidth()];
+    }
+    return result;
+  }
+
+  /**
+   * Submits a (filled) chunk of raw sample data for decoding.
+   * 
+   * @param aChunk
+   *          the chunk to decode, as obtained by {@link #obtainChunk()}.
+   */
+  public void submitChunk( final byte[] aChunk )
+  {
+    this.fullChunks.add( aChunk );
+  }
+}
@@ -21,87 +21,138 @@
 package org.sump.device.logicsniffer.sampleprocessor;
 
 
+import nl.lxtreme.ols.api.data.*;
+
 import org.sump.device.logicsniffer.*;
 
 
 /**
  * Processes all samples and only returns the actual changed sample values.
+ * <p>
+ * This filter expects the samples to be offered in chronological order, that
+ * is, the first sample first.
+ * </p>
  */
 public final class EqualityFilter implements SampleProcessor
 {
   // VARIABLES
 
   private final LogicSnifferConfig config;
-  private final int[] buffer;
   private final int trigCount;
+  private final TransitionBuffer transitions;
   private final SampleProcessorCallback callback;
 
+  private long time;
+  private int lastSample;
+  /** the number of transitions that is already in the preview. */
+  private int previewed;
+
   // CONSTRUCTORS
 
   /**
    * @param aConfig
    *          the configuration to use;
-   * @param aBuffer
-   *          the buffer with sample data to decode.
    * @param aTrigCount
    *          the trigcount value;
+   * @param aTransitions
+   *          the buffer to write the changed sample values into;
    * @param aCallback
    *          the callback to use.
    */
-  public EqualityFilter( final LogicSnifferConfig aConfig, final int[] aBuffer, final int aTrigCount,
+  public EqualityFilter( final LogicSnifferConfig aConfig, final int aTrigCount, final TransitionBuffer aTransitions,
       final SampleProcessorCallback aCallback )
   {
-    if ( aBuffer == null )
+    if ( aTransitions == null )
     {
-      throw new IllegalArgumentException( "Buffer cannot be null!" );
+      throw new IllegalArgumentException( "Transitions cannot be null!" );
     }
 
     this.config = aConfig;
-    this.buffer = aBuffer;
     this.trigCount = aTrigCount;
+    this.transitions = aTransitions;
     this.callback = aCallback;
+
+    this.time = 0;
+    this.lastSample = 0; // first value doesn't really matter
   }
 
   // METHODS
 
   /**
-   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    // Ensure the last sample is shown as well (even if there was a lot of time
+    // between the last real sample and the end of the capture; i.e., constant
+    // data)...
+    this.transitions.add( this.lastSample, this.time );
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( this.time, ( this.trigCount - getTriggerCorrection( this.config ) ) );
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#preview(TransitionPreview)
    */
   @Override
-  public final void process()
+  public boolean preview( final TransitionPreview aPreview )
   {
-    long time = 0;
+    if ( this.time == 0 )
+    {
+      // Nothing seen yet...
+      return false;
+    }
 
-    final int samples = this.buffer.length;
+    // Only the transitions added since the last preview are appended...
+    this.previewed = aPreview.addAll( this.transitions, this.previewed, this.lastSample, this.time - 1 );
+    return true;
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process(int[],
+   *      int, int)
+   */
+  @Override
+  public void process( final int[] aSamples, final int aOffset, final int aCount )
+  {
+    long t = this.time;
+    int last = this.lastSample;
 
-    int lastSample = 0; // first value doesn't really matter
-    for ( int i = 0; i < samples; i++ )
+    for ( int i = aOffset, end = aOffset + aCount; i < end; i++ )
     {
-      final int newSample = this.buffer[i];
+      final int newSample = aSamples[i];
 
-      if ( ( i == 0 ) || ( lastSample != newSample ) )
+      if ( ( t == 0 ) || ( last != newSample ) )
       {
         // add the read sample & add a timestamp value as well...
-        this.callback.addValue( newSample, time );
+        this.transitions.add( newSample, t );
       }
 
-      lastSample = newSample;
-      time++;
+      last = newSample;
+      t++;
     }
 
-    // Ensure the last sample is shown as well (even if there was a lot of time
-    // between the last real sample and the end of the capture; i.e., constant
-    // data)...
-    this.callback.addValue( lastSample, time );
+    this.time = t;
+    this.lastSample = last;
+  }
 
+  /**
+   * Returns the correction to apply to the trigger count.
+   * 
+   * @param aConfig
+   *          the configuration to use, cannot be <code>null</code>.
+   * @return a trigger correction value.
+   */
+  static int getTriggerCorrection( final LogicSnifferConfig aConfig )
+  {
     // XXX JaWi: why is this correction needed?
     int correction = 2;
-    if ( this.config.getDivider() <= 3 )
+    if ( aConfig.getDivider() <= 3 )
     {
       correction = 1;
     }
-
-    // Take the last seen time value as "absolete" length of this trace...
-    this.callback.ready( time, ( this.trigCount - correction ) );
+    return correction;
   }
 }
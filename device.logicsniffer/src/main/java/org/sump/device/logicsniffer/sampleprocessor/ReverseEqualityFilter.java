@@ -0,0 +1,189 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Processes all samples and only returns the actual changed sample values, for
+ * samples that are offered in reverse chronological order, that is, the last
+ * sample first.
+ * <p>
+ * The result is identical to what {@link EqualityFilter} yields for the same
+ * samples in chronological order.
+ * </p>
+ */
+public final class ReverseEqualityFilter implements SampleProcessor
+{
+  // VARIABLES
+
+  private final LogicSnifferConfig config;
+  private final int sampleCount;
+  private final int trigCount;
+  private final TransitionBuffer transitions;
+  private final SampleProcessorCallback callback;
+
+  /** the transitions in reverse order. */
+  private final TransitionBuffer reversed;
+
+  private int index;
+  private int lastSample;
+  private int previousSample;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ReverseEqualityFilter instance.
+   * 
+   * @param aConfig
+   *          the configuration to use;
+   * @param aSampleCount
+   *          the total number of samples that is to be offered;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aTransitions
+   *          the buffer to write the changed sample values into;
+   * @param aCallback
+   *          the callback to use.
+   */
+  public ReverseEqualityFilter( final LogicSnifferConfig aConfig, final int aSampleCount, final int aTrigCount,
+      final TransitionBuffer aTransitions, final SampleProcessorCallback aCallback )
+  {
+    if ( aTransitions == null )
+    {
+      throw new IllegalArgumentException( "Transitions cannot be null!" );
+    }
+
+    this.config = aConfig;
+    this.sampleCount = aSampleCount;
+    this.trigCount = aTrigCount;
+    this.transitions = aTransitions;
+    this.callback = aCallback;
+
+    this.reversed = new TransitionBuffer();
+
+    this.index = aSampleCount;
+    this.lastSample = 0; // first value doesn't really matter
+  }
+
+  // METHODS
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    // In case less samples are offered than expected, the time values need to
+    // be corrected...
+    final int missing = this.index;
+    final long time = this.sampleCount - missing;
+
+    if ( time > 0 )
+    {
+      // The first sample in time always is a transition...
+      this.reversed.append( this.previousSample, this.index );
+    }
+
+    for ( int i = this.reversed.size() - 1; i >= 0; i-- )
+    {
+      this.transitions.add( this.reversed.getValue( i ), this.reversed.getTimestamp( i ) - missing );
+    }
+
+    // Ensure the last sample is shown as well (even if there was a lot of time
+    // between the last real sample and the end of the capture; i.e., constant
+    // data)...
+    this.transitions.add( this.lastSample, time );
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( time, ( this.trigCount - EqualityFilter.getTriggerCorrection( this.config ) ) );
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#preview(TransitionPreview)
+   */
+  @Override
+  public boolean preview( final TransitionPreview aPreview )
+  {
+    if ( this.index == this.sampleCount )
+    {
+      // Nothing seen yet...
+      return false;
+    }
+
+    // The transitions are decoded back-to-front, so they cannot be appended to
+    // the preview; rebuild it with the end of the capture seen so far...
+    final int count = this.reversed.size();
+    aPreview.clear( count + 2 );
+
+    aPreview.add( this.previousSample, this.index );
+    for ( int i = count - 1; i >= 0; i-- )
+    {
+      aPreview.add( this.reversed.getValue( i ), this.reversed.getTimestamp( i ) );
+    }
+
+    final long lastTime = this.sampleCount - 1;
+    if ( lastTime > aPreview.getLastTimestamp() )
+    {
+      aPreview.add( this.lastSample, lastTime );
+    }
+    aPreview.setAbsoluteLength( lastTime );
+
+    return true;
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process(int[],
+   *      int, int)
+   */
+  @Override
+  public void process( final int[] aSamples, final int aOffset, final int aCount )
+  {
+    int i = this.index;
+    int previous = this.previousSample;
+
+    for ( int k = aOffset, end = aOffset + aCount; k < end; k++ )
+    {
+      final int newSample = aSamples[k];
+
+      if ( i == this.sampleCount )
+      {
+        // First sample seen is the last sample in time...
+        this.lastSample = newSample;
+      }
+      else if ( previous != newSample )
+      {
+        // The previous sample (which is later in time) is a transition...
+        this.reversed.append( previous, i );
+      }
+
+      previous = newSample;
+      i--;
+    }
+
+    this.index = i;
+    this.previousSample = previous;
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Provides a RLE decoder for samples that are offered in reverse chronological
+ * order, that is, the last sample first.
+ * <p>
+ * As the absolute time of a sample is only known after all samples preceding
+ * it are seen, this decoder keeps track of the time relative to the end of the
+ * capture. Once all samples are offered, the decoded transitions are written in
+ * chronological order using their absolute time values. The result is identical
+ * to what {@link RleDecoder} yields for the same samples in chronological order.
+ * </p>
+ * <p>
+ * This decoder does <b>not</b> support "double data rate" mode, as in that mode
+ * the RLE-counts span two samples which can only be paired from the front.
+ * </p>
+ */
+public final class ReverseRleDecoder implements SampleProcessor
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( ReverseRleDecoder.class.getName() );
+
+  // VARIABLES
+
+  private final ChannelGroupLayout layout;
+  private final int trigCount;
+  private final TransitionBuffer transitions;
+  private final SampleProcessorCallback callback;
+
+  private final int rleCountValue;
+  private final int rleCountMask;
+
+  /** the transitions in reverse order, with their time relative to the end. */
+  private final TransitionBuffer reversed;
+
+  private int index;
+  /** the time from the start of the current sample until the end. */
+  private long timeToEnd;
+  /** the RLE-counts not (yet) known to be preceded by a sample value. */
+  private long pendingCount;
+
+  private int lastSample;
+  private int runSample;
+  private int runIndex;
+  private long runTimeToEnd;
+
+  /** the earliest two transitions at or after the trigger, if any. */
+  private long trigTimeToEnd;
+  private long nextTrigTimeToEnd;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ReverseRleDecoder instance.
+   * 
+   * @param aConfig
+   *          the configuration to use;
+   * @param aSampleCount
+   *          the total number of samples that is to be offered;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aTransitions
+   *          the buffer to write the decoded sample values into;
+   * @param aCallback
+   *          the callback to use.
+   */
+  public ReverseRleDecoder( final LogicSnifferConfig aConfig, final int aSampleCount, final int aTrigCount,
+      final TransitionBuffer aTransitions, final SampleProcessorCallback aCallback )
+  {
+    if ( aTransitions == null )
+    {
+      throw new IllegalArgumentException( "Transitions cannot be null!" );
+    }
+    if ( aConfig.isDoubleDataRateEnabled() )
+    {
+      throw new IllegalArgumentException( "Double data rate mode is not supported!" );
+    }
+
+    this.layout = ChannelGroupLayout.create( aConfig );
+    this.trigCount = aTrigCount;
+    this.transitions = aTransitions;
+    this.callback = aCallback;
+
+    this.rleCountValue = RleDecoder.getRleCountValue( aConfig );
+    this.rleCountMask = this.rleCountValue - 1;
+
+    this.reversed = new TransitionBuffer();
+
+    this.index = aSampleCount;
+    this.timeToEnd = 0;
+    this.pendingCount = 0;
+    this.lastSample = -1;
+    this.runSample = -1;
+    this.trigTimeToEnd = -1;
+    this.nextTrigTimeToEnd = -1;
+  }
+
+  // METHODS
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    if ( this.pendingCount > 0 )
+    {
+      LOG.warning( "Ignoring RLE count without preceeding sample value: " + Long.toHexString( this.pendingCount ) );
+    }
+    if ( this.runSample >= 0 )
+    {
+      flushRun();
+    }
+
+    final long absLength = this.timeToEnd;
+
+    // Only now the absolute time values are known, so write the transitions in
+    // their chronological order...
+    for ( int i = this.reversed.size() - 1; i >= 0; i-- )
+    {
+      this.transitions.add( this.reversed.getValue( i ), absLength - this.reversed.getTimestamp( i ) );
+    }
+
+    // Mimic the chronological decoder: a trigger position at time zero is
+    // considered to be not set, causing it to take the next transition...
+    long rleTrigPos = 0;
+    if ( this.trigTimeToEnd >= 0 )
+    {
+      rleTrigPos = absLength - this.trigTimeToEnd;
+      if ( ( rleTrigPos == 0 ) && ( this.nextTrigTimeToEnd >= 0 ) )
+      {
+        rleTrigPos = absLength - this.nextTrigTimeToEnd;
+      }
+    }
+
+    // Ensure the last sample is shown as well (even if there was a lot of time
+    // between the last real sample and the end of the capture; i.e., constant
+    // data)...
+    this.transitions.add( this.lastSample, absLength );
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( absLength, rleTrigPos - 1 );
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#preview(TransitionPreview)
+   */
+  @Override
+  public boolean preview( final TransitionPreview aPreview )
+  {
+    // The absolute time of the decoded transitions is only known after all
+    // samples are seen...
+    return false;
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process(int[],
+   *      int, int)
+   */
+  @Override
+  public void process( final int[] aSamples, final int aOffset, final int aCount )
+  {
+    for ( int k = aOffset, end = aOffset + aCount; k < end; k++ )
+    {
+      final int i = --this.index;
+      final int sampleValue = aSamples[k];
+      final int normalizedSampleValue = this.layout.normalize( sampleValue );
+
+      if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
+      {
+        // RLE-counts only count when preceded by a sample value, which we've
+        // not seen yet...
+        this.pendingCount += ( normalizedSampleValue & this.rleCountMask );
+      }
+      else
+      {
+        this.timeToEnd += this.pendingCount + 1;
+        this.pendingCount = 0;
+
+        if ( this.runSample < 0 )
+        {
+          // First sample seen is the last sample in time...
+          this.lastSample = sampleValue;
+        }
+        else if ( this.runSample != sampleValue )
+        {
+          flushRun();
+        }
+
+        // Extend the current run of equal sample values to this sample...
+        this.runSample = sampleValue;
+        this.runIndex = i;
+        this.runTimeToEnd = this.timeToEnd;
+      }
+    }
+  }
+
+  /**
+   * Writes the current run of equal sample values as transition.
+   */
+  private void flushRun()
+  {
+    this.reversed.append( this.runSample, this.runTimeToEnd );
+
+    if ( this.runIndex >= this.trigCount )
+    {
+      this.nextTrigTimeToEnd = this.trigTimeToEnd;
+      this.trigTimeToEnd = this.runTimeToEnd;
+    }
+  }
+}
@@ -23,11 +23,17 @@ package org.sump.device.logicsniffer.sampleprocessor;
 
 import java.util.logging.*;
 
+import nl.lxtreme.ols.api.data.*;
+
 import org.sump.device.logicsniffer.*;
 
 
 /**
  * Provides a RLE decoder.
+ * <p>
+ * This decoder expects the samples to be offered in chronological order, that
+ * is, the first sample first.
+ * </p>
  */
 public final class RleDecoder implements SampleProcessor
 {
@@ -37,13 +43,23 @@ public final class RleDecoder implements SampleProcessor
 
   // VARIABLES
 
-  private final LogicSnifferConfig config;
-  private final int[] buffer;
+  private final ChannelGroupLayout layout;
   private final int trigCount;
+  private final TransitionBuffer transitions;
   private final SampleProcessorCallback callback;
 
   private final int rleCountValue;
   private final int rleCountMask;
+  private final int rleShiftBits;
+  private final boolean ddrMode;
+
+  private int index;
+  private long time;
+  private long rleTrigPos;
+  private int lastSample;
+  private long pendingDdrCount;
+  /** the number of transitions that is already in the preview. */
+  private int previewed;
 
   // CONSTRUCTORS
 
@@ -51,152 +67,185 @@ public final class RleDecoder implements SampleProcessor
    * Creates a new RleDecoder instance.
    * 
    * @param aConfig
-   * @param aBuffer
    * @param aTrigCount
+   * @param aTransitions
    * @param aCallback
    */
-  public RleDecoder( final LogicSnifferConfig aConfig, final int[] aBuffer, final int aTrigCount,
+  public RleDecoder( final LogicSnifferConfig aConfig, final int aTrigCount, final TransitionBuffer aTransitions,
       final SampleProcessorCallback aCallback )
   {
-    if ( aBuffer == null )
+    if ( aTransitions == null )
     {
-      throw new IllegalArgumentException( "Buffer cannot be null!" );
+      throw new IllegalArgumentException( "Transitions cannot be null!" );
     }
 
-    this.config = aConfig;
-    this.buffer = aBuffer;
+    this.layout = ChannelGroupLayout.create( aConfig );
     this.trigCount = aTrigCount;
+    this.transitions = aTransitions;
     this.callback = aCallback;
 
+    this.rleCountValue = getRleCountValue( aConfig );
+    this.rleCountMask = this.rleCountValue - 1;
+    // shiftBits needs to be 8 if 8 bit selected and 16 if 16 bit selected
+    this.rleShiftBits = aConfig.getRLEDataWidth();
+    this.ddrMode = aConfig.isDoubleDataRateEnabled();
+
+    this.index = 0;
+    this.time = 0;
+    this.rleTrigPos = 0;
+    this.lastSample = -1;
+    this.pendingDdrCount = -1;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the value of the bit that denotes a RLE-count.
+   * 
+   * @param aConfig
+   *          the configuration to use, cannot be <code>null</code>.
+   * @return the RLE-count flag.
+   * @throws IllegalArgumentException
+   *           in case the RLE data width is not supported.
+   */
+  static int getRleCountValue( final LogicSnifferConfig aConfig )
+  {
     // enabled group count is "automatically" corrected for DDR/Demux mode...
-    final int width = this.config.getRLEDataWidth();
+    final int width = aConfig.getRLEDataWidth();
     switch ( width )
     {
       case 32:
-        this.rleCountValue = 0x80000000;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
+        return 0x80000000;
       case 24:
-        this.rleCountValue = 0x800000;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
+        return 0x800000;
       case 16:
-        this.rleCountValue = 0x8000;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
+        return 0x8000;
       case 8:
-        this.rleCountValue = 0x80;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
+        return 0x80;
       default:
         throw new IllegalArgumentException( "Illegal RLE width! Should be 8, 16, 24 or 32!" );
     }
   }
 
-  // METHODS
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    if ( this.pendingDdrCount >= 0 )
+    {
+      // The last sample was a RLE-count without its second half...
+      addTime( this.pendingDdrCount );
+      this.pendingDdrCount = -1;
+    }
+
+    // Ensure the last sample is shown as well (even if there was a lot of time
+    // between the last real sample and the end of the capture; i.e., constant
+    // data)...
+    this.transitions.add( this.lastSample, this.time );
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( this.time, this.rleTrigPos - 1 );
+  }
 
   /**
-   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#preview(TransitionPreview)
    */
-  public void process()
+  @Override
+  public boolean preview( final TransitionPreview aPreview )
   {
-    long time = 0;
-    long rleTrigPos = 0;
-    int lastSample = -1;
+    if ( this.transitions.isEmpty() )
+    {
+      // No sample value seen yet...
+      return false;
+    }
+
+    // Only the transitions added since the last preview are appended...
+    this.previewed = aPreview.addAll( this.transitions, this.previewed, this.lastSample, this.time - 1 );
+    return true;
+  }
 
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process(int[],
+   *      int, int)
+   */
+  @Override
+  public void process( final int[] aSamples, final int aOffset, final int aCount )
+  {
     // if msb set increment time by the count value
     // else save sample check trigger pos and increment time by 1
     // this should work for either dogsbody or rasmus bitstreams
 
-    final int samples = this.buffer.length;
+    for ( int k = aOffset, end = aOffset + aCount; k < end; k++ )
+    {
+      final int i = this.index++;
+      final int sampleValue = aSamples[k];
+      final int normalizedSampleValue = this.layout.normalize( sampleValue );
 
-    // shiftBits needs to be 8 if 8 bit selected and 16 if 16 bit selected
-    final int rleShiftBits = this.config.getRLEDataWidth();
-    final boolean ddrMode = this.config.isDoubleDataRateEnabled();
+      if ( this.pendingDdrCount >= 0 )
+      {
+        // In case of "double data rate", the RLE-counts are encoded as 16-
+        // resp. 32-bit values, so we need to take two samples for each
+        // count (as they are 8- or 16-bits in DDR mode).
+        // This should also solve issue #31...
 
-    for ( int i = 0; i < samples; i++ )
-    {
-      final int sampleValue = this.buffer[i];
-      final int normalizedSampleValue = normalizeSampleValue( sampleValue );
+        // Issue #55: double the RLE-count as we're using DDR mode which
+        // takes two samples in one time period...
+        long ddrCount = ( ( this.pendingDdrCount << this.rleShiftBits ) | normalizedSampleValue );
+        this.pendingDdrCount = -1;
 
-      // if a count just add it to the time
-      if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
+        addTime( 2L * ddrCount );
+      }
+      else if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
       {
+        // if a count just add it to the time
         long count = ( normalizedSampleValue & this.rleCountMask );
-        if ( ddrMode && ( i < ( samples - 1 ) ) )
+        if ( this.ddrMode )
         {
-          // In case of "double data rate", the RLE-counts are encoded as 16-
-          // resp. 32-bit values, so we need to take two samples for each
-          // count (as they are 8- or 16-bits in DDR mode).
-          // This should also solve issue #31...
-
-          // Issue #55: double the RLE-count as we're using DDR mode which
-          // takes two samples in one time period...
-          long ddrCount = ( ( count << rleShiftBits ) | normalizeSampleValue( this.buffer[++i] ) );
-          count = 2L * ddrCount;
-        }
-
-        if ( lastSample >= 0 )
-        {
-          time += count;
+          // The second half of the count is in the next sample...
+          this.pendingDdrCount = count;
         }
         else
         {
-          LOG.warning( "Ignoring RLE count without preceeding sample value: " + Long.toHexString( count ) );
+          addTime( count );
         }
       }
       else
       {
         // this is a data value only save data if different to last
-        if ( sampleValue != lastSample )
+        if ( sampleValue != this.lastSample )
         {
           // set the trigger position as a time value
-          if ( ( i >= this.trigCount ) && ( rleTrigPos == 0 ) )
+          if ( ( i >= this.trigCount ) && ( this.rleTrigPos == 0 ) )
           {
-            rleTrigPos = time;
+            this.rleTrigPos = this.time;
           }
 
           // add the read sample & add a timestamp value as well...
-          this.callback.addValue( sampleValue, time );
-          lastSample = sampleValue;
+          this.transitions.add( sampleValue, this.time );
+          this.lastSample = sampleValue;
         }
-        time++;
+        this.time++;
       }
     }
-
-    // Ensure the last sample is shown as well (even if there was a lot of time
-    // between the last real sample and the end of the capture; i.e., constant
-    // data)...
-    this.callback.addValue( lastSample, time );
-
-    // Take the last seen time value as "absolete" length of this trace...
-    this.callback.ready( time, rleTrigPos - 1 );
   }
 
   /**
-   * Normalizes the given sample value to mask out the unused channel groups and
-   * get a sample value in the correct width.
+   * Adds a given RLE-count to the current time.
    * 
-   * @param aSampleValue
-   *          the original sample to normalize.
-   * @return the normalized sample value.
+   * @param aCount
+   *          the RLE-count to add.
    */
-  private int normalizeSampleValue( final int aSampleValue )
+  private void addTime( final long aCount )
   {
-    int groupCount = this.config.getGroupCount();
-    int compdata = 0;
-
-    // to enable non contiguous channel groups
-    // need to remove zero data from unused groups
-    int indata = aSampleValue;
-    for ( int j = 0, outcount = 0; j < groupCount; j++ )
+    if ( this.lastSample >= 0 )
     {
-      if ( this.config.isGroupEnabled( j ) )
-      {
-        compdata |= ( ( indata & 0xff ) << ( 8 * outcount++ ) );
-      }
-      indata >>= 8;
+      this.time += aCount;
+    }
+    else
+    {
+      LOG.warning( "Ignoring RLE count without preceeding sample value: " + Long.toHexString( aCount ) );
     }
-    return compdata;
   }
 }
@@ -23,12 +23,44 @@ package org.sump.device.logicsniffer.sampleprocessor;
 
 /**
  * Denotes a sample processor, which performs a transformation function (such as
- * uncompressing) on a set of samples.
+ * uncompressing) on a stream of samples.
+ * <p>
+ * Samples are offered in consecutive blocks in the order they are read from the
+ * device, allowing them to be processed while the remainder of the samples is
+ * still being read.
+ * </p>
  */
 public interface SampleProcessor
 {
   /**
-   * Processes the samples.
+   * Signals that all samples are offered, and finishes the processing.
    */
-  void process();
+  void finish();
+
+  /**
+   * Writes the transitions processed so far into the given preview, allowing
+   * them to be shown while the remainder of the samples is still being read.
+   * <p>
+   * The same preview is passed upon each call, and is only to be updated by a
+   * single sample processor.
+   * </p>
+   * 
+   * @param aPreview
+   *          the preview to update, cannot be <code>null</code>.
+   * @return <code>true</code> if the preview is updated, <code>false</code> if
+   *         no (new) transitions can be shown (yet).
+   */
+  boolean preview( final TransitionPreview aPreview );
+
+  /**
+   * Processes the given block of samples.
+   * 
+   * @param aSamples
+   *          the array with samples to process;
+   * @param aOffset
+   *          the offset in the given array of the first sample to process;
+   * @param aCount
+   *          the number of samples to process.
+   */
+  void process( final int[] aSamples, final int aOffset, final int aCount );
 }
@@ -22,17 +22,27 @@ package org.sump.device.logicsniffer.sampleprocessor;
 
 
 /**
- * Provides a callback for the processed samples.
+ * Provides a callback for when all samples are processed, and for when part of
+ * the processed samples can be shown.
+ * <p>
+ * The processed samples themselves are written directly into a
+ * {@link nl.lxtreme.ols.api.data.TransitionBuffer}.
+ * </p>
  * 
  * @see SampleProcessor
  */
 public interface SampleProcessorCallback
 {
   /**
-   * @param aSampleValue
-   * @param aTimestamp
+   * Called while samples are still being read, with the transitions processed
+   * so far.
+   * 
+   * @param aPreview
+   *          the preview with the transitions processed so far, never
+   *          <code>null</code>. Its arrays can be retained, but only its
+   *          current number of transitions is valid.
    */
-  void addValue( final int aSampleValue, final long aTimestamp );
+  void preview( final TransitionPreview aPreview );
 
   /**
    * @param aAbsoluteLength
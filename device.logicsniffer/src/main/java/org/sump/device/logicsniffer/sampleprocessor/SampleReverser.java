@@ -0,0 +1,100 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+/**
+ * Buffers all samples that are offered in reverse chronological order, that is,
+ * the last sample first, and offers them in chronological order to another
+ * sample processor once all samples are seen.
+ * <p>
+ * Used for those sample processors that cannot process samples back-to-front.
+ * </p>
+ */
+public final class SampleReverser implements SampleProcessor
+{
+  // VARIABLES
+
+  private final SampleProcessor processor;
+  private final int[] samples;
+
+  private int index;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SampleReverser instance.
+   * 
+   * @param aSampleCount
+   *          the total number of samples that is to be offered;
+   * @param aProcessor
+   *          the sample processor to offer the samples to in chronological
+   *          order, cannot be <code>null</code>.
+   */
+  public SampleReverser( final int aSampleCount, final SampleProcessor aProcessor )
+  {
+    if ( aProcessor == null )
+    {
+      throw new IllegalArgumentException( "Processor cannot be null!" );
+    }
+
+    this.processor = aProcessor;
+    this.samples = new int[aSampleCount];
+    this.index = aSampleCount;
+  }
+
+  // METHODS
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    this.processor.process( this.samples, this.index, this.samples.length - this.index );
+    this.processor.finish();
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#preview(TransitionPreview)
+   */
+  @Override
+  public boolean preview( final TransitionPreview aPreview )
+  {
+    // Nothing is processed until all samples are seen...
+    return false;
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process(int[],
+   *      int, int)
+   */
+  @Override
+  public void process( final int[] aSamples, final int aOffset, final int aCount )
+  {
+    int i = this.index;
+    for ( int k = aOffset, end = aOffset + aCount; k < end; k++ )
+    {
+      this.samples[--i] = aSamples[k];
+    }
+    this.index = i;
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Keeps the transitions decoded so far in chronological order, allowing them to
+ * be shown while the remainder of the samples is still being read.
+ * <p>
+ * The transitions are kept in arrays that are only appended to. Elements that
+ * are written once are never changed afterwards, so the arrays can be handed
+ * out while this preview keeps growing, without the need to copy them. Only
+ * when the arrays are full, they are replaced by larger copies, leaving the
+ * arrays handed out before as is.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ */
+public final class TransitionPreview
+{
+  // CONSTANTS
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // VARIABLES
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+  private long absoluteLength;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, TransitionPreview instance.
+   */
+  public TransitionPreview()
+  {
+    clear( INITIAL_CAPACITY );
+  }
+
+  // METHODS
+
+  /**
+   * Appends a given sample value and timestamp to this preview.
+   *
+   * @param aValue
+   *          the sample value to append;
+   * @param aTimestamp
+   *          the timestamp of the sample value, should be greater than the
+   *          last appended timestamp.
+   */
+  public void add( final int aValue, final long aTimestamp )
+  {
+    if ( this.size == this.values.length )
+    {
+      final int newCapacity = this.size << 1;
+      this.values = Arrays.copyOf( this.values, newCapacity );
+      this.timestamps = Arrays.copyOf( this.timestamps, newCapacity );
+    }
+
+    this.values[this.size] = aValue;
+    this.timestamps[this.size] = aTimestamp;
+    this.size++;
+  }
+
+  /**
+   * Appends the transitions of the given buffer that are not yet in this
+   * preview, followed by the given last sample value, which is shown until the
+   * given time.
+   * <p>
+   * The last sample value is appended as (duplicate) transition, as it cannot
+   * be overwritten by later transitions.
+   * </p>
+   *
+   * @param aTransitions
+   *          the buffer with all transitions decoded so far, in chronological
+   *          order;
+   * @param aFromIndex
+   *          the index of the first transition of the given buffer that is not
+   *          yet in this preview;
+   * @param aLastValue
+   *          the last decoded sample value;
+   * @param aLastTime
+   *          the time of the last decoded sample value.
+   * @return the index of the first transition of the given buffer that is not
+   *         yet in this preview, to pass to the next call of this method.
+   */
+  public int addAll( final TransitionBuffer aTransitions, final int aFromIndex, final int aLastValue,
+      final long aLastTime )
+  {
+    final int count = aTransitions.size();
+    for ( int i = aFromIndex; i < count; i++ )
+    {
+      add( aTransitions.getValue( i ), aTransitions.getTimestamp( i ) );
+    }
+
+    if ( aLastTime > getLastTimestamp() )
+    {
+      add( aLastValue, aLastTime );
+    }
+    this.absoluteLength = aLastTime;
+
+    return count;
+  }
+
+  /**
+   * Removes all transitions from this preview, and continues with new arrays
+   * of the given capacity, leaving the arrays handed out before as is.
+   *
+   * @param aCapacity
+   *          the number of transitions to reserve room for, > 0.
+   */
+  public void clear( final int aCapacity )
+  {
+    this.values = new int[aCapacity];
+    this.timestamps = new long[aCapacity];
+    this.size = 0;
+    this.absoluteLength = 0L;
+  }
+
+  /**
+   * Returns the absolute length of the transitions in this preview.
+   *
+   * @return the absolute length, >= 0.
+   */
+  public long getAbsoluteLength()
+  {
+    return this.absoluteLength;
+  }
+
+  /**
+   * Returns the timestamp of the last transition in this preview.
+   *
+   * @return the last timestamp, or -1 if this preview is empty.
+   */
+  public long getLastTimestamp()
+  {
+    return ( this.size == 0 ) ? -1L : this.timestamps[this.size - 1];
+  }
+
+  /**
+   * Returns the timestamps of this preview, of which only the first
+   * {@link #size()} elements are valid.
+   *
+   * @return the timestamps array, never <code>null</code>.
+   */
+  public long[] getTimestamps()
+  {
+    return this.timestamps;
+  }
+
+  /**
+   * Returns the sample values of this preview, of which only the first
+   * {@link #size()} elements are valid.
+   *
+   * @return the sample values array, never <code>null</code>.
+   */
+  public int[] getValues()
+  {
+    return this.values;
+  }
+
+  /**
+   * Sets the absolute length of the transitions in this preview.
+   *
+   * @param aAbsoluteLength
+   *          the absolute length to set, >= 0.
+   */
+  public void setAbsoluteLength( final long aAbsoluteLength )
+  {
+    this.absoluteLength = aAbsoluteLength;
+  }
+
+  /**
+   * Returns the number of transitions in this preview.
+   *
+   * @return a transition count, >= 0.
+   */
+  public int size()
+  {
+    return this.size;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+import org.sump.device.logicsniffer.protocol.*;
+
+
+/**
+ * Test cases for writing the device configuration with a known
+ * {@link SumpDeviceState}.
+ */
+public class LogicSnifferDeviceStateTest
+{
+  // VARIABLES
+
+  private LogicSnifferConfig config;
+  private ByteArrayOutputStream output;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.config = new LogicSnifferConfig();
+
+    final VirtualLogicSnifferDevice device = new VirtualLogicSnifferDevice( this.config );
+    this.config.setDeviceProfile( device.addDeviceProfile( "MOCK", "MockedDevice" ) );
+    device.close();
+
+    this.config.setEnabledChannels( 0x000000FF );
+    this.config.setRatio( 0.5 );
+    this.config.setSampleCount( 1024 );
+    this.config.setSampleRate( 1000000 );
+    this.config.setTriggerEnabled( false );
+
+    this.output = new ByteArrayOutputStream();
+  }
+
+  /**
+   * Tests that only the configuration commands whose values changed are
+   * written again for a known device state.
+   */
+  @Test
+  public void testWriteDeviceConfigurationOnlyWritesChangedCommands() throws Exception
+  {
+    final SumpDeviceState state = new SumpDeviceState();
+
+    final int trigcount = writeDeviceConfiguration( state );
+    // divider, trigger mask, value & config, size and flags...
+    assertEquals( 6 * 5, this.output.size() );
+
+    this.output.reset();
+    assertEquals( trigcount, writeDeviceConfiguration( state ) );
+    assertEquals( 0, this.output.size() );
+
+    this.config.setSampleRate( 500000 );
+
+    this.output.reset();
+    writeDeviceConfiguration( state );
+    assertEquals( 5, this.output.size() );
+    assertEquals( 0x80, this.output.toByteArray()[0] & 0xFF );
+  }
+
+  /**
+   * Tests that all configuration commands are written again after an
+   * acquisition did not end normally.
+   */
+  @Test
+  public void testWriteDeviceConfigurationAfterFailedAcquisition() throws Exception
+  {
+    final SumpDeviceState state = new SumpDeviceState();
+
+    assertFalse( state.beginAcquisition() );
+    state.setDetected();
+    writeDeviceConfiguration( state );
+    state.endAcquisition();
+
+    assertTrue( state.beginAcquisition() );
+    // Not ended...
+
+    this.output.reset();
+    assertFalse( state.beginAcquisition() );
+    writeDeviceConfiguration( state );
+    assertEquals( 6 * 5, this.output.size() );
+  }
+
+  /**
+   * Writes the device configuration to the output of this test.
+   */
+  private int writeDeviceConfiguration( final SumpDeviceState aState ) throws IOException
+  {
+    final SumpCommandWriter writer = new SumpCommandWriter( this.config, new DataOutputStream( this.output ),
+        aState );
+    return writer.writeDeviceConfiguration();
+  }
+}
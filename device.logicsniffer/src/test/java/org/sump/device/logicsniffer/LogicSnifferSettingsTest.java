@@ -0,0 +1,207 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+
+import org.junit.*;
+import org.mockito.invocation.*;
+import org.mockito.stubbing.*;
+import org.sump.device.logicsniffer.profile.*;
+
+
+/**
+ * Test cases for {@link LogicSnifferSettings}, which allow the device to be set
+ * up in batch mode.
+ */
+public class LogicSnifferSettingsTest
+{
+  // VARIABLES
+
+  private DeviceProfileManager profileManager;
+  private Map<String, String> values;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    final VirtualLogicSnifferDevice device = new VirtualLogicSnifferDevice( new LogicSnifferConfig() );
+    device.addDeviceProfile( "MOCK", "MockedDevice" );
+    this.profileManager = device.getDeviceProfileManager();
+    device.close();
+
+    this.values = new HashMap<String, String>();
+    this.values.put( "deviceType", "MOCK" );
+    this.values.put( "port", "/dev/ttyACM0" );
+  }
+
+  /**
+   * Tests that double data rate mode disables the noise filter and the upper
+   * channel groups, like the dialog does.
+   */
+  @Test
+  public void testDoubleDataRateSettingsOk()
+  {
+    this.values.put( "speed", "0" );
+    this.values.put( "channelGroup", "1111" );
+
+    final LogicSnifferConfig config = createSettings().getConfiguration();
+
+    assertTrue( config.isDoubleDataRateEnabled() );
+    assertFalse( config.isFilterEnabled() );
+    assertEquals( 0xFFFF, config.getEnabledChannelsMask() );
+  }
+
+  /**
+   * Tests that a network connection is set up from the settings.
+   */
+  @Test
+  public void testNetworkSettingsOk()
+  {
+    this.values.put( "connType", "0" );
+    this.values.put( "remAddress", "ols.local" );
+    this.values.put( "remPort", "5678" );
+
+    assertEquals( "socket://ols.local:5678", createSettings().getConfiguration().getConnectionURI() );
+  }
+
+  /**
+   * Tests that the settings as stored by the dialog result in the same
+   * configuration.
+   */
+  @Test
+  public void testSerialSettingsOk()
+  {
+    this.values.put( "portRate", "115200bps" );
+    this.values.put( "speed", "1" );
+    this.values.put( "size", "2" );
+    this.values.put( "channelGroup", "1100" );
+    this.values.put( "ratio", "25" );
+    this.values.put( "rle", "true" );
+    this.values.put( "trigger", "true" );
+    this.values.put( "triggerType", "1" );
+    this.values.put( "triggerStage.0.mask", "11000000000000000000000000000000" );
+    this.values.put( "triggerStage.0.value", "10000000000000000000000000000000" );
+    this.values.put( "triggerStage.0.delay", "10" );
+    this.values.put( "triggerStage.0.startCapture", "true" );
+
+    final LogicSnifferSettings settings = createSettings();
+    assertTrue( settings.isValid() );
+
+    final LogicSnifferConfig config = settings.getConfiguration();
+
+    assertEquals( "comm:/dev/ttyACM0;baudrate=115200;bitsperchar=8;parity=none;stopbits=1;flowcontrol=xon_xoff;"
+        + "dtr=off;delay=0;recv_timeout=12", config.getConnectionURI() );
+    assertEquals( "MOCK", config.getDeviceProfile().getType() );
+    assertEquals( 1000000, config.getSampleRate() );
+    assertEquals( 1024, config.getSampleCount() );
+    assertEquals( 0xFFFF, config.getEnabledChannelsMask() );
+    assertEquals( 0.75, config.getRatio(), 1.0e-6 );
+    assertTrue( config.isFilterEnabled() );
+    assertTrue( config.isRleEnabled() );
+    assertFalse( config.isTestModeEnabled() );
+    assertTrue( config.isTriggerEnabled() );
+    assertEquals( 0x3, config.getTriggerMask( 0 ) );
+    assertEquals( 0x1, config.getTriggerValue( 0 ) );
+    assertEquals( 10, config.getTriggerConfig( 0 ) & 0xFFFF );
+  }
+
+  /**
+   * Tests that settings without a serial port are refused.
+   */
+  @Test
+  public void testSettingsWithoutPortFail()
+  {
+    this.values.remove( "port" );
+
+    assertFalse( createSettings().isValid() );
+  }
+
+  /**
+   * Tests that settings with too large trigger delays are refused.
+   */
+  @Test
+  public void testSettingsWithTooLargeTriggerDelayFail()
+  {
+    this.values.put( "trigger", "true" );
+    this.values.put( "triggerStage.1.delay", "65536" );
+
+    assertFalse( createSettings().isValid() );
+  }
+
+  /**
+   * Tests that settings with an unknown device type are refused.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testSettingsWithUnknownDeviceTypeFail()
+  {
+    this.values.put( "deviceType", "UNKNOWN" );
+
+    final LogicSnifferSettings settings = createSettings();
+    assertFalse( settings.isValid() );
+
+    settings.getConfiguration();
+  }
+
+  /**
+   * Creates the settings of the device from the current values, like the
+   * project would provide them.
+   */
+  private LogicSnifferSettings createSettings()
+  {
+    final UserSettings userSettings = mock( UserSettings.class, new Answer<Object>()
+    {
+      @Override
+      public Object answer( final InvocationOnMock aInvocation ) throws Throwable
+      {
+        final Object[] args = aInvocation.getArguments();
+        final String value = LogicSnifferSettingsTest.this.values.get( args[0] );
+        if ( value == null )
+        {
+          return args[1];
+        }
+
+        final Class<?> type = aInvocation.getMethod().getReturnType();
+        if ( Integer.TYPE.equals( type ) )
+        {
+          return Integer.valueOf( value );
+        }
+        else if ( Boolean.TYPE.equals( type ) )
+        {
+          return Boolean.valueOf( value );
+        }
+        return value;
+      }
+    } );
+
+    return new LogicSnifferSettings( userSettings, this.profileManager );
+  }
+}
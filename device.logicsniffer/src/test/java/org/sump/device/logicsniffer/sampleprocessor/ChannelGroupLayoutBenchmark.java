@@ -0,0 +1,166 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Benchmarks the compiled {@link ChannelGroupLayout} against the original
+ * approach of consulting the configuration for every group of every sample.
+ * <p>
+ * Run this benchmark by running its {@link #main(String[])} method with the
+ * test classpath of this project.
+ * </p>
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ChannelGroupLayoutBenchmark
+{
+  // CONSTANTS
+
+  private static final int SAMPLE_COUNT = 16384;
+
+  // VARIABLES
+
+  @Param( { "0x000000FF", "0x0000FFFF", "0x00FF00FF", "0x00FFFFFF", "0xFFFFFFFF" } )
+  public String enabledChannels;
+
+  private LogicSnifferConfig config;
+  private ChannelGroupLayout layout;
+  private byte[] rawData;
+  private int[] samples;
+
+  // METHODS
+
+  /**
+   * Runs this benchmark.
+   */
+  public static void main( final String[] aArgs ) throws Exception
+  {
+    final Options options = new OptionsBuilder().include( ChannelGroupLayoutBenchmark.class.getSimpleName() ).build();
+    new Runner( options ).run();
+  }
+
+  /**
+   * Sets up the benchmark state.
+   */
+  @Setup
+  public void setUp()
+  {
+    this.config = new LogicSnifferConfig();
+    this.config.setSampleRate( 100000000 );
+    this.config.setEnabledChannels( Long.decode( this.enabledChannels ).intValue() );
+
+    this.layout = ChannelGroupLayout.create( this.config );
+
+    this.rawData = new byte[SAMPLE_COUNT * this.layout.getSampleWidth()];
+    new Random( 42L ).nextBytes( this.rawData );
+
+    this.samples = new int[SAMPLE_COUNT];
+    this.layout.unpack( this.rawData, this.rawData.length, this.samples );
+  }
+
+  /**
+   * Normalizes all samples using the compiled layout.
+   */
+  @Benchmark
+  public int normalizeCompiled()
+  {
+    final ChannelGroupLayout l = this.layout;
+
+    int result = 0;
+    for ( int sample : this.samples )
+    {
+      result += l.normalize( sample );
+    }
+    return result;
+  }
+
+  /**
+   * Normalizes all samples the original way.
+   */
+  @Benchmark
+  public int normalizeOriginal()
+  {
+    int result = 0;
+    for ( int sample : this.samples )
+    {
+      int groupCount = this.config.getGroupCount();
+      int compdata = 0;
+
+      int indata = sample;
+      for ( int j = 0, outcount = 0; j < groupCount; j++ )
+      {
+        if ( this.config.isGroupEnabled( j ) )
+        {
+          compdata |= ( ( indata & 0xff ) << ( 8 * outcount++ ) );
+        }
+        indata >>= 8;
+      }
+      result += compdata;
+    }
+    return result;
+  }
+
+  /**
+   * Unpacks all raw sample data using the compiled layout.
+   */
+  @Benchmark
+  public int[] unpackCompiled()
+  {
+    this.layout.unpack( this.rawData, this.rawData.length, this.samples );
+    return this.samples;
+  }
+
+  /**
+   * Unpacks all raw sample data the original way.
+   */
+  @Benchmark
+  public int[] unpackOriginal()
+  {
+    final int groupCount = this.config.getGroupCount();
+
+    for ( int i = 0, j = 0; i < SAMPLE_COUNT; i++ )
+    {
+      int sample = 0;
+      for ( int g = 0; g < groupCount; g++ )
+      {
+        if ( this.config.isGroupEnabled( g ) )
+        {
+          sample |= ( ( this.rawData[j++] & 0xff ) << ( 8 * g ) );
+        }
+      }
+      this.samples[i] = sample;
+    }
+    return this.samples;
+  }
+}
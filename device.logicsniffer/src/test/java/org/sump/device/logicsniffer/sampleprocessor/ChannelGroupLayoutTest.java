@@ -0,0 +1,91 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Test cases for {@link ChannelGroupLayout}.
+ */
+public class ChannelGroupLayoutTest
+{
+  // METHODS
+
+  /**
+   * Tests that all possible group layouts normalize and unpack their samples
+   * correctly.
+   */
+  @Test
+  public void testAllGroupLayoutsOk()
+  {
+    final Random random = new Random( 1L );
+
+    for ( int groups = 1; groups < 16; groups++ )
+    {
+      int mask = 0;
+      for ( int g = 0; g < 4; g++ )
+      {
+        if ( ( groups & ( 1 << g ) ) != 0 )
+        {
+          mask |= 0xFF << ( 8 * g );
+        }
+      }
+
+      final LogicSnifferConfig config = new LogicSnifferConfig();
+      config.setSampleRate( 100000000 );
+      config.setEnabledChannels( mask );
+
+      final ChannelGroupLayout layout = ChannelGroupLayout.create( config );
+      assertEquals( Integer.bitCount( groups ), layout.getSampleWidth() );
+
+      final byte[] rawData = new byte[3 * layout.getSampleWidth()];
+      random.nextBytes( rawData );
+
+      final int[] samples = new int[3];
+      assertEquals( 3, layout.unpack( rawData, rawData.length, samples ) );
+
+      for ( int i = 0, j = 0; i < samples.length; i++ )
+      {
+        int expectedSample = 0;
+        int expectedNormalized = 0;
+        for ( int g = 0, n = 0; g < 4; g++ )
+        {
+          if ( config.isGroupEnabled( g ) )
+          {
+            final int b = rawData[j++] & 0xFF;
+            expectedSample |= b << ( 8 * g );
+            expectedNormalized |= b << ( 8 * n++ );
+          }
+        }
+
+        assertEquals( "Sample for mask " + Integer.toHexString( mask ), expectedSample, samples[i] );
+        assertEquals( "Normalized sample for mask " + Integer.toHexString( mask ), expectedNormalized,
+            layout.normalize( samples[i] ) );
+      }
+    }
+  }
+}
@@ -0,0 +1,384 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+import org.junit.runner.*;
+import org.junit.runners.*;
+import org.junit.runners.Parameterized.Parameters;
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Test cases for the sample processors that process their samples
+ * back-to-front, which should yield the same results as their chronological
+ * counterparts.
+ */
+@RunWith( Parameterized.class )
+public class ReverseSampleProcessorTest
+{
+  // INNER TYPES
+
+  /**
+   * Records the values passed to {@link #ready(long, long)}.
+   */
+  static final class RecordingCallback implements SampleProcessorCallback
+  {
+    long absoluteLength = -1L;
+    long triggerPosition = -1L;
+
+    @Override
+    public void preview( final TransitionPreview aPreview )
+    {
+      // Not used...
+    }
+
+    @Override
+    public void ready( final long aAbsoluteLength, final long aTriggerPosition )
+    {
+      this.absoluteLength = aAbsoluteLength;
+      this.triggerPosition = aTriggerPosition;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int SAMPLE_COUNT = 50000;
+
+  // VARIABLES
+
+  private final int enabledChannelMask;
+  private final Random random;
+
+  private LogicSnifferConfig config;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ReverseSampleProcessorTest instance.
+   */
+  public ReverseSampleProcessorTest( final int aChannelMask, final long aSeed )
+  {
+    this.enabledChannelMask = aChannelMask;
+    this.random = new Random( aSeed );
+  }
+
+  // METHODS
+
+  /**
+   * @return a collection of test data.
+   */
+  @Parameters
+  @SuppressWarnings( "boxing" )
+  public static Collection<Object[]> getTestData()
+  {
+    return Arrays.asList( new Object[][] { //
+        // channel mask, random seed
+            { 0x000000FF, 1L }, // 0
+            { 0x0000FF00, 2L }, // 1
+            { 0xFF000000, 3L }, // 2
+            { 0x00FF00FF, 4L }, // 3
+            { 0xFFFF0000, 5L }, // 4
+            { 0xFF00FFFF, 6L }, // 5
+            { 0xFFFFFFFF, 7L }, // 6
+        } );
+  }
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.config = new LogicSnifferConfig();
+    this.config.setSampleRate( 100000000 );
+    this.config.setEnabledChannels( this.enabledChannelMask );
+  }
+
+  /**
+   * Tests that the previews of the {@link EqualityFilter} and the
+   * {@link ReverseEqualityFilter} match their final results, and that previews
+   * handed out earlier are not changed.
+   */
+  @Test
+  public void testEqualityFilterPreviewOk()
+  {
+    final int[] samples = createSamples( false /* aRle */);
+
+    final TransitionBuffer expected = new TransitionBuffer();
+    process( new EqualityFilter( this.config, 0, expected, new RecordingCallback() ), samples );
+
+    assertPreviewsMatch( expected, new EqualityFilter( this.config, 0, new TransitionBuffer(),
+        new RecordingCallback() ), samples );
+    assertPreviewsMatch( expected, new ReverseEqualityFilter( this.config, samples.length, 0,
+        new TransitionBuffer(), new RecordingCallback() ), reverse( samples ) );
+  }
+
+  /**
+   * Tests that the previews of the {@link RleDecoder} match its final result.
+   */
+  @Test
+  public void testRleDecoderPreviewOk()
+  {
+    final int[] samples = createSamples( true /* aRle */);
+
+    final TransitionBuffer expected = new TransitionBuffer();
+    process( new RleDecoder( this.config, 0, expected, new RecordingCallback() ), samples );
+
+    assertPreviewsMatch( expected, new RleDecoder( this.config, 0, new TransitionBuffer(),
+        new RecordingCallback() ), samples );
+  }
+
+  /**
+   * Tests that the {@link ReverseEqualityFilter} yields the same results as
+   * the {@link EqualityFilter}.
+   */
+  @Test
+  public void testReverseEqualityFilterOk()
+  {
+    final int[] samples = createSamples( false /* aRle */);
+    final int trigCount = this.random.nextInt( SAMPLE_COUNT );
+
+    final TransitionBuffer expected = new TransitionBuffer();
+    final RecordingCallback expectedCallback = new RecordingCallback();
+    process( new EqualityFilter( this.config, trigCount, expected, expectedCallback ), samples );
+
+    final TransitionBuffer actual = new TransitionBuffer();
+    final RecordingCallback actualCallback = new RecordingCallback();
+    process( new ReverseEqualityFilter( this.config, samples.length, trigCount, actual, actualCallback ),
+        reverse( samples ) );
+
+    assertEquals( expected, expectedCallback, actual, actualCallback );
+  }
+
+  /**
+   * Tests that the {@link ReverseRleDecoder} yields the same results as the
+   * {@link RleDecoder}.
+   */
+  @Test
+  public void testReverseRleDecoderOk()
+  {
+    final int[] samples = createSamples( true /* aRle */);
+
+    for ( int trigCount : new int[] { 0, 1, this.random.nextInt( SAMPLE_COUNT ), SAMPLE_COUNT } )
+    {
+      final TransitionBuffer expected = new TransitionBuffer();
+      final RecordingCallback expectedCallback = new RecordingCallback();
+      process( new RleDecoder( this.config, trigCount, expected, expectedCallback ), samples );
+
+      final TransitionBuffer actual = new TransitionBuffer();
+      final RecordingCallback actualCallback = new RecordingCallback();
+      process( new ReverseRleDecoder( this.config, samples.length, trigCount, actual, actualCallback ),
+          reverse( samples ) );
+
+      assertEquals( expected, expectedCallback, actual, actualCallback );
+    }
+  }
+
+  /**
+   * Tests that the {@link SampleReverser} offers the samples in chronological
+   * order.
+   */
+  @Test
+  public void testSampleReverserOk()
+  {
+    final int[] samples = createSamples( true /* aRle */);
+
+    final TransitionBuffer expected = new TransitionBuffer();
+    final RecordingCallback expectedCallback = new RecordingCallback();
+    process( new RleDecoder( this.config, 0, expected, expectedCallback ), samples );
+
+    final TransitionBuffer actual = new TransitionBuffer();
+    final RecordingCallback actualCallback = new RecordingCallback();
+    process( new SampleReverser( samples.length, new RleDecoder( this.config, 0, actual, actualCallback ) ),
+        reverse( samples ) );
+
+    assertEquals( expected, expectedCallback, actual, actualCallback );
+  }
+
+  /**
+   * Asserts the given results are equal.
+   */
+  private void assertEquals( final TransitionBuffer aExpected, final RecordingCallback aExpectedCallback,
+      final TransitionBuffer aActual, final RecordingCallback aActualCallback )
+  {
+    Assert.assertEquals( "Transition count", aExpected.size(), aActual.size() );
+    for ( int i = 0; i < aExpected.size(); i++ )
+    {
+      Assert.assertEquals( "Sample value(" + i + ")", aExpected.getValue( i ), aActual.getValue( i ) );
+      Assert.assertEquals( "Timestamp(" + i + ")", aExpected.getTimestamp( i ), aActual.getTimestamp( i ) );
+    }
+    Assert.assertEquals( "Absolute length", aExpectedCallback.absoluteLength, aActualCallback.absoluteLength );
+    Assert.assertEquals( "Trigger position", aExpectedCallback.triggerPosition, aActualCallback.triggerPosition );
+  }
+
+  /**
+   * Processes the given samples in randomly sized blocks, and asserts that the
+   * preview after each block matches the given final result.
+   */
+  private void assertPreviewsMatch( final TransitionBuffer aExpected, final SampleProcessor aProcessor,
+      final int[] aSamples )
+  {
+    final TransitionPreview preview = new TransitionPreview();
+
+    int[] lastValues = null;
+    int[] lastValuesCopy = null;
+    int lastSize = 0;
+
+    int offset = 0;
+    while ( offset < aSamples.length )
+    {
+      final int count = Math.min( aSamples.length - offset, 1 + this.random.nextInt( 1000 ) );
+      aProcessor.process( aSamples, offset, count );
+      offset += count;
+
+      if ( !aProcessor.preview( preview ) )
+      {
+        continue;
+      }
+
+      final int[] values = preview.getValues();
+      final long[] timestamps = preview.getTimestamps();
+      for ( int i = 0; i < preview.size(); i++ )
+      {
+        if ( i > 0 )
+        {
+          assertTrue( "Timestamps not increasing", timestamps[i - 1] < timestamps[i] );
+        }
+        Assert.assertEquals( "Sample value at " + timestamps[i], getValueAt( aExpected, timestamps[i] ), values[i] );
+      }
+      assertTrue( preview.getAbsoluteLength() >= preview.getLastTimestamp() );
+
+      if ( lastValues != null )
+      {
+        // Earlier handed out previews should never change...
+        assertArrayEquals( lastValuesCopy, Arrays.copyOf( lastValues, lastSize ) );
+      }
+      lastValues = values;
+      lastSize = preview.size();
+      lastValuesCopy = Arrays.copyOf( values, lastSize );
+    }
+  }
+
+  /**
+   * Creates random sample data in the layout of the enabled channel groups.
+   */
+  private int[] createSamples( final boolean aRle )
+  {
+    final int width = this.config.getRLEDataWidth();
+    final int valueMask = ( int )( ( 1L << ( width - 1 ) ) - 1 );
+    final int countFlag = 1 << ( width - 1 );
+
+    final int[] result = new int[SAMPLE_COUNT];
+    for ( int i = 0; i < result.length; i++ )
+    {
+      int value;
+      if ( aRle && ( ( i < 2 ) || ( this.random.nextInt( 3 ) == 0 ) ) )
+      {
+        // RLE-count, also before the first sample value...
+        value = countFlag | this.random.nextInt( 1000 );
+      }
+      else
+      {
+        // Use a limited set of values to get some equal consecutive samples...
+        value = this.random.nextInt( 4 ) * 0x01030507;
+        value &= valueMask;
+      }
+      result[i] = denormalize( value );
+    }
+    return result;
+  }
+
+  /**
+   * Spreads the bytes of the given normalized value over the enabled groups.
+   */
+  private int denormalize( final int aValue )
+  {
+    int result = 0;
+    int value = aValue;
+    for ( int g = 0; g < 4; g++ )
+    {
+      if ( this.config.isGroupEnabled( g ) )
+      {
+        result |= ( value & 0xFF ) << ( 8 * g );
+        value >>>= 8;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Processes the given samples in randomly sized blocks.
+   */
+  private void process( final SampleProcessor aProcessor, final int[] aSamples )
+  {
+    int offset = 0;
+    while ( offset < aSamples.length )
+    {
+      final int count = Math.min( aSamples.length - offset, 1 + this.random.nextInt( 1000 ) );
+      aProcessor.process( aSamples, offset, count );
+      offset += count;
+    }
+    aProcessor.finish();
+  }
+
+  /**
+   * @return the sample value of the given transitions at the given time.
+   */
+  private int getValueAt( final TransitionBuffer aTransitions, final long aTime )
+  {
+    // Find the last transition at or before the given time...
+    int low = 0;
+    int high = aTransitions.size() - 1;
+    while ( low < high )
+    {
+      final int mid = ( low + high + 1 ) >>> 1;
+      if ( aTransitions.getTimestamp( mid ) <= aTime )
+      {
+        low = mid;
+      }
+      else
+      {
+        high = mid - 1;
+      }
+    }
+    return aTransitions.getValue( low );
+  }
+
+  /**
+   * @return a reversed copy of the given samples.
+   */
+  private int[] reverse( final int[] aSamples )
+  {
+    final int[] result = new int[aSamples.length];
+    for ( int i = 0; i < aSamples.length; i++ )
+    {
+      result[aSamples.length - 1 - i] = aSamples[i];
+    }
+    return result;
+  }
+}
@@ -28,6 +28,7 @@ import java.util.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.task.*;
 
 
 /**
@@ -107,45 +108,54 @@ public class TestAcquisitionTask implements AcquisitionTask
       boolean state = false;
 
       data = new int[dataLength];
-      for ( int i = 0; i < data.length; i++ )
+
+      final ProgressReporter progressReporter = ProgressReporter.create( this.progressListener, 0, data.length );
+      try
       {
-        if ( DATA_FUNCTIONS[0].equals( dataFunction ) )
-        {
-          final int v = ( i / 8 ) & 0xff;
-          data[i] = ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 );
-        }
-        else if ( DATA_FUNCTIONS[1].equals( dataFunction ) )
-        {
-          data[i] = 0x00;
-        }
-        else if ( DATA_FUNCTIONS[2].equals( dataFunction ) )
-        {
-          data[i] = ( int )( half + ( half * Math.sin( i * factor ) ) );
-          rate = -1;
-        }
-        else if ( DATA_FUNCTIONS[3].equals( dataFunction ) )
+        for ( int i = 0; i < data.length; i++ )
         {
-          data[i] = ( ( i % 2 ) == 0 ) ? 0x55 : 0xAA;
-        }
-        else if ( DATA_FUNCTIONS[4].equals( dataFunction ) )
-        {
-          data[i] = ( ( i % 4 ) == 0 ) ? 0x55 : 0xAA;
-        }
-        else if ( DATA_FUNCTIONS[5].equals( dataFunction ) )
-        {
-          data[i] = rnd.nextInt();
-        }
-        else if ( DATA_FUNCTIONS[9].equals( dataFunction ) )
-        {
-          if ( ( i % 4 ) == 0 )
+          if ( DATA_FUNCTIONS[0].equals( dataFunction ) )
           {
-            state = !state;
+            final int v = ( i / 8 ) & 0xff;
+            data[i] = ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 );
+          }
+          else if ( DATA_FUNCTIONS[1].equals( dataFunction ) )
+          {
+            data[i] = 0x00;
+          }
+          else if ( DATA_FUNCTIONS[2].equals( dataFunction ) )
+          {
+            data[i] = ( int )( half + ( half * Math.sin( i * factor ) ) );
+            rate = -1;
+          }
+          else if ( DATA_FUNCTIONS[3].equals( dataFunction ) )
+          {
+            data[i] = ( ( i % 2 ) == 0 ) ? 0x55 : 0xAA;
+          }
+          else if ( DATA_FUNCTIONS[4].equals( dataFunction ) )
+          {
+            data[i] = ( ( i % 4 ) == 0 ) ? 0x55 : 0xAA;
+          }
+          else if ( DATA_FUNCTIONS[5].equals( dataFunction ) )
+          {
+            data[i] = rnd.nextInt();
+          }
+          else if ( DATA_FUNCTIONS[9].equals( dataFunction ) )
+          {
+            if ( ( i % 4 ) == 0 )
+            {
+              state = !state;
+            }
+            data[i] = state ? 0x00 : 0x8000;
+            enabledChannels = 0x0000FF00;
           }
-          data[i] = state ? 0x00 : 0x8000;
-          enabledChannels = 0x0000FF00;
-        }
 
-        this.progressListener.acquisitionInProgress( ( int )( ( i * 100.0 ) / data.length ) );
+          progressReporter.setPosition( i );
+        }
+      }
+      finally
+      {
+        progressReporter.close();
       }
 
       trigger = ( int )( data.length * 0.25 );
@@ -0,0 +1,63 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.csv;
+
+
+import nl.lxtreme.ols.api.data.export.*;
+
+import org.apache.felix.dm.*;
+import org.osgi.framework.*;
+
+
+/**
+ * Bundle activator for the CSV exporter bundle, which registers a CSV exporter
+ * that only exports the changed rows of the enabled channels.
+ * <p>
+ * The default CSV exporter, exporting all rows and channels, is registered
+ * through the <tt>OLS-ExporterClass</tt> bundle header.
+ * </p>
+ */
+public class Activator extends DependencyActivatorBase
+{
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void destroy( final BundleContext aContext, final DependencyManager aManager ) throws Exception
+  {
+    // NO-op
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void init( final BundleContext aContext, final DependencyManager aManager ) throws Exception
+  {
+    aManager.add( //
+        createComponent() //
+            .setInterface( Exporter.class.getName(), null ) //
+            .setImplementation( new CsvExporter( true /* aChangedRowsOnly */, true /* aEnabledChannelsOnly */) ) //
+        );
+  }
+}
@@ -34,21 +34,197 @@ import nl.lxtreme.ols.api.data.export.*;
 /**
  * Provides a CSV exporter for exporting the acquisition data in a
  * comma-separated format.
+ * <p>
+ * The rows are directly written as ASCII bytes into a reusable buffer, which is
+ * written to the output stream as a whole once it is full. Optionally, only the
+ * rows in which the value of the exported channels changes, and only the
+ * enabled channels can be exported; the exporter with these options is
+ * registered by the bundle activator, next to the default exporter.
+ * </p>
  */
 public class CsvExporter implements Exporter
 {
+  // INNER TYPES
+
+  /**
+   * Writes the data rows as bytes into a buffer, without any formatting.
+   */
+  private static final class RowWriter
+  {
+    // CONSTANTS
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** The maximum number of bytes of a long value, including its sign. */
+    private static final int MAX_LONG_LENGTH = 20;
+
+    // VARIABLES
+
+    private final OutputStream stream;
+    private final byte separator;
+    private final byte[] newline;
+    private final byte[] buffer;
+    private final int maxRowLength;
+
+    private int position;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link RowWriter} instance.
+     */
+    RowWriter( final OutputStream aStream, final char aSeparator, final int aMaxRowLength )
+    {
+      this.stream = aStream;
+      this.separator = ( byte )aSeparator;
+      // Use the same line separator as PrintStream does...
+      this.newline = System.getProperty( "line.separator" ).getBytes();
+      this.maxRowLength = aMaxRowLength + this.newline.length;
+      this.buffer = new byte[Math.max( BUFFER_SIZE, this.maxRowLength )];
+      this.position = 0;
+    }
+
+    // METHODS
+
+    /**
+     * Writes all buffered rows to the output stream.
+     */
+    void flush() throws IOException
+    {
+      this.stream.write( this.buffer, 0, this.position );
+      this.position = 0;
+    }
+
+    /**
+     * Starts a new row, ensuring the buffer has room for it.
+     */
+    void startRow() throws IOException
+    {
+      if ( ( this.position + this.maxRowLength ) > this.buffer.length )
+      {
+        flush();
+      }
+    }
+
+    /**
+     * Ends the current row.
+     */
+    void endRow()
+    {
+      System.arraycopy( this.newline, 0, this.buffer, this.position, this.newline.length );
+      this.position += this.newline.length;
+    }
+
+    /**
+     * Writes the given bit values as separate columns.
+     *
+     * @param aValue
+     *          the sample value to take the bits from;
+     * @param aShifts
+     *          the bit positions to write, in column order.
+     */
+    void writeBits( final int aValue, final int[] aShifts )
+    {
+      final byte[] buf = this.buffer;
+      int pos = this.position;
+      for ( int i = 0; i < aShifts.length; i++ )
+      {
+        buf[pos++] = this.separator;
+        buf[pos++] = ( byte )( '0' + ( ( aValue >>> aShifts[i] ) & 1 ) );
+      }
+      this.position = pos;
+    }
+
+    /**
+     * Writes the given bytes as is.
+     */
+    void writeBytes( final byte[] aBytes )
+    {
+      System.arraycopy( aBytes, 0, this.buffer, this.position, aBytes.length );
+      this.position += aBytes.length;
+    }
+
+    /**
+     * Writes the given value as decimal number, optionally preceded by a
+     * separator.
+     */
+    void writeLong( final long aValue, final boolean aSeparate )
+    {
+      final byte[] buf = this.buffer;
+      int pos = this.position;
+      if ( aSeparate )
+      {
+        buf[pos++] = this.separator;
+      }
+
+      // Work with negative values, as Long.MIN_VALUE cannot be negated...
+      long value = aValue;
+      if ( value < 0 )
+      {
+        buf[pos++] = '-';
+      }
+      else
+      {
+        value = -value;
+      }
+
+      final int start = pos;
+      do
+      {
+        buf[pos++] = ( byte )( '0' - ( value % 10 ) );
+        value /= 10;
+      }
+      while ( value != 0 );
+
+      // The digits are written in reverse order...
+      for ( int i = start, j = pos - 1; i < j; i++, j-- )
+      {
+        final byte digit = buf[i];
+        buf[i] = buf[j];
+        buf[j] = digit;
+      }
+
+      this.position = pos;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The number of samples that are exported at once. */
+  private static final int CHUNK_SIZE = 8192;
+
   // VARIABLES
 
   private final char colSeparator;
+  private final boolean changedRowsOnly;
+  private final boolean enabledChannelsOnly;
 
   // CONSTRUCTORS
 
   /**
-   * Creates a new {@link CsvExporter} instance.
+   * Creates a new {@link CsvExporter} instance that exports all rows and all
+   * channels.
    */
   public CsvExporter()
+  {
+    this( false /* aChangedRowsOnly */, false /* aEnabledChannelsOnly */);
+  }
+
+  /**
+   * Creates a new {@link CsvExporter} instance.
+   *
+   * @param aChangedRowsOnly
+   *          <code>true</code> to only export the rows in which the value of
+   *          the exported channels differs from the previously exported row,
+   *          <code>false</code> to export all rows;
+   * @param aEnabledChannelsOnly
+   *          <code>true</code> to only export the enabled channels,
+   *          <code>false</code> to export all channels.
+   */
+  public CsvExporter( final boolean aChangedRowsOnly, final boolean aEnabledChannelsOnly )
   {
     this.colSeparator = ',';
+    this.changedRowsOnly = aChangedRowsOnly;
+    this.enabledChannelsOnly = aEnabledChannelsOnly;
   }
 
   // METHODS
@@ -60,31 +236,78 @@ public class CsvExporter implements Exporter
   public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
       throws IOException
   {
+    final Channel[] channels = getExportedChannels( aDataSet );
+
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+    final int sampleRate = capturedData.getSampleRate();
+    final long triggerPos = capturedData.getTriggerPosition();
+    final int sampleCount = capturedData.getSampleCount();
+
+    // Write header row...
     final PrintStream stream = new PrintStream( aStream );
+    writeHeaderRow( stream, createHeaderRowValues( aDataSet, channels ) );
+    stream.flush();
 
-    try
+    // The channels are listed in "inverse" order, MSB first...
+    final int[] shifts = new int[channels.length];
+    int mask = 0;
+    for ( int i = 0; i < channels.length; i++ )
     {
-      // Write header row...
-      writeHeaderRow( stream, createHeaderRowValues( aDataSet ) );
+      final Channel channel = channels[channels.length - i - 1];
+      shifts[i] = channel.getIndex();
+      mask |= channel.getMask();
+    }
+
+    // The sample rate column is the same for all rows...
+    final byte[] sampleRateColumn = ( this.colSeparator + String.valueOf( sampleRate ) ).getBytes();
 
-      final Channel[] channels = aDataSet.getChannels();
+    final RowWriter writer = new RowWriter( aStream, this.colSeparator, ( 2 * RowWriter.MAX_LONG_LENGTH ) + 1
+        + sampleRateColumn.length + ( 2 * channels.length ) );
 
-      final AcquisitionResult capturedData = aDataSet.getCapturedData();
-      final int sampleRate = capturedData.getSampleRate();
-      final int[] values = capturedData.getValues();
-      final long[] timestamps = capturedData.getTimestamps();
-      final long triggerPos = capturedData.getTriggerPosition();
+    final int[] values = new int[CHUNK_SIZE];
+    final long[] timestamps = new long[CHUNK_SIZE];
 
-      // Write data...
-      for ( int i = 0; i < values.length; i++ )
+    try
+    {
+      int oldValue = 0;
+
+      // Write data, chunk by chunk...
+      for ( int offset = 0; offset < sampleCount; offset += CHUNK_SIZE )
       {
-        // Write data row...
-        writeDataRow( stream, timestamps[i], triggerPos, sampleRate, values[i], channels );
+        final int count = capturedData.getValues( offset, values, 0, CHUNK_SIZE );
+        capturedData.getTimestamps( offset, timestamps, 0, CHUNK_SIZE );
+
+        for ( int i = 0; i < count; i++ )
+        {
+          final int value = values[i] & mask;
+          if ( this.changedRowsOnly && ( ( offset + i ) > 0 ) && ( value == oldValue ) )
+          {
+            continue;
+          }
+          oldValue = value;
+
+          // Write data row...
+          final long absTime = timestamps[i];
+
+          writer.startRow();
+          writer.writeLong( absTime, false /* aSeparate */);
+          if ( triggerPos > 0 )
+          {
+            writer.writeLong( absTime - triggerPos, true /* aSeparate */);
+          }
+          if ( sampleRate > 0 )
+          {
+            writer.writeBytes( sampleRateColumn );
+          }
+          writer.writeBits( value, shifts );
+          writer.endRow();
+        }
       }
     }
     finally
     {
-      stream.flush();
+      writer.flush();
+      aStream.flush();
     }
   }
 
@@ -103,6 +326,18 @@ public class CsvExporter implements Exporter
   @Override
   public String getName()
   {
+    if ( this.changedRowsOnly && this.enabledChannelsOnly )
+    {
+      return "CSV File (changed rows, enabled channels)";
+    }
+    else if ( this.changedRowsOnly )
+    {
+      return "CSV File (changed rows)";
+    }
+    else if ( this.enabledChannelsOnly )
+    {
+      return "CSV File (enabled channels)";
+    }
     return "CSV File";
   }
 
@@ -118,7 +353,7 @@ public class CsvExporter implements Exporter
       String label = aChannels[i].getLabel();
       if ( label == null )
       {
-        label = String.format( "Ch.%d", Integer.valueOf( i ) );
+        label = String.format( "Ch.%d", Integer.valueOf( aChannels[i].getIndex() ) );
       }
       // Causes the channels to be listed in "inverse" order, MSB first...
       aList.add( insertIdx, label );
@@ -127,12 +362,12 @@ public class CsvExporter implements Exporter
 
   /**
    * @param aDataSet
+   * @param aChannels
+   *          the channels to export.
    * @return
    */
-  private String[] createHeaderRowValues( final DataSet aDataSet )
+  private String[] createHeaderRowValues( final DataSet aDataSet, final Channel[] aChannels )
   {
-    final Channel[] channels = aDataSet.getChannels();
-
     final AcquisitionResult capturedData = aDataSet.getCapturedData();
     final long triggerPos = capturedData.getTriggerPosition();
     final int sampleRate = capturedData.getSampleRate();
@@ -164,59 +399,44 @@ public class CsvExporter implements Exporter
       result.add( "sample rate (Hz)" );
     }
 
-    createChannelHeaders( result, channels );
+    createChannelHeaders( result, aChannels );
 
     return result.toArray( new String[result.size()] );
   }
 
   /**
-   * @param aValue
-   * @return
-   */
-  private String quote( final String aValue )
-  {
-    return String.format( "\"%s\"", aValue );
-  }
-
-  /**
-   * @param aStream
-   *          the output stream to write the data values to;
-   * @param aAbsTime
-   * @param aTriggerPos
-   * @param aValue
-   * @param aChannels
-   * @throws IOException
-   *           in case of I/O problems.
+   * Returns the channels that are to be exported.
+   *
+   * @param aDataSet
+   *          the data set to take the channels from.
+   * @return the exported channels, never <code>null</code>.
    */
-  private void writeDataRow( final PrintStream aStream, final long aAbsTime, final long aTriggerPos,
-      final int aSampleRate, final int aValue, final Channel[] aChannels ) throws IOException
+  private Channel[] getExportedChannels( final DataSet aDataSet )
   {
-    aStream.print( aAbsTime );
-
-    if ( aTriggerPos > 0 )
-    {
-      aStream.print( this.colSeparator );
-      aStream.print( aAbsTime - aTriggerPos );
-    }
-    if ( aSampleRate > 0 )
+    final Channel[] channels = aDataSet.getChannels();
+    if ( !this.enabledChannelsOnly )
     {
-      aStream.print( this.colSeparator );
-      aStream.print( aSampleRate );
+      return channels;
     }
 
-    if ( aChannels != null )
+    final List<Channel> result = new ArrayList<Channel>();
+    for ( Channel channel : channels )
     {
-      int l = aChannels.length;
-      for ( int i = 0; i < l; i++ )
+      if ( channel.isEnabled() )
       {
-        Channel channel = aChannels[l - i - 1];
-        int v = ( aValue & channel.getMask() ) >> channel.getIndex();
-        aStream.print( this.colSeparator );
-        aStream.print( v );
+        result.add( channel );
       }
     }
+    return result.toArray( new Channel[result.size()] );
+  }
 
-    aStream.println();
+  /**
+   * @param aValue
+   * @return
+   */
+  private String quote( final String aValue )
+  {
+    return String.format( "\"%s\"", aValue );
   }
 
   /**
@@ -70,6 +70,52 @@ public class CsvExporterTest
     this.separator = System.getProperty( "line.separator", "\n" );
   }
 
+  /**
+   * Test method for
+   * {@link CsvExporter#export(DataSet, JComponent, OutputStream)}.
+   * <p>
+   * Tests that only the changed rows of the enabled channels are exported when
+   * requested.
+   * </p>
+   */
+  @Test
+  public void testExportChangedRowsOfEnabledChannelsOnlyOk() throws Exception
+  {
+    final DataSet dataSet = createTestDataSet( CHANNEL_COUNT, 10, -1 /* aSampleRate */, -1L /* aTriggerPos */);
+    dataSet.getChannel( 0 ).setEnabled( false );
+    dataSet.getChannel( 3 ).setEnabled( false );
+
+    new CsvExporter( true /* aChangedRowsOnly */, true /* aEnabledChannelsOnly */).export( dataSet, this.component,
+        this.outputStream );
+
+    String[] results = getCsvData();
+    assertArrayEquals( new String[] { "\"state (abs)\",\"Ch.2\",\"Ch.1\"", "0,0,0", "2,0,1", "4,1,0", "6,1,1",
+        "8,0,0" }, results );
+  }
+
+  /**
+   * Test method for
+   * {@link CsvExporter#export(DataSet, JComponent, OutputStream)}.
+   * <p>
+   * Tests that the rows of a 4-bit data set with a sample rate and a trigger
+   * position are written correctly.
+   * </p>
+   */
+  @Test
+  public void testExportDataRowsOk() throws Exception
+  {
+    final DataSet dataSet = createTestDataSet( CHANNEL_COUNT, 10, SAMPLE_RATE, 10L );
+
+    this.exporter.export( dataSet, this.component, this.outputStream );
+
+    String[] results = getCsvData();
+    assertEquals( "\"timestamp (abs)\",\"timestamp (rel)\",\"sample rate (Hz)\",\"Ch.3\",\"Ch.2\",\"Ch.1\",\"Ch.0\"",
+        results[0] );
+    assertEquals( "0,-10,100000,0,0,0,0", results[1] );
+    assertEquals( "6,-4,100000,0,1,1,0", results[7] );
+    assertEquals( "9,-1,100000,1,0,0,1", results[10] );
+  }
+
   /**
    * Test method for
    * {@link CsvExporter#export(DataSet, JComponent, OutputStream)}.
@@ -182,6 +228,26 @@ public class CsvExporterTest
     assertCsvDimensions( results, expectedRows, expectedCols );
   }
 
+  /**
+   * Test method for {@link CsvExporter#getName()}.
+   * <p>
+   * Tests that exporters with different options have different names, as
+   * exporters are registered by name.
+   * </p>
+   */
+  @Test
+  public void testGetNameDiffersPerOptionsOk()
+  {
+    final Set<String> names = new HashSet<String>();
+    names.add( new CsvExporter( false, false ).getName() );
+    names.add( new CsvExporter( true, false ).getName() );
+    names.add( new CsvExporter( false, true ).getName() );
+    names.add( new CsvExporter( true, true ).getName() );
+
+    assertEquals( 4, names.size() );
+    assertEquals( "CSV File", this.exporter.getName() );
+  }
+
   /**
    * @param aCsvData
    * @param aExpectedRows
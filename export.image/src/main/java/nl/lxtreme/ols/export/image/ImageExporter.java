@@ -24,6 +24,7 @@ package nl.lxtreme.ols.export.image;
 import java.awt.*;
 import java.awt.image.*;
 import java.io.*;
+import java.lang.reflect.*;
 
 import javax.imageio.*;
 import javax.swing.*;
@@ -35,6 +36,11 @@ import nl.lxtreme.ols.api.data.export.*;
 
 /**
  * Provides a simple export-to-image functionality.
+ * <p>
+ * The diagram is painted into an image on the event dispatch thread, as Swing
+ * components should only be painted there; only the encoding and writing of
+ * the image is done on the calling thread.
+ * </p>
  */
 public class ImageExporter implements Exporter
 {
@@ -54,21 +60,7 @@ public class ImageExporter implements Exporter
   public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
       throws IOException
   {
-    final Dimension dims = getExportSize( aComponent );
-
-    final BufferedImage image = new BufferedImage( dims.width, dims.height, BufferedImage.TYPE_INT_RGB );
-
-    // Create a graphics contents on the buffered image
-    Graphics2D g2d = image.createGraphics();
-    try
-    {
-      paintDiagram( g2d, aComponent );
-    }
-    finally
-    {
-      g2d.dispose();
-      g2d = null;
-    }
+    final BufferedImage image = createImageOnEDT( aComponent );
 
     if ( !ImageIO.write( image, "png", aStream ) )
     {
@@ -94,6 +86,77 @@ public class ImageExporter implements Exporter
     return "PNG Image";
   }
 
+  /**
+   * Paints the given component into a new image.
+   * 
+   * @param aDiagram
+   *          the component to paint, cannot be <code>null</code>.
+   * @return the image, never <code>null</code>.
+   */
+  private BufferedImage createImage( final JComponent aDiagram )
+  {
+    final Dimension dims = getExportSize( aDiagram );
+
+    final BufferedImage image = new BufferedImage( dims.width, dims.height, BufferedImage.TYPE_INT_RGB );
+
+    // Create a graphics contents on the buffered image
+    Graphics2D g2d = image.createGraphics();
+    try
+    {
+      paintDiagram( g2d, aDiagram );
+    }
+    finally
+    {
+      g2d.dispose();
+      g2d = null;
+    }
+
+    return image;
+  }
+
+  /**
+   * Paints the given component into a new image on the event dispatch thread,
+   * waiting until it is painted.
+   * 
+   * @param aDiagram
+   *          the component to paint, cannot be <code>null</code>.
+   * @return the image, never <code>null</code>.
+   * @throws IOException
+   *           in case painting the component failed, or the current thread
+   *           was interrupted while waiting.
+   */
+  private BufferedImage createImageOnEDT( final JComponent aDiagram ) throws IOException
+  {
+    if ( SwingUtilities.isEventDispatchThread() )
+    {
+      return createImage( aDiagram );
+    }
+
+    final BufferedImage[] result = new BufferedImage[1];
+    try
+    {
+      SwingUtilities.invokeAndWait( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          result[0] = createImage( aDiagram );
+        }
+      } );
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Export interrupted!" );
+    }
+    catch ( InvocationTargetException exception )
+    {
+      throw new IOException( "Painting the diagram failed!", exception.getCause() );
+    }
+
+    return result[0];
+  }
+
   /**
    * Returns the export image size for the given component.
    * 
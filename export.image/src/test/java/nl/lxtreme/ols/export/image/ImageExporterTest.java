@@ -0,0 +1,88 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+
+import javax.imageio.*;
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link ImageExporter}.
+ */
+public class ImageExporterTest
+{
+  // INNER TYPES
+
+  /**
+   * Records the thread it is painted on.
+   */
+  static final class RecordingComponent extends JComponent
+  {
+    private static final long serialVersionUID = 1L;
+
+    volatile Boolean paintedOnEDT;
+
+    @Override
+    protected void paintComponent( final Graphics aGraphics )
+    {
+      this.paintedOnEDT = Boolean.valueOf( SwingUtilities.isEventDispatchThread() );
+
+      aGraphics.setColor( Color.RED );
+      aGraphics.fillRect( 0, 0, getWidth(), getHeight() );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that exporting from a background thread paints the component on the
+   * event dispatch thread, and writes the painted image.
+   */
+  @Test
+  public void testExportPaintsOnEventDispatchThreadOk() throws Exception
+  {
+    final RecordingComponent component = new RecordingComponent();
+    component.setSize( 16, 8 );
+
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    new ImageExporter().export( mock( DataSet.class ), component, stream );
+
+    assertEquals( Boolean.TRUE, component.paintedOnEDT );
+
+    final BufferedImage image = ImageIO.read( new ByteArrayInputStream( stream.toByteArray() ) );
+    assertNotNull( image );
+    assertEquals( 16, image.getWidth() );
+    assertEquals( 8, image.getHeight() );
+    assertEquals( Color.RED.getRGB(), image.getRGB( 4, 4 ) );
+  }
+}
@@ -23,6 +23,7 @@ package nl.lxtreme.ols.export.svg;
 
 import java.awt.*;
 import java.io.*;
+import java.lang.reflect.*;
 import java.util.*;
 
 import javax.swing.*;
@@ -66,8 +67,9 @@ public class SVGExporter implements Exporter
     // Make sure to set the correct canvas size, in order for viewers to get a
     // notion of the size of the display...
     svgGenerator.setSVGCanvasSize( getImageSize( aComponent ) );
-    // "Paint" the diagram component to SVG...
-    paintDiagram( svgGenerator, aComponent );
+    // "Paint" the diagram component to SVG, on the EDT as Swing components
+    // should only be painted there...
+    paintDiagramOnEDT( svgGenerator, aComponent );
 
     Writer out = new OutputStreamWriter( aStream, "UTF-8" );
     try
@@ -127,6 +129,48 @@ public class SVGExporter implements Exporter
     return aDiagram.getPreferredSize();
   }
 
+  /**
+   * Paints the given component on the given canvas on the event dispatch
+   * thread, waiting until it is painted.
+   * 
+   * @param aCanvas
+   *          the canvas to paint on, cannot be <code>null</code>;
+   * @param aDiagram
+   *          the component to paint, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case painting the component failed, or the current thread
+   *           was interrupted while waiting.
+   */
+  private void paintDiagramOnEDT( final Graphics2D aCanvas, final JComponent aDiagram ) throws IOException
+  {
+    if ( SwingUtilities.isEventDispatchThread() )
+    {
+      paintDiagram( aCanvas, aDiagram );
+      return;
+    }
+
+    try
+    {
+      SwingUtilities.invokeAndWait( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          paintDiagram( aCanvas, aDiagram );
+        }
+      } );
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Export interrupted!" );
+    }
+    catch ( InvocationTargetException exception )
+    {
+      throw new IOException( "Painting the diagram failed!", exception.getCause() );
+    }
+  }
+
   /**
    * Paints the given component on the given canvas.
    * 
@@ -43,6 +43,8 @@ public class ValueChangeDumpExporter implements Exporter
 
   private static final String ID = "OLS Java Client";
   private static final String VERSION = "VCD exporter v1.1";
+  /** The number of samples that are exported at once. */
+  private static final int CHUNK_SIZE = 8192;
 
   // METHODS
 
@@ -53,21 +55,33 @@ public class ValueChangeDumpExporter implements Exporter
   public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
       throws IOException
   {
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+
+    final double timescale = getTimebase( capturedData.getSampleRate() );
+
     final PrintWriter writer = new PrintWriter( aStream );
     try
     {
-      final AcquisitionResult capturedData = aDataSet.getCapturedData();
-
-      final double timescale = getTimebase( capturedData.getSampleRate() );
-
       writePreamble( writer, aDataSet, timescale );
       writeVariableDump( writer, aDataSet );
-      writeDataDump( writer, capturedData, timescale );
     }
     finally
     {
       writer.flush();
     }
+
+    // The (possibly huge) amount of value changes is written directly as
+    // bytes, which is much faster than formatting them...
+    final ValueChangeDumpWriter dumpWriter = new ValueChangeDumpWriter( aStream, capturedData.getChannels() );
+    try
+    {
+      writeDataDump( dumpWriter, capturedData, timescale );
+    }
+    finally
+    {
+      dumpWriter.flush();
+      aStream.flush();
+    }
   }
 
   /**
@@ -93,31 +107,42 @@ public class ValueChangeDumpExporter implements Exporter
    * @param aCapturedData
    * @param aTimebase
    */
-  protected void writeDataDump( final PrintWriter aWriter, final AcquisitionResult aCapturedData, final double aTimebase )
+  protected void writeDataDump( final ValueChangeDumpWriter aWriter, final AcquisitionResult aCapturedData,
+      final double aTimebase ) throws IOException
   {
-    final int[] values = aCapturedData.getValues();
-    final long[] timestamps = aCapturedData.getTimestamps();
+    final int sampleCount = aCapturedData.getSampleCount();
     final int channelCount = aCapturedData.getChannels();
     final int channelMask = aCapturedData.getEnabledChannels();
 
+    final int[] values = new int[CHUNK_SIZE];
+    final long[] timestamps = new long[CHUNK_SIZE];
+    final double timeDivider = aCapturedData.getSampleRate() * aTimebase;
+
     int oldValue = -1;
-    for ( int i = 0, size = values.length; i < size; i++ )
+    for ( int offset = 0; offset < sampleCount; offset += CHUNK_SIZE )
     {
-      final int value = values[i];
-      final long timestamp = timestamps[i];
-
-      final int time = ( int )( timestamp / ( aCapturedData.getSampleRate() * aTimebase ) );
+      final int count = aCapturedData.getValues( offset, values, 0, CHUNK_SIZE );
+      aCapturedData.getTimestamps( offset, timestamps, 0, CHUNK_SIZE );
 
-      if ( ( i == 0 ) || ( oldValue != value ) )
+      for ( int j = 0; j < count; j++ )
       {
-        writeTime( aWriter, time );
-        writeVariableData( aWriter, channelCount, channelMask, value, oldValue, ( i == 0 ) );
-      }
+        final int i = offset + j;
+        final int value = values[j];
+        final long timestamp = timestamps[j];
 
-      oldValue = value;
+        final int time = ( int )( timestamp / timeDivider );
+
+        if ( ( i == 0 ) || ( oldValue != value ) )
+        {
+          writeTime( aWriter, time );
+          writeVariableData( aWriter, channelCount, channelMask, value, oldValue, ( i == 0 ) );
+        }
+
+        oldValue = value;
+      }
     }
 
-    final int time = ( int )( aCapturedData.getAbsoluteLength() / ( aCapturedData.getSampleRate() * aTimebase ) );
+    final int time = ( int )( aCapturedData.getAbsoluteLength() / timeDivider );
     writeTime( aWriter, time );
   }
 
@@ -151,9 +176,9 @@ public class ValueChangeDumpExporter implements Exporter
    * @param aWriter
    * @param aTimebase
    */
-  protected void writeTime( final PrintWriter aWriter, final long aTimebase )
+  protected void writeTime( final ValueChangeDumpWriter aWriter, final long aTimebase ) throws IOException
   {
-    ValueChangeDumpHelper.writeTime( aWriter, aTimebase );
+    aWriter.writeTime( aTimebase );
   }
 
   /**
@@ -164,31 +189,32 @@ public class ValueChangeDumpExporter implements Exporter
    * @param aChannelMask
    *          the enabled channel mask;
    * @param aValue
-   *          the value to write.
+   *          the value to write;
+   * @param aOldValue
+   *          the previously written value;
+   * @param aAllBits
+   *          <code>true</code> to write all enabled channels,
+   *          <code>false</code> to write only the changed channels.
    */
-  protected void writeVariableData( final PrintWriter aWriter, final int aChannelCount, final int aChannelMask,
-      final int aValue, final int aOldValue, final boolean aAllBits )
+  protected void writeVariableData( final ValueChangeDumpWriter aWriter, final int aChannelCount,
+      final int aChannelMask, final int aValue, final int aOldValue, final boolean aAllBits ) throws IOException
   {
-    int value = aValue;
-    int oldValue = aOldValue;
-    int mask = aChannelMask;
-    for ( int i = 0; i < aChannelCount; i++ )
+    int bits = aChannelMask;
+    if ( aChannelCount < 32 )
     {
-      if ( ( mask & ( 1 << i ) ) == 0 )
-      {
-        continue;
-      }
-
-      final int bitValue = ( value & 1 );
-      final int oldBitValue = ( oldValue & 1 );
-
-      if ( aAllBits || ( bitValue != oldBitValue ) )
-      {
-        aWriter.printf( "%d%s", Integer.valueOf( bitValue ), getIdentifier( i ) ).println();
-      }
+      bits &= ( 1 << aChannelCount ) - 1;
+    }
+    if ( !aAllBits )
+    {
+      bits &= ( aValue ^ aOldValue );
+    }
 
-      value >>= 1;
-      oldValue >>= 1;
+    // Only visit the bits that are to be written, in ascending order...
+    while ( bits != 0 )
+    {
+      final int i = Integer.numberOfTrailingZeros( bits );
+      aWriter.writeValue( i, ( aValue >>> i ) & 1 );
+      bits &= bits - 1;
     }
   }
 
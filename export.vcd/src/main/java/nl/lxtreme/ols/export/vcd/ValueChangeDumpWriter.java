@@ -0,0 +1,224 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.vcd;
+
+
+import static nl.lxtreme.ols.export.vcd.ValueChangeDumpHelper.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+
+/**
+ * Provides a high-throughput writer for the value changes of a value change
+ * dump.
+ * <p>
+ * The value changes are written as ASCII bytes into a large buffer, which is
+ * written to the underlying stream as a whole once it is full. The identifiers
+ * of all channels are determined up front, and timestamps are converted to
+ * ASCII without any formatting, so writing value changes does not allocate
+ * any objects. The output is identical to writing the same value changes
+ * through a {@link PrintWriter}.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ */
+public final class ValueChangeDumpWriter
+{
+  // CONSTANTS
+
+  private static final int BUFFER_SIZE = 256 * 1024;
+  /** The maximum number of bytes of a single line, excluding the newline. */
+  private static final int MAX_LINE_LENGTH = 21;
+
+  // VARIABLES
+
+  private final WritableByteChannel channel;
+  private final byte[] identifiers;
+  private final byte[] newline;
+  private final byte[] buffer;
+  private final ByteBuffer byteBuffer;
+
+  private int position;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link ValueChangeDumpWriter} instance.
+   * 
+   * @param aStream
+   *          the output stream to write to, cannot be <code>null</code>. File
+   *          output streams are written to through their file channel;
+   * @param aChannelCount
+   *          the number of channels to write value changes for, >= 0 && <= 91.
+   */
+  public ValueChangeDumpWriter( final OutputStream aStream, final int aChannelCount )
+  {
+    if ( aStream == null )
+    {
+      throw new IllegalArgumentException( "Stream cannot be null!" );
+    }
+
+    if ( aStream instanceof FileOutputStream )
+    {
+      this.channel = ( ( FileOutputStream )aStream ).getChannel();
+    }
+    else
+    {
+      this.channel = Channels.newChannel( aStream );
+    }
+
+    this.identifiers = new byte[aChannelCount];
+    for ( int i = 0; i < aChannelCount; i++ )
+    {
+      this.identifiers[i] = ( byte )getIdentifier( i ).charAt( 0 );
+    }
+
+    // Use the same line separator as PrintWriter does...
+    final String lineSeparator = System.getProperty( "line.separator" );
+    this.newline = new byte[lineSeparator.length()];
+    for ( int i = 0; i < this.newline.length; i++ )
+    {
+      this.newline[i] = ( byte )lineSeparator.charAt( i );
+    }
+
+    this.buffer = new byte[BUFFER_SIZE];
+    this.byteBuffer = ByteBuffer.wrap( this.buffer );
+    this.position = 0;
+  }
+
+  // METHODS
+
+  /**
+   * Writes all buffered value changes to the underlying stream.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void flush() throws IOException
+  {
+    this.byteBuffer.clear();
+    this.byteBuffer.limit( this.position );
+    while ( this.byteBuffer.hasRemaining() )
+    {
+      this.channel.write( this.byteBuffer );
+    }
+    this.position = 0;
+  }
+
+  /**
+   * Writes a time line, in the form of <tt>#&lt;time&gt;</tt>.
+   * 
+   * @param aTime
+   *          the time to write.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void writeTime( final long aTime ) throws IOException
+  {
+    ensureCapacity();
+
+    final byte[] buf = this.buffer;
+    int pos = this.position;
+
+    buf[pos++] = '#';
+
+    // Work with negative values, as Long.MIN_VALUE cannot be negated...
+    long value = aTime;
+    if ( value < 0 )
+    {
+      buf[pos++] = '-';
+    }
+    else
+    {
+      value = -value;
+    }
+
+    final int start = pos;
+    do
+    {
+      buf[pos++] = ( byte )( '0' - ( value % 10 ) );
+      value /= 10;
+    }
+    while ( value != 0 );
+
+    // The digits are written in reverse order...
+    for ( int i = start, j = pos - 1; i < j; i++, j-- )
+    {
+      final byte digit = buf[i];
+      buf[i] = buf[j];
+      buf[j] = digit;
+    }
+
+    this.position = writeNewline( pos );
+  }
+
+  /**
+   * Writes a value change line of a single channel, in the form of
+   * <tt>&lt;value&gt;&lt;identifier&gt;</tt>.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel, >= 0 && < channel count;
+   * @param aBitValue
+   *          the new value of the channel, either 0 or 1.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void writeValue( final int aChannelIdx, final int aBitValue ) throws IOException
+  {
+    ensureCapacity();
+
+    int pos = this.position;
+    this.buffer[pos++] = ( byte )( '0' + aBitValue );
+    this.buffer[pos++] = this.identifiers[aChannelIdx];
+
+    this.position = writeNewline( pos );
+  }
+
+  /**
+   * Ensures there is room for at least one more line in the buffer.
+   */
+  private void ensureCapacity() throws IOException
+  {
+    if ( ( this.position + MAX_LINE_LENGTH + this.newline.length ) > this.buffer.length )
+    {
+      flush();
+    }
+  }
+
+  /**
+   * Writes a newline at the given position.
+   * 
+   * @return the position after the written newline.
+   */
+  private int writeNewline( final int aPosition )
+  {
+    final byte[] nl = this.newline;
+    int pos = aPosition;
+    for ( int i = 0; i < nl.length; i++ )
+    {
+      this.buffer[pos++] = nl[i];
+    }
+    return pos;
+  }
+}
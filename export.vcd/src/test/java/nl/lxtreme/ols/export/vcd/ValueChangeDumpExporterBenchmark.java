@@ -0,0 +1,124 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.vcd;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.test.data.DataTestUtils.TestDataProvider;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+
+/**
+ * Benchmarks the throughput of {@link ValueChangeDumpExporter}, in exported
+ * transitions per second.
+ * <p>
+ * Run this benchmark by running its {@link #main(String[])} method with the
+ * test classpath of this project.
+ * </p>
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ValueChangeDumpExporterBenchmark
+{
+  // CONSTANTS
+
+  private static final int TRANSITION_COUNT = 1000000;
+
+  // VARIABLES
+
+  @Param( { "8", "31" } )
+  public int channelCount;
+
+  private DataSet dataSet;
+  private ValueChangeDumpExporter exporter;
+
+  // METHODS
+
+  /**
+   * Runs this benchmark.
+   */
+  public static void main( final String[] aArgs ) throws Exception
+  {
+    final Options options = new OptionsBuilder().include( ValueChangeDumpExporterBenchmark.class.getSimpleName() )
+        .build();
+    new Runner( options ).run();
+  }
+
+  /**
+   * Sets up the benchmark state.
+   */
+  @Setup
+  public void setUp()
+  {
+    this.dataSet = DataTestUtils.createStubDataSet( TRANSITION_COUNT, this.channelCount, 100000000,
+        new TestDataProvider()
+        {
+          @Override
+          public void fillData( final int[] aValues, final long[] aTimestamps, final int aDataSize )
+          {
+            final Random rnd = new Random( 42L );
+            long timestamp = 0L;
+            for ( int i = 0; i < aDataSize; i++ )
+            {
+              aValues[i] = rnd.nextInt();
+              aTimestamps[i] = timestamp;
+              timestamp += 1 + rnd.nextInt( 1000 );
+            }
+          }
+        } );
+    this.exporter = new ValueChangeDumpExporter();
+  }
+
+  /**
+   * Exports all transitions to a discarding output stream.
+   */
+  @Benchmark
+  @OperationsPerInvocation( TRANSITION_COUNT )
+  public void export() throws IOException
+  {
+    this.exporter.export( this.dataSet, null, new OutputStream()
+    {
+      @Override
+      public void write( final byte[] aBuffer, final int aOffset, final int aLength )
+      {
+        // Discard...
+      }
+
+      @Override
+      public void write( final int aByte )
+      {
+        // Discard...
+      }
+    } );
+  }
+}
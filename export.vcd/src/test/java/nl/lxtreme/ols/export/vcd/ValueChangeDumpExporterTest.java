@@ -21,15 +21,20 @@
 package nl.lxtreme.ols.export.vcd;
 
 
+import static nl.lxtreme.ols.export.vcd.ValueChangeDumpHelper.*;
+import static org.junit.Assert.*;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 
 import java.io.*;
+import java.util.*;
 
 import javax.swing.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.test.data.DataTestUtils.TestDataProvider;
 import nl.lxtreme.ols.util.*;
 
 import org.junit.*;
@@ -80,9 +85,9 @@ public class ValueChangeDumpExporterTest
 
     verify( this.exporter ).writeVariableDump( any( PrintWriter.class ), eq( dataSet ) );
     verify( this.exporter, times( 16 ) ).writeSingleVariableDefinition( any( PrintWriter.class ), anyInt() );
-    verify( this.exporter, times( 2 ) ).writeVariableData( any( PrintWriter.class ), eq( 16 ), eq( 65535 ), anyInt(),
+    verify( this.exporter, times( 2 ) ).writeVariableData( any( ValueChangeDumpWriter.class ), eq( 16 ), eq( 65535 ), anyInt(),
         anyInt(), anyBoolean() );
-    verify( this.exporter, times( 3 ) ).writeTime( any( PrintWriter.class ), anyLong() );
+    verify( this.exporter, times( 3 ) ).writeTime( any( ValueChangeDumpWriter.class ), anyLong() );
   }
 
   /**
@@ -102,9 +107,9 @@ public class ValueChangeDumpExporterTest
 
     verify( this.exporter ).writeVariableDump( any( PrintWriter.class ), eq( dataSet ) );
     verify( this.exporter, times( 8 ) ).writeSingleVariableDefinition( any( PrintWriter.class ), anyInt() );
-    verify( this.exporter, times( 4 ) ).writeVariableData( any( PrintWriter.class ), eq( 8 ), eq( 255 ), anyInt(),
+    verify( this.exporter, times( 4 ) ).writeVariableData( any( ValueChangeDumpWriter.class ), eq( 8 ), eq( 255 ), anyInt(),
         anyInt(), anyBoolean() );
-    verify( this.exporter, times( 5 ) ).writeTime( any( PrintWriter.class ), anyLong() );
+    verify( this.exporter, times( 5 ) ).writeTime( any( ValueChangeDumpWriter.class ), anyLong() );
   }
 
   /**
@@ -133,6 +138,50 @@ public class ValueChangeDumpExporterTest
     }
   }
 
+  /**
+   * Test method for
+   * {@link ValueChangeDumpExporter#writeDataDump(ValueChangeDumpWriter, AcquisitionResult, double)}
+   * .
+   * <p>
+   * This method tests that the value changes are written exactly as they were
+   * written when formatting them through a {@link PrintWriter}.
+   * </p>
+   */
+  @Test
+  public void testExportDataDumpMatchesFormattedOutput() throws IOException
+  {
+    final int channelCount = 24;
+    final DataSet dataSet = DataTestUtils.createStubDataSet( 20000, channelCount, 100000000, new TestDataProvider()
+    {
+      @Override
+      public void fillData( final int[] aValues, final long[] aTimestamps, final int aDataSize )
+      {
+        final Random rnd = new Random( 42L );
+        long timestamp = 0L;
+        for ( int i = 0; i < aDataSize; i++ )
+        {
+          // Only change a few channels at a time...
+          aValues[i] = ( i == 0 ) ? rnd.nextInt() : aValues[i - 1] ^ ( 1 << rnd.nextInt( 32 ) );
+          aTimestamps[i] = timestamp;
+          timestamp += 1 + rnd.nextInt( 100000 );
+        }
+      }
+    } );
+
+    final AcquisitionResult capturedData = dataSet.getCapturedData();
+    final double timebase = getTimebase( capturedData.getSampleRate() );
+
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    final ValueChangeDumpWriter writer = new ValueChangeDumpWriter( actual, channelCount );
+    new ValueChangeDumpExporter().writeDataDump( writer, capturedData, timebase );
+    writer.flush();
+
+    final StringWriter expected = new StringWriter();
+    writeFormattedDataDump( new PrintWriter( expected ), capturedData, timebase );
+
+    assertEquals( expected.toString(), actual.toString( "US-ASCII" ) );
+  }
+
   /**
    * Test method for
    * {@link ValueChangeDumpExporter#export(DataSet, JComponent, OutputStream)} .
@@ -150,8 +199,44 @@ public class ValueChangeDumpExporterTest
 
     verify( this.exporter ).writeVariableDump( any( PrintWriter.class ), eq( dataSet ) );
     verify( this.exporter, times( 1 ) ).writeSingleVariableDefinition( any( PrintWriter.class ), anyInt() );
-    verify( this.exporter, times( 16 ) ).writeVariableData( any( PrintWriter.class ), eq( 1 ), eq( 1 ), anyInt(),
+    verify( this.exporter, times( 16 ) ).writeVariableData( any( ValueChangeDumpWriter.class ), eq( 1 ), eq( 1 ), anyInt(),
         anyInt(), anyBoolean() );
-    verify( this.exporter, times( 17 ) ).writeTime( any( PrintWriter.class ), anyLong() );
+    verify( this.exporter, times( 17 ) ).writeTime( any( ValueChangeDumpWriter.class ), anyLong() );
+  }
+
+  /**
+   * Writes the value changes of the given captured data by formatting them
+   * through the given print writer.
+   */
+  private void writeFormattedDataDump( final PrintWriter aWriter, final AcquisitionResult aCapturedData,
+      final double aTimebase )
+  {
+    final int[] values = aCapturedData.getValues();
+    final long[] timestamps = aCapturedData.getTimestamps();
+    final int channelCount = aCapturedData.getChannels();
+    final int channelMask = aCapturedData.getEnabledChannels();
+
+    for ( int i = 0; i < values.length; i++ )
+    {
+      if ( ( i == 0 ) || ( values[i] != values[i - 1] ) )
+      {
+        final int time = ( int )( timestamps[i] / ( aCapturedData.getSampleRate() * aTimebase ) );
+        aWriter.printf( "#%d", Long.valueOf( time ) ).println();
+
+        for ( int c = 0; c < channelCount; c++ )
+        {
+          final int bitValue = ( values[i] >> c ) & 1;
+          if ( ( ( channelMask & ( 1 << c ) ) != 0 )
+              && ( ( i == 0 ) || ( bitValue != ( ( values[i - 1] >> c ) & 1 ) ) ) )
+          {
+            aWriter.printf( "%d%s", Integer.valueOf( bitValue ), getIdentifier( c ) ).println();
+          }
+        }
+      }
+    }
+
+    final int time = ( int )( aCapturedData.getAbsoluteLength() / ( aCapturedData.getSampleRate() * aTimebase ) );
+    aWriter.printf( "#%d", Long.valueOf( time ) ).println();
+    aWriter.flush();
   }
 }
@@ -0,0 +1,103 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.vcd;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link ValueChangeDumpWriter}.
+ */
+public class ValueChangeDumpWriterTest
+{
+  // METHODS
+
+  /**
+   * Tests that a buffer that is flushed multiple times yields all lines.
+   */
+  @Test
+  public void testWriteBeyondBufferSizeOk() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final StringWriter expected = new StringWriter();
+    final PrintWriter pw = new PrintWriter( expected );
+
+    final ValueChangeDumpWriter writer = new ValueChangeDumpWriter( baos, 32 );
+    for ( int i = 0; i < 100000; i++ )
+    {
+      writer.writeTime( i * 1000003L );
+      writer.writeValue( i & 31, i & 1 );
+
+      pw.printf( "#%d", Long.valueOf( i * 1000003L ) ).println();
+      pw.printf( "%d%s", Integer.valueOf( i & 1 ), ValueChangeDumpHelper.getIdentifier( i & 31 ) ).println();
+    }
+    writer.flush();
+    pw.flush();
+
+    assertEquals( expected.toString(), baos.toString( "US-ASCII" ) );
+  }
+
+  /**
+   * Tests that times are written as their decimal representation.
+   */
+  @Test
+  public void testWriteTimeOk() throws IOException
+  {
+    final long[] times = { 0L, 1L, 9L, 10L, 12345L, -1L, -10L, Long.MAX_VALUE, Long.MIN_VALUE };
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final StringWriter expected = new StringWriter();
+    final PrintWriter pw = new PrintWriter( expected );
+
+    final ValueChangeDumpWriter writer = new ValueChangeDumpWriter( baos, 1 );
+    for ( long time : times )
+    {
+      writer.writeTime( time );
+      pw.printf( "#%d", Long.valueOf( time ) ).println();
+    }
+    writer.flush();
+    pw.flush();
+
+    assertEquals( expected.toString(), baos.toString( "US-ASCII" ) );
+  }
+
+  /**
+   * Tests that value changes are written as value followed by identifier.
+   */
+  @Test
+  public void testWriteValueOk() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    final ValueChangeDumpWriter writer = new ValueChangeDumpWriter( baos, 3 );
+    writer.writeValue( 0, 1 );
+    writer.writeValue( 2, 0 );
+    writer.flush();
+
+    final String nl = System.getProperty( "line.separator" );
+    assertEquals( "1!" + nl + "0#" + nl, baos.toString( "US-ASCII" ) );
+  }
+}
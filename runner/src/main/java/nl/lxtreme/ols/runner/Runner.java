@@ -26,6 +26,8 @@ import java.net.*;
 import java.util.*;
 import java.util.concurrent.*;
 
+import nl.lxtreme.ols.util.*;
+
 import org.apache.felix.framework.*;
 import org.apache.felix.framework.util.*;
 import org.osgi.framework.*;
@@ -47,6 +49,7 @@ public final class Runner
 
     final File pluginDir;
     final File cacheDir;
+    final File batchScript;
     final boolean cleanCache;
     final int logLevel;
 
@@ -56,6 +59,7 @@ public final class Runner
     {
       String _pluginDir = getPluginDir();
       String _cacheDir = null;
+      String _batchScript = null;
       boolean _cleanCache = false;
       int _logLevel = 2;
 
@@ -78,6 +82,10 @@ public final class Runner
         {
           _cacheDir = cmdLineArg.substring( 10 );
         }
+        else if ( cmdLineArg.startsWith( "-batch=" ) )
+        {
+          _batchScript = cmdLineArg.substring( 7 );
+        }
       }
 
       if ( ( _logLevel < 0 ) || ( _logLevel > 6 ) )
@@ -103,6 +111,19 @@ public final class Runner
             this.cacheDir ) );
       }
 
+      if ( _batchScript == null )
+      {
+        this.batchScript = null;
+      }
+      else
+      {
+        this.batchScript = new File( _batchScript ).getCanonicalFile();
+        if ( !this.batchScript.isFile() )
+        {
+          throw new IllegalArgumentException( String.format( "Invalid batch script (%s)!", this.batchScript ) );
+        }
+      }
+
       this.cleanCache = _cleanCache;
       this.logLevel = _logLevel;
     }
@@ -180,6 +201,13 @@ public final class Runner
    */
   public void run() throws Exception
   {
+    if ( this.options.batchScript != null )
+    {
+      // Batch mode does not need any UI, so avoid the costs of initializing
+      // AWT & Swing entirely...
+      System.setProperty( "java.awt.headless", "true" );
+    }
+
     try
     {
       this.framework = new Felix( createConfig() );
@@ -309,6 +337,11 @@ public final class Runner
     config.put( FelixConstants.LOG_LOGGER_PROP, this.fwLogger );
 
     config.put( "nl.lxtreme.ols.config.dir", this.options.pluginDir.getAbsolutePath() );
+    if ( this.options.batchScript != null )
+    {
+      // Compile-time constant, so HostUtils itself is not needed at runtime...
+      config.put( HostUtils.BATCH_SCRIPT_KEY, this.options.batchScript.getPath() );
+    }
 
     return config;
   }
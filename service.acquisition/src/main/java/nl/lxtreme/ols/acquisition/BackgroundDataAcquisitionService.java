@@ -24,6 +24,7 @@ package nl.lxtreme.ols.acquisition;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.*;
@@ -39,19 +40,64 @@ import nl.lxtreme.ols.api.task.*;
  */
 public class BackgroundDataAcquisitionService implements DataAcquisitionService, TaskStatusListener
 {
+  // INNER TYPES
+
+  /**
+   * Forwards the progress and the partial results of a single acquisition to
+   * the registered listeners.
+   */
+  final class AcquisitionForwarder implements AcquisitionProgressListener, AcquisitionDataListener
+  {
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void acquisitionComplete( final AcquisitionResult aData )
+    {
+      // Complete results are handed over when the acquisition task ends...
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void acquisitionInProgress( final int aPercentage )
+    {
+      fireAcquisitionInProgressEvent( aPercentage );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void acquisitionPartiallyComplete( final AcquisitionResult aPartialData )
+    {
+      fireAcquisitionPartiallyCompleteEvent( aPartialData );
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( BackgroundDataAcquisitionService.class.getName() );
 
+  /** The maximum number of captures to keep in memory. */
+  private static final int MAX_CAPTURES = 8;
+  /** The maximum number of captures to keep on disk. */
+  private static final int MAX_SPILLED_CAPTURES = 256;
+
   // VARIABLES
 
   private final List<AcquisitionProgressListener> acquisitionProgressListeners;
   private final List<AcquisitionStatusListener> acquisitionStatusListeners;
   private final List<AcquisitionDataListener> acquisitionDataListeners;
+  private final CaptureRing captureHistory;
 
   private volatile TaskExecutionService taskExecutionService;
   private volatile Future<?> acquisitionFutureTask;
   private volatile Task<AcquisitionResult> acquisitionTask;
+  private volatile boolean repeating;
 
   // CONSTRUCTORS
 
@@ -63,6 +109,9 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
     this.acquisitionProgressListeners = new CopyOnWriteArrayList<AcquisitionProgressListener>();
     this.acquisitionStatusListeners = new CopyOnWriteArrayList<AcquisitionStatusListener>();
     this.acquisitionDataListeners = new CopyOnWriteArrayList<AcquisitionDataListener>();
+    // Keep at most a quarter of the available heap for older captures...
+    this.captureHistory = new CaptureRing( MAX_CAPTURES, Runtime.getRuntime().maxMemory() / 4,
+        MAX_SPILLED_CAPTURES );
   }
 
   // METHODS
@@ -73,33 +122,131 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
   @Override
   public void acquireData( final Device aDevice ) throws IOException
   {
-    final AcquisitionTask innerTask = aDevice.createAcquisitionTask( new AcquisitionProgressListener()
+    final AcquisitionTask innerTask = aDevice.createAcquisitionTask( new AcquisitionForwarder() );
+
+    // Wrap the actual acquisition task in order to get a kind of "auto"
+    // closable behavior...
+    this.acquisitionTask = new Task<AcquisitionResult>()
+    {
+      @Override
+      public AcquisitionResult call() throws Exception
+      {
+        try
+        {
+          return innerTask.call();
+        }
+        finally
+        {
+          aDevice.close();
+        }
+      }
+    };
+
+    this.repeating = false;
+    this.acquisitionFutureTask = this.taskExecutionService.execute( this.acquisitionTask );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquireDataRepeatedly( final Device aDevice, final int aCount ) throws IOException
+  {
+    if ( aDevice == null )
+    {
+      throw new IllegalArgumentException( "Device cannot be null!" );
+    }
+    if ( ( aCount == 0 ) || ( aCount < REPEAT_UNTIL_CANCELLED ) )
+    {
+      throw new IllegalArgumentException( "Invalid repeat count: " + aCount + "!" );
+    }
+
+    // Partial results are not forwarded, as they would interleave with the
+    // captures of earlier cycles still being handed over...
+    final AcquisitionProgressListener progressListener = new AcquisitionProgressListener()
     {
       @Override
       public void acquisitionInProgress( final int aPercentage )
       {
         fireAcquisitionInProgressEvent( aPercentage );
       }
-    } );
+    };
+
+    // Hands over the captures to the listeners on a separate thread, which
+    // allows the device to be re-armed directly after each capture. Only the
+    // most recent capture is handed over when the listeners are slower than
+    // the device...
+    final AtomicReference<AcquisitionResult> pendingResult = new AtomicReference<AcquisitionResult>();
+    final Runnable deliverer = new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        final AcquisitionResult result = pendingResult.getAndSet( null );
+        if ( result != null )
+        {
+          fireAcquisitionCompleteEvent( result );
+        }
+      }
+    };
 
-    // Wrap the actual acquisition task in order to get a kind of "auto"
-    // closable behavior...
     this.acquisitionTask = new Task<AcquisitionResult>()
     {
       @Override
       public AcquisitionResult call() throws Exception
       {
+        final BackgroundDataAcquisitionService service = BackgroundDataAcquisitionService.this;
+        final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor();
+
         try
         {
-          return innerTask.call();
+          for ( int cycle = 0; service.repeating && ( ( aCount < 0 ) || ( cycle < aCount ) ); cycle++ )
+          {
+            final AcquisitionResult result;
+            try
+            {
+              result = aDevice.createAcquisitionTask( progressListener ).call();
+            }
+            catch ( Exception exception )
+            {
+              if ( !service.repeating )
+              {
+                // Cancelled while waiting for the current capture; clear the
+                // interrupt as we end normally...
+                Thread.interrupted();
+                break;
+              }
+              throw exception;
+            }
+            finally
+            {
+              aDevice.close();
+            }
+
+            service.captureHistory.add( result );
+
+            if ( pendingResult.getAndSet( result ) == null )
+            {
+              deliveryExecutor.execute( deliverer );
+            }
+          }
         }
         finally
         {
-          aDevice.close();
+          // Ensure all captures are handed over before the acquisition ends...
+          deliveryExecutor.shutdown();
+          deliveryExecutor.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
         }
+
+        // All captures are already handed over...
+        return null;
       }
     };
 
+    // The history only keeps the captures of the current repetition...
+    this.captureHistory.clear();
+
+    this.repeating = true;
     this.acquisitionFutureTask = this.taskExecutionService.execute( this.acquisitionTask );
   }
 
@@ -156,6 +303,9 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
       throw new IllegalStateException( "No acquisition in progress!" );
     }
 
+    // Do not re-arm the device after the current capture...
+    this.repeating = false;
+
     final CancelTask cancelTask = aDevice.createCancelTask();
     if ( cancelTask != null )
     {
@@ -168,6 +318,15 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CaptureHistory getCaptureHistory()
+  {
+    return this.captureHistory;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -229,11 +388,15 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
    */
   public void stop()
   {
+    this.repeating = false;
+
     if ( ( this.acquisitionFutureTask != null ) && !this.acquisitionFutureTask.isDone() )
     {
       this.acquisitionFutureTask.cancel( true /* mayInterruptIfRunning */);
       this.acquisitionFutureTask = null;
     }
+
+    this.captureHistory.close();
   }
 
   /**
@@ -247,8 +410,12 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
       this.acquisitionTask = null;
       this.acquisitionFutureTask = null;
 
+      // Repeated acquisitions hand over their results themselves...
       final AcquisitionResult result = ( AcquisitionResult )aResult;
-      fireAcquisitionCompleteEvent( result );
+      if ( result != null )
+      {
+        fireAcquisitionCompleteEvent( result );
+      }
 
       final AcquisitionResultStatus status = new AcquisitionResultStatus( ResultStatus.NORMAL );
       fireAcquisitionEndedEvent( status );
@@ -323,6 +490,18 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
     }
   }
 
+  /**
+   * @param aPartialResult
+   */
+  void fireAcquisitionPartiallyCompleteEvent( final AcquisitionResult aPartialResult )
+  {
+    final Iterator<AcquisitionDataListener> dataListenerIter = this.acquisitionDataListeners.iterator();
+    while ( dataListenerIter.hasNext() )
+    {
+      dataListenerIter.next().acquisitionPartiallyComplete( aPartialResult );
+    }
+  }
+
   /**
    * @param status
    */
@@ -0,0 +1,622 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.acquisition;
+
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a {@link CaptureHistory} that keeps the most recent captures in
+ * memory, bounded by both a number of captures and a number of bytes.
+ * <p>
+ * Captures that no longer fit in memory are written to a temporary file on a
+ * background thread, so adding a capture never waits for the disk. Only the
+ * oldest captures beyond a maximum number are discarded entirely.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+final class CaptureRing implements CaptureHistory
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a single capture in the ring, either in memory or on disk.
+   */
+  static final class Entry
+  {
+    // VARIABLES
+
+    final long time;
+    final long size;
+
+    volatile AcquisitionResult data;
+    volatile File file;
+    boolean spilling;
+    boolean discarded;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Entry instance.
+     */
+    Entry( final AcquisitionResult aData )
+    {
+      this.time = System.currentTimeMillis();
+      this.size = getSize( aData );
+      this.data = aData;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( CaptureRing.class.getName() );
+
+  private static final int MAGIC = 0x43534c4f;
+  private static final int HEADER_SIZE = 36;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  // VARIABLES
+
+  private final int maxCaptures;
+  private final long maxMemory;
+  private final int maxSpilled;
+
+  private final LinkedList<Entry> entries;
+  private long memoryUsed;
+
+  private File spillDir;
+  private ExecutorService spillExecutor;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureRing instance.
+   *
+   * @param aMaxCaptures
+   *          the maximum number of captures to keep in memory, > 0;
+   * @param aMaxMemory
+   *          the maximum number of bytes of the captures to keep in memory,
+   *          although the most recent capture is always kept in memory;
+   * @param aMaxSpilled
+   *          the maximum number of captures to keep on disk, >= 0.
+   */
+  public CaptureRing( final int aMaxCaptures, final long aMaxMemory, final int aMaxSpilled )
+  {
+    if ( aMaxCaptures < 1 )
+    {
+      throw new IllegalArgumentException( "Max captures should be at least one!" );
+    }
+    if ( aMaxSpilled < 0 )
+    {
+      throw new IllegalArgumentException( "Max spilled captures cannot be negative!" );
+    }
+
+    this.maxCaptures = aMaxCaptures;
+    this.maxMemory = aMaxMemory;
+    this.maxSpilled = aMaxSpilled;
+
+    this.entries = new LinkedList<Entry>();
+  }
+
+  // METHODS
+
+  /**
+   * Compares two captures and returns the first timestamp at which their
+   * sample values differ.
+   *
+   * @return the first differing timestamp, or -1 if the captures do not differ
+   *         up to the shortest of both.
+   */
+  static long getFirstDifference( final AcquisitionResult aCapture1, final AcquisitionResult aCapture2 )
+  {
+    final SampleReader reader1 = new SampleReader( aCapture1 );
+    final SampleReader reader2 = new SampleReader( aCapture2 );
+    final int count1 = reader1.getSampleCount();
+    final int count2 = reader2.getSampleCount();
+
+    if ( ( count1 == 0 ) || ( count2 == 0 ) )
+    {
+      return ( count1 == count2 ) ? -1L : 0L;
+    }
+
+    final long end = Math.min( aCapture1.getAbsoluteLength(), aCapture2.getAbsoluteLength() );
+
+    int i1 = 0;
+    int i2 = 0;
+    long time = Math.min( reader1.getTimestamp( 0 ), reader2.getTimestamp( 0 ) );
+    while ( time <= end )
+    {
+      // Move both captures to their last transition at or before the time...
+      while ( ( ( i1 + 1 ) < count1 ) && ( reader1.getTimestamp( i1 + 1 ) <= time ) )
+      {
+        i1++;
+      }
+      while ( ( ( i2 + 1 ) < count2 ) && ( reader2.getTimestamp( i2 + 1 ) <= time ) )
+      {
+        i2++;
+      }
+
+      if ( reader1.getValue( i1 ) != reader2.getValue( i2 ) )
+      {
+        return time;
+      }
+
+      // Continue with the first transition in either capture...
+      long next = Long.MAX_VALUE;
+      if ( ( i1 + 1 ) < count1 )
+      {
+        next = reader1.getTimestamp( i1 + 1 );
+      }
+      if ( ( i2 + 1 ) < count2 )
+      {
+        next = Math.min( next, reader2.getTimestamp( i2 + 1 ) );
+      }
+      if ( next == Long.MAX_VALUE )
+      {
+        break;
+      }
+      time = next;
+    }
+
+    return -1L;
+  }
+
+  /**
+   * @return the (estimated) number of bytes used by the given capture.
+   */
+  static long getSize( final AcquisitionResult aData )
+  {
+    // Four bytes for each value, and eight bytes for each timestamp...
+    return aData.getSampleCount() * 12L;
+  }
+
+  /**
+   * Reads a capture from the given file.
+   *
+   * @param aFile
+   *          the file to read, cannot be <code>null</code>.
+   * @return the capture, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  static AcquisitionResult read( final File aFile ) throws IOException
+  {
+    final FileInputStream fis = new FileInputStream( aFile );
+    try
+    {
+      final FileChannel channel = fis.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+      // Start with an empty buffer...
+      buffer.flip();
+
+      fill( channel, buffer, HEADER_SIZE );
+      if ( buffer.getInt() != MAGIC )
+      {
+        throw new IOException( "Capture file is corrupt?! Invalid magic!" );
+      }
+
+      final int rate = buffer.getInt();
+      final int channels = buffer.getInt();
+      final int enabledChannels = buffer.getInt();
+      final long triggerPosition = buffer.getLong();
+      final long absoluteLength = buffer.getLong();
+      final int count = buffer.getInt();
+
+      final int[] values = new int[count];
+      for ( int i = 0; i < count; )
+      {
+        final int n = Math.min( count - i, BUFFER_SIZE / 4 );
+        fill( channel, buffer, n * 4 );
+        buffer.asIntBuffer().get( values, i, n );
+        buffer.position( buffer.position() + ( n * 4 ) );
+        i += n;
+      }
+
+      final long[] timestamps = new long[count];
+      for ( int i = 0; i < count; )
+      {
+        final int n = Math.min( count - i, BUFFER_SIZE / 8 );
+        fill( channel, buffer, n * 8 );
+        buffer.asLongBuffer().get( timestamps, i, n );
+        buffer.position( buffer.position() + ( n * 8 ) );
+        i += n;
+      }
+
+      return new CapturedData( values, timestamps, triggerPosition, rate, channels, enabledChannels, absoluteLength );
+    }
+    finally
+    {
+      HostUtils.closeResource( fis );
+    }
+  }
+
+  /**
+   * Writes a given capture to the given file.
+   *
+   * @param aData
+   *          the capture to write, cannot be <code>null</code>;
+   * @param aFile
+   *          the file to write to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  static void write( final AcquisitionResult aData, final File aFile ) throws IOException
+  {
+    final int count = aData.getSampleCount();
+
+    final FileOutputStream fos = new FileOutputStream( aFile );
+    try
+    {
+      final FileChannel channel = fos.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+
+      buffer.putInt( MAGIC );
+      buffer.putInt( aData.getSampleRate() );
+      buffer.putInt( aData.getChannels() );
+      buffer.putInt( aData.getEnabledChannels() );
+      buffer.putLong( aData.getTriggerPosition() );
+      buffer.putLong( aData.getAbsoluteLength() );
+      buffer.putInt( count );
+
+      // Copy the sample data in chunks, without copying it entirely...
+      final int[] values = new int[BUFFER_SIZE / 4];
+      for ( int i = 0; i < count; )
+      {
+        final int n = aData.getValues( i, values, 0, Math.min( count - i, buffer.remaining() / 4 ) );
+        buffer.asIntBuffer().put( values, 0, n );
+        buffer.position( buffer.position() + ( n * 4 ) );
+        i += n;
+        drain( channel, buffer, 4 );
+      }
+      final long[] timestamps = new long[BUFFER_SIZE / 8];
+      for ( int i = 0; i < count; )
+      {
+        final int n = aData.getTimestamps( i, timestamps, 0, Math.min( count - i, buffer.remaining() / 8 ) );
+        buffer.asLongBuffer().put( timestamps, 0, n );
+        buffer.position( buffer.position() + ( n * 8 ) );
+        i += n;
+        drain( channel, buffer, 8 );
+      }
+      drain( channel, buffer, BUFFER_SIZE );
+    }
+    finally
+    {
+      HostUtils.closeResource( fos );
+    }
+  }
+
+  /**
+   * Adds a given capture as most recent capture to this ring, moving older
+   * captures to disk if they no longer fit in memory.
+   *
+   * @param aData
+   *          the capture to add, cannot be <code>null</code>.
+   */
+  public void add( final AcquisitionResult aData )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+
+    final Entry entry = new Entry( aData );
+
+    synchronized ( this.entries )
+    {
+      this.entries.addFirst( entry );
+      this.memoryUsed += entry.size;
+
+      int inMemory = 0;
+      int onDisk = 0;
+
+      final Iterator<Entry> iter = this.entries.iterator();
+      while ( iter.hasNext() )
+      {
+        final Entry e = iter.next();
+        if ( !e.spilling )
+        {
+          inMemory++;
+          if ( ( inMemory > 1 ) && ( ( inMemory > this.maxCaptures ) || ( this.memoryUsed > this.maxMemory ) ) )
+          {
+            spill( e );
+          }
+        }
+        if ( e.spilling && ( ++onDisk > this.maxSpilled ) )
+        {
+          discard( e );
+          iter.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clear()
+  {
+    synchronized ( this.entries )
+    {
+      for ( Entry entry : this.entries )
+      {
+        discard( entry );
+      }
+      this.entries.clear();
+      this.memoryUsed = 0L;
+    }
+  }
+
+  /**
+   * Discards all captures and stops writing captures to disk.
+   */
+  public void close()
+  {
+    clear();
+
+    synchronized ( this.entries )
+    {
+      if ( this.spillExecutor != null )
+      {
+        this.spillExecutor.shutdown();
+        this.spillExecutor = null;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public AcquisitionResult getCapture( final int aIndex ) throws IOException
+  {
+    final Entry entry = getEntry( aIndex );
+
+    final AcquisitionResult result = entry.data;
+    if ( result != null )
+    {
+      return result;
+    }
+
+    final File file = entry.file;
+    if ( file == null )
+    {
+      throw new IOException( "Capture is no longer available!" );
+    }
+    return read( file );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getCaptureTime( final int aIndex )
+  {
+    return getEntry( aIndex ).time;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getFirstDifference( final int aIndex1, final int aIndex2 ) throws IOException
+  {
+    return getFirstDifference( getCapture( aIndex1 ), getCapture( aIndex2 ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size()
+  {
+    synchronized ( this.entries )
+    {
+      return this.entries.size();
+    }
+  }
+
+  /**
+   * Writes the contents of the given buffer to the given channel, but only if
+   * less than the given number of bytes remain in the buffer.
+   */
+  private static void drain( final FileChannel aChannel, final ByteBuffer aBuffer, final int aMinRemaining )
+      throws IOException
+  {
+    if ( aBuffer.remaining() < aMinRemaining )
+    {
+      aBuffer.flip();
+      while ( aBuffer.hasRemaining() )
+      {
+        aChannel.write( aBuffer );
+      }
+      aBuffer.clear();
+    }
+  }
+
+  /**
+   * Reads from the given channel until the given buffer contains at least the
+   * given number of bytes.
+   */
+  private static void fill( final FileChannel aChannel, final ByteBuffer aBuffer, final int aLength )
+      throws IOException
+  {
+    aBuffer.compact();
+    while ( aBuffer.position() < aLength )
+    {
+      if ( aChannel.read( aBuffer ) < 0 )
+      {
+        throw new IOException( "Capture file is corrupt?! Unexpected end of file!" );
+      }
+    }
+    aBuffer.flip();
+  }
+
+  /**
+   * Discards the given entry, removing its file if it has one.
+   * <p>
+   * Should be called while holding the lock on the entries.
+   * </p>
+   */
+  private void discard( final Entry aEntry )
+  {
+    aEntry.discarded = true;
+    aEntry.data = null;
+
+    final File file = aEntry.file;
+    if ( ( file != null ) && !file.delete() )
+    {
+      LOG.log( Level.FINE, "Failed to delete spilled capture: {0}", file );
+    }
+  }
+
+  /**
+   * @return the entry with the given index, never <code>null</code>.
+   */
+  private Entry getEntry( final int aIndex )
+  {
+    synchronized ( this.entries )
+    {
+      if ( ( aIndex < 0 ) || ( aIndex >= this.entries.size() ) )
+      {
+        throw new IndexOutOfBoundsException( "Invalid capture index: " + aIndex + "!" );
+      }
+      return this.entries.get( aIndex );
+    }
+  }
+
+  /**
+   * Returns the directory to write captures to, creating it if needed.
+   * <p>
+   * Should be called while holding the lock on the entries.
+   * </p>
+   */
+  private File getSpillDir() throws IOException
+  {
+    if ( this.spillDir == null )
+    {
+      final File dir = File.createTempFile( "ols-captures", "" );
+      if ( !dir.delete() || !dir.mkdir() )
+      {
+        throw new IOException( "Failed to create directory for captures: " + dir );
+      }
+      dir.deleteOnExit();
+      this.spillDir = dir;
+    }
+    return this.spillDir;
+  }
+
+  /**
+   * Moves the given entry to disk on a background thread. The capture remains
+   * available from memory until it is written.
+   * <p>
+   * Should be called while holding the lock on the entries.
+   * </p>
+   */
+  private void spill( final Entry aEntry )
+  {
+    aEntry.spilling = true;
+    this.memoryUsed -= aEntry.size;
+
+    if ( this.spillExecutor == null )
+    {
+      this.spillExecutor = Executors.newSingleThreadExecutor( new ThreadFactory()
+      {
+        @Override
+        public Thread newThread( final Runnable aRunnable )
+        {
+          final Thread thread = new Thread( aRunnable, "Capture spiller" );
+          thread.setDaemon( true );
+          return thread;
+        }
+      } );
+    }
+
+    final File dir;
+    try
+    {
+      dir = getSpillDir();
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.WARNING, "Failed to spill capture; discarding it!", exception );
+      aEntry.data = null;
+      aEntry.discarded = true;
+      return;
+    }
+
+    this.spillExecutor.execute( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        final AcquisitionResult data = aEntry.data;
+        if ( ( data == null ) || aEntry.discarded )
+        {
+          return;
+        }
+
+        File file = null;
+        try
+        {
+          file = File.createTempFile( "capture", ".bin", dir );
+          file.deleteOnExit();
+
+          write( data, file );
+        }
+        catch ( IOException exception )
+        {
+          LOG.log( Level.WARNING, "Failed to spill capture!", exception );
+          if ( file != null )
+          {
+            file.delete();
+          }
+          return;
+        }
+
+        synchronized ( CaptureRing.this.entries )
+        {
+          if ( aEntry.discarded )
+          {
+            file.delete();
+          }
+          else
+          {
+            aEntry.file = file;
+            aEntry.data = null;
+          }
+        }
+      }
+    } );
+  }
+}
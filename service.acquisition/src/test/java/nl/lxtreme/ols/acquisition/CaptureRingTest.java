@@ -0,0 +1,207 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.acquisition;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureRing}.
+ */
+public class CaptureRingTest
+{
+  // VARIABLES
+
+  private CaptureRing ring;
+
+  // METHODS
+
+  /**
+   * Creates a capture with the given transitions.
+   */
+  private static AcquisitionResult createCapture( final int[] aValues, final long[] aTimestamps,
+      final long aAbsoluteLength )
+  {
+    return new CapturedData( aValues, aTimestamps, 2L, 1000000, 8, 0xFF, aAbsoluteLength );
+  }
+
+  /**
+   * Creates a capture of the given length with a transition on every sample.
+   */
+  private static AcquisitionResult createCapture( final int aSampleCount, final int aSeed )
+  {
+    final int[] values = new int[aSampleCount];
+    final long[] timestamps = new long[aSampleCount];
+    for ( int i = 0; i < aSampleCount; i++ )
+    {
+      values[i] = ( i + aSeed ) & 0xFF;
+      timestamps[i] = i;
+    }
+    return createCapture( values, timestamps, aSampleCount - 1 );
+  }
+
+  /**
+   * Tears down each test case.
+   */
+  @After
+  public void tearDown()
+  {
+    if ( this.ring != null )
+    {
+      this.ring.close();
+    }
+  }
+
+  /**
+   * Tests that adding more captures than fit in memory keeps the older ones
+   * available, and discards those beyond the maximum number on disk.
+   */
+  @Test
+  public void testAddKeepsBoundedNumberOfCapturesOk() throws Exception
+  {
+    this.ring = new CaptureRing( 2, Long.MAX_VALUE, 1 );
+
+    final AcquisitionResult[] captures = new AcquisitionResult[4];
+    for ( int i = 0; i < captures.length; i++ )
+    {
+      captures[i] = createCapture( 10000, i );
+      this.ring.add( captures[i] );
+    }
+
+    // Two captures in memory, and one on disk...
+    assertEquals( 3, this.ring.size() );
+    assertSame( captures[3], this.ring.getCapture( 0 ) );
+    assertSame( captures[2], this.ring.getCapture( 1 ) );
+    assertArrayEquals( captures[1].getValues(), this.ring.getCapture( 2 ).getValues() );
+    assertArrayEquals( captures[1].getTimestamps(), this.ring.getCapture( 2 ).getTimestamps() );
+
+    this.ring.clear();
+    assertEquals( 0, this.ring.size() );
+  }
+
+  /**
+   * Tests that captures are moved out of memory when they use too many bytes,
+   * while the most recent capture is always kept.
+   */
+  @Test
+  public void testAddSpillsCapturesBeyondMemoryLimitOk() throws Exception
+  {
+    final AcquisitionResult first = createCapture( 10000, 1 );
+    final AcquisitionResult second = createCapture( 10000, 2 );
+
+    this.ring = new CaptureRing( 8, CaptureRing.getSize( first ), 8 );
+    this.ring.add( first );
+    this.ring.add( second );
+
+    assertEquals( 2, this.ring.size() );
+    assertSame( second, this.ring.getCapture( 0 ) );
+    assertEquals( -1L, this.ring.getFirstDifference( 1, 1 ) );
+    assertEquals( 0L, this.ring.getFirstDifference( 0, 1 ) );
+  }
+
+  /**
+   * Tests that captures with equal sample values do not differ, even if their
+   * transitions are at different indexes.
+   */
+  @Test
+  public void testGetFirstDifferenceOfEqualCapturesOk()
+  {
+    final AcquisitionResult capture1 = createCapture( new int[] { 1, 2, 3 }, new long[] { 0L, 10L, 20L }, 30L );
+    final AcquisitionResult capture2 = createCapture( new int[] { 1, 1, 2, 3 }, new long[] { 0L, 5L, 10L, 20L },
+        30L );
+
+    assertEquals( -1L, CaptureRing.getFirstDifference( capture1, capture2 ) );
+    assertEquals( -1L, CaptureRing.getFirstDifference( capture2, capture1 ) );
+  }
+
+  /**
+   * Tests that the first time at which two captures differ is found, also when
+   * their transitions are not at the same times.
+   */
+  @Test
+  public void testGetFirstDifferenceOk()
+  {
+    final AcquisitionResult capture1 = createCapture( new int[] { 1, 2, 3 }, new long[] { 0L, 10L, 20L }, 30L );
+    final AcquisitionResult capture2 = createCapture( new int[] { 1, 2, 4 }, new long[] { 0L, 10L, 25L }, 30L );
+
+    assertEquals( 20L, CaptureRing.getFirstDifference( capture1, capture2 ) );
+    assertEquals( 20L, CaptureRing.getFirstDifference( capture2, capture1 ) );
+  }
+
+  /**
+   * Tests that the first difference is found in captures spanning several
+   * chunks of samples.
+   */
+  @Test
+  public void testGetFirstDifferenceOfLargeCapturesOk()
+  {
+    final int count = 100000;
+    final int[] values = new int[count];
+    final long[] timestamps = new long[count];
+    for ( int i = 0; i < count; i++ )
+    {
+      values[i] = i & 1;
+      timestamps[i] = 2L * i;
+    }
+    final AcquisitionResult capture1 = createCapture( values, timestamps, 2L * count );
+
+    values[count - 10] ^= 1;
+    final AcquisitionResult capture2 = createCapture( values, timestamps, 2L * count );
+
+    assertEquals( 2L * ( count - 10 ), CaptureRing.getFirstDifference( capture1, capture2 ) );
+  }
+
+  /**
+   * Tests that a capture written to disk is read back unchanged.
+   */
+  @Test
+  public void testWriteAndReadOk() throws Exception
+  {
+    final AcquisitionResult capture = createCapture( 50000, 3 );
+
+    final File file = File.createTempFile( "capture", ".bin" );
+    try
+    {
+      CaptureRing.write( capture, file );
+      final AcquisitionResult result = CaptureRing.read( file );
+
+      assertArrayEquals( capture.getValues(), result.getValues() );
+      assertArrayEquals( capture.getTimestamps(), result.getTimestamps() );
+      assertEquals( capture.getAbsoluteLength(), result.getAbsoluteLength() );
+      assertEquals( capture.getTriggerPosition(), result.getTriggerPosition() );
+      assertEquals( capture.getSampleRate(), result.getSampleRate() );
+      assertEquals( capture.getChannels(), result.getChannels() );
+      assertEquals( capture.getEnabledChannels(), result.getEnabledChannels() );
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+}
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.io;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 import javax.microedition.io.*;
 
 import org.osgi.framework.*;
@@ -33,13 +34,32 @@ import org.osgi.service.log.*;
 
 /**
  * Provides a implementation of the connector service.
+ * <p>
+ * Stream connections can be kept open between uses by adding the option
+ * <tt>pooled=true</tt> to their URI, for example,
+ * <tt>comm:COM2;baudrate=115200;pooled=true</tt>. Closing such a connection
+ * returns it to a pool, from which it is handed out again when the same URI is
+ * opened before its idle time expires. This avoids the overhead of reopening
+ * the port, including any delay that is configured for it. Opening another
+ * connection to the same port or host closes idle pooled connections to it
+ * first.
+ * </p>
  */
 public class ConnectorServiceImpl implements ConnectorService
 {
+  // CONSTANTS
+
+  /** The URI option that denotes a connection should be pooled. */
+  static final String POOLED_OPTION = "pooled=true";
+  /** The time, in milliseconds, an idle pooled connection is kept open. */
+  static final long IDLE_TIMEOUT = 30000L;
+
   // VARIABLES
 
   private final BundleContext context;
   private final List<Connection> openConnections;
+  private final Map<String, PooledStreamConnection> pooledConnections;
+  private final ScheduledExecutorService expiryExecutor;
 
   // Injected by DependencyManager...
   private volatile LogService logService;
@@ -56,6 +76,17 @@ public class ConnectorServiceImpl implements ConnectorService
   {
     this.context = aContext;
     this.openConnections = new ArrayList<Connection>();
+    this.pooledConnections = new HashMap<String, PooledStreamConnection>();
+    this.expiryExecutor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, "Pooled connection expiry" );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
   }
 
   // METHODS
@@ -89,6 +120,51 @@ public class ConnectorServiceImpl implements ConnectorService
     return protocol;
   }
 
+  /**
+   * Returns the port or host the given URI refers to, that is, the URI without
+   * any of its options.
+   * 
+   * @param aURI
+   *          the URI to get the target for, cannot be <code>null</code>.
+   * @return a target, never <code>null</code>.
+   */
+  static final String determineTarget( final String aURI )
+  {
+    final int index = aURI.indexOf( ';' );
+    return ( index < 0 ) ? aURI : aURI.substring( 0, index );
+  }
+
+  /**
+   * Removes the pooling option from the given URI.
+   * 
+   * @param aURI
+   *          the URI to remove the pooling option from, cannot be
+   *          <code>null</code>.
+   * @return the given URI without pooling option, or <code>null</code> if the
+   *         given URI does not contain the pooling option.
+   */
+  static final String removePooledOption( final String aURI )
+  {
+    final StringBuilder sb = new StringBuilder( aURI.length() );
+    boolean pooled = false;
+    for ( String part : aURI.split( ";" ) )
+    {
+      if ( ( sb.length() > 0 ) && POOLED_OPTION.equalsIgnoreCase( part.trim() ) )
+      {
+        pooled = true;
+      }
+      else
+      {
+        if ( sb.length() > 0 )
+        {
+          sb.append( ';' );
+        }
+        sb.append( part );
+      }
+    }
+    return pooled ? sb.toString() : null;
+  }
+
   /**
    * Locates the connection factory service instance through OSGi.
    * 
@@ -151,18 +227,50 @@ public class ConnectorServiceImpl implements ConnectorService
   @Override
   public Connection open( final String aName, final int aMode, final boolean aTimeouts ) throws IOException
   {
-    final ConnectionFactory cf = getConnectionFactory( this.context, aName );
+    final String pooledURI = removePooledOption( aName );
+    final String uri = ( pooledURI != null ) ? pooledURI : aName;
+
+    if ( pooledURI != null )
+    {
+      synchronized ( this.pooledConnections )
+      {
+        final PooledStreamConnection pooled = this.pooledConnections.get( pooledURI );
+        if ( ( pooled != null ) && !pooled.isBroken() )
+        {
+          pooled.acquire();
+          return pooled;
+        }
+      }
+    }
+
+    // Make sure the port or host is not kept open by an idle connection...
+    closeIdleConnections( determineTarget( uri ) );
+
+    final ConnectionFactory cf = getConnectionFactory( this.context, uri );
     if ( cf == null )
     {
       throw new ConnectionNotFoundException( "No connection for: " + aName );
     }
 
-    final Connection connection = cf.createConnection( aName, aMode, aTimeouts );
+    final Connection connection = cf.createConnection( uri, aMode, aTimeouts );
     synchronized ( this.openConnections )
     {
       this.openConnections.add( connection );
     }
 
+    if ( ( pooledURI != null ) && ( connection instanceof StreamConnection ) )
+    {
+      final PooledStreamConnection pooled = new PooledStreamConnection( this, pooledURI,
+          ( StreamConnection )connection );
+      pooled.acquire();
+
+      synchronized ( this.pooledConnections )
+      {
+        this.pooledConnections.put( pooledURI, pooled );
+      }
+      return pooled;
+    }
+
     return connection;
   }
 
@@ -207,6 +315,13 @@ public class ConnectorServiceImpl implements ConnectorService
    */
   public void shutdown()
   {
+    this.expiryExecutor.shutdownNow();
+
+    synchronized ( this.pooledConnections )
+    {
+      this.pooledConnections.clear();
+    }
+
     final List<Connection> connections;
     synchronized ( this.openConnections )
     {
@@ -226,6 +341,127 @@ public class ConnectorServiceImpl implements ConnectorService
     }
   }
 
+  /**
+   * Releases the given pooled connection, keeping it open for the idle timeout
+   * if it is no longer used, and can be reused.
+   * 
+   * @param aConnection
+   *          the pooled connection to release, cannot be <code>null</code>.
+   */
+  final void release( final PooledStreamConnection aConnection )
+  {
+    synchronized ( this.pooledConnections )
+    {
+      if ( !aConnection.release() )
+      {
+        // Still in use...
+        return;
+      }
+
+      if ( !aConnection.isBroken() && ( this.pooledConnections.get( aConnection.getURI() ) == aConnection ) )
+      {
+        try
+        {
+          aConnection.setExpiry( this.expiryExecutor.schedule( new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              expire( aConnection );
+            }
+          }, IDLE_TIMEOUT, TimeUnit.MILLISECONDS ) );
+          return;
+        }
+        catch ( RejectedExecutionException exception )
+        {
+          // We're shutting down; close it right away...
+        }
+      }
+
+      removePooledConnection( aConnection );
+    }
+
+    closeConnection( aConnection.getConnection() );
+  }
+
+  /**
+   * Closes the given connection, and forgets about it.
+   * 
+   * @param aConnection
+   *          the connection to close, cannot be <code>null</code>.
+   */
+  private void closeConnection( final Connection aConnection )
+  {
+    synchronized ( this.openConnections )
+    {
+      this.openConnections.remove( aConnection );
+    }
+
+    try
+    {
+      aConnection.close();
+    }
+    catch ( IOException exception )
+    {
+      final LogService log = this.logService;
+      if ( log != null )
+      {
+        log.log( LogService.LOG_DEBUG, "I/O exception closing pooled connection!", exception );
+      }
+    }
+  }
+
+  /**
+   * Closes all idle pooled connections to the given target.
+   * 
+   * @param aTarget
+   *          the port or host to close the idle connections for, cannot be
+   *          <code>null</code>.
+   */
+  private void closeIdleConnections( final String aTarget )
+  {
+    final List<PooledStreamConnection> idleConnections = new ArrayList<PooledStreamConnection>();
+    synchronized ( this.pooledConnections )
+    {
+      final Iterator<PooledStreamConnection> iter = this.pooledConnections.values().iterator();
+      while ( iter.hasNext() )
+      {
+        final PooledStreamConnection pooled = iter.next();
+        if ( pooled.isIdle() && aTarget.equals( determineTarget( pooled.getURI() ) ) )
+        {
+          pooled.setExpiry( null );
+          iter.remove();
+          idleConnections.add( pooled );
+        }
+      }
+    }
+
+    for ( PooledStreamConnection pooled : idleConnections )
+    {
+      closeConnection( pooled.getConnection() );
+    }
+  }
+
+  /**
+   * Closes the given pooled connection in case it is still idle.
+   * 
+   * @param aConnection
+   *          the pooled connection whose idle time expired, cannot be
+   *          <code>null</code>.
+   */
+  private void expire( final PooledStreamConnection aConnection )
+  {
+    synchronized ( this.pooledConnections )
+    {
+      if ( !aConnection.isIdle() || !removePooledConnection( aConnection ) )
+      {
+        return;
+      }
+    }
+
+    closeConnection( aConnection.getConnection() );
+  }
+
   /**
    * Helper method to open a stream connection for a given URI.
    * 
@@ -247,4 +483,22 @@ public class ConnectorServiceImpl implements ConnectorService
 
     return ( StreamConnection )conn;
   }
+
+  /**
+   * Removes the given pooled connection from the pool, if it is still pooled.
+   * 
+   * @param aConnection
+   *          the pooled connection to remove, cannot be <code>null</code>.
+   * @return <code>true</code> if the given connection was removed,
+   *         <code>false</code> otherwise.
+   */
+  private boolean removePooledConnection( final PooledStreamConnection aConnection )
+  {
+    if ( this.pooledConnections.get( aConnection.getURI() ) != aConnection )
+    {
+      return false;
+    }
+    this.pooledConnections.remove( aConnection.getURI() );
+    return true;
+  }
 }
@@ -0,0 +1,398 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.io;
+
+
+import java.io.*;
+import java.util.concurrent.*;
+
+import javax.microedition.io.*;
+
+
+/**
+ * Provides a stream connection that is kept open by the connector service
+ * after it is closed, allowing it to be reused by a later open of the same
+ * URI.
+ * <p>
+ * Closing this connection, or any of the streams it provides, does not close
+ * the underlying connection, but returns it to the pool of the connector
+ * service. Once an I/O exception occurs on one of its streams, the underlying
+ * connection is no longer trusted and closed as soon as it is released.
+ * </p>
+ */
+final class PooledStreamConnection implements StreamConnection
+{
+  // INNER TYPES
+
+  /**
+   * Provides an input stream that marks its connection as broken upon I/O
+   * exceptions, and that cannot be closed.
+   */
+  final class PooledInputStream extends FilterInputStream
+  {
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new PooledInputStream instance.
+     */
+    PooledInputStream( final InputStream aInputStream )
+    {
+      super( aInputStream );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int available() throws IOException
+    {
+      try
+      {
+        return super.available();
+      }
+      catch ( IOException exception )
+      {
+        throw markBroken( exception );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+      // Keep the underlying stream open...
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException
+    {
+      try
+      {
+        return super.read();
+      }
+      catch ( IOException exception )
+      {
+        throw markBroken( exception );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+    {
+      try
+      {
+        return super.read( aBuffer, aOffset, aLength );
+      }
+      catch ( IOException exception )
+      {
+        throw markBroken( exception );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long skip( final long aCount ) throws IOException
+    {
+      try
+      {
+        return super.skip( aCount );
+      }
+      catch ( IOException exception )
+      {
+        throw markBroken( exception );
+      }
+    }
+  }
+
+  /**
+   * Provides an output stream that marks its connection as broken upon I/O
+   * exceptions, and that cannot be closed.
+   */
+  final class PooledOutputStream extends FilterOutputStream
+  {
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new PooledOutputStream instance.
+     */
+    PooledOutputStream( final OutputStream aOutputStream )
+    {
+      super( aOutputStream );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+      // Only flush, keep the underlying stream open...
+      flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException
+    {
+      try
+      {
+        this.out.flush();
+      }
+      catch ( IOException exception )
+      {
+        throw markBroken( exception );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+    {
+      try
+      {
+        this.out.write( aBuffer, aOffset, aLength );
+      }
+      catch ( IOException exception )
+      {
+        throw markBroken( exception );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final int aByte ) throws IOException
+    {
+      try
+      {
+        this.out.write( aByte );
+      }
+      catch ( IOException exception )
+      {
+        throw markBroken( exception );
+      }
+    }
+  }
+
+  // VARIABLES
+
+  private final ConnectorServiceImpl connectorService;
+  private final String uri;
+  private final StreamConnection connection;
+
+  private volatile boolean broken;
+  private volatile InputStream inputStream;
+  private volatile OutputStream outputStream;
+  // Guarded by the pool of the connector service...
+  private int useCount;
+  private Future<?> expiry;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new PooledStreamConnection instance.
+   *
+   * @param aConnectorService
+   *          the connector service to return this connection to;
+   * @param aURI
+   *          the URI this connection is pooled for;
+   * @param aConnection
+   *          the connection to keep open, cannot be <code>null</code>.
+   */
+  PooledStreamConnection( final ConnectorServiceImpl aConnectorService, final String aURI,
+      final StreamConnection aConnection )
+  {
+    this.connectorService = aConnectorService;
+    this.uri = aURI;
+    this.connection = aConnection;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException
+  {
+    this.connectorService.release( this );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DataInputStream openDataInputStream() throws IOException
+  {
+    return new DataInputStream( openInputStream() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DataOutputStream openDataOutputStream() throws IOException
+  {
+    return new DataOutputStream( openOutputStream() );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InputStream openInputStream() throws IOException
+  {
+    if ( this.inputStream == null )
+    {
+      this.inputStream = new PooledInputStream( this.connection.openInputStream() );
+    }
+    return this.inputStream;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public OutputStream openOutputStream() throws IOException
+  {
+    if ( this.outputStream == null )
+    {
+      this.outputStream = new PooledOutputStream( this.connection.openOutputStream() );
+    }
+    return this.outputStream;
+  }
+
+  /**
+   * Marks this connection as used by one more client, cancelling its pending
+   * expiry, if any.
+   */
+  final void acquire()
+  {
+    if ( this.expiry != null )
+    {
+      this.expiry.cancel( false /* mayInterruptIfRunning */);
+      this.expiry = null;
+    }
+    this.useCount++;
+  }
+
+  /**
+   * Returns the underlying connection.
+   *
+   * @return the connection that is kept open, never <code>null</code>.
+   */
+  final StreamConnection getConnection()
+  {
+    return this.connection;
+  }
+
+  /**
+   * Returns the URI this connection is pooled for.
+   *
+   * @return a URI, without the pooling option, never <code>null</code>.
+   */
+  final String getURI()
+  {
+    return this.uri;
+  }
+
+  /**
+   * Returns whether an I/O exception occurred on one of the streams of this
+   * connection.
+   *
+   * @return <code>true</code> if this connection should no longer be reused,
+   *         <code>false</code> otherwise.
+   */
+  final boolean isBroken()
+  {
+    return this.broken;
+  }
+
+  /**
+   * Returns whether this connection is no longer used by any client.
+   *
+   * @return <code>true</code> if this connection is idle, <code>false</code>
+   *         otherwise.
+   */
+  final boolean isIdle()
+  {
+    return this.useCount == 0;
+  }
+
+  /**
+   * Marks this connection as broken.
+   *
+   * @param aException
+   *          the I/O exception that occurred, cannot be <code>null</code>.
+   * @return the given exception, never <code>null</code>.
+   */
+  final IOException markBroken( final IOException aException )
+  {
+    this.broken = true;
+    return aException;
+  }
+
+  /**
+   * Marks this connection as used by one client less.
+   *
+   * @return <code>true</code> if this connection became idle,
+   *         <code>false</code> if it is still in use or already was idle.
+   */
+  final boolean release()
+  {
+    if ( this.useCount == 0 )
+    {
+      // Already released...
+      return false;
+    }
+    return --this.useCount == 0;
+  }
+
+  /**
+   * Sets the pending expiry of this connection.
+   *
+   * @param aExpiry
+   *          the pending expiry, can be <code>null</code>.
+   */
+  final void setExpiry( final Future<?> aExpiry )
+  {
+    this.expiry = aExpiry;
+  }
+}
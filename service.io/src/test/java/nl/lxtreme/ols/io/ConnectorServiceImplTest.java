@@ -281,6 +281,110 @@ public class ConnectorServiceImplTest
     assertTrue( "OpenOutputStream.write never called?!", semaphore.tryAcquire( 1, TimeUnit.SECONDS ) );
   }
 
+  /**
+   * Tests that an I/O exception on a pooled connection causes it to be closed
+   * and reopened upon its next use.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void openPooledStreamReopensBrokenConnection() throws Exception
+  {
+    final MyConnectionFactory factory = create( new String[] { Protocols.HTTP.protocol() }, 1 );
+
+    final StreamConnection conn = mock( StreamConnection.class );
+    final InputStream in = mock( InputStream.class );
+    when( in.read() ).thenThrow( new IOException( "Port gone" ) );
+    when( conn.openInputStream() ).thenReturn( in );
+
+    registerConnectionFactory( factory );
+
+    factory.setConnection( conn );
+
+    final String uri = Protocols.HTTP.url().concat( ";pooled=true" );
+
+    final StreamConnection conn1 = ( StreamConnection )this.connectorService.open( uri );
+    try
+    {
+      conn1.openInputStream().read();
+      fail( "IOException expected!" );
+    }
+    catch ( IOException exception )
+    {
+      // Ok; expected...
+    }
+    conn1.close();
+
+    verify( conn ).close();
+
+    final StreamConnection conn2 = ( StreamConnection )this.connectorService.open( uri );
+    assertNotSame( conn1, conn2 );
+  }
+
+  /**
+   * Tests that closing a pooled connection keeps the underlying connection
+   * open for the next use of the same URI.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void openPooledStreamReusesConnection() throws Exception
+  {
+    final MyConnectionFactory factory = create( new String[] { Protocols.HTTP.protocol() }, 1 );
+
+    final StreamConnection conn = mock( StreamConnection.class );
+    final OutputStream out = mock( OutputStream.class );
+    when( conn.openOutputStream() ).thenReturn( out );
+
+    registerConnectionFactory( factory );
+
+    factory.setConnection( conn );
+
+    final String uri = Protocols.HTTP.url().concat( ";pooled=true" );
+
+    final StreamConnection conn1 = ( StreamConnection )this.connectorService.open( uri );
+    conn1.openDataOutputStream().close();
+    conn1.close();
+
+    factory.setConnection( mock( StreamConnection.class ) );
+
+    final StreamConnection conn2 = ( StreamConnection )this.connectorService.open( uri );
+    assertSame( conn1, conn2 );
+
+    verify( conn, never() ).close();
+    verify( out, never() ).close();
+
+    this.connectorService.shutdown();
+
+    verify( conn ).close();
+  }
+
+  /**
+   * Tests that opening a non-pooled connection to the same target closes an
+   * idle pooled connection first.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void openUnpooledClosesIdlePooledConnection() throws Exception
+  {
+    final MyConnectionFactory factory = create( new String[] { Protocols.HTTP.protocol() }, 1 );
+
+    final StreamConnection conn = mock( StreamConnection.class );
+
+    registerConnectionFactory( factory );
+
+    factory.setConnection( conn );
+
+    this.connectorService.open( Protocols.HTTP.url().concat( ";pooled=true" ) ).close();
+
+    verify( conn, never() ).close();
+
+    this.connectorService.open( Protocols.HTTP.url().concat( ";timeout=100" ) );
+
+    verify( conn ).close();
+  }
+
   /**
    * @throws Exception
    */
@@ -427,6 +531,20 @@ public class ConnectorServiceImplTest
     assertEquals( "file", ConnectorServiceImpl.determineSchemeName( "file:C:/autoexec.bat" ) );
   }
 
+  /**
+   * Tests that the pooling option is removed from URIs.
+   */
+  @Test
+  public void testRemovePooledOption()
+  {
+    assertNull( ConnectorServiceImpl.removePooledOption( "comm:COM1;baudrate=9600" ) );
+    assertEquals( "comm:COM1;baudrate=9600",
+        ConnectorServiceImpl.removePooledOption( "comm:COM1;pooled=true;baudrate=9600" ) );
+    assertEquals( "socket://localhost:5678",
+        ConnectorServiceImpl.removePooledOption( "socket://localhost:5678;pooled=true" ) );
+    assertEquals( "comm:COM1", ConnectorServiceImpl.determineTarget( "comm:COM1;baudrate=9600;pooled=true" ) );
+  }
+
   /**
    * @param aSchemes
    * @param aRanking
@@ -24,9 +24,11 @@ package nl.lxtreme.ols.test.data;
 import static org.junit.Assert.*;
 import java.io.*;
 import java.net.*;
+import java.util.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.test.data.project.*;
@@ -143,6 +145,48 @@ public final class DataTestUtils
     assertArrayEquals( aMessage, aExpected.getValues(), aTested.getValues() );
   }
 
+  /**
+   * Creates an annotation listener that describes all calls made to it in the
+   * given list, allowing the annotations of different tool runs to be
+   * compared.
+   * 
+   * @param aCalls
+   *          the list to add the descriptions of all calls to, cannot be
+   *          <code>null</code>.
+   * @return an annotation listener, never <code>null</code>.
+   */
+  public static AnnotationListener createAnnotationListener( final List<String> aCalls )
+  {
+    return new AnnotationListener()
+    {
+      @Override
+      public void clearAnnotations()
+      {
+        aCalls.add( "clear" );
+      }
+
+      @Override
+      public void clearAnnotations( final int aChannelIdx )
+      {
+        aCalls.add( "clear " + aChannelIdx );
+      }
+
+      @Override
+      public void onAnnotation( final Annotation<?> aAnnotation )
+      {
+        final StringBuilder sb = new StringBuilder();
+        sb.append( aAnnotation.getChannel() ).append( ": " ).append( aAnnotation.getAnnotation() );
+        if ( aAnnotation instanceof DataAnnotation<?> )
+        {
+          final DataAnnotation<?> dataAnnotation = ( DataAnnotation<?> )aAnnotation;
+          sb.append( " @ " ).append( dataAnnotation.getStartTimestamp() );
+          sb.append( ".." ).append( dataAnnotation.getEndTimestamp() );
+        }
+        aCalls.add( sb.toString() );
+      }
+    };
+  }
+
   /**
    * Creates a mocked data set with 16 sample/time values.
    * 
@@ -372,12 +416,24 @@ public final class DataTestUtils
         return 8;
       }
 
+      @Override
+      public EdgeIndex getEdgeIndex()
+      {
+        return new EdgeIndex( getTimestamps(), getValues() );
+      }
+
       @Override
       public int getEnabledChannels()
       {
         return 0xFF;
       }
 
+      @Override
+      public int getSampleCount()
+      {
+        return 4;
+      }
+
       @Override
       public int getSampleIndex( final long aTimeValue )
       {
@@ -396,6 +452,14 @@ public final class DataTestUtils
         return new long[] { 1L, 2L, 3L, 4L };
       }
 
+      @Override
+      public int getTimestamps( final int aIndex, final long[] aBuffer, final int aOffset, final int aLength )
+      {
+        final int length = Math.max( 0, Math.min( aLength, 4 - aIndex ) );
+        System.arraycopy( getTimestamps(), aIndex, aBuffer, aOffset, length );
+        return length;
+      }
+
       @Override
       public long getTriggerPosition()
       {
@@ -408,6 +472,14 @@ public final class DataTestUtils
         return new int[] { 1, 0, 1, 0 };
       }
 
+      @Override
+      public int getValues( final int aIndex, final int[] aBuffer, final int aOffset, final int aLength )
+      {
+        final int length = Math.max( 0, Math.min( aLength, 4 - aIndex ) );
+        System.arraycopy( getValues(), aIndex, aBuffer, aOffset, length );
+        return length;
+      }
+
       @Override
       public boolean hasTimingData()
       {
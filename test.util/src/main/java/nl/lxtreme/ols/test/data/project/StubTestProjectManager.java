@@ -25,6 +25,7 @@ import java.beans.*;
 import java.io.*;
 
 import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.task.*;
 
 
 /**
@@ -57,6 +58,15 @@ public class StubTestProjectManager implements ProjectManager
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Project createSnapshot()
+  {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -84,6 +94,15 @@ public class StubTestProjectManager implements ProjectManager
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void loadProject( final File aFile, final TaskProgressListener aListener ) throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -102,6 +121,16 @@ public class StubTestProjectManager implements ProjectManager
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void saveProject( final Project aSnapshot, final OutputStream aOutput, final TaskProgressListener aListener )
+      throws IOException
+  {
+    throw new UnsupportedOperationException();
+  }
+
   /**
    * @param aProject
    */
@@ -53,15 +53,97 @@ import org.osgi.framework.*;
  */
 public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implements ExportAware<OneWireDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides the table model for the decoded 1-Wire data.
+   */
+  final class OneWireDataTableModel extends DataSetTableModel<OneWireData, OneWireDataSet>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new OneWireDataTableModel instance.
+     */
+    OneWireDataTableModel()
+    {
+      super( "Index", "Time", "Hex", "Bin", "Dec", "ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final OneWireDataSet aDataSet, final OneWireData aData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return String.valueOf( aRowIndex );
+        case 1:
+          return Unit.Time.format( aDataSet.getTime( aData.getStartSampleIndex() ) );
+        default:
+          break;
+      }
+
+      if ( aData.isEvent() )
+      {
+        return ( aColumnIndex == 2 ) ? aData.getEventName() : "";
+      }
+
+      final int value = aData.getValue();
+      switch ( aColumnIndex )
+      {
+        case 2:
+          return "0x" + integerToHexString( value, 2 );
+        case 3:
+          return "0b" + integerToBinString( value, 8 );
+        case 4:
+          return String.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Color getRowColor( final OneWireDataSet aDataSet, final OneWireData aData, final int aRowIndex )
+    {
+      if ( !aData.isEvent() )
+      {
+        return null;
+      }
+      if ( OneWireDataSet.OW_RESET.equals( aData.getEventName() ) )
+      {
+        return RESET_COLOR;
+      }
+      // unknown event
+      return UNKNOWN_EVENT_COLOR;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
+  static final Color RESET_COLOR = new Color( 0xe0e0e0 );
+  static final Color UNKNOWN_EVENT_COLOR = new Color( 0xff8000 );
+
   // VARIABLES
 
   private JComboBox owLine;
   private JComboBox owMode;
-  private JEditorPane outText;
+  private OneWireDataTableModel tableModel;
+  private ResultsView resultsView;
 
   private RestorableAction runAnalysisAction;
   private Action exportAction;
@@ -102,7 +184,7 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
     final OneWireDataSet lastResult = getLastResult();
     if ( ExportFormat.HTML.equals( aFormat ) )
     {
-      toHtmlPage( aOutputFile, lastResult );
+      toHtmlFile( aOutputFile, lastResult );
     }
     else if ( ExportFormat.CSV.equals( aFormat ) )
     {
@@ -128,9 +210,8 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   @Override
   public void reset()
   {
-    final String emptyHtmlPage = getEmptyHtmlPage();
-    this.outText.setText( emptyHtmlPage );
-    this.outText.setEditable( false );
+    this.tableModel.setDataSet( null );
+    this.resultsView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -155,32 +236,19 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   @Override
   protected void onToolEnded( final OneWireDataSet aResult )
   {
-    try
+    if ( aResult != null )
     {
-      final String htmlPage;
-      if ( aResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.resultsView.setSummary( String.format( "Decoded bytes: %d, detected bus errors: %d",
+          Integer.valueOf( aResult.getDecodedByteCount() ), Integer.valueOf( aResult.getBusErrorCount() ) ) );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // This should not happen for the no-file exports!
-        throw new RuntimeException( exception );
-      }
+      this.resultsView.setSummary( null );
     }
+
+    this.tableModel.setDataSet( aResult );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -280,10 +348,10 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   {
     final JPanel output = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel = new OneWireDataTableModel();
+    this.resultsView = new ResultsView( this.tableModel );
 
-    output.add( new JScrollPane( this.outText ) );
+    output.add( this.resultsView );
 
     return output;
   }
@@ -317,37 +385,6 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
     return panel;
   }
 
-  /**
-   * Returns an "empty" HTML page.
-   *
-   * @return an empty HTML page string, never <code>null</code>.
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "sda-bus-config".equals( aMacro ) || "scl-bus-config".equals( aMacro ) )
-        {
-          return "&lt;auto detect&gt;";
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro ) )
-        {
-          return "-";
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    * Initializes this dialog.
    */
@@ -385,13 +422,14 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
   }
 
   /**
-   * generate a HTML page
+   * Writes the given analysis results as HTML page to the given file.
    *
-   * @param aEmpty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to;
+   * @param aAnalysisResult
+   *          the analysis results to write.
    */
-  private String toHtmlPage( final File aFile, final OneWireDataSet aAnalysisResult ) throws IOException
+  private void toHtmlFile( final File aFile, final OneWireDataSet aAnalysisResult ) throws IOException
   {
     final MacroResolver macroResolver = new MacroResolver()
     {
@@ -463,18 +501,8 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
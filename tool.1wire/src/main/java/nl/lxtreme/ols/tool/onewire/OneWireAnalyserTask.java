@@ -82,12 +82,12 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
   public OneWireDataSet call() throws Exception
   {
     final AcquisitionResult data = this.context.getData();
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
 
     int sampleIdx;
 
     final int dataMask = this.owLineMask;
-    final int sampleCount = values.length;
+    final int sampleCount = reader.getSampleCount();
 
     if ( LOG.isLoggable( Level.FINE ) )
     {
@@ -97,7 +97,7 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
     // Search the moment on which the 1-wire line is idle (= high)...
     for ( sampleIdx = 0; sampleIdx < sampleCount; sampleIdx++ )
     {
-      final int dataValue = values[sampleIdx];
+      final int dataValue = reader.getValue( sampleIdx );
 
       if ( ( dataValue & dataMask ) == dataMask )
       {
@@ -157,12 +157,12 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
    */
   private void decodeData( final AcquisitionResult aData, final OneWireDataSet aDataSet )
   {
-    final long[] timestamps = aData.getTimestamps();
+    final SampleReader reader = new SampleReader( aData );
 
     this.progressListener.setProgress( 0 );
 
-    final long startOfDecode = timestamps[aDataSet.getStartOfDecode()];
-    final long endOfDecode = timestamps[aDataSet.getEndOfDecode() - 1];
+    final long startOfDecode = reader.getTimestamp( aDataSet.getStartOfDecode() );
+    final long endOfDecode = reader.getTimestamp( aDataSet.getEndOfDecode() - 1 );
 
     // The timing of the 1-wire bus is done in uS, so determine what scale we've
     // to use in order to obtain those kind of time values...
@@ -265,61 +265,22 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
   }
 
   /**
-   * Find first falling edge this is the start of the start bit. If the signal
-   * is inverted, find the first rising edge.
+   * Find first edge of the given type, after the given start timestamp and
+   * before the given end timestamp.
    * 
    * @param aStartOfDecode
-   *          the timestamp to start searching;
+   *          the timestamp to start searching (exclusive);
    * @param aEndOfDecode
-   *          the timestamp to end the search;
-   * @param aMask
-   *          the bit-value mask to apply for finding the start bit.
-   * @return the time at which the start bit was found, -1 if it is not found.
+   *          the timestamp to end the search (exclusive);
+   * @param aEdge
+   *          the type of edge to search for.
+   * @return the time at which the edge was found, -1 if it is not found.
    */
   private long findEdge( final AcquisitionResult aData, final long aStartOfDecode, final long aEndOfDecode,
       final Edge aEdge )
   {
-    long result = -1;
-
-    int oldBitValue = getDataValue( aData, aStartOfDecode ) & this.owLineMask;
-    for ( long timeCursor = aStartOfDecode + 1; ( result < 0 ) && ( timeCursor < aEndOfDecode ); timeCursor++ )
-    {
-      final int bitValue = getDataValue( aData, timeCursor ) & this.owLineMask;
-
-      final Edge edge = Edge.toEdge( oldBitValue, bitValue );
-      if ( aEdge == edge )
-      {
-        result = timeCursor;
-      }
-
-      oldBitValue = bitValue;
-    }
-
-    return result;
-  }
-
-  /**
-   * Returns the data value for the given time stamp.
-   * 
-   * @param aTimeValue
-   *          the time stamp to return the data value for.
-   * @return the data value of the sample index right before the given time
-   *         value.
-   */
-  private int getDataValue( final AcquisitionResult aData, final long aTimeValue )
-  {
-    final int[] values = aData.getValues();
-    final long[] timestamps = aData.getTimestamps();
-
-    int i;
-    for ( i = 1; i < timestamps.length; i++ )
-    {
-      if ( aTimeValue < timestamps[i] )
-      {
-        break;
-      }
-    }
-    return values[i - 1];
+    final long result = aData.getEdgeIndex().nextEdge( this.owLineIndex, aStartOfDecode + 1L, aEdge );
+    return ( result < aEndOfDecode ) ? result : -1L;
   }
 
   /**
@@ -364,7 +325,7 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
   {
     final AcquisitionResult data = this.context.getData();
     final int startSampleIdx = Math.max( data.getSampleIndex( aStartTimestamp ), 0 );
-    final int endSampleIdx = Math.min( data.getSampleIndex( aEndTimestamp ) - 1, data.getTimestamps().length - 1 );
+    final int endSampleIdx = Math.min( data.getSampleIndex( aEndTimestamp ) - 1, data.getSampleCount() - 1 );
 
     aDataSet.reportData( this.owLineIndex, startSampleIdx, endSampleIdx, aByteValue );
 
@@ -385,7 +346,7 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
   {
     final AcquisitionResult data = this.context.getData();
     final int startSampleIdx = Math.max( data.getSampleIndex( aStartTimestamp ), 0 );
-    final int endSampleIdx = Math.min( data.getSampleIndex( aEndTimestamp ) - 1, data.getTimestamps().length - 1 );
+    final int endSampleIdx = Math.min( data.getSampleIndex( aEndTimestamp ) - 1, data.getSampleCount() - 1 );
 
     aDataSet.reportReset( this.owLineIndex, startSampleIdx, endSampleIdx, aSlaveIsPresent );
 
@@ -23,6 +23,7 @@ package nl.lxtreme.ols.tool.asm45;
 
 import static nl.lxtreme.ols.util.NumberUtils.*;
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
 
@@ -254,7 +255,7 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
 
     // process the captured data and write to output
 
@@ -284,7 +285,7 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
      */
     for ( ; idx < ( asm45DataSet.getEndOfDecode() - 1 ); idx++ )
     {
-      final int dataValue = values[idx];
+      final int dataValue = reader.getValue( idx );
 
       control = dataValue & 0xffff0000;
       ida = ( ~dataValue & 0x0000ffff );
@@ -58,12 +58,88 @@ import org.osgi.framework.*;
 public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataSet> implements
 ExportAware<Asm45DataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides the table model for the decoded Asm45 data.
+   */
+  static final class Asm45DataTableModel extends DataSetTableModel<Asm45Data, Asm45DataSet>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Asm45DataTableModel instance.
+     */
+    Asm45DataTableModel()
+    {
+      super( "Index", "Clocks", "Block", "Address", "Value", "Bus Grant", "Type", "Event" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final Asm45DataSet aDataSet, final Asm45Data aData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return String.valueOf( aRowIndex - aDataSet.getTriggerEvent() );
+        case 1:
+          return String.valueOf( aData.getClocks() );
+        case 2:
+          return integerToHexString( aData.getBlock(), 2 );
+        case 3:
+          return integerToHexString( aData.getAddress(), 4 );
+        case 4:
+          return integerToHexString( aData.getValue(), 4 );
+        case 5:
+          return aData.getBusGrant() ? "X" : "-";
+        case 6:
+          return aData.getType();
+        default:
+          return aData.getEvent();
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Color getRowColor( final Asm45DataSet aDataSet, final Asm45Data aData, final int aRowIndex )
+    {
+      if ( aRowIndex == aDataSet.getTriggerEvent() )
+      {
+        // trigger event
+        return TRIGGER_COLOR;
+      }
+      else if ( Asm45Data.TYPE_INSTRUCTION.equals( aData.getType() ) )
+      {
+        // machine instruction
+        return null;
+      }
+      // data transfer (w/ or w/o bus grant)
+      return aData.getBusGrant() ? BUS_GRANT_COLOR : DATA_TRANSFER_COLOR;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
   private static final Logger LOG = Logger.getLogger( Asm45ProtocolAnalysisDialog.class.getName() );
 
+  static final Color TRIGGER_COLOR = new Color( 0xffa0ff );
+  static final Color BUS_GRANT_COLOR = new Color( 0x64ff64 );
+  static final Color DATA_TRANSFER_COLOR = new Color( 0xe0e0ff );
+
   // VARIABLES
 
   private JLabel idaLinesLabel;
@@ -87,7 +163,8 @@ ExportAware<Asm45DataSet>
   private JCheckBox showInst;
   private JCheckBox showData;
   private JCheckBox showBusGrants;
-  private JEditorPane outText;
+  private Asm45DataTableModel tableModel;
+  private ResultsView resultsView;
 
   private RestorableAction runAnalysisAction;
   private Action exportAction;
@@ -156,9 +233,8 @@ ExportAware<Asm45DataSet>
   @Override
   public void reset()
   {
-    final String emptyHtmlPage = getEmptyHtmlPage();
-    this.outText.setText( emptyHtmlPage );
-    this.outText.setEditable( false );
+    this.tableModel.setDataSet( null );
+    this.resultsView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -190,32 +266,18 @@ ExportAware<Asm45DataSet>
   @Override
   protected void onToolEnded( final Asm45DataSet aAnalysisResult )
   {
-    try
+    if ( aAnalysisResult != null )
     {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.resultsView.setSummary( "Decoded words: " + aAnalysisResult.getDecodedWordCount() );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // This should not happen for the no-file exports!
-        throw new RuntimeException( exception );
-      }
+      this.resultsView.setSummary( null );
     }
+
+    this.tableModel.setDataSet( aAnalysisResult );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -379,10 +441,10 @@ ExportAware<Asm45DataSet>
   {
     final JPanel output = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel = new Asm45DataTableModel();
+    this.resultsView = new ResultsView( this.tableModel );
 
-    output.add( new JScrollPane( this.outText ) );
+    output.add( this.resultsView );
 
     return output;
   }
@@ -463,62 +525,6 @@ ExportAware<Asm45DataSet>
     return panel;
   }
 
-  /**
-   * Returns an "empty" HTML page.
-   *
-   * @return an empty HTML page string, never <code>null</code>.
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      @SuppressWarnings( "boxing" )
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "smc-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSMC.getSelectedIndex();
-        }
-        else if ( "stm-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSTM.getSelectedIndex();
-        }
-        else if ( "ebg-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineEBG.getSelectedIndex();
-        }
-        else if ( "byte-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineBYTE.getSelectedIndex();
-        }
-        else if ( "bl-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineBL.getSelectedIndex();
-        }
-        else if ( "wrt-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineWRT.getSelectedIndex();
-        }
-        else if ( "sync-bus-config".equals( aMacro ) )
-        {
-          return Asm45ProtocolAnalysisDialog.this.lineSYNC.getSelectedIndex();
-        }
-        else if ( "decoded-words".equals( aMacro ) )
-        {
-          return "-";
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    *
    */
@@ -600,7 +606,7 @@ ExportAware<Asm45DataSet>
   {
     try
     {
-      toHtmlPage( aSelectedFile, aAnalysisResult );
+      toHtmlFile( aSelectedFile, aAnalysisResult );
     }
     catch ( final IOException exception )
     {
@@ -613,17 +619,18 @@ ExportAware<Asm45DataSet>
   }
 
   /**
-   * generate a HTML page
+   * Writes the given analysis results as HTML page to the given file.
    *
-   * @param aEmpty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to;
+   * @param aAnalysisResult
+   *          the analysis results to write.
    */
   // table data:
   //
   // Index, Clocks, Block, Address, Value, Type, Event
   //
-  private String toHtmlPage( final File aFile, final Asm45DataSet aAnalysisResult ) throws IOException
+  private void toHtmlFile( final File aFile, final Asm45DataSet aAnalysisResult ) throws IOException
   {
     final MacroResolver macroResolver = new MacroResolver()
     {
@@ -720,18 +727,8 @@ ExportAware<Asm45DataSet>
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
@@ -21,7 +21,10 @@
 package nl.lxtreme.ols.tool.base;
 
 
+import java.util.*;
+
 import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.util.osgi.*;
 
 import org.osgi.framework.*;
@@ -30,7 +33,7 @@ import org.osgi.framework.*;
 /**
  * Service tracker for annotation listeners.
  */
-public class AnnotationListenerServiceTracker implements AnnotationListener
+public class AnnotationListenerServiceTracker implements AnnotationBlockListener
 {
   // VARIABLES
 
@@ -111,6 +114,22 @@ public class AnnotationListenerServiceTracker implements AnnotationListener
     } );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    this.annotationListenerHelper.accept( new WhiteboardHelper.Visitor<AnnotationListener>()
+    {
+      @Override
+      public void visit( final AnnotationListener aService )
+      {
+        BatchingAnnotationListener.passOn( aService, aAnnotations );
+      }
+    } );
+  }
+
   /**
    * Opens this annotation listener service tracker for business.
    */
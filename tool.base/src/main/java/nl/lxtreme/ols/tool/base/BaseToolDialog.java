@@ -32,6 +32,7 @@ import nl.lxtreme.ols.api.Configurable;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.StandardActionFactory.CloseAction.Closeable;
 
@@ -66,6 +67,7 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
   private ServiceRegistration serviceReg;
   private volatile Future<RESULT_TYPE> toolFutureTask;
   private volatile ToolTask<RESULT_TYPE> toolTask;
+  private volatile BatchingAnnotationListener toolAnnotationListener;
   private volatile RESULT_TYPE lastResult;
 
   // CONSTRUCTORS
@@ -171,6 +173,7 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
    * {@inheritDoc}
    */
   @Override
+  @SuppressWarnings( "unchecked" )
   public final boolean invokeTool() throws IllegalStateException
   {
     if ( this.toolFutureTask != null )
@@ -181,9 +184,21 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
     boolean settingsValid = validateToolSettings();
     if ( settingsValid )
     {
-      this.toolTask = this.tool.createToolTask( this.context, this.toolProgressListener, this.annotationListener );
-      prepareToolTask( this.toolTask );
+      // Let the annotations of the tool be published in blocks...
+      this.toolAnnotationListener = new BatchingAnnotationListener( this.annotationListener );
+      // Record the annotations, so they can be cached along with the result...
+      final RecordingAnnotationListener recorder = new RecordingAnnotationListener( this.toolAnnotationListener );
+
+      ToolTask<RESULT_TYPE> task = this.tool.createToolTask( this.context, this.toolProgressListener, recorder );
+      prepareToolTask( task );
+
+      if ( task instanceof CacheableToolTask )
+      {
+        task = new CachingToolTask<RESULT_TYPE>( DecodeResultCache.getInstance(), this.context,
+            ( CacheableToolTask<RESULT_TYPE> )task, recorder, this.toolAnnotationListener );
+      }
 
+      this.toolTask = task;
       this.toolFutureTask = this.taskExecutionService.execute( this.toolTask );
     }
     return settingsValid;
@@ -215,6 +230,8 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
   {
     if ( this.toolTask == aTask )
     {
+      flushAnnotations();
+
       this.lastResult = ( RESULT_TYPE )aResult;
 
       SwingComponentUtils.invokeOnEDT( new Runnable()
@@ -243,6 +260,8 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
   {
     if ( this.toolTask == aTask )
     {
+      flushAnnotations();
+
       SwingComponentUtils.invokeOnEDT( new Runnable()
       {
         @Override
@@ -428,4 +447,17 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JFrame implements Tool
   {
     return true;
   }
+
+  /**
+   * Publishes all annotations the tool has not yet published.
+   */
+  private void flushAnnotations()
+  {
+    final BatchingAnnotationListener listener = this.toolAnnotationListener;
+    if ( listener != null )
+    {
+      listener.flush();
+    }
+    this.toolAnnotationListener = null;
+  }
 }
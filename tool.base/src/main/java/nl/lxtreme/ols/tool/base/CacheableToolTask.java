@@ -0,0 +1,74 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.beans.*;
+
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Denotes a tool task of which the result, annotations and property changes
+ * only depend on the acquired data, the decode range and its configuration,
+ * allowing them to be reused by {@link DecodeResultCache}.
+ */
+public interface CacheableToolTask<RESULT_TYPE> extends ToolTask<RESULT_TYPE>
+{
+  // METHODS
+
+  /**
+   * Adds the given property change listener.
+   *
+   * @param aListener
+   *          the listener to add, cannot be <code>null</code>.
+   */
+  void addPropertyChangeListener( PropertyChangeListener aListener );
+
+  /**
+   * Fires the given property change, as recorded from an earlier run of an
+   * equally configured task, to all registered listeners.
+   *
+   * @param aEvent
+   *          the property change to fire, cannot be <code>null</code>.
+   */
+  void firePropertyChange( PropertyChangeEvent aEvent );
+
+  /**
+   * Returns a textual representation of all settings that influence the
+   * result of this task, such as channel indexes and protocol options.
+   * <p>
+   * Tasks with equal configurations should yield equal results for the same
+   * acquired data and decode range.
+   * </p>
+   *
+   * @return the configuration of this task, never <code>null</code>.
+   */
+  String getConfiguration();
+
+  /**
+   * Removes the given property change listener.
+   *
+   * @param aListener
+   *          the listener to remove, cannot be <code>null</code>.
+   */
+  void removePropertyChangeListener( PropertyChangeListener aListener );
+}
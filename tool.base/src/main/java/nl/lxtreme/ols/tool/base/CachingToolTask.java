@@ -0,0 +1,128 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.beans.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
+
+
+/**
+ * Wraps a {@link CacheableToolTask}, and only runs it in case its result is
+ * not yet cached. Otherwise, the cached annotations and property changes are
+ * replayed and the cached result is returned as if the task was run.
+ */
+final class CachingToolTask<RESULT_TYPE> implements ToolTask<RESULT_TYPE>
+{
+  // VARIABLES
+
+  private final DecodeResultCache cache;
+  private final ToolContext context;
+  private final CacheableToolTask<RESULT_TYPE> task;
+  private final RecordingAnnotationListener recorder;
+  private final AnnotationListener annotationListener;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CachingToolTask instance.
+   *
+   * @param aCache
+   *          the cache to use, cannot be <code>null</code>;
+   * @param aContext
+   *          the tool context of the task, cannot be <code>null</code>;
+   * @param aTask
+   *          the (configured) task to wrap, cannot be <code>null</code>;
+   * @param aRecorder
+   *          the annotation listener of the wrapped task, that records its
+   *          annotations, cannot be <code>null</code>;
+   * @param aAnnotationListener
+   *          the annotation listener to replay cached annotations on, cannot be
+   *          <code>null</code>.
+   */
+  CachingToolTask( final DecodeResultCache aCache, final ToolContext aContext,
+      final CacheableToolTask<RESULT_TYPE> aTask, final RecordingAnnotationListener aRecorder,
+      final AnnotationListener aAnnotationListener )
+  {
+    this.cache = aCache;
+    this.context = aContext;
+    this.task = aTask;
+    this.recorder = aRecorder;
+    this.annotationListener = aAnnotationListener;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @SuppressWarnings( "unchecked" )
+  public RESULT_TYPE call() throws Exception
+  {
+    // Tasks might change their configuration while running, so we need to
+    // obtain the key up front...
+    final DecodeResultCache.Key key = this.cache.createKey( this.context, this.task );
+
+    final DecodeResultCache.Entry entry = this.cache.get( key );
+    if ( entry != null )
+    {
+      RecordingAnnotationListener.replay( entry.getAnnotations(), this.annotationListener );
+      for ( PropertyChangeEvent event : entry.getPropertyChanges() )
+      {
+        this.task.firePropertyChange( new PropertyChangeEvent( this.task, event.getPropertyName(),
+            event.getOldValue(), event.getNewValue() ) );
+      }
+      return ( RESULT_TYPE )entry.getResult();
+    }
+
+    // Record the property changes, such as auto-detected settings, so they can
+    // be cached along with the result; tasks fire them from their own thread...
+    final List<PropertyChangeEvent> propertyChanges = new ArrayList<PropertyChangeEvent>();
+    final PropertyChangeListener listener = new PropertyChangeListener()
+    {
+      @Override
+      public void propertyChange( final PropertyChangeEvent aEvent )
+      {
+        propertyChanges.add( aEvent );
+      }
+    };
+
+    final RESULT_TYPE result;
+    this.task.addPropertyChangeListener( listener );
+    try
+    {
+      result = this.task.call();
+    }
+    finally
+    {
+      this.task.removePropertyChangeListener( listener );
+    }
+
+    this.cache.put( key, this.context, result, this.recorder.getRecording(), propertyChanges );
+
+    return result;
+  }
+}
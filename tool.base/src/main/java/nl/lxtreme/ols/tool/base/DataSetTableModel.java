@@ -0,0 +1,313 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+import javax.swing.table.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides a table model that is directly backed by the data of a
+ * {@link BaseDataSet}.
+ * <p>
+ * No cell values are kept by this model: they are formatted on demand, which
+ * means that only the rows that are actually shown by a table are formatted.
+ * This allows data sets with many thousands of decoded symbols to be shown
+ * without delay.
+ * </p>
+ * <p>
+ * Consecutive data items can be shown in a single row by overriding
+ * {@link #isSameRow(BaseData, BaseData)}, for example, to show data decoded
+ * from two channels at the same sample index side by side.
+ * </p>
+ *
+ * @param <DATA>
+ *          the type of the decoded data;
+ * @param <DATASET>
+ *          the type of the data set.
+ */
+public abstract class DataSetTableModel<DATA extends BaseData<DATA>, DATASET extends BaseDataSet<DATA>> extends
+    AbstractTableModel
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  // VARIABLES
+
+  private final String[] columnNames;
+
+  private volatile DATASET dataSet;
+  /** the indexes of the first data item of each row, or null for one item per row. */
+  private volatile int[] rowStarts;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DataSetTableModel instance.
+   *
+   * @param aColumnNames
+   *          the names of the columns of this table model, cannot be
+   *          <code>null</code>.
+   */
+  protected DataSetTableModel( final String... aColumnNames )
+  {
+    if ( aColumnNames == null )
+    {
+      throw new IllegalArgumentException( "Column names cannot be null!" );
+    }
+    this.columnNames = aColumnNames;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<?> getColumnClass( final int aColumnIndex )
+  {
+    return String.class;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getColumnCount()
+  {
+    return this.columnNames.length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final String getColumnName( final int aColumnIndex )
+  {
+    return this.columnNames[aColumnIndex];
+  }
+
+  /**
+   * Returns the data set backing this table model.
+   *
+   * @return the data set, can be <code>null</code> if no data set is set.
+   */
+  public final DATASET getDataSet()
+  {
+    return this.dataSet;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getRowCount()
+  {
+    final DATASET ds = this.dataSet;
+    if ( ds == null )
+    {
+      return 0;
+    }
+    final int[] starts = this.rowStarts;
+    return ( starts == null ) ? ds.getData().size() : starts.length;
+  }
+
+  /**
+   * Returns the background color for the row with the given index.
+   *
+   * @param aRowIndex
+   *          the index of the row to get the background color for.
+   * @return the background color, can be <code>null</code> to use the default
+   *         background color.
+   */
+  public final Color getRowColor( final int aRowIndex )
+  {
+    final DATASET ds = this.dataSet;
+    if ( ( ds == null ) || ( aRowIndex >= getRowCount() ) )
+    {
+      return null;
+    }
+    return getRowColor( ds, ds.getData().get( getRowStart( aRowIndex ) ), aRowIndex );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final Object getValueAt( final int aRowIndex, final int aColumnIndex )
+  {
+    final DATASET ds = this.dataSet;
+    if ( ( ds == null ) || ( aRowIndex >= getRowCount() ) )
+    {
+      return null;
+    }
+    final List<DATA> data = ds.getData();
+    final int[] starts = this.rowStarts;
+    if ( starts == null )
+    {
+      return getColumnValue( ds, data.get( aRowIndex ), aRowIndex, aColumnIndex );
+    }
+    final int end = ( aRowIndex + 1 < starts.length ) ? starts[aRowIndex + 1] : data.size();
+    return getColumnValue( ds, data.subList( starts[aRowIndex], end ), aRowIndex, aColumnIndex );
+  }
+
+  /**
+   * Sets the data set backing this table model.
+   * <p>
+   * This method should be called from the event-dispatch thread.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set to set, can be <code>null</code> to clear this table
+   *          model.
+   */
+  public final void setDataSet( final DATASET aDataSet )
+  {
+    this.rowStarts = ( aDataSet == null ) ? null : determineRowStarts( aDataSet.getData() );
+    this.dataSet = aDataSet;
+
+    fireTableDataChanged();
+  }
+
+  /**
+   * Formats the value of a single cell of a row that shows one or more data
+   * items.
+   * <p>
+   * By default, the first data item of the row is formatted by
+   * {@link #getColumnValue(BaseDataSet, BaseData, int, int)}.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set backing this model, never <code>null</code>;
+   * @param aRowData
+   *          the data items of the row to format, never <code>null</code> or
+   *          empty;
+   * @param aRowIndex
+   *          the index of the row to format;
+   * @param aColumnIndex
+   *          the index of the column to format.
+   * @return the formatted cell value, can be <code>null</code>.
+   */
+  protected Object getColumnValue( final DATASET aDataSet, final List<DATA> aRowData, final int aRowIndex,
+      final int aColumnIndex )
+  {
+    return getColumnValue( aDataSet, aRowData.get( 0 ), aRowIndex, aColumnIndex );
+  }
+
+  /**
+   * Formats the value of a single cell.
+   *
+   * @param aDataSet
+   *          the data set backing this model, never <code>null</code>;
+   * @param aData
+   *          the data of the row to format, never <code>null</code>;
+   * @param aRowIndex
+   *          the index of the row to format;
+   * @param aColumnIndex
+   *          the index of the column to format.
+   * @return the formatted cell value, can be <code>null</code>.
+   */
+  protected abstract Object getColumnValue( final DATASET aDataSet, final DATA aData, final int aRowIndex,
+      final int aColumnIndex );
+
+  /**
+   * Returns the background color for the given data.
+   * <p>
+   * By default, the default background color is used for all rows.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set backing this model, never <code>null</code>;
+   * @param aData
+   *          the data of the row, never <code>null</code>;
+   * @param aRowIndex
+   *          the index of the row.
+   * @return the background color, can be <code>null</code> to use the default
+   *         background color.
+   */
+  protected Color getRowColor( final DATASET aDataSet, final DATA aData, final int aRowIndex )
+  {
+    return null;
+  }
+
+  /**
+   * Returns whether the given data item should be shown in the same row as the
+   * data item preceding it.
+   * <p>
+   * By default, each data item is shown in its own row.
+   * </p>
+   *
+   * @param aPrevious
+   *          the preceding data item, never <code>null</code>;
+   * @param aData
+   *          the data item to test, never <code>null</code>.
+   * @return <code>true</code> if both data items should be shown in a single
+   *         row, <code>false</code> otherwise.
+   */
+  protected boolean isSameRow( final DATA aPrevious, final DATA aData )
+  {
+    return false;
+  }
+
+  /**
+   * Determines the index of the first data item of each row.
+   *
+   * @param aData
+   *          the data items to divide into rows, cannot be <code>null</code>.
+   * @return the row start indexes, or <code>null</code> if each data item is
+   *         shown in its own row.
+   */
+  private int[] determineRowStarts( final List<DATA> aData )
+  {
+    final int size = aData.size();
+    final int[] starts = new int[size];
+
+    int rows = 0;
+    DATA previous = null;
+    for ( int i = 0; i < size; i++ )
+    {
+      final DATA data = aData.get( i );
+      if ( ( previous == null ) || !isSameRow( previous, data ) )
+      {
+        starts[rows++] = i;
+      }
+      previous = data;
+    }
+
+    return ( rows == size ) ? null : Arrays.copyOf( starts, rows );
+  }
+
+  /**
+   * Returns the index of the first data item of the row with the given index.
+   */
+  private int getRowStart( final int aRowIndex )
+  {
+    final int[] starts = this.rowStarts;
+    return ( starts == null ) ? aRowIndex : starts[aRowIndex];
+  }
+}
@@ -0,0 +1,380 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.beans.*;
+import java.util.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Provides a cache for the results, and annotations, of decoding tools, so
+ * running a tool again with the same settings on the same data does not
+ * repeat the whole decode.
+ * <p>
+ * Results are keyed by a content hash of the acquired data, the decode range,
+ * the tool task and its configuration, see {@link CacheableToolTask}. As the
+ * key is based on the content of the acquired data, results are also found
+ * after the same data is loaded again. The least recently used results are
+ * evicted as soon as the estimated memory usage of all results exceeds a
+ * fraction of the maximum heap size.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class DecodeResultCache
+{
+  // INNER TYPES
+
+  /**
+   * Provides a cached result of a tool, along with its annotations and property
+   * changes.
+   */
+  public static final class Entry
+  {
+    // VARIABLES
+
+    private final Object result;
+    private final List<?> annotations;
+    private final List<PropertyChangeEvent> propertyChanges;
+    private final long weight;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Entry instance.
+     */
+    Entry( final Object aResult, final List<?> aAnnotations, final List<PropertyChangeEvent> aPropertyChanges,
+        final long aWeight )
+    {
+      this.result = aResult;
+      this.annotations = aAnnotations;
+      this.propertyChanges = aPropertyChanges;
+      this.weight = aWeight;
+    }
+
+    // METHODS
+
+    /**
+     * Returns the recorded annotations of the tool.
+     *
+     * @return the annotations, as recorded by a
+     *         {@link nl.lxtreme.ols.tool.base.annotation.RecordingAnnotationListener}
+     *         , never <code>null</code>.
+     */
+    public List<?> getAnnotations()
+    {
+      return this.annotations;
+    }
+
+    /**
+     * Returns the property changes fired by the tool, such as auto-detected
+     * settings.
+     *
+     * @return the property changes, in the order they were fired, never
+     *         <code>null</code>.
+     */
+    public List<PropertyChangeEvent> getPropertyChanges()
+    {
+      return this.propertyChanges;
+    }
+
+    /**
+     * Returns the result of the tool.
+     *
+     * @return the result, can be <code>null</code>.
+     */
+    public Object getResult()
+    {
+      return this.result;
+    }
+  }
+
+  /**
+   * Provides the key of a cached result.
+   */
+  public static final class Key
+  {
+    // VARIABLES
+
+    private final long dataHash;
+    private final int startIndex;
+    private final int endIndex;
+    private final int enabledChannels;
+    private final String task;
+    private final String configuration;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Key instance.
+     */
+    Key( final long aDataHash, final int aStartIndex, final int aEndIndex, final int aEnabledChannels,
+        final String aTask, final String aConfiguration )
+    {
+      this.dataHash = aDataHash;
+      this.startIndex = aStartIndex;
+      this.endIndex = aEndIndex;
+      this.enabledChannels = aEnabledChannels;
+      this.task = aTask;
+      this.configuration = aConfiguration;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( final Object aObject )
+    {
+      if ( this == aObject )
+      {
+        return true;
+      }
+      if ( !( aObject instanceof Key ) )
+      {
+        return false;
+      }
+
+      final Key other = ( Key )aObject;
+      return ( this.dataHash == other.dataHash ) && ( this.startIndex == other.startIndex )
+          && ( this.endIndex == other.endIndex ) && ( this.enabledChannels == other.enabledChannels )
+          && this.task.equals( other.task ) && this.configuration.equals( other.configuration );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+      final int prime = 31;
+      int result = 1;
+      result = ( prime * result ) + ( int )( this.dataHash ^ ( this.dataHash >>> 32 ) );
+      result = ( prime * result ) + this.startIndex;
+      result = ( prime * result ) + this.endIndex;
+      result = ( prime * result ) + this.enabledChannels;
+      result = ( prime * result ) + this.task.hashCode();
+      result = ( prime * result ) + this.configuration.hashCode();
+      return result;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( DecodeResultCache.class.getName() );
+
+  /** The estimated number of bytes used by a single decoded datum or annotation. */
+  private static final long ITEM_WEIGHT = 64L;
+  /** The number of samples that are hashed at once. */
+  private static final int HASH_BUFFER_SIZE = 4096;
+
+  private static final DecodeResultCache INSTANCE = new DecodeResultCache( Runtime.getRuntime().maxMemory() / 8L );
+
+  // VARIABLES
+
+  private final long maxWeight;
+  /** The cached entries, in least recently used order. Guarded by this. */
+  private final LinkedHashMap<Key, Entry> entries;
+  /** The content hashes of the acquired data seen so far. Guarded by this. */
+  private final Map<AcquisitionResult, Long> dataHashes;
+  /** Guarded by this. */
+  private long weight;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DecodeResultCache instance.
+   *
+   * @param aMaxWeight
+   *          the maximum estimated memory usage of all cached results, in
+   *          bytes.
+   */
+  DecodeResultCache( final long aMaxWeight )
+  {
+    this.maxWeight = aMaxWeight;
+    this.entries = new LinkedHashMap<Key, Entry>( 16, 0.75f, true /* accessOrder */);
+    this.dataHashes = new WeakHashMap<AcquisitionResult, Long>();
+  }
+
+  // METHODS
+
+  /**
+   * Returns the cache shared by all tools.
+   *
+   * @return the shared cache, never <code>null</code>.
+   */
+  public static DecodeResultCache getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * Calculates a 64-bit hash of the content of the given acquired data.
+   */
+  private static long calculateHash( final AcquisitionResult aData )
+  {
+    long hash = aData.getSampleRate();
+    hash = mix( hash, aData.getChannels() );
+    hash = mix( hash, aData.getEnabledChannels() );
+    hash = mix( hash, aData.hasTriggerData() ? aData.getTriggerPosition() : -1L );
+    hash = mix( hash, aData.getAbsoluteLength() );
+
+    final int sampleCount = aData.getSampleCount();
+    hash = mix( hash, sampleCount );
+
+    final int[] values = new int[HASH_BUFFER_SIZE];
+    final long[] timestamps = new long[HASH_BUFFER_SIZE];
+    for ( int index = 0; index < sampleCount; index += HASH_BUFFER_SIZE )
+    {
+      final int count = aData.getValues( index, values, 0, HASH_BUFFER_SIZE );
+      aData.getTimestamps( index, timestamps, 0, count );
+
+      for ( int i = 0; i < count; i++ )
+      {
+        hash = mix( mix( hash, values[i] ), timestamps[i] );
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Mixes the given value into the given hash.
+   */
+  private static long mix( final long aHash, final long aValue )
+  {
+    final long hash = ( aHash ^ aValue ) * 0x9E3779B97F4A7C15L;
+    return hash ^ ( hash >>> 29 );
+  }
+
+  /**
+   * Creates the key for the result of the given tool task.
+   * <p>
+   * The first time the acquired data of the given context is seen, its content
+   * hash is calculated, which takes a single pass over all samples.
+   * </p>
+   *
+   * @param aContext
+   *          the tool context with the acquired data and decode range, cannot
+   *          be <code>null</code>;
+   * @param aTask
+   *          the configured tool task, cannot be <code>null</code>.
+   * @return a cache key, never <code>null</code>.
+   */
+  public Key createKey( final ToolContext aContext, final CacheableToolTask<?> aTask )
+  {
+    final AcquisitionResult data = aContext.getData();
+
+    Long dataHash;
+    synchronized ( this )
+    {
+      dataHash = this.dataHashes.get( data );
+    }
+    if ( dataHash == null )
+    {
+      dataHash = Long.valueOf( calculateHash( data ) );
+      synchronized ( this )
+      {
+        this.dataHashes.put( data, dataHash );
+      }
+    }
+
+    return new Key( dataHash.longValue(), aContext.getStartSampleIndex(), aContext.getEndSampleIndex(),
+        aContext.getEnabledChannels(), aTask.getClass().getName(), aTask.getConfiguration() );
+  }
+
+  /**
+   * Returns the cached result for the given key, marking it as most recently
+   * used.
+   *
+   * @param aKey
+   *          the key to return the result for, cannot be <code>null</code>.
+   * @return the cached result, or <code>null</code> if no result is cached for
+   *         the given key.
+   */
+  public synchronized Entry get( final Key aKey )
+  {
+    return this.entries.get( aKey );
+  }
+
+  /**
+   * Caches the given result, annotations and property changes under the given
+   * key, evicting the least recently used results if needed.
+   * <p>
+   * The memory usage of a result is estimated from the number of decoded data
+   * in case of a {@link BaseDataSet}, the number of annotations and the number
+   * of samples of the acquired data. Results that would take up more than the
+   * maximum memory usage on their own are not cached at all.
+   * </p>
+   *
+   * @param aKey
+   *          the key to cache the result under, cannot be <code>null</code>;
+   * @param aContext
+   *          the tool context the result was obtained with, cannot be
+   *          <code>null</code>;
+   * @param aResult
+   *          the result of the tool, can be <code>null</code>;
+   * @param aAnnotations
+   *          the recorded annotations of the tool, cannot be <code>null</code>;
+   * @param aPropertyChanges
+   *          the property changes fired by the tool, cannot be
+   *          <code>null</code>.
+   */
+  public synchronized void put( final Key aKey, final ToolContext aContext, final Object aResult,
+      final List<?> aAnnotations, final List<PropertyChangeEvent> aPropertyChanges )
+  {
+    int itemCount = aAnnotations.size() + aPropertyChanges.size();
+    if ( aResult instanceof BaseDataSet )
+    {
+      itemCount += ( ( BaseDataSet<?> )aResult ).getData().size();
+    }
+    // Data sets keep a reference to the acquired data, keeping its values and
+    // timestamps from being released...
+    final long entryWeight = ( ITEM_WEIGHT * itemCount ) + ( 12L * aContext.getData().getSampleCount() );
+    if ( entryWeight > this.maxWeight )
+    {
+      LOG.log( Level.FINE, "Result too large to be cached: {0} bytes", Long.valueOf( entryWeight ) );
+      return;
+    }
+
+    final Entry old = this.entries.put( aKey, new Entry( aResult, aAnnotations,
+        new ArrayList<PropertyChangeEvent>( aPropertyChanges ), entryWeight ) );
+    if ( old != null )
+    {
+      this.weight -= old.weight;
+    }
+    this.weight += entryWeight;
+
+    final Iterator<Entry> iter = this.entries.values().iterator();
+    while ( ( this.weight > this.maxWeight ) && iter.hasNext() )
+    {
+      this.weight -= iter.next().weight;
+      iter.remove();
+    }
+  }
+}
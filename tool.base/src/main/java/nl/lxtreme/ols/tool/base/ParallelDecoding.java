@@ -0,0 +1,259 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Provides a means to let tools decode independent parts of the acquired data
+ * on all available processors.
+ * <p>
+ * The decoding tasks are run on a shared pool of daemon threads, and their
+ * results are always returned in the order in which the tasks were given, so
+ * tools can merge them as if the tasks were run one after another. Idle
+ * threads are stopped after a while, and the pool is shut down entirely when
+ * this bundle is stopped.
+ * </p>
+ */
+public final class ParallelDecoding
+{
+  // INNER TYPES
+
+  /**
+   * Creates the (daemon) threads of our shared pool.
+   */
+  static final class DecoderThreadFactory implements ThreadFactory
+  {
+    // VARIABLES
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    // METHODS
+
+    /**
+     * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+     */
+    @Override
+    public Thread newThread( final Runnable aRunnable )
+    {
+      final Thread thread = new Thread( aRunnable, "ParallelDecoding-" + this.threadCount.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+  /** The number of seconds an idle thread of our pool is kept alive. */
+  private static final long KEEP_ALIVE_TIME = 60L;
+
+  /**
+   * The minimum number of samples a segment should consist of, as smaller
+   * segments are not worth the overhead of decoding them on their own.
+   */
+  private static final int MIN_SEGMENT_LENGTH = 1 << 16;
+  /**
+   * The number of segments to create per processor, allowing the work to be
+   * spread evenly, even if some segments are decoded faster than others.
+   */
+  private static final int SEGMENTS_PER_PROCESSOR = 4;
+
+  // VARIABLES
+
+  private static ExecutorService executorService;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ParallelDecoding instance, never used.
+   */
+  private ParallelDecoding()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Returns the number of tasks that can run at the same time.
+   *
+   * @return the parallelism, >= 1.
+   */
+  public static int getParallelism()
+  {
+    return PARALLELISM;
+  }
+
+  /**
+   * Returns the number of samples a segment should at least consist of in
+   * case a decoder splits the samples it decodes into segments that are
+   * decoded on their own.
+   *
+   * @param aSampleCount
+   *          the total number of samples to decode, >= 0.
+   * @return a segment length, >= 1. In case no splitting is to be done, the
+   *         given sample count is returned.
+   */
+  public static int getSegmentLength( final int aSampleCount )
+  {
+    if ( PARALLELISM <= 1 )
+    {
+      return Math.max( 1, aSampleCount );
+    }
+    return Math.max( MIN_SEGMENT_LENGTH, aSampleCount / ( SEGMENTS_PER_PROCESSOR * PARALLELISM ) );
+  }
+
+  /**
+   * Runs all given tasks and waits until they are completed.
+   * <p>
+   * In case only a single task is given, or only a single processor is
+   * available, the tasks are run directly on the calling thread.
+   * </p>
+   *
+   * @param aTasks
+   *          the tasks to run, cannot be <code>null</code>;
+   * @param aProgressListener
+   *          the progress listener to report the number of completed tasks to,
+   *          can be <code>null</code>.
+   * @return the results of the given tasks, in the same order as the tasks
+   *         themselves, never <code>null</code>.
+   * @throws Exception
+   *           in case one of the tasks failed, in which case all other tasks
+   *           are cancelled;
+   * @throws InterruptedException
+   *           in case the calling thread is interrupted while waiting for the
+   *           tasks to complete, in which case all tasks are cancelled.
+   */
+  public static <T> List<T> invokeAll( final List<? extends Callable<T>> aTasks,
+      final ToolProgressListener aProgressListener ) throws Exception
+  {
+    if ( aTasks == null )
+    {
+      throw new IllegalArgumentException( "Tasks cannot be null!" );
+    }
+
+    final int taskCount = aTasks.size();
+    final List<T> result = new ArrayList<T>( taskCount );
+
+    if ( ( taskCount <= 1 ) || ( PARALLELISM <= 1 ) )
+    {
+      for ( Callable<T> task : aTasks )
+      {
+        result.add( task.call() );
+
+        setProgress( aProgressListener, result.size(), taskCount );
+      }
+      return result;
+    }
+
+    final ExecutorService executor = getExecutorService();
+
+    final List<Future<T>> futures = new ArrayList<Future<T>>( taskCount );
+    try
+    {
+      for ( Callable<T> task : aTasks )
+      {
+        futures.add( executor.submit( task ) );
+      }
+
+      for ( Future<T> future : futures )
+      {
+        result.add( future.get() );
+
+        setProgress( aProgressListener, result.size(), taskCount );
+      }
+    }
+    catch ( ExecutionException exception )
+    {
+      final Throwable cause = exception.getCause();
+      if ( cause instanceof Exception )
+      {
+        throw ( Exception )cause;
+      }
+      else if ( cause instanceof Error )
+      {
+        throw ( Error )cause;
+      }
+      throw exception;
+    }
+    finally
+    {
+      // Does nothing for the tasks that are already completed...
+      for ( Future<T> future : futures )
+      {
+        future.cancel( true /* mayInterruptIfRunning */);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * @return the shared executor service, never <code>null</code>.
+   */
+  private static synchronized ExecutorService getExecutorService()
+  {
+    if ( executorService == null )
+    {
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor( PARALLELISM, PARALLELISM, KEEP_ALIVE_TIME,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new DecoderThreadFactory() );
+      executor.allowCoreThreadTimeOut( true );
+
+      executorService = executor;
+    }
+    return executorService;
+  }
+
+  /**
+   * Shuts down the shared pool, interrupting all tasks that are still running.
+   * <p>
+   * A new pool is created as soon as tasks are given again.
+   * </p>
+   */
+  public static synchronized void shutdown()
+  {
+    if ( executorService != null )
+    {
+      executorService.shutdownNow();
+      executorService = null;
+    }
+  }
+
+  /**
+   * Reports the percentage of completed tasks to the given progress listener.
+   */
+  private static void setProgress( final ToolProgressListener aProgressListener, final int aCompleted,
+      final int aTotal )
+  {
+    if ( aProgressListener != null )
+    {
+      aProgressListener.setProgress( ( int )( ( 100L * aCompleted ) / aTotal ) );
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.awt.*;
+
+import javax.swing.*;
+import javax.swing.table.*;
+
+
+/**
+ * Provides a view on the results of a protocol analyser, consisting of a
+ * summary line and a table with the decoded data.
+ * <p>
+ * The table only formats the rows that are visible, as it obtains its values
+ * on demand from a {@link DataSetTableModel}. All rows have the same height, so
+ * scrolling does not need to lay out any rows either.
+ * </p>
+ */
+public class ResultsView extends JPanel
+{
+  // INNER TYPES
+
+  /**
+   * Renders the cells of a row in the background color of that row.
+   */
+  static final class RowColorRenderer extends DefaultTableCellRenderer
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Component getTableCellRendererComponent( final JTable aTable, final Object aValue,
+        final boolean aIsSelected, final boolean aHasFocus, final int aRow, final int aColumn )
+    {
+      super.getTableCellRendererComponent( aTable, aValue, aIsSelected, aHasFocus, aRow, aColumn );
+
+      if ( !aIsSelected )
+      {
+        final DataSetTableModel<?, ?> model = ( DataSetTableModel<?, ?> )aTable.getModel();
+        final Color rowColor = model.getRowColor( aRow );
+
+        setBackground( ( rowColor != null ) ? rowColor : aTable.getBackground() );
+      }
+
+      return this;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  // VARIABLES
+
+  private final JLabel summary;
+  private final JTable table;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ResultsView instance.
+   *
+   * @param aModel
+   *          the table model with the decoded data, cannot be <code>null</code>
+   *          .
+   */
+  public ResultsView( final DataSetTableModel<?, ?> aModel )
+  {
+    super( new BorderLayout( 0, 4 ) );
+
+    if ( aModel == null )
+    {
+      throw new IllegalArgumentException( "Model cannot be null!" );
+    }
+
+    this.summary = new JLabel( " " );
+
+    this.table = new JTable( aModel );
+    this.table.setDefaultRenderer( String.class, new RowColorRenderer() );
+    this.table.setFont( new Font( Font.MONOSPACED, Font.PLAIN, this.table.getFont().getSize() ) );
+    this.table.setRowHeight( this.table.getFontMetrics( this.table.getFont() ).getHeight() + 2 );
+    this.table.setFillsViewportHeight( true );
+    this.table.setSelectionMode( ListSelectionModel.MULTIPLE_INTERVAL_SELECTION );
+    this.table.getTableHeader().setReorderingAllowed( false );
+
+    add( this.summary, BorderLayout.NORTH );
+    add( new JScrollPane( this.table ), BorderLayout.CENTER );
+  }
+
+  // METHODS
+
+  /**
+   * Returns the table showing the decoded data.
+   *
+   * @return the table, never <code>null</code>.
+   */
+  public final JTable getTable()
+  {
+    return this.table;
+  }
+
+  /**
+   * Sets the summary shown above the decoded data, for example, the number of
+   * decoded symbols and detected errors.
+   *
+   * @param aSummary
+   *          the summary to show, can be <code>null</code>.
+   */
+  public final void setSummary( final String aSummary )
+  {
+    this.summary.setText( ( ( aSummary == null ) || "".equals( aSummary ) ) ? " " : aSummary );
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.annotation;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides an {@link AnnotationListener} that collects annotations and passes
+ * them on to another annotation listener in blocks, instead of one by one.
+ * <p>
+ * A block is passed on as soon as {@link #BATCH_SIZE} annotations are
+ * collected, before annotations are cleared, or when {@link #flush()} is
+ * called. This way, a receiving {@link AnnotationBlockListener} only needs a
+ * single update for a whole block of annotations. Other listeners receive the
+ * annotations of a block one by one.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class BatchingAnnotationListener implements AnnotationBlockListener
+{
+  // CONSTANTS
+
+  /** The number of annotations that are collected before passing them on. */
+  public static final int BATCH_SIZE = 2048;
+
+  // VARIABLES
+
+  private final AnnotationListener target;
+
+  private List<Annotation<?>> batch;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BatchingAnnotationListener instance.
+   *
+   * @param aTarget
+   *          the annotation listener to pass the annotations on to, cannot be
+   *          <code>null</code>.
+   */
+  public BatchingAnnotationListener( final AnnotationListener aTarget )
+  {
+    if ( aTarget == null )
+    {
+      throw new IllegalArgumentException( "Target cannot be null!" );
+    }
+
+    this.target = aTarget;
+    this.batch = new ArrayList<Annotation<?>>();
+  }
+
+  // METHODS
+
+  /**
+   * Passes the given block of annotations on to the given annotation listener,
+   * at once if it is an {@link AnnotationBlockListener}, or one by one
+   * otherwise.
+   *
+   * @param aListener
+   *          the annotation listener to pass the annotations on to, cannot be
+   *          <code>null</code>;
+   * @param aAnnotations
+   *          the annotations to pass on, cannot be <code>null</code>.
+   */
+  public static void passOn( final AnnotationListener aListener,
+      final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    if ( aListener instanceof AnnotationBlockListener )
+    {
+      ( ( AnnotationBlockListener )aListener ).onAnnotations( aAnnotations );
+    }
+    else
+    {
+      for ( Annotation<?> annotation : aAnnotations )
+      {
+        aListener.onAnnotation( annotation );
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void clearAnnotations()
+  {
+    flush();
+
+    this.target.clearAnnotations();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void clearAnnotations( final int aChannelIdx )
+  {
+    flush();
+
+    this.target.clearAnnotations( aChannelIdx );
+  }
+
+  /**
+   * Passes all collected annotations on to the target annotation listener as a
+   * single block.
+   */
+  public synchronized void flush()
+  {
+    if ( !this.batch.isEmpty() )
+    {
+      // Hand off the current block, the target might keep a reference to it...
+      final List<Annotation<?>> block = this.batch;
+      this.batch = new ArrayList<Annotation<?>>();
+
+      passOn( this.target, block );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    this.batch.add( aAnnotation );
+
+    if ( this.batch.size() >= BATCH_SIZE )
+    {
+      flush();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    this.batch.addAll( aAnnotations );
+
+    if ( this.batch.size() >= BATCH_SIZE )
+    {
+      flush();
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.annotation;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides an {@link AnnotationListener} that keeps all calls made to it, in
+ * order to pass them on to another annotation listener at a later moment.
+ * <p>
+ * This allows annotations to be created by decoding tasks that run in parallel,
+ * while the annotations are still passed on in the same order as a sequential
+ * decoding would do.
+ * </p>
+ * <p>
+ * This class is <b>not</b> thread-safe.
+ * </p>
+ */
+public final class BufferedAnnotationListener implements AnnotationBlockListener
+{
+  // CONSTANTS
+
+  /** Denotes that all annotations of all channels are to be cleared. */
+  private static final Integer ALL_CHANNELS = Integer.valueOf( -1 );
+
+  // VARIABLES
+
+  /**
+   * The buffered calls, either annotations or the channel indexes for which
+   * annotations are to be cleared.
+   */
+  private final List<Object> calls;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, BufferedAnnotationListener instance.
+   */
+  public BufferedAnnotationListener()
+  {
+    this.calls = new ArrayList<Object>();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations()
+  {
+    this.calls.add( ALL_CHANNELS );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations( final int aChannelIdx )
+  {
+    this.calls.add( Integer.valueOf( aChannelIdx ) );
+  }
+
+  /**
+   * Passes all buffered calls on to the given annotation listener, in the same
+   * order as they were made to this listener, and clears this buffer
+   * afterwards. Consecutive annotations are passed on as a single block.
+   *
+   * @param aListener
+   *          the annotation listener to pass the buffered calls on to, cannot
+   *          be <code>null</code>.
+   */
+  public void flush( final AnnotationListener aListener )
+  {
+    if ( aListener == null )
+    {
+      throw new IllegalArgumentException( "Listener cannot be null!" );
+    }
+
+    List<Annotation<?>> block = new ArrayList<Annotation<?>>();
+    for ( Object call : this.calls )
+    {
+      if ( call instanceof Annotation<?> )
+      {
+        block.add( ( Annotation<?> )call );
+        continue;
+      }
+
+      if ( !block.isEmpty() )
+      {
+        BatchingAnnotationListener.passOn( aListener, block );
+        block = new ArrayList<Annotation<?>>();
+      }
+
+      if ( ALL_CHANNELS.equals( call ) )
+      {
+        aListener.clearAnnotations();
+      }
+      else
+      {
+        aListener.clearAnnotations( ( ( Integer )call ).intValue() );
+      }
+    }
+
+    if ( !block.isEmpty() )
+    {
+      BatchingAnnotationListener.passOn( aListener, block );
+    }
+    this.calls.clear();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    this.calls.add( aAnnotation );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    this.calls.addAll( aAnnotations );
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.annotation;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides an {@link AnnotationListener} that passes all calls on to another
+ * annotation listener, while recording them, allowing them to be replayed
+ * later on, in the same order, without running the tool again.
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ */
+public final class RecordingAnnotationListener implements AnnotationBlockListener
+{
+  // CONSTANTS
+
+  /** Denotes a call to {@link #clearAnnotations()} in the recording. */
+  private static final Object CLEAR_ALL = new Object();
+
+  // VARIABLES
+
+  private final AnnotationListener target;
+  /**
+   * The recorded calls, either {@link #CLEAR_ALL}, a channel index for which
+   * the annotations are cleared, or an annotation.
+   */
+  private final List<Object> recording;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new RecordingAnnotationListener instance.
+   *
+   * @param aTarget
+   *          the annotation listener to pass all calls on to, cannot be
+   *          <code>null</code>.
+   */
+  public RecordingAnnotationListener( final AnnotationListener aTarget )
+  {
+    if ( aTarget == null )
+    {
+      throw new IllegalArgumentException( "Target cannot be null!" );
+    }
+
+    this.target = aTarget;
+    this.recording = new ArrayList<Object>();
+  }
+
+  // METHODS
+
+  /**
+   * Replays the given recording on the given annotation listener.
+   *
+   * @param aRecording
+   *          the recording to replay, as obtained by {@link #getRecording()},
+   *          cannot be <code>null</code>;
+   * @param aTarget
+   *          the annotation listener to replay the recording on, cannot be
+   *          <code>null</code>.
+   */
+  public static void replay( final List<?> aRecording, final AnnotationListener aTarget )
+  {
+    for ( Object call : aRecording )
+    {
+      if ( call == CLEAR_ALL )
+      {
+        aTarget.clearAnnotations();
+      }
+      else if ( call instanceof Integer )
+      {
+        aTarget.clearAnnotations( ( ( Integer )call ).intValue() );
+      }
+      else
+      {
+        aTarget.onAnnotation( ( Annotation<?> )call );
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void clearAnnotations()
+  {
+    this.recording.add( CLEAR_ALL );
+
+    this.target.clearAnnotations();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void clearAnnotations( final int aChannelIdx )
+  {
+    this.recording.add( Integer.valueOf( aChannelIdx ) );
+
+    this.target.clearAnnotations( aChannelIdx );
+  }
+
+  /**
+   * Returns the calls recorded so far.
+   *
+   * @return a copy of the recording, never <code>null</code>.
+   * @see #replay(List, AnnotationListener)
+   */
+  public synchronized List<?> getRecording()
+  {
+    return new ArrayList<Object>( this.recording );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    this.recording.add( aAnnotation );
+
+    this.target.onAnnotation( aAnnotation );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void onAnnotations( final Collection<? extends Annotation<?>> aAnnotations )
+  {
+    this.recording.addAll( aAnnotations );
+
+    BatchingAnnotationListener.passOn( this.target, aAnnotations );
+  }
+}
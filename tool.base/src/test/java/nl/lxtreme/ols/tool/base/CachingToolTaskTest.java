@@ -0,0 +1,202 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.beans.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Test cases for {@link CachingToolTask}.
+ */
+public class CachingToolTaskTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a task that annotates the data and reports a detected setting.
+   */
+  static final class DetectingTask implements CacheableToolTask<String>
+  {
+    // VARIABLES
+
+    private final AnnotationListener annotationListener;
+    private final PropertyChangeSupport pcs;
+
+    private int callCount;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DetectingTask instance.
+     */
+    DetectingTask( final AnnotationListener aAnnotationListener )
+    {
+      this.annotationListener = aAnnotationListener;
+      this.pcs = new PropertyChangeSupport( this );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addPropertyChangeListener( final PropertyChangeListener aListener )
+    {
+      this.pcs.addPropertyChangeListener( aListener );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String call() throws Exception
+    {
+      this.callCount++;
+
+      this.annotationListener.onAnnotation( new ChannelLabelAnnotation( 0, "SCL" ) );
+      this.pcs.firePropertyChange( "detected", null, "LINE_A" );
+      return "result";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void firePropertyChange( final PropertyChangeEvent aEvent )
+    {
+      this.pcs.firePropertyChange( aEvent );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getConfiguration()
+    {
+      return "auto-detect";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removePropertyChangeListener( final PropertyChangeListener aListener )
+    {
+      this.pcs.removePropertyChangeListener( aListener );
+    }
+  }
+
+  // VARIABLES
+
+  private DecodeResultCache cache;
+  private ToolContext context;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.cache = new DecodeResultCache( Long.MAX_VALUE );
+
+    final AcquisitionResult data = new CapturedData( new int[] { 0, 1 }, new long[] { 0L, 1L }, Ols.NOT_AVAILABLE,
+        1000000, 8, 0xFF, 2L );
+    this.context = mock( ToolContext.class );
+    when( this.context.getData() ).thenReturn( data );
+    when( this.context.getEndSampleIndex() ).thenReturn( Integer.valueOf( 1 ) );
+    when( this.context.getEnabledChannels() ).thenReturn( Integer.valueOf( 0xFF ) );
+  }
+
+  /**
+   * Tests that a cached result is returned without running the task again,
+   * while its annotations and property changes are replayed.
+   */
+  @Test
+  public void testCacheHitReplaysAnnotationsAndPropertyChangesOk() throws Exception
+  {
+    final AnnotationListener annotationListener1 = mock( AnnotationListener.class );
+    final DetectingTask task1 = new DetectingTask( new RecordingAnnotationListener( annotationListener1 ) );
+    assertEquals( "result", createCachingTask( task1, annotationListener1 ).call() );
+
+    final AnnotationListener annotationListener2 = mock( AnnotationListener.class );
+    final PropertyChangeListener propertyListener = mock( PropertyChangeListener.class );
+    final DetectingTask task2 = new DetectingTask( new RecordingAnnotationListener( annotationListener2 ) );
+    task2.addPropertyChangeListener( propertyListener );
+
+    assertEquals( "result", createCachingTask( task2, annotationListener2 ).call() );
+    assertEquals( 0, task2.callCount );
+
+    verify( annotationListener2 ).onAnnotation( any( ChannelLabelAnnotation.class ) );
+
+    final ArgumentCaptor<PropertyChangeEvent> event = ArgumentCaptor.forClass( PropertyChangeEvent.class );
+    verify( propertyListener ).propertyChange( event.capture() );
+    assertSame( task2, event.getValue().getSource() );
+    assertEquals( "detected", event.getValue().getPropertyName() );
+    assertEquals( "LINE_A", event.getValue().getNewValue() );
+  }
+
+  /**
+   * Tests that a task is run in case its result is not cached, without keeping
+   * the listener it used to record the property changes.
+   */
+  @Test
+  public void testCacheMissRunsTaskOk() throws Exception
+  {
+    final AnnotationListener annotationListener = mock( AnnotationListener.class );
+    final PropertyChangeListener propertyListener = mock( PropertyChangeListener.class );
+    final DetectingTask task = new DetectingTask( new RecordingAnnotationListener( annotationListener ) );
+    task.addPropertyChangeListener( propertyListener );
+
+    assertEquals( "result", createCachingTask( task, annotationListener ).call() );
+    assertEquals( 1, task.callCount );
+
+    verify( annotationListener ).onAnnotation( any( ChannelLabelAnnotation.class ) );
+    verify( propertyListener ).propertyChange( any( PropertyChangeEvent.class ) );
+    assertEquals( 1, task.pcs.getPropertyChangeListeners().length );
+  }
+
+  /**
+   * Creates a caching task for the given task.
+   */
+  private CachingToolTask<String> createCachingTask( final DetectingTask aTask,
+      final AnnotationListener aAnnotationListener )
+  {
+    return new CachingToolTask<String>( this.cache, this.context, aTask,
+        ( RecordingAnnotationListener )aTask.annotationListener, aAnnotationListener );
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.beans.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link DecodeResultCache}.
+ */
+public class DecodeResultCacheTest
+{
+  // CONSTANTS
+
+  /** The weight of an entry without annotations for a capture of 4 samples. */
+  private static final long EMPTY_WEIGHT = 12L * 4;
+
+  // METHODS
+
+  /**
+   * Creates a capture of 4 samples with the given values.
+   */
+  private static AcquisitionResult createCapture( final int... aValues )
+  {
+    return new CapturedData( aValues, new long[] { 0L, 1L, 2L, 3L }, Ols.NOT_AVAILABLE, 1000000, 8, 0xFF, 3L );
+  }
+
+  /**
+   * Creates a tool context for the given capture and decode range.
+   */
+  private static ToolContext createContext( final AcquisitionResult aData, final int aStart, final int aEnd )
+  {
+    final ToolContext context = mock( ToolContext.class );
+    when( context.getData() ).thenReturn( aData );
+    when( context.getStartSampleIndex() ).thenReturn( Integer.valueOf( aStart ) );
+    when( context.getEndSampleIndex() ).thenReturn( Integer.valueOf( aEnd ) );
+    when( context.getEnabledChannels() ).thenReturn( Integer.valueOf( aData.getEnabledChannels() ) );
+    return context;
+  }
+
+  /**
+   * Creates a task with the given configuration.
+   */
+  private static CacheableToolTask<?> createTask( final String aConfiguration )
+  {
+    final CacheableToolTask<?> task = mock( CacheableToolTask.class );
+    when( task.getConfiguration() ).thenReturn( aConfiguration );
+    return task;
+  }
+
+  /**
+   * Tests that keys only depend on the content of the acquired data, the
+   * decode range and the task configuration.
+   */
+  @Test
+  public void testCreateKeyOk()
+  {
+    final DecodeResultCache cache = new DecodeResultCache( Long.MAX_VALUE );
+    final CacheableToolTask<?> task = createTask( "a" );
+
+    final DecodeResultCache.Key key = cache.createKey( createContext( createCapture( 1, 2, 3, 4 ), 0, 3 ), task );
+
+    // Another instance with the same content...
+    assertEquals( key, cache.createKey( createContext( createCapture( 1, 2, 3, 4 ), 0, 3 ), task ) );
+    assertEquals( key.hashCode(), cache.createKey( createContext( createCapture( 1, 2, 3, 4 ), 0, 3 ), task )
+        .hashCode() );
+
+    assertFalse( key.equals( cache.createKey( createContext( createCapture( 1, 2, 3, 5 ), 0, 3 ), task ) ) );
+    assertFalse( key.equals( cache.createKey( createContext( createCapture( 1, 2, 3, 4 ), 1, 3 ), task ) ) );
+    assertFalse( key.equals( cache.createKey( createContext( createCapture( 1, 2, 3, 4 ), 0, 3 ),
+        createTask( "b" ) ) ) );
+  }
+
+  /**
+   * Tests that looking up an entry marks it as most recently used, causing the
+   * least recently used entry to be evicted first.
+   */
+  @Test
+  public void testEvictLeastRecentlyUsedOk()
+  {
+    final DecodeResultCache cache = new DecodeResultCache( 2 * EMPTY_WEIGHT );
+    final ToolContext context = createContext( createCapture( 1, 2, 3, 4 ), 0, 3 );
+
+    final DecodeResultCache.Key key1 = cache.createKey( context, createTask( "1" ) );
+    final DecodeResultCache.Key key2 = cache.createKey( context, createTask( "2" ) );
+    final DecodeResultCache.Key key3 = cache.createKey( context, createTask( "3" ) );
+
+    cache.put( key1, context, "r1", Collections.emptyList(), Collections.<PropertyChangeEvent> emptyList() );
+    cache.put( key2, context, "r2", Collections.emptyList(), Collections.<PropertyChangeEvent> emptyList() );
+    assertEquals( "r1", cache.get( key1 ).getResult() );
+
+    cache.put( key3, context, "r3", Collections.emptyList(), Collections.<PropertyChangeEvent> emptyList() );
+
+    assertNotNull( cache.get( key1 ) );
+    assertNull( cache.get( key2 ) );
+    assertNotNull( cache.get( key3 ) );
+  }
+
+  /**
+   * Tests that as many entries are evicted as needed to make room for a heavy
+   * entry, and that entries heavier than the cache itself are not cached.
+   */
+  @Test
+  public void testEvictByWeightOk()
+  {
+    final DecodeResultCache cache = new DecodeResultCache( 4 * EMPTY_WEIGHT );
+    final ToolContext context = createContext( createCapture( 1, 2, 3, 4 ), 0, 3 );
+
+    final DecodeResultCache.Key key1 = cache.createKey( context, createTask( "1" ) );
+    final DecodeResultCache.Key key2 = cache.createKey( context, createTask( "2" ) );
+    final DecodeResultCache.Key key3 = cache.createKey( context, createTask( "3" ) );
+    final DecodeResultCache.Key key4 = cache.createKey( context, createTask( "4" ) );
+
+    cache.put( key1, context, "r1", Collections.emptyList(), Collections.<PropertyChangeEvent> emptyList() );
+    cache.put( key2, context, "r2", Collections.emptyList(), Collections.<PropertyChangeEvent> emptyList() );
+
+    // Weighs more than three empty entries...
+    cache.put( key3, context, "r3", Arrays.asList( "a", "b" ), Collections.<PropertyChangeEvent> emptyList() );
+
+    assertNull( cache.get( key1 ) );
+    assertNull( cache.get( key2 ) );
+    assertNotNull( cache.get( key3 ) );
+
+    // Weighs more than the cache itself...
+    cache.put( key4, context, "r4", Arrays.asList( "a", "b", "c", "d" ),
+        Collections.<PropertyChangeEvent> emptyList() );
+
+    assertNull( cache.get( key4 ) );
+    assertNotNull( cache.get( key3 ) );
+  }
+
+  /**
+   * Tests that the annotations and property changes are cached along with the
+   * result.
+   */
+  @Test
+  public void testPutAndGetOk()
+  {
+    final DecodeResultCache cache = new DecodeResultCache( Long.MAX_VALUE );
+    final ToolContext context = createContext( createCapture( 1, 2, 3, 4 ), 0, 3 );
+    final DecodeResultCache.Key key = cache.createKey( context, createTask( "a" ) );
+
+    final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+    events.add( new PropertyChangeEvent( this, "mode", null, "MODE1" ) );
+
+    assertNull( cache.get( key ) );
+
+    cache.put( key, context, "result", Arrays.asList( "a" ), events );
+    // Changes afterwards should not affect the cached entry...
+    events.clear();
+
+    final DecodeResultCache.Entry entry = cache.get( key );
+    assertNotNull( entry );
+    assertEquals( "result", entry.getResult() );
+    assertEquals( Arrays.asList( "a" ), entry.getAnnotations() );
+    assertEquals( 1, entry.getPropertyChanges().size() );
+    assertEquals( "MODE1", entry.getPropertyChanges().get( 0 ).getNewValue() );
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2012 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base.annotation;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Test cases for {@link RecordingAnnotationListener}.
+ */
+public class RecordingAnnotationListenerTest
+{
+  // VARIABLES
+
+  private AnnotationBlockListener target;
+  private RecordingAnnotationListener recorder;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.target = mock( AnnotationBlockListener.class );
+    this.recorder = new RecordingAnnotationListener( this.target );
+  }
+
+  /**
+   * Tests that all calls are passed on to the target listener.
+   */
+  @Test
+  public void testCallsArePassedOnOk()
+  {
+    final Annotation<?> annotation = new ChannelLabelAnnotation( 1, "SCL" );
+    final List<Annotation<?>> annotations = Arrays.<Annotation<?>> asList( annotation );
+
+    this.recorder.clearAnnotations();
+    this.recorder.clearAnnotations( 3 );
+    this.recorder.onAnnotation( annotation );
+    this.recorder.onAnnotations( annotations );
+
+    verify( this.target ).clearAnnotations();
+    verify( this.target ).clearAnnotations( 3 );
+    verify( this.target ).onAnnotation( annotation );
+    verify( this.target ).onAnnotations( annotations );
+  }
+
+  /**
+   * Tests that a block of annotations is passed on one by one to a target
+   * listener that cannot process blocks.
+   */
+  @Test
+  public void testBlockIsPassedOnOneByOneOk()
+  {
+    final Annotation<?> data1 = new SampleDataAnnotation( 0, 10L, 20L, "0x41" );
+    final Annotation<?> data2 = new SampleDataAnnotation( 0, 30L, 40L, "0x42" );
+
+    final AnnotationListener plainTarget = mock( AnnotationListener.class );
+    new RecordingAnnotationListener( plainTarget ).onAnnotations( Arrays.<Annotation<?>> asList( data1, data2 ) );
+
+    final InOrder inOrder = inOrder( plainTarget );
+    inOrder.verify( plainTarget ).onAnnotation( data1 );
+    inOrder.verify( plainTarget ).onAnnotation( data2 );
+    verifyNoMoreInteractions( plainTarget );
+  }
+
+  /**
+   * Tests that the recording is not affected by calls made after it is
+   * obtained.
+   */
+  @Test
+  public void testGetRecordingReturnsCopyOk()
+  {
+    this.recorder.clearAnnotations();
+
+    final List<?> recording = this.recorder.getRecording();
+    this.recorder.clearAnnotations( 1 );
+
+    assertEquals( 1, recording.size() );
+    assertEquals( 2, this.recorder.getRecording().size() );
+  }
+
+  /**
+   * Tests that replaying a recording repeats all calls in their original order,
+   * with multiple annotations replayed one by one.
+   */
+  @Test
+  public void testReplayInOrderOk()
+  {
+    final Annotation<?> label = new ChannelLabelAnnotation( 0, "SDA" );
+    final Annotation<?> data1 = new SampleDataAnnotation( 0, 10L, 20L, "0x41" );
+    final Annotation<?> data2 = new SampleDataAnnotation( 0, 30L, 40L, "0x42" );
+
+    this.recorder.clearAnnotations( 0 );
+    this.recorder.onAnnotation( label );
+    this.recorder.onAnnotations( Arrays.<Annotation<?>> asList( data1, data2 ) );
+    this.recorder.clearAnnotations();
+
+    final AnnotationListener replayTarget = mock( AnnotationListener.class );
+    RecordingAnnotationListener.replay( this.recorder.getRecording(), replayTarget );
+
+    final InOrder inOrder = inOrder( replayTarget );
+    inOrder.verify( replayTarget ).clearAnnotations( 0 );
+    inOrder.verify( replayTarget ).onAnnotation( label );
+    inOrder.verify( replayTarget ).onAnnotation( data1 );
+    inOrder.verify( replayTarget ).onAnnotation( data2 );
+    inOrder.verify( replayTarget ).clearAnnotations();
+    verifyNoMoreInteractions( replayTarget );
+  }
+}
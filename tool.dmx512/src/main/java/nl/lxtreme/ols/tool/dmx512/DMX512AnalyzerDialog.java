@@ -55,16 +55,124 @@ import org.osgi.framework.*;
  */
 public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> implements ExportAware<DMX512DataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides the table model for the decoded DMX512 data.
+   */
+  final class DMX512DataTableModel extends DataSetTableModel<DMX512Data, DMX512DataSet>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DMX512DataTableModel instance.
+     */
+    DMX512DataTableModel()
+    {
+      super( "Index", "Time", "Hex", "Bin", "Dec", "ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final DMX512DataSet aDataSet, final DMX512Data aData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return String.valueOf( aRowIndex );
+        case 1:
+          return Unit.Time.format( aDataSet.getTime( aData.getStartSampleIndex() ) );
+        default:
+          break;
+      }
+
+      final String eventName = aData.getEventName();
+      if ( eventName != null )
+      {
+        // error event...
+        if ( aColumnIndex != 2 )
+        {
+          return "";
+        }
+        if ( "FRAME".equals( eventName ) )
+        {
+          return "Frame error";
+        }
+        else if ( "PARITY".equals( eventName ) )
+        {
+          return "Parity error";
+        }
+        else if ( "START".equals( eventName ) )
+        {
+          return "Start error";
+        }
+        return eventName;
+      }
+
+      // normal symbol...
+      final int data = aData.getData();
+      switch ( aColumnIndex )
+      {
+        case 2:
+          return "0x" + integerToHexString( data, 2 );
+        case 3:
+          return "0b" + integerToBinString( data, 8 );
+        case 4:
+          return String.valueOf( data );
+        default:
+          return toASCII( data );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Color getRowColor( final DMX512DataSet aDataSet, final DMX512Data aData, final int aRowIndex )
+    {
+      final String eventName = aData.getEventName();
+      if ( "FRAME".equals( eventName ) )
+      {
+        return FRAME_ERROR_COLOR;
+      }
+      else if ( "PARITY".equals( eventName ) )
+      {
+        return PARITY_ERROR_COLOR;
+      }
+      else if ( "START".equals( eventName ) )
+      {
+        return START_ERROR_COLOR;
+      }
+      // symbol
+      return ( ( aRowIndex % 2 ) == 0 ) ? null : ODD_SYMBOL_COLOR;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
   private static final Logger LOG = Logger.getLogger( DMX512AnalyzerDialog.class.getName() );
 
+  static final Color FRAME_ERROR_COLOR = new Color( 0xff6600 );
+  static final Color PARITY_ERROR_COLOR = new Color( 0xff9900 );
+  static final Color START_ERROR_COLOR = new Color( 0xffcc00 );
+  static final Color ODD_SYMBOL_COLOR = new Color( 0xeeeeee );
+
   // VARIABLES
 
   private JComboBox dataLine;
-  private JEditorPane outText;
+  private DMX512DataTableModel tableModel;
+  private ResultsView resultsView;
 
   private RestorableAction runAnalysisAction;
   private Action closeAction;
@@ -128,8 +236,8 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel.setDataSet( null );
+    this.resultsView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -153,32 +261,20 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   @Override
   protected void onToolEnded( final DMX512DataSet aAnalysisResult )
   {
-    try
+    if ( aAnalysisResult != null )
     {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.resultsView.setSummary( String.format( "Decoded bytes: %d, detected bus errors: %d, number of slots: %d",
+          Integer.valueOf( aAnalysisResult.getDecodedSymbols() ),
+          Integer.valueOf( aAnalysisResult.getDetectedErrors() ), Integer.valueOf( aAnalysisResult.getSlotCount() ) ) );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
+      this.resultsView.setSummary( null );
     }
+
+    this.tableModel.setDataSet( aAnalysisResult );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -293,10 +389,10 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel = new DMX512DataTableModel();
+    this.resultsView = new ResultsView( this.tableModel );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultsView );
 
     return panTable;
   }
@@ -321,40 +417,6 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
     return settings;
   }
 
-  /**
-   * generate a HTML page
-   *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro )
-            || "baudrate".equals( aMacro ) )
-        {
-          return "-";
-        }
-        else if ( "decoded-data".equals( aMacro ) )
-        {
-          return null;
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    * Initializes this dialog.
    */
@@ -437,7 +499,7 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   {
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      toHtmlFile( aFile, aDataSet );
     }
     catch ( final IOException exception )
     {
@@ -450,13 +512,14 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
   }
 
   /**
-   * generate a HTML page
+   * Writes the given data set as HTML page to the given file.
    *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to;
+   * @param aDataSet
+   *          the data set to write.
    */
-  private String toHtmlPage( final File aFile, final DMX512DataSet aDataSet ) throws IOException
+  private void toHtmlFile( final File aFile, final DMX512DataSet aDataSet ) throws IOException
   {
     final int bitCount = 8;
     final int bitAdder = 0;
@@ -539,18 +602,8 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
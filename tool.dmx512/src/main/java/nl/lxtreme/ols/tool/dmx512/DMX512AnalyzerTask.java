@@ -22,6 +22,7 @@ package nl.lxtreme.ols.tool.dmx512;
 
 
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
@@ -82,7 +83,7 @@ public class DMX512AnalyzerTask implements ToolTask<DMX512DataSet>
   public DMX512DataSet call() throws Exception
   {
     final AcquisitionResult data = this.context.getData();
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
 
     int startOfDecode = this.context.getStartSampleIndex();
     final int endOfDecode = this.context.getEndSampleIndex();
@@ -90,10 +91,10 @@ public class DMX512AnalyzerTask implements ToolTask<DMX512DataSet>
     // find first state change on the selected lines
     final int mask = ( 1 << this.dataLine );
 
-    final int value = values[startOfDecode] & mask;
+    final int value = reader.getValue( startOfDecode ) & mask;
     for ( int i = startOfDecode + 1; i < endOfDecode; i++ )
     {
-      if ( value != ( values[i] & mask ) )
+      if ( value != ( reader.getValue( i ) & mask ) )
       {
         startOfDecode = i;
         break;
@@ -21,22 +21,161 @@
 package nl.lxtreme.ols.tool.i2c;
 
 
-import static nl.lxtreme.ols.util.NumberUtils.*;
-
 import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 
 
 /**
  * Performs the actual I2C analysis.
  */
-public class I2CAnalyserTask implements ToolTask<I2CDataSet>
+public class I2CAnalyserTask implements CacheableToolTask<I2CDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Keeps the state of the decoder between two sample indexes.
+   */
+  static final class DecoderState
+  {
+    // VARIABLES
+
+    int oldSCL;
+    int oldSDA;
+    int bitCount;
+    int byteValue;
+    int prevIdx;
+    boolean startCondFound;
+    boolean tenBitAddress;
+    int slaveAddress;
+    int direction;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DecoderState instance, as it is directly after a STOP
+     * condition.
+     * 
+     * @param aDataValue
+     *          the last sample value seen by the decoder;
+     * @param aSdaMask
+     *          the mask of the SDA line;
+     * @param aSclMask
+     *          the mask of the SCL line.
+     */
+    DecoderState( final int aDataValue, final int aSdaMask, final int aSclMask )
+    {
+      this.oldSCL = aDataValue & aSclMask;
+      this.oldSDA = aDataValue & aSdaMask;
+      this.bitCount = I2C_BITCOUNT;
+      this.byteValue = 0;
+      this.prevIdx = -1;
+      this.startCondFound = false;
+      this.tenBitAddress = false;
+      this.slaveAddress = 0x00;
+      this.direction = -1;
+    }
+
+    /**
+     * Creates a new DecoderState instance as copy of the given state.
+     */
+    DecoderState( final DecoderState aState )
+    {
+      this.oldSCL = aState.oldSCL;
+      this.oldSDA = aState.oldSDA;
+      this.bitCount = aState.bitCount;
+      this.byteValue = aState.byteValue;
+      this.prevIdx = aState.prevIdx;
+      this.startCondFound = aState.startCondFound;
+      this.tenBitAddress = aState.tenBitAddress;
+      this.slaveAddress = aState.slaveAddress;
+      this.direction = aState.direction;
+    }
+
+    // METHODS
+
+    /**
+     * Returns whether decoding from this state yields the same results as
+     * decoding from the given state.
+     * <p>
+     * The start index of a byte is only used after it has been set on a
+     * falling SCL edge, which always happens while waiting for the first bit of
+     * a byte. Hence, it only needs to be the same if a byte is partially
+     * decoded.
+     * </p>
+     */
+    boolean isEquivalentTo( final DecoderState aState )
+    {
+      return ( this.oldSCL == aState.oldSCL ) && ( this.oldSDA == aState.oldSDA )
+          && ( this.bitCount == aState.bitCount ) && ( this.byteValue == aState.byteValue )
+          && ( ( this.bitCount == I2C_BITCOUNT ) || ( this.prevIdx == aState.prevIdx ) )
+          && ( this.startCondFound == aState.startCondFound ) && ( this.tenBitAddress == aState.tenBitAddress )
+          && ( this.slaveAddress == aState.slaveAddress ) && ( this.direction == aState.direction );
+    }
+  }
+
+  /**
+   * Provides a segment of sample indexes that is decoded on its own.
+   */
+  final class Segment implements Callable<Segment>
+  {
+    // VARIABLES
+
+    final int startIdx;
+    final int endIdx;
+    final DecoderState entryState;
+
+    I2CDataSet dataSet;
+    BufferedAnnotationListener annotations;
+    DecoderState exitState;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Segment instance.
+     */
+    Segment( final int aStartIdx, final int aEndIdx, final DecoderState aEntryState )
+    {
+      this.startIdx = aStartIdx;
+      this.endIdx = aEndIdx;
+      this.entryState = aEntryState;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Segment call() throws Exception
+    {
+      decode( this.entryState );
+      return this;
+    }
+
+    /**
+     * Decodes this segment, starting with the given decoder state.
+     */
+    void decode( final DecoderState aState )
+    {
+      this.dataSet = new I2CDataSet( this.startIdx, this.endIdx, I2CAnalyserTask.this.context.getData() );
+      this.annotations = new BufferedAnnotationListener();
+      this.exitState = new DecoderState( aState );
+
+      I2CAnalyserTask.this.decode( this.dataSet, this.annotations, this.exitState, this.startIdx, this.endIdx,
+          null /* aProgressReporter */);
+    }
+  }
+
   // CONSTANTS
 
   public static final String LINE_A = "LineA";
@@ -70,6 +209,7 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   private int lineBidx;
   private int sdaIdx;
   private int sclIdx;
+  private int segmentLength;
 
   // CONSTRUCTORS
 
@@ -117,12 +257,7 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int[] values = data.getValues();
-    final long[] timestamps = data.getTimestamps();
-
-    // process the captured data and write to output
-    int oldSCL, oldSDA, bitCount;
-    int byteValue;
+    final SampleReader reader = new SampleReader( data );
 
     if ( LOG.isLoggable( Level.FINE ) )
     {
@@ -144,209 +279,85 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
       this.sdaIdx = this.lineBidx;
     }
 
-    final int sdaMask = ( 1 << this.sdaIdx );
-    final int sclMask = ( 1 << this.sclIdx );
-
     final I2CDataSet i2cDataSet = new I2CDataSet( startOfDecode, endOfDecode, data );
 
     // Prepare everything for the decoding results...
     prepareResults();
 
-    /*
-     * Now decode the bytes, SDA may only change when SCL is low. Otherwise it
-     * may be a repeated start condition or stop condition. If the start/stop
-     * condition is not at a byte boundary a bus error is detected. So we have
-     * to scan for SCL rises and for SDA changes during SCL is high. Each byte
-     * is followed by a 9th bit (ACK/NACK).
-     */
-    int idx = i2cDataSet.getStartOfDecode();
-    int prevIdx = -1;
-
-    oldSCL = values[idx] & sclMask;
-    oldSDA = values[idx] & sdaMask;
-
-    bitCount = I2C_BITCOUNT;
-    byteValue = 0;
-
-    boolean startCondFound = false;
-    boolean tenBitAddress = false;
-    int slaveAddress = 0x00;
-    int direction = -1;
+    final DecoderState state = new DecoderState( reader.getValue( startOfDecode ), ( 1 << this.sdaIdx ),
+        ( 1 << this.sclIdx ) );
 
     if ( this.detectSDA_SCL )
     {
       // We've just found our start condition, start the report with that...
       reportStartCondition( i2cDataSet, startOfDecode );
 
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[startOfDecode],
+      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, reader.getTimestamp( startOfDecode ),
           I2CDataSet.I2C_START ) );
 
-      startCondFound = true;
+      state.startCondFound = true;
     }
 
-    for ( ; idx < i2cDataSet.getEndOfDecode(); idx++ )
+    final List<Segment> segments = createSegments( reader, state, startOfDecode, endOfDecode );
+    if ( segments.size() == 1 )
     {
-      final int dataValue = values[idx];
-
-      final int sda = ( dataValue & sdaMask );
-      final int scl = ( dataValue & sclMask );
-
-      // detect SCL fall/rise
-      if ( oldSCL > scl )
+      final ProgressReporter progressReporter = ProgressReporter.create( this.progressListener, startOfDecode,
+          endOfDecode );
+      try
       {
-        // SCL falls
-        if ( ( prevIdx < 0 ) || ( bitCount == I2C_BITCOUNT ) )
-        {
-          prevIdx = idx;
-        }
-
-        if ( bitCount == 0 )
-        {
-          // store decoded byte
-          reportData( i2cDataSet, prevIdx, idx, byteValue );
-
-          final String annotation;
-          if ( startCondFound )
-          {
-            // This is the (7- or 10-bit) address part...
-            direction = ( byteValue & 0x01 );
-
-            if ( ( byteValue & 0xf8 ) == 0xf0 )
-            {
-              // 10-bit address part...
-              slaveAddress = ( byteValue & 0x06 ) << 6;
-              tenBitAddress = true;
-
-              annotation = String.format( "Setup %s 10-bit slave", ( direction == 1 ) ? "read from" : "write to" );
-            }
-            else
-            {
-              if ( tenBitAddress )
-              {
-                // 10-bit address needs the first few bits of the previous slave
-                // address, so OR-ing is needed here...
-                slaveAddress |= ( byteValue & 0xFF );
-              }
-              else
-              {
-                // 7-bit address, directly available. See issue #51
-                slaveAddress = ( ( byteValue >> 1 ) & 0xFF );
-              }
-              startCondFound = false;
-
-              annotation = String.format( tenBitAddress ? "Setup %s slave: 0x%X " : "Setup %s slave: 0x%X [0x%X]",
-                  ( direction == 1 ) ? "read from" : "write to", Integer.valueOf( slaveAddress ),
-                  Integer.valueOf( byteValue ) );
-
-              tenBitAddress = false;
-            }
-          }
-          else
-          {
-            annotation = String.format( "%s data: 0x%X (%c)", ( direction == 1 ) ? "Read" : "Write",
-                Integer.valueOf( byteValue ), Integer.valueOf( byteValue ) );
-          }
-
-          this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[prevIdx],
-              timestamps[idx], annotation ) );
-
-          byteValue = 0;
-        }
+        decode( i2cDataSet, this.annotationListener, state, startOfDecode, endOfDecode, progressReporter );
       }
-      else if ( scl > oldSCL )
+      finally
       {
-        // SCL rises
-        if ( sda != oldSDA )
-        {
-          reportBusError( i2cDataSet, idx );
-        }
-        else
-        {
-          // read SDA
-          if ( bitCount != 0 )
-          {
-            bitCount--;
-            if ( sda != 0 )
-            {
-              byteValue |= ( 1 << bitCount );
-            }
-          }
-          else
-          {
-            // read the confirmation of the slave...
-            if ( sda != 0 )
-            {
-              // NACK
-              reportNACK( i2cDataSet, idx );
-
-              this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                  I2CDataSet.I2C_NACK ) );
-            }
-            else
-            {
-              // ACK
-              reportACK( i2cDataSet, idx );
-
-              this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                  I2CDataSet.I2C_ACK ) );
-            }
-
-            // next byte
-            bitCount = I2C_BITCOUNT;
-            byteValue = 0;
-          }
-        }
+        progressReporter.close();
       }
+    }
+    else
+    {
+      // Decode all segments at once, and merge their results in order...
+      ParallelDecoding.invokeAll( segments, this.progressListener );
 
-      // detect SDA change when SCL high
-      if ( ( scl == sclMask ) && ( sda != oldSDA ) )
+      DecoderState previousState = state;
+      for ( Segment segment : segments )
       {
-        // SDA changes here
-        if ( ( bitCount > 0 ) && ( bitCount < ( I2C_BITCOUNT - 1 ) ) )
+        if ( !segment.entryState.isEquivalentTo( previousState ) )
         {
-          // bus error, no complete byte detected
-          reportBusError( i2cDataSet, idx );
+          // Our guess was wrong, decode this segment once more with the state
+          // the previous segment actually ended with...
+          LOG.log( Level.FINE, "Decoding segment at {0} again...", Integer.valueOf( segment.startIdx ) );
+          segment.decode( previousState );
         }
-        else
-        {
-          if ( sda > oldSDA )
-          {
-            // SDA rises, this is a stop condition
-            reportStopCondition( i2cDataSet, idx );
 
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                I2CDataSet.I2C_STOP ) );
+        i2cDataSet.addAll( segment.dataSet );
+        segment.annotations.flush( this.annotationListener );
 
-            slaveAddress = 0x00;
-            direction = -1;
-          }
-          else
-          {
-            // SDA falls, this is a start condition
-            reportStartCondition( i2cDataSet, idx );
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                I2CDataSet.I2C_START ) );
-
-            startCondFound = true;
-          }
-
-          // new byte
-          bitCount = I2C_BITCOUNT;
-          byteValue = 0;
-        }
+        previousState = segment.exitState;
       }
-
-      oldSCL = scl;
-      oldSDA = sda;
-
-      this.progressListener
-          .setProgress( getPercentage( idx, i2cDataSet.getStartOfDecode(), i2cDataSet.getEndOfDecode() ) );
     }
 
     return i2cDataSet;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void firePropertyChange( final PropertyChangeEvent aEvent )
+  {
+    this.pcs.firePropertyChange( aEvent );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getConfiguration()
+  {
+    return "lineA=" + this.lineAidx + ", lineB=" + this.lineBidx + ", detectSDA_SCL=" + this.detectSDA_SCL
+        + ", reportACK=" + this.reportACK + ", reportNACK=" + this.reportNACK + ", reportStart=" + this.reportStart
+        + ", reportStop=" + this.reportStop;
+  }
+
   /**
    * Removes the given property change listener.
    * 
@@ -433,6 +444,19 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
     return this.sdaIdx;
   }
 
+  /**
+   * Sets the number of samples that is at least decoded on its own, in case
+   * the decoding is split into multiple segments.
+   * 
+   * @param aSegmentLength
+   *          the segment length to use, or 0 to determine it from the number of
+   *          available processors.
+   */
+  final void setSegmentLength( final int aSegmentLength )
+  {
+    this.segmentLength = aSegmentLength;
+  }
+
   /**
    * Tries to auto detect the SDA & SCL lines between the given boundries in the
    * data.
@@ -448,74 +472,352 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   {
     final int dataMask = this.lineAmask | this.lineBmask;
 
-    final int[] values = aData.getValues();
+    final SampleReader reader = new SampleReader( aData );
+
+    final ProgressReporter progressReporter = ProgressReporter.create( this.progressListener, aStartOfDecode,
+        aEndOfDecode );
 
     int sampleIdx;
-    /*
-     * first of all scan both lines until they are high (IDLE), then the first
-     * line that goes low is the SDA line (START condition).
-     */
-    for ( sampleIdx = aStartOfDecode; sampleIdx < aEndOfDecode; sampleIdx++ )
+    try
     {
-      final int dataValue = values[sampleIdx];
+      /*
+       * first of all scan both lines until they are high (IDLE), then the first
+       * line that goes low is the SDA line (START condition).
+       */
+      for ( sampleIdx = aStartOfDecode; sampleIdx < aEndOfDecode; sampleIdx++ )
+      {
+        final int dataValue = reader.getValue( sampleIdx );
+
+        if ( ( dataValue & dataMask ) == dataMask )
+        {
+          // IDLE found here
+          break;
+        }
+
+        progressReporter.setPosition( sampleIdx );
+      }
+
+      if ( sampleIdx == aEndOfDecode )
+      {
+        // no idle state could be found
+        LOG.log( Level.WARNING, "No IDLE state found in data; aborting analysis..." );
+        throw new IllegalStateException( "No IDLE state found!" );
+      }
 
-      if ( ( dataValue & dataMask ) == dataMask )
+      // a is now the start of idle, now find the first start condition
+      for ( ; sampleIdx < aEndOfDecode; sampleIdx++ )
       {
-        // IDLE found here
-        break;
+        final int sample = reader.getValue( sampleIdx );
+        final int dataValue = sample & dataMask;
+
+        if ( ( dataValue != dataMask ) && ( dataValue != 0 ) )
+        {
+          final int lineAvalue = sample & this.lineAmask;
+          final int lineBvalue = sample & this.lineBmask;
+
+          // is one line low?
+          if ( ( lineAvalue == 0 ) && ( lineBvalue != 0 ) )
+          {
+            // lineA is low and lineB is high here: lineA = SDA, lineB = SCL
+            this.sdaIdx = this.lineAidx;
+            this.sclIdx = this.lineBidx;
+
+            break;
+          }
+          else if ( ( lineAvalue != 0 ) && ( lineBvalue == 0 ) )
+          {
+            // lineB is low and lineA is high here: lineA = SCL, lineB = SDA
+            this.sdaIdx = this.lineBidx;
+            this.sclIdx = this.lineAidx;
+
+            break;
+          }
+        }
+
+        progressReporter.setPosition( sampleIdx );
       }
 
-      this.progressListener.setProgress( getPercentage( sampleIdx, aStartOfDecode, aEndOfDecode ) );
+      if ( sampleIdx == aEndOfDecode )
+      {
+        // no start condition could be found
+        LOG.log( Level.WARNING, "No START condition found! Analysis aborted..." );
+        throw new IllegalStateException( "No START condition found!" );
+      }
+
+      return sampleIdx;
     }
+    finally
+    {
+      progressReporter.close();
+    }
+  }
 
-    if ( sampleIdx == aEndOfDecode )
+  /**
+   * Splits the given range of sample indexes into segments that can be decoded
+   * independently. Each segment, except for the first one, starts directly
+   * after a (presumed) STOP condition.
+   * 
+   * @param aReader
+   *          the reader providing the sample values to decode;
+   * @param aInitialState
+   *          the decoder state at the start of the given range;
+   * @param aStartIdx
+   *          the starting sample index;
+   * @param aEndIdx
+   *          the ending sample index.
+   * @return the segments to decode, never <code>null</code> or empty.
+   */
+  private List<Segment> createSegments( final SampleReader aReader, final DecoderState aInitialState,
+      final int aStartIdx, final int aEndIdx )
+  {
+    final int sdaMask = ( 1 << this.sdaIdx );
+    final int sclMask = ( 1 << this.sclIdx );
+
+    final int segmentLength = ( this.segmentLength > 0 ) ? this.segmentLength : ParallelDecoding
+        .getSegmentLength( aEndIdx - aStartIdx );
+
+    final List<Segment> result = new ArrayList<Segment>();
+
+    int segmentStartIdx = aStartIdx;
+    DecoderState segmentState = aInitialState;
+
+    for ( int idx = Math.max( aStartIdx + segmentLength, aStartIdx + 1 ); idx < ( aEndIdx - 1 ); idx++ )
     {
-      // no idle state could be found
-      LOG.log( Level.WARNING, "No IDLE state found in data; aborting analysis..." );
-      throw new IllegalStateException( "No IDLE state found!" );
+      final int dataValue = aReader.getValue( idx );
+      if ( ( ( dataValue & sclMask ) != 0 ) && ( ( dataValue & sdaMask ) != 0 )
+          && ( ( aReader.getValue( idx - 1 ) & sdaMask ) == 0 ) )
+      {
+        // SDA rises when SCL is high, presumably a stop condition...
+        result.add( new Segment( segmentStartIdx, idx + 1, segmentState ) );
+
+        segmentStartIdx = idx + 1;
+        segmentState = new DecoderState( dataValue, sdaMask, sclMask );
+
+        idx += segmentLength;
+      }
     }
 
-    // a is now the start of idle, now find the first start condition
-    for ( ; sampleIdx < aEndOfDecode; sampleIdx++ )
+    result.add( new Segment( segmentStartIdx, aEndIdx, segmentState ) );
+
+    return result;
+  }
+
+  /**
+   * Decodes the given range of sample indexes.
+   * 
+   * @param aDataSet
+   *          the data set to add the decoded data to;
+   * @param aAnnotationListener
+   *          the annotation listener to add the annotations to;
+   * @param aState
+   *          the decoder state to start with, will be updated to the decoder
+   *          state at the end of the given range;
+   * @param aStartIdx
+   *          the starting sample index;
+   * @param aEndIdx
+   *          the ending sample index;
+   * @param aProgressReporter
+   *          the reporter to report the progress of the decoding to, can be
+   *          <code>null</code> in case no progress is to be reported.
+   */
+  private void decode( final I2CDataSet aDataSet, final AnnotationListener aAnnotationListener,
+      final DecoderState aState, final int aStartIdx, final int aEndIdx, final ProgressReporter aProgressReporter )
+  {
+    final AcquisitionResult data = this.context.getData();
+
+    final SampleReader reader = new SampleReader( data );
+
+    final int sdaMask = ( 1 << this.sdaIdx );
+    final int sclMask = ( 1 << this.sclIdx );
+
+    /*
+     * Now decode the bytes, SDA may only change when SCL is low. Otherwise it
+     * may be a repeated start condition or stop condition. If the start/stop
+     * condition is not at a byte boundary a bus error is detected. So we have
+     * to scan for SCL rises and for SDA changes during SCL is high. Each byte
+     * is followed by a 9th bit (ACK/NACK).
+     */
+    int oldSCL = aState.oldSCL;
+    int oldSDA = aState.oldSDA;
+    int bitCount = aState.bitCount;
+    int byteValue = aState.byteValue;
+    int prevIdx = aState.prevIdx;
+    boolean startCondFound = aState.startCondFound;
+    boolean tenBitAddress = aState.tenBitAddress;
+    int slaveAddress = aState.slaveAddress;
+    int direction = aState.direction;
+
+    for ( int idx = aStartIdx; idx < aEndIdx; idx++ )
     {
-      final int sample = values[sampleIdx];
-      final int dataValue = sample & dataMask;
+      final int dataValue = reader.getValue( idx );
 
-      if ( ( dataValue != dataMask ) && ( dataValue != 0 ) )
+      final int sda = ( dataValue & sdaMask );
+      final int scl = ( dataValue & sclMask );
+
+      // detect SCL fall/rise
+      if ( oldSCL > scl )
       {
-        final int lineAvalue = sample & this.lineAmask;
-        final int lineBvalue = sample & this.lineBmask;
+        // SCL falls
+        if ( ( prevIdx < 0 ) || ( bitCount == I2C_BITCOUNT ) )
+        {
+          prevIdx = idx;
+        }
 
-        // is one line low?
-        if ( ( lineAvalue == 0 ) && ( lineBvalue != 0 ) )
+        if ( bitCount == 0 )
         {
-          // lineA is low and lineB is high here: lineA = SDA, lineB = SCL
-          this.sdaIdx = this.lineAidx;
-          this.sclIdx = this.lineBidx;
+          // store decoded byte
+          reportData( aDataSet, prevIdx, idx, byteValue );
 
-          break;
+          final String annotation;
+          if ( startCondFound )
+          {
+            // This is the (7- or 10-bit) address part...
+            direction = ( byteValue & 0x01 );
+
+            if ( ( byteValue & 0xf8 ) == 0xf0 )
+            {
+              // 10-bit address part...
+              slaveAddress = ( byteValue & 0x06 ) << 6;
+              tenBitAddress = true;
+
+              annotation = String.format( "Setup %s 10-bit slave", ( direction == 1 ) ? "read from" : "write to" );
+            }
+            else
+            {
+              if ( tenBitAddress )
+              {
+                // 10-bit address needs the first few bits of the previous slave
+                // address, so OR-ing is needed here...
+                slaveAddress |= ( byteValue & 0xFF );
+              }
+              else
+              {
+                // 7-bit address, directly available. See issue #51
+                slaveAddress = ( ( byteValue >> 1 ) & 0xFF );
+              }
+              startCondFound = false;
+
+              annotation = String.format( tenBitAddress ? "Setup %s slave: 0x%X " : "Setup %s slave: 0x%X [0x%X]",
+                  ( direction == 1 ) ? "read from" : "write to", Integer.valueOf( slaveAddress ),
+                  Integer.valueOf( byteValue ) );
+
+              tenBitAddress = false;
+            }
+          }
+          else
+          {
+            annotation = String.format( "%s data: 0x%X (%c)", ( direction == 1 ) ? "Read" : "Write",
+                Integer.valueOf( byteValue ), Integer.valueOf( byteValue ) );
+          }
+
+          aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, reader.getTimestamp( prevIdx ),
+              reader.getTimestamp( idx ), annotation ) );
+
+          byteValue = 0;
         }
-        else if ( ( lineAvalue != 0 ) && ( lineBvalue == 0 ) )
+      }
+      else if ( scl > oldSCL )
+      {
+        // SCL rises
+        if ( sda != oldSDA )
+        {
+          reportBusError( aDataSet, idx );
+        }
+        else
         {
-          // lineB is low and lineA is high here: lineA = SCL, lineB = SDA
-          this.sdaIdx = this.lineBidx;
-          this.sclIdx = this.lineAidx;
+          // read SDA
+          if ( bitCount != 0 )
+          {
+            bitCount--;
+            if ( sda != 0 )
+            {
+              byteValue |= ( 1 << bitCount );
+            }
+          }
+          else
+          {
+            // read the confirmation of the slave...
+            if ( sda != 0 )
+            {
+              // NACK
+              reportNACK( aDataSet, idx );
 
-          break;
+              aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, reader.getTimestamp( idx ),
+                  I2CDataSet.I2C_NACK ) );
+            }
+            else
+            {
+              // ACK
+              reportACK( aDataSet, idx );
+
+              aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, reader.getTimestamp( idx ),
+                  I2CDataSet.I2C_ACK ) );
+            }
+
+            // next byte
+            bitCount = I2C_BITCOUNT;
+            byteValue = 0;
+          }
         }
       }
 
-      this.progressListener.setProgress( getPercentage( sampleIdx, aStartOfDecode, aEndOfDecode ) );
-    }
+      // detect SDA change when SCL high
+      if ( ( scl == sclMask ) && ( sda != oldSDA ) )
+      {
+        // SDA changes here
+        if ( ( bitCount > 0 ) && ( bitCount < ( I2C_BITCOUNT - 1 ) ) )
+        {
+          // bus error, no complete byte detected
+          reportBusError( aDataSet, idx );
+        }
+        else
+        {
+          if ( sda > oldSDA )
+          {
+            // SDA rises, this is a stop condition
+            reportStopCondition( aDataSet, idx );
 
-    if ( sampleIdx == aEndOfDecode )
-    {
-      // no start condition could be found
-      LOG.log( Level.WARNING, "No START condition found! Analysis aborted..." );
-      throw new IllegalStateException( "No START condition found!" );
+            aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, reader.getTimestamp( idx ),
+                I2CDataSet.I2C_STOP ) );
+
+            slaveAddress = 0x00;
+            direction = -1;
+          }
+          else
+          {
+            // SDA falls, this is a start condition
+            reportStartCondition( aDataSet, idx );
+
+            aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, reader.getTimestamp( idx ),
+                I2CDataSet.I2C_START ) );
+
+            startCondFound = true;
+          }
+
+          // new byte
+          bitCount = I2C_BITCOUNT;
+          byteValue = 0;
+        }
+      }
+
+      oldSCL = scl;
+      oldSDA = sda;
+
+      if ( aProgressReporter != null )
+      {
+        aProgressReporter.setPosition( idx );
+      }
     }
 
-    return sampleIdx;
+    aState.oldSCL = oldSCL;
+    aState.oldSDA = oldSDA;
+    aState.bitCount = bitCount;
+    aState.byteValue = byteValue;
+    aState.prevIdx = prevIdx;
+    aState.startCondFound = startCondFound;
+    aState.tenBitAddress = tenBitAddress;
+    aState.slaveAddress = slaveAddress;
+    aState.direction = direction;
   }
 
   /**
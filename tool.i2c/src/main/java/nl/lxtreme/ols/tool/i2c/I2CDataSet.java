@@ -58,6 +58,33 @@ public final class I2CDataSet extends BaseDataSet<I2CData>
 
   // METHODS
 
+  /**
+   * Adds all data of the given data set to this data set, as if it were
+   * reported to this data set directly.
+   * 
+   * @param aDataSet
+   *          the data set to add the data of, cannot be <code>null</code>.
+   */
+  public void addAll( final I2CDataSet aDataSet )
+  {
+    for ( I2CData data : aDataSet.getData() )
+    {
+      final int idx = size();
+      if ( data.isEvent() )
+      {
+        addData( new I2CData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEventName() ) );
+      }
+      else
+      {
+        addData( new I2CData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEndSampleIndex(),
+            data.getValue() ) );
+      }
+    }
+
+    this.busErrors += aDataSet.busErrors;
+    this.decodedBytes += aDataSet.decodedBytes;
+  }
+
   /**
    * Returns the number of bus errors.
    * 
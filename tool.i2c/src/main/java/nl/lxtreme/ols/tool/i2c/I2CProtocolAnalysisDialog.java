@@ -61,19 +61,113 @@ import org.osgi.framework.*;
 public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet> implements ExportAware<I2CDataSet>,
     PropertyChangeListener
 {
+  // INNER TYPES
+
+  /**
+   * Provides the table model for the decoded I2C data.
+   */
+  final class I2CDataTableModel extends DataSetTableModel<I2CData, I2CDataSet>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new I2CDataTableModel instance.
+     */
+    I2CDataTableModel()
+    {
+      super( "Index", "Time", "Hex", "Bin", "Dec", "ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final I2CDataSet aDataSet, final I2CData aData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return String.valueOf( aRowIndex );
+        case 1:
+          return Unit.Time.format( aDataSet.getTime( aData.getStartSampleIndex() ) );
+        default:
+          break;
+      }
+
+      if ( aData.isEvent() )
+      {
+        return ( aColumnIndex == 2 ) ? aData.getEventName() : "";
+      }
+
+      final int value = aData.getValue();
+      switch ( aColumnIndex )
+      {
+        case 2:
+          return "0x" + integerToHexString( value, 2 );
+        case 3:
+          return "0b" + integerToBinString( value, 8 );
+        case 4:
+          return String.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Color getRowColor( final I2CDataSet aDataSet, final I2CData aData, final int aRowIndex )
+    {
+      if ( !aData.isEvent() )
+      {
+        return null;
+      }
+
+      final String event = aData.getEventName();
+      if ( I2CDataSet.I2C_START.equals( event ) || I2CDataSet.I2C_STOP.equals( event ) )
+      {
+        return START_STOP_COLOR;
+      }
+      else if ( I2CDataSet.I2C_ACK.equals( event ) )
+      {
+        return ACK_COLOR;
+      }
+      else if ( I2CDataSet.I2C_NACK.equals( event ) )
+      {
+        return NACK_COLOR;
+      }
+      // unknown event
+      return UNKNOWN_EVENT_COLOR;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
   private static final Logger LOG = Logger.getLogger( I2CProtocolAnalysisDialog.class.getName() );
 
+  static final Color START_STOP_COLOR = new Color( 0xe0e0e0 );
+  static final Color ACK_COLOR = new Color( 0xc0ffc0 );
+  static final Color NACK_COLOR = new Color( 0xffc0c0 );
+  static final Color UNKNOWN_EVENT_COLOR = new Color( 0xff8000 );
+
   // VARIABLES
 
   private JLabel lineALabel;
   private JComboBox lineA;
   private JLabel lineBLabel;
   private JComboBox lineB;
-  private JEditorPane outText;
+  private I2CDataTableModel tableModel;
+  private ResultsView resultsView;
   private JLabel busSetSCL;
   private JLabel busSetSDA;
   private JCheckBox detectSDA_SCL;
@@ -185,9 +279,8 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   @Override
   public void reset()
   {
-    final String emptyHtmlPage = getEmptyHtmlPage();
-    this.outText.setText( emptyHtmlPage );
-    this.outText.setEditable( false );
+    this.tableModel.setDataSet( null );
+    this.resultsView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -254,34 +347,22 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   @Override
   protected void onToolEnded( final I2CDataSet aAnalysisResult )
   {
-    try
+    if ( aAnalysisResult != null )
     {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.resultsView.setSummary( String.format( "Decoded bytes: %d, detected bus errors: %d",
+          Integer.valueOf( aAnalysisResult.getDecodedByteCount() ),
+          Integer.valueOf( aAnalysisResult.getBusErrorCount() ) ) );
+      this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // This should not happen for the no-file exports!
-        throw new RuntimeException( exception );
-      }
+      this.resultsView.setSummary( null );
+      this.exportAction.setEnabled( false );
     }
+
+    this.tableModel.setDataSet( aAnalysisResult );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -388,10 +469,10 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   {
     final JPanel output = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel = new I2CDataTableModel();
+    this.resultsView = new ResultsView( this.tableModel );
 
-    output.add( new JScrollPane( this.outText ) );
+    output.add( this.resultsView );
 
     return output;
   }
@@ -468,37 +549,6 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
     return panel;
   }
 
-  /**
-   * Returns an "empty" HTML page.
-   *
-   * @return an empty HTML page string, never <code>null</code>.
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "sda-bus-config".equals( aMacro ) || "scl-bus-config".equals( aMacro ) )
-        {
-          return "&lt;auto detect&gt;";
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro ) )
-        {
-          return "-";
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    *
    */
@@ -584,7 +634,7 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   {
     try
     {
-      toHtmlPage( aSelectedFile, aAnalysisResult );
+      toHtmlFile( aSelectedFile, aAnalysisResult );
     }
     catch ( final IOException exception )
     {
@@ -597,13 +647,14 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   }
 
   /**
-   * generate a HTML page
+   * Writes the given analysis results as HTML page to the given file.
    *
-   * @param aEmpty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to;
+   * @param aAnalysisResult
+   *          the analysis results to write.
    */
-  private String toHtmlPage( final File aFile, final I2CDataSet aAnalysisResult ) throws IOException
+  private void toHtmlFile( final File aFile, final I2CDataSet aAnalysisResult ) throws IOException
   {
     final MacroResolver macroResolver = new MacroResolver()
     {
@@ -691,18 +742,8 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
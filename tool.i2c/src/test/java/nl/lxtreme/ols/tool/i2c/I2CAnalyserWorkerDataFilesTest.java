@@ -27,7 +27,7 @@ import java.net.*;
 import java.util.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
-import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.test.*;
 import nl.lxtreme.ols.test.data.*;
@@ -147,6 +147,27 @@ public class I2CAnalyserWorkerDataFilesTest
     assertDataCount( result, this.expectedDatagramCount );
   }
 
+  /**
+   * Tests that decoding the data file in segments yields the same results as
+   * decoding it in one go.
+   */
+  @Test
+  public void testAnalyzeDataFileInSegments() throws Exception
+  {
+    final List<String> expectedAnnotations = new ArrayList<String>();
+    final I2CDataSet expected = analyseDataFile( this.resourceName, 0,
+        DataTestUtils.createAnnotationListener( expectedAnnotations ) );
+
+    final List<String> actualAnnotations = new ArrayList<String>();
+    final I2CDataSet actual = analyseDataFile( this.resourceName, 100,
+        DataTestUtils.createAnnotationListener( actualAnnotations ) );
+
+    assertEquals( expected.getData(), actual.getData() );
+    assertEquals( expected.getBusErrorCount(), actual.getBusErrorCount() );
+    assertEquals( expected.getDecodedByteCount(), actual.getDecodedByteCount() );
+    assertEquals( expectedAnnotations, actualAnnotations );
+  }
+
   /**
    * Analyses the data file identified by the given resource name.
    * 
@@ -158,15 +179,31 @@ public class I2CAnalyserWorkerDataFilesTest
    *           in case of exceptions.
    */
   private I2CDataSet analyseDataFile( final String aResourceName ) throws Exception
+  {
+    return analyseDataFile( aResourceName, 0, Mockito.mock( AnnotationListener.class ) );
+  }
+
+  /**
+   * Analyses the data file identified by the given resource name.
+   * 
+   * @param aResourceName
+   *          the name of the resource (= data file) to analyse, cannot be
+   *          <code>null</code>.
+   * @return the analysis results, never <code>null</code>.
+   * @throws Exception
+   *           in case of exceptions.
+   */
+  private I2CDataSet analyseDataFile( final String aResourceName, final int aSegmentLength,
+      final AnnotationListener aAnnotationListener ) throws Exception
   {
     URL resource = ResourceUtils.getResource( getClass(), aResourceName );
     AcquisitionResult container = DataTestUtils.getCapturedData( resource );
     ToolContext toolContext = DataTestUtils.createToolContext( container );
 
     ToolProgressListener progressListener = Mockito.mock( ToolProgressListener.class );
-    AnnotationListener annotationListener = Mockito.mock( AnnotationListener.class );
 
-    I2CAnalyserTask worker = new I2CAnalyserTask( toolContext, progressListener, annotationListener );
+    I2CAnalyserTask worker = new I2CAnalyserTask( toolContext, progressListener, aAnnotationListener );
+    worker.setSegmentLength( aSegmentLength );
     worker.setLineAIndex( this.lineAidx );
     worker.setLineBIndex( this.lineBidx );
     worker.setDetectSDA_SCL( this.autoDetectSDA );
@@ -57,19 +57,121 @@ import org.osgi.framework.*;
  */
 public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet> implements ExportAware<JTAGDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Provides the table model for the decoded JTAG data.
+   */
+  static final class JTAGDataTableModel extends DataSetTableModel<JTAGData, JTAGDataSet>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new JTAGDataTableModel instance.
+     */
+    JTAGDataTableModel()
+    {
+      super( "Index", "Time", "State", "TDI Hex", "TDI Bin", "TDO Hex", "TDO Bin" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final JTAGDataSet aDataSet, final List<JTAGData> aRowData,
+        final int aRowIndex, final int aColumnIndex )
+    {
+      // Take the TDI and TDO values from the data item that provides them...
+      final boolean tdiColumn = ( aColumnIndex < 5 );
+      JTAGData data = aRowData.get( 0 );
+      for ( int i = 1; ( aColumnIndex >= 3 ) && ( i < aRowData.size() ); i++ )
+      {
+        final JTAGData candidate = aRowData.get( i );
+        if ( ( tdiColumn && candidate.isTdiData() ) || ( !tdiColumn && candidate.isTdoData() ) )
+        {
+          data = candidate;
+        }
+      }
+      return getColumnValue( aDataSet, data, aRowIndex, aColumnIndex );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final JTAGDataSet aDataSet, final JTAGData aData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return String.valueOf( aRowIndex );
+        case 1:
+          return Unit.Time.format( aDataSet.getTime( aData.getStartSampleIndex() ) );
+        case 2:
+          return aData.isEvent() ? String.valueOf( aData.getDataValue() ) : aData.getEventName();
+        default:
+          break;
+      }
+
+      // TDI values first, TDO values next...
+      final boolean tdiColumn = ( aColumnIndex < 5 );
+      if ( aData.isEvent() || ( tdiColumn && !aData.isTdiData() ) || ( !tdiColumn && !aData.isTdoData() ) )
+      {
+        return "";
+      }
+
+      final BigInteger value = ( BigInteger )aData.getDataValue();
+      if ( ( aColumnIndex % 2 ) != 0 )
+      {
+        return "0x" + value.toString( 16 );
+      }
+      return "0b" + value.toString( 2 );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isSameRow( final JTAGData aPrevious, final JTAGData aData )
+    {
+      // Show TDI and TDO values decoded at the same sample index in one row...
+      return !aPrevious.isEvent() && !aData.isEvent()
+          && ( aPrevious.getStartSampleIndex() == aData.getStartSampleIndex() )
+          && ( ( aPrevious.isTdiData() != aData.isTdiData() ) || ( aPrevious.isTdoData() != aData.isTdoData() ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Color getRowColor( final JTAGDataSet aDataSet, final JTAGData aData, final int aRowIndex )
+    {
+      return aData.isEvent() ? EVENT_COLOR : null;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
   private static final Logger LOG = Logger.getLogger( JTAGProtocolAnalysisDialog.class.getName() );
 
+  static final Color EVENT_COLOR = new Color( 0xfefeff );
+
   // VARIABLES
 
   private JComboBox tck;
   private JComboBox tdo;
   private JComboBox tdi;
   private JComboBox tms;
-  private JEditorPane outText;
+  private JTAGDataTableModel tableModel;
 
   private RestorableAction runAnalysisAction;
   private Action exportAction;
@@ -134,8 +236,7 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel.setDataSet( null );
 
     this.runAnalysisAction.restore();
 
@@ -161,34 +262,18 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   @Override
   protected void onToolEnded( final JTAGDataSet aAnalysisResult )
   {
-    try
+    if ( aAnalysisResult != null )
     {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
+      this.exportAction.setEnabled( false );
     }
+
+    this.tableModel.setDataSet( aAnalysisResult );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -299,10 +384,9 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel = new JTAGDataTableModel();
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( new ResultsView( this.tableModel ) );
 
     return panTable;
   }
@@ -339,29 +423,6 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
     return settings;
   }
 
-  /**
-   * Generates an empty HTML page.
-   *
-   * @return String with HTML data.
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    * Initializes this dialog.
    */
@@ -470,7 +531,7 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   {
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      toHtmlFile( aFile, aDataSet );
     }
     catch ( final IOException exception )
     {
@@ -483,14 +544,15 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   }
 
   /**
-   * generate a HTML page
+   * Writes the given analysis results as HTML page to the given file.
    *
-   * @param aDataSet
-   *          the data set to create the HTML page for, cannot be
+   * @param aFile
+   *          the file to write to;
+   * @param aAnalysisResult
+   *          the analysis results to create the HTML page for, cannot be
    *          <code>null</code>.
-   * @return String with HTML data
    */
-  private String toHtmlPage( final File aFile, final JTAGDataSet aAnalysisResult ) throws IOException
+  private void toHtmlFile( final File aFile, final JTAGDataSet aAnalysisResult ) throws IOException
   {
     LOG.log( Level.INFO, "toHtmlPage" );
 
@@ -585,18 +647,8 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
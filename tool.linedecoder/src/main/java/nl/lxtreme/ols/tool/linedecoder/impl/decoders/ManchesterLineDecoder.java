@@ -67,8 +67,7 @@ public class ManchesterLineDecoder implements LineDecoder
   {
     final AcquisitionResult inputData = aContext.getData();
 
-    final int[] values = inputData.getValues();
-    final long[] timestamps = inputData.getTimestamps();
+    final SampleReader reader = new SampleReader( inputData );
 
     final int dataIdx = aContext.getLineChannels()[0];
     final int clockIdx = dataIdx >= 1 ? dataIdx - 1 : dataIdx + 1; // XXX
@@ -81,7 +80,7 @@ public class ManchesterLineDecoder implements LineDecoder
 
     int startIdx = aContext.getStartSampleIndex();
     int endIdx = aContext.getEndSampleIndex();
-    int lastValue = values[startIdx] & dataMask;
+    int lastValue = reader.getValue( startIdx ) & dataMask;
 
     long symbolStartTime = -1L;
     long lastTimestamp = -1L;
@@ -96,7 +95,7 @@ public class ManchesterLineDecoder implements LineDecoder
 
     for ( int i = startIdx; i < endIdx; i++ )
     {
-      int value = values[i] & dataMask;
+      int value = reader.getValue( i ) & dataMask;
 
       long clockEdge = -1L;
 
@@ -108,7 +107,7 @@ public class ManchesterLineDecoder implements LineDecoder
           // First rising or falling edge; take its timestamp and do not do
           // anything yet, we need another edge to fully start the decoding
           // process...
-          lastTimestamp = timestamps[i];
+          lastTimestamp = reader.getTimestamp( i );
           symbolStartTime = lastTimestamp;
           firstSignalEdge = lastTimestamp;
         }
@@ -116,7 +115,7 @@ public class ManchesterLineDecoder implements LineDecoder
         {
           // Either a falling or rising edge; take the time between the former
           // edge and this edge.
-          long diff = timestamps[i] - lastTimestamp;
+          long diff = reader.getTimestamp( i ) - lastTimestamp;
 
           if ( halfCycle < 0L )
           {
@@ -139,7 +138,7 @@ public class ManchesterLineDecoder implements LineDecoder
               // Only the even edges are considered a clock edge...
               if ( ( edgeCounter % 2 ) == 0 )
               {
-                clockEdge = timestamps[i];
+                clockEdge = reader.getTimestamp( i );
               }
               edgeCounter++;
             }
@@ -150,19 +149,19 @@ public class ManchesterLineDecoder implements LineDecoder
 
               // The clock edge should have appeared halfCycle before the
               // current timestamp...
-              clockEdge = timestamps[i] - halfCycle;
+              clockEdge = reader.getTimestamp( i ) - halfCycle;
               // We've missed a clock edge, so increase the counter by 2...
               edgeCounter += 2;
             }
           }
 
-          lastTimestamp = timestamps[i];
+          lastTimestamp = reader.getTimestamp( i );
         }
       }
 
       if ( clockEdge >= 0L )
       {
-        int sampleValue = getDataValue( aContext, clockEdge );
+        int sampleValue = getDataValue( aContext, reader, clockEdge );
 
         symbol <<= 1;
         bitCount++;
@@ -190,7 +189,7 @@ public class ManchesterLineDecoder implements LineDecoder
       lastTimestamp += halfCycle;
       // Since there's no more signal transitions; we simply determine the last
       // bit value and use that for the missing bits...
-      int sampleValue = getDataValue( aContext, lastTimestamp );
+      int sampleValue = getDataValue( aContext, reader, lastTimestamp );
       while ( bitCount++ < symbolSize )
       {
         // To determine where the symbol ends...
@@ -212,15 +211,15 @@ public class ManchesterLineDecoder implements LineDecoder
     System.out.println( "Clock signal = " + format );
 
     SortedMap<Long, Integer> newSamples = new TreeMap<Long, Integer>();
-    for ( int i = 0; i < values.length; i++ )
+    for ( int i = 0; i < reader.getSampleCount(); i++ )
     {
-      newSamples.put( timestamps[i], values[i] );
+      newSamples.put( reader.getTimestamp( i ), reader.getValue( i ) );
     }
 
     boolean clockLow = false;
     for ( long time = firstSignalEdge + halfCycle; time < lastTimestamp; time += halfCycle )
     {
-      int sampleValue = getDataValue( aContext, time );
+      int sampleValue = getDataValue( aContext, reader, time );
       if ( clockLow )
       {
         sampleValue &= ~clockMask;
@@ -263,10 +262,10 @@ public class ManchesterLineDecoder implements LineDecoder
       newTimestamps.add( entry.getKey() );
     }
 
-    for ( int i = endIdx; i < values.length; i++ )
+    for ( int i = endIdx; i < reader.getSampleCount(); i++ )
     {
-      newValues.add( values[i] );
-      newTimestamps.add( timestamps[i] );
+      newValues.add( reader.getValue( i ) );
+      newTimestamps.add( reader.getTimestamp( i ) );
     }
 
     long absoluteLength = newTimestamps.get( newTimestamps.size() - 1 );
@@ -296,24 +295,25 @@ public class ManchesterLineDecoder implements LineDecoder
   /**
    * Returns the data value for the given time stamp.
    * 
+   * @param aReader
+   *          the reader providing the sample values and timestamps;
    * @param aTimeValue
    *          the time stamp to return the data value for.
    * @return the data value of the sample index right before the given time
    *         value.
    */
-  protected final int getDataValue( final LineDecoderToolContext aContext, final long aTimeValue )
+  protected final int getDataValue( final LineDecoderToolContext aContext, final SampleReader aReader,
+      final long aTimeValue )
   {
-    final AcquisitionResult inputData = aContext.getData();
-    final int[] values = inputData.getValues();
-    final long[] timestamps = inputData.getTimestamps();
-
-    int k = Arrays.binarySearch( timestamps, aTimeValue );
-    if ( k < 0 )
+    // The sample index is clamped to the last sample, so only step back if the
+    // sample at this index does not lie before the given time value...
+    int k = aContext.getData().getSampleIndex( aTimeValue );
+    if ( ( k > 0 ) && ( aReader.getTimestamp( k ) >= aTimeValue ) )
     {
-      k = -( k + 1 );
+      k--;
     }
 
-    return ( ( k == 0 ) ? values[0] : values[k - 1] );
+    return aReader.getValue( k );
   }
 
   /**
@@ -22,6 +22,7 @@ package nl.lxtreme.ols.tool.linedecoder.impl.decoders;
 
 
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
@@ -63,8 +64,7 @@ public class NonReturnToZeroDecoder implements LineDecoder
   {
     final AcquisitionResult inputData = aContext.getData();
 
-    final int[] values = inputData.getValues();
-    final long[] timestamps = inputData.getTimestamps();
+    final SampleReader reader = new SampleReader( inputData );
 
     final int dataIdx = aContext.getLineChannels()[0];
     final int clockIdx = aContext.getLineChannels()[1];
@@ -84,7 +84,7 @@ public class NonReturnToZeroDecoder implements LineDecoder
 
     for ( int i = startIdx; i < endIdx; i++ )
     {
-      int clockValue = values[i] & clockMask;
+      int clockValue = reader.getValue( i ) & clockMask;
 
       if ( clockValue != 0 )
       {
@@ -93,7 +93,7 @@ public class NonReturnToZeroDecoder implements LineDecoder
           symbolStartIdx = i;
         }
 
-        int dataValue = values[i] & dataMask;
+        int dataValue = reader.getValue( i ) & dataMask;
 
         symbol <<= 1;
         if ( dataValue != 0 )
@@ -104,8 +104,8 @@ public class NonReturnToZeroDecoder implements LineDecoder
 
         if ( bitCount == symbolSize )
         {
-          aAnnotationListener.onAnnotation( createAnnotation( dataIdx, timestamps[symbolStartIdx], timestamps[i],
-              symbol ) );
+          aAnnotationListener.onAnnotation( createAnnotation( dataIdx, reader.getTimestamp( symbolStartIdx ),
+              reader.getTimestamp( i ), symbol ) );
 
           symbol = 0;
           bitCount = 0;
@@ -24,12 +24,16 @@ package nl.lxtreme.ols.tool.spi;
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
 import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
@@ -39,8 +43,142 @@ import nl.lxtreme.ols.util.analysis.*;
 /**
  * Provides a task for analyzing SPI traces.
  */
-public class SPIAnalyserTask implements ToolTask<SPIDataSet>
+public class SPIAnalyserTask implements CacheableToolTask<SPIDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Keeps the state of the decoder between two sample indexes.
+   */
+  static final class DecoderState
+  {
+    // VARIABLES
+
+    int oldSckValue;
+    int oldCsValue;
+    boolean slaveSelected;
+    int dataStartIdx;
+    int bitIdx;
+    int clockEdgeIdx;
+    int misovalue;
+    int mosivalue;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DecoderState instance, waiting for the first bit of a
+     * datagram.
+     * 
+     * @param aDataSample
+     *          the last sample value seen by the decoder;
+     * @param aSckMask
+     *          the mask of the clock line;
+     * @param aCsMask
+     *          the mask of the chip-select line;
+     * @param aBitCount
+     *          the number of bits in a datagram.
+     */
+    DecoderState( final int aDataSample, final int aSckMask, final int aCsMask, final int aBitCount )
+    {
+      this.oldSckValue = aDataSample & aSckMask;
+      this.oldCsValue = aDataSample & aCsMask;
+      this.bitIdx = aBitCount;
+      this.clockEdgeIdx = 0;
+      this.misovalue = 0;
+      this.mosivalue = 0;
+    }
+
+    /**
+     * Creates a new DecoderState instance as copy of the given state.
+     */
+    DecoderState( final DecoderState aState )
+    {
+      this.oldSckValue = aState.oldSckValue;
+      this.oldCsValue = aState.oldCsValue;
+      this.slaveSelected = aState.slaveSelected;
+      this.dataStartIdx = aState.dataStartIdx;
+      this.bitIdx = aState.bitIdx;
+      this.clockEdgeIdx = aState.clockEdgeIdx;
+      this.misovalue = aState.misovalue;
+      this.mosivalue = aState.mosivalue;
+    }
+
+    // METHODS
+
+    /**
+     * Returns whether decoding from this state yields the same results as
+     * decoding from the given state.
+     * <p>
+     * The start index of a datagram is always set on the first sampling clock
+     * edge before any bit is decoded. Hence, it only needs to be the same if a
+     * datagram is partially decoded.
+     * </p>
+     */
+    boolean isEquivalentTo( final DecoderState aState, final int aBitCount )
+    {
+      return ( this.oldSckValue == aState.oldSckValue ) && ( this.oldCsValue == aState.oldCsValue )
+          && ( this.slaveSelected == aState.slaveSelected ) && ( this.bitIdx == aState.bitIdx )
+          && ( ( ( this.bitIdx == aBitCount ) && ( aBitCount > 0 ) ) || ( this.dataStartIdx == aState.dataStartIdx ) )
+          && ( this.clockEdgeIdx == aState.clockEdgeIdx ) && ( this.misovalue == aState.misovalue )
+          && ( this.mosivalue == aState.mosivalue );
+    }
+  }
+
+  /**
+   * Provides a segment of sample indexes that is decoded on its own.
+   */
+  final class Segment implements Callable<Segment>
+  {
+    // VARIABLES
+
+    final SPIMode mode;
+    final int startIdx;
+    final int endIdx;
+    final DecoderState entryState;
+
+    SPIDataSet dataSet;
+    BufferedAnnotationListener annotations;
+    DecoderState exitState;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Segment instance.
+     */
+    Segment( final SPIMode aMode, final int aStartIdx, final int aEndIdx, final DecoderState aEntryState )
+    {
+      this.mode = aMode;
+      this.startIdx = aStartIdx;
+      this.endIdx = aEndIdx;
+      this.entryState = aEntryState;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Segment call() throws Exception
+    {
+      decode( this.entryState );
+      return this;
+    }
+
+    /**
+     * Decodes this segment, starting with the given decoder state.
+     */
+    void decode( final DecoderState aState )
+    {
+      this.dataSet = new SPIDataSet( this.startIdx, this.endIdx, SPIAnalyserTask.this.context.getData() );
+      this.annotations = new BufferedAnnotationListener();
+      this.exitState = new DecoderState( aState );
+
+      SPIAnalyserTask.this.decode( this.dataSet, this.annotations, this.mode, this.exitState, this.startIdx,
+          this.endIdx, null /* aProgressReporter */);
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( SPIAnalyserTask.class.getName() );
@@ -67,6 +205,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   private int misoIdx;
   private int io2Idx;
   private int io3Idx;
+  private int segmentLength;
 
   // CONSTRUCTORS
 
@@ -159,6 +298,27 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     return decodedData;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void firePropertyChange( final PropertyChangeEvent aEvent )
+  {
+    this.pcs.firePropertyChange( aEvent );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getConfiguration()
+  {
+    return "cs=" + this.csIdx + ", sck=" + this.sckIdx + ", io0=" + this.mosiIdx + ", io1=" + this.misoIdx + ", io2="
+        + this.io2Idx + ", io3=" + this.io3Idx + ", protocol=" + this.protocol + ", mode=" + this.spiMode + ", bits="
+        + this.bitCount + ", order=" + this.bitOrder + ", reportCS=" + this.reportCS + ", honourCS=" + this.honourCS
+        + ", invertCS=" + this.invertCS;
+  }
+
   /**
    * Removes the given property change listener.
    * 
@@ -317,6 +477,19 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     this.spiMode = aMode;
   }
 
+  /**
+   * Sets the number of samples that is at least decoded on its own, in case
+   * the decoding is split into multiple segments.
+   * 
+   * @param aSegmentLength
+   *          the segment length to use, or 0 to determine it from the number of
+   *          available processors.
+   */
+  final void setSegmentLength( final int aSegmentLength )
+  {
+    this.segmentLength = aSegmentLength;
+  }
+
   /**
    * Decodes the SPI-data on a given clock edge.
    * 
@@ -327,14 +500,143 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    *          on which edges data can change.
    */
   private void clockDataOnEdge( final SPIDataSet aDataSet, final SPIMode aMode, final int aSlaveSelectedIdx )
+      throws Exception
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
 
     final int startOfDecode = Math.max( aSlaveSelectedIdx, aDataSet.getStartOfDecode() );
     final int endOfDecode = aDataSet.getEndOfDecode();
 
+    final DecoderState state = new DecoderState( reader.getValue( startOfDecode ), ( 1 << this.sckIdx ),
+        ( 1 << this.csIdx ), this.bitCount );
+    state.slaveSelected = true;
+    state.dataStartIdx = startOfDecode;
+
+    final List<Segment> segments = createSegments( reader, aMode, state, startOfDecode + 1, endOfDecode );
+    if ( segments.size() == 1 )
+    {
+      final ProgressReporter progressReporter = ProgressReporter.create( this.progressListener, startOfDecode + 1,
+          endOfDecode );
+      try
+      {
+        decode( aDataSet, this.annotationListener, aMode, state, startOfDecode + 1, endOfDecode, progressReporter );
+      }
+      finally
+      {
+        progressReporter.close();
+      }
+      return;
+    }
+
+    // Decode all segments at once, and merge their results in order...
+    ParallelDecoding.invokeAll( segments, this.progressListener );
+
+    DecoderState previousState = state;
+    for ( Segment segment : segments )
+    {
+      if ( !segment.entryState.isEquivalentTo( previousState, this.bitCount ) )
+      {
+        // Our guess was wrong, decode this segment once more with the state the
+        // previous segment actually ended with...
+        LOG.log( Level.FINE, "Decoding segment at {0} again...", Integer.valueOf( segment.startIdx ) );
+        segment.decode( previousState );
+      }
+
+      aDataSet.addAll( segment.dataSet );
+      segment.annotations.flush( this.annotationListener );
+
+      previousState = segment.exitState;
+    }
+  }
+
+  /**
+   * Splits the given range of sample indexes into segments that can be decoded
+   * independently. Each segment, except for the first one, starts directly
+   * after the chip-select line goes high.
+   * 
+   * @param aReader
+   *          the reader providing the sample values to decode;
+   * @param aMode
+   *          the SPI mode to decode with;
+   * @param aInitialState
+   *          the decoder state at the start of the given range;
+   * @param aStartIdx
+   *          the starting sample index;
+   * @param aEndIdx
+   *          the ending sample index.
+   * @return the segments to decode, never <code>null</code> or empty.
+   */
+  private List<Segment> createSegments( final SampleReader aReader, final SPIMode aMode,
+      final DecoderState aInitialState, final int aStartIdx, final int aEndIdx )
+  {
+    final int sckMask = ( 1 << this.sckIdx );
+    final int csMask = ( 1 << this.csIdx );
+
+    final int segmentLength = ( this.segmentLength > 0 ) ? this.segmentLength : ParallelDecoding
+        .getSegmentLength( aEndIdx - aStartIdx );
+
+    final List<Segment> result = new ArrayList<Segment>();
+
+    int segmentStartIdx = aStartIdx;
+    DecoderState segmentState = aInitialState;
+
+    for ( int idx = aStartIdx + segmentLength; idx < ( aEndIdx - 1 ); idx++ )
+    {
+      final int dataSample = aReader.getValue( idx );
+      if ( ( ( dataSample & csMask ) != 0 ) && ( ( aReader.getValue( idx - 1 ) & csMask ) == 0 ) )
+      {
+        result.add( new Segment( aMode, segmentStartIdx, idx + 1, segmentState ) );
+
+        // The slave is deselected, presumably after a full datagram. In case
+        // chip-select is honoured, the clock line is not tracked anymore...
+        final boolean slaveSelected = this.invertCS;
+        final int sckSample = ( this.honourCS && !slaveSelected ) ? aReader.getValue( idx - 1 ) : dataSample;
+
+        segmentStartIdx = idx + 1;
+        segmentState = new DecoderState( sckSample, sckMask, csMask, this.bitCount );
+        segmentState.oldCsValue = dataSample & csMask;
+        segmentState.slaveSelected = slaveSelected;
+        segmentState.dataStartIdx = segmentStartIdx;
+
+        idx += segmentLength;
+      }
+    }
+
+    result.add( new Segment( aMode, segmentStartIdx, aEndIdx, segmentState ) );
+
+    return result;
+  }
+
+  /**
+   * Decodes the given range of sample indexes.
+   * 
+   * @param aDataSet
+   *          the decoded data to fill;
+   * @param aAnnotationListener
+   *          the annotation listener to add the annotations to;
+   * @param aMode
+   *          the SPI mode defining the edges on which data can be sampled and
+   *          on which edges data can change;
+   * @param aState
+   *          the decoder state to start with, will be updated to the decoder
+   *          state at the end of the given range;
+   * @param aStartIdx
+   *          the starting sample index;
+   * @param aEndIdx
+   *          the ending sample index;
+   * @param aProgressReporter
+   *          the reporter to report the progress of the decoding to, can be
+   *          <code>null</code> in case no progress is to be reported.
+   */
+  private void decode( final SPIDataSet aDataSet, final AnnotationListener aAnnotationListener, final SPIMode aMode,
+      final DecoderState aState, final int aStartIdx, final int aEndIdx, final ProgressReporter aProgressReporter )
+  {
+    final AcquisitionResult data = this.context.getData();
+
+    final SampleReader reader = new SampleReader( data );
+
     final int mosiMask = ( 1 << this.mosiIdx ); // IO0
     final int misoMask = ( 1 << this.misoIdx ); // IO1
     final int io2Mask = ( 1 << this.io2Idx );
@@ -343,23 +645,23 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     final int csMask = ( 1 << this.csIdx );
 
     // scanning for falling/rising clk edges
-    int oldSckValue = ( values[startOfDecode] & sckMask );
-    int oldCsValue = ( values[startOfDecode] & csMask );
+    int oldSckValue = aState.oldSckValue;
+    int oldCsValue = aState.oldCsValue;
 
-    boolean slaveSelected = true;
-    int dataStartIdx = startOfDecode;
+    boolean slaveSelected = aState.slaveSelected;
+    int dataStartIdx = aState.dataStartIdx;
 
-    int bitIdx = this.bitCount;
+    int bitIdx = aState.bitIdx;
 
     final int clockEdgeCount = ( this.bitCount + 1 ) * 2;
-    int clockEdgeIdx = 0;
+    int clockEdgeIdx = aState.clockEdgeIdx;
 
-    int misovalue = 0;
-    int mosivalue = 0;
+    int misovalue = aState.misovalue;
+    int mosivalue = aState.mosivalue;
 
-    for ( int idx = startOfDecode + 1; idx < endOfDecode; idx++ )
+    for ( int idx = aStartIdx; idx < aEndIdx; idx++ )
     {
-      final int dataSample = values[idx];
+      final int dataSample = reader.getValue( idx );
       /* CLK edge detection */
       final int sckValue = ( dataSample & sckMask );
       /* CS edge detection */
@@ -385,7 +687,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         if ( bitIdx <= 0 )
         {
           // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
+          reportData( aDataSet, aAnnotationListener, reader, dataStartIdx, idx, mosivalue, misovalue );
 
           bitIdx = this.bitCount;
           misovalue = 0;
@@ -493,7 +795,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         if ( bitIdx < 0 )
         {
           // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
+          reportData( aDataSet, aAnnotationListener, reader, dataStartIdx, idx, mosivalue, misovalue );
 
           bitIdx = this.bitCount;
           misovalue = 0;
@@ -501,8 +803,20 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         }
       }
 
-      this.progressListener.setProgress( getPercentage( idx, startOfDecode, endOfDecode ) );
+      if ( aProgressReporter != null )
+      {
+        aProgressReporter.setPosition( idx );
+      }
     }
+
+    aState.oldSckValue = oldSckValue;
+    aState.oldCsValue = oldCsValue;
+    aState.slaveSelected = slaveSelected;
+    aState.dataStartIdx = dataStartIdx;
+    aState.bitIdx = bitIdx;
+    aState.clockEdgeIdx = clockEdgeIdx;
+    aState.misovalue = misovalue;
+    aState.mosivalue = mosivalue;
   }
 
   /**
@@ -526,14 +840,14 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     final AcquisitionResult data = this.context.getData();
     final Frequency<Integer> valueStats = new Frequency<Integer>();
 
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
     final int sckMask = 1 << this.sckIdx;
 
     // Determine the value of the clock line of each sample; the value that
     // occurs the most is probably the default polarity...
     for ( int i = aStartIndex; i < aEndIndex; i++ )
     {
-      final int newValue = ( values[i] & sckMask ) >> this.sckIdx;
+      final int newValue = ( reader.getValue( i ) & sckMask ) >> this.sckIdx;
       valueStats.addValue( Integer.valueOf( newValue ) );
     }
 
@@ -634,6 +948,10 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    * 
    * @param aDecodedData
    *          the data set to add the data event(s) to;
+   * @param aAnnotationListener
+   *          the annotation listener to add the annotation(s) to;
+   * @param aReader
+   *          the reader providing the timestamps of the samples;
    * @param aStartIdx
    *          the starting sample index on which the data started;
    * @param aEndIdx
@@ -643,11 +961,9 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    * @param aMisoValue
    *          the MISO data value.
    */
-  private void reportData( final SPIDataSet aDecodedData, final int aStartIdx, final int aEndIdx, final int aMosiValue,
-      final int aMisoValue )
+  private void reportData( final SPIDataSet aDecodedData, final AnnotationListener aAnnotationListener,
+      final SampleReader aReader, final int aStartIdx, final int aEndIdx, final int aMosiValue, final int aMisoValue )
   {
-    long[] timestamps = this.context.getData().getTimestamps();
-
     if ( SPIFIMode.STANDARD.equals( this.protocol ) )
     {
       if ( this.mosiIdx >= 0 )
@@ -661,8 +977,8 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
           formatSpec = formatSpec.concat( " (%1$c)" );
         }
 
-        this.annotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
-            timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
+        aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, aReader.getTimestamp( aStartIdx ),
+            aReader.getTimestamp( aEndIdx ), String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
 
         aDecodedData.reportMosiData( this.mosiIdx, aStartIdx, aEndIdx, mosivalue );
       }
@@ -678,8 +994,8 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
           formatSpec = formatSpec.concat( " (%1$c)" );
         }
 
-        this.annotationListener.onAnnotation( new SampleDataAnnotation( this.misoIdx, timestamps[aStartIdx],
-            timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( misovalue ) ) ) );
+        aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.misoIdx, aReader.getTimestamp( aStartIdx ),
+            aReader.getTimestamp( aEndIdx ), String.format( formatSpec, Integer.valueOf( misovalue ) ) ) );
 
         aDecodedData.reportMisoData( this.misoIdx, aStartIdx, aEndIdx, misovalue );
       }
@@ -695,8 +1011,8 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         formatSpec = formatSpec.concat( " (%1$c)" );
       }
 
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
-          timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
+      aAnnotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, aReader.getTimestamp( aStartIdx ),
+          aReader.getTimestamp( aEndIdx ), String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
 
       aDecodedData.reportMosiData( this.mosiIdx, aStartIdx, aEndIdx, mosivalue );
     }
@@ -710,7 +1026,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   private int searchSlaveSelected( final int aStartIndex, final int aEndIndex )
   {
     final AcquisitionResult data = this.context.getData();
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
 
     final int csMask = 1 << this.csIdx;
 
@@ -719,10 +1035,10 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
      * found, the position of the trigger is used for start of analysis. If no
      * trigger and no edge is found the analysis fails.
      */
-    int oldCsValue = values[aStartIndex] & csMask;
+    int oldCsValue = reader.getValue( aStartIndex ) & csMask;
     for ( int i = aStartIndex + 1; i < aEndIndex; i++ )
     {
-      final int csValue = values[i] & csMask;
+      final int csValue = reader.getValue( i ) & csMask;
       Edge edge = Edge.toEdge( oldCsValue, csValue );
       
       if ( this.invertCS && edge.isRising() || !this.invertCS && edge.isFalling() )
@@ -51,6 +51,30 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
 
   // METHODS
 
+  /**
+   * Adds all data of the given data set to this data set, as if it were
+   * reported to this data set directly.
+   * 
+   * @param aDataSet
+   *          the data set to add the data of, cannot be <code>null</code>.
+   */
+  public void addAll( final SPIDataSet aDataSet )
+  {
+    for ( SPIData data : aDataSet.getData() )
+    {
+      final int idx = size();
+      if ( data.isEvent() )
+      {
+        addData( new SPIData( idx, data.getChannelIdx(), data.getEventName(), data.getStartSampleIndex() ) );
+      }
+      else
+      {
+        addData( new SPIData( idx, data.getChannelIdx(), data.getDataName(), data.getDataValue(),
+            data.getStartSampleIndex(), data.getEndSampleIndex() ) );
+      }
+    }
+  }
+
   /**
    * @param aTimeValue
    */
@@ -181,12 +181,165 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
     }
   }
 
+  /**
+   * Provides the table model for the decoded SPI data.
+   */
+  final class SPIDataTableModel extends DataSetTableModel<SPIData, SPIDataSet>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // VARIABLES
+
+    private volatile int bitCount = 8;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SPIDataTableModel instance.
+     */
+    SPIDataTableModel()
+    {
+      super( "Index", "Time", "MOSI Hex", "MOSI Bin", "MOSI Dec", "MOSI ASCII", "MISO Hex", "MISO Bin", "MISO Dec",
+          "MISO ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isSameRow( final SPIData aPrevious, final SPIData aData )
+    {
+      // Show MOSI and MISO values decoded at the same sample index in one row...
+      return aPrevious.isData() && aData.isData() && ( aPrevious.getStartSampleIndex() == aData.getStartSampleIndex() )
+          && ( aPrevious.getChannelIdx() != aData.getChannelIdx() );
+    }
+
+    /**
+     * Sets the number of bits of the decoded data values.
+     *
+     * @param aBitCount
+     *          the number of bits, > 0.
+     */
+    void setBitCount( final int aBitCount )
+    {
+      this.bitCount = aBitCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final SPIDataSet aDataSet, final List<SPIData> aRowData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      // Take the MOSI and MISO values from the data item that provides them...
+      final boolean mosiColumn = ( aColumnIndex < 6 );
+      SPIData data = aRowData.get( 0 );
+      for ( int i = 1; ( aColumnIndex >= 2 ) && ( i < aRowData.size() ); i++ )
+      {
+        final SPIData candidate = aRowData.get( i );
+        if ( ( mosiColumn && candidate.isMosiData() ) || ( !mosiColumn && candidate.isMisoData() ) )
+        {
+          data = candidate;
+        }
+      }
+      return getColumnValue( aDataSet, data, aRowIndex, aColumnIndex );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final SPIDataSet aDataSet, final SPIData aData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return String.valueOf( aRowIndex );
+        case 1:
+          return Unit.Time.format( aDataSet.getTime( aData.getStartSampleIndex() ) );
+        default:
+          break;
+      }
+
+      if ( aData.isEvent() )
+      {
+        if ( ( aColumnIndex != 2 ) && ( aColumnIndex != 6 ) )
+        {
+          return "";
+        }
+
+        final String event = aData.getEventName();
+        if ( SPIDataSet.SPI_CS_LOW.equals( event ) || SPIDataSet.SPI_CS_HIGH.equals( event ) )
+        {
+          return event;
+        }
+        return "UNKNOWN";
+      }
+
+      // MOSI values first, MISO values next...
+      final boolean mosiColumn = ( aColumnIndex < 6 );
+      if ( ( mosiColumn && !aData.isMosiData() ) || ( !mosiColumn && !aData.isMisoData() ) )
+      {
+        return "";
+      }
+
+      final int value = aData.getDataValue();
+      switch ( ( aColumnIndex - 2 ) % 4 )
+      {
+        case 0:
+          return "0x" + integerToHexString( value, ( this.bitCount / 4 ) + ( ( ( this.bitCount % 4 ) != 0 ) ? 1 : 0 ) );
+        case 1:
+          return "0b" + integerToBinString( value, this.bitCount );
+        case 2:
+          return String.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Color getRowColor( final SPIDataSet aDataSet, final SPIData aData, final int aRowIndex )
+    {
+      if ( !aData.isEvent() )
+      {
+        return null;
+      }
+
+      final String event = aData.getEventName();
+      if ( SPIDataSet.SPI_CS_LOW.equals( event ) )
+      {
+        // start condition
+        return CS_LOW_COLOR;
+      }
+      else if ( SPIDataSet.SPI_CS_HIGH.equals( event ) )
+      {
+        // stop condition
+        return CS_HIGH_COLOR;
+      }
+      // unknown event
+      return UNKNOWN_EVENT_COLOR;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
   private static final Logger LOG = Logger.getLogger( SPIProtocolAnalysisDialog.class.getName() );
 
+  static final Color CS_LOW_COLOR = new Color( 0xc0ffc0 );
+  static final Color CS_HIGH_COLOR = new Color( 0xe0e0e0 );
+  static final Color UNKNOWN_EVENT_COLOR = new Color( 0xff8000 );
+
   // VARIABLES
 
   private JLabel misoLabel;
@@ -204,7 +357,8 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   private JComboBox bits;
   private JComboBox order;
   private JComboBox spifiMode;
-  private JEditorPane outText;
+  private SPIDataTableModel tableModel;
+  private ResultsView resultsView;
   private JCheckBox reportCS;
   private JCheckBox honourCS;
   private JCheckBox invertCS;
@@ -313,8 +467,8 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel.setDataSet( null );
+    this.resultsView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -388,34 +542,21 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   @Override
   protected void onToolEnded( final SPIDataSet aAnalysisResult )
   {
-    try
+    if ( aAnalysisResult != null )
     {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.resultsView.setSummary( "SPI mode: " + getDetectedSPIModeDescription() );
+      this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
+      this.resultsView.setSummary( null );
+      this.exportAction.setEnabled( false );
     }
+
+    this.tableModel.setBitCount( Integer.parseInt( ( String )this.bits.getSelectedItem() ) );
+    this.tableModel.setDataSet( aAnalysisResult );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -616,10 +757,10 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel = new SPIDataTableModel();
+    this.resultsView = new ResultsView( this.tableModel );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultsView );
 
     return panTable;
   }
@@ -732,26 +873,29 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   }
 
   /**
-   * Generates an empty HTML page.
+   * Returns a description of the detected SPI mode.
    *
-   * @return String with HTML data.
+   * @return a SPI mode description, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getDetectedSPIModeDescription()
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
+    if ( this.detectedSPIMode != null )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
+      switch ( this.detectedSPIMode )
       {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        return null;
+        case MODE_0:
+          return "Mode 0 (CPOL = 0, CPHA = 0)";
+        case MODE_1:
+          return "Mode 1 (CPOL = 0, CPHA = 1)";
+        case MODE_2:
+          return "Mode 2 (CPOL = 1, CPHA = 0)";
+        case MODE_3:
+          return "Mode 3 (CPOL = 1, CPHA = 1)";
+        default:
+          break;
       }
-    } );
+    }
+    return "<unknown>";
   }
 
   /**
@@ -835,7 +979,7 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   {
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      toHtmlFile( aFile, aDataSet );
     }
     catch ( final IOException exception )
     {
@@ -848,14 +992,15 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   }
 
   /**
-   * generate a HTML page
+   * Writes the given data set as HTML page to the given file.
    *
+   * @param aFile
+   *          the file to write to;
    * @param aDataSet
    *          the data set to create the HTML page for, cannot be
    *          <code>null</code>.
-   * @return String with HTML data
    */
-  private String toHtmlPage( final File aFile, final SPIDataSet aDataSet ) throws IOException
+  private void toHtmlFile( final File aFile, final SPIDataSet aDataSet ) throws IOException
   {
     final int bitCount = Integer.parseInt( ( String )this.bits.getSelectedItem() );
     final int bitAdder = ( ( bitCount % 4 ) != 0 ) ? 1 : 0;
@@ -872,25 +1017,7 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
         }
         else if ( "detected-spi-mode".equals( aMacro ) )
         {
-          String result = "<unknown>";
-          switch ( SPIProtocolAnalysisDialog.this.detectedSPIMode )
-          {
-            case MODE_0:
-              result = "Mode 0 (CPOL = 0, CPHA = 0)";
-              break;
-            case MODE_1:
-              result = "Mode 1 (CPOL = 0, CPHA = 1)";
-              break;
-            case MODE_2:
-              result = "Mode 2 (CPOL = 1, CPHA = 0)";
-              break;
-            case MODE_3:
-              result = "Mode 3 (CPOL = 1, CPHA = 1)";
-              break;
-            default:
-              break;
-          }
-          return result;
+          return getDetectedSPIModeDescription();
         }
         else if ( "decoded-data".equals( aMacro ) )
         {
@@ -987,18 +1114,8 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
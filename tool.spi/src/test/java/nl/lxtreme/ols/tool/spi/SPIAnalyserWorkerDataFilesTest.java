@@ -27,7 +27,7 @@ import java.net.*;
 import java.util.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
-import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.test.*;
 import nl.lxtreme.ols.test.data.*;
@@ -126,6 +126,25 @@ public class SPIAnalyserWorkerDataFilesTest
     assertEventCount( result, SPIDataSet.SPI_MOSI, this.expectedMosiSymbolCount );
   }
 
+  /**
+   * Tests that decoding the data file in segments yields the same results as
+   * decoding it in one go.
+   */
+  @Test
+  public void testAnalyzeDataFileInSegments() throws Exception
+  {
+    final List<String> expectedAnnotations = new ArrayList<String>();
+    final SPIDataSet expected = analyseDataFile( this.resourceName, 0,
+        DataTestUtils.createAnnotationListener( expectedAnnotations ) );
+
+    final List<String> actualAnnotations = new ArrayList<String>();
+    final SPIDataSet actual = analyseDataFile( this.resourceName, 50,
+        DataTestUtils.createAnnotationListener( actualAnnotations ) );
+
+    assertEquals( expected.getData(), actual.getData() );
+    assertEquals( expectedAnnotations, actualAnnotations );
+  }
+
   /**
    * Analyses the data file identified by the given resource name.
    * 
@@ -137,15 +156,31 @@ public class SPIAnalyserWorkerDataFilesTest
    *           in case of exceptions.
    */
   private SPIDataSet analyseDataFile( final String aResourceName ) throws Exception
+  {
+    return analyseDataFile( aResourceName, 0, Mockito.mock( AnnotationListener.class ) );
+  }
+
+  /**
+   * Analyses the data file identified by the given resource name.
+   * 
+   * @param aResourceName
+   *          the name of the resource (= data file) to analyse, cannot be
+   *          <code>null</code>.
+   * @return the analysis results, never <code>null</code>.
+   * @throws Exception
+   *           in case of exceptions.
+   */
+  private SPIDataSet analyseDataFile( final String aResourceName, final int aSegmentLength,
+      final AnnotationListener aAnnotationListener ) throws Exception
   {
     URL resource = ResourceUtils.getResource( getClass(), aResourceName );
     AcquisitionResult container = DataTestUtils.getCapturedData( resource );
     ToolContext toolContext = DataTestUtils.createToolContext( container );
 
     ToolProgressListener tpl = Mockito.mock( ToolProgressListener.class );
-    AnnotationListener al = Mockito.mock( AnnotationListener.class );
 
-    SPIAnalyserTask worker = new SPIAnalyserTask( toolContext, tpl, al );
+    SPIAnalyserTask worker = new SPIAnalyserTask( toolContext, tpl, aAnnotationListener );
+    worker.setSegmentLength( aSegmentLength );
     worker.setBitCount( this.bitCount - 1 );
     worker.setHonourCS( this.honourCS );
     worker.setReportCS( false );
@@ -69,18 +69,18 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
     final AcquisitionResult data = this.context.getData();
 
     // obtain data from captured data
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
     final long triggerPosition = data.getTriggerPosition();
 
     final int maskValue = 1 << this.number;
 
     int size = 0;
-    int last = ( values[0] & maskValue ) >> this.number;
+    int last = ( reader.getValue( 0 ) & maskValue ) >> this.number;
 
     // calculate new sample array size
-    for ( final int value : values )
+    for ( int i = 0; i < reader.getSampleCount(); i++ )
     {
-      final int current = ( value & maskValue ) >> this.number;
+      final int current = ( reader.getValue( i ) & maskValue ) >> this.number;
       if ( ( last == this.level ) && ( current != this.level ) )
       {
         size++;
@@ -95,17 +95,17 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
     }
 
     // convert captured data
-    last = values[0] & maskValue;
+    last = reader.getValue( 0 ) & maskValue;
     int pos = 0;
     int newTrigger = -1;
 
     final int[] newValues = new int[size];
-    for ( int i = 0; i < values.length; i++ )
+    for ( int i = 0; i < reader.getSampleCount(); i++ )
     {
-      final int current = ( values[i] & maskValue ) >> this.number;
+      final int current = ( reader.getValue( i ) & maskValue ) >> this.number;
       if ( ( last == this.level ) && ( current != this.level ) )
       {
-        newValues[pos++] = values[i - 1];
+        newValues[pos++] = reader.getValue( i - 1 );
       }
       if ( triggerPosition == i )
       {
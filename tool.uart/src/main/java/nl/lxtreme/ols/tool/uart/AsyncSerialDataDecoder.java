@@ -23,7 +23,6 @@ package nl.lxtreme.ols.tool.uart;
 
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
-import java.util.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
@@ -516,6 +515,8 @@ public class AsyncSerialDataDecoder
   protected final AcquisitionResult dataSet;
   protected final ToolContext context;
 
+  private final SampleReader reader;
+
   private SerialDecoderCallback callback;
   private ToolProgressListener progressListener;
 
@@ -534,31 +535,11 @@ public class AsyncSerialDataDecoder
     this.configuration = aConfiguration;
     this.context = aContext;
     this.dataSet = aContext.getData();
+    this.reader = new SampleReader( this.dataSet );
   }
 
   // METHODS
 
-  /**
-   * Finds the sample index of the given timestamp value.
-   * <p>
-   * Note the sample index returned is <em>not per se</em> equal to
-   * <code>timestamps[result]</code>!
-   * </p>
-   * 
-   * @param aTimeValue
-   *          the time value to search the corresponding index for, >= 0.
-   * @return a sample index, >= 0.
-   */
-  protected static final int findSampleIndex( final long[] aTimestamps, final long aTimeValue )
-  {
-    int k = Arrays.binarySearch( aTimestamps, aTimeValue );
-    if ( k < 0 )
-    {
-      k = -( k + 1 );
-    }
-    return k;
-  }
-
   /**
    * Decodes a serial data line.
    * 
@@ -575,10 +556,8 @@ public class AsyncSerialDataDecoder
     final StopBits stopBits = this.configuration.getStopBits();
     final Parity parity = this.configuration.getParity();
 
-    final long[] timestamps = this.dataSet.getTimestamps();
-
-    final long startOfDecode = timestamps[this.context.getStartSampleIndex()];
-    final long endOfDecode = timestamps[this.context.getEndSampleIndex()];
+    final long startOfDecode = this.reader.getTimestamp( this.context.getStartSampleIndex() );
+    final long endOfDecode = this.reader.getTimestamp( this.context.getEndSampleIndex() );
     final BitLevel idleLevel = this.configuration.getIdleLevel();
 
     DataBitExtractor extractor = new DataBitExtractor( aChannelIndex );
@@ -711,29 +690,16 @@ public class AsyncSerialDataDecoder
   protected final long findEdge( final int aChannelIndex, final Edge aSampleEdge, final long aStartOfDecode,
       final long aEndOfDecode )
   {
-    final int mask = ( 1 << aChannelIndex );
-    long result = -1;
-
-    int oldBitValue = getDataValue( aStartOfDecode, mask );
-    for ( long timeCursor = aStartOfDecode + 1; ( result < 0 ) && ( timeCursor < aEndOfDecode ); timeCursor++ )
+    final long edge = this.dataSet.getEdgeIndex().nextEdge( aChannelIndex, aStartOfDecode, aSampleEdge );
+    if ( edge < 0 )
     {
-      final int bitValue = getDataValue( timeCursor, mask );
-
-      Edge edge = Edge.toEdge( oldBitValue, bitValue );
-      if ( aSampleEdge.isNone() && !edge.isNone() )
-      {
-        /* No edge given, so any edge will do */
-        result = timeCursor;
-      }
-      else if ( !aSampleEdge.isNone() && ( aSampleEdge == edge ) )
-      {
-        result = timeCursor;
-      }
-
-      oldBitValue = bitValue;
+      return -1L;
     }
 
-    return result;
+    // As #getDataValue returns the value right *before* a given time, an edge
+    // becomes visible one sample after its actual timestamp...
+    final long result = edge + 1L;
+    return ( result < aEndOfDecode ) ? result : -1L;
   }
 
   /**
@@ -776,13 +742,15 @@ public class AsyncSerialDataDecoder
    */
   protected final int getDataValue( final long aTimeValue, final int aMask )
   {
-    final int[] values = this.dataSet.getValues();
-    final long[] timestamps = this.dataSet.getTimestamps();
-    int k = findSampleIndex( timestamps, aTimeValue );
-
-    int value = ( ( k == 0 ) ? values[0] : values[k - 1] );
+    // The sample index is clamped to the last sample, so only step back if the
+    // sample at this index does not lie before the given time value...
+    int k = this.dataSet.getSampleIndex( aTimeValue );
+    if ( ( k > 0 ) && ( this.reader.getTimestamp( k ) >= aTimeValue ) )
+    {
+      k--;
+    }
 
-    return value & aMask;
+    return this.reader.getValue( k ) & aMask;
   }
 
   /**
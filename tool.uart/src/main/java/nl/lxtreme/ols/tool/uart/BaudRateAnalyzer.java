@@ -21,6 +21,8 @@
 package nl.lxtreme.ols.tool.uart;
 
 
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.util.analysis.*;
 
 
@@ -60,36 +62,35 @@ public final class BaudRateAnalyzer
   /**
    * Creates a new {@link BaudRateAnalyzer} instance.
    * 
-   * @param aSampleRate
-   *          the sample rate at which the incoming data was sampled;
-   * @param aValues
-   *          the values to determine the baudrate for;
-   * @param aTimestamps
-   *          the timestamps to use when determining the bit lengths;
+   * @param aData
+   *          the acquired data to determine the baudrate for, its sample rate
+   *          is used when determining the bit lengths;
    * @param aMask
    *          the value mask to isolate the data.
    */
-  public BaudRateAnalyzer( final int aSampleRate, final int[] aValues, final long[] aTimestamps, final int aMask )
+  public BaudRateAnalyzer( final AcquisitionResult aData, final int aMask )
   {
-    this.sampleRate = aSampleRate;
+    this.sampleRate = aData.getSampleRate();
     this.statData = new Frequency<Integer>();
 
+    final SampleReader reader = new SampleReader( aData );
+
     long lastTransition = 0;
-    int lastBitValue = aValues[0] & aMask;
+    int lastBitValue = reader.getValue( 0 ) & aMask;
 
-    for ( int i = 0; i < aValues.length; i++ )
+    for ( int i = 0; i < reader.getSampleCount(); i++ )
     {
-      final int bitValue = aValues[i] & aMask;
+      final int bitValue = reader.getValue( i ) & aMask;
 
       if ( lastBitValue != bitValue )
       {
-        final int bitLength = ( int )( aTimestamps[i] - lastTransition );
+        final int bitLength = ( int )( reader.getTimestamp( i ) - lastTransition );
         this.statData.addValue( Integer.valueOf( bitLength ) );
 
-        lastTransition = aTimestamps[i];
+        lastTransition = reader.getTimestamp( i );
       }
 
-      lastBitValue = aValues[i] & aMask;
+      lastBitValue = bitValue;
     }
   }
 
@@ -23,12 +23,17 @@ package nl.lxtreme.ols.tool.uart.impl;
 
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
+import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.task.*;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.tool.uart.*;
 import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.ErrorType;
@@ -44,8 +49,87 @@ import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.StopBits;
 /**
  * @author jajans
  */
-public class UARTAnalyserTask implements ToolTask<UARTDataSet>
+public class UARTAnalyserTask implements CacheableToolTask<UARTDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Decodes a single data or control line on its own.
+   */
+  final class ChannelDecoder implements Callable<ChannelDecoder>
+  {
+    // VARIABLES
+
+    final int channelIndex;
+    final int eventType;
+    final String label;
+    final UARTDataSet dataSet;
+    final BufferedAnnotationListener annotations;
+
+    ToolProgressListener progressListener;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ChannelDecoder instance.
+     * 
+     * @param aDataSet
+     *          the data set the results will be merged into;
+     * @param aChannelIndex
+     *          the channel index to decode;
+     * @param aEventType
+     *          the event type to use for the decoded data, or
+     *          {@link UARTAnalyserTask#CONTROL_LINE} for a control line;
+     * @param aLabel
+     *          the default label to use for the decoded channel.
+     */
+    ChannelDecoder( final UARTDataSet aDataSet, final int aChannelIndex, final int aEventType, final String aLabel )
+    {
+      this.channelIndex = aChannelIndex;
+      this.eventType = aEventType;
+      this.label = aLabel;
+      this.dataSet = new UARTDataSet( aDataSet.getStartOfDecode(), aDataSet.getEndOfDecode(),
+          UARTAnalyserTask.this.context.getData() );
+      this.annotations = new BufferedAnnotationListener();
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChannelDecoder call() throws Exception
+    {
+      prepareResult( this.annotations, this.channelIndex, this.label );
+
+      if ( this.eventType == CONTROL_LINE )
+      {
+        decodeControl( this.dataSet, this.progressListener, this.channelIndex, this.label );
+      }
+      else
+      {
+        decodeData( this.dataSet, this.annotations, this.progressListener, this.channelIndex, this.eventType );
+      }
+      return this;
+    }
+
+    /**
+     * Merges the results of this decoder into the given data set, and passes
+     * its annotations on to our annotation listener.
+     */
+    void mergeInto( final UARTDataSet aDataSet )
+    {
+      if ( this.eventType != CONTROL_LINE )
+      {
+        aDataSet.setBaudRate( this.dataSet.getBaudRate() );
+      }
+      aDataSet.addAll( this.dataSet );
+
+      this.annotations.flush( UARTAnalyserTask.this.annotationListener );
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( UARTAnalyserTask.class.getName() );
@@ -56,11 +140,17 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
    */
   public static final int AUTO_DETECT_BAUDRATE = -1;
 
+  /**
+   * Denotes that a control line, rather than a data line, is to be decoded.
+   */
+  static final int CONTROL_LINE = -1;
+
   // VARIABLES
 
   private final ToolContext context;
   private final ToolProgressListener progressListener;
   private final AnnotationListener annotationListener;
+  private final PropertyChangeSupport pcs;
 
   private int rxdIndex;
   private int txdIndex;
@@ -91,6 +181,8 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     this.progressListener = aProgressListener;
     this.annotationListener = aAnnotationListener;
 
+    this.pcs = new PropertyChangeSupport( this );
+
     this.rxdIndex = -1;
     this.txdIndex = -1;
     this.ctsIndex = -1;
@@ -104,6 +196,15 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
 
   // METHODS
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addPropertyChangeListener( final PropertyChangeListener aListener )
+  {
+    this.pcs.addPropertyChangeListener( aListener );
+  }
+
   /**
    * @see javax.swing.SwingWorker#doInBackground()
    */
@@ -120,7 +221,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
      * is displayed it must be sortet by time.
      */
 
-    final int[] values = data.getValues();
+    final SampleReader reader = new SampleReader( data );
 
     int startOfDecode = this.context.getStartSampleIndex();
     final int endOfDecode = this.context.getEndSampleIndex();
@@ -128,10 +229,10 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     // find first state change on the selected lines
     final int mask = getBitMask();
 
-    final int value = values[startOfDecode] & mask;
+    final int value = reader.getValue( startOfDecode ) & mask;
     for ( int i = startOfDecode + 1; i < endOfDecode; i++ )
     {
-      if ( value != ( values[i] & mask ) )
+      if ( value != ( reader.getValue( i ) & mask ) )
       {
         startOfDecode = i;
         break;
@@ -149,40 +250,57 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
 
     final UARTDataSet decodedData = new UARTDataSet( startOfDecode, endOfDecode, data );
 
+    final List<ChannelDecoder> decoders = new ArrayList<ChannelDecoder>();
+
     // decode RxD/TxD data lines...
     if ( this.rxdIndex >= 0 )
     {
-      prepareAndDecodeData( decodedData, this.rxdIndex, UARTData.UART_TYPE_RXDATA, UARTDataSet.UART_RXD );
+      decoders.add( new ChannelDecoder( decodedData, this.rxdIndex, UARTData.UART_TYPE_RXDATA, UARTDataSet.UART_RXD ) );
     }
     if ( this.txdIndex >= 0 )
     {
-      prepareAndDecodeData( decodedData, this.txdIndex, UARTData.UART_TYPE_TXDATA, UARTDataSet.UART_TXD );
+      decoders.add( new ChannelDecoder( decodedData, this.txdIndex, UARTData.UART_TYPE_TXDATA, UARTDataSet.UART_TXD ) );
     }
 
     // decode control lines...
     if ( this.ctsIndex >= 0 )
     {
-      prepareAndDecodeControl( decodedData, this.ctsIndex, UARTDataSet.UART_CTS );
+      decoders.add( new ChannelDecoder( decodedData, this.ctsIndex, CONTROL_LINE, UARTDataSet.UART_CTS ) );
     }
     if ( this.rtsIndex >= 0 )
     {
-      prepareAndDecodeControl( decodedData, this.rtsIndex, UARTDataSet.UART_RTS );
+      decoders.add( new ChannelDecoder( decodedData, this.rtsIndex, CONTROL_LINE, UARTDataSet.UART_RTS ) );
     }
     if ( this.dcdIndex >= 0 )
     {
-      prepareAndDecodeControl( decodedData, this.dcdIndex, UARTDataSet.UART_DCD );
+      decoders.add( new ChannelDecoder( decodedData, this.dcdIndex, CONTROL_LINE, UARTDataSet.UART_DCD ) );
     }
     if ( this.riIndex >= 0 )
     {
-      prepareAndDecodeControl( decodedData, this.riIndex, UARTDataSet.UART_RI );
+      decoders.add( new ChannelDecoder( decodedData, this.riIndex, CONTROL_LINE, UARTDataSet.UART_RI ) );
     }
     if ( this.dsrIndex >= 0 )
     {
-      prepareAndDecodeControl( decodedData, this.dsrIndex, UARTDataSet.UART_DSR );
+      decoders.add( new ChannelDecoder( decodedData, this.dsrIndex, CONTROL_LINE, UARTDataSet.UART_DSR ) );
     }
     if ( this.dtrIndex >= 0 )
     {
-      prepareAndDecodeControl( decodedData, this.dtrIndex, UARTDataSet.UART_DTR );
+      decoders.add( new ChannelDecoder( decodedData, this.dtrIndex, CONTROL_LINE, UARTDataSet.UART_DTR ) );
+    }
+
+    if ( decoders.size() == 1 )
+    {
+      // Only a single line to decode, let it report its own progress...
+      decoders.get( 0 ).progressListener = this.progressListener;
+    }
+
+    // All lines are decoded at once, while their results are merged in the
+    // same order as they would have when decoding them one by one...
+    ParallelDecoding.invokeAll( decoders, this.progressListener );
+
+    for ( ChannelDecoder decoder : decoders )
+    {
+      decoder.mergeInto( decodedData );
     }
 
     // sort the results by time
@@ -191,6 +309,37 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     return decodedData;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void firePropertyChange( final PropertyChangeEvent aEvent )
+  {
+    this.pcs.firePropertyChange( aEvent );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getConfiguration()
+  {
+    return "rxd=" + this.rxdIndex + ", txd=" + this.txdIndex + ", cts=" + this.ctsIndex + ", rts=" + this.rtsIndex
+        + ", dcd=" + this.dcdIndex + ", ri=" + this.riIndex + ", dsr=" + this.dsrIndex + ", dtr=" + this.dtrIndex
+        + ", idleLevel=" + this.idleLevel + ", encoding=" + this.bitEncoding + ", order=" + this.bitOrder
+        + ", stopBits=" + this.stopBits + ", parity=" + this.parity + ", bits=" + this.bitCount + ", baudRate="
+        + this.baudRate;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void removePropertyChangeListener( final PropertyChangeListener aListener )
+  {
+    this.pcs.removePropertyChangeListener( aListener );
+  }
+
   /**
    * Sets baudRate to the given value.
    * 
@@ -325,6 +474,8 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
   /**
    * Emits a new symbol annotation to the interested listener(s).
    * 
+   * @param aAnnotationListener
+   *          the annotation listener to add the annotation to;
    * @param aChannelIndex
    *          the channel index on which the symbol was found;
    * @param aSymbol
@@ -334,10 +485,10 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
    * @param aEndSampleIdx
    *          the end sample index of the symbol.
    */
-  private void addSymbolAnnotation( final int aChannelIndex, final int aSymbol, final long aStartTimestamp,
-      final long aEndTimestamp )
+  private void addSymbolAnnotation( final AnnotationListener aAnnotationListener, final int aChannelIndex,
+      final int aSymbol, final long aStartTimestamp, final long aEndTimestamp )
   {
-    this.annotationListener.onAnnotation( new SampleDataAnnotation( aChannelIndex, aStartTimestamp, aEndTimestamp,
+    aAnnotationListener.onAnnotation( new SampleDataAnnotation( aChannelIndex, aStartTimestamp, aEndTimestamp,
         String.format( "0x%1$X (%1$c)", Integer.valueOf( aSymbol ) ) ) );
   }
 
@@ -346,12 +497,16 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
    * 
    * @param aDataSet
    *          the data set to add the decoded data to;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, can be
+   *          <code>null</code>;
    * @param aChannelIndex
    *          the channel index of the control-line to decode;
    * @param aName
    *          the name of the control line to decode.
    */
-  private void decodeControl( final UARTDataSet aDataSet, final int aChannelIndex, final String aName )
+  private void decodeControl( final UARTDataSet aDataSet, final ToolProgressListener aProgressListener,
+      final int aChannelIndex, final String aName )
   {
     final AcquisitionResult data = this.context.getData();
 
@@ -365,39 +520,53 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     final int startSampleIdx = aDataSet.getStartOfDecode();
     final int endSampleIdx = aDataSet.getEndOfDecode();
 
-    final int[] values = data.getValues();
-    this.progressListener.setProgress( 0 );
+    final SampleReader reader = new SampleReader( data );
 
-    int oldValue = values[startSampleIdx] & mask;
-    for ( int i = startSampleIdx + 1; i < endSampleIdx; i++ )
+    final ProgressReporter progressReporter = ProgressReporter.create( aProgressListener, startSampleIdx,
+        endSampleIdx );
+    try
     {
-      final int value = values[i] & mask;
-
-      final Edge edge = Edge.toEdge( oldValue, value );
-      if ( edge.isRising() )
+      int oldValue = reader.getValue( startSampleIdx ) & mask;
+      for ( int i = startSampleIdx + 1; i < endSampleIdx; i++ )
       {
-        aDataSet.reportControlHigh( aChannelIndex, i, aName );
-      }
-      if ( edge.isFalling() )
-      {
-        aDataSet.reportControlLow( aChannelIndex, i, aName );
-      }
-      oldValue = value;
+        final int value = reader.getValue( i ) & mask;
+
+        final Edge edge = Edge.toEdge( oldValue, value );
+        if ( edge.isRising() )
+        {
+          aDataSet.reportControlHigh( aChannelIndex, i, aName );
+        }
+        if ( edge.isFalling() )
+        {
+          aDataSet.reportControlLow( aChannelIndex, i, aName );
+        }
+        oldValue = value;
 
-      // update progress
-      this.progressListener.setProgress( getPercentage( i, startSampleIdx, endSampleIdx ) );
+        // update progress
+        progressReporter.setPosition( i );
+      }
+    }
+    finally
+    {
+      progressReporter.close();
     }
   }
 
   /**
    * @param aDataSet
    *          the data set to add the decoded data to;
+   * @param aAnnotationListener
+   *          the annotation listener to add the annotations to;
+   * @param aProgressListener
+   *          the progress listener to report the progress to, can be
+   *          <code>null</code>;
    * @param aChannelIndex
    *          the channel index to decode;
    * @param aType
    *          type of the data (rx or tx)
    */
-  private void decodeData( final UARTDataSet aDataSet, final int aChannelIndex, final int aEventType )
+  private void decodeData( final UARTDataSet aDataSet, final AnnotationListener aAnnotationListener,
+      final ToolProgressListener aProgressListener, final int aChannelIndex, final int aEventType )
   {
     final AcquisitionResult data = this.context.getData();
 
@@ -407,7 +576,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     {
       // Auto detect the baud rate...
       final int mask = ( 1 << aChannelIndex );
-      final BaudRateAnalyzer baudRateAnalyzer = new BaudRateAnalyzer( data.getSampleRate(), data.getValues(), data.getTimestamps(), mask );
+      final BaudRateAnalyzer baudRateAnalyzer = new BaudRateAnalyzer( data, mask );
       baudRate = baudRateAnalyzer.getBaudRateExact();
       // Set nominal (normalized) baud rate
       aDataSet.setBaudRate( baudRateAnalyzer.getBaudRate() );
@@ -431,7 +600,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
           this.stopBits, this.parity, this.bitEncoding, this.bitOrder, this.idleLevel );
 
       AsyncSerialDataDecoder decoder = new AsyncSerialDataDecoder( config, this.context );
-      decoder.setProgressListener( this.progressListener );
+      decoder.setProgressListener( aProgressListener );
       decoder.setCallback( new SerialDecoderCallback()
       {
         @Override
@@ -454,11 +623,11 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
         public void onSymbol( final int aChannelIdx, final int aSymbol, final long aStartTime, final long aEndTime )
         {
           final int startSampleIdx = Math.max( data.getSampleIndex( aStartTime ), 0 );
-          final int endSampleIdx = Math.min( data.getSampleIndex( aEndTime ), data.getTimestamps().length - 1 );
+          final int endSampleIdx = Math.min( data.getSampleIndex( aEndTime ), data.getSampleCount() - 1 );
 
           aDataSet.reportData( aChannelIndex, startSampleIdx, endSampleIdx, aSymbol, aEventType );
 
-          addSymbolAnnotation( aChannelIndex, aSymbol, aStartTime, aEndTime );
+          addSymbolAnnotation( aAnnotationListener, aChannelIndex, aSymbol, aStartTime, aEndTime );
         }
       } );
 
@@ -529,52 +698,20 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     return result;
   }
 
-  /**
-   * Prepares and decoded the control line indicated by the given channel index.
-   * 
-   * @param aDataSet
-   *          the dataset to add the decoding results to;
-   * @param aChannelIndex
-   *          the channel index of the channel to decode;
-   * @param aDefaultLabel
-   *          the default label to use for the decoded channel.
-   */
-  private void prepareAndDecodeControl( final UARTDataSet aDataSet, final int aChannelIndex, final String aDefaultLabel )
-  {
-    prepareResult( aChannelIndex, aDefaultLabel );
-    decodeControl( aDataSet, aChannelIndex, aDefaultLabel );
-  }
-
-  /**
-   * Prepares and decoded the data line indicated by the given channel index.
-   * 
-   * @param aDataSet
-   *          the dataset to add the decoding results to;
-   * @param aChannelIndex
-   *          the channel index of the channel to decode;
-   * @param aEventType
-   *          the event type to use for the decoded data;
-   * @param aDefaultLabel
-   *          the default label to use for the decoded channel.
-   */
-  private void prepareAndDecodeData( final UARTDataSet aDataSet, final int aChannelIndex, final int aEventType,
-      final String aDefaultLabel )
-  {
-    prepareResult( aChannelIndex, aDefaultLabel );
-    decodeData( aDataSet, aChannelIndex, aEventType );
-  }
-
   /**
    * Determines the resulting channel label and clears any existing annotations.
    * 
+   * @param aAnnotationListener
+   *          the annotation listener to add the channel label to;
    * @param aChannelIndex
    *          the channel index of the channel to prepare;
    * @param aLabel
    *          the default label to use for the channel (in case none is set).
    */
-  private void prepareResult( final int aChannelIndex, final String aLabel )
+  private void prepareResult( final AnnotationListener aAnnotationListener, final int aChannelIndex,
+      final String aLabel )
   {
-    this.annotationListener.clearAnnotations( aChannelIndex );
-    this.annotationListener.onAnnotation( new ChannelLabelAnnotation( aChannelIndex, aLabel ) );
+    aAnnotationListener.clearAnnotations( aChannelIndex );
+    aAnnotationListener.onAnnotation( new ChannelLabelAnnotation( aChannelIndex, aLabel ) );
   }
 }
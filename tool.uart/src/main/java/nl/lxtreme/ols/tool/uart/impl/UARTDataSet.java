@@ -70,6 +70,41 @@ public final class UARTDataSet extends BaseDataSet<UARTData>
 
   // METHODS
 
+  /**
+   * Adds all data of the given data set to this data set, as if it were
+   * reported to this data set directly. In case the given data set has a
+   * sampled bit length, it is added to the bit length of this data set as well.
+   * 
+   * @param aDataSet
+   *          the data set to add the data of, cannot be <code>null</code>.
+   * @see #setSampledBitLength(double)
+   */
+  public void addAll( final UARTDataSet aDataSet )
+  {
+    for ( UARTData data : aDataSet.getData() )
+    {
+      final int idx = size();
+      if ( data.isEvent() )
+      {
+        addData( new UARTData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEventName(),
+            data.getType() ) );
+      }
+      else
+      {
+        addData( new UARTData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEndSampleIndex(),
+            data.getData(), data.getType() ) );
+      }
+    }
+
+    this.decodedSymbols += aDataSet.decodedSymbols;
+    this.detectedErrors += aDataSet.detectedErrors;
+
+    if ( aDataSet.bitLength != -1 )
+    {
+      setSampledBitLength( aDataSet.bitLength );
+    }
+  }
+
   /**
    * Returns the "normalized" baudrate most people can recognize.
    * 
@@ -227,12 +227,137 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
     }
   }
 
+  /**
+   * Provides the table model for the decoded UART data.
+   */
+  final class UARTDataTableModel extends DataSetTableModel<UARTData, UARTDataSet>
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // VARIABLES
+
+    private volatile int bitCount = 8;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new UARTDataTableModel instance.
+     */
+    UARTDataTableModel()
+    {
+      super( "Index", "Time", "RxD Hex", "RxD Bin", "RxD Dec", "RxD ASCII", "TxD Hex", "TxD Bin", "TxD Dec",
+          "TxD ASCII" );
+    }
+
+    // METHODS
+
+    /**
+     * Sets the number of bits of the decoded data values.
+     *
+     * @param aBitCount
+     *          the number of bits, > 0.
+     */
+    void setBitCount( final int aBitCount )
+    {
+      this.bitCount = aBitCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Object getColumnValue( final UARTDataSet aDataSet, final UARTData aData, final int aRowIndex,
+        final int aColumnIndex )
+    {
+      switch ( aColumnIndex )
+      {
+        case 0:
+          return String.valueOf( aRowIndex );
+        case 1:
+          return Unit.Time.format( aDataSet.getTime( aData.getStartSampleIndex() ) );
+        default:
+          break;
+      }
+
+      // RxD values first, TxD values next...
+      final boolean rxdColumn = ( aColumnIndex < 6 );
+      final int type = aData.getType();
+
+      if ( aData.isEvent() )
+      {
+        if ( ( aColumnIndex != 2 ) && ( aColumnIndex != 6 ) )
+        {
+          return "";
+        }
+
+        if ( ( UARTData.UART_TYPE_EVENT == type ) || ( rxdColumn && ( UARTData.UART_TYPE_RXEVENT == type ) )
+            || ( !rxdColumn && ( UARTData.UART_TYPE_TXEVENT == type ) ) )
+        {
+          return aData.getEventName();
+        }
+        return "";
+      }
+
+      if ( rxdColumn != ( UARTData.UART_TYPE_RXDATA == type ) )
+      {
+        return "";
+      }
+
+      final int value = aData.getData();
+      switch ( ( aColumnIndex - 2 ) % 4 )
+      {
+        case 0:
+          return "0x" + integerToHexString( value, ( this.bitCount / 4 ) + ( ( ( this.bitCount % 4 ) != 0 ) ? 1 : 0 ) );
+        case 1:
+          return "0b" + integerToBinString( value, this.bitCount );
+        case 2:
+          return String.valueOf( value );
+        default:
+          return toASCII( value );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Color getRowColor( final UARTDataSet aDataSet, final UARTData aData, final int aRowIndex )
+    {
+      if ( !aData.isEvent() )
+      {
+        return null;
+      }
+
+      final int type = aData.getType();
+      if ( ( UARTData.UART_TYPE_EVENT != type ) && ( UARTData.UART_TYPE_RXEVENT != type )
+          && ( UARTData.UART_TYPE_TXEVENT != type ) )
+      {
+        // unknown event
+        return ERROR_EVENT_COLOR;
+      }
+
+      final String event = aData.getEventName();
+      if ( ( event != null ) && event.endsWith( "_ERR" ) )
+      {
+        return ERROR_EVENT_COLOR;
+      }
+
+      return ( UARTData.UART_TYPE_EVENT == type ) ? EVENT_COLOR : LINE_EVENT_COLOR;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
 
   private static final Logger LOG = Logger.getLogger( UARTProtocolAnalysisDialog.class.getName() );
 
+  static final Color EVENT_COLOR = new Color( 0xe0e0e0 );
+  static final Color LINE_EVENT_COLOR = new Color( 0xc0ffc0 );
+  static final Color ERROR_EVENT_COLOR = new Color( 0xff8000 );
+
   // VARIABLES
 
   private JComboBox rxd;
@@ -251,7 +376,8 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   private JComboBox idleLevel;
   private JCheckBox autoDetectBaudRate;
   private JComboBox baudrate;
-  private JEditorPane outText;
+  private UARTDataTableModel tableModel;
+  private ResultsView resultsView;
 
   private RestorableAction runAnalysisAction;
   private Action closeAction;
@@ -332,8 +458,8 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel.setDataSet( null );
+    this.resultsView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -372,32 +498,37 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   @Override
   protected void onToolEnded( final UARTDataSet aAnalysisResult )
   {
-    try
+    if ( aAnalysisResult != null )
     {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
+      final String baudrate;
+      if ( aAnalysisResult.getBaudRate() <= 0 )
       {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
+        baudrate = "calculation failed!";
+      }
+      else if ( !aAnalysisResult.isBitLengthUsable() )
+      {
+        baudrate = String.format( "%d (exact: %d), may be wrong, use a higher samplerate to avoid this!",
+            Integer.valueOf( aAnalysisResult.getBaudRate() ), Integer.valueOf( aAnalysisResult.getBaudRateExact() ) );
       }
       else
       {
-        htmlPage = getEmptyHtmlPage();
+        baudrate = String.format( "%d (exact: %d)", Integer.valueOf( aAnalysisResult.getBaudRate() ),
+            Integer.valueOf( aAnalysisResult.getBaudRateExact() ) );
       }
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.resultsView.setSummary( String.format( "Decoded bytes: %d, detected bus errors: %d, baudrate: %s",
+          Integer.valueOf( aAnalysisResult.getDecodedSymbols() ),
+          Integer.valueOf( aAnalysisResult.getDetectedErrors() ), baudrate ) );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
+      this.resultsView.setSummary( null );
     }
+
+    this.tableModel.setBitCount( Integer.parseInt( ( String )this.bits.getSelectedItem() ) );
+    this.tableModel.setDataSet( aAnalysisResult );
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -554,10 +685,10 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   {
     final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
 
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.tableModel = new UARTDataTableModel();
+    this.resultsView = new ResultsView( this.tableModel );
 
-    panTable.add( new JScrollPane( this.outText ) );
+    panTable.add( this.resultsView );
 
     return panTable;
   }
@@ -678,40 +809,6 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
     return settings;
   }
 
-  /**
-   * generate a HTML page
-   *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro )
-            || "baudrate".equals( aMacro ) )
-        {
-          return "-";
-        }
-        else if ( "decoded-data".equals( aMacro ) )
-        {
-          return null;
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    * Initializes this dialog.
    */
@@ -824,7 +921,7 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   {
     try
     {
-      toHtmlPage( aFile, aDataSet );
+      toHtmlFile( aFile, aDataSet );
     }
     catch ( final IOException exception )
     {
@@ -837,13 +934,14 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   }
 
   /**
-   * generate a HTML page
+   * Writes the given data set as HTML page to the given file.
    *
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to;
+   * @param aDataSet
+   *          the data set to write.
    */
-  private String toHtmlPage( final File aFile, final UARTDataSet aDataSet ) throws IOException
+  private void toHtmlFile( final File aFile, final UARTDataSet aDataSet ) throws IOException
   {
     final int bitCount = Integer.parseInt( ( String )this.bits.getSelectedItem() );
     final int bitAdder = ( ( bitCount % 4 ) != 0 ) ? 1 : 0;
@@ -983,18 +1081,8 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
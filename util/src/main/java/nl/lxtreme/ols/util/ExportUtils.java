@@ -37,6 +37,10 @@ public final class ExportUtils
   /**
    * Provides a simple CSV data exporter, which is basically a set of (optional)
    * headers at the first line followed by a number of comma-separated values.
+   * <p>
+   * All rows are written directly to the underlying writer, so exporting
+   * large data sets only needs a constant amount of memory.
+   * </p>
    */
   public interface CsvExporter
   {
@@ -211,6 +215,20 @@ public final class ExportUtils
        *         <code>null</code>.
        */
       String toString( final MacroResolver aResolver );
+
+      /**
+       * Writes the string representation of this HTML-element to the given
+       * writer, streaming any elements that are added by macros.
+       * 
+       * @param aWriter
+       *          the writer to write to, cannot be <code>null</code>;
+       * @param aResolver
+       *          the macro resolver to use for any found macros.
+       * @throws IOException
+       *           in case of I/O problems.
+       * @see HtmlExporter#write(Writer, MacroResolver)
+       */
+      void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException;
     }
 
     /**
@@ -296,6 +314,28 @@ public final class ExportUtils
      * @return the string representation of the HTML structure.
      */
     String toString( final MacroResolver aResolver );
+
+    /**
+     * Writes the HTML-structure to the given writer, with all macro's
+     * resolved, in a streaming manner.
+     * <p>
+     * The HTML-structure is written while it is traversed. Elements that are
+     * added by the macro resolver to the given parent element, for example,
+     * table rows for each decoded data value, are written as soon as the next
+     * element is added, and are not retained. This way, the memory needed
+     * for the export stays constant, regardless of the number of added
+     * elements. Added elements are written in place of the macro, followed by
+     * the result of the macro, if any.
+     * </p>
+     * 
+     * @param aWriter
+     *          the writer to write to, cannot be <code>null</code>;
+     * @param aResolver
+     *          the macro resolver to use, cannot be <code>null</code>.
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException;
   }
 
   /**
@@ -307,7 +347,8 @@ public final class ExportUtils
 
     /**
      * Writes the HTML export to file using the given macro resolver to resolve
-     * any macros.
+     * any macros. The export is streamed to the file, as described by
+     * {@link #write(Writer, MacroResolver)}.
      * 
      * @param aResolver
      *          the macro resolver to use, cannot be <code>null</code>.
@@ -355,6 +396,23 @@ public final class ExportUtils
     return new CsvExporterImpl( aFile );
   }
 
+  /**
+   * Creates a CSV exporter for the given writer.
+   * 
+   * @param aWriter
+   *          the writer to export to, cannot be <code>null</code>. This writer
+   *          is closed when the exporter is closed.
+   * @return a CSV exporter, never <code>null</code>.
+   */
+  public static CsvExporter createCsvExporter( final Writer aWriter )
+  {
+    if ( aWriter == null )
+    {
+      throw new IllegalArgumentException( "Writer cannot be null!" );
+    }
+    return new CsvExporterImpl( aWriter, ',' );
+  }
+
   /**
    * Creates a HTML exporter.
    * 
@@ -34,6 +34,12 @@ public final class HostUtils implements HostInfo
 
   // CONSTANTS
 
+  /**
+   * The framework property that denotes the batch script to run instead of
+   * starting the client UI.
+   */
+  public static final String BATCH_SCRIPT_KEY = "nl.lxtreme.ols.batch.script";
+
   private static final HostInfo HOSTINFO = new HostUtils();
 
   // CONSTRUCTORS
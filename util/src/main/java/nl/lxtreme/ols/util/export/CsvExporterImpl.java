@@ -70,7 +70,21 @@ public class CsvExporterImpl implements CsvExporter
    */
   public CsvExporterImpl( final File aFile, final char aDelimiter ) throws IOException
   {
-    this.writer = new BufferedWriter( new FileWriter( aFile ) );
+    this( new FileWriter( aFile ), aDelimiter );
+  }
+
+  /**
+   * Creates a new {@link CsvExporterImpl} instance.
+   * 
+   * @param aWriter
+   *          the writer to export to, cannot be <code>null</code>. All rows
+   *          are written directly to this writer;
+   * @param aDelimiter
+   *          the CSV delimiter to use.
+   */
+  public CsvExporterImpl( final Writer aWriter, final char aDelimiter )
+  {
+    this.writer = new BufferedWriter( aWriter );
     this.delimiter = aDelimiter;
   }
 
@@ -95,7 +109,7 @@ public class CsvExporterImpl implements CsvExporter
     {
       final Object value = i < aValues.length ? aValues[i] : null;
 
-      this.writer.append( quote( value ) );
+      quote( value );
 
       if ( i < length - 1 )
       {
@@ -131,7 +145,7 @@ public class CsvExporterImpl implements CsvExporter
     this.headerCount = aHeaders.length;
     for ( int i = 0; i < aHeaders.length; i++ )
     {
-      this.writer.append( quote( aHeaders[i] ) );
+      quote( aHeaders[i] );
       if ( i < aHeaders.length - 1 )
       {
         this.writer.append( this.delimiter );
@@ -141,10 +155,14 @@ public class CsvExporterImpl implements CsvExporter
   }
 
   /**
+   * Writes the given value as quoted cell.
+   * 
    * @param aValue
-   * @return
+   *          the value to write, may be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
    */
-  private String quote( final Object aValue )
+  private void quote( final Object aValue ) throws IOException
   {
     final String value;
     if ( aValue == null )
@@ -169,6 +187,8 @@ public class CsvExporterImpl implements CsvExporter
         value = String.valueOf( aValue );
       }
     }
-    return "\"" + value + "\"";
+    this.writer.write( '"' );
+    this.writer.write( value );
+    this.writer.write( '"' );
   }
 }
@@ -66,7 +66,7 @@ public class HtmlFileExporterImpl extends HtmlExporterImpl implements HtmlFileEx
     getHead().addChild( HtmlExporter.META ).addAttribute( "http-equiv", "Content-type" )
         .addAttribute( "content", "text/html;charset=UTF-8" );
 
-    this.writer = aWriter;
+    this.writer = new BufferedWriter( aWriter );
   }
 
   // METHODS
@@ -93,6 +93,6 @@ public class HtmlFileExporterImpl extends HtmlExporterImpl implements HtmlFileEx
   @Override
   public void write( final MacroResolver aResolver ) throws IOException
   {
-    this.writer.write( toString( aResolver ) );
+    write( this.writer, aResolver );
   }
 }
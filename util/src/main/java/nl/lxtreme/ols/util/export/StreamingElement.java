@@ -0,0 +1,264 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.export;
+
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Attribute;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+
+
+/**
+ * Provides a stand-in for the parent element of a macro while streaming,
+ * which writes the children added to it directly to a writer.
+ * <p>
+ * The last added child is kept until the next child is added, or this element
+ * is flushed, as it is typically modified after being added. Hence, at most
+ * one added child is retained in memory.
+ * </p>
+ */
+final class StreamingElement implements Element
+{
+  // INNER TYPES
+
+  /**
+   * Wraps an I/O exception that occurs while writing an added child, which is
+   * unwrapped again by {@link TextElement} after the macro is resolved.
+   */
+  static final class StreamingException extends RuntimeException
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link StreamingException} instance.
+     */
+    StreamingException( final IOException aCause )
+    {
+      super( aCause );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IOException getCause()
+    {
+      return ( IOException )super.getCause();
+    }
+  }
+
+  // VARIABLES
+
+  private final Element parent;
+  private final Writer writer;
+  private final MacroResolver resolver;
+
+  private Element pending;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link StreamingElement} instance.
+   * 
+   * @param aParent
+   *          the actual parent element, cannot be <code>null</code>;
+   * @param aWriter
+   *          the writer to write the added children to, cannot be
+   *          <code>null</code>;
+   * @param aResolver
+   *          the macro resolver to use for the added children, cannot be
+   *          <code>null</code>.
+   */
+  StreamingElement( final Element aParent, final Writer aWriter, final MacroResolver aResolver )
+  {
+    this.parent = aParent;
+    this.writer = aWriter;
+    this.resolver = aResolver;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Element addAttribute( final String aName, final String aValue )
+  {
+    throw new IllegalStateException( "Cannot add attributes while streaming!" );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Element addChild( final Element aChild )
+  {
+    writePending();
+    this.pending = aChild.clone();
+    return this.pending;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Element addChild( final String aName )
+  {
+    writePending();
+    this.pending = new TagElement( aName );
+    return this.pending;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Element addContent( final String... aValues )
+  {
+    writePending();
+    for ( String value : aValues )
+    {
+      final TextElement element = new TextElement( value );
+      element.setParent( this );
+      writeElement( element );
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Element clone()
+  {
+    throw new IllegalStateException( "Cannot clone while streaming!" );
+  }
+
+  /**
+   * Writes the last added child, if any, to the writer.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void flush() throws IOException
+  {
+    if ( this.pending != null )
+    {
+      final Element element = this.pending;
+      this.pending = null;
+      element.write( this.writer, this.resolver );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<Attribute> getAttributes()
+  {
+    return this.parent.getAttributes();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Element getChildByName( final String aName )
+  {
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<Element> getChildren()
+  {
+    return Collections.emptyList();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return this.parent.getName();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString( final MacroResolver aResolver )
+  {
+    throw new IllegalStateException( "Cannot convert to string while streaming!" );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException
+  {
+    throw new IllegalStateException( "Cannot write while streaming!" );
+  }
+
+  /**
+   * Writes the given element, wrapping any I/O problems, as the methods of
+   * {@link Element} cannot throw checked exceptions.
+   */
+  private void writeElement( final Element aElement )
+  {
+    try
+    {
+      aElement.write( this.writer, this.resolver );
+    }
+    catch ( IOException exception )
+    {
+      throw new StreamingException( exception );
+    }
+  }
+
+  /**
+   * Writes the last added child, if any.
+   */
+  private void writePending()
+  {
+    try
+    {
+      flush();
+    }
+    catch ( IOException exception )
+    {
+      throw new StreamingException( exception );
+    }
+  }
+}
@@ -21,6 +21,7 @@
 package nl.lxtreme.ols.util.export;
 
 
+import java.io.*;
 import java.util.*;
 
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Attribute;
@@ -253,4 +254,36 @@ public final class TagElement implements Element
 
     return sb.toString();
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException
+  {
+    aWriter.write( '<' );
+    aWriter.write( this.name );
+
+    for ( int i = 0; i < this.attributes.size(); i++ )
+    {
+      final Attribute attribute = this.attributes.get( i );
+
+      aWriter.write( ' ' );
+      aWriter.write( attribute.toString( aResolver ) );
+    }
+
+    aWriter.write( '>' );
+
+    if ( this.needsCloseTag )
+    {
+      for ( int i = 0; i < this.children.size(); i++ )
+      {
+        this.children.get( i ).write( aWriter, aResolver );
+      }
+
+      aWriter.write( "</" );
+      aWriter.write( this.name );
+      aWriter.write( '>' );
+    }
+  }
 }
@@ -21,6 +21,7 @@
 package nl.lxtreme.ols.util.export;
 
 
+import java.io.*;
 import java.util.*;
 import java.util.regex.*;
 
@@ -172,10 +173,10 @@ public final class TextElement implements Element
   @Override
   public String toString( final MacroResolver aResolver )
   {
-    final Matcher matcher = MACRO_PATTERN.matcher( this.value );
-    if ( matcher.matches() )
+    final String macro = getMacro();
+    if ( macro != null )
     {
-      Object result = aResolver.resolve( matcher.group( 1 ), this.parent );
+      Object result = aResolver.resolve( macro, this.parent );
       if ( result != null )
       {
         return String.valueOf( result );
@@ -187,4 +188,58 @@ public final class TextElement implements Element
     }
     return this.value;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException
+  {
+    final String macro = getMacro();
+    if ( macro != null )
+    {
+      // Any children added by the resolver are written directly, instead of
+      // being added to our parent...
+      final StreamingElement parent = new StreamingElement( this.parent, aWriter, aResolver );
+
+      final Object result;
+      try
+      {
+        result = aResolver.resolve( macro, parent );
+      }
+      catch ( StreamingElement.StreamingException exception )
+      {
+        throw exception.getCause();
+      }
+
+      parent.flush();
+      if ( result != null )
+      {
+        aWriter.write( String.valueOf( result ) );
+      }
+    }
+    else
+    {
+      aWriter.write( this.value );
+    }
+  }
+
+  /**
+   * @return the name of the macro in this text element, or <code>null</code>
+   *         if this text element does not contain a macro.
+   */
+  private String getMacro()
+  {
+    // Avoid the (expensive) regular expression for plain texts...
+    if ( this.value.indexOf( '{' ) < 0 )
+    {
+      return null;
+    }
+    final Matcher matcher = MACRO_PATTERN.matcher( this.value );
+    if ( matcher.matches() )
+    {
+      return matcher.group( 1 );
+    }
+    return null;
+  }
 }
@@ -22,6 +22,9 @@ package nl.lxtreme.ols.util;
 
 
 import static org.junit.Assert.*;
+
+import java.io.*;
+
 import nl.lxtreme.ols.util.ExportUtils.*;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.*;
 import nl.lxtreme.ols.util.export.*;
@@ -51,6 +54,31 @@ public class ExportUtilsTest
     }
   }
 
+  static final class RowMacroResolver implements MacroResolver
+  {
+    // METHODS
+
+    /**
+     * @see nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver#resolve(java.lang.String,
+     *      nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element)
+     */
+    @Override
+    public Object resolve( final String aMacro, final Element aParent )
+    {
+      if ( "rows".equals( aMacro ) )
+      {
+        for ( int i = 0; i < 3; i++ )
+        {
+          final Element tr = aParent.addChild( HtmlExporter.TR ).addAttribute( "class", "row" + i );
+          tr.addChild( HtmlExporter.TD ).addContent( String.valueOf( i ) );
+          tr.addChild( HtmlExporter.TD ).addContent( "{cell}" );
+        }
+        return null;
+      }
+      return aMacro.toUpperCase();
+    }
+  }
+
   // VARIABLES
 
   private HtmlExporter exporter;
@@ -147,6 +175,24 @@ public class ExportUtilsTest
         this.exporter.toString() );
   }
 
+  /**
+   * Tests that the CSV exporter writes quoted cells to a given writer.
+   */
+  @Test
+  public void testCsvExportToWriter() throws IOException
+  {
+    final StringWriter writer = new StringWriter();
+
+    final CsvExporter csvExporter = ExportUtils.createCsvExporter( writer );
+    csvExporter.setHeaders( "index", "value" );
+    csvExporter.addRow( Integer.valueOf( 1 ), "a" );
+    csvExporter.addRow( Integer.valueOf( 2 ), null );
+    csvExporter.close();
+
+    final String nl = System.getProperty( "line.separator" );
+    assertEquals( "\"index\",\"value\"" + nl + "\"1\",\"a\"" + nl + "\"2\",\"\"" + nl, writer.toString() );
+  }
+
   /**
    * 
    */
@@ -190,6 +236,32 @@ public class ExportUtilsTest
         .toString( new NullMacroResolver() ) );
   }
 
+  /**
+   * Tests that streaming an export yields the same result as converting it to
+   * a string, including the rows added by a macro.
+   */
+  @Test
+  public void testStreamingEqualsToString() throws IOException
+  {
+    this.exporter.addCssStyle( "td { width: 10%; }" );
+
+    Element cur = this.exporter.getBody();
+    cur.addChild( HtmlExporter.H1 ).addContent( "{title}" );
+    final Element table = cur.addChild( HtmlExporter.TABLE );
+    table.addChild( HtmlExporter.TR ).addChild( HtmlExporter.TH ).addContent( "header" );
+    table.addContent( "{rows}" );
+    cur.addChild( HtmlExporter.HR );
+
+    final StringWriter writer = new StringWriter();
+    this.exporter.write( writer, new RowMacroResolver() );
+
+    assertEquals( "<html><head><title></title><style type='text/css'>td { width: 10%; }</style></head><body>"
+        + "<h1>TITLE</h1><table><tr><th>header</th></tr><tr class='row0'><td>0</td><td>CELL</td></tr>"
+        + "<tr class='row1'><td>1</td><td>CELL</td></tr><tr class='row2'><td>2</td><td>CELL</td></tr></table>"
+        + "<hr></body></html>", writer.toString() );
+    assertEquals( this.exporter.toString( new RowMacroResolver() ), writer.toString() );
+  }
+
   /**
    * 
    */